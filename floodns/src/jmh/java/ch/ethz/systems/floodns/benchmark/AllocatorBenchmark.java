@@ -0,0 +1,66 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.core.Connection;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.ext.allocator.SimpleMmfAllocator;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.routing.EcmpRoutingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a max-min fair allocation from scratch (SimpleMmfAllocator.perform) of
+ * the given amount of active connections between random servers under distinct ToRs,
+ * each with a single flow along its ECMP path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocatorBenchmark {
+
+    @Param({"fat_tree_k8", "leaf_spine_16x8"})
+    public String scenario;
+
+    @Param({"100", "1000"})
+    public int connections;
+
+    private RunningSimulation running;
+    private SimpleMmfAllocator allocator;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Topology topology = SyntheticTopology.create(scenario);
+        Network network = topology.getNetwork();
+        running = new RunningSimulation(network);
+        Simulator simulator = running.getSimulator();
+        EcmpRoutingStrategy routingStrategy = new EcmpRoutingStrategy(simulator, topology, new Random(1234));
+        List<int[]> pairs = SyntheticTopology.drawPairs(topology, connections, new Random(42));
+        running.execute(() -> {
+            for (int[] pair : pairs) {
+                Connection connection = new Connection(simulator, network.getNode(pair[0]), network.getNode(pair[1]), 1e9, -1);
+                simulator.activateConnection(connection);
+                routingStrategy.assignStartFlows(connection);
+            }
+        });
+        allocator = new SimpleMmfAllocator(simulator, network);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running.close();
+    }
+
+    @Benchmark
+    public void perform() {
+        running.execute(allocator::perform);
+    }
+
+}
@@ -0,0 +1,84 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.core.Aftermath;
+import ch.ethz.systems.floodns.core.Connection;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.deeplearningtraining.Job;
+import ch.ethz.systems.floodns.ext.allocator.VoidAllocator;
+import ch.ethz.systems.floodns.ext.basicsim.schedule.JobEpochScheduleEntry;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import ch.ethz.systems.floodns.ext.routing.CentralizedRoutingStrategy;
+import ch.ethz.systems.floodns.ext.routing.McvlcRoutingStrategy;
+import ch.ethz.systems.floodns.ext.routing.SimulatedAnnealingRoutingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a path assignment of the centralized routing strategies (MCVLC and simulated
+ * annealing) for a job with random permutation traffic among all servers of a leaf-spine,
+ * as done at the start of every epoch of the job.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CentralizedRoutingBenchmark {
+
+    private static final int JOB_ID = 0;
+
+    @Param({"leaf_spine_16x8", "leaf_spine_32x16"})
+    public String scenario;
+
+    @Param({"mcvlc", "simulated_annealing"})
+    public String routingStrategy;
+
+    private CentralizedRoutingStrategy strategy;
+    private List<Connection> connections;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Topology topology = SyntheticTopology.create(scenario);
+        Network network = topology.getNetwork();
+        Simulator simulator = new Simulator();
+        Aftermath aftermath = new VoidAllocator(simulator, network);
+        simulator.setup(network, aftermath, new VoidLoggerFactory(simulator));
+        switch (routingStrategy) {
+            case "mcvlc":
+                strategy = new McvlcRoutingStrategy(simulator, topology);
+                break;
+            case "simulated_annealing":
+                strategy = new SimulatedAnnealingRoutingStrategy(simulator, topology, new Random(1234));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown routing strategy: " + routingStrategy);
+        }
+        simulator.getJobs().put(JOB_ID, new Job(simulator, network, strategy, new JobEpochScheduleEntry(
+                JOB_ID, "benchmark", "data_parallelism", 1e9, 0, 0, 1, 1
+        )));
+        connections = new ArrayList<>();
+        for (int[] pair : SyntheticTopology.drawPermutation(topology, new Random(42))) {
+            connections.add(new Connection(simulator, network.getNode(pair[0]), network.getNode(pair[1]), 1e9, JOB_ID));
+        }
+    }
+
+    @Benchmark
+    public void determinePathAssignments() {
+        for (Connection connection : connections) {
+            strategy.addSrcDst(connection);
+        }
+        strategy.determinePathAssignments();
+        for (Connection connection : connections) {
+            strategy.clearResources(connection);
+        }
+    }
+
+}
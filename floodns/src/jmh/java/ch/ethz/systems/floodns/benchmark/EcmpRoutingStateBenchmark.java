@@ -0,0 +1,39 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.routing.EcmpRoutingTable;
+import ch.ethz.systems.floodns.ext.routing.RoutingUtility;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build the ECMP next-hop table of all switches towards all ToRs,
+ * including the shortest path lengths (no cache), as done when an ECMP
+ * routing strategy is created.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EcmpRoutingStateBenchmark {
+
+    @Param({"fat_tree_k8", "fat_tree_k16", "fat_tree_k24", "leaf_spine_32x16"})
+    public String scenario;
+
+    private Topology topology;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        topology = SyntheticTopology.create(scenario);
+    }
+
+    @Benchmark
+    public EcmpRoutingTable build() {
+        return RoutingUtility.determineEcmpRoutingTable(topology, true, null);
+    }
+
+}
@@ -0,0 +1,116 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.basicsim.topology.TopologyDetails;
+import ch.ethz.systems.floodns.ext.sysutils.SharedMemory;
+import ch.ethz.systems.floodns.ext.utils.BipartiteEdgeColoring;
+import com.google.gson.Gson;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decision latency of the edge coloring routing strategy: coloring the (source ToR,
+ * destination ToR) commodities of random permutation traffic among all servers of a
+ * leaf-spine, by
+ * <ul>
+ *     <li>native: the in-process coloring, from scratch;</li>
+ *     <li>native_incremental: the in-process coloring, after replacing a few commodities
+ *     of the previous decision (the others keep their color unless on an alternating path);</li>
+ *     <li>python: the Python controller (external/edge_coloring), as subprocess
+ *     communicating via shared memory files. It requires the Poetry environment of
+ *     floodns and has to be run from the floodns directory.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EdgeColoringBenchmark {
+
+    private static final int NUM_CHANGES = 4;
+
+    @Param({"leaf_spine_16x8", "leaf_spine_32x16"})
+    public String scenario;
+
+    @Param({"native", "native_incremental", "python"})
+    public String backend;
+
+    private Map<Integer, ImmutablePair<Integer, Integer>> torCommodities;
+    private List<ImmutablePair<Integer, Integer>> replacements;
+    private BipartiteEdgeColoring incremental;
+    private ArrayDeque<Integer> incrementalIds;
+    private int nextId;
+    private int nextReplacement;
+    private String runDirectory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Topology topology = SyntheticTopology.create(scenario);
+        TopologyDetails details = topology.getDetails();
+        Random random = new Random(42);
+        torCommodities = new LinkedHashMap<>();
+        for (int[] pair : SyntheticTopology.drawPermutation(topology, random)) {
+            torCommodities.put(torCommodities.size(), ImmutablePair.of(details.getTorIdOfServer(pair[0]), details.getTorIdOfServer(pair[1])));
+        }
+        replacements = new ArrayList<>();
+        for (int[] pair : SyntheticTopology.drawPairs(topology, 1000, random)) {
+            replacements.add(ImmutablePair.of(details.getTorIdOfServer(pair[0]), details.getTorIdOfServer(pair[1])));
+        }
+
+        // Previous decision of the incremental coloring
+        incremental = new BipartiteEdgeColoring();
+        incrementalIds = new ArrayDeque<>();
+        torCommodities.forEach((id, commodity) -> {
+            incremental.add(id, commodity.getLeft(), commodity.getRight());
+            incrementalIds.add(id);
+        });
+        incremental.forEachRecolored(id -> { });
+        nextId = torCommodities.size();
+        nextReplacement = 0;
+
+        runDirectory = Files.createTempDirectory("edge_coloring_benchmark").toString();
+    }
+
+    @Benchmark
+    public void determineColors(Blackhole blackhole) {
+        switch (backend) {
+            case "native":
+                BipartiteEdgeColoring coloring = new BipartiteEdgeColoring();
+                torCommodities.forEach((id, commodity) -> coloring.add(id, commodity.getLeft(), commodity.getRight()));
+                coloring.forEachRecolored(id -> blackhole.consume(coloring.getColor(id)));
+                break;
+            case "native_incremental":
+                for (int i = 0; i < NUM_CHANGES; i++) {
+                    incremental.remove(incrementalIds.poll());
+                    ImmutablePair<Integer, Integer> commodity = replacements.get(nextReplacement);
+                    nextReplacement = (nextReplacement + 1) % replacements.size();
+                    incremental.add(nextId, commodity.getLeft(), commodity.getRight());
+                    incrementalIds.add(nextId);
+                    nextId++;
+                }
+                incremental.compact();
+                incremental.forEachRecolored(id -> blackhole.consume(incremental.getColor(id)));
+                break;
+            case "python":
+                Map<String, String> request = new HashMap<>();
+                request.put("src_dst_pairs", torCommodities.toString());
+                request.put("output_folder", runDirectory);
+                blackhole.consume(SharedMemory.receivePathAssignmentsFromController(
+                        runDirectory + "/shared_memory_java.json", runDirectory + "/shared_memory_python.json",
+                        new Gson().toJson(request), runDirectory, false
+                ));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+    }
+
+}
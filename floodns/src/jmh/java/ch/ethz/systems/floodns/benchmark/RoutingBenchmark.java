@@ -0,0 +1,96 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.core.Connection;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.routing.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per routing decision of the distributed routing strategies (ECMP, k-shortest paths
+ * and Valiant via the cores) for connections between random servers under distinct ToRs.
+ * Every operation starts a batch of connections (activation and assignment of their flows)
+ * and terminates them again, such that the network is empty in between operations.
+ * The routing state (e.g. ECMP next hops, k-shortest path cache) is built beforehand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private static final int CONNECTIONS_PER_OPERATION = 1000;
+    private static final int K = 4;
+
+    @Param({"fat_tree_k8", "leaf_spine_16x8"})
+    public String scenario;
+
+    @Param({"ecmp", "ksp", "valiant"})
+    public String routingStrategy;
+
+    private RunningSimulation running;
+    private Network network;
+    private RoutingStrategy strategy;
+    private List<int[]> pairs;
+    private Connection[] batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Topology topology = SyntheticTopology.create(scenario);
+        network = topology.getNetwork();
+        running = new RunningSimulation(network);
+        Simulator simulator = running.getSimulator();
+        Random random = new Random(1234);
+        switch (routingStrategy) {
+            case "ecmp":
+                strategy = new EcmpRoutingStrategy(simulator, topology, random);
+                break;
+            case "ksp":
+                strategy = new KspRoutingStrategy(simulator, topology, random, K);
+                break;
+            case "valiant":
+                strategy = new ValiantRoutingStrategy(simulator, topology, topology.getDetails().getCoreNodeIds(), random, false);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown routing strategy: " + routingStrategy);
+        }
+        pairs = SyntheticTopology.drawPairs(topology, CONNECTIONS_PER_OPERATION, new Random(42));
+        batch = new Connection[CONNECTIONS_PER_OPERATION];
+
+        // Fill any routing caches
+        running.execute(this::startAndTerminate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running.close();
+    }
+
+    private void startAndTerminate() {
+        Simulator simulator = running.getSimulator();
+        for (int i = 0; i < batch.length; i++) {
+            int[] pair = pairs.get(i);
+            batch[i] = new Connection(simulator, network.getNode(pair[0]), network.getNode(pair[1]), 1e9, -1);
+            simulator.activateConnection(batch[i]);
+            strategy.assignStartFlows(batch[i]);
+        }
+        for (Connection connection : batch) {
+            simulator.terminateConnection(connection);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONNECTIONS_PER_OPERATION)
+    public void assign() {
+        running.execute(this::startAndTerminate);
+    }
+
+}
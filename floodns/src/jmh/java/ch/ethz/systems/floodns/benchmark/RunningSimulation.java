@@ -0,0 +1,111 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.core.Aftermath;
+import ch.ethz.systems.floodns.core.Event;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Simulator which is kept running on a separate thread, such that a benchmark can
+ * repeatedly execute operations which are only permitted while it is running
+ * (e.g. activating connections, adding flows and allocating bandwidth).
+ * <p>
+ * The simulator is held in the aftermath of its first time tick, in which it executes
+ * the tasks handed to it one by one until it is closed.
+ */
+class RunningSimulation implements Closeable {
+
+    private static final FutureTask<Void> STOP = new FutureTask<>(() -> null);
+
+    private final Simulator simulator;
+    private final SynchronousQueue<FutureTask<?>> tasks;
+    private final Thread thread;
+
+    /**
+     * Set up the simulator on the network and start running it.
+     *
+     * @param network   Network instance
+     */
+    RunningSimulation(Network network) {
+        this.simulator = new Simulator();
+        this.tasks = new SynchronousQueue<>();
+        Aftermath aftermath = new Aftermath(simulator, network) {
+
+            private boolean served = false;
+
+            @Override
+            public void perform() {
+                if (!served) {
+                    served = true;
+                    serve();
+                }
+            }
+
+        };
+        VoidLoggerFactory loggerFactory = new VoidLoggerFactory(simulator);
+        loggerFactory.setConnectionInfoSavingEnabled(false); // Connections are not part of a job
+        simulator.setup(network, aftermath, loggerFactory);
+        simulator.insertEvents(new Event(simulator, 0, 0) {
+            @Override
+            protected void trigger() {
+                // Only to start the first time tick
+            }
+        });
+        this.thread = new Thread(() -> simulator.run(1), "running-simulation");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void serve() {
+        try {
+            FutureTask<?> task;
+            while ((task = tasks.take()) != STOP) {
+                task.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    Simulator getSimulator() {
+        return simulator;
+    }
+
+    /**
+     * Execute the task within the running simulator and wait for it to finish.
+     *
+     * @param task  Task
+     */
+    void execute(Runnable task) {
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        try {
+            tasks.put(future);
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Task failed in the running simulation.", e.getCause());
+        }
+    }
+
+    /**
+     * Let the simulator finish its run.
+     */
+    @Override
+    public void close() {
+        try {
+            tasks.put(STOP);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.core.Aftermath;
+import ch.ethz.systems.floodns.core.Connection;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.ext.allocator.IncrementalMmfAllocator;
+import ch.ethz.systems.floodns.ext.allocator.SimpleMmfAllocator;
+import ch.ethz.systems.floodns.ext.basicsim.schedule.ConnectionStartEvent;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import ch.ethz.systems.floodns.ext.routing.EcmpRoutingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of an entire simulation run (Simulator.run) of the given amount of connections
+ * between random servers under distinct ToRs, routed with ECMP. The connections start
+ * at random times within the first millisecond and have a random size of 1 to 100 Mbit,
+ * such that they finish in many distinct time ticks and the allocation is redone often.
+ * <p>
+ * Every run needs a new simulator and topology, which are set up outside of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SimulatorBenchmark {
+
+    private static final long START_WINDOW_NS = 1_000_000L;
+    private static final long RUNTIME_NS = 1_000_000_000L;
+
+    @Param({"fat_tree_k8", "leaf_spine_16x8"})
+    public String scenario;
+
+    @Param({"simple_mmf", "incremental_mmf"})
+    public String allocator;
+
+    @Param({"100", "1000"})
+    public int connections;
+
+    private Simulator simulator;
+
+    @Setup(Level.Invocation)
+    public void setup() throws IOException {
+        Topology topology = SyntheticTopology.create(scenario);
+        Network network = topology.getNetwork();
+        simulator = new Simulator();
+        Aftermath aftermath;
+        switch (allocator) {
+            case "simple_mmf":
+                aftermath = new SimpleMmfAllocator(simulator, network);
+                break;
+            case "incremental_mmf":
+                aftermath = new IncrementalMmfAllocator(simulator, network);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown allocator: " + allocator);
+        }
+        VoidLoggerFactory loggerFactory = new VoidLoggerFactory(simulator);
+        loggerFactory.setConnectionInfoSavingEnabled(false); // Connections are not part of a job
+        simulator.setup(network, aftermath, loggerFactory);
+        EcmpRoutingStrategy routingStrategy = new EcmpRoutingStrategy(simulator, topology, new Random(1234));
+        Random random = new Random(42);
+        List<int[]> pairs = SyntheticTopology.drawPairs(topology, connections, random);
+        for (int[] pair : pairs) {
+            double size = 1e6 + random.nextDouble() * 99e6;
+            Connection connection = new Connection(simulator, network.getNode(pair[0]), network.getNode(pair[1]), size, -1);
+            simulator.insertEvents(new ConnectionStartEvent(simulator, (long) (random.nextDouble() * START_WINDOW_NS), connection, routingStrategy));
+        }
+    }
+
+    @Benchmark
+    public void run() {
+        simulator.run(RUNTIME_NS);
+    }
+
+}
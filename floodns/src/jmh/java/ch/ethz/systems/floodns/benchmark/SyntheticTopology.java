@@ -0,0 +1,187 @@
+package ch.ethz.systems.floodns.benchmark;
+
+import ch.ethz.systems.floodns.ext.basicsim.topology.FileToTopologyConverter;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Reproducible synthetic topologies for the benchmarks, read in through the same
+ * conversion as a normal run.
+ * <p>
+ * Scenarios:
+ * <ul>
+ *     <li><b>fat_tree_k{k}:</b> three-tier k-ary fat-tree (k pods of k/2 ToRs and k/2 aggregation
+ *     switches, (k/2)^2 cores, k/2 servers per ToR);</li>
+ *     <li><b>leaf_spine_{l}x{s}:</b> two-tier leaf-spine of l ToRs and s spines (cores), with s servers
+ *     per ToR.</li>
+ * </ul>
+ * All links have the same data rate.
+ */
+class SyntheticTopology {
+
+    static final double LINK_DATA_RATE_BIT_PER_NS = 10.0;
+
+    private SyntheticTopology() {
+        // Static class only
+    }
+
+    /**
+     * Create the topology of a scenario. As a topology is changed by running a simulation
+     * on it, every simulation needs a newly created one.
+     *
+     * @param scenario  Scenario name (e.g. fat_tree_k8 or leaf_spine_16x8)
+     *
+     * @return Topology
+     */
+    static Topology create(String scenario) throws IOException {
+        List<Integer> tors = new ArrayList<>();
+        List<Integer> aggregations = new ArrayList<>();
+        List<Integer> cores = new ArrayList<>();
+        List<Integer> servers = new ArrayList<>();
+        List<int[]> links = new ArrayList<>();
+        int serversPerTor;
+        if (scenario.startsWith("fat_tree_k")) {
+            int k = Integer.parseInt(scenario.substring("fat_tree_k".length()));
+            if (k < 2 || k % 2 != 0) {
+                throw new IllegalArgumentException("Fat-tree arity must be even: " + scenario);
+            }
+            int half = k / 2;
+            int numTors = k * half;
+            serversPerTor = half;
+            addRange(tors, 0, numTors);
+            addRange(aggregations, numTors, numTors);
+            addRange(cores, 2 * numTors, half * half);
+            addRange(servers, 2 * numTors + half * half, numTors * half);
+            for (int pod = 0; pod < k; pod++) {
+                for (int i = 0; i < half; i++) {
+                    for (int j = 0; j < half; j++) {
+                        links.add(new int[]{tors.get(pod * half + i), aggregations.get(pod * half + j)});
+                    }
+                }
+                for (int j = 0; j < half; j++) {
+                    for (int m = 0; m < half; m++) {
+                        links.add(new int[]{aggregations.get(pod * half + j), cores.get(j * half + m)});
+                    }
+                }
+            }
+        } else if (scenario.startsWith("leaf_spine_")) {
+            String[] spl = scenario.substring("leaf_spine_".length()).split("x");
+            int numTors = Integer.parseInt(spl[0]);
+            int numCores = Integer.parseInt(spl[1]);
+            serversPerTor = numCores;
+            addRange(tors, 0, numTors);
+            addRange(cores, numTors, numCores);
+            addRange(servers, numTors + numCores, numTors * numCores);
+            for (int tor : tors) {
+                for (int core : cores) {
+                    links.add(new int[]{tor, core});
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+        for (int i = 0; i < servers.size(); i++) {
+            links.add(new int[]{tors.get(i / serversPerTor), servers.get(i)});
+        }
+
+        // Write and read in the topology file
+        List<Integer> switches = new ArrayList<>(tors);
+        switches.addAll(aggregations);
+        switches.addAll(cores);
+        StringBuilder edges = new StringBuilder("set(");
+        for (int i = 0; i < links.size(); i++) {
+            edges.append(i == 0 ? "" : ",").append(links.get(i)[0]).append("-").append(links.get(i)[1]);
+        }
+        edges.append(")");
+        File topologyFile = File.createTempFile("synthetic", ".topology");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(topologyFile))) {
+                writer.write("# Synthetic " + scenario + "\n");
+                writer.write("num_nodes=" + (switches.size() + servers.size()) + "\n");
+                writer.write("num_undirected_edges=" + links.size() + "\n");
+                writer.write("switches=" + toSet(switches) + "\n");
+                writer.write("switches_which_are_tors=" + toSet(tors) + "\n");
+                writer.write("servers=" + toSet(servers) + "\n");
+                writer.write("cores=" + toSet(cores) + "\n");
+                writer.write("undirected_edges=" + edges + "\n");
+                writer.write("link_data_rate_bit_per_ns=" + LINK_DATA_RATE_BIT_PER_NS + "\n");
+            }
+            return FileToTopologyConverter.convert(topologyFile.getAbsolutePath());
+        } finally {
+            if (!topologyFile.delete()) {
+                throw new IOException("Could not delete " + topologyFile);
+            }
+        }
+    }
+
+    /**
+     * Draw a random permutation traffic pattern, in which every server sends to exactly
+     * one server and receives from exactly one server under another ToR.
+     *
+     * @param topology  Topology
+     * @param random    Random number generator
+     *
+     * @return Pairs of source and destination server identifiers
+     */
+    static List<int[]> drawPermutation(Topology topology, Random random) {
+        List<Integer> servers = new ArrayList<>(topology.getDetails().getServerNodeIds());
+        Collections.sort(servers);
+        List<Integer> destinations = new ArrayList<>(servers);
+        boolean valid;
+        do {
+            Collections.shuffle(destinations, random);
+            valid = true;
+            for (int i = 0; i < servers.size() && valid; i++) {
+                valid = topology.getDetails().getTorIdOfServer(servers.get(i)) != topology.getDetails().getTorIdOfServer(destinations.get(i));
+            }
+        } while (!valid);
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < servers.size(); i++) {
+            pairs.add(new int[]{servers.get(i), destinations.get(i)});
+        }
+        return pairs;
+    }
+
+    /**
+     * Draw random pairs of servers under distinct ToRs.
+     *
+     * @param topology  Topology
+     * @param numPairs  Number of pairs
+     * @param random    Random number generator
+     *
+     * @return Pairs of source and destination server identifiers
+     */
+    static List<int[]> drawPairs(Topology topology, int numPairs, Random random) {
+        List<Integer> servers = new ArrayList<>(topology.getDetails().getServerNodeIds());
+        Collections.sort(servers);
+        List<int[]> pairs = new ArrayList<>();
+        while (pairs.size() < numPairs) {
+            int src = servers.get(random.nextInt(servers.size()));
+            int dst = servers.get(random.nextInt(servers.size()));
+            if (topology.getDetails().getTorIdOfServer(src) != topology.getDetails().getTorIdOfServer(dst)) {
+                pairs.add(new int[]{src, dst});
+            }
+        }
+        return pairs;
+    }
+
+    private static void addRange(List<Integer> ids, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            ids.add(i);
+        }
+    }
+
+    private static String toSet(List<Integer> ids) {
+        StringBuilder builder = new StringBuilder("set(");
+        for (int i = 0; i < ids.size(); i++) {
+            builder.append(i == 0 ? "" : ",").append(ids.get(i));
+        }
+        return builder.append(")").toString();
+    }
+
+}
@@ -58,6 +58,9 @@ public class Connection {
     // State
     private double remainder;
     private double remainderUpdateThreshold;
+    private long lastProgressTime;
+    private long nextUpdateTime;
+    private boolean nextUpdateTimeOutdated;
     private Set<Flow> flows;
     private List<Integer> pastAndPresentFlowIds;
     private double totalBandwidth;
@@ -99,6 +102,9 @@ public class Connection {
         // State
         this.remainder = totalSize;
         this.remainderUpdateThreshold = totalSize;
+        this.lastProgressTime = 0;
+        this.nextUpdateTime = Long.MAX_VALUE;
+        this.nextUpdateTimeOutdated = false;
         this.flows = new HashSet<>();
         this.pastAndPresentFlowIds = new ArrayList<>();
         this.totalBandwidth = 0.0;
@@ -127,6 +133,7 @@ public class Connection {
     void setActive() {
         assert (status == Status.AWAITING_ACTIVATION);
         this.status = Status.ACTIVE;
+        this.lastProgressTime = simulator.getCurrentTime();
     }
 
     /**
@@ -253,25 +260,68 @@ public class Connection {
     }
 
     /**
-     * Reduce the remainder.
+     * Reduce the remainder by the progress made since it was last reduced.
+     * <p>
+     * The total bandwidth only changes via {@link #adaptBandwidth(double)}, which first
+     * accounts the progress made at the old bandwidth, as such the remainder does not
+     * need to be reduced for every passing time tick.
+     */
+    private void updateProgress() {
+        long now = simulator.getCurrentTime();
+        if (now > lastProgressTime) {
+            double progress = (now - lastProgressTime) * totalBandwidth;
+            remainder -= progress;
+            if (remainder < 0) {
+                remainder = 0;
+            }
+            remainderUpdateThreshold -= progress;
+            if (remainderUpdateThreshold < 0) {
+                remainderUpdateThreshold = 0;
+            }
+            lastProgressTime = now;
+        }
+    }
+
+    /**
+     * Check whether the connection has been completed at the current time.
      *
-     * @param elapsed Amount of time elapsed
      * @return True iff the complete flow has been completed
      */
-    boolean reduceRemainder(long elapsed) {
-        assert (elapsed > 0);
+    boolean isCompleted() {
+        updateProgress();
+        return remainder <= simulator.getFlowPrecision();
+    }
 
-        // Reduce remainder, and check if complete
-        remainder -= elapsed * totalBandwidth;
-        if (remainder < 0) {
-            remainder = 0;
-        }
-        remainderUpdateThreshold -= elapsed * totalBandwidth;
-        if (remainderUpdateThreshold < 0) {
-            remainderUpdateThreshold = 0;
+    /**
+     * Notify the simulator that the time of the next update of this connection might have changed.
+     */
+    private void invalidateNextUpdateTime() {
+        if (!nextUpdateTimeOutdated && status == Status.ACTIVE) {
+            nextUpdateTimeOutdated = true;
+            simulator.markConnectionUpdateTimeOutdated(this);
         }
-        return remainder <= simulator.getFlowPrecision();
+    }
+
+    /**
+     * Recalculate the absolute time at which this connection next needs an update.
+     *
+     * @return Absolute time of the next update (Long.MAX_VALUE, if never)
+     */
+    long refreshNextUpdateTime() {
+        nextUpdateTimeOutdated = false;
+        long timeTillUpdate = timeTillUpdateNeeded();
+        nextUpdateTime = timeTillUpdate == Long.MAX_VALUE ? Long.MAX_VALUE : lastProgressTime + timeTillUpdate;
+        return nextUpdateTime;
+    }
 
+    /**
+     * Retrieve the absolute time at which this connection next needs an update,
+     * as it was last calculated by {@link #refreshNextUpdateTime()}.
+     *
+     * @return Absolute time of the next update (Long.MAX_VALUE, if never)
+     */
+    long getNextUpdateTime() {
+        return nextUpdateTime;
     }
 
     /**
@@ -280,6 +330,7 @@ public class Connection {
      * @return Time till update (upper bound)
      */
     public long timeTillUpdateNeeded() {
+        updateProgress();
         if (totalBandwidth == 0.0) {
             return Long.MAX_VALUE;
         }
@@ -296,6 +347,7 @@ public class Connection {
      * @return Remainder update threshold
      */
     public double getRemainderUpdateThreshold() {
+        updateProgress();
         return remainderUpdateThreshold;
     }
 
@@ -305,12 +357,14 @@ public class Connection {
      * @param threshold New remainder update threshold (cannot be larger than the remainder)
      */
     public void setRemainderUpdateThreshold(double threshold) {
+        updateProgress();
         if (threshold > remainder) {
             throw new IllegalArgumentException(String.format(
                     "Illegal remainder update threshold %f (larger than remainder = %f)."
                     , threshold, remainder));
         }
         remainderUpdateThreshold = threshold;
+        invalidateNextUpdateTime();
     }
 
     /**
@@ -319,6 +373,7 @@ public class Connection {
      * @return True iff the remainder update threshold is passed (within precision)
      */
     public boolean isRemainderUpdateThresholdPassed() {
+        updateProgress();
         return remainderUpdateThreshold <= simulator.getFlowPrecision();
     }
 
@@ -327,10 +382,12 @@ public class Connection {
      * up the bandwidth of all encapsulated flows that belong to it.
      */
     void adaptBandwidth(double deltaBandwidth) {
+        updateProgress();
         totalBandwidth += deltaBandwidth;
         if (totalBandwidth < 0.0) {
             totalBandwidth = 0.0;
         }
+        invalidateNextUpdateTime();
         logger.logConnectionStateChange(totalBandwidth);
     }
 
@@ -357,6 +414,7 @@ public class Connection {
      * @return Connection flow size remainder
      */
     public double getRemainder() {
+        updateProgress();
         return remainder;
     }
 
@@ -393,7 +451,7 @@ public class Connection {
     @Override
     public String toString() {
         DecimalFormat df = new DecimalFormat("#.##");
-        return "Connection#" + connectionId + "[ " + srcNodeId + " -> " + dstNodeId + "; size=(" + df.format(remainder) + "/"
+        return "Connection#" + connectionId + "[ " + srcNodeId + " -> " + dstNodeId + "; size=(" + df.format(getRemainder()) + "/"
                 + df.format(totalSize) + " remaining); flows=" + getPastAndPresentFlowIds() + " ]";
     }
 
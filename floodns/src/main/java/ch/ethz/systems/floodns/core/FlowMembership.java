@@ -0,0 +1,286 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package ch.ethz.systems.floodns.core;
+
+import java.util.*;
+
+/**
+ * Set of flows keyed by their flow identifier, backed by primitive arrays.
+ * <p>
+ * The flows are stored densely (a removed flow is replaced by the last one), and
+ * indexed by an open-addressing hash table of flow identifiers which refers to
+ * their dense position. Addition, removal and look-up are O(1) without boxing,
+ * and iteration is over a plain array.
+ */
+final class FlowMembership {
+
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final Flow[] EMPTY_FLOWS = new Flow[0];
+
+    // Table capacity above which an empty membership releases its arrays
+    private static final int RELEASE_THRESHOLD = 64;
+
+    // Dense storage
+    private int[] ids;
+    private Flow[] flows;
+    private int size;
+
+    // Hash table of dense position + 1 (0 is an empty slot); length is zero or a power of two
+    private int[] table;
+
+    // Number of modifications, such that iterators can fail fast
+    private int modCount;
+
+    FlowMembership() {
+        this.ids = EMPTY_INTS;
+        this.flows = EMPTY_FLOWS;
+        this.table = EMPTY_INTS;
+        this.size = 0;
+        this.modCount = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int flowId) {
+        return findSlot(flowId) >= 0;
+    }
+
+    /**
+     * Add a flow, which must not yet be present.
+     *
+     * @param flow Flow instance
+     */
+    void add(Flow flow) {
+        assert (!contains(flow.getFlowId()));
+        if (size == ids.length) {
+            int capacity = Math.max(4, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            flows = Arrays.copyOf(flows, capacity);
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(Math.max(8, table.length * 2));
+        }
+        ids[size] = flow.getFlowId();
+        flows[size] = flow;
+        size++;
+        insertSlot(size - 1);
+        modCount++;
+    }
+
+    /**
+     * Remove a flow.
+     *
+     * @param flowId Flow identifier
+     * @return True iff the flow was present
+     */
+    boolean remove(int flowId) {
+        int slot = findSlot(flowId);
+        if (slot < 0) {
+            return false;
+        }
+        int pos = table[slot] - 1;
+        deleteSlot(slot);
+
+        // Move the last flow into the freed position
+        int last = size - 1;
+        if (pos != last) {
+            int lastSlot = findSlot(ids[last]);
+            ids[pos] = ids[last];
+            flows[pos] = flows[last];
+            table[lastSlot] = pos + 1;
+        }
+        flows[last] = null;
+        size--;
+        modCount++;
+
+        // Do not keep large arrays around for links and nodes without flows
+        if (size == 0 && table.length > RELEASE_THRESHOLD) {
+            ids = EMPTY_INTS;
+            flows = EMPTY_FLOWS;
+            table = EMPTY_INTS;
+        }
+        return true;
+    }
+
+    private static int hash(int flowId) {
+        int h = flowId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(int flowId) {
+        if (table.length == 0) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        int i = hash(flowId) & mask;
+        while (table[i] != 0) {
+            if (ids[table[i] - 1] == flowId) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertSlot(int pos) {
+        int mask = table.length - 1;
+        int i = hash(ids[pos]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = pos + 1;
+    }
+
+    /**
+     * Empty a slot, shifting back the entries of the probe sequence after it
+     * such that all remaining entries can still be found.
+     *
+     * @param slot Slot index
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        table[hole] = 0;
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (table[i] == 0) {
+                return;
+            }
+            int home = hash(ids[table[i] - 1]) & mask;
+            // The entry can move into the hole iff its home slot is not cyclically within (hole, i]
+            boolean stays = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!stays) {
+                table[hole] = table[i];
+                table[i] = 0;
+                hole = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int pos = 0; pos < size; pos++) {
+            insertSlot(pos);
+        }
+    }
+
+    /**
+     * Retrieve an unmodifiable view of the flow identifiers.
+     * Changes to the membership are propagated to the view.
+     *
+     * @return Unmodifiable set of flow identifiers
+     */
+    Set<Integer> idView() {
+        return new AbstractSet<Integer>() {
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return new MembershipIterator<Integer>() {
+                    @Override
+                    Integer get(int pos) {
+                        return ids[pos];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && FlowMembership.this.contains((Integer) o);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    /**
+     * Retrieve an unmodifiable view of the flows.
+     * Changes to the membership are propagated to the view.
+     *
+     * @return Unmodifiable collection of flows
+     */
+    Collection<Flow> flowView() {
+        return new AbstractCollection<Flow>() {
+
+            @Override
+            public Iterator<Flow> iterator() {
+                return new MembershipIterator<Flow>() {
+                    @Override
+                    Flow get(int pos) {
+                        return flows[pos];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Flow && FlowMembership.this.contains(((Flow) o).getFlowId());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    private abstract class MembershipIterator<T> implements Iterator<T> {
+
+        private final int expectedModCount = modCount;
+        private int pos = 0;
+
+        abstract T get(int pos);
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (pos >= size) {
+                throw new NoSuchElementException();
+            }
+            return get(pos++);
+        }
+
+    }
+
+}
@@ -27,8 +27,6 @@ package ch.ethz.systems.floodns.core;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Set;
 
 /**
@@ -45,14 +43,14 @@ public class Link {
     // Link properties
     private final Network network;
     private final int linkId;
-    private final ImmutablePair<Integer, Integer> fromToPair;
+    private ImmutablePair<Integer, Integer> fromToPair;
     private final int from;
     private final int to;
     private final Node fromNode;
     private final Node toNode;
     private final double capacity;
     // Flow management
-    private final HashMap<Integer, Flow> idToFlow;
+    private final FlowMembership flows;
     // Simulator
     private Simulator simulator;
     private double remainderCapacity;
@@ -81,10 +79,10 @@ public class Link {
         this.toNode = toNode;
         this.from = fromNode.getNodeId();
         this.to = toNode.getNodeId();
-        this.fromToPair = new ImmutablePair<>(from, to);
+        this.fromToPair = null;
         this.capacity = capacity;
         this.remainderCapacity = capacity;
-        this.idToFlow = new HashMap<>();
+        this.flows = new FlowMembership();
         this.metadata = null;
         this.setLoggerViaSimulator(simulator);
     }
@@ -124,7 +122,7 @@ public class Link {
      * @param newBandwidth New flow bandwidth
      */
     public void fixAllocationForFlow(Flow flow, double oldBandwidth, double newBandwidth) {
-        assert (idToFlow.containsKey(flow.getFlowId())); // Is the flow present on this link
+        assert (flows.contains(flow.getFlowId())); // Is the flow present on this link
         assert (flow.getCurrentBandwidth() == newBandwidth);
         remainderCapacity += oldBandwidth;
         if (newBandwidth - remainderCapacity >= simulator.getFlowPrecision()) {
@@ -144,9 +142,10 @@ public class Link {
      * @param flow Flow instance
      */
     void addActiveFlow(Flow flow) {
-        assert (!idToFlow.containsKey(flow.getFlowId()));
-        idToFlow.put(flow.getFlowId(), flow);
-        logger.logLinkNumActiveFlowsChange(idToFlow.size());
+        assert (!flows.contains(flow.getFlowId()));
+        flows.add(flow);
+        network.markLinkChanged(this);
+        logger.logLinkNumActiveFlowsChange(flows.size());
     }
 
     /**
@@ -155,11 +154,12 @@ public class Link {
      * @param flow Flow instance
      */
     void removeFlow(Flow flow) {
-        assert (idToFlow.containsKey(flow.getFlowId()));
+        assert (flows.contains(flow.getFlowId()));
 
         // Remove flow identifier from active flows on this link
-        idToFlow.remove(flow.getFlowId());
-        logger.logLinkNumActiveFlowsChange(idToFlow.size());
+        flows.remove(flow.getFlowId());
+        network.markLinkChanged(this);
+        logger.logLinkNumActiveFlowsChange(flows.size());
 
         // Remove any bandwidth allocation
         remainderCapacity += flow.getCurrentBandwidth();
@@ -178,6 +178,7 @@ public class Link {
 
     public void setRemainderCapacity(double capacity) {
         remainderCapacity = capacity;
+        network.markLinkChanged(this);
     }
 
     /**
@@ -204,6 +205,9 @@ public class Link {
      * @return From-to pair
      */
     public ImmutablePair<Integer, Integer> getFromToPair() {
+        if (fromToPair == null) {
+            fromToPair = new ImmutablePair<>(from, to);
+        }
         return fromToPair;
     }
 
@@ -249,7 +253,7 @@ public class Link {
      * @return Unmodifiable collection of flow identifiers of active flows
      */
     public Set<Integer> getActiveFlowIds() {
-        return Collections.unmodifiableSet(idToFlow.keySet());
+        return flows.idView();
     }
 
     /**
@@ -258,13 +262,14 @@ public class Link {
      * @return Unmodifiable collection of active flows
      */
     public Collection<Flow> getActiveFlows() {
-        return Collections.unmodifiableCollection(idToFlow.values());
+        return flows.flowView();
     }
 
     public void removeActiveFlow(Flow flow) {
-        assert (idToFlow.containsKey(flow.getFlowId()));
-        idToFlow.remove(flow.getFlowId());
-        logger.logLinkNumActiveFlowsChange(idToFlow.size());
+        assert (flows.contains(flow.getFlowId()));
+        flows.remove(flow.getFlowId());
+        network.markLinkChanged(this);
+        logger.logLinkNumActiveFlowsChange(flows.size());
     }
 
     /**
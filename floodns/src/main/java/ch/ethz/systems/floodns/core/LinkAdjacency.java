@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package ch.ethz.systems.floodns.core;
+
+import java.util.*;
+
+/**
+ * Links of a node in one direction (incoming or outgoing), grouped by the node at the other end.
+ * <p>
+ * The neighbor identifiers are kept in a sorted primitive array (as a row of a compressed
+ * sparse row adjacency), with for each neighbor the list of (parallel) links to it.
+ * Look-up of the links to a neighbor is a binary search, without boxing or allocation.
+ * Links can be added and removed during a run, which costs O(degree).
+ */
+final class LinkAdjacency {
+
+    private static final int[] EMPTY_INTS = new int[0];
+
+    // True iff the neighbor is the destination of the links (outgoing), else the source (incoming)
+    private final boolean outgoing;
+
+    // Sorted neighbor identifiers, and the links to each of them
+    private int[] neighbors;
+    private List<Link>[] links;
+    private List<Link>[] linkViews;
+    private int numNeighbors;
+    private int numLinks;
+
+    @SuppressWarnings("unchecked")
+    LinkAdjacency(boolean outgoing) {
+        this.outgoing = outgoing;
+        this.neighbors = EMPTY_INTS;
+        this.links = (List<Link>[]) new List[0];
+        this.linkViews = (List<Link>[]) new List[0];
+        this.numNeighbors = 0;
+        this.numLinks = 0;
+    }
+
+    private int neighborOf(Link link) {
+        return outgoing ? link.getTo() : link.getFrom();
+    }
+
+    private int indexOf(int neighbor) {
+        return Arrays.binarySearch(neighbors, 0, numNeighbors, neighbor);
+    }
+
+    void add(Link link) {
+        int neighbor = neighborOf(link);
+        int idx = indexOf(neighbor);
+        if (idx < 0) {
+            idx = -idx - 1;
+            if (numNeighbors == neighbors.length) {
+                int capacity = Math.max(4, numNeighbors * 2);
+                neighbors = Arrays.copyOf(neighbors, capacity);
+                links = Arrays.copyOf(links, capacity);
+                linkViews = Arrays.copyOf(linkViews, capacity);
+            }
+            System.arraycopy(neighbors, idx, neighbors, idx + 1, numNeighbors - idx);
+            System.arraycopy(links, idx, links, idx + 1, numNeighbors - idx);
+            System.arraycopy(linkViews, idx, linkViews, idx + 1, numNeighbors - idx);
+            List<Link> list = new ArrayList<>(1);
+            neighbors[idx] = neighbor;
+            links[idx] = list;
+            linkViews[idx] = Collections.unmodifiableList(list);
+            numNeighbors++;
+        }
+        links[idx].add(link);
+        numLinks++;
+    }
+
+    void remove(Link link) {
+        int idx = indexOf(neighborOf(link));
+        if (idx < 0 || !links[idx].remove(link)) {
+            return;
+        }
+        numLinks--;
+        if (links[idx].isEmpty()) {
+            numNeighbors--;
+            System.arraycopy(neighbors, idx + 1, neighbors, idx, numNeighbors - idx);
+            System.arraycopy(links, idx + 1, links, idx, numNeighbors - idx);
+            System.arraycopy(linkViews, idx + 1, linkViews, idx, numNeighbors - idx);
+            links[numNeighbors] = null;
+            linkViews[numNeighbors] = null;
+        }
+    }
+
+    /**
+     * Retrieve the links to a neighbor.
+     *
+     * @param neighbor Neighbor node identifier
+     * @return Unmodifiable list of links (null, if there are none)
+     */
+    List<Link> get(int neighbor) {
+        int idx = indexOf(neighbor);
+        return idx < 0 ? null : linkViews[idx];
+    }
+
+    boolean hasNeighbor(int neighbor) {
+        return indexOf(neighbor) >= 0;
+    }
+
+    /**
+     * Retrieve an unmodifiable view of the neighbor identifiers (in ascending order).
+     * Changes to the adjacency are propagated to the view.
+     *
+     * @return Unmodifiable set of neighbor identifiers
+     */
+    Set<Integer> neighborView() {
+        return new AbstractSet<Integer>() {
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+
+                    private int idx = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return idx < numNeighbors;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (idx >= numNeighbors) {
+                            throw new NoSuchElementException();
+                        }
+                        return neighbors[idx++];
+                    }
+
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Integer && hasNeighbor((Integer) o);
+            }
+
+            @Override
+            public int size() {
+                return numNeighbors;
+            }
+
+        };
+    }
+
+    /**
+     * Retrieve an unmodifiable view of all links (ordered by neighbor identifier).
+     * Changes to the adjacency are propagated to the view.
+     *
+     * @return Unmodifiable set of links
+     */
+    Set<Link> linkView() {
+        return new AbstractSet<Link>() {
+
+            @Override
+            public Iterator<Link> iterator() {
+                return new Iterator<Link>() {
+
+                    private int idx = 0;
+                    private int pos = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (idx < numNeighbors && pos >= links[idx].size()) {
+                            idx++;
+                            pos = 0;
+                        }
+                        return idx < numNeighbors;
+                    }
+
+                    @Override
+                    public Link next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return links[idx].get(pos++);
+                    }
+
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Link)) {
+                    return false;
+                }
+                List<Link> list = get(neighborOf((Link) o));
+                return list != null && list.contains(o);
+            }
+
+            @Override
+            public int size() {
+                return numLinks;
+            }
+
+        };
+    }
+
+}
@@ -24,6 +24,8 @@
 
 package ch.ethz.systems.floodns.core;
 
+import java.util.Collections;
+
 public class LinkFailureEvent extends Event {
 
     private final Link link;
@@ -42,9 +44,11 @@ public class LinkFailureEvent extends Event {
     @Override
     protected void trigger() {
         // When a link failure occurs, all traversing flows through that link
-        // need to be rerouted. This is done by removing the link in
-        // the network, and then calling the path assignment algorithm
-        // for all flows that traverse the link.
-        simulator.getNetwork().getFailedLinks().add(link);
+        // need to be rerouted. This is done by marking the link as failed in
+        // the network, and then letting the routing strategy reroute all flows
+        // that traverse the link at the end of this time tick.
+        if (simulator.getNetwork().failLink(link)) {
+            simulator.requestRerouting(Collections.singletonList(link));
+        }
     }
 }
@@ -42,6 +42,7 @@ public class LinkRecoveryEvent extends Event {
     @Override
     protected void trigger() {
         // When a link fixed occurs, unset the link as failed in the network.
-        simulator.getNetwork().getFailedLinks().remove(link);
+        // Flows are not moved back, but new paths can use the link again.
+        simulator.getNetwork().recoverLink(link);
     }
 }
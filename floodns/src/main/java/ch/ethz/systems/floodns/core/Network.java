@@ -24,8 +24,6 @@
 
 package ch.ethz.systems.floodns.core;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-
 import java.util.*;
 
 /**
@@ -46,13 +44,19 @@ import java.util.*;
 public class Network {
 
     private final List<Node> nodes;
+    private final ArrayList<Link> idToPresentLink;
     private final Set<Link> presentLinks;
-    private final Map<Integer, Link> idToPresentLink;
-    private final Map<ImmutablePair<Integer, Integer>, List<Link>> nodeIdsToPresentLinks;
+    private int numPresentLinks;
     private final Map<Integer, Flow> idToActiveFlow;
     private final Set<Link> flowActiveLinks;
+    // Failure state: a link is failed if it failed itself or one of its end nodes failed
     private final Set<Link> failedLinks;
     private final Set<Node> failedNodes;
+    private final Set<Link> linksFailedThemselves;
+    private final BitSet failedLinkIds;
+    private final List<LinkFailureListener> linkFailureListeners;
+    // Links of which the flows changed (null, if not tracked)
+    private Set<Link> changedLinks;
     // Graph properties
     private final int numNodes;
     // Simulator handle
@@ -88,9 +92,9 @@ public class Network {
         for (int i = 0; i < numNodes; i++) {
             this.nodes.add(new Node(simulator, i));
         }
-        this.idToPresentLink = new HashMap<>();
-        this.presentLinks = new HashSet<>();
-        this.nodeIdsToPresentLinks = new HashMap<>();
+        this.idToPresentLink = new ArrayList<>();
+        this.presentLinks = new PresentLinkView();
+        this.numPresentLinks = 0;
         this.linkIdCounter = 0;
 
         // Flow variables
@@ -101,6 +105,9 @@ public class Network {
         // Failure variables
         this.failedLinks = new HashSet<>();
         this.failedNodes = new HashSet<>();
+        this.linksFailedThemselves = new HashSet<>();
+        this.failedLinkIds = new BitSet();
+        this.linkFailureListeners = new ArrayList<>();
     }
 
     /**
@@ -152,21 +159,14 @@ public class Network {
         Node fromNode = nodes.get(from);
         Node toNode = nodes.get(to);
         Link link = new Link(simulator, this, linkIdCounter, fromNode, toNode, capacity);
-        idToPresentLink.put(linkIdCounter, link);
         linkIdCounter++;
+
+        // Add to the nodes' adjacency (which also maps the pair of nodes to the links between them)
         fromNode.addLink(link);
         toNode.addLink(link);
 
         // Add to central collection
-        presentLinks.add(link);
-
-        // Add to mapping of pair of nodes to set of available links
-        List<Link> linkSetBetweenNodes = nodeIdsToPresentLinks.get(link.getFromToPair());
-        if (linkSetBetweenNodes == null) {
-            linkSetBetweenNodes = new ArrayList<>();
-        }
-        linkSetBetweenNodes.add(link);
-        nodeIdsToPresentLinks.put(link.getFromToPair(), linkSetBetweenNodes);
+        putPresentLink(link.getLinkId(), link);
 
         // Return link instance
         return link;
@@ -182,21 +182,28 @@ public class Network {
      */
     public void addLink(Link link, int linkId) {
         // Initialize nodes and the link
-        idToPresentLink.put(linkId, link);
         linkIdCounter++;
         link.getFromNode().addLink(link);
         link.getToNode().addLink(link);
 
         // Add to central collection
-        presentLinks.add(link);
+        putPresentLink(linkId, link);
+    }
 
-        // Add to mapping of pair of nodes to set of available links
-        List<Link> linkSetBetweenNodes = nodeIdsToPresentLinks.get(link.getFromToPair());
-        if (linkSetBetweenNodes == null) {
-            linkSetBetweenNodes = new ArrayList<>();
+    /**
+     * Store a link in the central collection, which is indexed by link identifier.
+     *
+     * @param linkId Link identifier
+     * @param link   Link instance
+     */
+    private void putPresentLink(int linkId, Link link) {
+        while (idToPresentLink.size() <= linkId) {
+            idToPresentLink.add(null);
         }
-        linkSetBetweenNodes.add(link);
-        nodeIdsToPresentLinks.put(link.getFromToPair(), linkSetBetweenNodes);
+        if (idToPresentLink.get(linkId) == null) {
+            numPresentLinks++;
+        }
+        idToPresentLink.set(linkId, link);
     }
 
     /**
@@ -207,7 +214,7 @@ public class Network {
      */
     void removeLink(Link link) {
 
-        if (!presentLinks.contains(link)) {
+        if (!link.equals(getLink(link.getLinkId()))) {
             throw new IllegalArgumentException("Link " + link + " is not present and as such cannot be removed.");
         }
 
@@ -216,13 +223,13 @@ public class Network {
         link.getToNode().removeLink(link);
 
         // Remove link from network mapping
-        idToPresentLink.remove(link.getLinkId());
-        presentLinks.remove(link);
-        List<Link> linkSetBetweenNodes = nodeIdsToPresentLinks.get(link.getFromToPair());
-        linkSetBetweenNodes.remove(link);
-        if (linkSetBetweenNodes.isEmpty()) {
-            nodeIdsToPresentLinks.remove(link.getFromToPair());
-        }
+        idToPresentLink.set(link.getLinkId(), null);
+        numPresentLinks--;
+
+        // A removed link is no longer failed
+        linksFailedThemselves.remove(link);
+        failedLinks.remove(link);
+        failedLinkIds.clear(link.getLinkId());
 
         // Final log flush of the link
         link.getLogger().finalFlush(link.getMetadata());
@@ -256,7 +263,7 @@ public class Network {
      * Note: changes (e.g. link removal) to the network are propagated to the set after call.
      */
     public Set<Link> getPresentLinks() {
-        return Collections.unmodifiableSet(presentLinks);
+        return presentLinks;
     }
 
     /**
@@ -288,7 +295,7 @@ public class Network {
      * @return Link instance (null, if not exists)
      */
     public Link getLink(int linkId) {
-        return idToPresentLink.get(linkId);
+        return linkId >= 0 && linkId < idToPresentLink.size() ? idToPresentLink.get(linkId) : null;
     }
 
     /**
@@ -319,11 +326,11 @@ public class Network {
      * @return Unmodifiable list of link instances
      */
     public List<Link> getPresentLinksBetween(int from, int to) {
-        List<Link> result = nodeIdsToPresentLinks.get(new ImmutablePair<>(from, to));
+        List<Link> result = from >= 0 && from < numNodes ? nodes.get(from).getOutgoingLinksTo(to) : null;
         if (result == null) {
-            return Collections.unmodifiableList(new ArrayList<Link>(0));
+            return Collections.emptyList();
         } else {
-            return Collections.unmodifiableList(result);
+            return result;
         }
     }
 
@@ -355,6 +362,46 @@ public class Network {
         flowActiveLinks.add(link);
     }
 
+    /**
+     * Start tracking the links of which the set of flows (or the remainder capacity
+     * set directly) changes, such that an allocator is able to only revisit the part
+     * of the network that was affected since its previous allocation.
+     * Tracking is disabled by default, as otherwise the set would grow indefinitely.
+     *
+     * @see #retrieveAndClearChangedLinks()
+     */
+    public void enableChangedLinkTracking() {
+        if (changedLinks == null) {
+            changedLinks = new LinkedHashSet<>();
+        }
+    }
+
+    /**
+     * Retrieve the links which changed since the previous call, and start afresh.
+     *
+     * @return Set of changed links (in order of first change)
+     * @throws IllegalStateException Iff tracking is not enabled
+     */
+    public Set<Link> retrieveAndClearChangedLinks() {
+        if (changedLinks == null) {
+            throw new IllegalStateException("Changed link tracking is not enabled.");
+        }
+        Set<Link> result = changedLinks;
+        changedLinks = new LinkedHashSet<>();
+        return result;
+    }
+
+    /**
+     * Mark a link as changed, if tracking is enabled.
+     *
+     * @param link Link instance
+     */
+    void markLinkChanged(Link link) {
+        if (changedLinks != null) {
+            changedLinks.add(link);
+        }
+    }
+
     /**
      * Retrieve a specific node instance.
      *
@@ -469,17 +516,181 @@ public class Network {
 
     }
 
+    /**
+     * Unmodifiable set view of the present links, in order of link identifier.
+     */
+    private class PresentLinkView extends AbstractSet<Link> {
+
+        @Override
+        public Iterator<Link> iterator() {
+            return new Iterator<Link>() {
+
+                private int linkId = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (linkId < idToPresentLink.size() && idToPresentLink.get(linkId) == null) {
+                        linkId++;
+                    }
+                    return linkId < idToPresentLink.size();
+                }
+
+                @Override
+                public Link next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return idToPresentLink.get(linkId++);
+                }
+
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Link && o.equals(getLink(((Link) o).getLinkId()));
+        }
+
+        @Override
+        public int size() {
+            return numPresentLinks;
+        }
+
+    }
+
     @Override
     public String toString() {
         return "Network[ |V|=" + numNodes + ", |E|=" + presentLinks.size() + ", |F|=" + idToActiveFlow.size() + " ]";
     }
 
 
+    /**
+     * Get the links which are currently failed, either because they failed
+     * themselves or because one of their end nodes failed.
+     *
+     * @return Unmodifiable set of failed links
+     */
     public Set<Link> getFailedLinks() {
-        return failedLinks;
+        return Collections.unmodifiableSet(failedLinks);
     }
 
+    /**
+     * Get the nodes which are currently failed.
+     *
+     * @return Unmodifiable set of failed nodes
+     */
     public Set<Node> getFailedNodes() {
-        return failedNodes;
+        return Collections.unmodifiableSet(failedNodes);
+    }
+
+    /**
+     * Check whether a link is currently failed (constant time).
+     *
+     * @param linkId    Link identifier
+     *
+     * @return True iff the link is failed
+     */
+    public boolean isLinkFailed(int linkId) {
+        return failedLinkIds.get(linkId);
+    }
+
+    /**
+     * Add a listener which is notified of every change of the failure state of a link.
+     * A removed link is no longer failed, but its listeners are not notified.
+     *
+     * @param listener  Link failure listener
+     */
+    public void addLinkFailureListener(LinkFailureListener listener) {
+        linkFailureListeners.add(listener);
+    }
+
+    /**
+     * Let a link fail.
+     *
+     * @param link  Link
+     *
+     * @return True iff the link was alive before
+     */
+    public boolean failLink(Link link) {
+        linksFailedThemselves.add(link);
+        return updateLinkFailure(link);
+    }
+
+    /**
+     * Recover a link which failed itself. It stays failed if one of its end nodes is failed.
+     *
+     * @param link  Link
+     *
+     * @return True iff the link is alive again
+     */
+    public boolean recoverLink(Link link) {
+        linksFailedThemselves.remove(link);
+        return updateLinkFailure(link);
+    }
+
+    /**
+     * Let a node fail, which fails all its incoming and outgoing links.
+     *
+     * @param node  Node
+     *
+     * @return Links which were alive before
+     */
+    public List<Link> failNode(Node node) {
+        failedNodes.add(node);
+        return updateLinkFailures(node);
     }
+
+    /**
+     * Recover a node. Its links stay failed if they failed themselves or their other end node is failed.
+     *
+     * @param node  Node
+     *
+     * @return Links which are alive again
+     */
+    public List<Link> recoverNode(Node node) {
+        failedNodes.remove(node);
+        return updateLinkFailures(node);
+    }
+
+    private List<Link> updateLinkFailures(Node node) {
+        List<Link> changed = new ArrayList<>();
+        for (Link link : node.getOutgoingLinks()) {
+            if (updateLinkFailure(link)) {
+                changed.add(link);
+            }
+        }
+        for (Link link : node.getIncomingLinks()) {
+            if (updateLinkFailure(link)) {
+                changed.add(link);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Bring the failure state of a link in line with itself and its end nodes.
+     *
+     * @param link  Link
+     *
+     * @return True iff the failure state of the link changed
+     */
+    private boolean updateLinkFailure(Link link) {
+        boolean failed = linksFailedThemselves.contains(link)
+                || failedNodes.contains(link.getFromNode())
+                || failedNodes.contains(link.getToNode());
+        if (failed == failedLinkIds.get(link.getLinkId())) {
+            return false;
+        }
+        failedLinkIds.set(link.getLinkId(), failed);
+        if (failed) {
+            failedLinks.add(link);
+        } else {
+            failedLinks.remove(link);
+        }
+        for (LinkFailureListener listener : linkFailureListeners) {
+            listener.linkFailureChanged(link, failed);
+        }
+        return true;
+    }
+
 }
@@ -39,15 +39,11 @@ public class Node {
 
     // Node properties
     private final int nodeId;
-    private final Set<Link> incomingLinks;
-    private final Set<Link> outgoingLinks;
-    private final Map<Integer, List<Link>> incomingLinksFromNode;
-    private final Map<Integer, List<Link>> outgoingLinksToNode;
-    private final Set<Integer> incomingConnectedTo;
-    private final Set<Integer> outgoingConnectedTo;
+    private final LinkAdjacency incomingLinks;
+    private final LinkAdjacency outgoingLinks;
 
     // Flow management
-    private final HashMap<Integer, Flow> idToFlow;
+    private final FlowMembership flows;
 
     // Logging
     private NodeLogger logger;
@@ -68,13 +64,9 @@ public class Node {
     Node(Simulator simulator, int nodeId) {
         assert (nodeId >= 0);
         this.nodeId = nodeId;
-        this.incomingLinks = new HashSet<>();
-        this.outgoingLinks = new HashSet<>();
-        this.incomingLinksFromNode = new HashMap<>();
-        this.outgoingLinksToNode = new HashMap<>();
-        this.incomingConnectedTo = incomingLinksFromNode.keySet();
-        this.outgoingConnectedTo = outgoingLinksToNode.keySet();
-        this.idToFlow = new HashMap<>();
+        this.incomingLinks = new LinkAdjacency(false);
+        this.outgoingLinks = new LinkAdjacency(true);
+        this.flows = new FlowMembership();
         this.metadata = null;
         this.setLoggerViaSimulator(simulator);
     }
@@ -89,24 +81,11 @@ public class Node {
 
         // Outgoing link
         if (link.getFrom() == this.nodeId) {
-            List<Link> linkSet = outgoingLinksToNode.get(link.getTo());
-            if (linkSet == null) {
-                linkSet = new ArrayList<>();
-            }
-            linkSet.add(link);
-            outgoingLinksToNode.put(link.getTo(), linkSet);
             outgoingLinks.add(link);
 
             // Incoming link
         } else {
-            List<Link> linkSet = incomingLinksFromNode.get(link.getFrom());
-            if (linkSet == null) {
-                linkSet = new ArrayList<>();
-            }
-            linkSet.add(link);
-            incomingLinksFromNode.put(link.getFrom(), linkSet);
             incomingLinks.add(link);
-
         }
 
     }
@@ -121,22 +100,11 @@ public class Node {
 
         // Outgoing link
         if (link.getFrom() == this.nodeId) {
-            List<Link> linkSet = outgoingLinksToNode.get(link.getTo());
-            linkSet.remove(link);
-            if (linkSet.isEmpty()) {
-                outgoingLinksToNode.remove(link.getTo());
-            }
             outgoingLinks.remove(link);
 
             // Incoming link
         } else {
-            List<Link> linkSet = incomingLinksFromNode.get(link.getFrom());
-            linkSet.remove(link);
-            if (linkSet.isEmpty()) {
-                incomingLinksFromNode.remove(link.getFrom());
-            }
             incomingLinks.remove(link);
-
         }
 
     }
@@ -147,9 +115,9 @@ public class Node {
      * @param flow Flow instance
      */
     void addActiveFlow(Flow flow) {
-        assert (!idToFlow.containsKey(flow.getFlowId()));
-        idToFlow.put(flow.getFlowId(), flow);
-        logger.logNodeStateChange(idToFlow.size());
+        assert (!flows.contains(flow.getFlowId()));
+        flows.add(flow);
+        logger.logNodeStateChange(flows.size());
     }
 
     /**
@@ -158,9 +126,9 @@ public class Node {
      * @param flowId Flow identifier
      */
     void removeFlow(int flowId) {
-        assert (idToFlow.containsKey(flowId));
-        idToFlow.remove(flowId);
-        logger.logNodeStateChange(idToFlow.size());
+        assert (flows.contains(flowId));
+        flows.remove(flowId);
+        logger.logNodeStateChange(flows.size());
     }
 
     /**
@@ -178,7 +146,7 @@ public class Node {
      * @return Unmodifiable set of incoming links
      */
     public Set<Link> getIncomingLinks() {
-        return Collections.unmodifiableSet(incomingLinks);
+        return incomingLinks.linkView();
     }
 
     /**
@@ -187,7 +155,7 @@ public class Node {
      * @return Unmodifiable set of outgoing links
      */
     public Set<Link> getOutgoingLinks() {
-        return Collections.unmodifiableSet(outgoingLinks);
+        return outgoingLinks.linkView();
     }
 
     /**
@@ -197,7 +165,7 @@ public class Node {
      * @return Unmodifiable set of node identifiers with a link to this node
      */
     public Set<Integer> getIncomingConnectedToNodes() {
-        return Collections.unmodifiableSet(incomingConnectedTo);
+        return incomingLinks.neighborView();
     }
 
     /**
@@ -206,7 +174,7 @@ public class Node {
      * @return Unmodifiable set of node identifiers to which this node has a link
      */
     public Set<Integer> getOutgoingConnectedToNodes() {
-        return Collections.unmodifiableSet(outgoingConnectedTo);
+        return outgoingLinks.neighborView();
     }
 
     /**
@@ -216,8 +184,7 @@ public class Node {
      * @return Link set instance (null, if does not exist)
      */
     public List<Link> getIncomingLinksFrom(int otherNodeId) {
-        return incomingLinksFromNode.get(otherNodeId) == null ? null
-                : Collections.unmodifiableList(incomingLinksFromNode.get(otherNodeId));
+        return incomingLinks.get(otherNodeId);
     }
 
     /**
@@ -227,8 +194,7 @@ public class Node {
      * @return Link set instance (null, if does not exist)
      */
     public List<Link> getOutgoingLinksTo(int otherNodeId) {
-        return outgoingLinksToNode.get(otherNodeId) == null ? null
-                : Collections.unmodifiableList(outgoingLinksToNode.get(otherNodeId));
+        return outgoingLinks.get(otherNodeId);
     }
 
     /**
@@ -258,7 +224,7 @@ public class Node {
      * @return True iff a link exists from the other node to this node
      */
     public boolean hasIncomingLinksFrom(int otherNodeId) {
-        return incomingConnectedTo.contains(otherNodeId);
+        return incomingLinks.hasNeighbor(otherNodeId);
     }
 
     /**
@@ -268,7 +234,7 @@ public class Node {
      * @return True iff a link exists from this node to the other
      */
     public boolean hasOutgoingLinksTo(int otherNodeId) {
-        return outgoingConnectedTo.contains(otherNodeId);
+        return outgoingLinks.hasNeighbor(otherNodeId);
     }
 
     /**
@@ -297,7 +263,7 @@ public class Node {
      * @return Unmodifiable collection of flow identifiers of active flows
      */
     public Set<Integer> getActiveFlowsIds() {
-        return Collections.unmodifiableSet(idToFlow.keySet());
+        return flows.idView();
     }
 
     /**
@@ -306,7 +272,7 @@ public class Node {
      * @return Unmodifiable collection of active flows
      */
     public Collection<Flow> getActiveFlows() {
-        return Collections.unmodifiableCollection(idToFlow.values());
+        return flows.flowView();
     }
 
     /**
@@ -42,11 +42,9 @@ public class NodeFailureEvent extends Event {
     @Override
     protected void trigger() {
         // When a node failure occurs, all traversing flows through that node
-        // need to be rerouted. This is done by removing the node in
-        // the network, and then calling the path assignment algorithm
-        // for all flows that traverse the node.
-        failedNode.getOutgoingLinks().forEach(link -> simulator.getNetwork().getFailedLinks().add(link));
-        failedNode.getIncomingLinks().forEach(link -> simulator.getNetwork().getFailedLinks().add(link));
-        simulator.getNetwork().getFailedNodes().add(failedNode);
+        // need to be rerouted. This is done by marking the node and its links as
+        // failed in the network, and then letting the routing strategy reroute
+        // all flows that traverse the node at the end of this time tick.
+        simulator.requestRerouting(simulator.getNetwork().failNode(failedNode));
     }
 }
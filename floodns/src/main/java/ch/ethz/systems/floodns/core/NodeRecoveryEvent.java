@@ -41,11 +41,8 @@ public class NodeRecoveryEvent extends Event {
 
     @Override
     protected void trigger() {
-        // Does not trigger anything, because before every active event, the
-        // amount of data a flow transmitted is updated. The insertion of this
-        // event has that purpose.
-        node.getOutgoingLinks().forEach(link -> simulator.getNetwork().getFailedLinks().remove(link));
-        node.getIncomingLinks().forEach(link -> simulator.getNetwork().getFailedLinks().remove(link));
-        simulator.getNetwork().getFailedNodes().remove(node);
+        // When a node is fixed, unset it and its links as failed in the network.
+        // Flows are not moved back, but new paths can use the node again.
+        simulator.getNetwork().recoverNode(node);
     }
 }
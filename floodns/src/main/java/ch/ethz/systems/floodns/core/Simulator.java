@@ -83,9 +83,17 @@ public class Simulator {
     private Aftermath aftermath;
     // Connection management
     private ConnectionFinishEvent nextConnectionFinishEvent;
+    private final TreeSet<Connection> connectionUpdateQueue = new TreeSet<>(
+            Comparator.comparingLong(Connection::getNextUpdateTime).thenComparingInt(Connection::getConnectionId)
+    );
+    private final List<Connection> connectionsWithOutdatedUpdateTime = new ArrayList<>();
     private int connectionIdCounter;
     // Routing strategy
     private RoutingStrategy routingStrategy;
+    // Centralized routing strategies which were requested a decision in the current time tick
+    private final Set<CentralizedRoutingStrategy> pathAssignmentRequests = new LinkedHashSet<>();
+    // Links which failed in the current time tick, of which the flows need to be rerouted
+    private final Set<Link> reroutingRequests = new LinkedHashSet<>();
 
     /**
      * Instantiation of the simulator with default flow precision (1e-10).
@@ -248,9 +256,9 @@ public class Simulator {
             now = event.getTime();
             elapsed = now - elapsed;
 
-            // Update progress of flows if some time has passed
+            // Finish connections which completed if some time has passed
             if (elapsed > 0) {
-                updateConnectionProgression(elapsed);
+                updateConnectionProgression();
             }
 
             // Execute all events of this time tick
@@ -264,6 +272,11 @@ public class Simulator {
                 nextEvent = eventQueue.peek();
             }
 
+            // Reroute the flows crossing links failed in this time tick, and
+            // decide once on all path assignments requested in this time tick
+            performReroutingRequests();
+            performPathAssignmentRequests();
+
             // Call aftermath
             aftermath.perform();
 
@@ -366,38 +379,60 @@ public class Simulator {
 
     }
 
+    /**
+     * Mark that the bandwidth or update threshold of an active connection changed,
+     * such that its next update time is recalculated at the end of the time tick.
+     *
+     * @param connection Connection instance
+     */
+    void markConnectionUpdateTimeOutdated(Connection connection) {
+        connectionsWithOutdatedUpdateTime.add(connection);
+    }
+
     /**
      * Determine the time at which the next first connection needs an update.
+     * <p>
+     * Only the connections of which the bandwidth or update threshold changed
+     * are re-inserted in the update queue, which is ordered by update time.
+     * <p>
+     * Runtime is O(c * log(|C|)) with c the number of changed connections.
      *
-     * @return Next flow completion time of one of the active connections
+     * @return Next flow completion time of one of the active connections (relative to now)
      */
     private long refreshAndGetNextConnectionUpdateTime() {
 
-        // Get minimum flow completion time
-        long nextConnectionUpdateTime = Long.MAX_VALUE;
-        for (Connection connection : idToActiveConnection.values()) {
-            nextConnectionUpdateTime = Math.min(connection.timeTillUpdateNeeded(), nextConnectionUpdateTime);
+        // Re-insert the connections of which the update time changed
+        for (Connection connection : connectionsWithOutdatedUpdateTime) {
+            connectionUpdateQueue.remove(connection);
+            if (connection.getStatus() == Connection.Status.ACTIVE && connection.refreshNextUpdateTime() != Long.MAX_VALUE) {
+                connectionUpdateQueue.add(connection);
+            }
         }
+        connectionsWithOutdatedUpdateTime.clear();
 
-        // Return found time
-        return nextConnectionUpdateTime;
+        // Get minimum flow completion time
+        if (connectionUpdateQueue.isEmpty()) {
+            return Long.MAX_VALUE;
+        } else {
+            return connectionUpdateQueue.first().getNextUpdateTime() - now;
+        }
 
     }
 
     /**
-     * Update the progression of all active flows relative
-     * to their connections in the simulator.
-     *
-     * @param elapsed Time elapsed
+     * Finish the connections of which the update time has been reached and which are complete.
+     * The remainder of connections is reduced lazily, as such only connections due for an
+     * update are inspected.
+     * <p>
+     * Runtime is O(u * log(|C|)) with u the number of connections due for an update.
      */
-    private void updateConnectionProgression(long elapsed) {
+    private void updateConnectionProgression() {
 
-        // Determine the progress of all flows
-        List<Integer> finishedConnections = new ArrayList<>();
-        for (Connection connection : idToActiveConnection.values()) {
-            if (connection.reduceRemainder(elapsed)) {
+        // Determine the progress of all flows due for an update
+        while (!connectionUpdateQueue.isEmpty() && connectionUpdateQueue.first().getNextUpdateTime() <= now) {
+            Connection connection = connectionUpdateQueue.pollFirst();
+            if (connection.isCompleted()) {
                 // If the connection is finished
-                finishedConnections.add(connection.getConnectionId());
                 for (Flow flow : new ArrayList<>(connection.getActiveFlows())) {
                     network.endFlow(flow);
                 }
@@ -409,19 +444,23 @@ public class Simulator {
                 connection.cleanup();
                 connection.setTerminated();
 
-                // Update the DNN training job
+                // Update the DNN training job (if it is part of one)
                 Job job = jobs.get(connection.getJobId());
-                if (job.getRoutingStrategy() instanceof CentralizedRoutingStrategy) {
-                    CentralizedRoutingStrategy centralizedRoutingStrategy = (CentralizedRoutingStrategy) job.getRoutingStrategy();
-                    centralizedRoutingStrategy.clearResources(connection);
+                if (job != null) {
+                    if (job.getRoutingStrategy() instanceof CentralizedRoutingStrategy) {
+                        CentralizedRoutingStrategy centralizedRoutingStrategy = (CentralizedRoutingStrategy) job.getRoutingStrategy();
+                        centralizedRoutingStrategy.clearResources(connection);
+                    }
+                    job.update(connection);
                 }
-                job.update(connection);
-            }
-        }
 
-        // Remove all finished connections from state
-        for (Integer id : finishedConnections) {
-            idToActiveConnection.remove(id);
+                // Remove finished connection from state
+                idToActiveConnection.remove(connection.getConnectionId());
+
+            } else if (connection.refreshNextUpdateTime() != Long.MAX_VALUE) {
+                // Update threshold passed (or rounding), so it will need another update later on
+                connectionUpdateQueue.add(connection);
+            }
         }
 
     }
@@ -533,6 +572,7 @@ public class Simulator {
         connection.cleanup();
         connection.setTerminated();
         idToActiveConnection.remove(connection.getConnectionId());
+        connectionUpdateQueue.remove(connection);
     }
 
     /**
@@ -750,6 +790,72 @@ public class Simulator {
         this.routingStrategy = routingStrategy;
     }
 
+    /**
+     * Request a decision on the path assignments of a centralized routing strategy.
+     * <p>
+     * All requests for the same strategy raised within one time tick are coalesced:
+     * after all events of the tick have been triggered, the strategy decides once
+     * (see {@link CentralizedRoutingStrategy#performPathAssignments()}), such that
+     * the aftermath allocates all rerouted flows at once.
+     *
+     * @param strategy  Centralized routing strategy
+     */
+    public void requestPathAssignments(CentralizedRoutingStrategy strategy) {
+        if (state != RUNNING) {
+            throw new IllegalStateException("Cannot request path assignments if the simulator is not running.");
+        }
+        pathAssignmentRequests.add(strategy);
+    }
+
+    /**
+     * Request the rerouting of the flows crossing failed links.
+     * <p>
+     * The requests raised within one time tick are batched: after all events of the tick
+     * have been triggered, the connections with a flow crossing any of the links which
+     * are still failed are handed at once to {@link RoutingStrategy#reroute(Collection)}.
+     *
+     * @param failedLinks   Links which failed
+     */
+    public void requestRerouting(Collection<Link> failedLinks) {
+        if (state != RUNNING) {
+            throw new IllegalStateException("Cannot request rerouting if the simulator is not running.");
+        }
+        reroutingRequests.addAll(failedLinks);
+    }
+
+    /**
+     * Reroute the connections crossing the links failed in the current time tick.
+     */
+    private void performReroutingRequests() {
+        if (reroutingRequests.isEmpty()) {
+            return;
+        }
+        TreeSet<Connection> affectedConnections = new TreeSet<>(Comparator.comparingInt(Connection::getConnectionId));
+        for (Link link : reroutingRequests) {
+            if (network.isLinkFailed(link.getLinkId())) {
+                for (Flow flow : link.getActiveFlows()) {
+                    affectedConnections.add(flow.getParentConnection());
+                }
+            }
+        }
+        reroutingRequests.clear();
+        if (routingStrategy != null && !affectedConnections.isEmpty()) {
+            routingStrategy.reroute(affectedConnections);
+        }
+    }
+
+    /**
+     * Perform the path assignments requested in the current time tick.
+     */
+    private void performPathAssignmentRequests() {
+        while (!pathAssignmentRequests.isEmpty()) {
+            Iterator<CentralizedRoutingStrategy> iterator = pathAssignmentRequests.iterator();
+            CentralizedRoutingStrategy strategy = iterator.next();
+            iterator.remove();
+            strategy.performPathAssignments();
+        }
+    }
+
     // All possible states of the simulator
     enum SimulatorState {
         INSTANTIATED,
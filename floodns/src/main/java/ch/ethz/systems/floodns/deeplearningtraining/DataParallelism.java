@@ -71,11 +71,7 @@ public class DataParallelism {
             int numActiveJobs = job.getSimulator().getActiveJobs().size();
             if (numActiveJobs > 1) {
                 CentralizedRoutingStrategy centralizedRoutingStrategy = (CentralizedRoutingStrategy) job.getRoutingStrategy();
-                centralizedRoutingStrategy.determinePathAssignments();
-                centralizedRoutingStrategy.getLogger().saveInfo(
-                        centralizedRoutingStrategy.getAverageDuration(),
-                        centralizedRoutingStrategy.getNumAssignedConnections()
-                );
+                centralizedRoutingStrategy.requestPathAssignments();
             }
         }
         JobEpoch epoch = job.getCurrentEpoch();
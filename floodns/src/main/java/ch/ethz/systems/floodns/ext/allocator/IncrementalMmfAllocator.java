@@ -0,0 +1,382 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package ch.ethz.systems.floodns.ext.allocator;
+
+import ch.ethz.systems.floodns.core.*;
+
+import java.util.*;
+
+/**
+ * The incremental max-min fair share (MMFS) allocator produces the same allocation as the
+ * {@link SimpleMmfAllocator}, but only recomputes the part of the network that changed since
+ * its previous allocation.
+ * <p>
+ * The max-min fair allocation of a connected component of the flow-link graph (flows and
+ * links being adjacent if the flow traverses the link) is independent of all other components.
+ * As such, only the components which contain a link of which the flows changed (a flow was
+ * started, ended or rerouted) are recomputed, and all other flows keep their bandwidth.
+ * If nothing changed, the allocation is skipped entirely. Within the component, the same
+ * water-filling as the simple allocator is performed, however on arrays with a binary heap
+ * of link tightness, and only flows of which the bandwidth actually changed are re-allocated.
+ * <p>
+ * Runtime is O((|E_c| + P_c) * log(|E_c| + P_c)) with E_c the links and P_c the total
+ * path length of the flows in the affected components.
+ * <p>
+ * In the equivalence mode, after every allocation the {@link SimpleMmfAllocator} is executed
+ * as well and its allocation is compared with the incremental one: this is intended for
+ * validation, not for performance.
+ */
+public class IncrementalMmfAllocator extends Allocator {
+
+    // Relative tolerance when comparing against the simple allocator in the equivalence mode
+    private static final double EQUIVALENCE_TOLERANCE = 1e-6;
+
+    // Reference allocator (null, if not in equivalence mode)
+    private final SimpleMmfAllocator referenceAllocator;
+
+    // Affected component(s)
+    private final List<Link> componentLinks;
+    private final List<Flow> componentFlows;
+    private final Map<Link, Integer> linkToIndex;
+    private final Map<Flow, Integer> flowToIndex;
+
+    // Links: remaining capacity, number of unfixed flows, and flows on it (as flow indices)
+    private double[] linkRemaining;
+    private int[] linkUnfixed;
+    private int[] linkTouched;
+    private int[] linkFlowStart;
+    private int[] linkFlows;
+
+    // Flows: rate, whether it is fixed, and links of its path (as link indices)
+    private double[] flowRate;
+    private boolean[] flowFixed;
+    private int[] flowLinkStart;
+    private int[] flowLinks;
+
+    // Binary min-heap of (tightness, link index), containing stale entries
+    private double[] heapTightness;
+    private int[] heapLink;
+    private int heapSize;
+
+    public IncrementalMmfAllocator(Simulator simulator, Network network) {
+        this(simulator, network, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param simulator         Simulator instance
+     * @param network           Network instance
+     * @param checkEquivalence  True iff after every allocation it must be checked against the {@link SimpleMmfAllocator}
+     */
+    public IncrementalMmfAllocator(Simulator simulator, Network network, boolean checkEquivalence) {
+        super(simulator, network);
+        this.referenceAllocator = checkEquivalence ? new SimpleMmfAllocator(simulator, network) : null;
+        this.componentLinks = new ArrayList<>();
+        this.componentFlows = new ArrayList<>();
+        this.linkToIndex = new HashMap<>();
+        this.flowToIndex = new HashMap<>();
+        this.linkRemaining = new double[16];
+        this.linkUnfixed = new int[16];
+        this.linkTouched = new int[16];
+        this.linkFlowStart = new int[17];
+        this.linkFlows = new int[16];
+        this.flowRate = new double[16];
+        this.flowFixed = new boolean[16];
+        this.flowLinkStart = new int[17];
+        this.flowLinks = new int[16];
+        this.heapTightness = new double[16];
+        this.heapLink = new int[16];
+        network.enableChangedLinkTracking();
+    }
+
+    /**
+     * Re-allocate the flows of the components which were affected by changes since the previous
+     * allocation according to the Max-Min Fair Rate Allocation for a network with a given routing.
+     */
+    @Override
+    public void perform() {
+        Set<Link> changedLinks = network.retrieveAndClearChangedLinks();
+        if (!changedLinks.isEmpty()) {
+            collectComponents(changedLinks);
+            if (!componentFlows.isEmpty()) {
+                buildArrays();
+                waterFill();
+                applyRates();
+            }
+            componentLinks.clear();
+            componentFlows.clear();
+            linkToIndex.clear();
+            flowToIndex.clear();
+        }
+        if (referenceAllocator != null) {
+            checkEquivalence();
+        }
+    }
+
+    /**
+     * Collect all links and flows connected to the changed links.
+     *
+     * @param changedLinks  Changed links
+     */
+    private void collectComponents(Set<Link> changedLinks) {
+        for (Link link : changedLinks) {
+            visitLink(link);
+        }
+        for (int i = 0; i < componentLinks.size(); i++) {
+            for (Flow flow : componentLinks.get(i).getActiveFlows()) {
+                if (!flowToIndex.containsKey(flow)) {
+                    flowToIndex.put(flow, componentFlows.size());
+                    componentFlows.add(flow);
+                    if (flow.getPath() != null) {
+                        for (Link pathLink : flow.getPath()) {
+                            visitLink(pathLink);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void visitLink(Link link) {
+        if (!linkToIndex.containsKey(link)) {
+            linkToIndex.put(link, componentLinks.size());
+            componentLinks.add(link);
+        }
+    }
+
+    /**
+     * Fill the link and flow arrays of the component(s).
+     * The starting remaining capacity of each link is as if all its flows are reset to zero.
+     */
+    private void buildArrays() {
+        int numLinks = componentLinks.size();
+        int numFlows = componentFlows.size();
+        ensureLinkCapacity(numLinks);
+        ensureFlowCapacity(numFlows);
+
+        // Flows to links
+        int pos = 0;
+        for (int f = 0; f < numFlows; f++) {
+            flowLinkStart[f] = pos;
+            flowRate[f] = 0.0;
+            flowFixed[f] = false;
+            AcyclicPath path = componentFlows.get(f).getPath();
+            if (path != null) {
+                flowLinks = ensure(flowLinks, pos + path.size());
+                for (Link link : path) {
+                    flowLinks[pos++] = linkToIndex.get(link);
+                }
+            }
+        }
+        flowLinkStart[numFlows] = pos;
+
+        // Links to flows
+        pos = 0;
+        for (int l = 0; l < numLinks; l++) {
+            Link link = componentLinks.get(l);
+            linkFlowStart[l] = pos;
+            linkRemaining[l] = link.getRemainderCapacity();
+            linkUnfixed[l] = link.getActiveFlowIds().size();
+            linkTouched[l] = -1;
+            linkFlows = ensure(linkFlows, pos + linkUnfixed[l]);
+            for (Flow flow : link.getActiveFlows()) {
+                linkFlows[pos++] = flowToIndex.get(flow);
+            }
+        }
+        linkFlowStart[numLinks] = pos;
+
+        // Give back the current bandwidth of each flow to the links it traverses
+        for (int f = 0; f < numFlows; f++) {
+            double bandwidth = componentFlows.get(f).getCurrentBandwidth();
+            for (int i = flowLinkStart[f]; i < flowLinkStart[f + 1]; i++) {
+                linkRemaining[flowLinks[i]] += bandwidth;
+            }
+        }
+
+    }
+
+    /**
+     * Repeatedly fix the unfixed flows of the tightest link to its fair share.
+     * The tightness of a link can only increase as flows are fixed, so entries
+     * of which the tightness is outdated are simply skipped.
+     */
+    private void waterFill() {
+        heapSize = 0;
+        for (int l = 0; l < componentLinks.size(); l++) {
+            if (linkUnfixed[l] > 0) {
+                heapPush(linkRemaining[l] / linkUnfixed[l], l);
+            }
+        }
+        int round = 0;
+        while (heapSize > 0) {
+            double tightness = heapTightness[0];
+            int l = heapLink[0];
+            heapPop();
+            if (linkUnfixed[l] <= 0 || tightness != linkRemaining[l] / linkUnfixed[l]) {
+                continue;
+            }
+
+            // Fix all unfixed flows on the tightest link
+            for (int i = linkFlowStart[l]; i < linkFlowStart[l + 1]; i++) {
+                int f = linkFlows[i];
+                if (!flowFixed[f]) {
+                    flowFixed[f] = true;
+                    flowRate[f] = tightness;
+                    for (int j = flowLinkStart[f]; j < flowLinkStart[f + 1]; j++) {
+                        int m = flowLinks[j];
+                        linkRemaining[m] -= tightness;
+                        linkUnfixed[m]--;
+                        linkTouched[m] = round;
+                    }
+                }
+            }
+
+            // Update the tightness of the affected links
+            for (int i = linkFlowStart[l]; i < linkFlowStart[l + 1]; i++) {
+                int f = linkFlows[i];
+                for (int j = flowLinkStart[f]; j < flowLinkStart[f + 1]; j++) {
+                    int m = flowLinks[j];
+                    if (linkTouched[m] == round) {
+                        linkTouched[m] = -1;
+                        if (linkUnfixed[m] > 0) {
+                            heapPush(linkRemaining[m] / linkUnfixed[m], m);
+                        }
+                    }
+                }
+            }
+            round++;
+
+        }
+    }
+
+    /**
+     * Allocate the computed rates to the flows of which the bandwidth changed.
+     * Decreases are done before increases, such that no link capacity is ever exceeded.
+     */
+    private void applyRates() {
+        for (int f = 0; f < componentFlows.size(); f++) {
+            Flow flow = componentFlows.get(f);
+            if (flowRate[f] < flow.getCurrentBandwidth()) {
+                simulator.allocateFlowBandwidth(flow, flowRate[f]);
+            }
+        }
+        for (int f = 0; f < componentFlows.size(); f++) {
+            Flow flow = componentFlows.get(f);
+            if (flowRate[f] > flow.getCurrentBandwidth()) {
+                simulator.allocateFlowBandwidth(flow, flowRate[f]);
+            }
+        }
+    }
+
+    /**
+     * Perform the simple allocator and check that it yields the same bandwidth for every flow.
+     *
+     * @throws IllegalStateException Iff the allocation of any flow differs
+     */
+    private void checkEquivalence() {
+        Map<Flow, Double> incrementalBandwidth = new HashMap<>();
+        for (Flow flow : network.getActiveFlows()) {
+            incrementalBandwidth.put(flow, flow.getCurrentBandwidth());
+        }
+        referenceAllocator.perform();
+        for (Map.Entry<Flow, Double> entry : incrementalBandwidth.entrySet()) {
+            double expected = entry.getKey().getCurrentBandwidth();
+            double actual = entry.getValue();
+            if (Math.abs(expected - actual) > Math.max(simulator.getFlowPrecision(), Math.abs(expected) * EQUIVALENCE_TOLERANCE)) {
+                throw new IllegalStateException(
+                        "Incremental allocation of " + actual + " for flow " + entry.getKey() +
+                                " differs from the simple allocation of " + expected + "."
+                );
+            }
+        }
+    }
+
+    private void heapPush(double tightness, int link) {
+        if (heapSize == heapTightness.length) {
+            heapTightness = Arrays.copyOf(heapTightness, heapSize * 2);
+            heapLink = Arrays.copyOf(heapLink, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapTightness[parent] <= tightness) {
+                break;
+            }
+            heapTightness[i] = heapTightness[parent];
+            heapLink[i] = heapLink[parent];
+            i = parent;
+        }
+        heapTightness[i] = tightness;
+        heapLink[i] = link;
+    }
+
+    private void heapPop() {
+        heapSize--;
+        double tightness = heapTightness[heapSize];
+        int link = heapLink[heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapTightness[child + 1] < heapTightness[child]) {
+                child++;
+            }
+            if (tightness <= heapTightness[child]) {
+                break;
+            }
+            heapTightness[i] = heapTightness[child];
+            heapLink[i] = heapLink[child];
+            i = child;
+        }
+        heapTightness[i] = tightness;
+        heapLink[i] = link;
+    }
+
+    private void ensureLinkCapacity(int numLinks) {
+        if (linkRemaining.length < numLinks) {
+            int size = Math.max(numLinks, linkRemaining.length * 2);
+            linkRemaining = new double[size];
+            linkUnfixed = new int[size];
+            linkTouched = new int[size];
+            linkFlowStart = new int[size + 1];
+        }
+    }
+
+    private void ensureFlowCapacity(int numFlows) {
+        if (flowRate.length < numFlows) {
+            int size = Math.max(numFlows, flowRate.length * 2);
+            flowRate = new double[size];
+            flowFixed = new boolean[size];
+            flowLinkStart = new int[size + 1];
+        }
+    }
+
+    private static int[] ensure(int[] array, int length) {
+        return array.length >= length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+
+}
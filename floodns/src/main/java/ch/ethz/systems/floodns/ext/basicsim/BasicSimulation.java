@@ -27,14 +27,18 @@ package ch.ethz.systems.floodns.ext.basicsim;
 import ch.ethz.systems.floodns.core.Aftermath;
 import ch.ethz.systems.floodns.core.Network;
 import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.ext.allocator.IncrementalMmfAllocator;
 import ch.ethz.systems.floodns.ext.allocator.SimpleMmfAllocator;
 import ch.ethz.systems.floodns.ext.basicsim.schedule.JobEpochSchedule;
 import ch.ethz.systems.floodns.ext.basicsim.schedule.LinkFailureSchedule;
 import ch.ethz.systems.floodns.ext.basicsim.schedule.NodeFailureSchedule;
 import ch.ethz.systems.floodns.ext.basicsim.topology.FileToTopologyConverter;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.graphutils.KShortestPathCache;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathCache;
 import ch.ethz.systems.floodns.ext.logger.file.FileLoggerFactory;
 import ch.ethz.systems.floodns.ext.routing.*;
+import ch.ethz.systems.floodns.ext.utils.LinkLoadAnnealing;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -79,6 +83,9 @@ public class BasicSimulation {
                     "simulation_end_time_ns", "simulation_seed",
                     "job_base_dir_schedule", "routing_strategy",
                     "num_failed_nodes"
+            }, new String[]{
+                    "allocator", "lp_solver_backend", "edge_coloring_backend", "log_mode", "routing_cache_dir", "routing_apsp_algorithm", "ksp_num_paths",
+                    "simulated_annealing_iterations", "simulated_annealing_replicas"
             });
 
             // Base simulation properties
@@ -94,8 +101,32 @@ public class BasicSimulation {
 
             // Initialize simulator
             Simulator simulator = new Simulator();
-            FileLoggerFactory loggerFactory = new FileLoggerFactory(simulator, runDirectory + "/logs_floodns");
-            Aftermath aftermath = new SimpleMmfAllocator(simulator, network);
+            boolean logAsynchronously;
+            switch (config.getStringOrDefault("log_mode", "sync")) {
+                case "sync":
+                    logAsynchronously = false;
+                    break;
+                case "async":
+                    logAsynchronously = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown log mode: " + config.getStringOrFail("log_mode"));
+            }
+            FileLoggerFactory loggerFactory = new FileLoggerFactory(simulator, runDirectory + "/logs_floodns", logAsynchronously);
+            Aftermath aftermath;
+            switch (config.getStringOrDefault("allocator", "simple_mmf")) {
+                case "simple_mmf":
+                    aftermath = new SimpleMmfAllocator(simulator, network);
+                    break;
+                case "incremental_mmf":
+                    aftermath = new IncrementalMmfAllocator(simulator, network);
+                    break;
+                case "incremental_mmf_checked":
+                    aftermath = new IncrementalMmfAllocator(simulator, network, true);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown allocator: " + config.getStringOrFail("allocator"));
+            }
             simulator.setup(network, aftermath, loggerFactory);
 
             // Jobs Schedule
@@ -105,14 +136,51 @@ public class BasicSimulation {
             // Create link failure events / node failure events
             long numFailedNodes = config.getPositiveLongOrFail("num_failed_nodes");
 
+            // Routing state calculation
+            String routingCacheDir = config.getStringOrDefault("routing_cache_dir", null);
+            boolean floydWarshall;
+            switch (config.getStringOrDefault("routing_apsp_algorithm", "bfs")) {
+                case "bfs":
+                    floydWarshall = false;
+                    break;
+                case "floyd_warshall":
+                    floydWarshall = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown all-pairs shortest path algorithm: " + config.getStringOrFail("routing_apsp_algorithm"));
+            }
+
             // Routing Strategy
             switch (config.getStringOrFail("routing_strategy")) {
                 case "ecmp":
-                    EcmpRoutingStrategy ecmpRoutingStrategy = new EcmpRoutingStrategy(simulator, topology, new Random(simulationRandom.nextLong()));
+                    EcmpRoutingStrategy ecmpRoutingStrategy = new EcmpRoutingStrategy(
+                            simulator, topology, new Random(simulationRandom.nextLong()),
+                            routingCacheDir == null ? null : new ShortestPathCache(routingCacheDir),
+                            floydWarshall
+                    );
                     simulator.insertEvents(jobEpochSchedule.getEvents(simulator, ecmpRoutingStrategy));
                     createNodeFailureEvents(numFailedNodes, simulator, topology, ecmpRoutingStrategy, simulationEndTimeNs);
                     simulator.setRoutingStrategy(ecmpRoutingStrategy);
                     break;
+                case "ksp":
+                    KspRoutingStrategy kspRoutingStrategy = new KspRoutingStrategy(
+                            simulator, topology, new Random(simulationRandom.nextLong()),
+                            config.getPositiveIntOrDefault("ksp_num_paths", 4),
+                            routingCacheDir == null ? null : new KShortestPathCache(routingCacheDir)
+                    );
+                    simulator.insertEvents(jobEpochSchedule.getEvents(simulator, kspRoutingStrategy));
+                    createNodeFailureEvents(numFailedNodes, simulator, topology, kspRoutingStrategy, simulationEndTimeNs);
+                    simulator.setRoutingStrategy(kspRoutingStrategy);
+                    break;
+                case "valiant":
+                    ValiantRoutingStrategy valiantRoutingStrategy = new ValiantRoutingStrategy(
+                            simulator, topology, topology.getDetails().getCoreNodeIds(), new Random(simulationRandom.nextLong()), false,
+                            routingCacheDir == null ? null : new ShortestPathCache(routingCacheDir)
+                    );
+                    simulator.insertEvents(jobEpochSchedule.getEvents(simulator, valiantRoutingStrategy));
+                    createNodeFailureEvents(numFailedNodes, simulator, topology, valiantRoutingStrategy, simulationEndTimeNs);
+                    simulator.setRoutingStrategy(valiantRoutingStrategy);
+                    break;
                 case "mcvlc":
                     McvlcRoutingStrategy mcvlcRoutingStrategy = new McvlcRoutingStrategy(simulator, topology);
                     simulator.insertEvents(jobEpochSchedule.getEvents(simulator, mcvlcRoutingStrategy));
@@ -120,19 +188,45 @@ public class BasicSimulation {
                     simulator.setRoutingStrategy(mcvlcRoutingStrategy);
                     break;
                 case "edge_coloring":
-                    EdgeColoringRoutingStrategy edgeColoringRoutingStrategy = new EdgeColoringRoutingStrategy(simulator, topology, runDirectory);
+                    boolean colorInProcess;
+                    switch (config.getStringOrDefault("edge_coloring_backend", "native")) {
+                        case "native":
+                            colorInProcess = true;
+                            break;
+                        case "python":
+                            colorInProcess = false;
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown edge coloring backend: " + config.getStringOrFail("edge_coloring_backend"));
+                    }
+                    EdgeColoringRoutingStrategy edgeColoringRoutingStrategy = new EdgeColoringRoutingStrategy(simulator, topology, runDirectory, colorInProcess);
                     simulator.insertEvents(jobEpochSchedule.getEvents(simulator, edgeColoringRoutingStrategy));
                     createNodeFailureEvents(numFailedNodes, simulator, topology, edgeColoringRoutingStrategy, simulationEndTimeNs);
                     simulator.setRoutingStrategy(edgeColoringRoutingStrategy);
                     break;
                 case "lp_solver":
-                    IlpSolverRoutingStrategy ilpSolverRoutingStrategy = new IlpSolverRoutingStrategy(simulator, topology, runDirectory);
+                    boolean solveInProcess;
+                    switch (config.getStringOrDefault("lp_solver_backend", "python")) {
+                        case "python":
+                            solveInProcess = false;
+                            break;
+                        case "ortools":
+                            solveInProcess = true;
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown LP solver backend: " + config.getStringOrFail("lp_solver_backend"));
+                    }
+                    IlpSolverRoutingStrategy ilpSolverRoutingStrategy = new IlpSolverRoutingStrategy(simulator, topology, runDirectory, solveInProcess);
                     simulator.insertEvents(jobEpochSchedule.getEvents(simulator, ilpSolverRoutingStrategy));
                     createNodeFailureEvents(numFailedNodes, simulator, topology, ilpSolverRoutingStrategy, simulationEndTimeNs);
                     simulator.setRoutingStrategy(ilpSolverRoutingStrategy);
                     break;
                 case "simulated_annealing":
-                    SimulatedAnnealingRoutingStrategy simulatedAnnealingRoutingStrategy = new SimulatedAnnealingRoutingStrategy(simulator, topology, new Random(simulationRandom.nextLong()));
+                    SimulatedAnnealingRoutingStrategy simulatedAnnealingRoutingStrategy = new SimulatedAnnealingRoutingStrategy(
+                            simulator, topology, new Random(simulationRandom.nextLong()),
+                            config.getPositiveIntOrDefault("simulated_annealing_iterations", LinkLoadAnnealing.defaultIterations()),
+                            config.getPositiveIntOrDefault("simulated_annealing_replicas", 1)
+                    );
                     simulator.insertEvents(jobEpochSchedule.getEvents(simulator, simulatedAnnealingRoutingStrategy));
                     createNodeFailureEvents(numFailedNodes, simulator, topology, simulatedAnnealingRoutingStrategy, simulationEndTimeNs);
                     simulator.setRoutingStrategy(simulatedAnnealingRoutingStrategy);
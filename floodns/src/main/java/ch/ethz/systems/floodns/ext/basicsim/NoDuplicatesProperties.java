@@ -37,7 +37,11 @@ public class NoDuplicatesProperties extends Properties {
     }
 
     public void validate(String[] permittedProperties) {
-        for (String key : permittedProperties) {
+        validate(permittedProperties, new String[0]);
+    }
+
+    public void validate(String[] requiredProperties, String[] optionalProperties) {
+        for (String key : requiredProperties) {
             if (get(key) == null) {
                 throw new IllegalArgumentException("Missing required property " + key + ".");
             }
@@ -45,7 +49,13 @@ public class NoDuplicatesProperties extends Properties {
         for (Object key : this.keySet()) {
             String keyString = (String) key;
             boolean found = false;
-            for (String property : permittedProperties) {
+            for (String property : requiredProperties) {
+                if (key.equals(property)) {
+                    found = true;
+                    break;
+                }
+            }
+            for (String property : optionalProperties) {
                 if (key.equals(property)) {
                     found = true;
                     break;
@@ -83,6 +93,17 @@ public class NoDuplicatesProperties extends Properties {
         return value;
     }
 
+    public int getPositiveIntOrDefault(String property, int defaultValue) {
+        if (getProperty(property) == null) {
+            return defaultValue;
+        }
+        int value = Integer.parseInt(getPropertyOrFail(property));
+        if (value <= 0) {
+            throw new IllegalArgumentException("Integer value must be positive: " + value);
+        }
+        return value;
+    }
+
     public String getStringOrFail(String property) {
         String res = getPropertyOrFail(property);
         if (res.startsWith("\"") && res.endsWith("\"")) {
@@ -91,4 +112,11 @@ public class NoDuplicatesProperties extends Properties {
         return res;
     }
 
+    public String getStringOrDefault(String property, String defaultValue) {
+        if (getProperty(property) == null) {
+            return defaultValue;
+        }
+        return getStringOrFail(property);
+    }
+
 }
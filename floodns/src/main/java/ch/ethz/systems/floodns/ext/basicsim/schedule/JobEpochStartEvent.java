@@ -42,11 +42,7 @@ public class JobEpochStartEvent extends Event {
         if (routingStrategy instanceof CentralizedRoutingStrategy) {
             CentralizedRoutingStrategy centralizedRoutingStrategy = (CentralizedRoutingStrategy) routingStrategy;
             stageConnections.values().forEach(stageCommodities -> stageCommodities.forEach(centralizedRoutingStrategy::addSrcDst));
-            centralizedRoutingStrategy.determinePathAssignments();
-            centralizedRoutingStrategy.getLogger().saveInfo(
-                    centralizedRoutingStrategy.getAverageDuration(),
-                    centralizedRoutingStrategy.getNumAssignedConnections()
-            );
+            centralizedRoutingStrategy.requestPathAssignments();
         }
 
         stageConnections.values().forEach(connections -> {
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.graphutils;
+
+import ch.ethz.systems.floodns.core.Network;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs shortest path lengths (in hops) using a breadth-first search from every node.
+ *
+ * For the unweighted networks it yields exactly the same lengths as the {@link FloydWarshallAlgorithm},
+ * but takes O(n * (n + m)) instead of O(n^3). The sources are divided over the common fork-join pool,
+ * and the lengths are stored as shorts, which halves the memory of the distance matrix.
+ * Unreachable pairs have length {@link #UNREACHABLE}.
+ */
+public class BreadthFirstSearchAlgorithm {
+
+    public static final short UNREACHABLE = Short.MAX_VALUE;
+
+    // Number of sources below which a task is no longer split
+    private static final int SOURCES_PER_TASK = 16;
+
+    private final Network network;
+
+    public BreadthFirstSearchAlgorithm(Network network) {
+        this.network = network;
+    }
+
+    /**
+     * Calculate all the shortest path lengths.
+     *
+     * @return 2-d array with the shortest path distances
+     */
+    public short[][] calculateShortestPaths() {
+
+        // Snapshot of the adjacency
+        int numNodes = network.getNumNodes();
+        int[][] adjacency = new int[numNodes][];
+        for (int i = 0; i < numNodes; i++) {
+            Set<Integer> adjacent = network.getNode(i).getOutgoingConnectedToNodes();
+            adjacency[i] = new int[adjacent.size()];
+            int k = 0;
+            for (int v : adjacent) {
+                adjacency[i][k++] = v;
+            }
+        }
+
+        // Search from every source in parallel
+        short[][] shortestPathLen = new short[numNodes][];
+        ForkJoinPool.commonPool().invoke(new SearchTask(adjacency, shortestPathLen, 0, numNodes));
+        return shortestPathLen;
+
+    }
+
+    /**
+     * Breadth-first search of a range of sources.
+     */
+    private static class SearchTask extends RecursiveAction {
+
+        private final int[][] adjacency;
+        private final short[][] shortestPathLen;
+        private final int from;
+        private final int to;
+
+        SearchTask(int[][] adjacency, short[][] shortestPathLen, int from, int to) {
+            this.adjacency = adjacency;
+            this.shortestPathLen = shortestPathLen;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new SearchTask(adjacency, shortestPathLen, from, middle),
+                        new SearchTask(adjacency, shortestPathLen, middle, to)
+                );
+                return;
+            }
+            int[] queue = new int[adjacency.length];
+            for (int source = from; source < to; source++) {
+                shortestPathLen[source] = search(source, queue);
+            }
+        }
+
+        private short[] search(int source, int[] queue) {
+            short[] distance = new short[adjacency.length];
+            Arrays.fill(distance, UNREACHABLE);
+            distance[source] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int node = queue[head++];
+                int next = distance[node] + 1;
+                if (next >= UNREACHABLE) {
+                    throw new IllegalStateException("Shortest path length from " + source + " exceeds " + (UNREACHABLE - 1) + " hops.");
+                }
+                for (int neighbor : adjacency[node]) {
+                    if (distance[neighbor] == UNREACHABLE) {
+                        distance[neighbor] = (short) next;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            return distance;
+        }
+
+    }
+
+}
@@ -83,4 +83,24 @@ public class FloydWarshallAlgorithm {
 
     }
 
+    /**
+     * Calculate all the shortest path lengths in the same representation as the
+     * {@link BreadthFirstSearchAlgorithm}: as shorts, with unreachable pairs having
+     * length {@link BreadthFirstSearchAlgorithm#UNREACHABLE}.
+     *
+     * @return 2-d array with the shortest path distances
+     */
+    public short[][] calculateShortestPathsAsShorts() {
+        int[][] shortestPathLen = calculateShortestPaths();
+        short[][] result = new short[shortestPathLen.length][];
+        for (int i = 0; i < shortestPathLen.length; i++) {
+            result[i] = new short[shortestPathLen[i].length];
+            for (int j = 0; j < shortestPathLen[i].length; j++) {
+                int len = shortestPathLen[i][j];
+                result[i][j] = len >= BreadthFirstSearchAlgorithm.UNREACHABLE ? BreadthFirstSearchAlgorithm.UNREACHABLE : (short) len;
+            }
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,224 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.graphutils;
+
+import ch.ethz.systems.floodns.core.Network;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Content-addressed on-disk cache of the all-pairs shortest path lengths
+ * calculated by the {@link BreadthFirstSearchAlgorithm}.
+ * <p>
+ * The key of an entry is the SHA-256 hash of the directed adjacency of the network
+ * (and the kind of computation), such that any run on the same topology reuses the
+ * same entry, while any change to the topology (including links removed before the
+ * routing state is determined) results in a new one. An entry file <i>[key].apsp</i>
+ * contains:
+ * <p>
+ * [magic: int][version: int][number of nodes n: int][n * n distances: short]
+ * <p>
+ * All values are big-endian (the same format as the netbench routing cache), and
+ * unreachable pairs have distance {@link BreadthFirstSearchAlgorithm#UNREACHABLE}.
+ * Entries are memory-mapped when loaded and the lengths are served from the mapping
+ * (see {@link ShortestPathLengths}) without copying them onto the heap. They are written
+ * to a temporary file which is then atomically moved into place, such that concurrent
+ * runs can share the cache directory.
+ */
+public class ShortestPathCache {
+
+    // Class logger
+    private static final Logger logger = LogManager.getLogger(ShortestPathCache.class);
+
+    private static final int MAGIC = 0x41505350; // "APSP"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE_BYTE = 12;
+    private static final String EXTENSION = ".apsp";
+
+    private final File directory;
+
+    /**
+     * Create a cache in the given directory (which is created if it does not exist).
+     *
+     * @param directoryPath Cache directory
+     */
+    public ShortestPathCache(String directoryPath) {
+        this.directory = new File(directoryPath);
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalArgumentException("Could not create routing cache directory: " + directoryPath);
+        }
+    }
+
+    /**
+     * Retrieve the shortest path lengths (in hops) of the network from the cache,
+     * or calculate and store them if they are not in it yet.
+     *
+     * @param network   Network
+     *
+     * @return Shortest path lengths
+     */
+    public ShortestPathLengths getOrCalculate(Network network) {
+        return getOrCalculate(network, n -> new BreadthFirstSearchAlgorithm(n).calculateShortestPaths());
+    }
+
+    /**
+     * Retrieve the shortest path lengths (in hops) of the network from the cache,
+     * or calculate them using the given algorithm and store them if they are not in it yet.
+     * The algorithm must yield the same lengths as the {@link BreadthFirstSearchAlgorithm},
+     * as the entries do not depend on how they were calculated.
+     *
+     * @param network       Network
+     * @param calculation   Calculation of the shortest path lengths of a network
+     *
+     * @return Shortest path lengths (memory-mapped if loaded from the cache)
+     */
+    public ShortestPathLengths getOrCalculate(Network network, Function<Network, short[][]> calculation) {
+        File entry = new File(directory, determineKey(network) + EXTENSION);
+        int numNodes = network.getNumNodes();
+        if (entry.exists()) {
+            try {
+                ShortestPathLengths shortestPathLen = read(entry, numNodes);
+                logger.info("  > Loaded shortest path lengths from routing cache: " + entry.getPath());
+                return shortestPathLen;
+            } catch (IOException | IllegalStateException e) {
+                logger.warn("Ignoring unreadable routing cache entry " + entry.getPath() + ": " + e.getMessage());
+            }
+        }
+        short[][] shortestPathLen = calculation.apply(network);
+        try {
+            write(entry, shortestPathLen);
+        } catch (IOException e) {
+            logger.warn("Could not store routing cache entry " + entry.getPath() + ": " + e.getMessage());
+        }
+        return ShortestPathLengths.of(shortestPathLen);
+    }
+
+    /**
+     * Determine the content key of a network: the SHA-256 hash of the sorted
+     * neighbors of every node.
+     *
+     * @param network   Network
+     *
+     * @return Hexadecimal key
+     */
+    static String determineKey(Network network) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update("hop_shortest_path_lengths".getBytes(StandardCharsets.UTF_8));
+            int numNodes = network.getNumNodes();
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            digest.update(buffer.putInt(0, numNodes).array());
+            for (int i = 0; i < numNodes; i++) {
+                List<Integer> adjacent = new ArrayList<>(network.getNode(i).getOutgoingConnectedToNodes());
+                Collections.sort(adjacent);
+                digest.update(buffer.putInt(0, adjacent.size()).array());
+                for (int id : adjacent) {
+                    digest.update(buffer.putInt(0, id).array());
+                }
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Read an entry by memory-mapping it. The mapping stays valid after the
+     * file is closed, for as long as the returned lengths are referenced.
+     *
+     * @param entry     Entry file
+     * @param numNodes  Expected number of nodes
+     *
+     * @return Shortest path lengths served from the mapping
+     */
+    private static ShortestPathLengths read(File entry, int numNodes) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(entry, "r"); FileChannel channel = file.getChannel()) {
+            long expectedSize = HEADER_SIZE_BYTE + 2L * numNodes * numNodes;
+            if (channel.size() != expectedSize) {
+                throw new IllegalStateException("size is " + channel.size() + " instead of " + expectedSize);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION || mapped.getInt() != numNodes) {
+                throw new IllegalStateException("header does not match");
+            }
+            return ShortestPathLengths.mapped(mapped.asShortBuffer(), numNodes);
+        }
+    }
+
+    /**
+     * Write an entry (atomically replacing any existing one).
+     *
+     * @param entry             Entry file
+     * @param shortestPathLen   Shortest path lengths
+     */
+    private void write(File entry, short[][] shortestPathLen) throws IOException {
+        int numNodes = shortestPathLen.length;
+        File temporary = File.createTempFile(entry.getName(), ".tmp", directory);
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(HEADER_SIZE_BYTE, 2 * numNodes));
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(numNodes).flip();
+            writeFully(channel, buffer);
+            for (short[] row : shortestPathLen) {
+                buffer.clear();
+                buffer.asShortBuffer().put(row);
+                buffer.limit(2 * numNodes);
+                writeFully(channel, buffer);
+            }
+        }
+        try {
+            Files.move(temporary.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
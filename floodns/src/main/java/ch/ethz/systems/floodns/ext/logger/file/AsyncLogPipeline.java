@@ -0,0 +1,305 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.logger.file;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous log pipeline: the simulation thread hands each written
+ * line to a bounded ring buffer, and a background thread drains it in
+ * batches into the underlying (buffered) file writers.
+ * <p>
+ * The ring buffer is single-producer single-consumer and lock-free:
+ * the producer (the simulation thread) only advances the tail, the consumer
+ * only the head. If the buffer is full the producer waits until the consumer
+ * has released slots (back-pressure), such that memory usage stays bounded.
+ * <p>
+ * Usage: {@link #register(Writer) register} all target writers, {@link #start()}
+ * the pipeline, write through the returned writers, and finally {@link #close()}
+ * it. Closing is a barrier: it returns only once every line has been written,
+ * and afterwards flushes and closes all target writers. A failure of the
+ * background thread is thrown as {@link FatalLogFileException} upon the next
+ * write or upon closing.
+ */
+public class AsyncLogPipeline {
+
+    // Class logger
+    private static final Logger logger = LogManager.getLogger(AsyncLogPipeline.class);
+
+    // Default ring buffer size (lines) and maximum lines written per batch
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+
+    // Sleep of the background thread when there is nothing to write,
+    // and of the simulation thread when the buffer is full
+    private static final long IDLE_PARK_NS = 100_000;
+    private static final long STALL_PARK_NS = 10_000;
+
+    // Target writers
+    private final List<Writer> targets;
+
+    // Ring buffer
+    private final String[] lines;
+    private final int[] lineTargets;
+    private final int mask;
+    private final int batchSize;
+    private final AtomicLong head;  // Next slot to be written to file (only advanced by consumer)
+    private final AtomicLong tail;  // Next slot to be filled (only advanced by producer)
+    private long cachedHead;        // Producer's last view of the head
+
+    // Background thread state
+    private Thread consumer;
+    private volatile boolean closing;
+    private volatile IOException failure;
+
+    // Statistics
+    private long numLines;
+    private long numStalls;
+
+    /**
+     * Create an asynchronous log pipeline with the default buffer size.
+     */
+    public AsyncLogPipeline() {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create an asynchronous log pipeline.
+     *
+     * @param capacity  Ring buffer capacity in lines (power of two)
+     * @param batchSize Maximum amount of lines written before releasing their slots
+     */
+    AsyncLogPipeline(int capacity, int batchSize) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.targets = new ArrayList<>();
+        this.lines = new String[capacity];
+        this.lineTargets = new int[capacity];
+        this.mask = capacity - 1;
+        this.batchSize = batchSize;
+        this.head = new AtomicLong(0);
+        this.tail = new AtomicLong(0);
+        this.cachedHead = 0;
+        this.closing = false;
+        this.failure = null;
+    }
+
+    /**
+     * Register a target writer. From now on, the target is owned by the pipeline
+     * and must only be written to through the returned writer.
+     *
+     * @param target    Target writer (e.g. a buffered file writer)
+     *
+     * @return Writer which hands all written text to the pipeline
+     */
+    public Writer register(Writer target) {
+        if (consumer != null) {
+            throw new IllegalStateException("Cannot register a writer after the pipeline has been started.");
+        }
+        targets.add(target);
+        return new PipelineWriter(targets.size() - 1);
+    }
+
+    /**
+     * Start the background writer thread.
+     */
+    public void start() {
+        if (consumer != null) {
+            throw new IllegalStateException("Pipeline has already been started.");
+        }
+        consumer = new Thread(this::drain, "floodns-async-log");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Hand a line to the pipeline, waiting if the buffer is full.
+     *
+     * @param target    Target writer index
+     * @param line      Text (null to flush the target)
+     */
+    private void offer(int target, String line) {
+        if (consumer == null || closing) {
+            throw new IllegalStateException("Pipeline is not running.");
+        }
+        checkFailure();
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            while (t - cachedHead > mask) {
+                checkFailure();
+                numStalls++;
+                LockSupport.unpark(consumer);
+                LockSupport.parkNanos(this, STALL_PARK_NS);
+                cachedHead = head.get();
+            }
+        }
+        int slot = (int) (t & mask);
+        lines[slot] = line;
+        lineTargets[slot] = target;
+        tail.lazySet(t + 1);
+        numLines++;
+    }
+
+    /**
+     * Main loop of the background thread: write out batches of lines until
+     * the pipeline is closed and the buffer is empty.
+     */
+    private void drain() {
+        try {
+            long h = head.get();
+            while (true) {
+                long t = tail.get();
+                if (h == t) {
+                    if (closing) {
+                        // All lines are published before closing is set
+                        if (tail.get() == h) {
+                            return;
+                        }
+                    } else {
+                        LockSupport.parkNanos(this, IDLE_PARK_NS);
+                    }
+                    continue;
+                }
+                long end = Math.min(t, h + batchSize);
+                for (; h < end; h++) {
+                    int slot = (int) (h & mask);
+                    Writer target = targets.get(lineTargets[slot]);
+                    if (lines[slot] == null) {
+                        target.flush();
+                    } else {
+                        target.write(lines[slot]);
+                        lines[slot] = null;
+                    }
+                }
+                head.lazySet(h);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Wait until all lines have been written, then flush and close all target writers.
+     *
+     * @throws FatalLogFileException If writing any of the lines failed
+     */
+    public void close() {
+        if (consumer != null && !closing) {
+            closing = true;
+            LockSupport.unpark(consumer);
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FatalLogFileException(new InterruptedIOException("Interrupted while waiting for log writer"));
+            }
+            logger.info("Asynchronous log pipeline wrote " + numLines + " lines (stalled " + numStalls + " times on a full buffer)");
+        }
+        closing = true;
+        checkFailure();
+        try {
+            for (Writer target : targets) {
+                target.close();
+            }
+        } catch (IOException e) {
+            throw new FatalLogFileException(e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new FatalLogFileException(failure);
+        }
+    }
+
+    /**
+     * Retrieve the amount of times the simulation thread had to wait for a full buffer.
+     *
+     * @return Number of stalls
+     */
+    public long getNumStalls() {
+        return numStalls;
+    }
+
+    /**
+     * Writer handed out for a registered target.
+     * Closing the targets is left to the pipeline.
+     */
+    private class PipelineWriter extends Writer {
+
+        private final int target;
+
+        PipelineWriter(int target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(String str) {
+            offer(target, str);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            offer(target, str.substring(off, off + len));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            offer(target, new String(cbuf, off, len));
+        }
+
+        @Override
+        public void write(int c) {
+            offer(target, String.valueOf((char) c));
+        }
+
+        @Override
+        public void flush() {
+            // Flushes the target once all lines before it have been written
+            offer(target, null);
+        }
+
+        @Override
+        public void close() {
+            // Targets are closed by the pipeline
+        }
+
+    }
+
+}
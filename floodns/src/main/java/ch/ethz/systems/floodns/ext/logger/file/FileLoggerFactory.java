@@ -36,6 +36,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
 public class FileLoggerFactory extends LoggerFactory {
 
@@ -56,18 +57,20 @@ public class FileLoggerFactory extends LoggerFactory {
     private static final Logger logger = LogManager.getLogger(FileLoggerFactory.class);
     // Log folder path (e.g. "C:/folder/temp")
     private final String logFolderPath;
+    // Asynchronous log pipeline (null if writing synchronously)
+    private final AsyncLogPipeline pipeline;
     // Log file writers
-    private final BufferedWriter writerLinkInfoFile;
-    private final BufferedWriter writerLinkUtilizationFile;
-    private final BufferedWriter writerLinkNumActiveFlowsFile;
-    private final BufferedWriter writerNodeInfoFile;
-    private final BufferedWriter writerNodeNumActiveFlowsFile;
-    private final BufferedWriter writerFlowBandwidthFile;
-    private final BufferedWriter writerConnectionBandwidthFile;
-    private final BufferedWriter writerFlowInfoFile;
-    private final BufferedWriter writerConnectionInfoFile;
-    private final BufferedWriter writerJobInfoFile;
-    private final BufferedWriter writerAssignmentsDurationFile;
+    private final Writer writerLinkInfoFile;
+    private final Writer writerLinkUtilizationFile;
+    private final Writer writerLinkNumActiveFlowsFile;
+    private final Writer writerNodeInfoFile;
+    private final Writer writerNodeNumActiveFlowsFile;
+    private final Writer writerFlowBandwidthFile;
+    private final Writer writerConnectionBandwidthFile;
+    private final Writer writerFlowInfoFile;
+    private final Writer writerConnectionInfoFile;
+    private final Writer writerJobInfoFile;
+    private final Writer writerAssignmentsDurationFile;
 
     /**
      * Constructor for file logger factory.
@@ -79,8 +82,27 @@ public class FileLoggerFactory extends LoggerFactory {
      * @param logFolderPath Log folder path (e.g. /mnt/user/my/log/folder)
      */
     public FileLoggerFactory(Simulator simulator, String logFolderPath) {
+        this(simulator, logFolderPath, false);
+    }
+
+    /**
+     * Constructor for file logger factory.
+     * Automatically opens all the writing streams.
+     * <p>
+     * If asynchronous, the log lines are handed to an {@link AsyncLogPipeline},
+     * such that the simulation thread does not wait on disk writes. The resulting
+     * log files are identical.
+     * <p>
+     * Closed once finished using {@link #close()} by the simulator.
+     *
+     * @param simulator     Simulator instance
+     * @param logFolderPath Log folder path (e.g. /mnt/user/my/log/folder)
+     * @param asynchronous  True iff the log files should be written by a background thread
+     */
+    public FileLoggerFactory(Simulator simulator, String logFolderPath, boolean asynchronous) {
         super(simulator);
         this.logFolderPath = logFolderPath;
+        this.pipeline = asynchronous ? new AsyncLogPipeline() : null;
 
         // Ensure it exists
         File runFolder = new File(logFolderPath);
@@ -90,24 +112,39 @@ public class FileLoggerFactory extends LoggerFactory {
 
         // Open all file writers
         try {
-            this.writerLinkInfoFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_LINK_INFO));
-            this.writerLinkUtilizationFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_LINK_UTILIZATION));
-            this.writerLinkNumActiveFlowsFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_LINK_NUM_ACTIVE_FLOWS));
-            this.writerNodeInfoFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_NODE_INFO));
-            this.writerNodeNumActiveFlowsFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_NODE_NUM_ACTIVE_FLOWS));
-            this.writerFlowInfoFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_FLOW_INFO));
-            this.writerJobInfoFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_JOB_INFO));
-            this.writerAssignmentsDurationFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_ASSIGNMENTS_DURATION));
-            this.writerFlowBandwidthFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_FLOW_BANDWIDTH));
-            this.writerConnectionInfoFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_CONNECTION_INFO));
-            this.writerConnectionBandwidthFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_CONNECTION_BANDWIDTH));
+            this.writerLinkInfoFile = openWriter(FILE_NAME_LINK_INFO);
+            this.writerLinkUtilizationFile = openWriter(FILE_NAME_LINK_UTILIZATION);
+            this.writerLinkNumActiveFlowsFile = openWriter(FILE_NAME_LINK_NUM_ACTIVE_FLOWS);
+            this.writerNodeInfoFile = openWriter(FILE_NAME_NODE_INFO);
+            this.writerNodeNumActiveFlowsFile = openWriter(FILE_NAME_NODE_NUM_ACTIVE_FLOWS);
+            this.writerFlowInfoFile = openWriter(FILE_NAME_FLOW_INFO);
+            this.writerJobInfoFile = openWriter(FILE_NAME_JOB_INFO);
+            this.writerAssignmentsDurationFile = openWriter(FILE_NAME_ASSIGNMENTS_DURATION);
+            this.writerFlowBandwidthFile = openWriter(FILE_NAME_FLOW_BANDWIDTH);
+            this.writerConnectionInfoFile = openWriter(FILE_NAME_CONNECTION_INFO);
+            this.writerConnectionBandwidthFile = openWriter(FILE_NAME_CONNECTION_BANDWIDTH);
             BufferedWriter writerRunFinishedFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_RUN_FINISHED));
             writerRunFinishedFile.write("No");
             writerRunFinishedFile.close();
         } catch (IOException e) {
             throw new FatalLogFileException(e);
         }
+        if (pipeline != null) {
+            pipeline.start();
+        }
+
+    }
 
+    /**
+     * Open a log file for writing.
+     *
+     * @param logFileName   Log file name (e.g. "flow_info.csv")
+     *
+     * @return Writer to the log file
+     */
+    private Writer openWriter(String logFileName) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(logFolderPath + "/" + logFileName));
+        return pipeline == null ? writer : pipeline.register(writer);
     }
 
     /**
@@ -174,16 +211,21 @@ public class FileLoggerFactory extends LoggerFactory {
     protected void close() {
 
         try {
-            writerLinkInfoFile.close();
-            writerLinkUtilizationFile.close();
-            writerLinkNumActiveFlowsFile.close();
-            writerNodeInfoFile.close();
-            writerNodeNumActiveFlowsFile.close();
-            writerFlowBandwidthFile.close();
-            writerConnectionBandwidthFile.close();
-            writerFlowInfoFile.close();
-            writerJobInfoFile.close();
-            writerConnectionInfoFile.close();
+            if (pipeline != null) {
+                pipeline.close();
+            } else {
+                writerLinkInfoFile.close();
+                writerLinkUtilizationFile.close();
+                writerLinkNumActiveFlowsFile.close();
+                writerNodeInfoFile.close();
+                writerNodeNumActiveFlowsFile.close();
+                writerFlowBandwidthFile.close();
+                writerConnectionBandwidthFile.close();
+                writerFlowInfoFile.close();
+                writerJobInfoFile.close();
+                writerAssignmentsDurationFile.close();
+                writerConnectionInfoFile.close();
+            }
             BufferedWriter writerRunFinishedFile = new BufferedWriter(new FileWriter(logFolderPath + "/" + FILE_NAME_RUN_FINISHED));
             writerRunFinishedFile.write("Yes");
             writerRunFinishedFile.close();
@@ -43,6 +43,35 @@ public abstract class CentralizedRoutingStrategy extends SinglePathRoutingStrate
 
     public abstract void determinePathAssignments();
 
+    /**
+     * Reroute connections crossing failed links by a new decision on all path
+     * assignments, which excludes the failed cores.
+     *
+     * @param connections   Affected active connections
+     */
+    @Override
+    public void reroute(Collection<Connection> connections) {
+        requestPathAssignments();
+    }
+
+    /**
+     * Request a decision on the path assignments. Requests raised within the same
+     * simulation instant (e.g., by many jobs starting an epoch at once) are served
+     * by a single decision at the end of the instant, before the aftermath.
+     */
+    public void requestPathAssignments() {
+        simulator.requestPathAssignments(this);
+    }
+
+    /**
+     * Determine the path assignments and log the decision.
+     * Called by the simulator to serve the requests of an instant.
+     */
+    public void performPathAssignments() {
+        determinePathAssignments();
+        logger.saveInfo(getAverageDuration(), getNumAssignedConnections());
+    }
+
     public AssignmentsDurationLogger getLogger() {
         return logger;
     }
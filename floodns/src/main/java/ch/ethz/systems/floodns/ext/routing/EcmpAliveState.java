@@ -0,0 +1,282 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.routing;
+
+import ch.ethz.systems.floodns.core.Link;
+import ch.ethz.systems.floodns.core.LinkFailureListener;
+import ch.ethz.systems.floodns.core.Network;
+
+import java.util.Arrays;
+
+/**
+ * Reachability of the destinations of an {@link EcmpRoutingTable} under link failures:
+ * a switch is alive towards a destination iff it can reach it along the next hops of
+ * the table without crossing a failed link.
+ * <p>
+ * For every (switch, destination) pair it keeps the number of next hops which are
+ * not failed and lead to a switch which is alive towards the destination. It is updated
+ * incrementally as links fail and recover: a count only changes for the pairs of which
+ * the link is a next hop, and this only propagates backwards along the next hops into
+ * a switch if the switch itself changes between alive and dead. The table itself is
+ * left untouched, such that it can be shared.
+ */
+final class EcmpAliveState implements LinkFailureListener {
+
+    private final Network network;
+    private final EcmpRoutingTable table;
+    private final int numSwitches;
+    private final int[] pairFirstHop;
+    private final int[] hopLinkIds;
+
+    // Number of alive next hops of each pair (switch s, destination d) at d * S + s
+    private final int[] aliveHopCount;
+
+    // Pairs of which each link is a next hop
+    private final int[] linkFirstPair;
+    private final int[] linkPairs;
+
+    // Next hops into the switch of each pair
+    private final int[] pairFirstIncomingHop;
+    private final int[] incomingHopLinkIds;
+
+    // Pairs of which the count dropped to zero or rose from zero, still to be propagated
+    private int[] stack;
+
+    /**
+     * Create the alive state of a table, which follows the failure state of the network.
+     *
+     * @param network   Network (of which the table was calculated)
+     * @param table     ECMP routing table
+     */
+    EcmpAliveState(Network network, EcmpRoutingTable table) {
+        this.network = network;
+        this.table = table;
+        this.numSwitches = table.getSwitches().length;
+        this.pairFirstHop = table.getPairFirstHop();
+        this.hopLinkIds = table.getHopLinkIds();
+        int numPairs = pairFirstHop.length - 1;
+
+        // Index of the pairs by their next hop links
+        int maxLinkId = -1;
+        for (int linkId : hopLinkIds) {
+            maxLinkId = Math.max(maxLinkId, linkId);
+        }
+        this.linkFirstPair = new int[maxLinkId + 2];
+        for (int linkId : hopLinkIds) {
+            linkFirstPair[linkId + 1]++;
+        }
+        for (int l = 0; l < maxLinkId + 1; l++) {
+            linkFirstPair[l + 1] += linkFirstPair[l];
+        }
+        this.linkPairs = new int[hopLinkIds.length];
+        int[] linkFill = Arrays.copyOf(linkFirstPair, maxLinkId + 1);
+        for (int p = 0; p < numPairs; p++) {
+            for (int h = pairFirstHop[p]; h < pairFirstHop[p + 1]; h++) {
+                linkPairs[linkFill[hopLinkIds[h]]++] = p;
+            }
+        }
+
+        // Index of the next hops by the pair of the switch they lead into
+        this.pairFirstIncomingHop = new int[numPairs + 1];
+        for (int p = 0; p < numPairs; p++) {
+            for (int h = pairFirstHop[p]; h < pairFirstHop[p + 1]; h++) {
+                int next = nextPair(p, hopLinkIds[h]);
+                if (next != -1) {
+                    pairFirstIncomingHop[next + 1]++;
+                }
+            }
+        }
+        for (int p = 0; p < numPairs; p++) {
+            pairFirstIncomingHop[p + 1] += pairFirstIncomingHop[p];
+        }
+        this.incomingHopLinkIds = new int[pairFirstIncomingHop[numPairs]];
+        int[] incomingFill = Arrays.copyOf(pairFirstIncomingHop, numPairs);
+        for (int p = 0; p < numPairs; p++) {
+            for (int h = pairFirstHop[p]; h < pairFirstHop[p + 1]; h++) {
+                int next = nextPair(p, hopLinkIds[h]);
+                if (next != -1) {
+                    incomingHopLinkIds[incomingFill[next]++] = hopLinkIds[h];
+                }
+            }
+        }
+        this.stack = new int[16];
+
+        // Count the alive next hops under the links which are already failed,
+        // and follow the failure state from now on
+        this.aliveHopCount = new int[numPairs];
+        countAliveHops();
+        network.addLinkFailureListener(this);
+    }
+
+    /**
+     * Count the alive next hops of all pairs from scratch. The pairs are counted outward
+     * from each destination, such that the switches the next hops of a pair lead into
+     * are always counted before the pair itself.
+     */
+    private void countAliveHops() {
+        int numPairs = aliveHopCount.length;
+
+        // Number of next hops of each pair into a switch which is not counted yet
+        int[] uncounted = new int[numPairs];
+        int size = 0;
+        int[] ready = new int[numPairs];
+        for (int p = 0; p < numPairs; p++) {
+            for (int h = pairFirstHop[p]; h < pairFirstHop[p + 1]; h++) {
+                if (nextPair(p, hopLinkIds[h]) != -1) {
+                    uncounted[p]++;
+                }
+            }
+            if (uncounted[p] == 0) {
+                ready[size++] = p;
+            }
+        }
+
+        // Count a pair once all switches its next hops lead into are counted
+        int counted = 0;
+        while (counted < size) {
+            int p = ready[counted++];
+            for (int h = pairFirstHop[p]; h < pairFirstHop[p + 1]; h++) {
+                int next = nextPair(p, hopLinkIds[h]);
+                if (!network.isLinkFailed(hopLinkIds[h]) && (next == -1 || aliveHopCount[next] > 0)) {
+                    aliveHopCount[p]++;
+                }
+            }
+            int d = p / numSwitches;
+            for (int h = pairFirstIncomingHop[p]; h < pairFirstIncomingHop[p + 1]; h++) {
+                int previous = d * numSwitches + table.getSwitchIndex(network.getLink(incomingHopLinkIds[h]).getFrom());
+                if (--uncounted[previous] == 0) {
+                    ready[size++] = previous;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether a switch can reach a destination without crossing a failed link.
+     *
+     * @param nodeId    Switch node identifier
+     * @param dstId     Destination node identifier
+     *
+     * @return True iff the switch is the destination or alive towards it
+     */
+    boolean isAlive(int nodeId, int dstId) {
+        if (nodeId == dstId) {
+            return true;
+        }
+        int s = table.getSwitchIndex(nodeId);
+        return s != -1 && aliveHopCount[table.getDestinationIndex(dstId) * numSwitches + s] > 0;
+    }
+
+    /**
+     * Check whether a next hop link leads towards a destination without crossing a failed link.
+     *
+     * @param linkId    Next hop link identifier
+     * @param dstId     Destination node identifier
+     *
+     * @return True iff the link is not failed and leads to a switch alive towards the destination
+     */
+    boolean isNextHopAlive(int linkId, int dstId) {
+        return !network.isLinkFailed(linkId) && isAlive(network.getLink(linkId).getTo(), dstId);
+    }
+
+    /**
+     * Retrieve the number of alive next hops from a switch towards a destination.
+     *
+     * @param nodeId    Switch node identifier
+     * @param dstId     Destination node identifier
+     *
+     * @return Number of alive next hops
+     */
+    int getNumAliveNextHops(int nodeId, int dstId) {
+        return aliveHopCount[table.getDestinationIndex(dstId) * numSwitches + table.getSwitchIndex(nodeId)];
+    }
+
+    @Override
+    public void linkFailureChanged(Link link, boolean failed) {
+        int linkId = link.getLinkId();
+        if (linkId + 1 >= linkFirstPair.length) {
+            return; // Not a next hop of any pair
+        }
+        int delta = failed ? -1 : 1;
+        for (int i = linkFirstPair[linkId]; i < linkFirstPair[linkId + 1]; i++) {
+            int pair = linkPairs[i];
+            int dstId = table.getDestinations()[pair / numSwitches];
+            if (isAlive(link.getTo(), dstId)) {
+                update(pair, delta);
+            }
+        }
+    }
+
+    /**
+     * Change the alive next hop count of a pair, and propagate backwards while
+     * switches change between alive and dead.
+     *
+     * @param pair      Pair index
+     * @param delta     -1 if a next hop is no longer alive, +1 if it is alive again
+     */
+    private void update(int pair, int delta) {
+        int size = 0;
+        stack[size++] = pair;
+        while (size > 0) {
+            int p = stack[--size];
+            aliveHopCount[p] += delta;
+            if (aliveHopCount[p] != (delta < 0 ? 0 : 1)) {
+                continue; // Switch did not change between alive and dead
+            }
+            int d = p / numSwitches;
+            for (int h = pairFirstIncomingHop[p]; h < pairFirstIncomingHop[p + 1]; h++) {
+                int linkId = incomingHopLinkIds[h];
+                if (!network.isLinkFailed(linkId)) {
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[size++] = d * numSwitches + table.getSwitchIndex(network.getLink(linkId).getFrom());
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine the pair of the switch a next hop leads into, towards the same destination.
+     *
+     * @param pair      Pair index of the next hop
+     * @param linkId    Next hop link identifier
+     *
+     * @return Pair index, or -1 if the next hop leads into the destination itself
+     */
+    private int nextPair(int pair, int linkId) {
+        int d = pair / numSwitches;
+        int to = network.getLink(linkId).getTo();
+        if (to == table.getDestinations()[d]) {
+            return -1;
+        }
+        int s = table.getSwitchIndex(to);
+        if (s == -1) {
+            throw new IllegalStateException("Next hop " + linkId + " does not lead into a switch.");
+        }
+        return d * numSwitches + s;
+    }
+
+}
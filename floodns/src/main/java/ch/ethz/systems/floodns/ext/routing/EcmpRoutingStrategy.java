@@ -26,12 +26,9 @@ package ch.ethz.systems.floodns.ext.routing;
 
 import ch.ethz.systems.floodns.core.*;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
-import org.apache.commons.lang3.tuple.ImmutablePair;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathCache;
 
-import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 
 /**
  * Routing decider for the Equal-Cost Multi-Path (ECMP) routing approach.
@@ -40,12 +37,40 @@ import java.util.Set;
  */
 public class EcmpRoutingStrategy extends SinglePathRoutingStrategy {
 
-    private final Map<ImmutablePair<Integer, Integer>, List<Link>> nextHopPossibilities;
+    private final EcmpRoutingTable routingTable;
+    private final EcmpAliveState aliveState;
     private final boolean torsAreEndpoints;
 
     public EcmpRoutingStrategy(Simulator simulator, Topology topology, Random random) {
+        this(simulator, topology, random, null);
+    }
+
+    /**
+     * Create an ECMP routing strategy.
+     *
+     * @param simulator Simulator instance
+     * @param topology  Topology instance
+     * @param random    Random number generator
+     * @param cache     Shortest path cache used to determine the routing state (null to always calculate)
+     */
+    public EcmpRoutingStrategy(Simulator simulator, Topology topology, Random random, ShortestPathCache cache) {
+        this(simulator, topology, random, cache, false);
+    }
+
+    /**
+     * Create an ECMP routing strategy.
+     *
+     * @param simulator     Simulator instance
+     * @param topology      Topology instance
+     * @param random        Random number generator
+     * @param cache         Shortest path cache used to determine the routing state (null to always calculate)
+     * @param floydWarshall True iff the shortest path lengths are calculated using Floyd-Warshall
+     *                      instead of breadth-first search
+     */
+    public EcmpRoutingStrategy(Simulator simulator, Topology topology, Random random, ShortestPathCache cache, boolean floydWarshall) {
         super(simulator, topology);
-        this.nextHopPossibilities = RoutingUtility.determineEcmpRoutingStateSwitches(topology, true);
+        this.routingTable = RoutingUtility.determineEcmpRoutingTable(topology, true, cache, floydWarshall);
+        this.aliveState = new EcmpAliveState(network, routingTable);
         this.torsAreEndpoints = this.topologyDetails.areTorsEndpoints();
     }
 
@@ -70,24 +95,24 @@ public class EcmpRoutingStrategy extends SinglePathRoutingStrategy {
         }
 
         // Now add ECMP path between ToRs
-        Node current = network.getNode(srcTorId);
-        while (!current.equals(network.getNode(dstTorId))) {
+        if (!aliveState.isAlive(srcTorId, dstTorId)) {
+            throw new IllegalStateException(
+                    "Connection " + connection.getConnectionId() + " cannot be routed: every shortest path from ToR "
+                            + srcTorId + " to ToR " + dstTorId + " crosses a failed link."
+            );
+        }
+        int nonSequentialHash = RoutingUtility.getNonSequentialHash(connection.getSrcNodeId(), connection.getDstNodeId());
+        int hash = RoutingUtility.hash(srcTorId + nonSequentialHash);
+        int current = srcTorId;
+        while (current != dstTorId) {
             // Decide next hop
-            List<Link> possibilities = filterPossibilities(current.getNodeId(), dstTorId);
-            Link hop = possibilities.get(0);
-            if (possibilities.size() > 1) {
-                int srcNodeId = connection.getSrcNodeId();
-                int dstNodeId = connection.getDstNodeId();
-                int nonSequentialHash = RoutingUtility.getNonSequentialHash(srcNodeId, dstNodeId);
-                int hash = RoutingUtility.hash(srcTorId + nonSequentialHash);
-                hop = possibilities.get(hash % possibilities.size());
-            }
+            Link hop = selectNextHop(current, dstTorId, hash);
 
             // Add link to path
             path.add(hop);
 
             // Move on
-            current = hop.getToNode();
+            current = hop.getTo();
 
         }
 
@@ -99,10 +124,31 @@ public class EcmpRoutingStrategy extends SinglePathRoutingStrategy {
         return path;
     }
 
-    private List<Link> filterPossibilities(int srcId, int dstId) {
-        List<Link> possibilities = nextHopPossibilities.get(ImmutablePair.of(srcId, dstId));
-        Set<Link> failedLinks = network.getFailedLinks();
-        possibilities.removeIf(failedLinks::contains);
-        return possibilities;
+    /**
+     * Select the next hop towards the destination by hash among those over which it can
+     * still be reached without crossing a failed link. The switch must be alive towards
+     * the destination. The routing table itself is left untouched, such that recovered
+     * links are immediately used again.
+     *
+     * @param nodeId    Current node identifier
+     * @param dstId     Destination ToR identifier
+     * @param hash      Non-negative hash of the connection
+     *
+     * @return Next hop link
+     */
+    private Link selectNextHop(int nodeId, int dstId, int hash) {
+        int numNextHops = routingTable.getNumNextHops(nodeId, dstId);
+        int numAlive = aliveState.getNumAliveNextHops(nodeId, dstId);
+        if (numAlive == numNextHops) {
+            return network.getLink(routingTable.getNextHopLinkId(nodeId, dstId, hash % numNextHops));
+        }
+        int target = hash % numAlive;
+        for (int i = 0; ; i++) {
+            int linkId = routingTable.getNextHopLinkId(nodeId, dstId, i);
+            if (aliveState.isNextHopAlive(linkId, dstId) && target-- == 0) {
+                return network.getLink(linkId);
+            }
+        }
     }
+
 }
@@ -0,0 +1,342 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.routing;
+
+import ch.ethz.systems.floodns.core.Link;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Node;
+import ch.ethz.systems.floodns.ext.graphutils.BreadthFirstSearchAlgorithm;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathLengths;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compact next-hop table for ECMP: for every (switch, destination) pair the links
+ * out of the switch which lie on a shortest path towards the destination.
+ * <p>
+ * The link identifiers of all pairs are stored back-to-back in a single array, indexed
+ * by an array of offsets per pair. The pairs of a destination are contiguous, such
+ * that the destinations can be calculated in parallel. Lookups do not allocate, and
+ * the table takes space proportional to the number of switches times the number of
+ * destinations (plus the next hops themselves).
+ */
+public final class EcmpRoutingTable {
+
+    // Number of destinations below which a task is no longer split
+    private static final int DESTINATIONS_PER_TASK = 4;
+
+    private final int numNodes;
+    private final int[] switches;
+    private final int[] destinations;
+    private final int[] switchIndex;
+    private final int[] destinationIndex;
+    private final int[] pairFirstHop;
+    private final int[] hopLinkIds;
+
+    /**
+     * Create a table from its arrays.
+     *
+     * @param numNodes      Number of nodes in the network
+     * @param switches      Switch node identifiers (size S)
+     * @param destinations  Destination node identifiers (size D)
+     * @param pairFirstHop  Index of the first next hop of (switch s, destination d) at d * S + s (size S * D + 1)
+     * @param hopLinkIds    Link identifiers of all next hops
+     */
+    private EcmpRoutingTable(int numNodes, int[] switches, int[] destinations, int[] pairFirstHop, int[] hopLinkIds) {
+        this.numNodes = numNodes;
+        this.switches = switches;
+        this.destinations = destinations;
+        this.pairFirstHop = pairFirstHop;
+        this.hopLinkIds = hopLinkIds;
+        this.switchIndex = indexOf(numNodes, switches);
+        this.destinationIndex = indexOf(numNodes, destinations);
+    }
+
+    private static int[] indexOf(int numNodes, int[] nodeIds) {
+        int[] index = new int[numNodes];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < nodeIds.length; i++) {
+            index[nodeIds[i]] = i;
+        }
+        return index;
+    }
+
+    /**
+     * Calculate the table in parallel over the destinations.
+     *
+     * @param network           Network
+     * @param switches          Switch node identifiers
+     * @param destinations      Destination node identifiers
+     * @param shortestPathLen   All-pairs shortest path lengths (null to search backwards from every destination)
+     *
+     * @return Table
+     */
+    static EcmpRoutingTable calculate(Network network, int[] switches, int[] destinations, ShortestPathLengths shortestPathLen) {
+        int numNodes = network.getNumNodes();
+
+        // Snapshot of the candidate next hops of every switch, in the order of its neighbors
+        int[][] candidateLinkIds = new int[switches.length][];
+        int[][] candidateNeighbors = new int[switches.length][];
+        for (int s = 0; s < switches.length; s++) {
+            Node node = network.getNode(switches[s]);
+            int numCandidates = node.getOutgoingLinks().size();
+            candidateLinkIds[s] = new int[numCandidates];
+            candidateNeighbors[s] = new int[numCandidates];
+            int k = 0;
+            for (int v : node.getOutgoingConnectedToNodes()) {
+                for (Link link : network.getPresentLinksBetween(switches[s], v)) {
+                    candidateLinkIds[s][k] = link.getLinkId();
+                    candidateNeighbors[s][k] = v;
+                    k++;
+                }
+            }
+        }
+
+        // Snapshot of the incoming adjacency for the backward searches
+        int[][] incoming = null;
+        if (shortestPathLen == null) {
+            incoming = new int[numNodes][];
+            for (int i = 0; i < numNodes; i++) {
+                Set<Integer> adjacent = network.getNode(i).getIncomingConnectedToNodes();
+                incoming[i] = new int[adjacent.size()];
+                int k = 0;
+                for (int v : adjacent) {
+                    incoming[i][k++] = v;
+                }
+            }
+        }
+
+        // Next hops of each destination in parallel
+        int[][] destinationHopCounts = new int[destinations.length][];
+        int[][] destinationHopLinkIds = new int[destinations.length][];
+        ForkJoinPool.commonPool().invoke(new DestinationTask(
+                switches, destinations, candidateLinkIds, candidateNeighbors, incoming, shortestPathLen,
+                destinationHopCounts, destinationHopLinkIds, 0, destinations.length
+        ));
+
+        // Concatenate
+        int numHops = 0;
+        for (int[] linkIds : destinationHopLinkIds) {
+            numHops += linkIds.length;
+        }
+        int[] pairFirstHop = new int[switches.length * destinations.length + 1];
+        int[] hopLinkIds = new int[numHops];
+        int hop = 0;
+        for (int d = 0; d < destinations.length; d++) {
+            for (int s = 0; s < switches.length; s++) {
+                pairFirstHop[d * switches.length + s] = hop;
+                hop += destinationHopCounts[d][s];
+            }
+            int[] linkIds = destinationHopLinkIds[d];
+            System.arraycopy(linkIds, 0, hopLinkIds, pairFirstHop[d * switches.length], linkIds.length);
+        }
+        pairFirstHop[switches.length * destinations.length] = hop;
+        return new EcmpRoutingTable(numNodes, switches, destinations, pairFirstHop, hopLinkIds);
+
+    }
+
+    /**
+     * Retrieve the number of next hops from a switch towards a destination
+     * (zero if the switch is the destination).
+     *
+     * @param nodeId    Switch node identifier
+     * @param dstId     Destination node identifier
+     *
+     * @return Number of next hops
+     */
+    public int getNumNextHops(int nodeId, int dstId) {
+        int pair = pairIndex(nodeId, dstId);
+        return pairFirstHop[pair + 1] - pairFirstHop[pair];
+    }
+
+    /**
+     * Retrieve the i-th next hop from a switch towards a destination.
+     *
+     * @param nodeId    Switch node identifier
+     * @param dstId     Destination node identifier
+     * @param i         Index of the next hop
+     *
+     * @return Link identifier of the next hop
+     */
+    public int getNextHopLinkId(int nodeId, int dstId, int i) {
+        int pair = pairIndex(nodeId, dstId);
+        int hop = pairFirstHop[pair] + i;
+        if (i < 0 || hop >= pairFirstHop[pair + 1]) {
+            throw new IndexOutOfBoundsException("Next hop " + i + " does not exist for " + nodeId + " -> " + dstId + ".");
+        }
+        return hopLinkIds[hop];
+    }
+
+    private int pairIndex(int nodeId, int dstId) {
+        int s = nodeId >= 0 && nodeId < numNodes ? switchIndex[nodeId] : -1;
+        int d = dstId >= 0 && dstId < numNodes ? destinationIndex[dstId] : -1;
+        if (s == -1 || d == -1) {
+            throw new IllegalArgumentException("Pair " + nodeId + " -> " + dstId + " is not from a switch to a destination.");
+        }
+        return d * switches.length + s;
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    int[] getSwitches() {
+        return switches;
+    }
+
+    int[] getDestinations() {
+        return destinations;
+    }
+
+    int getSwitchIndex(int nodeId) {
+        return switchIndex[nodeId];
+    }
+
+    int getDestinationIndex(int nodeId) {
+        return destinationIndex[nodeId];
+    }
+
+    int[] getPairFirstHop() {
+        return pairFirstHop;
+    }
+
+    int[] getHopLinkIds() {
+        return hopLinkIds;
+    }
+
+    /**
+     * Determination of the next hops towards a range of destinations.
+     */
+    private static class DestinationTask extends RecursiveAction {
+
+        private final int[] switches;
+        private final int[] destinations;
+        private final int[][] candidateLinkIds;
+        private final int[][] candidateNeighbors;
+        private final int[][] incoming;
+        private final ShortestPathLengths shortestPathLen;
+        private final int[][] destinationHopCounts;
+        private final int[][] destinationHopLinkIds;
+        private final int from;
+        private final int to;
+
+        DestinationTask(int[] switches, int[] destinations, int[][] candidateLinkIds, int[][] candidateNeighbors,
+                        int[][] incoming, ShortestPathLengths shortestPathLen,
+                        int[][] destinationHopCounts, int[][] destinationHopLinkIds, int from, int to) {
+            this.switches = switches;
+            this.destinations = destinations;
+            this.candidateLinkIds = candidateLinkIds;
+            this.candidateNeighbors = candidateNeighbors;
+            this.incoming = incoming;
+            this.shortestPathLen = shortestPathLen;
+            this.destinationHopCounts = destinationHopCounts;
+            this.destinationHopLinkIds = destinationHopLinkIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > DESTINATIONS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new DestinationTask(switches, destinations, candidateLinkIds, candidateNeighbors, incoming, shortestPathLen,
+                                destinationHopCounts, destinationHopLinkIds, from, middle),
+                        new DestinationTask(switches, destinations, candidateLinkIds, candidateNeighbors, incoming, shortestPathLen,
+                                destinationHopCounts, destinationHopLinkIds, middle, to)
+                );
+                return;
+            }
+            short[] distance = null;
+            int[] queue = null;
+            if (shortestPathLen == null) {
+                distance = new short[incoming.length];
+                queue = new int[incoming.length];
+            }
+            int[] linkIds = new int[16];
+            for (int d = from; d < to; d++) {
+                int dstId = destinations[d];
+                if (shortestPathLen == null) {
+                    searchBackwards(dstId, distance, queue);
+                }
+                int[] counts = new int[switches.length];
+                int numHops = 0;
+                for (int s = 0; s < switches.length; s++) {
+                    int nodeId = switches[s];
+                    if (nodeId == dstId) {
+                        continue;
+                    }
+
+                    // Every outgoing link (i, v) on a shortest path to the destination
+                    int length = shortestPathLen == null ? distance[nodeId] : shortestPathLen.get(nodeId, dstId);
+                    for (int k = 0; k < candidateNeighbors[s].length; k++) {
+                        int v = candidateNeighbors[s][k];
+                        int neighborLength = shortestPathLen == null ? distance[v] : shortestPathLen.get(v, dstId);
+                        if (length == neighborLength + 1) {
+                            if (numHops == linkIds.length) {
+                                linkIds = Arrays.copyOf(linkIds, linkIds.length * 2);
+                            }
+                            linkIds[numHops++] = candidateLinkIds[s][k];
+                            counts[s]++;
+                        }
+                    }
+
+                }
+                destinationHopCounts[d] = counts;
+                destinationHopLinkIds[d] = Arrays.copyOf(linkIds, numHops);
+            }
+        }
+
+        /**
+         * Breadth-first search over the incoming links, yielding the
+         * shortest path length of every node towards the destination.
+         */
+        private void searchBackwards(int dstId, short[] distance, int[] queue) {
+            Arrays.fill(distance, BreadthFirstSearchAlgorithm.UNREACHABLE);
+            distance[dstId] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = dstId;
+            while (head < tail) {
+                int node = queue[head++];
+                int next = distance[node] + 1;
+                if (next >= BreadthFirstSearchAlgorithm.UNREACHABLE) {
+                    throw new IllegalStateException("Shortest path length towards " + dstId + " exceeds " + (BreadthFirstSearchAlgorithm.UNREACHABLE - 1) + " hops.");
+                }
+                for (int neighbor : incoming[node]) {
+                    if (distance[neighbor] == BreadthFirstSearchAlgorithm.UNREACHABLE) {
+                        distance[neighbor] = (short) next;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -6,25 +6,51 @@ import ch.ethz.systems.floodns.core.Simulator;
 import ch.ethz.systems.floodns.deeplearningtraining.Job;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
 import ch.ethz.systems.floodns.ext.sysutils.SharedMemory;
+import ch.ethz.systems.floodns.ext.utils.BipartiteEdgeColoring;
 import com.google.gson.Gson;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.util.*;
 
+/**
+ * Routing strategy that assigns the core of every connection by an edge coloring of the
+ * (source ToR, destination ToR) multigraph of the connections, such that connections sharing
+ * a ToR use different cores whenever the number of cores allows it.
+ * <p>
+ * The coloring is either computed in-process ({@link BipartiteEdgeColoring}, default), which
+ * keeps it between the path assignments and only re-routes the connections of which the color
+ * changed, or by the Python controller (a subprocess which communicates via shared memory files),
+ * which colors all connections from scratch every time.
+ */
 public class EdgeColoringRoutingStrategy extends CentralizedRoutingStrategy {
 
     private final Map<Integer, Connection> connections = new HashMap<>();
     private final Map<Integer, ImmutablePair<Integer, Integer>> torCommodities = new HashMap<>();
-    private final Set<Integer> activeTors = new HashSet<>();
     private final String runDirectory;
     private final String sharedMemoryPythonPath;
     private final String sharedMemoryJavaPath;
+    private final BipartiteEdgeColoring inProcessColoring;
+    private List<Integer> assignedCoreIds;
 
     public EdgeColoringRoutingStrategy(Simulator simulator, Topology topology, String runDirectory) {
+        this(simulator, topology, runDirectory, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param simulator         Simulator instance
+     * @param topology          Topology
+     * @param runDirectory      Run directory (used for the shared memory files of the Python controller)
+     * @param colorInProcess    True iff to color in-process instead of with the Python controller
+     */
+    public EdgeColoringRoutingStrategy(Simulator simulator, Topology topology, String runDirectory, boolean colorInProcess) {
         super(simulator, topology);
         this.runDirectory = runDirectory;
         this.sharedMemoryJavaPath = runDirectory + "/shared_memory_java.json";
         this.sharedMemoryPythonPath = runDirectory + "/shared_memory_python.json";
+        this.inProcessColoring = colorInProcess ? new BipartiteEdgeColoring() : null;
+        this.assignedCoreIds = Collections.emptyList();
     }
 
     @Override
@@ -35,15 +61,18 @@ public class EdgeColoringRoutingStrategy extends CentralizedRoutingStrategy {
         int dstTorId = topologyDetails.getTorIdOfServer(dstId);
         connections.put(connection.getConnectionId(), connection);
         torCommodities.put(connection.getConnectionId(), ImmutablePair.of(srcTorId, dstTorId));
-        activeTors.add(srcTorId);
-        activeTors.add(dstTorId);
+        if (inProcessColoring != null) {
+            inProcessColoring.add(connection.getConnectionId(), srcTorId, dstTorId);
+        }
     }
 
     @Override
     public void clearResources(Connection connection) {
         super.clearResources(connection);
         connections.remove(connection.getConnectionId());
-        torCommodities.remove(connection.getConnectionId());
+        if (torCommodities.remove(connection.getConnectionId()) != null && inProcessColoring != null) {
+            inProcessColoring.remove(connection.getConnectionId());
+        }
     }
 
     @Override
@@ -54,24 +83,41 @@ public class EdgeColoringRoutingStrategy extends CentralizedRoutingStrategy {
 
         List<Integer> coreIds = getCoreIds();
         long start = System.currentTimeMillis();
-        Map<Integer, Integer> assignments = SharedMemory.receivePathAssignmentsFromController(
-                sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, false
-        );
-//        Map<Integer, Integer> assignments = EdgeColoring.colorEdges(torCommodities);
-        for (int connId : assignments.keySet()) {
-            Connection connection = connections.get(connId);
-            int coreId = coreIds.get(assignments.get(connId) % coreIds.size());
-            AcyclicPath path = RoutingUtility.constructPath(network, connection, coreId);
-            if (activeConnections.contains(connId)) {
-                RoutingUtility.resetPath(simulator, connections.get(connId), path);
+        if (inProcessColoring != null) {
+            inProcessColoring.compact();
+            if (coreIds.equals(assignedCoreIds)) {
+                inProcessColoring.forEachRecolored(connId -> assignPath((int) connId, inProcessColoring.getColor(connId), coreIds));
+            } else {
+                // The cores of all colors have changed
+                inProcessColoring.forEachRecolored(connId -> { });
+                for (int connId : connections.keySet()) {
+                    assignPath(connId, inProcessColoring.getColor(connId), coreIds);
+                }
+                assignedCoreIds = coreIds;
+            }
+        } else {
+            Map<Integer, Integer> assignments = SharedMemory.receivePathAssignmentsFromController(
+                    sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, false
+            );
+            for (int connId : assignments.keySet()) {
+                assignPath(connId, assignments.get(connId), coreIds);
             }
-            Job job = simulator.getJobs().get(connections.get(connId).getJobId());
-            ImmutablePair<Integer, Integer> commodity = ImmutablePair.of(connections.get(connId).getSrcNodeId(), connections.get(connId).getDstNodeId());
-            job.getCommoditiesPathMap().put(commodity, path);
         }
         durations.add(System.currentTimeMillis() - start);
     }
 
+    private void assignPath(int connId, int color, List<Integer> coreIds) {
+        Connection connection = connections.get(connId);
+        int coreId = coreIds.get(color % coreIds.size());
+        AcyclicPath path = RoutingUtility.constructPath(network, connection, coreId);
+        if (activeConnections.contains(connId)) {
+            RoutingUtility.resetPath(simulator, connection, path);
+        }
+        Job job = simulator.getJobs().get(connection.getJobId());
+        ImmutablePair<Integer, Integer> commodity = ImmutablePair.of(connection.getSrcNodeId(), connection.getDstNodeId());
+        job.getCommoditiesPathMap().put(commodity, path);
+    }
+
     private String getJsonRequest() {
         Map<String, String> map = new HashMap<>();
         map.put("src_dst_pairs", torCommodities.toString());
@@ -6,6 +6,7 @@ import ch.ethz.systems.floodns.core.Link;
 import ch.ethz.systems.floodns.core.Simulator;
 import ch.ethz.systems.floodns.deeplearningtraining.Job;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.lputils.CoreAssignmentIlp;
 import ch.ethz.systems.floodns.ext.sysutils.SharedMemory;
 import com.google.gson.Gson;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -32,6 +33,10 @@ import java.util.*;
  * x_e \in \mathbb{N}^+ \forall e \in E
  * <p>
  * \alpha \in \mathbb{N}^+
+ * <p>
+ * The ILP is either solved by the Python controller (a subprocess which communicates
+ * via shared memory files), or in-process by OR-Tools ({@link CoreAssignmentIlp}),
+ * which keeps its model between the path assignments.
  */
 public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
 
@@ -41,41 +46,28 @@ public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
     private final String runDirectory;
     private final String sharedMemoryPythonPath;
     private final String sharedMemoryJavaPath;
-
-//    private final MPSolver solver;
-//    private final Map<Integer, List<MPVariable>> commodityPathVariables = new HashMap<>();
-
-//    private final Map<Integer, MPVariable> linkVariables = new HashMap<>();
-//    private final Map<Integer, List<MPVariable>> linkPathVariables = new HashMap<>();
-//    private final MPVariable alphaVariable;
+    private final CoreAssignmentIlp<Integer> inProcessSolver;
 
     public IlpSolverRoutingStrategy(Simulator simulator, Topology topology, String runDirectory) {
+        this(simulator, topology, runDirectory, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param simulator         Simulator instance
+     * @param topology          Topology
+     * @param runDirectory      Run directory (used for the shared memory files of the Python controller)
+     * @param solveInProcess    True iff to solve the ILP in-process with OR-Tools instead of with the Python controller
+     */
+    public IlpSolverRoutingStrategy(Simulator simulator, Topology topology, String runDirectory, boolean solveInProcess) {
         super(simulator, topology);
         this.runDirectory = runDirectory;
         this.sharedMemoryJavaPath = runDirectory + "/shared_memory_java.json";
         this.sharedMemoryPythonPath = runDirectory + "/shared_memory_python.json";
-
-//        Loader.loadNativeLibraries();
-//        solver = MPSolver.createSolver("SCIP");
-//        if (solver == null) {
-//            throw new RuntimeException("Solver is null");
-//        }
-//        alphaVariable = solver.makeIntVar(0, Double.POSITIVE_INFINITY, "alpha");
-//
-//        // Add link variables
-//        for (int coreId : getCoreIds()) {
-//            for (int torId : topologyDetails.getTorNodeIds()) {
-//                Link link = network.getPresentLinksBetween(coreId, torId).iterator().next();
-//                MPVariable coreToTorVar = solver.makeIntVar(0, Double.POSITIVE_INFINITY, "x_e[" + coreId + "," + torId + "]");
-//                linkVariables.put(link.getLinkId(), coreToTorVar);
-//                linkPathVariables.put(link.getLinkId(), new ArrayList<>());
-//
-//                link = network.getPresentLinksBetween(torId, coreId).iterator().next();
-//                MPVariable torToCoreVar = solver.makeIntVar(0, Double.POSITIVE_INFINITY, "x_e[" + torId + "," + coreId + "]");
-//                linkVariables.put(link.getLinkId(), torToCoreVar);
-//                linkPathVariables.put(link.getLinkId(), new ArrayList<>());
-//            }
-//        }
+        this.inProcessSolver = solveInProcess
+                ? new CoreAssignmentIlp<>(topologyDetails.getTorNodeIds(), topologyDetails.getCoreNodeIds())
+                : null;
     }
 
     @Override
@@ -86,21 +78,6 @@ public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
         commodities.put(connId, ImmutablePair.of(srcId, dstId));
         connIdToJobId.put(connId, connection.getJobId());
         connections.put(connId, connection);
-
-//        int srcTorId = topologyDetails.getTorIdOfServer(srcId);
-//        int dstTorId = topologyDetails.getTorIdOfServer(dstId);
-//        commodityPathVariables.put(connection.getConnectionId(), new ArrayList<>());
-//        for (int coreId : getCoreIds()) {
-//            String varName = "x_p_l_" + connId + "[" + coreId + "]";
-//            MPVariable var = solver.makeIntVar(0, 1, varName);
-//            commodityPathVariables.get(connId).add(var);
-//
-//            Link link = network.getPresentLinksBetween(srcTorId, coreId).iterator().next();
-//            linkPathVariables.get(link.getLinkId()).add(var);
-//
-//            link = network.getPresentLinksBetween(coreId, dstTorId).iterator().next();
-//            linkPathVariables.get(link.getLinkId()).add(var);
-//        }
     }
 
     @Override
@@ -109,7 +86,6 @@ public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
         commodities.remove(connection.getConnectionId());
         connIdToJobId.remove(connection.getConnectionId());
         connections.remove(connection.getConnectionId());
-//        commodityPathVariables.remove(connection.getConnectionId());
     }
 
     @Override
@@ -118,45 +94,16 @@ public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
             return;
         }
 
-        // Add constraints
-//        addCommodityTraverseOnePathConstraints();
-//        addMinimizeMostUsedLinkConstraints();
-//        setObjective();
-
-//        final MPSolver.ResultStatus resultStatus = solver.solve();
-//        if (resultStatus != MPSolver.ResultStatus.OPTIMAL) {
-//            throw new RuntimeException("The problem does not have an optimal solution!");
-//        }
-
         List<Integer> coreIds = getCoreIds();
-
-        // Get assignments
-//        for (int connId : commodityPathVariables.keySet()) {
-//            List<MPVariable> variables = commodityPathVariables.get(connId);
-//            for (int i = 0; i < variables.size(); i++) {
-//                if (variables.get(i).solutionValue() == 1) {
-//                    Connection connection = connections.get(connId);
-//                    int coreId = coreIds.get(i % coreIds.size());
-//                    AcyclicPath path = RoutingUtility.constructPath(network, connection, coreId);
-//                    Job job = simulator.getJobs().get(connIdToJobId.get(connId));
-//                    ImmutablePair<Integer, Integer> commodity = commodities.get(connId);
-//                    job.getCommoditiesPathMap().put(commodity, path);
-//                    if (activeConnections.contains(connId)) {
-//                        RoutingUtility.resetPath(simulator, simulator.getActiveConnection(connId), path);
-//                    }
-//                    break;
-//                }
-//            }
-//        }
-
-        // Reset solver
-//        solver.clear();
-
-
         long start = System.currentTimeMillis();
-        Map<Integer, Integer> assignedPaths = SharedMemory.receivePathAssignmentsFromController(
-                sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, true
-        );
+        Map<Integer, Integer> assignedPaths;
+        if (inProcessSolver != null) {
+            assignedPaths = inProcessSolver.solve(getCommodityTors(), coreIds);
+        } else {
+            assignedPaths = SharedMemory.receivePathAssignmentsFromController(
+                    sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, true
+            );
+        }
         for (int connId : assignedPaths.keySet()) {
             Connection connection = connections.get(connId);
             int coreId = coreIds.get(assignedPaths.get(connId) % coreIds.size());
@@ -171,6 +118,14 @@ public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
         durations.add(System.currentTimeMillis() - start);
     }
 
+    private Map<Integer, ImmutablePair<Integer, Integer>> getCommodityTors() {
+        Map<Integer, ImmutablePair<Integer, Integer>> commodityTors = new HashMap<>();
+        commodities.forEach((connId, commodity) -> commodityTors.put(connId, ImmutablePair.of(
+                topologyDetails.getTorIdOfServer(commodity.getLeft()),
+                topologyDetails.getTorIdOfServer(commodity.getRight())
+        )));
+        return commodityTors;
+    }
 
     private String getJsonRequest() {
         Set<Link> failedLinks = new HashSet<>(network.getFailedLinks());
@@ -187,48 +142,4 @@ public class IlpSolverRoutingStrategy extends CentralizedRoutingStrategy {
         return gson.toJson(map);
     }
 
-//    private void addCommodityTraverseOnePathConstraints() {
-//        for (int connId : commodityPathVariables.keySet()) {
-//            MPConstraint constraint = solver.makeConstraint(0, 1, "commodity_traverse_one_path_" + connId);
-//            for (MPVariable variable : commodityPathVariables.get(connId)) {
-//                constraint.setCoefficient(variable, 1);
-//            }
-//        }
-//    }
-//
-//    private void addMinimizeMostUsedLinkConstraints() {
-//        for (int linkId : linkVariables.keySet()) {
-//            MPVariable linkVar = linkVariables.get(linkId);
-//            List<MPVariable> variables = linkPathVariables.get(linkId);
-//
-//            // Add constraint
-//            MPConstraint constraint = solver.makeConstraint(-Double.POSITIVE_INFINITY, 0, "minimize_most_used_link_" + linkId);
-//            for (MPVariable variable : variables) {
-//                constraint.setCoefficient(variable, 1);
-//            }
-//            constraint.setCoefficient(linkVar, -1);
-//        }
-//
-//        for (int linkId : linkVariables.keySet()) {
-//            MPVariable linkVar = linkVariables.get(linkId);
-//            MPConstraint constraint = solver.makeConstraint(-Double.POSITIVE_INFINITY, 0, "minimize_alpha_" + linkId);
-//            constraint.setCoefficient(linkVar, 1);
-//            constraint.setCoefficient(alphaVariable, -1);
-//        }
-//    }
-//
-//    private void setObjective() {
-//        MPObjective objective = solver.objective();
-//        for (int connId : commodityPathVariables.keySet()) {
-//            for (MPVariable variable : commodityPathVariables.get(connId)) {
-//                objective.setCoefficient(variable, 0);
-//            }
-//        }
-//        for (int linkId : linkVariables.keySet()) {
-//            objective.setCoefficient(linkVariables.get(linkId), 0);
-//        }
-//
-//        objective.setCoefficient(alphaVariable, 1);
-//        objective.setMinimization();
-//    }
 }
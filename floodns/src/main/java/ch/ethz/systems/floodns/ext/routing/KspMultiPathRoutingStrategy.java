@@ -26,6 +26,7 @@ package ch.ethz.systems.floodns.ext.routing;
 
 import ch.ethz.systems.floodns.core.Simulator;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.graphutils.KShortestPathCache;
 
 /**
  * Routing decider for K-shortest paths. It schedules
@@ -38,4 +39,8 @@ public class KspMultiPathRoutingStrategy extends MultiPathRoutingStrategy {
         super(simulator, topology, RoutingUtility.determineKspRoutingStateBetweenToRs(k, topology.getDetails(), topology.getNetwork()));
     }
 
+    public KspMultiPathRoutingStrategy(Simulator simulator, Topology topology, int k, KShortestPathCache cache) {
+        super(simulator, topology, RoutingUtility.determineKspRoutingStateBetweenToRs(k, topology.getDetails(), topology.getNetwork(), cache));
+    }
+
 }
\ No newline at end of file
@@ -26,11 +26,14 @@ package ch.ethz.systems.floodns.ext.routing;
 
 import ch.ethz.systems.floodns.core.AcyclicPath;
 import ch.ethz.systems.floodns.core.Connection;
+import ch.ethz.systems.floodns.core.Link;
 import ch.ethz.systems.floodns.core.Node;
 import ch.ethz.systems.floodns.core.Simulator;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.graphutils.KShortestPathCache;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -38,7 +41,7 @@ import java.util.Random;
 /**
  * Routing decider for K-shortest paths. It schedules a single path
  * for each flow by uniformly choosing among the at-most K paths
- * it has found.
+ * it has found which do not cross a failed link.
  */
 public class KspRoutingStrategy extends SinglePathRoutingStrategy {
 
@@ -51,6 +54,21 @@ public class KspRoutingStrategy extends SinglePathRoutingStrategy {
         this.kShortestPaths = RoutingUtility.determineKspRoutingStateBetweenToRs(k, topologyDetails, network);
     }
 
+    /**
+     * Create the routing strategy with the K-shortest paths determined by the parallel engine.
+     *
+     * @param simulator Simulator
+     * @param topology  Topology
+     * @param random    Random number generator
+     * @param k         K in k-shortest paths
+     * @param cache     K-shortest paths cache (null to always calculate)
+     */
+    public KspRoutingStrategy(Simulator simulator, Topology topology, Random random, int k, KShortestPathCache cache) {
+        super(simulator, topology);
+        this.random = random;
+        this.kShortestPaths = RoutingUtility.determineKspRoutingStateBetweenToRs(k, topologyDetails, network, cache);
+    }
+
     @Override
     protected AcyclicPath assignSinglePath(Connection connection) {
         Node srcNode = connection.getSrcNode();
@@ -64,8 +82,7 @@ public class KspRoutingStrategy extends SinglePathRoutingStrategy {
             int dstTorId = topologyDetails.getTorIdOfServer(dstNode.getNodeId());
 
             // Now retrieve paths
-            List<AcyclicPath> kPaths = kShortestPaths.get(new ImmutablePair<>(srcTorId, dstTorId));
-            AcyclicPath chosen = kPaths.get(Math.abs(random.nextInt()) % kPaths.size());
+            AcyclicPath chosen = choosePath(connection, srcTorId, dstTorId);
 
             // Modify the path to include the src -> srcToR, and dstToR -> dst edges
             AcyclicPath newPath = new AcyclicPath();
@@ -77,11 +94,49 @@ public class KspRoutingStrategy extends SinglePathRoutingStrategy {
         } else {
 
             // If it is not auto-extended, every ToR is a server, so the ToR paths can be used directly
-            List<AcyclicPath> kPaths = kShortestPaths.get(new ImmutablePair<>(srcNode.getNodeId(), dstNode.getNodeId()));
-            return kPaths.get(Math.abs(random.nextInt()) % kPaths.size());
+            return choosePath(connection, srcNode.getNodeId(), dstNode.getNodeId());
+
+        }
+
+    }
 
+    /**
+     * Choose uniformly at random among the K-shortest paths between two ToRs which
+     * do not cross a failed link.
+     *
+     * @param connection    Connection
+     * @param srcTorId      Source ToR identifier
+     * @param dstTorId      Destination ToR identifier
+     *
+     * @return Path between the ToRs
+     */
+    private AcyclicPath choosePath(Connection connection, int srcTorId, int dstTorId) {
+        List<AcyclicPath> kPaths = kShortestPaths.get(new ImmutablePair<>(srcTorId, dstTorId));
+        if (!network.getFailedLinks().isEmpty()) {
+            List<AcyclicPath> alivePaths = new ArrayList<>(kPaths.size());
+            for (AcyclicPath path : kPaths) {
+                if (isAlive(path)) {
+                    alivePaths.add(path);
+                }
+            }
+            if (alivePaths.isEmpty()) {
+                throw new IllegalStateException(
+                        "Connection " + connection.getConnectionId() + " cannot be routed: each of the "
+                                + kPaths.size() + " shortest paths from ToR " + srcTorId + " to ToR " + dstTorId + " crosses a failed link."
+                );
+            }
+            kPaths = alivePaths;
         }
+        return kPaths.get(Math.abs(random.nextInt()) % kPaths.size());
+    }
 
+    private boolean isAlive(AcyclicPath path) {
+        for (Link link : path) {
+            if (network.isLinkFailed(link.getLinkId())) {
+                return false;
+            }
+        }
+        return true;
     }
 
-}
+}
\ No newline at end of file
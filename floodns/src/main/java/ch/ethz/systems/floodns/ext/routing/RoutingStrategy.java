@@ -28,6 +28,8 @@ import ch.ethz.systems.floodns.core.AcyclicPath;
 import ch.ethz.systems.floodns.core.Connection;
 import ch.ethz.systems.floodns.core.Simulator;
 
+import java.util.Collection;
+
 public abstract class RoutingStrategy {
 
     protected final Simulator simulator;
@@ -49,4 +51,15 @@ public abstract class RoutingStrategy {
      */
     public abstract void assignStartFlows(Connection connection);
 
+    /**
+     * Reroute active connections of which a flow crosses a link which failed, in one batch
+     * (see {@link Simulator#requestRerouting(Collection)}). By default, the flows are kept
+     * on their paths.
+     *
+     * @param connections   Affected active connections (in order of connection identifier)
+     */
+    public void reroute(Collection<Connection> connections) {
+        // Flows stay on their paths
+    }
+
 }
@@ -27,7 +27,13 @@ package ch.ethz.systems.floodns.ext.routing;
 import ch.ethz.systems.floodns.core.*;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
 import ch.ethz.systems.floodns.ext.basicsim.topology.TopologyDetails;
+import ch.ethz.systems.floodns.ext.graphutils.BreadthFirstSearchAlgorithm;
 import ch.ethz.systems.floodns.ext.graphutils.FloydWarshallAlgorithm;
+import ch.ethz.systems.floodns.ext.graphutils.KShortestPathCache;
+import ch.ethz.systems.floodns.ext.graphutils.KShortestPathTable;
+import ch.ethz.systems.floodns.ext.graphutils.ParallelKShortestPathsAlgorithm;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathCache;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathLengths;
 import ch.ethz.systems.floodns.ext.graphutils.YenTopKspAlgorithmWrapper;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.LogManager;
@@ -102,43 +108,105 @@ public class RoutingUtility {
      * @return Next-hop possibilities for every (current, destination) node-pair
      */
     public static Map<ImmutablePair<Integer, Integer>, List<Link>> determineEcmpRoutingStateSwitches(Topology topology, boolean onlyTowardsToRs) {
+        return determineEcmpRoutingStateSwitches(topology, onlyTowardsToRs, null);
+    }
+
+    /**
+     * Determine the next-hop routing state for ECMP purposes, retrieving the
+     * shortest path lengths from the routing cache if possible.
+     *
+     * @param topology        Topology instance
+     * @param onlyTowardsToRs True iff you only want switches to have state towards ToRs,
+     *                        if false, then it will have state towards all switches
+     * @param cache           Shortest path cache (null to always calculate)
+     * @return Next-hop possibilities for every (current, destination) node-pair
+     */
+    public static Map<ImmutablePair<Integer, Integer>, List<Link>> determineEcmpRoutingStateSwitches(Topology topology, boolean onlyTowardsToRs, ShortestPathCache cache) {
+        Network network = topology.getNetwork();
+        EcmpRoutingTable table = determineEcmpRoutingTable(topology, onlyTowardsToRs, cache);
+        Map<ImmutablePair<Integer, Integer>, List<Link>> nextHopPossibilities = new HashMap<>();
+        for (int i : table.getSwitches()) {
+            for (int j : table.getDestinations()) {
+                if (i != j) {
+                    int numNextHops = table.getNumNextHops(i, j);
+                    List<Link> possibilities = new ArrayList<>(numNextHops);
+                    for (int h = 0; h < numNextHops; h++) {
+                        possibilities.add(network.getLink(table.getNextHopLinkId(i, j, h)));
+                    }
+                    nextHopPossibilities.put(ImmutablePair.of(i, j), possibilities);
+                }
+            }
+        }
+        return nextHopPossibilities;
+    }
+
+    /**
+     * Determine the next-hop routing state for ECMP purposes as a flat table, calculated
+     * in parallel over the destinations. The shortest path lengths are retrieved from the
+     * routing cache if given, else they are searched backwards from every destination.
+     *
+     * @param topology        Topology instance
+     * @param onlyTowardsToRs True iff you only want switches to have state towards ToRs,
+     *                        if false, then it will have state towards all switches
+     * @param cache           Shortest path cache (null to always calculate)
+     * @return Next-hop table for every (switch, destination) node-pair
+     */
+    public static EcmpRoutingTable determineEcmpRoutingTable(Topology topology, boolean onlyTowardsToRs, ShortestPathCache cache) {
+        return determineEcmpRoutingTable(topology, onlyTowardsToRs, cache, false);
+    }
+
+    /**
+     * Determine the next-hop routing state for ECMP purposes as a flat table, with the
+     * shortest path lengths calculated by the given all-pairs shortest path algorithm.
+     * The breadth-first search is the default; Floyd-Warshall yields the same lengths
+     * and is kept as fallback for validation.
+     *
+     * @param topology        Topology instance
+     * @param onlyTowardsToRs True iff you only want switches to have state towards ToRs,
+     *                        if false, then it will have state towards all switches
+     * @param cache           Shortest path cache (null to always calculate)
+     * @param floydWarshall   True iff the shortest path lengths are calculated using Floyd-Warshall
+     *                        instead of breadth-first search
+     * @return Next-hop table for every (switch, destination) node-pair
+     */
+    public static EcmpRoutingTable determineEcmpRoutingTable(Topology topology, boolean onlyTowardsToRs, ShortestPathCache cache, boolean floydWarshall) {
 
         // Topology parts
         Network network = topology.getNetwork();
         TopologyDetails details = topology.getDetails();
-        Map<ImmutablePair<Integer, Integer>, List<Link>> nextHopPossibilities = new HashMap<>();
+        int[] switches = details.getSwitchNodeIds().stream().mapToInt(Integer::intValue).sorted().toArray(); // Only for switches
+        int[] towardsIds = (onlyTowardsToRs ? details.getTorNodeIds() : details.getSwitchNodeIds()) // ... towards ToRs or all switches
+                .stream().mapToInt(Integer::intValue).sorted().toArray();
 
         // Shortest path length
         logger.info("ECMP ROUTING CALCULATION");
-        logger.info("  > Calculating Floyd-Warshall");
-        int[][] shortestPathLen = new FloydWarshallAlgorithm(network).calculateShortestPaths();
-        logger.info("  > Setting next hops for each switch towards each ToR\n");
-        Set<Integer> switches = new HashSet<>(details.getSwitchNodeIds()); // Only for switches
-        Set<Integer> towardsIds;
-        if (onlyTowardsToRs) {
-            towardsIds = new HashSet<>(details.getTorNodeIds()); // ... only towards ToRs
-        } else {
-            towardsIds = new HashSet<>(details.getSwitchNodeIds()); // ... towards all switches
+        ShortestPathLengths shortestPathLen = null;
+        if (cache != null) {
+            logger.info("  > Retrieving shortest path lengths (cache)");
+            shortestPathLen = cache.getOrCalculate(network, n -> calculateShortestPathLengths(n, floydWarshall));
+        } else if (floydWarshall) {
+            logger.info("  > Calculating shortest path lengths (Floyd-Warshall)");
+            shortestPathLen = ShortestPathLengths.of(calculateShortestPathLengths(network, true));
         }
-        for (Integer i : switches) {
-            for (Integer j : towardsIds) {
-                if (!i.equals(j)) {
+        logger.info("  > Setting next hops for each switch towards each " + (onlyTowardsToRs ? "ToR" : "switch") + " (parallel)\n");
+        return EcmpRoutingTable.calculate(network, switches, towardsIds, shortestPathLen);
 
-                    // For every outgoing edge (i, v) check if it is on a shortest path to j
-                    Set<Integer> adjacent = network.getNode(i).getOutgoingConnectedToNodes();
-                    List<Link> possibilities = new ArrayList<>();
-                    for (Integer v : adjacent) {
-                        if (shortestPathLen[i][j] == shortestPathLen[v][j] + 1) {
-                            possibilities.addAll(network.getPresentLinksBetween(i, v));
-                        }
-                    }
-                    nextHopPossibilities.put(ImmutablePair.of(i, j), possibilities);
+    }
 
-                }
-            }
+    /**
+     * Calculate the all-pairs shortest path lengths (in hops) of the network.
+     *
+     * @param network       Network
+     * @param floydWarshall True iff Floyd-Warshall is used instead of breadth-first search
+     *
+     * @return 2-d array with the shortest path distances
+     */
+    public static short[][] calculateShortestPathLengths(Network network, boolean floydWarshall) {
+        if (floydWarshall) {
+            return new FloydWarshallAlgorithm(network).calculateShortestPathsAsShorts();
+        } else {
+            return new BreadthFirstSearchAlgorithm(network).calculateShortestPaths();
         }
-
-        return nextHopPossibilities;
     }
 
     /**
@@ -214,6 +282,47 @@ public class RoutingUtility {
 
     }
 
+    /**
+     * Determine the K-shortest paths between the ToRs using the parallel K-shortest paths
+     * engine, retrieving them from the paths cache if possible.
+     * It ONLY calculates the K-shortest paths between ToRs.
+     *
+     * @param k       K in k-shortest paths
+     * @param details Topology details
+     * @param network Network
+     * @param cache   K-shortest paths cache (null to always calculate)
+     * @return Mapping of (src, dst)-ToR pair to its K-shortest paths
+     */
+    public static Map<ImmutablePair<Integer, Integer>, List<AcyclicPath>> determineKspRoutingStateBetweenToRs(int k, TopologyDetails details, Network network, KShortestPathCache cache) {
+        Set<Integer> torNodes = details.getTorNodeIds();
+        int[] endpoints = torNodes.stream().mapToInt(Integer::intValue).toArray();
+        logger.info("K-SHORTEST PATH ROUTING CALCULATION (K=" + k + ")");
+        logger.info("  > Calculating Yen's top-K shortest paths for each ToR pair (parallel)");
+        KShortestPathTable table = cache == null
+                ? new ParallelKShortestPathsAlgorithm(network).calculate(endpoints, k)
+                : cache.getOrCalculate(network, endpoints, k);
+        Map<ImmutablePair<Integer, Integer>, List<AcyclicPath>> kShortestPaths = new HashMap<>();
+        for (Integer i : torNodes) {
+            for (Integer j : torNodes) {
+                if (!i.equals(j)) {
+                    List<AcyclicPath> paths = new ArrayList<>();
+                    int found = Math.min(k, table.getNumPaths(i, j));
+                    for (int p = 0; p < found; p++) {
+                        int[] nodes = table.getPath(i, j, p);
+                        AcyclicPath path = new AcyclicPath();
+                        for (int h = 0; h < nodes.length - 1; h++) {
+                            path.add(network.getPresentLinksBetween(nodes[h], nodes[h + 1]).get(0));
+                        }
+                        paths.add(path);
+                    }
+                    kShortestPaths.put(new ImmutablePair<>(i, j), paths);
+                }
+            }
+        }
+        logger.info("");
+        return kShortestPaths;
+    }
+
     public static AcyclicPath determinePath(
             Connection connection,
             Map<Link, Integer> linkAssignmentsCounter,
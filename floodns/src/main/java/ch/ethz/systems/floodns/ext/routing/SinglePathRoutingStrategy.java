@@ -29,6 +29,8 @@ import ch.ethz.systems.floodns.core.Connection;
 import ch.ethz.systems.floodns.core.Simulator;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
 
+import java.util.Collection;
+
 /**
  * The single path routing strategy ensures that there is a function
  * in the strategy that assigns a single path for each connection.
@@ -47,6 +49,18 @@ public abstract class SinglePathRoutingStrategy extends TopologyRoutingStrategy
 
     }
 
+    /**
+     * Reroute each connection onto a newly assigned single path.
+     *
+     * @param connections   Affected active connections
+     */
+    @Override
+    public void reroute(Collection<Connection> connections) {
+        for (Connection connection : connections) {
+            RoutingUtility.resetPath(simulator, connection, assignSinglePath(connection));
+        }
+    }
+
     /**
      * Assignment of a single path for a connection
      *
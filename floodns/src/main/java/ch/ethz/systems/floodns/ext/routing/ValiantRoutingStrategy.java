@@ -26,7 +26,7 @@ package ch.ethz.systems.floodns.ext.routing;
 
 import ch.ethz.systems.floodns.core.*;
 import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
-import org.apache.commons.lang3.tuple.ImmutablePair;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathCache;
 
 import java.util.*;
 
@@ -35,7 +35,9 @@ import java.util.*;
  * <p>
  * It only allocates a single flow for each connection, which is routed
  * along a shortest path to a valiant node (chosen uniformly among ToRs),
- * and then a shortest path to the destination node.
+ * and then a shortest path to the destination node. Under failures, only
+ * valiant nodes and next hops via which the destination can be reached
+ * without crossing a failed link are chosen.
  */
 public class ValiantRoutingStrategy extends SinglePathRoutingStrategy {
 
@@ -43,17 +45,36 @@ public class ValiantRoutingStrategy extends SinglePathRoutingStrategy {
     private final List<Integer> valiantNodeIdsList;
     private final Set<Integer> valiantNodeIdsSet;
     private final boolean torsAreEndpoints;
-    private final Map<ImmutablePair<Integer, Integer>, List<Link>> nextHopPossibilities;
+    private final EcmpRoutingTable routingTable;
+    private final EcmpAliveState aliveState;
     private final boolean permitTorsInValiantNodesAndRetryIfSrcDstChosen;
 
     public ValiantRoutingStrategy(Simulator simulator, Topology topology, Set<Integer> valiantNodeIds, Random random, boolean permitTorsInValiantNodesAndRetryIfSrcDstChosen) {
+        this(simulator, topology, valiantNodeIds, random, permitTorsInValiantNodesAndRetryIfSrcDstChosen, null);
+    }
+
+    /**
+     * Create a valiant routing strategy.
+     *
+     * @param simulator                                         Simulator instance
+     * @param topology                                          Topology instance
+     * @param valiantNodeIds                                    Node identifiers of the valiant nodes
+     * @param random                                            Random number generator
+     * @param permitTorsInValiantNodesAndRetryIfSrcDstChosen    True iff ToRs may be valiant nodes
+     *                                                          (a valiant node equal to the source or
+     *                                                          destination ToR is then redrawn)
+     * @param cache                                             Shortest path cache used to determine the
+     *                                                          routing state (null to always calculate)
+     */
+    public ValiantRoutingStrategy(Simulator simulator, Topology topology, Set<Integer> valiantNodeIds, Random random, boolean permitTorsInValiantNodesAndRetryIfSrcDstChosen, ShortestPathCache cache) {
         super(simulator, topology);
         this.random = random;
         assert (!topologyDetails.getTorNodeIds().isEmpty());
         this.valiantNodeIdsList = new ArrayList<>(valiantNodeIds);
         this.valiantNodeIdsSet = new HashSet<>(valiantNodeIds);
         this.torsAreEndpoints = topologyDetails.areTorsEndpoints();
-        this.nextHopPossibilities = RoutingUtility.determineEcmpRoutingStateSwitches(topology, false);
+        this.routingTable = RoutingUtility.determineEcmpRoutingTable(topology, false, cache);
+        this.aliveState = new EcmpAliveState(network, routingTable);
         this.permitTorsInValiantNodesAndRetryIfSrcDstChosen = permitTorsInValiantNodesAndRetryIfSrcDstChosen;
         if (!permitTorsInValiantNodesAndRetryIfSrcDstChosen) {
             Set<Integer> intersection = new HashSet<>(topologyDetails.getTorNodeIds());
@@ -85,6 +106,23 @@ public class ValiantRoutingStrategy extends SinglePathRoutingStrategy {
             }
         }
 
+        // Under failures, redraw among the valiant nodes via which the destination can still be reached
+        if (srcTorId != dstTorId && !isValiantNodeAlive(valiantNodeId, srcTorId, dstTorId)) {
+            List<Integer> aliveValiantNodeIds = new ArrayList<>();
+            for (int candidateId : valiantNodeIdsList) {
+                if (isValiantNodeAlive(candidateId, srcTorId, dstTorId)) {
+                    aliveValiantNodeIds.add(candidateId);
+                }
+            }
+            if (aliveValiantNodeIds.isEmpty()) {
+                throw new IllegalStateException(
+                        "Connection " + connection.getConnectionId() + " cannot be routed: every valiant path from ToR "
+                                + srcTorId + " to ToR " + dstTorId + " crosses a failed link."
+                );
+            }
+            valiantNodeId = aliveValiantNodeIds.get(random.nextInt(aliveValiantNodeIds.size()));
+        }
+
         // If the source ToR is the same as the destination ToR, then
         // there is no need to be going to a valiant node
         boolean passedValiant = (srcTorId == dstTorId);
@@ -105,8 +143,7 @@ public class ValiantRoutingStrategy extends SinglePathRoutingStrategy {
             int towardsId = passedValiant ? dstTorId : valiantNodeId;
 
             // Decide next hop
-            List<Link> possibilities = nextHopPossibilities.get(new ImmutablePair<>(current.getNodeId(), towardsId));
-            Link hop = possibilities.get(Math.abs(random.nextInt()) % possibilities.size());
+            Link hop = selectNextHop(current.getNodeId(), towardsId);
 
             // Add link to path
             potentialCyclicPath.add(hop);
@@ -136,4 +173,45 @@ public class ValiantRoutingStrategy extends SinglePathRoutingStrategy {
 
     }
 
-}
+    /**
+     * Check whether a valiant node can be used: it must be reachable from the source ToR,
+     * and reach the destination ToR, without crossing a failed link.
+     *
+     * @param valiantNodeId Valiant node identifier
+     * @param srcTorId      Source ToR identifier
+     * @param dstTorId      Destination ToR identifier
+     *
+     * @return True iff the valiant node can be used
+     */
+    private boolean isValiantNodeAlive(int valiantNodeId, int srcTorId, int dstTorId) {
+        if (permitTorsInValiantNodesAndRetryIfSrcDstChosen && (valiantNodeId == srcTorId || valiantNodeId == dstTorId)) {
+            return false;
+        }
+        return aliveState.isAlive(srcTorId, valiantNodeId) && aliveState.isAlive(valiantNodeId, dstTorId);
+    }
+
+    /**
+     * Select a next hop towards the destination uniformly at random among those over
+     * which it can still be reached without crossing a failed link.
+     *
+     * @param nodeId    Current switch identifier
+     * @param towardsId Switch identifier towards which is routed
+     *
+     * @return Next hop link
+     */
+    private Link selectNextHop(int nodeId, int towardsId) {
+        int numNextHops = routingTable.getNumNextHops(nodeId, towardsId);
+        int numAlive = aliveState.getNumAliveNextHops(nodeId, towardsId);
+        if (numAlive == numNextHops) {
+            return network.getLink(routingTable.getNextHopLinkId(nodeId, towardsId, Math.abs(random.nextInt()) % numNextHops));
+        }
+        int target = Math.abs(random.nextInt()) % numAlive;
+        for (int i = 0; ; i++) {
+            int linkId = routingTable.getNextHopLinkId(nodeId, towardsId, i);
+            if (aliveState.isNextHopAlive(linkId, towardsId) && target-- == 0) {
+                return network.getLink(linkId);
+            }
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,386 @@
+package ch.ethz.systems.floodns.ext.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Incremental edge coloring of the bipartite multigraph of commodities, in which every
+ * commodity is an edge from its source ToR (left) to its destination ToR (right). Two
+ * commodities sharing a source ToR or a destination ToR never have the same color, such
+ * that with a color per core no two commodities share an uplink or downlink.
+ * <p>
+ * The coloring uses as many colors as the maximum degree (Koenig's theorem). A commodity is
+ * added by taking a color free at its source and one free at its destination; if they differ,
+ * the path from the destination alternating between the two colors is flipped first (which
+ * never reaches the source in a bipartite graph). Removing a commodity only frees its color,
+ * and {@link #compact()} reduces the number of colors to the maximum degree again by recoloring
+ * the commodities of the surplus colors. Hence, when few commodities change between two
+ * path assignments, few others change color, which {@link #forEachRecolored(LongConsumer)}
+ * reports.
+ * <p>
+ * Node identifiers index int arrays directly, so they should be small non-negative integers
+ * (e.g. the node identifiers of a topology).
+ */
+public class BipartiteEdgeColoring {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_NUM_NODES = 16;
+    private static final int INITIAL_NUM_SLOTS = 64;
+
+    // Commodity edges by slot, of which the free slots form a stack
+    private final Map<Long, Integer> idToSlot;
+    private long[] slotId;
+    private int[] slotSrc;
+    private int[] slotDst;
+    private int[] slotColor;
+    private int[] slotReportedColor;
+    private boolean[] slotRecolored;
+    private int numSlots;
+    private int[] freeSlots;
+    private int numFreeSlots;
+
+    // Slot of the edge with every color at every node (or NONE), left and right side
+    private int[][] srcColorToSlot;
+    private int[][] dstColorToSlot;
+    private int[] srcDegree;
+    private int[] dstDegree;
+
+    // Number of nodes (of both sides) of every positive degree
+    private int[] numNodesOfDegree;
+    private int maxDegree;
+    private int numColors;
+
+    // Slots recolored since they were last reported (possibly with duplicates, or back to the reported color)
+    private int[] recoloredSlots;
+    private int numRecoloredSlots;
+
+    /**
+     * Create an empty coloring.
+     */
+    public BipartiteEdgeColoring() {
+        this.idToSlot = new HashMap<>();
+        this.slotId = new long[INITIAL_NUM_SLOTS];
+        this.slotSrc = new int[INITIAL_NUM_SLOTS];
+        this.slotDst = new int[INITIAL_NUM_SLOTS];
+        this.slotColor = new int[INITIAL_NUM_SLOTS];
+        this.slotReportedColor = new int[INITIAL_NUM_SLOTS];
+        this.slotRecolored = new boolean[INITIAL_NUM_SLOTS];
+        this.numSlots = 0;
+        this.freeSlots = new int[INITIAL_NUM_SLOTS];
+        this.numFreeSlots = 0;
+        this.srcColorToSlot = new int[INITIAL_NUM_NODES][];
+        this.dstColorToSlot = new int[INITIAL_NUM_NODES][];
+        this.srcDegree = new int[INITIAL_NUM_NODES];
+        this.dstDegree = new int[INITIAL_NUM_NODES];
+        this.numNodesOfDegree = new int[INITIAL_NUM_NODES];
+        this.maxDegree = 0;
+        this.numColors = 0;
+        this.recoloredSlots = new int[INITIAL_NUM_SLOTS];
+        this.numRecoloredSlots = 0;
+    }
+
+    /**
+     * Add a commodity and color it, which may change the colors of the commodities on
+     * one alternating path. The number of colors only increases if the degree of its
+     * source or destination exceeds it.
+     *
+     * @param id        Commodity identifier
+     * @param srcId     Source node identifier (e.g. source ToR)
+     * @param dstId     Destination node identifier (e.g. destination ToR)
+     */
+    public void add(long id, int srcId, int dstId) {
+        if (srcId < 0 || dstId < 0) {
+            throw new IllegalArgumentException("Node identifiers must be non-negative: " + srcId + " -> " + dstId);
+        }
+        if (idToSlot.containsKey(id)) {
+            throw new IllegalArgumentException("Commodity " + id + " is already colored.");
+        }
+        ensureNodeCapacity(Math.max(srcId, dstId));
+        int slot = allocateSlot();
+        idToSlot.put(id, slot);
+        slotId[slot] = id;
+        slotSrc[slot] = srcId;
+        slotDst[slot] = dstId;
+        slotColor[slot] = NONE;
+        slotReportedColor[slot] = NONE;
+        srcDegree[srcId] = increaseDegree(srcDegree[srcId]);
+        dstDegree[dstId] = increaseDegree(dstDegree[dstId]);
+        if (maxDegree > numColors) {
+            numColors = maxDegree;
+        }
+        color(slot);
+    }
+
+    /**
+     * Remove a commodity, which frees its color at its source and destination.
+     *
+     * @param id    Commodity identifier
+     */
+    public void remove(long id) {
+        Integer slot = idToSlot.remove(id);
+        if (slot == null) {
+            throw new IllegalArgumentException("Commodity " + id + " is not colored.");
+        }
+        int src = slotSrc[slot];
+        int dst = slotDst[slot];
+        srcColorToSlot[src][slotColor[slot]] = NONE;
+        dstColorToSlot[dst][slotColor[slot]] = NONE;
+        srcDegree[src] = decreaseDegree(srcDegree[src]);
+        dstDegree[dst] = decreaseDegree(dstDegree[dst]);
+        slotColor[slot] = NONE;
+        slotRecolored[slot] = false;
+        if (numFreeSlots == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[numFreeSlots++] = slot;
+    }
+
+    /**
+     * Reduce the number of colors to the maximum degree, which may have dropped
+     * by removals, by recoloring the commodities of the surplus colors.
+     */
+    public void compact() {
+        while (numColors > maxDegree) {
+            int surplus = numColors - 1;
+            int numUncolored = 0;
+            int[] uncolored = new int[srcDegree.length];
+            for (int u = 0; u < srcColorToSlot.length; u++) {
+                int[] colorToSlot = srcColorToSlot[u];
+                if (colorToSlot != null && surplus < colorToSlot.length && colorToSlot[surplus] != NONE) {
+                    int slot = colorToSlot[surplus];
+                    colorToSlot[surplus] = NONE;
+                    dstColorToSlot[slotDst[slot]][surplus] = NONE;
+                    slotColor[slot] = NONE;
+                    uncolored[numUncolored++] = slot;
+                }
+            }
+            numColors--;
+            for (int i = 0; i < numUncolored; i++) {
+                color(uncolored[i]);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the color of a commodity.
+     *
+     * @param id    Commodity identifier
+     *
+     * @return Color in [0, number of colors)
+     */
+    public int getColor(long id) {
+        Integer slot = idToSlot.get(id);
+        if (slot == null) {
+            throw new IllegalArgumentException("Commodity " + id + " is not colored.");
+        }
+        return slotColor[slot];
+    }
+
+    /**
+     * Check whether a commodity is colored.
+     *
+     * @param id    Commodity identifier
+     *
+     * @return True iff the commodity has been added and not removed since
+     */
+    public boolean contains(long id) {
+        return idToSlot.containsKey(id);
+    }
+
+    /**
+     * Retrieve the number of colors, which is the maximum degree after {@link #compact()}.
+     *
+     * @return Number of colors
+     */
+    public int getNumColors() {
+        return numColors;
+    }
+
+    /**
+     * Retrieve the number of commodities.
+     *
+     * @return Number of commodities
+     */
+    public int size() {
+        return idToSlot.size();
+    }
+
+    /**
+     * Report every commodity which has been added, or of which the color differs from
+     * when it was last reported (and which has not been removed since), once.
+     *
+     * @param action    Action performed for every recolored commodity identifier
+     */
+    public void forEachRecolored(LongConsumer action) {
+        for (int i = 0; i < numRecoloredSlots; i++) {
+            int slot = recoloredSlots[i];
+            if (slotRecolored[slot]) {
+                slotRecolored[slot] = false;
+                if (slotColor[slot] != slotReportedColor[slot]) {
+                    slotReportedColor[slot] = slotColor[slot];
+                    action.accept(slotId[slot]);
+                }
+            }
+        }
+        numRecoloredSlots = 0;
+    }
+
+    /**
+     * Color an uncolored edge, given that the number of colors exceeds the number
+     * of other colored edges at both its endpoints.
+     */
+    private void color(int slot) {
+        int u = slotSrc[slot];
+        int v = slotDst[slot];
+        int a = freeColor(srcColorToSlot[u]);
+        int b = freeColor(dstColorToSlot[v]);
+        if (a != b) {
+            if (isFree(dstColorToSlot[v], a)) {
+                b = a;
+            } else if (isFree(srcColorToSlot[u], b)) {
+                a = b;
+            } else {
+                flipPath(v, a, b);
+            }
+        }
+        setColor(slot, a);
+    }
+
+    /**
+     * Swap colors a and b along the path which starts at right node v with its
+     * edge of color a, such that a becomes free at v (b was free at v).
+     */
+    private void flipPath(int v, int a, int b) {
+
+        // Collect the path
+        int length = 0;
+        int[] path = new int[4];
+        boolean right = true;
+        int node = v;
+        int c = a;
+        while (true) {
+            int[] colorToSlot = right ? dstColorToSlot[node] : srcColorToSlot[node];
+            int slot = c < colorToSlot.length ? colorToSlot[c] : NONE;
+            if (slot == NONE) {
+                break;
+            }
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = slot;
+            node = right ? slotSrc[slot] : slotDst[slot];
+            right = !right;
+            c = c == a ? b : a;
+        }
+
+        // Uncolor all before recoloring, as the edges of the path swap places at its nodes
+        for (int i = 0; i < length; i++) {
+            int slot = path[i];
+            srcColorToSlot[slotSrc[slot]][slotColor[slot]] = NONE;
+            dstColorToSlot[slotDst[slot]][slotColor[slot]] = NONE;
+        }
+        for (int i = 0; i < length; i++) {
+            int slot = path[i];
+            setColor(slot, slotColor[slot] == a ? b : a);
+        }
+
+    }
+
+    private void setColor(int slot, int color) {
+        int[] srcColors = ensureColorCapacity(srcColorToSlot, slotSrc[slot]);
+        int[] dstColors = ensureColorCapacity(dstColorToSlot, slotDst[slot]);
+        srcColors[color] = slot;
+        dstColors[color] = slot;
+        if (slotColor[slot] != color) {
+            slotColor[slot] = color;
+            if (!slotRecolored[slot]) {
+                slotRecolored[slot] = true;
+                if (numRecoloredSlots == recoloredSlots.length) {
+                    recoloredSlots = Arrays.copyOf(recoloredSlots, numRecoloredSlots * 2);
+                }
+                recoloredSlots[numRecoloredSlots++] = slot;
+            }
+        }
+    }
+
+    private int freeColor(int[] colorToSlot) {
+        int c = 0;
+        while (c < numColors && !isFree(colorToSlot, c)) {
+            c++;
+        }
+        if (c == numColors) {
+            throw new IllegalStateException("No free color, the number of colors is below the degree.");
+        }
+        return c;
+    }
+
+    private static boolean isFree(int[] colorToSlot, int color) {
+        return colorToSlot == null || color >= colorToSlot.length || colorToSlot[color] == NONE;
+    }
+
+    private int[] ensureColorCapacity(int[][] nodeColorToSlot, int node) {
+        int[] colorToSlot = nodeColorToSlot[node];
+        if (colorToSlot == null || colorToSlot.length < numColors) {
+            int oldLength = colorToSlot == null ? 0 : colorToSlot.length;
+            int newLength = Math.max(numColors, Math.max(4, oldLength * 2));
+            colorToSlot = colorToSlot == null ? new int[newLength] : Arrays.copyOf(colorToSlot, newLength);
+            Arrays.fill(colorToSlot, oldLength, newLength, NONE);
+            nodeColorToSlot[node] = colorToSlot;
+        }
+        return colorToSlot;
+    }
+
+    private int increaseDegree(int degree) {
+        if (degree > 0) {
+            numNodesOfDegree[degree]--;
+        }
+        degree++;
+        if (degree == numNodesOfDegree.length) {
+            numNodesOfDegree = Arrays.copyOf(numNodesOfDegree, degree * 2);
+        }
+        numNodesOfDegree[degree]++;
+        maxDegree = Math.max(maxDegree, degree);
+        return degree;
+    }
+
+    private int decreaseDegree(int degree) {
+        numNodesOfDegree[degree]--;
+        degree--;
+        if (degree > 0) {
+            numNodesOfDegree[degree]++;
+        }
+        while (maxDegree > 0 && numNodesOfDegree[maxDegree] == 0) {
+            maxDegree--;
+        }
+        return degree;
+    }
+
+    private int allocateSlot() {
+        if (numFreeSlots > 0) {
+            return freeSlots[--numFreeSlots];
+        }
+        if (numSlots == slotId.length) {
+            int capacity = numSlots * 2;
+            slotId = Arrays.copyOf(slotId, capacity);
+            slotSrc = Arrays.copyOf(slotSrc, capacity);
+            slotDst = Arrays.copyOf(slotDst, capacity);
+            slotColor = Arrays.copyOf(slotColor, capacity);
+            slotReportedColor = Arrays.copyOf(slotReportedColor, capacity);
+            slotRecolored = Arrays.copyOf(slotRecolored, capacity);
+        }
+        return numSlots++;
+    }
+
+    private void ensureNodeCapacity(int nodeId) {
+        if (nodeId >= srcDegree.length) {
+            int capacity = Math.max(nodeId + 1, srcDegree.length * 2);
+            srcColorToSlot = Arrays.copyOf(srcColorToSlot, capacity);
+            dstColorToSlot = Arrays.copyOf(dstColorToSlot, capacity);
+            srcDegree = Arrays.copyOf(srcDegree, capacity);
+            dstDegree = Arrays.copyOf(dstDegree, capacity);
+        }
+    }
+
+}
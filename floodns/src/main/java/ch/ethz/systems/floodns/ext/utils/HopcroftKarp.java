@@ -47,7 +47,6 @@ public class HopcroftKarp {
 
     private void buildArgumentPath() {
         Queue<Integer> queue = new LinkedList<>();
-        int[] dist = new int[n];
         Arrays.fill(dist, -1);
 
         for (int i = 0; i < n; i++) {
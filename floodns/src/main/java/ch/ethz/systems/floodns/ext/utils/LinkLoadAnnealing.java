@@ -0,0 +1,422 @@
+package ch.ethz.systems.floodns.ext.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Simulated annealing of the core assigned to each destination of a two-tier
+ * (ToR - core - ToR) network, minimizing the energy: the load of the most loaded
+ * link multiplied by the number of links with that load.
+ * <p>
+ * The state is a value per destination, of which the core index is the value modulo
+ * the number of cores. A move swaps the values of two destinations (of any ToR, or of
+ * the same ToR). Link loads are kept in an int array together with a histogram of
+ * the number of links per load, such that a move is applied (and undone if rejected)
+ * in time proportional to the number of source ToRs of the two destinations, instead
+ * of recomputing the loads of all flows.
+ * <p>
+ * With more than one replica, the replicas anneal in parallel at temperatures which
+ * are a factor {@link #REPLICA_TEMPERATURE_FACTOR} apart, and adjacent replicas
+ * exchange their states every {@link #EXCHANGE_INTERVAL} iterations (parallel tempering).
+ * The result is the best state any replica has encountered. It only depends on the
+ * given random number generator, not on the number of threads.
+ */
+public class LinkLoadAnnealing {
+
+    public static final double INITIAL_TEMPERATURE = 1000;
+    public static final double FINAL_TEMPERATURE = 0.1;
+    public static final double COOLING_RATE = 0.01;
+    public static final double REPLICA_TEMPERATURE_FACTOR = 2.0;
+    public static final int EXCHANGE_INTERVAL = 100;
+
+    private final int numTors;
+    private final int numCores;
+
+    // Number of physical links of the uplink (ToR t, core c) at t * C + c,
+    // and of the downlink (core c, ToR t) at T * C + c * T + t
+    private final int[] multiplicity;
+
+    // Destinations
+    private final List<Integer> dstTorOf;
+    private final List<Integer> initialValueOf;
+    private final List<int[]> srcTorCountsOf;
+    private int totalFlows;
+
+    /**
+     * Create an annealing problem without destinations, in which every ToR has a
+     * single link to and from every core.
+     *
+     * @param numTors   Number of ToRs
+     * @param numCores  Number of cores
+     */
+    public LinkLoadAnnealing(int numTors, int numCores) {
+        if (numTors < 1 || numCores < 1) {
+            throw new IllegalArgumentException("At least one ToR and one core are required.");
+        }
+        this.numTors = numTors;
+        this.numCores = numCores;
+        this.multiplicity = new int[2 * numTors * numCores];
+        Arrays.fill(multiplicity, 1);
+        this.dstTorOf = new ArrayList<>();
+        this.initialValueOf = new ArrayList<>();
+        this.srcTorCountsOf = new ArrayList<>();
+        this.totalFlows = 0;
+    }
+
+    /**
+     * Set the number of physical links from a ToR to a core, each of which counts towards the energy.
+     *
+     * @param torIndex      ToR index
+     * @param coreIndex     Core index
+     * @param numLinks      Number of links (zero if the load on it does not count)
+     */
+    public void setNumUplinks(int torIndex, int coreIndex, int numLinks) {
+        multiplicity[uplink(torIndex, coreIndex)] = numLinks;
+    }
+
+    /**
+     * Set the number of physical links from a core to a ToR, each of which counts towards the energy.
+     *
+     * @param coreIndex     Core index
+     * @param torIndex      ToR index
+     * @param numLinks      Number of links (zero if the load on it does not count)
+     */
+    public void setNumDownlinks(int coreIndex, int torIndex, int numLinks) {
+        multiplicity[downlink(coreIndex, torIndex)] = numLinks;
+    }
+
+    /**
+     * Add a destination.
+     *
+     * @param dstTorIndex   Index of the ToR of the destination
+     * @param initialValue  Initial value (its core index is the value modulo the number of cores)
+     *
+     * @return Destination index
+     */
+    public int addDestination(int dstTorIndex, int initialValue) {
+        if (initialValue < 0) {
+            throw new IllegalArgumentException("Value must be non-negative: " + initialValue);
+        }
+        dstTorOf.add(dstTorIndex);
+        initialValueOf.add(initialValue);
+        srcTorCountsOf.add(new int[numTors]);
+        return dstTorOf.size() - 1;
+    }
+
+    /**
+     * Add a flow to a destination.
+     *
+     * @param destination   Destination index
+     * @param srcTorIndex   Index of the ToR of the source
+     */
+    public void addFlow(int destination, int srcTorIndex) {
+        srcTorCountsOf.get(destination)[srcTorIndex]++;
+        totalFlows++;
+    }
+
+    /**
+     * Retrieve the initial value of every destination.
+     *
+     * @return Initial values
+     */
+    public int[] getInitialState() {
+        return initialValueOf.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Calculate the energy of a state from scratch.
+     *
+     * @param state     Value of every destination
+     *
+     * @return Energy
+     */
+    public int calculateEnergy(int[] state) {
+        return new Replica(compile(), state, 1.0, new Random(0)).energy();
+    }
+
+    /**
+     * Anneal, starting from the initial state.
+     *
+     * @param iterations    Number of iterations per replica
+     * @param numReplicas   Number of replicas (1 for plain simulated annealing)
+     * @param random        Random number generator
+     *
+     * @return Best state found (value of every destination)
+     */
+    public int[] anneal(int iterations, int numReplicas, Random random) {
+        if (iterations < 1 || numReplicas < 1) {
+            throw new IllegalArgumentException("Iterations and replicas must be positive.");
+        }
+        Problem problem = compile();
+        int[] initialState = getInitialState();
+        if (problem.numDestinations < 2) {
+            return initialState;
+        }
+
+        // Temperature ladder: replica 0 is the coldest
+        Replica[] replicas = new Replica[numReplicas];
+        for (int r = 0; r < numReplicas; r++) {
+            replicas[r] = new Replica(problem, initialState, Math.pow(REPLICA_TEMPERATURE_FACTOR, r), new Random(random.nextLong()));
+        }
+        double coolingFactor = iterations == defaultIterations()
+                ? 1 - COOLING_RATE
+                : Math.pow(FINAL_TEMPERATURE / INITIAL_TEMPERATURE, 1.0 / iterations);
+
+        double temperature = INITIAL_TEMPERATURE;
+        int done = 0;
+        while (done < iterations) {
+            int steps = numReplicas == 1 ? iterations : Math.min(EXCHANGE_INTERVAL, iterations - done);
+            double phaseTemperature = temperature;
+            if (numReplicas == 1) {
+                replicas[0].run(steps, phaseTemperature, coolingFactor);
+            } else {
+                Arrays.stream(replicas).parallel().forEach(replica -> replica.run(steps, phaseTemperature, coolingFactor));
+                exchange(replicas, temperature * Math.pow(coolingFactor, steps), random);
+            }
+            temperature *= Math.pow(coolingFactor, steps);
+            done += steps;
+        }
+
+        // Best over all replicas
+        Replica best = replicas[0];
+        for (Replica replica : replicas) {
+            if (replica.bestEnergy < best.bestEnergy) {
+                best = replica;
+            }
+        }
+        return best.bestState.clone();
+    }
+
+    /**
+     * Exchange the states of adjacent replicas using the Metropolis criterion.
+     *
+     * @param replicas      Replicas ordered from coldest to hottest
+     * @param temperature   Current base temperature
+     * @param random        Random number generator
+     */
+    private static void exchange(Replica[] replicas, double temperature, Random random) {
+        for (int r = 0; r < replicas.length - 1; r++) {
+            Replica colder = replicas[r];
+            Replica hotter = replicas[r + 1];
+            double delta = (1.0 / (temperature * colder.scale) - 1.0 / (temperature * hotter.scale))
+                    * (colder.energy() - hotter.energy());
+            if (delta >= 0 || Math.exp(delta) > random.nextDouble()) {
+                double scale = colder.scale;
+                colder.scale = hotter.scale;
+                hotter.scale = scale;
+                replicas[r] = hotter;
+                replicas[r + 1] = colder;
+            }
+        }
+    }
+
+    /**
+     * Number of iterations of the original cooling schedule, going from the initial
+     * to the final temperature with the cooling rate.
+     *
+     * @return Default number of iterations
+     */
+    public static int defaultIterations() {
+        return (int) Math.ceil(Math.log(FINAL_TEMPERATURE / INITIAL_TEMPERATURE) / Math.log(1 - COOLING_RATE));
+    }
+
+    private int uplink(int torIndex, int coreIndex) {
+        return torIndex * numCores + coreIndex;
+    }
+
+    private int downlink(int coreIndex, int torIndex) {
+        return numTors * numCores + coreIndex * numTors + torIndex;
+    }
+
+    /**
+     * Compact (read-only) representation of the destinations, shared by the replicas.
+     */
+    private Problem compile() {
+        int numDestinations = dstTorOf.size();
+        int[][] srcTors = new int[numDestinations][];
+        int[][] srcCounts = new int[numDestinations][];
+        int[] numFlows = new int[numDestinations];
+        List<List<Integer>> byTor = new ArrayList<>();
+        for (int t = 0; t < numTors; t++) {
+            byTor.add(new ArrayList<>());
+        }
+        for (int d = 0; d < numDestinations; d++) {
+            int[] counts = srcTorCountsOf.get(d);
+            int distinct = 0;
+            for (int count : counts) {
+                distinct += count > 0 ? 1 : 0;
+            }
+            srcTors[d] = new int[distinct];
+            srcCounts[d] = new int[distinct];
+            int i = 0;
+            for (int t = 0; t < numTors; t++) {
+                if (counts[t] > 0) {
+                    srcTors[d][i] = t;
+                    srcCounts[d][i] = counts[t];
+                    numFlows[d] += counts[t];
+                    i++;
+                }
+            }
+            byTor.get(dstTorOf.get(d)).add(d);
+        }
+        List<int[]> groups = new ArrayList<>();
+        for (List<Integer> group : byTor) {
+            if (group.size() > 1) {
+                groups.add(group.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        int[] dstTors = dstTorOf.stream().mapToInt(Integer::intValue).toArray();
+        return new Problem(numDestinations, dstTors, srcTors, srcCounts, numFlows, groups.toArray(new int[0][]));
+    }
+
+    private static class Problem {
+
+        private final int numDestinations;
+        private final int[] dstTor;
+        private final int[][] srcTors;
+        private final int[][] srcCounts;
+        private final int[] numFlows;
+        private final int[][] sameTorGroups;
+
+        Problem(int numDestinations, int[] dstTor, int[][] srcTors, int[][] srcCounts, int[] numFlows, int[][] sameTorGroups) {
+            this.numDestinations = numDestinations;
+            this.dstTor = dstTor;
+            this.srcTors = srcTors;
+            this.srcCounts = srcCounts;
+            this.numFlows = numFlows;
+            this.sameTorGroups = sameTorGroups;
+        }
+
+    }
+
+    /**
+     * A single annealing chain with its own state, link loads and random number generator.
+     */
+    private class Replica {
+
+        private final Problem problem;
+        private final int[] state;
+        private final int[] load;
+        private final int[] numLinksWithLoad;
+        private final Random random;
+        private int maxLoad;
+        private double scale;
+        private int[] bestState;
+        private int bestEnergy;
+
+        Replica(Problem problem, int[] initialState, double scale, Random random) {
+            this.problem = problem;
+            this.state = initialState.clone();
+            this.load = new int[multiplicity.length];
+            this.numLinksWithLoad = new int[totalFlows + 1];
+            this.random = random;
+            this.scale = scale;
+            for (int link = 0; link < multiplicity.length; link++) {
+                numLinksWithLoad[0] += multiplicity[link];
+            }
+            this.maxLoad = 0;
+            for (int d = 0; d < problem.numDestinations; d++) {
+                apply(d, state[d] % numCores, 1);
+            }
+            this.bestState = state.clone();
+            this.bestEnergy = energy();
+        }
+
+        int energy() {
+            return maxLoad * numLinksWithLoad[maxLoad];
+        }
+
+        /**
+         * Run a number of iterations, starting at the given base temperature.
+         */
+        void run(int steps, double temperature, double coolingFactor) {
+            int currentEnergy = energy();
+            for (int step = 0; step < steps; step++) {
+                int first;
+                int second;
+                if (random.nextDouble() > 0.5 || problem.sameTorGroups.length == 0) {
+
+                    // Two distinct destinations of any ToR
+                    first = random.nextInt(problem.numDestinations);
+                    second = random.nextInt(problem.numDestinations - 1);
+                    second = second >= first ? second + 1 : second;
+
+                } else {
+
+                    // Two distinct destinations of the same ToR
+                    int[] group = problem.sameTorGroups[random.nextInt(problem.sameTorGroups.length)];
+                    int i = random.nextInt(group.length);
+                    int j = random.nextInt(group.length - 1);
+                    first = group[i];
+                    second = group[j >= i ? j + 1 : j];
+
+                }
+
+                swap(first, second);
+                int candidateEnergy = energy();
+                double t = temperature * scale;
+                if (candidateEnergy < currentEnergy || Math.exp((currentEnergy - candidateEnergy) / t) > random.nextDouble()) {
+                    currentEnergy = candidateEnergy;
+                    if (currentEnergy < bestEnergy) {
+                        bestEnergy = currentEnergy;
+                        bestState = state.clone();
+                    }
+                } else {
+                    swap(first, second);
+                }
+                temperature *= coolingFactor;
+            }
+        }
+
+        private void swap(int first, int second) {
+            int firstValue = state[first];
+            int secondValue = state[second];
+            move(first, secondValue);
+            move(second, firstValue);
+        }
+
+        private void move(int d, int value) {
+            int oldCore = state[d] % numCores;
+            int newCore = value % numCores;
+            state[d] = value;
+            if (oldCore != newCore) {
+                apply(d, oldCore, -1);
+                apply(d, newCore, 1);
+            }
+        }
+
+        /**
+         * Add (sign 1) or remove (sign -1) the flows of a destination routed via a core.
+         */
+        private void apply(int d, int core, int sign) {
+            int[] srcTors = problem.srcTors[d];
+            int[] srcCounts = problem.srcCounts[d];
+            for (int i = 0; i < srcTors.length; i++) {
+                add(uplink(srcTors[i], core), sign * srcCounts[i]);
+            }
+            add(downlink(core, problem.dstTor[d]), sign * problem.numFlows[d]);
+        }
+
+        private void add(int link, int delta) {
+            int before = load[link];
+            int after = before + delta;
+            load[link] = after;
+            int m = multiplicity[link];
+            if (m == 0) {
+                return;
+            }
+            numLinksWithLoad[before] -= m;
+            numLinksWithLoad[after] += m;
+            if (after > maxLoad) {
+                maxLoad = after;
+            }
+            while (maxLoad > 0 && numLinksWithLoad[maxLoad] == 0) {
+                maxLoad--;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package ch.ethz.systems.floodns.core;
+
+import ch.ethz.systems.floodns.PathTestUtility;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import ch.ethz.systems.floodns.user.network.NetworkTestHelper;
+import ch.ethz.systems.floodns.user.network.TestBody;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TopologyStoreTest {
+
+    @Test
+    public void testAdjacency() {
+        Simulator simulator = new Simulator();
+        Network network = new Network(5);
+        Link a = network.addLink(0, 3, 10.0);
+        Link b = network.addLink(0, 1, 10.0);
+        Link c = network.addLink(0, 3, 5.0);
+        Link d = network.addLink(2, 0, 10.0);
+
+        // Links between pairs
+        assertEquals(Arrays.asList(a, c), network.getPresentLinksBetween(0, 3));
+        assertEquals(Collections.singletonList(b), network.getPresentLinksBetween(0, 1));
+        assertTrue(network.getPresentLinksBetween(3, 0).isEmpty());
+        assertTrue(network.getPresentLinksBetween(7, 0).isEmpty());
+
+        // Neighbors are in ascending order
+        Node node = network.getNode(0);
+        assertEquals(Arrays.asList(1, 3), new ArrayList<>(node.getOutgoingConnectedToNodes()));
+        assertEquals(Collections.singleton(2), node.getIncomingConnectedToNodes());
+        assertTrue(node.hasOutgoingLinksTo(3));
+        assertFalse(node.hasOutgoingLinksTo(2));
+        assertNull(node.getOutgoingLinksTo(4));
+        assertEquals(new HashSet<>(Arrays.asList(a, b, c)), node.getOutgoingLinks());
+        assertTrue(node.getOutgoingLinks().contains(c));
+        assertFalse(node.getOutgoingLinks().contains(d));
+        assertEquals(3, node.getOutgoingLinks().size());
+        assertEquals(Arrays.asList(a, b, c, d), new ArrayList<>(network.getPresentLinks()));
+
+        NetworkTestHelper.runTest(simulator, network, new TestBody(simulator, network) {
+
+            @Override
+            public void test() {
+
+                // Removal propagates to the views
+                Set<Link> present = network.getPresentLinks();
+                simulator.removeExistingLink(a);
+                assertEquals(Collections.singletonList(c), network.getPresentLinksBetween(0, 3));
+                simulator.removeExistingLink(c);
+                assertTrue(network.getPresentLinksBetween(0, 3).isEmpty());
+                assertFalse(node.hasOutgoingLinksTo(3));
+                assertEquals(Collections.singleton(1), node.getOutgoingConnectedToNodes());
+                assertEquals(Arrays.asList(b, d), new ArrayList<>(present));
+                assertNull(network.getLink(a.getLinkId()));
+
+                // Addition as well
+                Link e = simulator.addNewLink(0, 3, 1.0);
+                assertEquals(Collections.singletonList(e), network.getPresentLinksBetween(0, 3));
+                assertEquals(3, present.size());
+                assertTrue(present.contains(e));
+
+            }
+
+        });
+
+    }
+
+    @Test
+    public void testFlowMembership() {
+        Simulator simulator = new Simulator();
+        Network network = new Network(3);
+        network.addLink(0, 1, 10.0);
+        network.addLink(1, 2, 10.0);
+
+        VoidLoggerFactory loggerFactory = new VoidLoggerFactory(simulator);
+        loggerFactory.setConnectionInfoSavingEnabled(false);
+        NetworkTestHelper.runTest(simulator, network, new TestBody(simulator, network) {
+
+            @Override
+            public void test() {
+                Random random = new Random(83);
+                Link link = network.getLink(0);
+                Node node = network.getNode(1);
+                List<Flow> active = new ArrayList<>();
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < 5000; i++) {
+                    if (active.isEmpty() || random.nextDouble() < 0.55) {
+                        Flow flow = PathTestUtility.startSimpleFlow(simulator, network, random.nextBoolean() ? "0-1" : "0-1-2");
+                        active.add(flow);
+                        expected.add(flow.getFlowId());
+                    } else {
+                        Flow flow = active.remove(random.nextInt(active.size()));
+                        simulator.endFlow(flow);
+                        expected.remove(flow.getFlowId());
+                    }
+                    if (i % 100 == 0) {
+                        assertEquals(expected, link.getActiveFlowIds());
+                        assertEquals(expected, node.getActiveFlowsIds());
+                        assertEquals(new HashSet<>(active), new HashSet<>(link.getActiveFlows()));
+                    }
+                }
+                for (Flow flow : active) {
+                    assertTrue(link.getActiveFlows().contains(flow));
+                    assertTrue(link.getActiveFlowIds().contains(flow.getFlowId()));
+                }
+                assertEquals(active.size(), link.getActiveFlows().size());
+            }
+
+        }, loggerFactory);
+
+    }
+
+}
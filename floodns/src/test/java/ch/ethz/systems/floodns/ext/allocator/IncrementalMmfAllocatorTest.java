@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package ch.ethz.systems.floodns.ext.allocator;
+
+import ch.ethz.systems.floodns.PathTestUtility;
+import ch.ethz.systems.floodns.core.*;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import ch.ethz.systems.floodns.user.network.NetworkTestHelper;
+import ch.ethz.systems.floodns.user.network.TestBody;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalMmfAllocatorTest {
+
+    @Test
+    public void testUnaffectedComponentKept() {
+        Simulator simulator = new Simulator();
+        Network network = new Network(5);
+
+        //
+        // 0 -> 1 -> 2       3 -> 4
+        //
+        network.addLink(0, 1, 10.0);
+        network.addLink(1, 2, 4.0);
+        network.addLink(3, 4, 10.0);
+
+        NetworkTestHelper.runTest(simulator, network, new TestBody(simulator, network) {
+
+            @Override
+            public void test() {
+                IncrementalMmfAllocator allocator = new IncrementalMmfAllocator(simulator, network);
+
+                Flow flowA = PathTestUtility.startSimpleFlow(simulator, network, "0-1-2");
+                Flow flowB = PathTestUtility.startSimpleFlow(simulator, network, "0-1");
+                Flow flowC = PathTestUtility.startSimpleFlow(simulator, network, "3-4");
+                allocator.perform();
+                assertEquals(4.0, flowA.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(6.0, flowB.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(10.0, flowC.getCurrentBandwidth(), simulator.getFlowPrecision());
+
+                // Bandwidth changes by hand are not seen as a change
+                simulator.allocateFlowBandwidth(flowC, 3.0);
+                allocator.perform();
+                assertEquals(3.0, flowC.getCurrentBandwidth(), simulator.getFlowPrecision());
+
+                // Only the component of the new flow is recomputed
+                Flow flowD = PathTestUtility.startSimpleFlow(simulator, network, "0-1");
+                allocator.perform();
+                assertEquals(10.0 / 3, flowA.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(10.0 / 3, flowB.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(10.0 / 3, flowD.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(3.0, flowC.getCurrentBandwidth(), simulator.getFlowPrecision());
+
+                // Ending a flow frees up its bandwidth
+                simulator.endFlow(flowB);
+                allocator.perform();
+                assertEquals(4.0, flowA.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(6.0, flowD.getCurrentBandwidth(), simulator.getFlowPrecision());
+
+                // The untouched component is recomputed once it changes
+                simulator.endFlow(flowA);
+                Flow flowE = PathTestUtility.startSimpleFlow(simulator, network, "3-4");
+                allocator.perform();
+                assertEquals(10.0, flowD.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(5.0, flowC.getCurrentBandwidth(), simulator.getFlowPrecision());
+                assertEquals(5.0, flowE.getCurrentBandwidth(), simulator.getFlowPrecision());
+            }
+
+        }, createLoggerFactory(simulator));
+
+    }
+
+    @Test
+    public void testRandomEquivalence() {
+        Simulator simulator = new Simulator();
+        Random random = new Random(7);
+        int numNodes = 12;
+        Network network = new Network(numNodes);
+        for (int i = 0; i < numNodes; i++) {
+            for (int j = 0; j < numNodes; j++) {
+                if (i != j && random.nextDouble() < 0.3) {
+                    network.addLink(i, j, 1.0 + random.nextInt(20));
+                }
+            }
+        }
+
+        NetworkTestHelper.runTest(simulator, network, new TestBody(simulator, network) {
+
+            @Override
+            public void test() {
+
+                // Throws an exception if it is not equal to the simple allocator
+                IncrementalMmfAllocator allocator = new IncrementalMmfAllocator(simulator, network, true);
+
+                List<Flow> flows = new ArrayList<>();
+                for (int round = 0; round < 300; round++) {
+                    int numChanges = 1 + random.nextInt(3);
+                    for (int c = 0; c < numChanges; c++) {
+                        if (flows.isEmpty() || random.nextDouble() < 0.6) {
+                            AcyclicPath path = randomPath(random, network);
+                            if (path != null) {
+                                flows.add(PathTestUtility.startFlow(simulator, path));
+                            }
+                        } else {
+                            simulator.endFlow(flows.remove(random.nextInt(flows.size())));
+                        }
+                    }
+                    allocator.perform();
+                }
+
+            }
+
+        }, createLoggerFactory(simulator));
+
+    }
+
+    private static LoggerFactory createLoggerFactory(Simulator simulator) {
+        LoggerFactory loggerFactory = new VoidLoggerFactory(simulator);
+        loggerFactory.setConnectionInfoSavingEnabled(false); // Connections are not part of a job
+        return loggerFactory;
+    }
+
+    private static AcyclicPath randomPath(Random random, Network network) {
+        List<Integer> visited = new ArrayList<>();
+        int current = random.nextInt(network.getNumNodes());
+        visited.add(current);
+        AcyclicPath path = new AcyclicPath();
+        int length = 1 + random.nextInt(4);
+        while (path.size() < length) {
+            List<Link> candidates = new ArrayList<>();
+            for (Link link : network.getNode(current).getOutgoingLinks()) {
+                if (!visited.contains(link.getTo())) {
+                    candidates.add(link);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Link link = candidates.get(random.nextInt(candidates.size()));
+            path.add(link);
+            current = link.getTo();
+            visited.add(current);
+        }
+        return path.isEmpty() ? null : path;
+    }
+
+}
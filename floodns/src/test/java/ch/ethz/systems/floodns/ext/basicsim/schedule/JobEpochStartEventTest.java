@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.basicsim.schedule;
+
+import ch.ethz.systems.floodns.core.Connection;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.core.Simulator;
+import ch.ethz.systems.floodns.deeplearningtraining.Job;
+import ch.ethz.systems.floodns.ext.allocator.VoidAllocator;
+import ch.ethz.systems.floodns.ext.basicsim.topology.FileToTopologyConverter;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import ch.ethz.systems.floodns.ext.routing.McvlcRoutingStrategy;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+import static ch.ethz.systems.floodns.ext.basicsim.topology.TopologyTestUtility.constructTopologyFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JobEpochStartEventTest {
+
+    private Topology topology;
+    private Network network;
+    private Simulator simulator;
+    private CountingRoutingStrategy strategy;
+
+    /**
+     * Centralized routing strategy which counts its decisions.
+     */
+    private static class CountingRoutingStrategy extends McvlcRoutingStrategy {
+
+        private int numDecisions = 0;
+
+        CountingRoutingStrategy(Simulator simulator, Topology topology) {
+            super(simulator, topology);
+        }
+
+        @Override
+        public void determinePathAssignments() {
+            numDecisions++;
+            super.determinePathAssignments();
+        }
+
+    }
+
+    @Before
+    public void setup() throws IOException {
+
+        // Leaf-spine with ToRs 0 and 1, spines 2 and 3, and two servers per ToR
+        File topologyFile = constructTopologyFile(
+                8,
+                8,
+                "set(4, 5, 6, 7)",
+                "set(0, 1, 2, 3)",
+                "set(0, 1)",
+                "set(0-2,0-3,1-2,1-3,0-4,0-5,1-6,1-7)",
+                "10"
+        );
+        BufferedWriter writer = new BufferedWriter(new FileWriter(topologyFile, true));
+        writer.write("cores=set(2, 3)\n");
+        writer.close();
+        topology = FileToTopologyConverter.convert(topologyFile.getAbsolutePath());
+        assertTrue(topologyFile.delete());
+        network = topology.getNetwork();
+        simulator = new Simulator();
+        simulator.setup(network, new VoidAllocator(simulator, network), new VoidLoggerFactory(simulator));
+        strategy = new CountingRoutingStrategy(simulator, topology);
+    }
+
+    private JobEpochStartEvent createJobEpochStartEvent(int jobId, long timeFromNow, int srcId, int dstId) {
+        Job job = new Job(simulator, network, strategy, new JobEpochScheduleEntry(
+                jobId, "test", "data_parallelism", 1e9, timeFromNow, 0, 1, 1
+        ));
+        simulator.getJobs().put(jobId, job);
+        Map<Integer, Set<Connection>> stageConnections = new HashMap<>();
+        stageConnections.put(0, new HashSet<>(Collections.singletonList(
+                new Connection(simulator, network.getNode(srcId), network.getNode(dstId), 1e9, jobId)
+        )));
+        return new JobEpochStartEvent(simulator, timeFromNow, stageConnections, strategy, jobId);
+    }
+
+    @Test
+    public void testSimultaneousStartsSingleDecision() {
+
+        // Hundred jobs starting an epoch at once
+        for (int jobId = 0; jobId < 100; jobId++) {
+            simulator.insertEvents(createJobEpochStartEvent(jobId, 100, 4 + jobId % 2, 6 + (jobId / 2) % 2));
+        }
+        simulator.run(150);
+        assertEquals(1, strategy.numDecisions);
+
+        // Every job has a path for its commodity before its connection starts
+        for (int jobId = 0; jobId < 100; jobId++) {
+            Job job = simulator.getJob(jobId);
+            assertEquals(1, job.getCommoditiesPathMap().size());
+            ImmutablePair<Integer, Integer> commodity = job.getCommoditiesPathMap().keySet().iterator().next();
+            assertNotNull(job.getCommoditiesPathMap().get(commodity));
+        }
+        assertEquals(100, simulator.getActiveConnections().size());
+    }
+
+    @Test
+    public void testStartsAtDifferentInstants() {
+        for (int jobId = 0; jobId < 10; jobId++) {
+            simulator.insertEvents(createJobEpochStartEvent(jobId, 100 + jobId % 3, 4, 6 + jobId % 2));
+        }
+        simulator.run(1000);
+        assertEquals(3, strategy.numDecisions);
+        assertEquals(10, simulator.getActiveConnections().size());
+    }
+
+}
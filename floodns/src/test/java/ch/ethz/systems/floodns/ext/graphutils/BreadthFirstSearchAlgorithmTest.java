@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.graphutils;
+
+import ch.ethz.systems.floodns.TestNetworkCreator;
+import ch.ethz.systems.floodns.core.Network;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BreadthFirstSearchAlgorithmTest {
+
+    private static void assertSameAsFloydWarshall(Network network) {
+        int[][] expected = new FloydWarshallAlgorithm(network).calculateShortestPaths();
+        short[][] result = new BreadthFirstSearchAlgorithm(network).calculateShortestPaths();
+        assertArrayEquals(new FloydWarshallAlgorithm(network).calculateShortestPathsAsShorts(), result);
+        for (int i = 0; i < network.getNumNodes(); i++) {
+            for (int j = 0; j < network.getNumNodes(); j++) {
+                if (expected[i][j] >= BreadthFirstSearchAlgorithm.UNREACHABLE) {
+                    assertEquals(BreadthFirstSearchAlgorithm.UNREACHABLE, result[i][j]);
+                } else {
+                    assertEquals(expected[i][j], result[i][j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSimpleNetworks() {
+        assertSameAsFloydWarshall(TestNetworkCreator.fullyConnected(6, 10.0));
+        assertSameAsFloydWarshall(TestNetworkCreator.star(7, 3, 10.0));
+    }
+
+    @Test
+    public void testDirectedUnreachable() {
+        Network network = new Network(4);
+        network.addLink(0, 1, 10.0);
+        network.addLink(1, 2, 10.0);
+        short[][] result = new BreadthFirstSearchAlgorithm(network).calculateShortestPaths();
+        assertEquals(2, result[0][2]);
+        assertEquals(BreadthFirstSearchAlgorithm.UNREACHABLE, result[2][0]);
+        assertEquals(BreadthFirstSearchAlgorithm.UNREACHABLE, result[3][1]);
+        assertEquals(0, result[3][3]);
+        assertSameAsFloydWarshall(network);
+    }
+
+    @Test
+    public void testRandomNetworks() {
+        Random random = new Random(123);
+        for (int t = 0; t < 5; t++) {
+            Network network = new Network(120);
+            for (int i = 0; i < 120; i++) {
+                for (int j = 0; j < 120; j++) {
+                    if (i != j && random.nextDouble() < 0.015 * (t + 1)) {
+                        network.addLink(i, j, 10.0);
+                    }
+                }
+            }
+            assertSameAsFloydWarshall(network);
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ch.ethz.systems.floodns.ext.graphutils;
+
+import ch.ethz.systems.floodns.TestNetworkCreator;
+import ch.ethz.systems.floodns.core.Network;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ParallelKShortestPathsAlgorithmTest {
+
+    private static Network randomNetwork(int n, double p, long seed) {
+        Random random = new Random(seed);
+        Network network = new Network(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() < p) {
+                    network.addLink(i, j, 10.0);
+                    network.addLink(j, i, 10.0);
+                }
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Enumerate the lengths (in hops) of all loopless paths from the current node to the destination.
+     */
+    private static void enumerate(Network network, int node, int dst, boolean[] onPath, int length, List<Integer> lengths) {
+        if (node == dst) {
+            lengths.add(length);
+            return;
+        }
+        onPath[node] = true;
+        for (int neighbor : network.getNode(node).getOutgoingConnectedToNodes()) {
+            if (!onPath[neighbor]) {
+                enumerate(network, neighbor, dst, onPath, length + 1, lengths);
+            }
+        }
+        onPath[node] = false;
+    }
+
+    private static void assertSameLengthsAsEnumeration(Network network, int[] endpoints, int k) {
+        KShortestPathTable table = new ParallelKShortestPathsAlgorithm(network).calculate(endpoints, k);
+        for (int src : endpoints) {
+            for (int dst : endpoints) {
+                if (src == dst) {
+                    continue;
+                }
+                List<Integer> lengths = new ArrayList<>();
+                enumerate(network, src, dst, new boolean[network.getNumNodes()], 0, lengths);
+                Collections.sort(lengths);
+                assertEquals(Math.min(k, lengths.size()), table.getNumPaths(src, dst));
+                Set<String> distinct = new HashSet<>();
+                for (int i = 0; i < table.getNumPaths(src, dst); i++) {
+                    int[] path = table.getPath(src, dst, i);
+                    assertEquals((int) lengths.get(i), path.length - 1);
+                    assertEquals(src, path[0]);
+                    assertEquals(dst, path[path.length - 1]);
+                    for (int h = 0; h < path.length - 1; h++) {
+                        assertFalse(network.getPresentLinksBetween(path[h], path[h + 1]).isEmpty());
+                    }
+                    assertTrue(distinct.add(Arrays.toString(path)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameLengthsAsEnumeration() {
+        assertSameLengthsAsEnumeration(TestNetworkCreator.fullyConnected(6, 10.0), new int[]{0, 2, 5}, 10);
+        for (int seed = 0; seed < 5; seed++) {
+            assertSameLengthsAsEnumeration(randomNetwork(12, 0.3, seed), new int[]{1, 4, 7, 11}, 8);
+        }
+    }
+
+    @Test
+    public void testFirstPathAsYen() {
+        Network network = randomNetwork(30, 0.12, 1);
+        int[] endpoints = new int[]{1, 7, 12, 20, 29};
+        KShortestPathTable table = new ParallelKShortestPathsAlgorithm(network).calculate(endpoints, 3);
+        YenTopKspAlgorithmWrapper yen = new YenTopKspAlgorithmWrapper(network);
+        for (int src : endpoints) {
+            for (int dst : endpoints) {
+                if (src != dst) {
+                    assertEquals(yen.getShortestPaths(src, dst, 1).get(0).size(), table.getPath(src, dst, 0).length - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        File directory = Files.createTempDirectory("paths_cache").toFile();
+        try {
+            Network network = randomNetwork(25, 0.2, 3);
+            int[] endpoints = new int[]{0, 5, 10, 24};
+            KShortestPathCache cache = new KShortestPathCache(directory.getPath());
+            KShortestPathTable calculated = cache.getOrCalculate(network, endpoints, 5);
+            File[] entries = directory.listFiles();
+            assertNotNull(entries);
+            assertEquals(1, entries.length);
+            long modified = entries[0].lastModified();
+
+            // Smaller K is served from the entry
+            KShortestPathTable loaded = cache.getOrCalculate(network, new int[]{24, 10, 5, 0}, 3);
+            assertEquals(5, loaded.getK());
+            assertEquals(modified, entries[0].lastModified());
+            for (int src : endpoints) {
+                for (int dst : endpoints) {
+                    if (src != dst) {
+                        assertEquals(calculated.getNumPaths(src, dst), loaded.getNumPaths(src, dst));
+                        for (int i = 0; i < calculated.getNumPaths(src, dst); i++) {
+                            assertArrayEquals(calculated.getPath(src, dst, i), loaded.getPath(src, dst, i));
+                        }
+                    }
+                }
+            }
+
+            // Another topology has another entry
+            cache.getOrCalculate(randomNetwork(25, 0.2, 4), endpoints, 5);
+            assertEquals(2, directory.listFiles().length);
+
+        } finally {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    assertTrue(f.delete());
+                }
+            }
+            assertTrue(directory.delete());
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.graphutils;
+
+import ch.ethz.systems.floodns.TestNetworkCreator;
+import ch.ethz.systems.floodns.core.Network;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathCacheTest {
+
+    private File directory;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("routing_cache").toFile();
+    }
+
+    @After
+    public void cleanup() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                assertTrue(f.delete());
+            }
+        }
+        assertTrue(directory.delete());
+    }
+
+    private static Network line(int n) {
+        Network network = new Network(n);
+        for (int i = 0; i < n - 1; i++) {
+            network.addLink(i, i + 1, 10.0);
+            network.addLink(i + 1, i, 10.0);
+        }
+        return network;
+    }
+
+    @Test
+    public void testStoredAndLoaded() {
+        Network network = line(5);
+        short[][] expected = new BreadthFirstSearchAlgorithm(network).calculateShortestPaths();
+
+        ShortestPathLengths calculated = new ShortestPathCache(directory.getPath()).getOrCalculate(network);
+        assertFalse(calculated.isMapped());
+        assertArrayEquals(expected, calculated.toArray());
+        File[] entries = directory.listFiles();
+        assertEquals(1, entries.length);
+        assertEquals(ShortestPathCache.determineKey(network) + ".apsp", entries[0].getName());
+        assertEquals(12 + 2 * 25, entries[0].length());
+
+        // A separately built identical network loads the entry
+        ShortestPathLengths loaded = new ShortestPathCache(directory.getPath()).getOrCalculate(line(5));
+        assertTrue(loaded.isMapped());
+        assertEquals(5, loaded.getNumNodes());
+        assertArrayEquals(expected, loaded.toArray());
+        assertEquals(4, loaded.get(0, 4));
+        assertEquals(3, loaded.get(4, 1));
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void testKeyFollowsContent() {
+        assertEquals(ShortestPathCache.determineKey(line(4)), ShortestPathCache.determineKey(line(4)));
+        assertNotEquals(ShortestPathCache.determineKey(line(4)), ShortestPathCache.determineKey(line(5)));
+        assertNotEquals(ShortestPathCache.determineKey(line(4)), ShortestPathCache.determineKey(TestNetworkCreator.fullyConnected(4, 10.0)));
+
+        // Parallel links do not change the shortest path lengths
+        Network parallel = line(4);
+        parallel.addLink(0, 1, 10.0);
+        assertEquals(ShortestPathCache.determineKey(line(4)), ShortestPathCache.determineKey(parallel));
+    }
+
+    @Test
+    public void testCorruptEntryReplaced() throws IOException {
+        Network network = TestNetworkCreator.star(6, 2, 10.0);
+        File entry = new File(directory, ShortestPathCache.determineKey(network) + ".apsp");
+        Files.write(entry.toPath(), new byte[]{1, 2, 3, 4});
+
+        ShortestPathLengths result = new ShortestPathCache(directory.getPath()).getOrCalculate(network);
+        assertArrayEquals(new BreadthFirstSearchAlgorithm(network).calculateShortestPaths(), result.toArray());
+        assertEquals(12 + 2 * 36, entry.length());
+    }
+
+}
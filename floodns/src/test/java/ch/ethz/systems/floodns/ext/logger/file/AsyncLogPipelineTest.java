@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.logger.file;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogPipelineTest {
+
+    @Test
+    public void testOrderPreservedUnderBackPressure() throws IOException {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(8, 3);
+        StringWriter targetA = new StringWriter();
+        StringWriter targetB = new StringWriter();
+        Writer writerA = pipeline.register(targetA);
+        Writer writerB = pipeline.register(targetB);
+        pipeline.start();
+
+        StringBuilder expectedA = new StringBuilder();
+        StringBuilder expectedB = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            String line = i + "," + (i * 7) + "\r\n";
+            if (i % 3 == 0) {
+                writerB.write(line);
+                expectedB.append(line);
+            } else {
+                writerA.write(line);
+                expectedA.append(line);
+            }
+            if (i % 1000 == 0) {
+                writerA.flush();
+            }
+        }
+        writerA.write(new char[]{'x', 'y', 'z'}, 1, 2);
+        expectedA.append("yz");
+        pipeline.close();
+
+        assertEquals(expectedA.toString(), targetA.toString());
+        assertEquals(expectedB.toString(), targetB.toString());
+    }
+
+    @Test
+    public void testCloseWithoutWrites() {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline();
+        StringWriter target = new StringWriter();
+        pipeline.register(target);
+        pipeline.start();
+        pipeline.close();
+        assertEquals("", target.toString());
+        assertEquals(0, pipeline.getNumStalls());
+    }
+
+    @Test
+    public void testFailurePropagated() throws IOException {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(4, 1);
+        Writer writer = pipeline.register(new Writer() {
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+
+        });
+        pipeline.start();
+        boolean thrown = false;
+        try {
+            for (int i = 0; i < 100; i++) {
+                writer.write("line\r\n");
+            }
+            pipeline.close();
+        } catch (FatalLogFileException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterAfterStart() {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline();
+        pipeline.start();
+        try {
+            pipeline.register(new StringWriter());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterClose() throws IOException {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline();
+        Writer writer = pipeline.register(new StringWriter());
+        pipeline.start();
+        pipeline.close();
+        writer.write("line\r\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new AsyncLogPipeline(6, 1);
+    }
+
+}
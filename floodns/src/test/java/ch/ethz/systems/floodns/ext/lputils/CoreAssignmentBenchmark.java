@@ -0,0 +1,177 @@
+package ch.ethz.systems.floodns.ext.lputils;
+
+import ch.ethz.systems.floodns.ext.sysutils.SharedMemory;
+import com.google.gson.Gson;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Compares the decision latency of the core assignment ILP backends over a sequence
+ * of epochs, in which a quarter of the commodities is replaced every epoch:
+ * <ul>
+ *     <li><b>ortools_warm:</b> one in-process model kept over all epochs (as used by the routing strategy);</li>
+ *     <li><b>ortools_cold:</b> a new in-process model every epoch;</li>
+ *     <li><b>subprocess_floor:</b> only the shared memory round-trip of the Python controller
+ *     (write request, start a Python process which immediately answers, poll for the answer),
+ *     which is a lower bound of that backend;</li>
+ *     <li><b>python_controller:</b> the actual Python controller, only if poetry is available.</li>
+ * </ul>
+ * The topology is a two-tier leaf-spine of n ToRs with n/2 cores and n/2 servers per ToR.
+ * <p>
+ * Usage: CoreAssignmentBenchmark [num_tors num_commodities] ...
+ */
+public class CoreAssignmentBenchmark {
+
+    private static final int EPOCHS = 20;
+
+    public static void main(String[] args) throws IOException {
+        int[][] configurations = args.length > 0 ? new int[args.length / 2][] : new int[][]{{8, 32}, {16, 128}, {32, 512}};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            configurations[i / 2] = new int[]{Integer.parseInt(args[i]), Integer.parseInt(args[i + 1])};
+        }
+        File runDirectory = Files.createTempDirectory("core_assignment_benchmark").toFile();
+        boolean pythonAvailable = isCommandAvailable("python3", "--version");
+        boolean poetryAvailable = isCommandAvailable("poetry", "--version");
+
+        System.out.println("backend,num_tors,num_commodities,mean_ms,max_ms");
+        for (int[] configuration : configurations) {
+            List<Map<Integer, ImmutablePair<Integer, Integer>>> epochs = generateEpochs(configuration[0], configuration[1], new Random(123));
+            print("ortools_warm", configuration, ortools(configuration[0], epochs, true));
+            print("ortools_cold", configuration, ortools(configuration[0], epochs, false));
+            if (pythonAvailable) {
+                print("subprocess_floor", configuration, subprocessFloor(configuration[0], epochs, runDirectory));
+            }
+            if (poetryAvailable) {
+                print("python_controller", configuration, pythonController(configuration[0], epochs, runDirectory));
+            }
+        }
+        if (!poetryAvailable) {
+            System.out.println("# poetry not found: python_controller skipped");
+        }
+    }
+
+    private static List<Map<Integer, ImmutablePair<Integer, Integer>>> generateEpochs(int numTors, int numCommodities, Random random) {
+        int numServers = numTors * (numTors / 2);
+        List<Map<Integer, ImmutablePair<Integer, Integer>>> epochs = new ArrayList<>();
+        Map<Integer, ImmutablePair<Integer, Integer>> commodities = new HashMap<>();
+        int nextId = 0;
+        for (int e = 0; e < EPOCHS; e++) {
+            List<Integer> ids = new ArrayList<>(commodities.keySet());
+            Collections.shuffle(ids, random);
+            for (int i = 0; i < ids.size() / 4; i++) {
+                commodities.remove(ids.get(i));
+            }
+            while (commodities.size() < numCommodities) {
+                int src = numTors + numTors / 2 + random.nextInt(numServers);
+                int dst = numTors + numTors / 2 + random.nextInt(numServers);
+                if (src != dst) {
+                    commodities.put(nextId++, ImmutablePair.of(src, dst));
+                }
+            }
+            epochs.add(new HashMap<>(commodities));
+        }
+        return epochs;
+    }
+
+    private static int getTorOfServer(int numTors, int serverId) {
+        return (serverId - numTors - numTors / 2) / (numTors / 2);
+    }
+
+    private static double[] ortools(int numTors, List<Map<Integer, ImmutablePair<Integer, Integer>>> epochs, boolean warm) {
+        List<Integer> tors = new ArrayList<>();
+        for (int i = 0; i < numTors; i++) {
+            tors.add(i);
+        }
+        List<Integer> cores = new ArrayList<>();
+        for (int i = numTors; i < numTors + numTors / 2; i++) {
+            cores.add(i);
+        }
+        double[] durationsMs = new double[epochs.size()];
+        CoreAssignmentIlp<Integer> ilp = warm ? new CoreAssignmentIlp<>(tors, cores) : null;
+        for (int e = 0; e < epochs.size(); e++) {
+            long start = System.nanoTime();
+            Map<Integer, ImmutablePair<Integer, Integer>> commodityTors = new HashMap<>();
+            epochs.get(e).forEach((id, pair) -> commodityTors.put(id, ImmutablePair.of(
+                    getTorOfServer(numTors, pair.getLeft()), getTorOfServer(numTors, pair.getRight())
+            )));
+            if (warm) {
+                ilp.solve(commodityTors, cores);
+            } else {
+                CoreAssignmentIlp<Integer> coldIlp = new CoreAssignmentIlp<>(tors, cores);
+                coldIlp.solve(commodityTors, cores);
+                coldIlp.delete();
+            }
+            durationsMs[e] = (System.nanoTime() - start) / 1e6;
+        }
+        if (ilp != null) {
+            ilp.delete();
+        }
+        return durationsMs;
+    }
+
+    private static double[] subprocessFloor(int numTors, List<Map<Integer, ImmutablePair<Integer, Integer>>> epochs, File runDirectory) {
+        String javaPath = runDirectory + "/shared_memory_java.json";
+        String pythonPath = runDirectory + "/shared_memory_python.json";
+        String script = "import json, sys; json.load(open(sys.argv[1])); open(sys.argv[2], 'w').write('{}')";
+        double[] durationsMs = new double[epochs.size()];
+        for (int e = 0; e < epochs.size(); e++) {
+            long start = System.nanoTime();
+            SharedMemory.writeFile(javaPath, getJsonRequest(numTors, epochs.get(e)));
+            try {
+                new ProcessBuilder("python3", "-c", script, javaPath, pythonPath).inheritIO().start().waitFor();
+                SharedMemory.readFile(pythonPath).close();
+            } catch (IOException | InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+            new File(pythonPath).delete();
+            durationsMs[e] = (System.nanoTime() - start) / 1e6;
+        }
+        return durationsMs;
+    }
+
+    private static double[] pythonController(int numTors, List<Map<Integer, ImmutablePair<Integer, Integer>>> epochs, File runDirectory) {
+        double[] durationsMs = new double[epochs.size()];
+        for (int e = 0; e < epochs.size(); e++) {
+            long start = System.nanoTime();
+            SharedMemory.receivePathAssignmentsFromController(
+                    runDirectory + "/shared_memory_java.json", runDirectory + "/shared_memory_python.json",
+                    getJsonRequest(numTors, epochs.get(e)), runDirectory.toString(), true
+            );
+            durationsMs[e] = (System.nanoTime() - start) / 1e6;
+        }
+        return durationsMs;
+    }
+
+    private static String getJsonRequest(int numTors, Map<Integer, ImmutablePair<Integer, Integer>> commodities) {
+        Map<String, String> map = new HashMap<>();
+        map.put("src_dst_pairs", commodities.toString());
+        map.put("failed_links", "[]");
+        map.put("failed_cores", "[]");
+        map.put("num_tors", String.valueOf(numTors));
+        return new Gson().toJson(map);
+    }
+
+    private static boolean isCommandAvailable(String... command) {
+        try {
+            return new ProcessBuilder(command).start().waitFor() == 0;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static void print(String backend, int[] configuration, double[] durationsMs) {
+        // The first epoch includes class loading and solver initialization, it is not counted
+        double sum = 0;
+        double max = 0;
+        for (int e = 1; e < durationsMs.length; e++) {
+            sum += durationsMs[e];
+            max = Math.max(max, durationsMs[e]);
+        }
+        System.out.printf("%s,%d,%d,%.2f,%.2f%n", backend, configuration[0], configuration[1], sum / (durationsMs.length - 1), max);
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.lputils;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoreAssignmentIlpTest {
+
+    private static final List<Integer> TORS = Arrays.asList(0, 1, 2, 3);
+    private static final List<Integer> CORES = Arrays.asList(4, 5, 6);
+
+    @Test
+    public void testBalanced() {
+        CoreAssignmentIlp<Integer> ilp = new CoreAssignmentIlp<>(TORS, CORES);
+        Map<Integer, ImmutablePair<Integer, Integer>> commodities = new HashMap<>();
+        commodities.put(0, ImmutablePair.of(0, 1));
+        commodities.put(1, ImmutablePair.of(0, 2));
+        commodities.put(2, ImmutablePair.of(0, 3));
+        commodities.put(3, ImmutablePair.of(1, 0));
+
+        // Every commodity gets its own up-link out of ToR 0
+        Map<Integer, Integer> assignment = ilp.solve(commodities, CORES);
+        assertEquals(1.0, ilp.getObjectiveValue(), 1e-6);
+        assertEquals(1, maxLinkLoad(commodities, assignment, CORES));
+        assertEquals(3, new HashSet<>(Arrays.asList(assignment.get(0), assignment.get(1), assignment.get(2))).size());
+
+        // Only a single core left
+        assignment = ilp.solve(commodities, Collections.singletonList(5));
+        assertEquals(3.0, ilp.getObjectiveValue(), 1e-6);
+        for (int idx : assignment.values()) {
+            assertEquals(0, idx);
+        }
+
+        // Same ToR does not traverse a core
+        commodities.put(4, ImmutablePair.of(2, 2));
+        assignment = ilp.solve(commodities, Arrays.asList(6, 4));
+        assertEquals(2.0, ilp.getObjectiveValue(), 1e-6);
+        assertEquals(5, assignment.size());
+        assertEquals(0, (int) assignment.get(4));
+        ilp.delete();
+    }
+
+    @Test
+    public void testRandomChurnOptimal() {
+        Random random = new Random(8374);
+        CoreAssignmentIlp<Integer> ilp = new CoreAssignmentIlp<>(TORS, CORES);
+        Map<Integer, ImmutablePair<Integer, Integer>> commodities = new HashMap<>();
+        int nextId = 0;
+        for (int round = 0; round < 40; round++) {
+
+            // Some commodities depart, some arrive
+            commodities.keySet().removeIf(id -> random.nextInt(3) == 0);
+            while (commodities.size() < 7 && random.nextBoolean()) {
+                commodities.put(nextId++, ImmutablePair.of(random.nextInt(TORS.size()), random.nextInt(TORS.size())));
+            }
+            if (commodities.isEmpty()) {
+                continue;
+            }
+
+            // Sometimes a core is unavailable
+            List<Integer> available = new ArrayList<>(CORES);
+            if (random.nextInt(4) == 0) {
+                available.remove(random.nextInt(available.size()));
+            }
+
+            Map<Integer, Integer> assignment = ilp.solve(commodities, available);
+            assertEquals(commodities.keySet(), assignment.keySet());
+            for (int idx : assignment.values()) {
+                assertTrue(idx >= 0 && idx < available.size());
+            }
+            int optimum = bruteForceMinMaxLinkLoad(commodities, available);
+            assertEquals(optimum, maxLinkLoad(commodities, assignment, available));
+            if (optimum > 0) {
+                assertEquals(optimum, ilp.getObjectiveValue(), 1e-6);
+            }
+        }
+        ilp.delete();
+    }
+
+    private static int maxLinkLoad(Map<Integer, ImmutablePair<Integer, Integer>> commodities, Map<Integer, Integer> assignment, List<Integer> cores) {
+        Map<ImmutablePair<Integer, Integer>, Integer> load = new HashMap<>();
+        int max = 0;
+        for (int id : commodities.keySet()) {
+            ImmutablePair<Integer, Integer> tors = commodities.get(id);
+            if (tors.getLeft().equals(tors.getRight())) {
+                continue;
+            }
+            int core = cores.get(assignment.get(id));
+            max = Math.max(max, load.merge(ImmutablePair.of(tors.getLeft(), core), 1, Integer::sum));
+            max = Math.max(max, load.merge(ImmutablePair.of(core, tors.getRight()), 1, Integer::sum));
+        }
+        return max;
+    }
+
+    private static int bruteForceMinMaxLinkLoad(Map<Integer, ImmutablePair<Integer, Integer>> commodities, List<Integer> cores) {
+        List<Integer> ids = new ArrayList<>(commodities.keySet());
+        int[] choice = new int[ids.size()];
+        int best = Integer.MAX_VALUE;
+        while (true) {
+            Map<Integer, Integer> assignment = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                assignment.put(ids.get(i), choice[i]);
+            }
+            best = Math.min(best, maxLinkLoad(commodities, assignment, cores));
+
+            // Next combination
+            int i = 0;
+            while (i < choice.length && ++choice[i] == cores.size()) {
+                choice[i++] = 0;
+            }
+            if (i == choice.length) {
+                return best;
+            }
+        }
+    }
+
+}
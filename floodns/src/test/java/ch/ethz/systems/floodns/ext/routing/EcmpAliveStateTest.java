@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.routing;
+
+import ch.ethz.systems.floodns.core.Link;
+import ch.ethz.systems.floodns.core.Network;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EcmpAliveStateTest {
+
+    /**
+     * Reference: depth-first search along the alive next hops.
+     */
+    private static boolean isAliveReference(Network network, EcmpRoutingTable table, int nodeId, int dstId) {
+        if (nodeId == dstId) {
+            return true;
+        }
+        for (int i = 0; i < table.getNumNextHops(nodeId, dstId); i++) {
+            int linkId = table.getNextHopLinkId(nodeId, dstId, i);
+            if (!network.isLinkFailed(linkId) && isAliveReference(network, table, network.getLink(linkId).getTo(), dstId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertSameAsReference(Network network, EcmpRoutingTable table, EcmpAliveState state, int[] nodes) {
+        for (int i : nodes) {
+            for (int j : nodes) {
+                assertEquals(isAliveReference(network, table, i, j), state.isAlive(i, j));
+                if (i != j) {
+                    int numAlive = 0;
+                    for (int h = 0; h < table.getNumNextHops(i, j); h++) {
+                        if (state.isNextHopAlive(table.getNextHopLinkId(i, j, h), j)) {
+                            numAlive++;
+                        }
+                    }
+                    assertEquals(numAlive, state.getNumAliveNextHops(i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLine() {
+        Network network = new Network(4);
+        for (int i = 0; i < 3; i++) {
+            network.addLink(i, i + 1, 10.0);
+            network.addLink(i + 1, i, 10.0);
+        }
+        int[] nodes = {0, 1, 2, 3};
+        EcmpRoutingTable table = EcmpRoutingTable.calculate(network, nodes, nodes, null);
+        EcmpAliveState state = new EcmpAliveState(network, table);
+        assertTrue(state.isAlive(0, 3));
+
+        // The failure propagates backwards from the failed link only
+        Link link = network.getPresentLinksBetween(2, 3).get(0);
+        network.failLink(link);
+        assertFalse(state.isAlive(0, 3));
+        assertFalse(state.isAlive(2, 3));
+        assertTrue(state.isAlive(3, 0));
+        assertTrue(state.isAlive(0, 2));
+        network.recoverLink(link);
+        assertTrue(state.isAlive(0, 3));
+        assertSameAsReference(network, table, state, nodes);
+    }
+
+    @Test
+    public void testAlreadyFailedAtCreation() {
+        Network network = new Network(4);
+        network.addLink(0, 1, 10.0);
+        network.addLink(0, 2, 10.0);
+        network.addLink(1, 3, 10.0);
+        network.addLink(2, 3, 10.0);
+        network.failNode(network.getNode(1));
+        int[] nodes = {0, 1, 2, 3};
+        EcmpRoutingTable table = EcmpRoutingTable.calculate(network, nodes, nodes, null);
+        EcmpAliveState state = new EcmpAliveState(network, table);
+        assertEquals(1, state.getNumAliveNextHops(0, 3));
+        network.failLink(network.getPresentLinksBetween(2, 3).get(0));
+        assertFalse(state.isAlive(0, 3));
+        network.recoverNode(network.getNode(1));
+        assertTrue(state.isAlive(0, 3));
+        assertEquals(1, state.getNumAliveNextHops(0, 3));
+        assertSameAsReference(network, table, state, nodes);
+    }
+
+    @Test
+    public void testAlreadyFailedDownstreamOfLowerId() {
+        Network network = new Network(4);
+        network.addLink(1, 3, 10.0);
+        network.addLink(0, 1, 10.0);
+        network.addLink(0, 2, 10.0);
+        network.addLink(2, 3, 10.0);
+        network.failNode(network.getNode(1));
+        int[] nodes = {0, 1, 2, 3};
+        EcmpRoutingTable table = EcmpRoutingTable.calculate(network, nodes, nodes, null);
+        EcmpAliveState state = new EcmpAliveState(network, table);
+        assertEquals(1, state.getNumAliveNextHops(0, 3));
+        assertSameAsReference(network, table, state, nodes);
+        network.failLink(network.getPresentLinksBetween(2, 3).get(0));
+        assertFalse(state.isAlive(0, 3));
+        assertEquals(0, state.getNumAliveNextHops(0, 3));
+        assertSameAsReference(network, table, state, nodes);
+    }
+
+    @Test
+    public void testRandomFailuresAndRecoveries() {
+        Random random = new Random(42);
+        for (int t = 0; t < 3; t++) {
+            Network network = new Network(40);
+            for (int i = 0; i < 40; i++) {
+                for (int j = 0; j < 40; j++) {
+                    if (i != j && random.nextDouble() < 0.08) {
+                        network.addLink(i, j, 10.0);
+                    }
+                }
+            }
+            int[] nodes = IntStream.range(0, 40).toArray();
+            EcmpRoutingTable table = EcmpRoutingTable.calculate(network, nodes, nodes, null);
+            EcmpAliveState state = new EcmpAliveState(network, table);
+            List<Link> links = new ArrayList<>(network.getPresentLinks());
+            for (int step = 0; step < 60; step++) {
+                if (random.nextInt(5) == 0) {
+                    if (random.nextBoolean()) {
+                        network.failNode(network.getNode(random.nextInt(40)));
+                    } else {
+                        network.recoverNode(network.getNode(random.nextInt(40)));
+                    }
+                } else {
+                    Link link = links.get(random.nextInt(links.size()));
+                    if (random.nextBoolean()) {
+                        network.failLink(link);
+                    } else {
+                        network.recoverLink(link);
+                    }
+                }
+                assertSameAsReference(network, table, state, nodes);
+            }
+
+            // A state created under the failures counts the same
+            assertSameAsReference(network, table, new EcmpAliveState(network, table), nodes);
+        }
+    }
+
+}
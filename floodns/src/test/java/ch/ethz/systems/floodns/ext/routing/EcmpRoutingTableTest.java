@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.routing;
+
+import ch.ethz.systems.floodns.TestNetworkCreator;
+import ch.ethz.systems.floodns.core.Link;
+import ch.ethz.systems.floodns.core.Network;
+import ch.ethz.systems.floodns.ext.graphutils.BreadthFirstSearchAlgorithm;
+import ch.ethz.systems.floodns.ext.graphutils.FloydWarshallAlgorithm;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathCache;
+import ch.ethz.systems.floodns.ext.graphutils.ShortestPathLengths;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EcmpRoutingTableTest {
+
+    /**
+     * Check the table, calculated both with and without the shortest path lengths
+     * (of either all-pairs shortest path algorithm),
+     * against the next hops determined pair by pair from the Floyd-Warshall lengths.
+     */
+    private static void assertSameAsPairwise(Network network, int[] switches, int[] destinations) {
+        int[][] shortestPathLen = new FloydWarshallAlgorithm(network).calculateShortestPaths();
+        EcmpRoutingTable searched = EcmpRoutingTable.calculate(network, switches, destinations, null);
+        EcmpRoutingTable cached = EcmpRoutingTable.calculate(
+                network, switches, destinations, ShortestPathLengths.of(new BreadthFirstSearchAlgorithm(network).calculateShortestPaths())
+        );
+        EcmpRoutingTable floydWarshall = EcmpRoutingTable.calculate(
+                network, switches, destinations, ShortestPathLengths.of(RoutingUtility.calculateShortestPathLengths(network, true))
+        );
+        for (int i : switches) {
+            for (int j : destinations) {
+                List<Integer> expected = new ArrayList<>();
+                if (i != j) {
+                    for (int v : network.getNode(i).getOutgoingConnectedToNodes()) {
+                        if (shortestPathLen[i][j] == shortestPathLen[v][j] + 1) {
+                            for (Link link : network.getPresentLinksBetween(i, v)) {
+                                expected.add(link.getLinkId());
+                            }
+                        }
+                    }
+                }
+                for (EcmpRoutingTable table : new EcmpRoutingTable[]{searched, cached, floydWarshall}) {
+                    assertEquals(expected.size(), table.getNumNextHops(i, j));
+                    for (int h = 0; h < expected.size(); h++) {
+                        assertEquals((int) expected.get(h), table.getNextHopLinkId(i, j, h));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSimpleNetworks() {
+        Network fullyConnected = TestNetworkCreator.fullyConnected(6, 10.0);
+        assertSameAsPairwise(fullyConnected, IntStream.range(0, 6).toArray(), IntStream.range(0, 6).toArray());
+        Network star = TestNetworkCreator.star(7, 3, 10.0);
+        assertSameAsPairwise(star, IntStream.range(0, 7).toArray(), new int[]{1, 4, 5});
+    }
+
+    @Test
+    public void testDirectedAndParallelLinks() {
+        Network network = new Network(5);
+        network.addLink(0, 1, 10.0);
+        network.addLink(0, 1, 10.0);
+        network.addLink(0, 2, 10.0);
+        network.addLink(1, 3, 10.0);
+        network.addLink(2, 3, 10.0);
+        EcmpRoutingTable table = EcmpRoutingTable.calculate(network, new int[]{0, 1, 2, 3, 4}, new int[]{3, 4}, null);
+        assertEquals(3, table.getNumNextHops(0, 3));
+        assertEquals(0, table.getNumNextHops(3, 3));
+        assertEquals(0, table.getNumNextHops(0, 4));
+        assertSameAsPairwise(network, new int[]{0, 1, 2, 3, 4}, new int[]{0, 3, 4});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotADestination() {
+        Network network = TestNetworkCreator.fullyConnected(3, 10.0);
+        EcmpRoutingTable.calculate(network, new int[]{0, 1, 2}, new int[]{2}, null).getNumNextHops(0, 1);
+    }
+
+    @Test
+    public void testMappedCacheEntry() throws IOException {
+        Network network = TestNetworkCreator.star(9, 4, 10.0);
+        int[] all = IntStream.range(0, 9).toArray();
+        File directory = Files.createTempDirectory("routing_cache").toFile();
+        try {
+            new ShortestPathCache(directory.getPath()).getOrCalculate(network);
+            ShortestPathLengths mapped = new ShortestPathCache(directory.getPath()).getOrCalculate(network);
+            assertTrue(mapped.isMapped());
+            EcmpRoutingTable expected = EcmpRoutingTable.calculate(network, all, all, null);
+            EcmpRoutingTable result = EcmpRoutingTable.calculate(network, all, all, mapped);
+            for (int i : all) {
+                for (int j : all) {
+                    assertEquals(expected.getNumNextHops(i, j), result.getNumNextHops(i, j));
+                    for (int h = 0; h < expected.getNumNextHops(i, j); h++) {
+                        assertEquals(expected.getNextHopLinkId(i, j, h), result.getNextHopLinkId(i, j, h));
+                    }
+                }
+            }
+        } finally {
+            for (File f : directory.listFiles()) {
+                assertTrue(f.delete());
+            }
+            assertTrue(directory.delete());
+        }
+    }
+
+    @Test
+    public void testRandomNetworks() {
+        Random random = new Random(42);
+        for (int t = 0; t < 5; t++) {
+            Network network = new Network(80);
+            for (int i = 0; i < 80; i++) {
+                for (int j = 0; j < 80; j++) {
+                    if (i != j && random.nextDouble() < 0.02 * (t + 1)) {
+                        network.addLink(i, j, 10.0);
+                    }
+                }
+            }
+            int[] destinations = IntStream.range(0, 80).filter(i -> i % 3 == 0).toArray();
+            assertSameAsPairwise(network, IntStream.range(0, 80).toArray(), destinations);
+        }
+    }
+
+}
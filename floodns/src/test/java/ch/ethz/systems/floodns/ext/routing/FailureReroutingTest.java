@@ -0,0 +1,280 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package ch.ethz.systems.floodns.ext.routing;
+
+import ch.ethz.systems.floodns.core.*;
+import ch.ethz.systems.floodns.deeplearningtraining.Job;
+import ch.ethz.systems.floodns.ext.allocator.VoidAllocator;
+import ch.ethz.systems.floodns.ext.basicsim.schedule.ConnectionStartEvent;
+import ch.ethz.systems.floodns.ext.basicsim.schedule.JobEpochScheduleEntry;
+import ch.ethz.systems.floodns.ext.basicsim.topology.FileToTopologyConverter;
+import ch.ethz.systems.floodns.ext.basicsim.topology.Topology;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+import static ch.ethz.systems.floodns.ext.basicsim.topology.TopologyTestUtility.constructTopologyFile;
+import static org.junit.Assert.*;
+
+public class FailureReroutingTest {
+
+    private static final int JOB_ID = 0;
+
+    private Topology topology;
+    private Network network;
+    private Simulator simulator;
+    private SinglePathRoutingStrategy strategy;
+    private Job job;
+
+    /**
+     * Event which records the path of the single flow of a connection.
+     */
+    private static class PathRecordEvent extends Event {
+
+        private final Connection connection;
+        private final List<AcyclicPath> paths;
+
+        PathRecordEvent(Simulator simulator, long timeFromNow, Connection connection, List<AcyclicPath> paths) {
+            super(simulator, 0, timeFromNow);
+            this.connection = connection;
+            this.paths = paths;
+        }
+
+        @Override
+        protected void trigger() {
+            paths.add(connection.getActiveFlows().iterator().next().getPath());
+        }
+
+    }
+
+    @Before
+    public void setup() throws IOException {
+
+        // Leaf-spine with ToRs 0 and 1, spines 2 and 3, and servers 4 (under 0) and 5 (under 1)
+        File topologyFile = constructTopologyFile(
+                6,
+                6,
+                "set(4, 5)",
+                "set(0, 1, 2, 3)",
+                "set(0, 1)",
+                "set(0-2,0-3,1-2,1-3,0-4,1-5)",
+                "10"
+        );
+        BufferedWriter writer = new BufferedWriter(new FileWriter(topologyFile, true));
+        writer.write("cores=set(2, 3)\n");
+        writer.close();
+        topology = FileToTopologyConverter.convert(topologyFile.getAbsolutePath());
+        assertTrue(topologyFile.delete());
+        network = topology.getNetwork();
+        simulator = new Simulator();
+        simulator.setup(network, new VoidAllocator(simulator, network), new VoidLoggerFactory(simulator));
+        useStrategy(new EcmpRoutingStrategy(simulator, topology, new Random(12345)));
+    }
+
+    private void useStrategy(SinglePathRoutingStrategy routingStrategy) {
+        strategy = routingStrategy;
+        simulator.setRoutingStrategy(strategy);
+
+        // Job of the connections, which the connection logs refer to
+        job = new Job(simulator, network, strategy, new JobEpochScheduleEntry(
+                JOB_ID, "test", "data_parallelism", 1000, 0, 0, 1, 1
+        ));
+        simulator.getJobs().put(JOB_ID, job);
+    }
+
+    private void startConnections(long timeFromNow, Connection... connections) {
+        Map<Integer, Set<Connection>> stageConnections = new HashMap<>();
+        stageConnections.put(0, new HashSet<>(Arrays.asList(connections)));
+        job.initializeEpoch(0, stageConnections);
+        for (Connection connection : connections) {
+            simulator.insertEvents(new ConnectionStartEvent(simulator, timeFromNow, connection, strategy));
+        }
+    }
+
+    private Link link(int from, int to) {
+        return network.getPresentLinksBetween(from, to).get(0);
+    }
+
+    private int spineOf(AcyclicPath path) {
+        return path.get(1).getTo();
+    }
+
+    @Test
+    public void testNetworkFailureState() {
+        Link link = link(0, 2);
+        assertTrue(network.failLink(link));
+        assertFalse(network.failLink(link));
+        assertTrue(network.isLinkFailed(link.getLinkId()));
+
+        // Failing spine 2 fails its four links, of which one was already failed
+        List<Link> failed = network.failNode(network.getNode(2));
+        assertEquals(3, failed.size());
+        assertEquals(4, network.getFailedLinks().size());
+
+        // Recovering the spine leaves the link which failed itself failed
+        List<Link> recovered = network.recoverNode(network.getNode(2));
+        assertEquals(3, recovered.size());
+        assertEquals(1, network.getFailedLinks().size());
+        assertTrue(network.isLinkFailed(link.getLinkId()));
+        assertTrue(network.recoverLink(link));
+        assertFalse(network.isLinkFailed(link.getLinkId()));
+        assertTrue(network.getFailedLinks().isEmpty());
+    }
+
+    @Test
+    public void testRoutingStateRestored() {
+        Connection connection = new Connection(simulator, network.getNode(4), network.getNode(5), 1000, JOB_ID);
+        int spine = spineOf(strategy.assignSinglePath(connection));
+        int otherSpine = spine == 2 ? 3 : 2;
+
+        // Avoid the failed uplink
+        network.failLink(link(0, spine));
+        assertEquals(otherSpine, spineOf(strategy.assignSinglePath(connection)));
+
+        // Recovery restores the original choice
+        network.recoverLink(link(0, spine));
+        assertEquals(spine, spineOf(strategy.assignSinglePath(connection)));
+
+        // Same for a failed spine
+        network.failNode(network.getNode(spine));
+        assertEquals(otherSpine, spineOf(strategy.assignSinglePath(connection)));
+        network.recoverNode(network.getNode(spine));
+        assertEquals(spine, spineOf(strategy.assignSinglePath(connection)));
+    }
+
+    @Test
+    public void testRerouteOnLinkFailure() {
+        Connection connection = new Connection(simulator, network.getNode(4), network.getNode(5), 1000, JOB_ID);
+        Connection unaffected = new Connection(simulator, network.getNode(5), network.getNode(4), 1000, JOB_ID);
+        int spine = spineOf(strategy.assignSinglePath(connection));
+        Link failedLink = link(spine, 1);
+        List<AcyclicPath> paths = new ArrayList<>();
+        List<AcyclicPath> unaffectedPaths = new ArrayList<>();
+        startConnections(10, connection, unaffected);
+        simulator.insertEvents(
+                new PathRecordEvent(simulator, 50, connection, paths),
+                new PathRecordEvent(simulator, 50, unaffected, unaffectedPaths),
+                new LinkFailureEvent(simulator, 100, failedLink),
+                new PathRecordEvent(simulator, 150, connection, paths),
+                new PathRecordEvent(simulator, 150, unaffected, unaffectedPaths),
+                new LinkRecoveryEvent(simulator, 200, failedLink),
+                new PathRecordEvent(simulator, 250, connection, paths)
+        );
+        simulator.run(300);
+
+        // Only the connection crossing the failed link is moved, and it stays after recovery
+        assertEquals(spine, spineOf(paths.get(0)));
+        assertNotEquals(spine, spineOf(paths.get(1)));
+        assertFalse(paths.get(1).contains(failedLink));
+        assertEquals(paths.get(1), paths.get(2));
+        assertEquals(unaffectedPaths.get(0), unaffectedPaths.get(1));
+        assertEquals(2, connection.getPastAndPresentFlowIds().size());
+        assertEquals(1, unaffected.getPastAndPresentFlowIds().size());
+    }
+
+    @Test
+    public void testRerouteOnNodeFailure() {
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Connection connection = new Connection(simulator, network.getNode(4 + i % 2), network.getNode(5 - i % 2), 1000, JOB_ID);
+            connections.add(connection);
+        }
+        startConnections(10, connections.toArray(new Connection[0]));
+        simulator.insertEvents(new NodeFailureEvent(simulator, 100, network.getNode(2)));
+        List<AcyclicPath> paths = new ArrayList<>();
+        for (Connection connection : connections) {
+            simulator.insertEvents(new PathRecordEvent(simulator, 150, connection, paths));
+        }
+        simulator.run(200);
+
+        // All flows avoid the failed spine
+        for (AcyclicPath path : paths) {
+            assertEquals(3, spineOf(path));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEcmpNoAlivePath() {
+        Connection connection = new Connection(simulator, network.getNode(4), network.getNode(5), 1000, JOB_ID);
+        network.failLink(link(0, 2));
+        network.failLink(link(3, 1));
+        strategy.assignSinglePath(connection);
+    }
+
+    /**
+     * Reroute a connection away from the spine its path crosses by failing the downlink
+     * of that spine, and check it is routed via the other spine until both have failed.
+     */
+    private void assertReroutedAroundDownlink() {
+        Connection connection = new Connection(simulator, network.getNode(4), network.getNode(5), 1000, JOB_ID);
+        List<AcyclicPath> paths = new ArrayList<>();
+        startConnections(10, connection);
+        simulator.insertEvents(
+                new PathRecordEvent(simulator, 50, connection, paths),
+                new PathRecordEvent(simulator, 150, connection, paths)
+        );
+        simulator.insertEvents(new Event(simulator, 0, 100) {
+            @Override
+            protected void trigger() {
+                Link downlink = link(spineOf(paths.get(0)), 1);
+                network.failLink(downlink);
+                simulator.requestRerouting(Collections.singletonList(downlink));
+            }
+        });
+        simulator.run(200);
+        int spine = spineOf(paths.get(0));
+        assertNotEquals(spine, spineOf(paths.get(1)));
+        assertFalse(paths.get(1).contains(link(spine, 1)));
+        assertEquals(2, connection.getPastAndPresentFlowIds().size());
+
+        // Without any alive path it fails loudly instead of using a failed link
+        network.failLink(link(0, spineOf(paths.get(1))));
+        try {
+            strategy.assignSinglePath(new Connection(simulator, network.getNode(4), network.getNode(5), 1000, JOB_ID));
+            fail("Expected a connection without alive path to be rejected");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testKspRerouteOnLinkFailure() {
+        useStrategy(new KspRoutingStrategy(simulator, topology, new Random(12345), 4));
+        assertReroutedAroundDownlink();
+    }
+
+    @Test
+    public void testValiantRerouteOnLinkFailure() {
+        useStrategy(new ValiantRoutingStrategy(simulator, topology, topology.getDetails().getCoreNodeIds(), new Random(12345), false));
+        assertReroutedAroundDownlink();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package ch.ethz.systems.floodns.ext.utils;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BipartiteEdgeColoringTest {
+
+    private static final int NUM_TORS = 12;
+
+    /**
+     * Check that no two commodities sharing a source or destination have the same color,
+     * and that all colors are below the number of colors.
+     */
+    private static void assertProper(BipartiteEdgeColoring coloring, Map<Long, int[]> commodities) {
+        Set<String> used = new HashSet<>();
+        for (Map.Entry<Long, int[]> entry : commodities.entrySet()) {
+            int color = coloring.getColor(entry.getKey());
+            assertTrue(color >= 0 && color < coloring.getNumColors());
+            assertTrue(used.add("src-" + entry.getValue()[0] + "-" + color));
+            assertTrue(used.add("dst-" + entry.getValue()[1] + "-" + color));
+        }
+        assertEquals(commodities.size(), coloring.size());
+    }
+
+    private static int maxDegree(Map<Long, int[]> commodities) {
+        Map<String, Integer> degree = new HashMap<>();
+        int max = 0;
+        for (int[] commodity : commodities.values()) {
+            max = Math.max(max, degree.merge("src-" + commodity[0], 1, Integer::sum));
+            max = Math.max(max, degree.merge("dst-" + commodity[1], 1, Integer::sum));
+        }
+        return max;
+    }
+
+    @Test
+    public void testSmall() {
+        BipartiteEdgeColoring coloring = new BipartiteEdgeColoring();
+        coloring.add(10, 0, 1);
+        coloring.add(11, 0, 2);
+        coloring.add(12, 3, 1);
+        coloring.add(13, 3, 2);
+        assertEquals(2, coloring.getNumColors());
+        assertNotEquals(coloring.getColor(10), coloring.getColor(11));
+        assertNotEquals(coloring.getColor(10), coloring.getColor(12));
+        assertEquals(coloring.getColor(10), coloring.getColor(13));
+        assertEquals(coloring.getColor(11), coloring.getColor(12));
+
+        Set<Long> recolored = new HashSet<>();
+        coloring.forEachRecolored(recolored::add);
+        assertEquals(new HashSet<>(Arrays.asList(10L, 11L, 12L, 13L)), recolored);
+        coloring.forEachRecolored(id -> fail());
+
+        // Two commodities of the same pair
+        coloring.add(14, 0, 1);
+        assertEquals(3, coloring.getNumColors());
+        coloring.remove(14);
+        coloring.compact();
+        assertEquals(2, coloring.getNumColors());
+        assertFalse(coloring.contains(14));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddTwice() {
+        BipartiteEdgeColoring coloring = new BipartiteEdgeColoring();
+        coloring.add(1, 0, 1);
+        coloring.add(1, 2, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveUnknown() {
+        new BipartiteEdgeColoring().remove(1);
+    }
+
+    @Test
+    public void testRandomChanges() {
+        Random random = new Random(42);
+        BipartiteEdgeColoring coloring = new BipartiteEdgeColoring();
+        Map<Long, int[]> commodities = new HashMap<>();
+        Map<Long, Integer> previousColors = new HashMap<>();
+        long nextId = 0;
+
+        for (int epoch = 0; epoch < 200; epoch++) {
+
+            // Remove and add a few commodities
+            List<Long> ids = new ArrayList<>(commodities.keySet());
+            Collections.shuffle(ids, random);
+            int numRemoved = epoch == 0 ? 0 : random.nextInt(Math.min(ids.size(), 5) + 1);
+            for (int i = 0; i < numRemoved; i++) {
+                coloring.remove(ids.get(i));
+                commodities.remove(ids.get(i));
+                previousColors.remove(ids.get(i));
+            }
+            int numAdded = epoch == 0 ? 100 : random.nextInt(6);
+            for (int i = 0; i < numAdded; i++) {
+                int[] commodity = new int[]{random.nextInt(NUM_TORS), random.nextInt(NUM_TORS)};
+                coloring.add(nextId, commodity[0], commodity[1]);
+                commodities.put(nextId, commodity);
+                nextId++;
+            }
+            coloring.compact();
+            assertProper(coloring, commodities);
+            assertEquals(maxDegree(commodities), coloring.getNumColors());
+
+            // Exactly the new commodities and those of which the color changed are reported
+            Set<Long> recolored = new HashSet<>();
+            coloring.forEachRecolored(recolored::add);
+            for (long id : commodities.keySet()) {
+                Integer previous = previousColors.put(id, coloring.getColor(id));
+                assertEquals(previous == null || previous != coloring.getColor(id), recolored.contains(id));
+            }
+            assertTrue(commodities.keySet().containsAll(recolored));
+        }
+    }
+
+    @Test
+    public void testSameNumberOfColorsAsStaticColoring() {
+        Random random = new Random(7);
+        BipartiteEdgeColoring coloring = new BipartiteEdgeColoring();
+        Map<Long, ImmutablePair<Integer, Integer>> pairs = new LinkedHashMap<>();
+        Map<Long, int[]> commodities = new HashMap<>();
+        for (long id = 0; id < 300; id++) {
+            int src = random.nextInt(NUM_TORS);
+            int dst = random.nextInt(NUM_TORS);
+            pairs.put(id, ImmutablePair.of(src, dst));
+            commodities.put(id, new int[]{src, dst});
+            coloring.add(id, src, dst);
+        }
+        assertProper(coloring, commodities);
+
+        Map<Integer, ImmutablePair<Integer, Integer>> intPairs = new LinkedHashMap<>();
+        pairs.forEach((id, pair) -> intPairs.put(id.intValue(), pair));
+        Map<Integer, Integer> staticColors = EdgeColoring.colorEdges(intPairs);
+        Set<String> used = new HashSet<>();
+        int numStaticColors = 0;
+        for (Map.Entry<Integer, Integer> entry : staticColors.entrySet()) {
+            ImmutablePair<Integer, Integer> pair = intPairs.get(entry.getKey());
+            assertTrue(used.add("src-" + pair.getLeft() + "-" + entry.getValue()));
+            assertTrue(used.add("dst-" + pair.getRight() + "-" + entry.getValue()));
+            numStaticColors = Math.max(numStaticColors, entry.getValue() + 1);
+        }
+        assertEquals(numStaticColors, coloring.getNumColors());
+    }
+
+}
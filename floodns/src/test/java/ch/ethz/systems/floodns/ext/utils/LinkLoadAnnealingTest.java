@@ -0,0 +1,119 @@
+package ch.ethz.systems.floodns.ext.utils;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LinkLoadAnnealingTest {
+
+    private static final int NUM_TORS = 4;
+    private static final int NUM_CORES = 3;
+
+    private final int[] dstTor = new int[]{0, 0, 1, 1, 2, 3};
+    private final int[] initial = new int[]{0, 1, 0, 1, 2, 0};
+    private final int[][] srcTors = new int[][]{{1, 2, 2}, {1, 3}, {0, 0, 2}, {3}, {0, 1, 1, 3}, {2}};
+
+    private LinkLoadAnnealing create() {
+        LinkLoadAnnealing annealing = new LinkLoadAnnealing(NUM_TORS, NUM_CORES);
+        for (int d = 0; d < dstTor.length; d++) {
+            assertEquals(d, annealing.addDestination(dstTor[d], initial[d]));
+            for (int t : srcTors[d]) {
+                annealing.addFlow(d, t);
+            }
+        }
+        return annealing;
+    }
+
+    /**
+     * Energy computed straight from the definition: the sum of the loads of all most loaded links.
+     */
+    private int bruteForceEnergy(int[] state) {
+        Map<String, Integer> load = new HashMap<>();
+        for (int d = 0; d < state.length; d++) {
+            int core = state[d] % NUM_CORES;
+            for (int t : srcTors[d]) {
+                load.merge("up-" + t + "-" + core, 1, Integer::sum);
+                load.merge("down-" + core + "-" + dstTor[d], 1, Integer::sum);
+            }
+        }
+        int max = Collections.max(load.values());
+        int energy = 0;
+        for (int l : load.values()) {
+            energy += l == max ? l : 0;
+        }
+        return energy;
+    }
+
+    private void permutations(int[] values, int index, List<int[]> result) {
+        if (index == values.length) {
+            result.add(values.clone());
+            return;
+        }
+        for (int i = index; i < values.length; i++) {
+            int tmp = values[index];
+            values[index] = values[i];
+            values[i] = tmp;
+            permutations(values, index + 1, result);
+            values[i] = values[index];
+            values[index] = tmp;
+        }
+    }
+
+    @Test
+    public void testEnergy() {
+        LinkLoadAnnealing annealing = create();
+        assertArrayEquals(initial, annealing.getInitialState());
+        List<int[]> all = new ArrayList<>();
+        permutations(initial.clone(), 0, all);
+        for (int[] state : all) {
+            assertEquals(bruteForceEnergy(state), annealing.calculateEnergy(state));
+        }
+    }
+
+    @Test
+    public void testFindsOptimum() {
+        List<int[]> all = new ArrayList<>();
+        permutations(initial.clone(), 0, all);
+        int optimum = Integer.MAX_VALUE;
+        for (int[] state : all) {
+            optimum = Math.min(optimum, bruteForceEnergy(state));
+        }
+        for (int replicas : new int[]{1, 4}) {
+            int[] result = create().anneal(5000, replicas, new Random(17));
+            assertEquals(optimum, bruteForceEnergy(result));
+
+            // Swaps only permute the values
+            int[] sortedResult = result.clone();
+            int[] sortedInitial = initial.clone();
+            Arrays.sort(sortedResult);
+            Arrays.sort(sortedInitial);
+            assertArrayEquals(sortedInitial, sortedResult);
+        }
+    }
+
+    @Test
+    public void testDeterministic() {
+        for (int replicas : new int[]{1, 3}) {
+            int[] first = create().anneal(LinkLoadAnnealing.defaultIterations(), replicas, new Random(5));
+            int[] second = create().anneal(LinkLoadAnnealing.defaultIterations(), replicas, new Random(5));
+            assertArrayEquals(first, second);
+            assertTrue(bruteForceEnergy(first) <= bruteForceEnergy(initial));
+        }
+    }
+
+    @Test
+    public void testMultipleLinks() {
+        LinkLoadAnnealing annealing = new LinkLoadAnnealing(2, 1);
+        annealing.setNumUplinks(0, 0, 2);
+        annealing.setNumDownlinks(0, 1, 0);
+        int d = annealing.addDestination(1, 0);
+        annealing.addFlow(d, 0);
+
+        // Two uplinks with load 1 count, the downlink does not
+        assertEquals(2, annealing.calculateEnergy(new int[]{0}));
+        assertArrayEquals(new int[]{0}, annealing.anneal(10, 1, new Random(0)));
+    }
+
+}
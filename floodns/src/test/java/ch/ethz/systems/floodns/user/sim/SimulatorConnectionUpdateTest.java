@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2019 snkas
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package ch.ethz.systems.floodns.user.sim;
+
+import ch.ethz.systems.floodns.core.*;
+import ch.ethz.systems.floodns.ext.logger.empty.VoidLoggerFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static ch.ethz.systems.floodns.PathTestUtility.createAcyclicPath;
+import static org.junit.Assert.*;
+
+public class SimulatorConnectionUpdateTest {
+
+    @Test
+    public void testLazyProgressAndFinish() {
+
+        Simulator simulator = new Simulator();
+        Network network = new Network(2);
+        network.addLink(0, 1, 10.0);
+
+        List<Long> performTimes = new ArrayList<>();
+        Aftermath aftermath = new Aftermath(simulator, network) {
+
+            Connection connA;
+            Connection connB;
+
+            @Override
+            public void perform() {
+                performTimes.add(simulator.getCurrentTime());
+                if (simulator.getCurrentTime() == 0) {
+
+                    // Two connections sharing the link equally
+                    connA = new Connection(simulator, network.getNode(0), network.getNode(1), 1000, -1);
+                    connB = new Connection(simulator, network.getNode(0), network.getNode(1), 300, -1);
+                    simulator.activateConnection(connA);
+                    simulator.activateConnection(connB);
+                    simulator.allocateFlowBandwidth(simulator.addFlowToConnection(connA, createAcyclicPath(network, "0-1")), 5);
+                    simulator.allocateFlowBandwidth(simulator.addFlowToConnection(connB, createAcyclicPath(network, "0-1")), 5);
+
+                } else if (simulator.getCurrentTime() == 20) {
+
+                    // Remainder is up-to-date in between updates
+                    assertEquals(900, connA.getRemainder(), simulator.getFlowPrecision());
+                    assertEquals(200, connB.getRemainder(), simulator.getFlowPrecision());
+                    assertEquals(40, connB.timeTillUpdateNeeded());
+
+                } else if (simulator.getCurrentTime() == 60) {
+
+                    // B finished, A gets the full link
+                    assertEquals(Connection.Status.TERMINATED, connB.getStatus());
+                    assertEquals(1, simulator.getActiveConnections().size());
+                    assertEquals(700, connA.getRemainder(), simulator.getFlowPrecision());
+                    simulator.allocateFlowBandwidth(connA.getActiveFlows().iterator().next(), 10);
+
+                } else if (simulator.getCurrentTime() == 130) {
+                    assertEquals(Connection.Status.TERMINATED, connA.getStatus());
+                    assertEquals(0, simulator.getActiveConnections().size());
+                }
+            }
+
+        };
+
+        VoidLoggerFactory loggerFactory = new VoidLoggerFactory(simulator);
+        loggerFactory.setConnectionInfoSavingEnabled(false); // Connections are not part of a job
+        simulator.setup(network, aftermath, loggerFactory);
+        simulator.insertEvents(
+                new Event(simulator, 0, 0) {
+                    @Override
+                    protected void trigger() {
+
+                    }
+                },
+                new Event(simulator, 0, 20) {
+                    @Override
+                    protected void trigger() {
+
+                    }
+                }
+        );
+        simulator.run(1000);
+
+        assertEquals(Arrays.asList(0L, 20L, 60L, 130L, 1000L), performTimes);
+
+    }
+
+}
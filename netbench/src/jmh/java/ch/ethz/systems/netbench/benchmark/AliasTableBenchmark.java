@@ -0,0 +1,165 @@
+package ch.ethz.systems.netbench.benchmark;
+
+import ch.ethz.systems.netbench.ext.poissontraffic.AliasTable;
+import ch.ethz.systems.netbench.ext.poissontraffic.RandomCollection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Time per draw of a weighted random element (e.g. a pair in the traffic generation), with
+ * the alias method (constant time) and with the tree of cumulative weights (logarithmic time)
+ * of the random collection. The weights are drawn uniformly at random and normalized.
+ * <p>
+ * The *Throughput variants report the same draws as samples per second. Every benchmark
+ * also reports the heap footprint per outcome of the alias table and of the tree
+ * of the random collection (aux counters aliasTableBytesPerOutcome and
+ * treeCollectionBytesPerOutcome), measured as the growth of the used heap when
+ * building many copies of them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasTableBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public int numOutcomes;
+
+    private double[] weights;
+    private Random random;
+    private AliasTable aliasTable;
+    private RandomCollection<Integer> aliasCollection;
+    private RandomCollection<Integer> treeCollection;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random weightRandom = new Random(1234);
+        weights = new double[numOutcomes];
+        double total = 0;
+        for (int i = 0; i < numOutcomes; i++) {
+            weights[i] = 0.01 + weightRandom.nextDouble();
+            total += weights[i];
+        }
+        for (int i = 0; i < numOutcomes; i++) {
+            weights[i] /= total;
+        }
+        random = new Random(5678);
+        aliasTable = new AliasTable(weights, numOutcomes);
+        aliasCollection = createCollection(true);
+        treeCollection = createCollection(false);
+    }
+
+    private RandomCollection<Integer> createCollection(boolean aliasMethod) {
+        RandomCollection<Integer> collection = new RandomCollection<>(random, aliasMethod);
+        for (int i = 0; i < numOutcomes; i++) {
+            collection.add(weights[i], i);
+        }
+        return collection;
+    }
+
+    /**
+     * Heap footprint per outcome, reported alongside the draw time.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+
+        // Outcomes built in total per measurement, such that the heap growth dwarfs its noise
+        private static final int TOTAL_OUTCOMES = 1 << 22;
+
+        private double aliasTableBytes;
+        private double treeCollectionBytes;
+
+        @Setup(Level.Trial)
+        public void measure(AliasTableBenchmark benchmark) {
+            int copies = Math.max(1, TOTAL_OUTCOMES / benchmark.numOutcomes);
+            aliasTableBytes = retainedBytes(() -> new AliasTable(benchmark.weights, benchmark.numOutcomes), copies)
+                    / benchmark.numOutcomes;
+            treeCollectionBytes = retainedBytes(() -> benchmark.createCollection(false), copies)
+                    / benchmark.numOutcomes;
+        }
+
+        public double aliasTableBytesPerOutcome() {
+            return aliasTableBytes;
+        }
+
+        public double treeCollectionBytesPerOutcome() {
+            return treeCollectionBytes;
+        }
+
+        /**
+         * Determine the average growth of the used heap by retaining the given number
+         * of instances created by the supplier.
+         *
+         * @param supplier  Instance creation
+         * @param copies    Number of instances
+         *
+         * @return Retained bytes per instance
+         */
+        private static double retainedBytes(Supplier<Object> supplier, int copies) {
+            Object[] retained = new Object[copies];
+            long before = usedHeap();
+            for (int i = 0; i < copies; i++) {
+                retained[i] = supplier.get();
+            }
+            long after = usedHeap();
+            if (retained[copies - 1] == null) {
+                throw new IllegalStateException("Instance was not retained.");
+            }
+            return (double) (after - before) / copies;
+        }
+
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            long used = Long.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                System.gc();
+                used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+            }
+            return used;
+        }
+
+    }
+
+    @Benchmark
+    public int aliasTable(Footprint footprint) {
+        return aliasTable.sample(random);
+    }
+
+    @Benchmark
+    public Integer aliasCollection(Footprint footprint) {
+        return aliasCollection.next();
+    }
+
+    @Benchmark
+    public Integer treeCollection(Footprint footprint) {
+        return treeCollection.next();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int aliasTableThroughput(Footprint footprint) {
+        return aliasTable.sample(random);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Integer aliasCollectionThroughput(Footprint footprint) {
+        return aliasCollection.next();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Integer treeCollectionThroughput(Footprint footprint) {
+        return treeCollection.next();
+    }
+
+}
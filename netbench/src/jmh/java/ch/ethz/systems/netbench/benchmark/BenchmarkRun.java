@@ -0,0 +1,77 @@
+package ch.ethz.systems.netbench.benchmark;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Simulator set up for a benchmark, with its run folder in a temporary directory
+ * which is deleted again when it is closed.
+ * <p>
+ * The console output of the simulator (e.g. the progress of every run) is discarded
+ * for as long as it is open, such that it does not drown the benchmark output.
+ */
+class BenchmarkRun implements Closeable {
+
+    private final File runDirectory;
+    private final NBProperties configuration;
+    private final PrintStream originalOut;
+
+    /**
+     * Set up the simulator.
+     *
+     * @param properties    Run properties (besides the run folder)
+     */
+    BenchmarkRun(Map<String, String> properties) throws IOException {
+        this.runDirectory = Files.createTempDirectory("netbench_benchmark").toFile();
+        Map<String, String> allProperties = new LinkedHashMap<>();
+        allProperties.put("run_folder_base_dir", runDirectory.getAbsolutePath());
+        allProperties.put("run_folder_name", "run");
+        allProperties.put("progress_details", "false");
+        allProperties.putAll(properties);
+        File propertiesFile = new File(runDirectory, "run.properties");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(propertiesFile))) {
+            for (Map.Entry<String, String> entry : allProperties.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+        this.configuration = new NBProperties(
+                propertiesFile.getAbsolutePath(),
+                BaseAllowedProperties.LOG,
+                BaseAllowedProperties.PROPERTIES_RUN,
+                BaseAllowedProperties.EXTENSION,
+                BaseAllowedProperties.EXPERIMENTAL,
+                BaseAllowedProperties.GREEDY_FLOW_SCHEDULING
+        );
+        this.originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                // Discarded
+            }
+        }));
+        Simulator.setup(1234, configuration);
+    }
+
+    NBProperties getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Simulator.reset(false);
+        System.setOut(originalOut);
+        try (Stream<Path> paths = Files.walk(runDirectory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package ch.ethz.systems.netbench.benchmark;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.utility.Constants;
+import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
+import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per packet of forwarding through the ECMP switches of a synthetic network, from
+ * the source server to the destination server over the path assigned to its commodity.
+ * <p>
+ * The traffic is a random permutation among the servers in which every server sends one
+ * flow to a server under another ToR. Every operation injects the same amount of packets
+ * for every flow at once and runs the simulator until all of them have been delivered
+ * (or dropped), such that they also queue wherever paths collide.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EcmpSwitchBenchmark {
+
+    private static final int JOB_ID = 0;
+    private static final int PACKETS_PER_OPERATION = 8192;
+    private static final long PACKET_DATA_SIZE_BYTE = 1380;
+    private static final long DRAIN_TIME_NS = 20_000_000L; // Enough to serialize all packets of an operation over one link
+
+    @Param({"fat_tree_k8", "leaf_spine_16x8"})
+    public String scenario;
+
+    @Param({"false", "true"})
+    public boolean packetPooling;
+
+    private SyntheticNetwork network;
+    private List<Flow> flows;
+    private List<Long> flowIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("packet_pooling", String.valueOf(packetPooling));
+        network = new SyntheticNetwork(scenario, properties);
+        Random random = new Random(42);
+
+        // Permutation traffic between servers under distinct ToRs
+        List<Integer> servers = network.getServers();
+        List<Integer> destinations = new ArrayList<>(servers);
+        boolean valid;
+        do {
+            Collections.shuffle(destinations, random);
+            valid = true;
+            for (int i = 0; i < servers.size() && valid; i++) {
+                valid = network.drawPath(servers.get(i), destinations.get(i), random).size() > 3;
+            }
+        } while (!valid);
+
+        // Flows of a single job, which holds the paths of the commodities
+        Job job = new Job(JOB_ID, "benchmark", Constants.DistributedTraining.DATA_PARALLEL, 0, 0, 0, 1, 1);
+        Simulator.registerJob(job);
+        flows = new ArrayList<>();
+        flowIds = new ArrayList<>();
+        for (int i = 0; i < servers.size(); i++) {
+            int src = servers.get(i);
+            int dst = destinations.get(i);
+            Flow flow = new Flow(src, dst, Long.MAX_VALUE, JOB_ID);
+            long flowId = Simulator.getNextFlowId();
+            Simulator.getFlowIdToFlow().put(flowId, flow);
+            job.setCommodityPath(ImmutablePair.of(src, dst), network.drawPath(src, dst, random));
+            flows.add(flow);
+            flowIds.add(flowId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (long flowId : flowIds) {
+            Simulator.getFlowIdToFlow().remove(flowId);
+        }
+        Simulator.getJobs().remove(JOB_ID);
+        network.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS_PER_OPERATION)
+    public long forward() {
+        for (int p = 0; p < PACKETS_PER_OPERATION; p++) {
+            int i = p % flows.size();
+            Flow flow = flows.get(i);
+            network.getTransportLayer(flow.getSrcId()).send(FullExtTcpPacket.obtain(
+                    flowIds.get(i), PACKET_DATA_SIZE_BYTE, flow.getSrcId(), flow.getDstId(), 64, 0, 0,
+                    p * PACKET_DATA_SIZE_BYTE, 0, false, false, false, false, false, false, false, false, false, 0, 0
+            ));
+        }
+        Simulator.runNs(Simulator.getCurrentTime() + DRAIN_TIME_NS);
+        return network.getNumPacketsReceived();
+    }
+
+}
@@ -0,0 +1,106 @@
+package ch.ethz.systems.netbench.benchmark;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the event loop of the simulator (Simulator.runNs) using the "hold" model:
+ * a fixed amount of pending events, each of which re-registers itself at a later time
+ * when it is triggered. The increments are the same packet-scale mix as in the
+ * event queue benchmark, with a small fraction of far-future ones (e.g. time-outs).
+ * <p>
+ * Every operation runs the simulator for a window of simulated time in which about
+ * {@link #EVENTS_PER_WINDOW} events are triggered; the exact amount is reported as
+ * the "events" counter (events/s).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLoopBenchmark {
+
+    private static final long EVENTS_PER_WINDOW = 1_000_000;
+    private static final long MEAN_INCREMENT_NS = 21_000;
+
+    @Param({"heap", "ladder"})
+    public String eventQueue;
+
+    @Param({"1000", "100000"})
+    public int pendingEvents;
+
+    private BenchmarkRun run;
+    private long windowNs;
+    private final long[] numTriggered = new long[1];
+
+    private static class HoldEvent extends Event {
+
+        private final Random random;
+        private final long[] numTriggered;
+
+        HoldEvent(Random random, long[] numTriggered) {
+            super(increment(random));
+            this.random = random;
+            this.numTriggered = numTriggered;
+        }
+
+        @Override
+        public void trigger() {
+            numTriggered[0]++;
+            reinitialize(increment(random));
+            Simulator.registerEvent(this);
+        }
+
+    }
+
+    /**
+     * Number of events triggered, reported as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long events;
+
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("event_queue", eventQueue);
+        run = new BenchmarkRun(properties);
+        Random random = new Random(1234);
+        for (int i = 0; i < pendingEvents; i++) {
+            Simulator.registerEvent(new HoldEvent(random, numTriggered));
+        }
+        windowNs = EVENTS_PER_WINDOW * MEAN_INCREMENT_NS / pendingEvents;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        run.close();
+    }
+
+    private static long increment(Random random) {
+        if (random.nextInt(100) == 0) {
+            return 1_000_000 + random.nextInt(1_000_000);
+        }
+        return 1 + random.nextInt(12_000);
+    }
+
+    @Benchmark
+    public void runWindow(Counters counters) {
+        long before = numTriggered[0];
+        Simulator.runNs(Simulator.getCurrentTime() + windowNs);
+        counters.events += numTriggered[0] - before;
+    }
+
+}
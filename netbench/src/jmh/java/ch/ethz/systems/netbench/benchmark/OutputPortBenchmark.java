@@ -0,0 +1,116 @@
+package ch.ethz.systems.netbench.benchmark;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.network.OutputPort;
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per packet of an ECN tail-drop output port: enqueue, dispatch over the link and
+ * arrival at the target device, which hands it to its server. The port is the one from
+ * the ToR to its server in the smallest leaf-spine (leaf_spine_1x1).
+ * <p>
+ * The packets arrive in bursts of the given size, spaced such that the port is exactly
+ * fully loaded: the queue builds up to the burst size and is drained before the next burst.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputPortBenchmark {
+
+    private static final int PACKETS_PER_OPERATION = 1600;
+    private static final long PACKET_DATA_SIZE_BYTE = 1380;
+
+    @Param({"1", "16", "100"})
+    public int burst;
+
+    @Param({"false", "true"})
+    public boolean packetPooling;
+
+    private SyntheticNetwork network;
+    private BurstArrival arrival;
+    private long burstIntervalNs;
+
+    private class BurstArrival extends Event {
+
+        private final OutputPort port;
+        private final int sourceId;
+        private final int destinationId;
+        private int remainingBursts;
+
+        BurstArrival(OutputPort port) {
+            super(0);
+            this.port = port;
+            this.sourceId = port.getOwnId();
+            this.destinationId = port.getTargetId();
+        }
+
+        void start(int numBursts) {
+            remainingBursts = numBursts;
+            reinitialize(0);
+            Simulator.registerEvent(this);
+        }
+
+        @Override
+        public void trigger() {
+            for (int i = 0; i < burst; i++) {
+                port.enqueue(createPacket(sourceId, destinationId));
+            }
+            remainingBursts--;
+            if (remainingBursts > 0) {
+                reinitialize(burstIntervalNs);
+                Simulator.registerEvent(this);
+            }
+        }
+
+    }
+
+    private static Packet createPacket(int sourceId, int destinationId) {
+        return FullExtTcpPacket.obtain(
+                0, PACKET_DATA_SIZE_BYTE, sourceId, destinationId, 64, 0, 0, 0, 0,
+                false, false, false, false, false, false, false, false, false, 0, 0
+        );
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (PACKETS_PER_OPERATION % burst != 0) {
+            throw new IllegalArgumentException("Burst size must divide " + PACKETS_PER_OPERATION + ", but is " + burst + ".");
+        }
+        Map<String, String> properties = new HashMap<>();
+        properties.put("packet_pooling", String.valueOf(packetPooling));
+        network = new SyntheticNetwork("leaf_spine_1x1", properties);
+        int server = network.getServers().get(0);
+        OutputPort port = network.getNetworkDevice(0).getTargetOuputPort(server);
+        Packet packet = createPacket(0, server);
+        long packetSizeBit = packet.getSizeBit();
+        packet.release();
+        burstIntervalNs = (burst * packetSizeBit + SyntheticNetwork.LINK_BANDWIDTH_BIT_PER_NS - 1) / SyntheticNetwork.LINK_BANDWIDTH_BIT_PER_NS;
+        arrival = new BurstArrival(port);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        network.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PACKETS_PER_OPERATION)
+    public long enqueueAndDispatch() {
+        int numBursts = PACKETS_PER_OPERATION / burst;
+        arrival.start(numBursts);
+        Simulator.runNs(Simulator.getCurrentTime() + (numBursts + 1) * burstIntervalNs + SyntheticNetwork.LINK_DELAY_NS);
+        return network.getNumPacketsReceived();
+    }
+
+}
@@ -0,0 +1,265 @@
+package ch.ethz.systems.netbench.benchmark;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.core.network.Socket;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.infrastructure.BaseInitializer;
+import ch.ethz.systems.netbench.core.run.infrastructure.TransportLayerGenerator;
+import ch.ethz.systems.netbench.ext.basic.EcnTailDropOutputPortGenerator;
+import ch.ethz.systems.netbench.ext.basic.PerfectSimpleLinkGenerator;
+import ch.ethz.systems.netbench.ext.ecmp.EcmpSwitchGenerator;
+import ch.ethz.systems.netbench.ext.flowlet.IdentityFlowletIntermediaryGenerator;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Reproducible synthetic network for the benchmarks, built from a generated topology file
+ * through the same infrastructure creation as a normal run: ECMP switches, ECN tail-drop
+ * output ports and perfect links. The servers have a sink transport layer which consumes
+ * every packet delivered to them, such that the packets can be injected without sockets.
+ * <p>
+ * Scenarios:
+ * <ul>
+ *     <li><b>fat_tree_k{k}:</b> three-tier k-ary fat-tree (k pods of k/2 ToRs and k/2 aggregation
+ *     switches, (k/2)^2 cores, k/2 servers per ToR);</li>
+ *     <li><b>leaf_spine_{l}x{s}:</b> two-tier leaf-spine of l ToRs and s spines (cores), with s servers
+ *     per ToR.</li>
+ * </ul>
+ * The simulator is set up by the constructor and reset by {@link #close()}.
+ */
+class SyntheticNetwork implements Closeable {
+
+    static final long LINK_DELAY_NS = 20;
+    static final long LINK_BANDWIDTH_BIT_PER_NS = 10;
+    static final long MAX_QUEUE_SIZE_BYTES = 150000;
+    static final long ECN_THRESHOLD_K_BYTES = 30000;
+
+    private final File topologyFile;
+    private final BenchmarkRun run;
+    private final int podSize;          // ToRs per pod (fat-tree), 0 for a leaf-spine
+    private final List<Integer> tors;
+    private final List<Integer> aggregations;
+    private final List<Integer> cores;
+    private final List<Integer> servers;
+    private final int serversPerTor;
+    private final Map<Integer, NetworkDevice> idToNetworkDevice;
+    private final Map<Integer, SinkTransportLayer> idToTransportLayer;
+
+    /**
+     * Generate the topology, set up the simulator and create the infrastructure.
+     *
+     * @param scenario              Scenario name (e.g. fat_tree_k8 or leaf_spine_16x8)
+     * @param extraProperties       Additional run properties (e.g. packet_pooling=true)
+     */
+    SyntheticNetwork(String scenario, Map<String, String> extraProperties) throws IOException {
+        this.tors = new ArrayList<>();
+        this.aggregations = new ArrayList<>();
+        this.cores = new ArrayList<>();
+        this.servers = new ArrayList<>();
+
+        // Structure of the scenario
+        List<int[]> links = new ArrayList<>();
+        if (scenario.startsWith("fat_tree_k")) {
+            int k = Integer.parseInt(scenario.substring("fat_tree_k".length()));
+            if (k < 2 || k % 2 != 0) {
+                throw new IllegalArgumentException("Fat-tree arity must be even: " + scenario);
+            }
+            int half = k / 2;
+            this.podSize = half;
+            this.serversPerTor = half;
+            int numTors = k * half;
+            int numCores = half * half;
+            addRange(tors, 0, numTors);
+            addRange(aggregations, numTors, numTors);
+            addRange(cores, 2 * numTors, numCores);
+            addRange(servers, 2 * numTors + numCores, numTors * half);
+            for (int pod = 0; pod < k; pod++) {
+                for (int i = 0; i < half; i++) {
+                    for (int j = 0; j < half; j++) {
+                        links.add(new int[]{tors.get(pod * half + i), aggregations.get(pod * half + j)});
+                    }
+                }
+                for (int j = 0; j < half; j++) {
+                    for (int m = 0; m < half; m++) {
+                        links.add(new int[]{aggregations.get(pod * half + j), cores.get(j * half + m)});
+                    }
+                }
+            }
+        } else if (scenario.startsWith("leaf_spine_")) {
+            String[] spl = scenario.substring("leaf_spine_".length()).split("x");
+            int numTors = Integer.parseInt(spl[0]);
+            int numCores = Integer.parseInt(spl[1]);
+            this.podSize = 0;
+            this.serversPerTor = numCores;
+            addRange(tors, 0, numTors);
+            addRange(cores, numTors, numCores);
+            addRange(servers, numTors + numCores, numTors * numCores);
+            for (int tor : tors) {
+                for (int core : cores) {
+                    links.add(new int[]{tor, core});
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+        for (int i = 0; i < servers.size(); i++) {
+            links.add(new int[]{tors.get(i / serversPerTor), servers.get(i)});
+        }
+
+        // Topology file and simulator
+        this.topologyFile = File.createTempFile("synthetic", ".topology");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(topologyFile))) {
+            writer.write("# Synthetic " + scenario + "\n");
+            writer.write("|V|=" + (tors.size() + aggregations.size() + cores.size() + servers.size()) + "\n");
+            writer.write("|E|=" + (2 * links.size()) + "\n");
+            writer.write("ToRs=" + toSet(tors) + "\n");
+            if (!aggregations.isEmpty()) {
+                writer.write("Aggregation=" + toSet(aggregations) + "\n");
+            }
+            writer.write("Cores=" + toSet(cores) + "\n");
+            writer.write("Servers=" + toSet(servers) + "\n\n");
+            for (int[] link : links) {
+                writer.write(link[0] + " " + link[1] + "\n");
+                writer.write(link[1] + " " + link[0] + "\n");
+            }
+        }
+        Map<String, String> properties = new HashMap<>(extraProperties);
+        properties.put("scenario_topology_file", topologyFile.getAbsolutePath());
+        properties.put("routing_scheme", "ecmp");
+        this.run = new BenchmarkRun(properties);
+        NBProperties configuration = run.getConfiguration();
+
+        // Infrastructure
+        int numNodes = tors.size() + aggregations.size() + cores.size() + servers.size();
+        this.idToTransportLayer = new HashMap<>();
+        BaseInitializer initializer = BaseInitializer.init();
+        initializer.extend(
+                new EcnTailDropOutputPortGenerator(MAX_QUEUE_SIZE_BYTES, ECN_THRESHOLD_K_BYTES, configuration),
+                new EcmpSwitchGenerator(new IdentityFlowletIntermediaryGenerator(configuration), numNodes, configuration),
+                new PerfectSimpleLinkGenerator(LINK_DELAY_NS, LINK_BANDWIDTH_BIT_PER_NS),
+                new TransportLayerGenerator(configuration) {
+                    @Override
+                    public TransportLayer generate(int identifier) {
+                        SinkTransportLayer transportLayer = new SinkTransportLayer(identifier, configuration);
+                        idToTransportLayer.put(identifier, transportLayer);
+                        return transportLayer;
+                    }
+                }
+        );
+        this.idToNetworkDevice = initializer.createInfrastructure(configuration);
+        initializer.finalization();
+        Simulator.setIdToNetworkDevice(idToNetworkDevice);
+
+    }
+
+    private static void addRange(List<Integer> ids, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            ids.add(i);
+        }
+    }
+
+    private static String toSet(List<Integer> ids) {
+        StringBuilder builder = new StringBuilder("set(");
+        for (int i = 0; i < ids.size(); i++) {
+            builder.append(i == 0 ? "" : ",").append(ids.get(i));
+        }
+        return builder.append(")").toString();
+    }
+
+    /**
+     * Draw a shortest path between two servers, choosing uniformly at random among the
+     * equal-cost next hops (as ECMP would).
+     *
+     * @param srcId     Source server identifier
+     * @param dstId     Destination server identifier
+     * @param random    Random number generator
+     *
+     * @return Device identifiers from source to destination
+     */
+    List<Integer> drawPath(int srcId, int dstId, Random random) {
+        int srcTorIndex = (srcId - servers.get(0)) / serversPerTor;
+        int dstTorIndex = (dstId - servers.get(0)) / serversPerTor;
+        List<Integer> path = new ArrayList<>();
+        path.add(srcId);
+        path.add(tors.get(srcTorIndex));
+        if (srcTorIndex != dstTorIndex) {
+            if (podSize == 0) {
+                path.add(cores.get(random.nextInt(cores.size())));
+            } else {
+                int srcPod = srcTorIndex / podSize;
+                int dstPod = dstTorIndex / podSize;
+                int j = random.nextInt(podSize);
+                path.add(aggregations.get(srcPod * podSize + j));
+                if (srcPod != dstPod) {
+                    path.add(cores.get(j * podSize + random.nextInt(podSize)));
+                    path.add(aggregations.get(dstPod * podSize + j));
+                }
+            }
+            path.add(tors.get(dstTorIndex));
+        }
+        path.add(dstId);
+        return path;
+    }
+
+    List<Integer> getServers() {
+        return servers;
+    }
+
+    NetworkDevice getNetworkDevice(int id) {
+        return idToNetworkDevice.get(id);
+    }
+
+    SinkTransportLayer getTransportLayer(int id) {
+        return idToTransportLayer.get(id);
+    }
+
+    /**
+     * Number of packets consumed by all servers so far.
+     *
+     * @return Number of packets received
+     */
+    long getNumPacketsReceived() {
+        long total = 0;
+        for (SinkTransportLayer transportLayer : idToTransportLayer.values()) {
+            total += transportLayer.numPacketsReceived;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        run.close();
+        if (!topologyFile.delete()) {
+            throw new IOException("Could not delete " + topologyFile);
+        }
+    }
+
+    /**
+     * Transport layer which consumes all packets it receives.
+     */
+    static class SinkTransportLayer extends TransportLayer {
+
+        private long numPacketsReceived;
+
+        SinkTransportLayer(int identifier, NBProperties configuration) {
+            super(identifier, configuration);
+        }
+
+        @Override
+        public void receive(Packet genericPacket) {
+            numPacketsReceived++;
+            genericPacket.release();
+        }
+
+        @Override
+        protected Socket createSocket(long flowId, int destinationId, long flowSizeByte, long estimatedFlowSizeByte, int jobId) {
+            throw new UnsupportedOperationException("The sink transport layer does not have sockets.");
+        }
+
+    }
+
+}
@@ -0,0 +1,282 @@
+package ch.ethz.systems.netbench.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Context of a single simulation run, which holds all of its state.
+ * <p>
+ * The simulator, its logger and the extensions offer their services statically,
+ * but keep the state of the run in {@link Slot slots} of the context of the current
+ * thread. This allows several runs to execute concurrently within one JVM (see
+ * {@link ch.ethz.systems.netbench.core.run.sweep.SweepRunner}): every run is executed
+ * by a thread which is {@link #bind() bound} to its own context. Threads which are
+ * not bound (e.g. a standalone run or a test) all use the default context, which then
+ * behaves exactly like static state.
+ * <p>
+ * Work which a run divides over other threads has to be executed in the
+ * {@link #getForkJoinPool() fork-join pool} of its context, of which the workers are
+ * bound to the context as well. Immutable objects which only depend on the input
+ * (e.g. the parsed topology and its routing tables) are {@link #share(Object, Supplier) shared}
+ * by all contexts created with the same {@link SharedObjects}.
+ */
+public final class RunContext {
+
+    // Context of all threads which are not bound
+    private static final RunContext DEFAULT = new RunContext(new SharedObjects(), 0);
+
+    private static final ThreadLocal<RunContext> boundContext = new ThreadLocal<>();
+    private static final AtomicInteger numBoundThreads = new AtomicInteger();
+    private static final AtomicInteger numSlots = new AtomicInteger();
+
+    private final SharedObjects sharedObjects;
+    private final int parallelism;
+
+    // Slot values by slot index (replaced as a whole when a slot is assigned)
+    private volatile Object[] values;
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * Create the context of a run.
+     *
+     * @param sharedObjects     Objects shared with the other runs (e.g. of the same sweep)
+     * @param parallelism       Number of workers of the fork-join pool of the run
+     */
+    public RunContext(SharedObjects sharedObjects, int parallelism) {
+        this.sharedObjects = sharedObjects;
+        this.parallelism = parallelism;
+        this.values = new Object[0];
+    }
+
+    /**
+     * Retrieve the context of the current thread.
+     *
+     * @return Context the thread is bound to, else the default context
+     */
+    public static RunContext current() {
+        if (numBoundThreads.get() == 0) {
+            return DEFAULT;
+        }
+        RunContext context = boundContext.get();
+        return context == null ? DEFAULT : context;
+    }
+
+    /**
+     * Bind the current thread to this context, until it is {@link #unbind() unbound}.
+     */
+    public void bind() {
+        if (boundContext.get() != null) {
+            throw new IllegalStateException("Thread " + Thread.currentThread().getName() + " is already bound to a run context.");
+        }
+        boundContext.set(this);
+        numBoundThreads.incrementAndGet();
+    }
+
+    /**
+     * Unbind the current thread from this context, such that it uses the default context again.
+     */
+    public void unbind() {
+        if (boundContext.get() != this) {
+            throw new IllegalStateException("Thread " + Thread.currentThread().getName() + " is not bound to this run context.");
+        }
+        boundContext.remove();
+        numBoundThreads.decrementAndGet();
+    }
+
+    /**
+     * Create a slot of run state, of which every context has its own value.
+     *
+     * @param initial   Creation of the initial value (upon its first retrieval)
+     * @param <T>       Type of value
+     *
+     * @return Slot
+     */
+    public static <T> Slot<T> slot(Supplier<? extends T> initial) {
+        return new Slot<>(numSlots.getAndIncrement(), initial);
+    }
+
+    /**
+     * Create a slot of run state, of which the value is null until it is assigned.
+     *
+     * @param <T>   Type of value
+     *
+     * @return Slot
+     */
+    public static <T> Slot<T> slot() {
+        return slot(null);
+    }
+
+    /**
+     * Retrieve the value of a slot in this context.
+     *
+     * @param slot  Slot
+     * @param <T>   Type of value
+     *
+     * @return Value (created if it did not exist yet)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Slot<T> slot) {
+        Object[] current = values;
+        Object value = slot.index < current.length ? current[slot.index] : null;
+        if (value == null && slot.initial != null) {
+            value = initialize(slot);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Assign the value of a slot in this context.
+     *
+     * @param slot  Slot
+     * @param value Value
+     * @param <T>   Type of value
+     */
+    public synchronized <T> void set(Slot<T> slot, T value) {
+        Object[] updated = Arrays.copyOf(values, Math.max(values.length, slot.index + 1));
+        updated[slot.index] = value;
+        values = updated;
+    }
+
+    private synchronized Object initialize(Slot<?> slot) {
+        Object[] current = values;
+        if (slot.index < current.length && current[slot.index] != null) {
+            return current[slot.index];
+        }
+        Object value = slot.initial.get();
+        Object[] updated = Arrays.copyOf(values, Math.max(values.length, slot.index + 1));
+        updated[slot.index] = value;
+        values = updated;
+        return value;
+    }
+
+    /**
+     * Retrieve an object shared by the runs, creating it if no run did so yet.
+     * Concurrent runs which request the same object wait for its creation by one of them.
+     * Shared objects must never be modified.
+     *
+     * @param key       Key which identifies the content of the object (e.g. the hash of the input)
+     * @param creation  Creation of the object
+     * @param <T>       Type of object
+     *
+     * @return Shared object
+     */
+    public <T> T share(Object key, Supplier<T> creation) {
+        return sharedObjects.get(key, creation);
+    }
+
+    /**
+     * Retrieve the pool in which the run has to execute the work it divides over
+     * multiple threads, such that everything the workers do is attributed to the run.
+     *
+     * @return Fork-join pool of which the workers are bound to this context
+     *         (the common pool for the default context)
+     */
+    public synchronized ForkJoinPool getForkJoinPool() {
+        if (this == DEFAULT) {
+            return ForkJoinPool.commonPool();
+        }
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(parallelism, pool -> new Worker(pool, this), null, false);
+        }
+        return forkJoinPool;
+    }
+
+    /**
+     * Release the resources of the run: its fork-join pool and the values of all slots.
+     */
+    public synchronized void close() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+        values = new Object[0];
+    }
+
+    /**
+     * Run state of which every context has its own value.
+     *
+     * @param <T> Type of value
+     */
+    public static final class Slot<T> {
+
+        private final int index;
+        private final Supplier<? extends T> initial;
+
+        private Slot(int index, Supplier<? extends T> initial) {
+            this.index = index;
+            this.initial = initial;
+        }
+
+    }
+
+    /**
+     * Objects shared by multiple runs, each created only once.
+     */
+    public static final class SharedObjects {
+
+        private final ConcurrentMap<Object, FutureTask<Object>> objects = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private <T> T get(Object key, Supplier<T> creation) {
+            FutureTask<Object> task = objects.get(key);
+            if (task == null) {
+                FutureTask<Object> created = new FutureTask<>(creation::get);
+                task = objects.putIfAbsent(key, created);
+                if (task == null) {
+                    task = created;
+                    created.run();
+                }
+            }
+            try {
+                return (T) task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for shared object " + key + ".", e);
+            } catch (ExecutionException e) {
+                // A failed creation is not kept, such that it is attempted again
+                objects.remove(key, task);
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException("Creation of shared object " + key + " failed.", e.getCause());
+            }
+        }
+
+    }
+
+    /**
+     * Worker of the fork-join pool of a run, bound to its context.
+     */
+    private static class Worker extends ForkJoinWorkerThread {
+
+        private final RunContext context;
+
+        Worker(ForkJoinPool pool, RunContext context) {
+            super(pool);
+            this.context = context;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            context.bind();
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            context.unbind();
+            super.onTermination(exception);
+        }
+
+    }
+
+}
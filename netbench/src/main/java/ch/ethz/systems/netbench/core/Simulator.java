@@ -1,25 +1,31 @@
 package ch.ethz.systems.netbench.core;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
+import ch.ethz.systems.netbench.core.eventqueue.EventQueue;
+import ch.ethz.systems.netbench.core.eventqueue.HeapEventQueue;
+import ch.ethz.systems.netbench.core.eventqueue.LadderEventQueue;
 import ch.ethz.systems.netbench.core.log.FlowLogger;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.pool.Pooling;
+import ch.ethz.systems.netbench.core.profiling.EventProfiler;
 import ch.ethz.systems.netbench.core.random.RandomManager;
 import ch.ethz.systems.netbench.core.run.routing.remote.RemoteRoutingController;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.state.SimulatorStateSaver;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.deeplearningtraining.routing.CentralizedController;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import org.json.simple.JSONObject;
 
-import java.io.FileOutputStream;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,32 +38,46 @@ import java.util.stream.Collectors;
  * event after event.
  */
 public class Simulator {
-    private static final Set<Long> finishedFlows = new HashSet<>();
-    private static final Set<Long> activeFlows = new HashSet<>();
-    private static final Map<Integer, Job> jobs = new HashMap<>();
-    private static final Map<Long, Flow> flowIdToFlow = new HashMap<>();
-    // Main ordered event queue (run variable)
-    private static PriorityQueue<Event> eventQueue = new PriorityQueue<>();
-    // Current time in ns in the simulation (run variable)
-    private static long now;
-    // Threshold to end
-    private static long finishFlowIdThreshold;
-    // Whether the simulator is setup
-    private static boolean isSetup = false;
-    private static long totalRuntimeNs;
-    // Randomness manager
-    private static RandomManager randomManager;
-    // Configuration
-    private static NBProperties configuration;
-    // Traffic planner
-    private static TrafficPlanner trafficPlanner;
-    private static Map<Integer, NetworkDevice> idToNetworkDevice;
-    private static long flowIdCounter = 0;
+    // State of the run of the current thread
+    private static final RunContext.Slot<State> STATE = RunContext.slot(State::new);
+
+    /**
+     * State of a run.
+     */
+    private static class State {
+        private final Set<Long> finishedFlows = new HashSet<>();
+        private final Set<Long> activeFlows = new HashSet<>();
+        private final Map<Integer, Job> jobs = new HashMap<>();
+        private final Map<Long, Flow> flowIdToFlow = new HashMap<>();
+        // Main ordered event queue (run variable)
+        private EventQueue eventQueue = new HeapEventQueue();
+        // Current time in ns in the simulation (run variable)
+        private long now;
+        // Threshold to end
+        private long finishFlowIdThreshold;
+        // Whether the simulator is setup
+        private boolean isSetup = false;
+        private long totalRuntimeNs;
+        // Randomness manager
+        private RandomManager randomManager;
+        // Configuration
+        private NBProperties configuration;
+        // Traffic planner
+        private TrafficPlanner trafficPlanner;
+        private Map<Integer, NetworkDevice> idToNetworkDevice;
+        private long flowIdCounter = 0;
+        // Identifier of the next event, added for absolute determinism in the event queue
+        private long eventIdCounter = 0;
+    }
 
     private Simulator() {
         // Static class only
     }
 
+    private static State state() {
+        return RunContext.current().get(STATE);
+    }
+
     /**
      * Retrieve the configuration.
      * <p>
@@ -73,7 +93,7 @@ public class Simulator {
      * @return Run configuration properties
      */
     public static NBProperties getConfiguration() {
-        return configuration;
+        return state().configuration;
     }
 
     /**
@@ -97,8 +117,10 @@ public class Simulator {
      *                      configuration (an empty one), e.g. in tests)
      */
     public static void setup(long seed, NBProperties configuration) {
+        State state = state();
+
         // Prevent double setup
-        if (isSetup) {
+        if (state.isSetup) {
             throw new RuntimeException(
                     "The simulator can only be setup once. Call reset() before setting it up again.");
         }
@@ -114,37 +136,71 @@ public class Simulator {
             SimulationLogger.logInfo("Seed randomly chosen", "FALSE");
         }
         SimulationLogger.logInfo("Seed", String.valueOf(seed));
-        randomManager = new RandomManager(seed);
+        state.randomManager = new RandomManager(seed);
 
         // Internal state reset
-        now = 0;
-        eventQueue.clear();
+        state.now = 0;
+        state.eventQueue = selectEventQueue(configuration);
 
         // Configuration
-        Simulator.configuration = configuration;
+        state.configuration = configuration;
+        Pooling.setup(configuration);
+        EventProfiler.setup(configuration);
+        SimulationLogger.logInfo("Packet pooling", Pooling.isEnabled() ? "TRUE" : "FALSE");
 
-        restoreState();
+        restoreState(state);
 
         // It is now officially setup
-        isSetup = true;
+        state.isSetup = true;
     }
 
-    private static void restoreState() {
+    private static void restoreState(State state) {
+        NBProperties configuration = state.configuration;
         if (configuration == null) {
             // this can happen in tests.
             return;
         }
         String folderName = configuration.getPropertyWithDefault(Constants.Simulation.FROM_STATE, null);
-        if (folderName != null) {
+        // Checkpoints are restored once the network exists, only Java serialized dumps are restored here
+        if (folderName != null && new File(folderName + "/" + "simulator_queue.ser").exists()) {
             JSONObject json = SimulatorStateSaver.loadJson(folderName + "/" + "simulator_data.json");
-            now = (long) json.get("now");
-            eventQueue = (PriorityQueue<Event>) SimulatorStateSaver
-                    .readObjectFromFile(folderName + "/" + "simulator_queue.ser");
+            state.now = (long) json.get("now");
+            Object queue = SimulatorStateSaver.readObjectFromFile(folderName + "/" + "simulator_queue.ser");
+            if (queue instanceof PriorityQueue) {
+                // Dumps made before the event queue became selectable
+                state.eventQueue = new HeapEventQueue((PriorityQueue<Event>) queue);
+            } else {
+                state.eventQueue = (EventQueue) queue;
+            }
             TransportLayer.restorState(configuration);
             System.out.println("Done restoring simulator");
         }
     }
 
+    /**
+     * Select the event queue implementation.
+     * <p>
+     * Selected using following property:
+     * event_queue=heap (default) | ladder
+     *
+     * @param configuration Configuration instance (null yields the default)
+     * @return Empty event queue
+     */
+    private static EventQueue selectEventQueue(NBProperties configuration) {
+        if (configuration == null) {
+            return new HeapEventQueue();
+        }
+        switch (configuration.getPropertyWithDefault(Constants.Simulation.EVENT_QUEUE,
+                Constants.Simulation.EVENT_QUEUE_HEAP)) {
+            case Constants.Simulation.EVENT_QUEUE_HEAP:
+                return new HeapEventQueue();
+            case Constants.Simulation.EVENT_QUEUE_LADDER:
+                return new LadderEventQueue();
+            default:
+                throw new PropertyValueInvalidException(configuration, Constants.Simulation.EVENT_QUEUE);
+        }
+    }
+
     /**
      * Create a random number generator which guarantees the same sequence
      * when the same universal seed is fed in <i>setup()</i>.
@@ -157,7 +213,7 @@ public class Simulator {
      * @return Independent random number generator
      */
     public static Random selectIndependentRandom(String name) {
-        return randomManager.getRandom(name);
+        return state().randomManager.getRandom(name);
     }
 
     /**
@@ -170,7 +226,7 @@ public class Simulator {
     }
 
     public static long getTotalRunTimeNs() {
-        return totalRuntimeNs;
+        return state().totalRuntimeNs;
     }
 
     /**
@@ -185,14 +241,17 @@ public class Simulator {
      *                               is exceeded)
      */
     public static void runNs(long runtimeNanoseconds, long flowsFromStartToFinish) {
+        State state = state();
+        EventQueue eventQueue = state.eventQueue;
+
         // Reset run variables (queue is not cleared because it has to start somewhere,
         // e.g. flow start events)
         // now = 0;
-        totalRuntimeNs = runtimeNanoseconds;
+        state.totalRuntimeNs = runtimeNanoseconds;
         // NonblockingBufferedReader reader = new NonblockingBufferedReader(System.in);
         // Finish flow threshold, if it is negative the flow finish will be very far in
         // the future
-        finishFlowIdThreshold = flowsFromStartToFinish;
+        state.finishFlowIdThreshold = flowsFromStartToFinish;
         if (flowsFromStartToFinish <= 0) {
             flowsFromStartToFinish = Long.MAX_VALUE;
         }
@@ -200,6 +259,16 @@ public class Simulator {
         // every 1s)
         long PROGRESS_SHOW_INTERVAL_NS = 1000000000L;
 
+        // Whether the progress also shows the active commodities and jobs (which is costly for large runs)
+        boolean progressDetails = state.configuration == null
+                || state.configuration.getBooleanPropertyWithDefault(Constants.Simulation.PROGRESS_DETAILS, true);
+
+        // Profiling of the event loop
+        boolean profiling = EventProfiler.isEnabled();
+        if (profiling) {
+            EventProfiler.start(state.now, eventQueue.size());
+        }
+
         // Log start
         System.out.println("Starting simulation (total time: " + runtimeNanoseconds + "ns);...");
 
@@ -208,14 +277,25 @@ public class Simulator {
         long realTime = System.currentTimeMillis();
         long nextProgressLog = PROGRESS_SHOW_INTERVAL_NS;
         boolean endedDueToFlowThreshold = false;
+        long allocatedBytesAtStart = EventProfiler.getAllocatedBytes();
+        long numEventsTriggered = 0;
 
-        while (!eventQueue.isEmpty() && now <= runtimeNanoseconds) {
+        while (!eventQueue.isEmpty() && state.now <= runtimeNanoseconds) {
             // Go to next event
             Event event = eventQueue.peek();
-            now = event.getTime();
-            if (now <= runtimeNanoseconds) {
+            state.now = event.getTime();
+            if (state.now <= runtimeNanoseconds) {
                 eventQueue.poll();
-                event.trigger();
+                if (profiling) {
+                    // The handler is retrieved before triggering, as pooled events are cleared by it
+                    Object handler = event.getHandler();
+                    long triggerStart = System.nanoTime();
+                    event.trigger();
+                    EventProfiler.record(event, handler, System.nanoTime() - triggerStart, eventQueue.size());
+                } else {
+                    event.trigger();
+                }
+                numEventsTriggered++;
 
                 if (event.retrigger()) {
                     registerEvent(event);
@@ -223,7 +303,7 @@ public class Simulator {
             }
 
             // Log elapsed time
-            if (now > nextProgressLog) {
+            if (state.now > nextProgressLog) {
                 nextProgressLog += PROGRESS_SHOW_INTERVAL_NS;
                 long realTimeNow = System.currentTimeMillis();
 
@@ -239,21 +319,23 @@ public class Simulator {
                 if (RemoteRoutingController.getInstance() != null) {
                     System.out.print(RemoteRoutingController.getInstance().getCurrentState());
                 }
-                List<FlowLogger> crossingVirtualLinks = SimulationLogger.getActiveFlowLoggerByFlowId().values().stream()
-                        .filter(flowLogger -> flowLogger.getSourceTorId() != flowLogger.getTargetTorId())
-                        .sorted(Comparator.comparing(FlowLogger::getFlowId)).collect(Collectors.toList());
-                System.out.println("Active commodities: ");
-                for (FlowLogger flowLogger : crossingVirtualLinks) {
-                    System.out.println(flowLogger);
+                if (progressDetails) {
+                    List<FlowLogger> crossingVirtualLinks = SimulationLogger.getActiveFlowLoggerByFlowId().values().stream()
+                            .filter(flowLogger -> flowLogger.getSourceTorId() != flowLogger.getTargetTorId())
+                            .sorted(Comparator.comparing(FlowLogger::getFlowId)).collect(Collectors.toList());
+                    System.out.println("Active commodities: ");
+                    for (FlowLogger flowLogger : crossingVirtualLinks) {
+                        System.out.println(flowLogger);
+                    }
+                    System.out.println("Jobs:");
+                    for (Job job : state.jobs.values()) {
+                        System.out.println(job);
+                    }
+                    System.out.println("--------------------------------------------------");
                 }
-                System.out.println("Jobs:");
-                for (Job job : jobs.values()) {
-                    System.out.println(job);
-                }
-                System.out.println("--------------------------------------------------");
             }
 
-            if (finishedFlows.size() >= flowsFromStartToFinish) {
+            if (state.finishedFlows.size() >= flowsFromStartToFinish) {
                 endedDueToFlowThreshold = true;
                 break;
             }
@@ -261,16 +343,40 @@ public class Simulator {
         // Make sure run ends at the final time if it ended because there were no
         // more events or the runtime was exceeded
         if (!endedDueToFlowThreshold) {
-            now = runtimeNanoseconds;
+            state.now = runtimeNanoseconds;
         }
         // If there are no more events, set the current time to the end of the
         // simulation
         if (eventQueue.isEmpty()) {
-            runtimeNanoseconds = now;
+            runtimeNanoseconds = state.now;
         }
         // Log end
         System.out.println("Simulation finished (simulated " + (runtimeNanoseconds / 1e9) + "s in a real-world time of "
                 + ((System.currentTimeMillis() - startTime) / 1000.0) + "s).");
+        logAllocations(allocatedBytesAtStart, numEventsTriggered);
+        if (profiling) {
+            EventProfiler.finish(state.now, eventQueue.size());
+        }
+    }
+
+    /**
+     * Log the heap allocation rate of the event loop and the statistics of the pools.
+     *
+     * @param allocatedBytesAtStart Allocated bytes before the event loop started
+     * @param numEventsTriggered    Number of events triggered in the event loop
+     */
+    private static void logAllocations(long allocatedBytesAtStart, long numEventsTriggered) {
+        SimulationLogger.logInfo("Events triggered", String.valueOf(numEventsTriggered));
+        long allocatedBytesAtEnd = EventProfiler.getAllocatedBytes();
+        if (allocatedBytesAtStart >= 0 && allocatedBytesAtEnd >= 0) {
+            long allocatedBytes = allocatedBytesAtEnd - allocatedBytesAtStart;
+            double allocatedBytesPerEvent = numEventsTriggered == 0 ? 0.0 : (double) allocatedBytes / numEventsTriggered;
+            SimulationLogger.logInfo("Allocated bytes", String.valueOf(allocatedBytes));
+            SimulationLogger.logInfo("Allocated bytes per event", String.format("%.2f", allocatedBytesPerEvent));
+            System.out.println("Allocated " + allocatedBytes + " bytes in " + numEventsTriggered + " events ("
+                    + String.format("%.2f", allocatedBytesPerEvent) + " bytes/event).");
+        }
+        Pooling.logStatistics();
     }
 
     /**
@@ -279,15 +385,16 @@ public class Simulator {
      * @param flowId Flow identifier
      */
     public static void registerFlowFinished(long flowId) {
-        if (flowId < finishFlowIdThreshold) {
-            finishedFlows.add(flowId);
+        State state = state();
+        if (flowId < state.finishFlowIdThreshold) {
+            state.finishedFlows.add(flowId);
         }
         FlowLogger flowLogger = SimulationLogger.getFlowLoggerByFlowId().get(flowId);
         int jobId = flowLogger.getJobId();
-        Job job = jobs.get(jobId);
+        Job job = state.jobs.get(jobId);
         if (job.getRoutingStrategy() instanceof CentralizedController) {
             CentralizedController centralizedController = (CentralizedController) job.getRoutingStrategy();
-            centralizedController.clearResources(flowIdToFlow.get(flowId));
+            centralizedController.clearResources(state.flowIdToFlow.get(flowId));
         }
         SimulationLogger.logFinishedFlow(flowLogger);
     }
@@ -299,8 +406,9 @@ public class Simulator {
      */
     public static void updateJob(long flowId) {
         FlowLogger flowLogger = SimulationLogger.getFlowLoggerByFlowId().get(flowId);
-        Job job = jobs.get(flowLogger.getJobId());
-        job.update(flowIdToFlow.get(flowId));
+        State state = state();
+        Job job = state.jobs.get(flowLogger.getJobId());
+        job.update(state.flowIdToFlow.get(flowId));
     }
 
     /**
@@ -309,15 +417,15 @@ public class Simulator {
      * @param event Event instance
      */
     public static void registerEvent(Event event) {
-        eventQueue.add(event);
+        state().eventQueue.add(event);
     }
 
     public static void registerFlow(long flowId) {
-        activeFlows.add(flowId);
+        state().activeFlows.add(flowId);
     }
 
     public static void registerJob(Job job) {
-        jobs.put(job.getJobId(), job);
+        state().jobs.put(job.getJobId(), job);
     }
 
     /**
@@ -328,7 +436,7 @@ public class Simulator {
      * @return Time in nanoseconds
      */
     public static long getTimeFromNow(long nanoseconds) {
-        return now + nanoseconds;
+        return state().now + nanoseconds;
     }
 
     /**
@@ -337,7 +445,7 @@ public class Simulator {
      * @return Current time in nanoseconds
      */
     public static long getCurrentTime() {
-        return now;
+        return state().now;
     }
 
     /**
@@ -346,7 +454,7 @@ public class Simulator {
      * @return Number of events
      */
     public static int getEventSize() {
-        return eventQueue.size();
+        return state().eventQueue.size();
     }
 
     /**
@@ -354,8 +462,8 @@ public class Simulator {
      *
      * @return Event Queue
      */
-    public static PriorityQueue<Event> getEventQueue() {
-        return eventQueue;
+    public static EventQueue getEventQueue() {
+        return state().eventQueue;
     }
 
     /**
@@ -378,63 +486,216 @@ public class Simulator {
             SimulationLogger.close();
         }
 
+        State state = state();
+
         // Reset random number generation
-        randomManager = null;
+        state.randomManager = null;
 
         // Reset any run variables
-        now = 0;
-        eventQueue.clear();
-        finishedFlows.clear();
+        state.now = 0;
+        state.eventQueue.clear();
+        state.finishedFlows.clear();
+        state.activeFlows.clear();
+        state.jobs.clear();
+        state.flowIdToFlow.clear();
+        state.flowIdCounter = 0;
+        state.trafficPlanner = null;
         TransportLayer.staticReset();
-        finishFlowIdThreshold = -1;
+        Pooling.reset();
+        EventProfiler.reset();
+        state.finishFlowIdThreshold = -1;
 
         // Reset configuration
-        configuration = null;
+        state.configuration = null;
         // No longer setup
-        isSetup = false;
+        state.isSetup = false;
     }
 
-    public static void dumpState(String dumpFolderName) throws IOException {
-        ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(dumpFolderName + "/" + "simulator_queue.ser"));
+    /**
+     * Write the state of the simulation to a checkpoint: the current time,
+     * the flow identifier counter, the flows and jobs, the state of every network
+     * device (transport layer and output ports) and the pending events in order.
+     *
+     * @param out Checkpoint output
+     */
+    public static void writeCheckpoint(CheckpointOutput out) throws IOException {
+        State state = state();
+        out.writeLong(state.now);
+        out.writeLong(state.flowIdCounter);
+        writeJobsCheckpoint(out);
+
+        List<Integer> deviceIds = new ArrayList<>(state.idToNetworkDevice.keySet());
+        Collections.sort(deviceIds);
+        out.writeInt(deviceIds.size());
+        for (int deviceId : deviceIds) {
+            out.writeInt(deviceId);
+            state.idToNetworkDevice.get(deviceId).writeCheckpoint(out);
+        }
 
-        oos.writeObject(eventQueue);
-        System.out.println("Done writing queue");
-        JSONObject obj = new JSONObject();
-        obj.put("now", now);
-        FileWriter file = new FileWriter(dumpFolderName + "/" + "simulator_data.json");
-        file.write(obj.toJSONString());
-        file.flush();
+        // The event queue cannot be iterated, so the events are taken out in order and put back
+        List<Event> events = new ArrayList<>(state.eventQueue.size());
+        while (!state.eventQueue.isEmpty()) {
+            events.add(state.eventQueue.poll());
+        }
+        try {
+            out.writeInt(events.size());
+            for (Event event : events) {
+                out.writeEncoded(event);
+            }
+        } finally {
+            for (Event event : events) {
+                state.eventQueue.add(event);
+            }
+        }
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)}, replacing
+     * all pending events. The network devices must already have been created
+     * from the same configuration as the run which wrote the checkpoint.
+     *
+     * @param in Checkpoint input
+     */
+    public static void readCheckpoint(CheckpointInput in) throws IOException {
+        State state = state();
+        state.eventQueue.clear();
+        state.now = in.readLong();
+        state.flowIdCounter = in.readLong();
+        readJobsCheckpoint(in);
+
+        int numDevices = in.readInt();
+        for (int i = 0; i < numDevices; i++) {
+            int deviceId = in.readInt();
+            NetworkDevice device = state.idToNetworkDevice.get(deviceId);
+            if (device == null) {
+                throw new IllegalStateException("Checkpoint contains unknown network device " + deviceId + ".");
+            }
+            device.readCheckpoint(in);
+        }
+
+        // Restored in order, such that the events at the same time keep their order
+        int numEvents = in.readInt();
+        for (int i = 0; i < numEvents; i++) {
+            state.eventQueue.add(in.readEncoded(Event.class));
+        }
+    }
 
+    /**
+     * Write the flows (each once, by which the jobs and their routing refer to them
+     * by identifier), the finished and active flows, and the state of every job.
+     *
+     * @param out Checkpoint output
+     */
+    private static void writeJobsCheckpoint(CheckpointOutput out) throws IOException {
+        State state = state();
+        List<Integer> jobIds = new ArrayList<>(state.jobs.keySet());
+        Collections.sort(jobIds);
+
+        // Flows of the jobs which are not registered (e.g. of the later ring rounds) are included
+        Map<Long, Flow> flows = new TreeMap<>(state.flowIdToFlow);
+        for (int jobId : jobIds) {
+            Job job = state.jobs.get(jobId);
+            job.getCommoditiesFlowsMap().values().forEach(commodityFlows -> commodityFlows.forEach(
+                    flow -> flows.putIfAbsent(flow.getFlowId(), flow)
+            ));
+            job.getEpochs().forEach(epoch -> epoch.getStageFlows().values().forEach(stageFlows -> stageFlows.forEach(
+                    flow -> flows.putIfAbsent(flow.getFlowId(), flow)
+            )));
+        }
+        out.writeInt(flows.size());
+        for (Flow flow : flows.values()) {
+            flow.writeCheckpoint(out);
+            out.writeBoolean(state.flowIdToFlow.containsKey(flow.getFlowId()));
+        }
+        writeFlowIds(out, state.finishedFlows);
+        writeFlowIds(out, state.activeFlows);
+
+        out.writeInt(jobIds.size());
+        for (int jobId : jobIds) {
+            out.writeInt(jobId);
+            state.jobs.get(jobId).writeCheckpoint(out);
+        }
+    }
+
+    /**
+     * Restore the state written by {@link #writeJobsCheckpoint(CheckpointOutput)} into
+     * the jobs created by the traffic plan.
+     *
+     * @param in Checkpoint input
+     */
+    private static void readJobsCheckpoint(CheckpointInput in) throws IOException {
+        State state = state();
+        Map<Long, Flow> flows = new HashMap<>();
+        state.flowIdToFlow.clear();
+        int numFlows = in.readInt();
+        for (int i = 0; i < numFlows; i++) {
+            Flow flow = Flow.fromCheckpoint(in);
+            flows.put(flow.getFlowId(), flow);
+            if (in.readBoolean()) {
+                state.flowIdToFlow.put(flow.getFlowId(), flow);
+            }
+        }
+        readFlowIds(in, state.finishedFlows);
+        readFlowIds(in, state.activeFlows);
+
+        int numJobs = in.readInt();
+        if (numJobs != state.jobs.size()) {
+            throw new IllegalStateException("Checkpoint contains " + numJobs + " jobs, but the traffic plan has " + state.jobs.size() + ".");
+        }
+        for (int i = 0; i < numJobs; i++) {
+            int jobId = in.readInt();
+            Job job = state.jobs.get(jobId);
+            if (job == null) {
+                throw new IllegalStateException("Checkpoint contains unknown job " + jobId + ".");
+            }
+            job.readCheckpoint(in, flows);
+        }
+    }
+
+    private static void writeFlowIds(CheckpointOutput out, Set<Long> flowIds) throws IOException {
+        List<Long> sorted = new ArrayList<>(flowIds);
+        Collections.sort(sorted);
+        out.writeInt(sorted.size());
+        for (long flowId : sorted) {
+            out.writeLong(flowId);
+        }
+    }
+
+    private static void readFlowIds(CheckpointInput in, Set<Long> flowIds) throws IOException {
+        flowIds.clear();
+        int numFlowIds = in.readInt();
+        for (int i = 0; i < numFlowIds; i++) {
+            flowIds.add(in.readLong());
+        }
     }
 
     public static NetworkDevice getNetworkDevice(int id) {
-        return Simulator.idToNetworkDevice.get(id);
+        return state().idToNetworkDevice.get(id);
     }
 
     public static void setIdToNetworkDevice(Map<Integer, NetworkDevice> idToNetworkDevice) {
-        Simulator.idToNetworkDevice = idToNetworkDevice;
+        state().idToNetworkDevice = idToNetworkDevice;
     }
 
     public static TrafficPlanner getTrafficPlanner() {
-        return trafficPlanner;
+        return state().trafficPlanner;
     }
 
     public static void setTrafficPlanner(TrafficPlanner trafficPlanner) {
-        Simulator.trafficPlanner = trafficPlanner;
+        state().trafficPlanner = trafficPlanner;
     }
 
     public static Map<Integer, Job> getJobs() {
-        return jobs;
+        return state().jobs;
     }
 
     public static Job getJob(int jobId) {
-        return jobs.get(jobId);
+        return state().jobs.get(jobId);
     }
 
     public static Map<Integer, Job> getActiveJobs() {
         Map<Integer, Job> activeJobs = new HashMap<>();
-        for (Job job : jobs.values()) {
+        for (Job job : state().jobs.values()) {
             if (!job.isComputeMode()) {
                 activeJobs.put(job.getJobId(), job);
             }
@@ -443,10 +704,20 @@ public class Simulator {
     }
 
     public static long getNextFlowId() {
-        return flowIdCounter++;
+        return state().flowIdCounter++;
+    }
+
+    /**
+     * Retrieve the identifier of the next event created in the run,
+     * by which events at the same time are ordered by creation.
+     *
+     * @return Event identifier
+     */
+    public static long getNextEventId() {
+        return state().eventIdCounter++;
     }
 
     public static Map<Long, Flow> getFlowIdToFlow() {
-        return flowIdToFlow;
+        return state().flowIdToFlow;
     }
 }
@@ -9,7 +9,8 @@ public class BaseAllowedProperties {
             "log_remote_paths",
             "log_remote_router_state",
             "log_remote_router_drops",
-            "log_port_utilization"
+            "log_port_utilization",
+            "log_format"
     };
     public static final String[] PROPERTIES_RUN = new String[]{
 
@@ -25,6 +26,14 @@ public class BaseAllowedProperties {
             "analysis_command",
             "finish_when_first_flows_finish",
             "from_state",
+            "event_queue",
+            "packet_pooling",
+            "event_profiling",
+            "event_profiling_snapshot_interval_ns",
+            "progress_details",
+            "checkpoint_at_ns",
+            "checkpoint_dir",
+            "checkpoint_compression",
             // Infrastructure
             "transport_layer",
             "network_device",
@@ -35,6 +44,8 @@ public class BaseAllowedProperties {
 
             // Routing
             "network_device_routing",
+            "routing_cache_dir",
+            "routing_apsp_algorithm",
 
             // Traffic
             "traffic",
@@ -43,7 +54,9 @@ public class BaseAllowedProperties {
             "traffic_probabilities_generator",
             "traffic_probabilities_active_fraction",
             "traffic_probabilities_active_fraction_is_ordered",
-            "traffic_lambda_flow_starts_per_s"
+            "traffic_lambda_flow_starts_per_s",
+            "traffic_plan_streaming",
+            "traffic_sampler"
 
     };
     public static final String[] RUN_CONFIGURATION_ONLY = new String[]{
@@ -155,6 +168,7 @@ public class BaseAllowedProperties {
             "remote_routing_header_size",
             // K-shortest-paths
             "k_for_k_shortest_paths",
+            "k_shortest_paths_engine",
 
             // K-paths
             // "k_paths_k_threshold",
@@ -172,6 +186,10 @@ public class BaseAllowedProperties {
             "estimate_flow_size_lookback",
             "estimate_flow_size_model_path",
             "routing_scheme",
+            "edge_coloring_backend",
+            "ilp_solver_backend",
+            "simulated_annealing_iterations",
+            "simulated_annealing_replicas",
             "source_server",
             "target_server",
             "source_tor",
@@ -43,6 +43,30 @@ public class GraphDetails {
         this.failedCores = new HashSet<>();
     }
 
+    /**
+     * Create the details of a run from the details of a graph shared by runs,
+     * with its own links and failed cores.
+     *
+     * @param details Details of the shared graph
+     */
+    GraphDetails(GraphDetails details) {
+        this.idHash = details.idHash;
+        this.numNodes = details.numNodes;
+        this.numEdges = details.numEdges;
+        this.serverNodeIds = details.serverNodeIds;
+        this.switchNodeIds = details.switchNodeIds;
+        this.torNodeIds = details.torNodeIds;
+        this.aggregationNodeIds = details.aggregationNodeIds;
+        this.coreNodeIds = details.coreNodeIds;
+        this.torToServerIds = details.torToServerIds;
+        this.serverToTorId = details.serverToTorId;
+        this.autoExtended = details.autoExtended;
+        this.metaNodeNum = details.metaNodeNum;
+        this.serverLanes = details.serverLanes;
+        this.links = new HashSet<>(details.links);
+        this.failedCores = new HashSet<>();
+    }
+
     /**
      * Get the identifying hash for the this topology.
      * The identifying hash is the SHA-1 hash of the topology file's content.
@@ -195,6 +219,15 @@ public class GraphDetails {
         return Collections.unmodifiableSet(aggregationNodeIds);
     }
 
+    /**
+     * Check whether the aggregate nodes are specified.
+     *
+     * @return True iff the aggregate node identifiers are set
+     */
+    boolean hasAggregationNodeIds() {
+        return aggregationNodeIds != null;
+    }
+
     /**
      * Retrieve all node identifiers marked as ToR.
      *
@@ -245,7 +278,7 @@ public class GraphDetails {
     }
 
     public Set<Integer> TorIds() {
-        return torNodeIds;
+        return Collections.unmodifiableSet(torNodeIds);
     }
 
     /**
@@ -1,11 +1,18 @@
 package ch.ethz.systems.netbench.core.config;
 
+import ch.ethz.systems.netbench.core.RunContext;
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.utility.Constants;
+import edu.asu.emit.algorithm.graph.DuplicateEdgeException;
 import edu.asu.emit.algorithm.graph.Graph;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class GraphReader {
@@ -36,16 +43,71 @@ public class GraphReader {
      * @return Graph and its details
      */
     public static Pair<Graph, GraphDetails> read(String fileName) {
+        byte[] content = readFile(fileName);
+        Pair<Graph, GraphDetails> result = parse(fileName, content, DigestUtils.sha1Hex(content));
+        logRead(fileName, result.getRight());
+        return result;
+    }
+
+    /**
+     * Read in a graph and its details, of which the graph is shared (frozen) with all other
+     * runs which read a topology file of the same content. Every run receives its own details.
+     *
+     * @param fileName File name
+     * @return Shared graph and its details
+     */
+    public static Pair<Graph, GraphDetails> readShared(String fileName) {
+        byte[] content = readFile(fileName);
+        String sha1 = DigestUtils.sha1Hex(content);
+        Pair<Graph, GraphDetails> shared = RunContext.current().share(
+                Arrays.asList(GraphReader.class, sha1),
+                () -> {
+                    Pair<Graph, GraphDetails> parsed = parse(fileName, content, sha1);
+                    parsed.getLeft().freeze();
+                    return parsed;
+                }
+        );
+
+        // The run which created the graph allowed its duplicate edges, which this run might not
+        if (shared.getLeft().hasDuplicateEdges() && !Simulator.getConfiguration().getBooleanPropertyWithDefault(
+                Constants.NetworkDeviceGenerator.ALLOW_DUPLICATE_EDGES,
+                false)) {
+            throw new DuplicateEdgeException("Graph: the topology " + fileName + " has duplicate edges, which are not allowed.");
+        }
+        logRead(fileName, shared.getRight());
+        return new ImmutablePair<>(shared.getLeft(), new GraphDetails(shared.getRight()));
+    }
 
+    private static byte[] readFile(String fileName) {
         try {
+            return Files.readAllBytes(Paths.get(fileName));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file: " + fileName + "; I/O error: " + e.getCause());
+        }
+    }
 
-            // Calculate SHA-1 hash
-            FileInputStream fis = new FileInputStream(new File(fileName));
-            String sha1 = DigestUtils.sha1Hex(fis);
-            fis.close();
+    /**
+     * Log the remarks about a topology which was read, for every run which reads it.
+     *
+     * @param fileName File name
+     * @param details  Details of the graph
+     */
+    private static void logRead(String fileName, GraphDetails details) {
+        if (!details.hasAggregationNodeIds()) {
+            System.out.println("Aggregation nodes are not specified");
+        }
+        if (details.getNumServers() < 2) {
+            System.out.println("Server number is less then two for topology file " + fileName);
+        }
+        SimulationLogger.logInfo("Graph", "Dummy Log");
+    }
+
+    private static Pair<Graph, GraphDetails> parse(String fileName, byte[] content, String sha1) {
+
+        try {
 
             // Open file stream
-            FileReader input = new FileReader(fileName);
+            Reader input = new InputStreamReader(new ByteArrayInputStream(content));
             BufferedReader br = new BufferedReader(input);
 
             // Mandatory parameters
@@ -131,10 +193,8 @@ public class GraphReader {
 
             br.close();
             Set<Integer> switchNodeIds = new HashSet<>();
-            try {
+            if (details.hasAggregationNodeIds()) {
                 switchNodeIds.addAll(details.getAggregationNodeIds());
-            } catch (NullPointerException e) {
-                System.out.println("Aggregation nodes are not specified");
             }
             switchNodeIds.addAll(details.getCoreNodeIds());
             details.setSwitchNodeIds(switchNodeIds);
@@ -176,13 +236,8 @@ public class GraphReader {
                 throw new IllegalArgumentException("Either all ToRs are servers, or no ToRs are servers.");
             }
 
-            // There must be at least two servers
-            if (details.getNumServers() < 2) {
-                System.out.println("Server number is less then two for topology file " + fileName);
-            }
-
             // Go over link lines one-by-one, skipping parameter lines
-            input = new FileReader(fileName);
+            input = new InputStreamReader(new ByteArrayInputStream(content));
             br = new BufferedReader(input);
             List<Pair<Integer, Integer>> linkDirectedPairs = new ArrayList<>();
             HashMap<Pair<Integer, Integer>, Long> capacityMap = new HashMap<>();
@@ -371,7 +371,7 @@ public class NBProperties extends Properties {
      * Read in the graph and its details.
      */
     private void readGraph() {
-        Pair<Graph, GraphDetails> result = GraphReader.read(
+        Pair<Graph, GraphDetails> result = GraphReader.readShared(
                 this.getPropertyOrFail(Constants.ScenarioTopology.FILE)
         );
         graph = result.getLeft();
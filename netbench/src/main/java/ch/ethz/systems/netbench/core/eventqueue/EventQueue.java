@@ -0,0 +1,66 @@
+package ch.ethz.systems.netbench.core.eventqueue;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+import java.io.Serializable;
+
+/**
+ * Ordered collection of the pending events of a simulation run.
+ * <p>
+ * Every implementation must hand out events in exactly the order
+ * defined by {@link Event#compareTo(Event)}, i.e. by time and then
+ * by event identifier, such that runs remain deterministic whichever
+ * queue is selected.
+ */
+public interface EventQueue extends Serializable {
+
+    /**
+     * Add an event to the queue.
+     *
+     * @param event Event instance
+     */
+    void add(Event event);
+
+    /**
+     * Retrieve, but do not remove, the earliest event.
+     *
+     * @return Earliest event, or null if the queue is empty
+     */
+    Event peek();
+
+    /**
+     * Retrieve and remove the earliest event.
+     *
+     * @return Earliest event, or null if the queue is empty
+     */
+    Event poll();
+
+    /**
+     * Remove a specific event from the queue.
+     *
+     * @param event Event instance
+     *
+     * @return True iff the event was present and has been removed
+     */
+    boolean remove(Event event);
+
+    /**
+     * Retrieve the amount of events in the queue.
+     *
+     * @return Number of events
+     */
+    int size();
+
+    /**
+     * Check whether there are no events in the queue.
+     *
+     * @return True iff the queue is empty
+     */
+    boolean isEmpty();
+
+    /**
+     * Remove all events from the queue.
+     */
+    void clear();
+
+}
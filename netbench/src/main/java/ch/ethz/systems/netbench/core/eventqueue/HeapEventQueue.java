@@ -0,0 +1,66 @@
+package ch.ethz.systems.netbench.core.eventqueue;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+import java.util.PriorityQueue;
+
+/**
+ * Event queue backed by a binary heap, which has O(log n)
+ * insertion and removal of the earliest event.
+ * This is the default event queue.
+ */
+public class HeapEventQueue implements EventQueue {
+
+    private static final long serialVersionUID = 4189384735315264108L;
+
+    private final PriorityQueue<Event> queue;
+
+    public HeapEventQueue() {
+        this.queue = new PriorityQueue<>();
+    }
+
+    /**
+     * Wrap an existing priority queue, e.g. one restored from a state dump.
+     *
+     * @param queue Priority queue of events
+     */
+    public HeapEventQueue(PriorityQueue<Event> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public void add(Event event) {
+        queue.add(event);
+    }
+
+    @Override
+    public Event peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public Event poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public boolean remove(Event event) {
+        return queue.remove(event);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+
+}
@@ -0,0 +1,431 @@
+package ch.ethz.systems.netbench.core.eventqueue;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Ladder queue (W.T. Tang, R.S.M. Goh and I.L.-J. Thng, "Ladder queue: An O(1)
+ * priority queue structure for large-scale discrete event simulation", 2005).
+ * <p>
+ * The events are kept in three tiers:
+ * <ul>
+ *     <li><b>Top:</b> unsorted events at or after the top start time (the far future);</li>
+ *     <li><b>Ladder:</b> rungs of unsorted buckets, where every next rung subdivides a
+ *     single (too crowded) bucket of the rung above it;</li>
+ *     <li><b>Bottom:</b> the sorted events of the bucket currently being drained.</li>
+ * </ul>
+ * Events are only sorted once they reach the bottom, which happens in small
+ * groups. Because the bottom is sorted by the natural event order (time, then event
+ * identifier), the events are handed out in exactly the same order as with the heap.
+ * <p>
+ * Insertion and removal of the earliest event are amortized O(1), also for the skewed
+ * time distributions of packet-level runs (many events in the next few microseconds,
+ * some time-outs far ahead).
+ */
+public class LadderEventQueue implements EventQueue {
+
+    private static final long serialVersionUID = -3261586413497426409L;
+
+    // Bucket size above which a bucket is split into a new rung instead of sorted into the bottom
+    private static final int THRESHOLD = 50;
+
+    // Maximum number of rungs
+    private static final int MAX_RUNGS = 8;
+
+    // Top
+    private Event[] top;
+    private int topSize;
+    private long topStart;
+    private long topMinTime;
+    private long topMaxTime;
+
+    // Ladder
+    private final Rung[] rungs;
+    private int numRungs;
+
+    // Bottom
+    private final SortedEvents bottom;
+
+    private int size;
+
+    public LadderEventQueue() {
+        this.top = new Event[16];
+        this.rungs = new Rung[MAX_RUNGS];
+        for (int i = 0; i < MAX_RUNGS; i++) {
+            this.rungs[i] = new Rung();
+        }
+        this.bottom = new SortedEvents();
+        clear();
+    }
+
+    @Override
+    public void add(Event event) {
+        long time = event.getTime();
+        size++;
+
+        // Far future
+        if (time >= topStart) {
+            addToTop(event);
+            return;
+        }
+
+        // First rung of which the current bucket is not after the event
+        for (int i = 0; i < numRungs; i++) {
+            if (time >= rungs[i].currentStart()) {
+                rungs[i].add(event);
+                return;
+            }
+        }
+
+        // Before all rungs: belongs with the events being drained
+        bottom.insert(event);
+    }
+
+    @Override
+    public Event peek() {
+        if (size == 0) {
+            return null;
+        }
+        if (bottom.isEmpty()) {
+            refillBottom();
+        }
+        return bottom.first();
+    }
+
+    @Override
+    public Event poll() {
+        if (size == 0) {
+            return null;
+        }
+        if (bottom.isEmpty()) {
+            refillBottom();
+        }
+        size--;
+        Event event = bottom.pollFirst();
+        if (size == 0) {
+            clear();
+        }
+        return event;
+    }
+
+    @Override
+    public boolean remove(Event event) {
+        long time = event.getTime();
+        boolean removed = false;
+        if (time >= topStart) {
+            for (int i = 0; i < topSize; i++) {
+                if (top[i] == event) {
+                    top[i] = top[--topSize];
+                    top[topSize] = null;
+                    removed = true;
+                    break;
+                }
+            }
+        } else {
+            int i = 0;
+            while (i < numRungs && time < rungs[i].currentStart()) {
+                i++;
+            }
+            removed = i < numRungs ? rungs[i].remove(event) : bottom.remove(event);
+        }
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(top, 0, topSize, null);
+        topSize = 0;
+        topStart = Long.MIN_VALUE;
+        topMinTime = Long.MAX_VALUE;
+        topMaxTime = Long.MIN_VALUE;
+        for (int i = 0; i < numRungs; i++) {
+            rungs[i].clear();
+        }
+        numRungs = 0;
+        bottom.clear();
+        size = 0;
+    }
+
+    private void addToTop(Event event) {
+        if (topSize == top.length) {
+            top = Arrays.copyOf(top, top.length * 2);
+        }
+        top[topSize++] = event;
+        topMinTime = Math.min(topMinTime, event.getTime());
+        topMaxTime = Math.max(topMaxTime, event.getTime());
+    }
+
+    /**
+     * Move the events of the next non-empty bucket into the (empty) bottom,
+     * splitting crowded buckets into new rungs along the way.
+     * Requires the queue to be non-empty.
+     */
+    private void refillBottom() {
+        while (true) {
+
+            // Ladder exhausted: the top becomes the first rung
+            if (numRungs == 0) {
+                transferTop();
+            }
+
+            // Next bucket of the lowest rung
+            Rung rung = rungs[numRungs - 1];
+            int idx = rung.advanceToNonEmpty();
+            if (idx == -1) {
+                rung.clear();
+                numRungs--;
+                continue;
+            }
+
+            // Crowded bucket which can still be split: spawn a new rung
+            int count = rung.counts[idx];
+            if (count > THRESHOLD && rung.width > 1 && numRungs < MAX_RUNGS) {
+                Rung child = rungs[numRungs];
+                long childWidth = (rung.width + count - 1) / count;
+                child.init(rung.bucketStart(idx), childWidth, (int) ((rung.width + childWidth - 1) / childWidth));
+                rung.moveBucket(idx, child);
+                numRungs++;
+                continue;
+            }
+
+            // Otherwise sort the bucket into the bottom
+            bottom.fillSorted(rung.buckets[idx], count);
+            rung.clearBucket(idx);
+            rung.current++;
+            return;
+        }
+    }
+
+    /**
+     * Create the first rung out of all events in the top.
+     */
+    private void transferTop() {
+        if (topSize == 0) {
+            throw new IllegalStateException("Ladder event queue has no events left to transfer from its top.");
+        }
+        long span = topMaxTime - topMinTime + 1;
+        long width = Math.max(1, (span + topSize - 1) / topSize);
+        int numBuckets = (int) ((span + width - 1) / width);
+        Rung rung = rungs[0];
+        rung.init(topMinTime, width, numBuckets);
+        for (int i = 0; i < topSize; i++) {
+            rung.add(top[i]);
+            top[i] = null;
+        }
+        numRungs = 1;
+        topStart = topMinTime + numBuckets * width;
+        topSize = 0;
+        topMinTime = Long.MAX_VALUE;
+        topMaxTime = Long.MIN_VALUE;
+    }
+
+    /**
+     * Rung of the ladder: an array of unsorted buckets of equal width covering
+     * the time range [start, start + numBuckets * width). Buckets before the
+     * current bucket have already been drained.
+     */
+    private static class Rung implements Serializable {
+
+        private static final long serialVersionUID = 2952766924452372107L;
+
+        private Event[][] buckets = new Event[0][];
+        private int[] counts = new int[0];
+        private int numBuckets;
+        private long start;
+        private long width;
+        private int current;
+
+        void init(long start, long width, int numBuckets) {
+            if (buckets.length < numBuckets) {
+                buckets = new Event[numBuckets][];
+                counts = new int[numBuckets];
+            }
+            this.start = start;
+            this.width = width;
+            this.numBuckets = numBuckets;
+            this.current = 0;
+        }
+
+        long bucketStart(int idx) {
+            return start + idx * width;
+        }
+
+        long currentStart() {
+            return bucketStart(current);
+        }
+
+        void add(Event event) {
+            int idx = (int) ((event.getTime() - start) / width);
+            Event[] bucket = buckets[idx];
+            if (bucket == null) {
+                bucket = new Event[4];
+                buckets[idx] = bucket;
+            } else if (counts[idx] == bucket.length) {
+                bucket = Arrays.copyOf(bucket, bucket.length * 2);
+                buckets[idx] = bucket;
+            }
+            bucket[counts[idx]++] = event;
+        }
+
+        boolean remove(Event event) {
+            int idx = (int) ((event.getTime() - start) / width);
+            Event[] bucket = buckets[idx];
+            for (int i = 0; i < counts[idx]; i++) {
+                if (bucket[i] == event) {
+                    bucket[i] = bucket[--counts[idx]];
+                    bucket[counts[idx]] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Advance the current bucket to the first non-empty one.
+         *
+         * @return Index of the current bucket, or -1 if the rung is exhausted
+         */
+        int advanceToNonEmpty() {
+            while (current < numBuckets && counts[current] == 0) {
+                current++;
+            }
+            return current < numBuckets ? current : -1;
+        }
+
+        void moveBucket(int idx, Rung target) {
+            Event[] bucket = buckets[idx];
+            for (int i = 0; i < counts[idx]; i++) {
+                target.add(bucket[i]);
+            }
+            clearBucket(idx);
+            current = idx + 1;
+        }
+
+        void clearBucket(int idx) {
+            // Small buckets are kept for re-use
+            if (buckets[idx] != null && buckets[idx].length > 4 * THRESHOLD) {
+                buckets[idx] = null;
+            } else if (buckets[idx] != null) {
+                Arrays.fill(buckets[idx], 0, counts[idx], null);
+            }
+            counts[idx] = 0;
+        }
+
+        void clear() {
+            for (int i = current; i < numBuckets; i++) {
+                clearBucket(i);
+            }
+            numBuckets = 0;
+            current = 0;
+        }
+
+    }
+
+    /**
+     * Events sorted in ascending order, stored in the range [head, tail) of an
+     * array such that removal of the first event is O(1).
+     */
+    private static class SortedEvents implements Serializable {
+
+        private static final long serialVersionUID = 6013316938474452069L;
+
+        private Event[] events = new Event[THRESHOLD + 1];
+        private int head;
+        private int tail;
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        Event first() {
+            return events[head];
+        }
+
+        Event pollFirst() {
+            Event event = events[head];
+            events[head] = null;
+            head++;
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+            }
+            return event;
+        }
+
+        /**
+         * Replace the (empty) content with the given events, sorted.
+         *
+         * @param source    Unsorted events
+         * @param count     Number of events
+         */
+        void fillSorted(Event[] source, int count) {
+            if (events.length < count) {
+                events = new Event[count];
+            }
+            System.arraycopy(source, 0, events, 0, count);
+            Arrays.sort(events, 0, count);
+            head = 0;
+            tail = count;
+        }
+
+        void insert(Event event) {
+            if (head > 0 && (head == tail || event.compareTo(events[head]) < 0)) {
+                events[--head] = event;
+                return;
+            }
+            int pos = -Arrays.binarySearch(events, head, tail, event) - 1;
+            if (tail == events.length) {
+                int n = tail - head;
+                Event[] target = n + 1 > events.length / 2 ? new Event[events.length * 2] : events;
+                System.arraycopy(events, head, target, 0, n);
+                if (target == events) {
+                    Arrays.fill(events, n, tail, null);
+                }
+                events = target;
+                pos -= head;
+                head = 0;
+                tail = n;
+            }
+            System.arraycopy(events, pos, events, pos + 1, tail - pos);
+            events[pos] = event;
+            tail++;
+        }
+
+        boolean remove(Event event) {
+            int pos = Arrays.binarySearch(events, head, tail, event);
+            if (pos < 0 || events[pos] != event) {
+                return false;
+            }
+            System.arraycopy(events, pos + 1, events, pos, tail - pos - 1);
+            events[--tail] = null;
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+            }
+            return true;
+        }
+
+        void clear() {
+            Arrays.fill(events, head, tail, null);
+            head = 0;
+            tail = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.log.LogSchema.ColumnType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Converts binary logs written by {@link BinaryRecordWriter} into the CSV logs
+ * that would have been written with the default log format, such that
+ * existing post-processing keeps working.
+ * <p>
+ * Usage: java -cp NetBench.jar ch.ethz.systems.netbench.core.log.BinaryLogConverter [file or folder] ...
+ * <p>
+ * A folder is searched (non-recursively) for binary logs. Each is converted into
+ * the CSV file named by its schema, next to it.
+ */
+public class BinaryLogConverter {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: BinaryLogConverter [binary log file or logs folder] ...");
+        }
+        for (String arg : args) {
+            File file = new File(arg);
+            if (file.isDirectory()) {
+                convertFolder(file);
+            } else {
+                convert(file);
+            }
+        }
+    }
+
+    /**
+     * Convert all binary logs in a folder.
+     *
+     * @param folder    Logs folder
+     */
+    public static void convertFolder(File folder) {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(".bin"));
+        if (files == null) {
+            throw new IllegalArgumentException("Not a folder: " + folder);
+        }
+        for (File file : files) {
+            convert(file);
+        }
+    }
+
+    /**
+     * Convert a binary log into its CSV log in the same folder.
+     *
+     * @param binaryFile    Binary log file
+     *
+     * @return CSV log file
+     */
+    public static File convert(File binaryFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile), 1 << 20))) {
+
+            // Header
+            if (in.readInt() != BinaryRecordWriter.MAGIC) {
+                throw new IllegalArgumentException("Not a binary log: " + binaryFile);
+            }
+            int version = in.readInt();
+            if (version != BinaryRecordWriter.VERSION) {
+                throw new IllegalArgumentException("Unsupported binary log version " + version + ": " + binaryFile);
+            }
+            byte[] schemaBytes = new byte[in.readInt()];
+            in.readFully(schemaBytes);
+            LogSchema schema = LogSchema.readFrom(new DataInputStream(new ByteArrayInputStream(schemaBytes)));
+
+            // Only complete records are converted (a run which crashed may have left a partial one)
+            long recordBytes = binaryFile.length() - 12 - schemaBytes.length;
+            long numRecords = recordBytes / schema.getRecordSizeByte();
+            if (recordBytes % schema.getRecordSizeByte() != 0) {
+                System.out.println("Binary log " + binaryFile + " ends with an incomplete record, which is skipped.");
+            }
+
+            // Records
+            File csvFile = new File(binaryFile.getParentFile(), schema.getName());
+            CsvRecordWriter writer = new CsvRecordWriter(new BufferedWriter(new FileWriter(csvFile)), schema, false);
+            ColumnType[] columnTypes = new ColumnType[schema.getNumColumns()];
+            for (int i = 0; i < columnTypes.length; i++) {
+                columnTypes[i] = schema.getColumnType(i);
+            }
+            for (long r = 0; r < numRecords; r++) {
+                for (ColumnType type : columnTypes) {
+                    switch (type) {
+                        case INT:
+                            writer.putInt(in.readInt());
+                            break;
+                        case LONG:
+                            writer.putLong(in.readLong());
+                            break;
+                        case DOUBLE:
+                            writer.putDouble(in.readDouble());
+                            break;
+                        case FLAG:
+                            writer.putFlag(in.readByte() != 0);
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown column type: " + type);
+                    }
+                }
+                writer.endRecord();
+            }
+            writer.close();
+            return csvFile;
+
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+}
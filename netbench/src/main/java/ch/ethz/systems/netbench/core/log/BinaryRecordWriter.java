@@ -0,0 +1,147 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.log.LogSchema.ColumnType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes records as fixed-width binary records through a file channel.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * int      magic ({@link #MAGIC})
+ * int      format version ({@link #VERSION})
+ * int      schema length in bytes
+ * byte[]   schema (see {@link LogSchema#writeTo(java.io.DataOutput)})
+ * record*  each of {@link LogSchema#getRecordSizeByte()} bytes: the columns
+ *          in schema order, int (4), long (8), double (8) or flag (1)
+ * </pre>
+ * Records are collected in a direct buffer, which is only written
+ * to the channel when it is full or upon flush/close.
+ * Use {@link BinaryLogConverter} to convert the file into the CSV log.
+ */
+public class BinaryRecordWriter implements RecordWriter {
+
+    static final int MAGIC = 0x4E424C47; // "NBLG"
+    static final int VERSION = 1;
+    private static final int BUFFER_SIZE_BYTE = 1 << 20;
+
+    private final FileChannel channel;
+    private final LogSchema schema;
+    private final ColumnType[] columnTypes;
+    private final ByteBuffer buffer;
+    private int column;
+
+    /**
+     * Create (or overwrite) a binary log file and write its header.
+     *
+     * @param fileName  Binary log file name
+     * @param schema    Log schema
+     */
+    public BinaryRecordWriter(String fileName, LogSchema schema) {
+        this.schema = schema;
+        this.columnTypes = new ColumnType[schema.getNumColumns()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = schema.getColumnType(i);
+        }
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE_BYTE, schema.getRecordSizeByte()));
+        this.column = 0;
+        try {
+            this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            ByteArrayOutputStream schemaBytes = new ByteArrayOutputStream();
+            schema.writeTo(new DataOutputStream(schemaBytes));
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(schemaBytes.size());
+            buffer.put(schemaBytes.toByteArray());
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+    private void next(ColumnType type) {
+        if (column == columnTypes.length || columnTypes[column] != type) {
+            throw new IllegalStateException(
+                    "Log " + schema.getName() + " does not expect a " + type + " value in column " + column + ".");
+        }
+        if (column == 0 && buffer.remaining() < schema.getRecordSizeByte()) {
+            flush();
+        }
+        column++;
+    }
+
+    @Override
+    public RecordWriter putInt(int value) {
+        next(ColumnType.INT);
+        buffer.putInt(value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter putLong(long value) {
+        next(ColumnType.LONG);
+        buffer.putLong(value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter putDouble(double value) {
+        next(ColumnType.DOUBLE);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter putFlag(boolean value) {
+        next(ColumnType.FLAG);
+        buffer.put(value ? (byte) 1 : (byte) 0);
+        return this;
+    }
+
+    @Override
+    public void endRecord() {
+        if (column != columnTypes.length) {
+            throw new IllegalStateException(
+                    "Log " + schema.getName() + " record ended after " + column + " of " + columnTypes.length + " columns.");
+        }
+        column = 0;
+    }
+
+    /**
+     * Write the buffered records to the file. A partially put record
+     * is written as well, so only flush in between records.
+     */
+    @Override
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package ch.ethz.systems.netbench.core.log;
+
+import ch.ethz.systems.netbench.core.log.LogSchema.ColumnType;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes records as comma-separated lines (the default log format).
+ */
+public class CsvRecordWriter implements RecordWriter {
+
+    private final Writer writer;
+    private final LogSchema schema;
+    private final ColumnType[] columnTypes;
+    private final boolean flushEveryRecord;
+    private final StringBuilder line;
+    private int column;
+
+    /**
+     * Create a CSV record writer, which immediately writes the header (if the schema has one).
+     *
+     * @param writer            Underlying writer (is closed together with this writer)
+     * @param schema            Log schema
+     * @param flushEveryRecord  True iff every record should be flushed immediately
+     */
+    public CsvRecordWriter(Writer writer, LogSchema schema, boolean flushEveryRecord) {
+        this.writer = writer;
+        this.schema = schema;
+        this.columnTypes = new ColumnType[schema.getNumColumns()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = schema.getColumnType(i);
+        }
+        this.flushEveryRecord = flushEveryRecord;
+        this.line = new StringBuilder();
+        this.column = 0;
+        if (schema.getCsvHeader() != null) {
+            try {
+                writer.write(schema.getCsvHeader() + "\n");
+            } catch (IOException e) {
+                throw new LogFailureException(e);
+            }
+        }
+    }
+
+    private void next(ColumnType type) {
+        if (column == columnTypes.length || columnTypes[column] != type) {
+            throw new IllegalStateException(
+                    "Log " + schema.getName() + " does not expect a " + type + " value in column " + column + ".");
+        }
+        if (column != 0) {
+            line.append(',');
+        }
+        column++;
+    }
+
+    @Override
+    public RecordWriter putInt(int value) {
+        next(ColumnType.INT);
+        line.append(value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter putLong(long value) {
+        next(ColumnType.LONG);
+        line.append(value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter putDouble(double value) {
+        next(ColumnType.DOUBLE);
+        line.append(value);
+        return this;
+    }
+
+    @Override
+    public RecordWriter putFlag(boolean value) {
+        int flagColumn = column;
+        next(ColumnType.FLAG);
+        line.append(schema.getFlagText(flagColumn, value));
+        return this;
+    }
+
+    @Override
+    public void endRecord() {
+        if (column != columnTypes.length) {
+            throw new IllegalStateException(
+                    "Log " + schema.getName() + " record ended after " + column + " of " + columnTypes.length + " columns.");
+        }
+        line.append('\n');
+        try {
+            writer.append(line);
+            if (flushEveryRecord) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+        line.setLength(0);
+        column = 0;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+}
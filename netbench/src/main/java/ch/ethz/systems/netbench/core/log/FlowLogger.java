@@ -2,9 +2,12 @@ package ch.ethz.systems.netbench.core.log;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import edu.asu.emit.algorithm.graph.Vertex;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -100,6 +103,57 @@ public class FlowLogger {
         }
     }
 
+    /**
+     * Write the progress of the flow and its path to a checkpoint.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(flowStartTime);
+        out.writeLong(measureStartTime);
+        out.writeLong(totalBytesReceived);
+        out.writeLong(receivedBytes);
+        out.writeLong(flowEndTime);
+        out.writeInt(coreId);
+        out.writeInt(sourceEdgeId);
+        out.writeInt(targetEdgeId);
+        out.writeInt(sourceAggregationId);
+        out.writeInt(targetAggregationId);
+        out.writeInt(path == null ? -1 : path.size());
+        if (path != null) {
+            for (int nodeId : path) {
+                out.writeInt(nodeId);
+            }
+        }
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        flowStartTime = in.readLong();
+        measureStartTime = in.readLong();
+        totalBytesReceived = in.readLong();
+        receivedBytes = in.readLong();
+        flowEndTime = in.readLong();
+        coreId = in.readInt();
+        sourceEdgeId = in.readInt();
+        targetEdgeId = in.readInt();
+        sourceAggregationId = in.readInt();
+        targetAggregationId = in.readInt();
+        int pathLength = in.readInt();
+        if (pathLength == -1) {
+            path = null;
+        } else {
+            path = new ArrayList<>(pathLength);
+            for (int i = 0; i < pathLength; i++) {
+                path.add(in.readInt());
+            }
+        }
+    }
+
     /**
      * Retrieve flow identifier.
      *
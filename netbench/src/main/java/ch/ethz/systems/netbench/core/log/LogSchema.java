@@ -0,0 +1,249 @@
+package ch.ethz.systems.netbench.core.log;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logical schema of a tabular log: an ordered list of typed columns.
+ * <p>
+ * The same schema is used to write the log as CSV and as fixed-width
+ * binary records, such that a binary log can be converted into exactly
+ * the CSV which would otherwise have been written.
+ */
+public class LogSchema {
+
+    /**
+     * Type of a column, which determines its fixed binary width.
+     */
+    public enum ColumnType {
+        INT(4),
+        LONG(8),
+        DOUBLE(8),
+        FLAG(1);
+
+        private final int widthByte;
+
+        ColumnType(int widthByte) {
+            this.widthByte = widthByte;
+        }
+
+        public int getWidthByte() {
+            return widthByte;
+        }
+    }
+
+    /**
+     * Finished flows (one line per flow).
+     */
+    public static final LogSchema FLOW_INFO = new LogSchema("flow_info.csv", null)
+            .addColumn("flow_id", ColumnType.LONG)
+            .addColumn("source_id", ColumnType.INT)
+            .addColumn("source_tor_id", ColumnType.INT)
+            .addColumn("target_id", ColumnType.INT)
+            .addColumn("target_tor_id", ColumnType.INT)
+            .addColumn("core_id", ColumnType.INT)
+            .addColumn("job_id", ColumnType.INT)
+            .addColumn("sent_bytes", ColumnType.LONG)
+            .addColumn("total_size_bytes", ColumnType.LONG)
+            .addColumn("start_time", ColumnType.LONG)
+            .addColumn("end_time", ColumnType.LONG)
+            .addColumn("duration", ColumnType.LONG)
+            .addFlagColumn("completed", "TRUE", "FALSE");
+
+    /**
+     * Sampled queue state of output ports.
+     */
+    public static final LogSchema PORT_QUEUE_LENGTH = new LogSchema(
+            "port_queue_length.csv", "source_id,target_id,queue_length,buffer_occupied_bits,absolute_time")
+            .addColumn("source_id", ColumnType.LONG)
+            .addColumn("target_id", ColumnType.LONG)
+            .addColumn("queue_length", ColumnType.INT)
+            .addColumn("buffer_occupied_bits", ColumnType.LONG)
+            .addColumn("absolute_time", ColumnType.LONG);
+
+    /**
+     * Utilization of output ports over the whole run.
+     */
+    public static final LogSchema PORT_UTILIZATION = new LogSchema("port_utilization.csv", null)
+            .addColumn("source_id", ColumnType.INT)
+            .addColumn("target_id", ColumnType.INT)
+            .addFlagColumn("attached_to_server", "Y", "N")
+            .addColumn("utilized_ns", ColumnType.LONG)
+            .addColumn("utilization_percentage", ColumnType.DOUBLE);
+
+    /**
+     * Amount of bytes sent by flows per interval.
+     */
+    public static final LogSchema FLOW_THROUGHPUT = new LogSchema("flow_throughput.csv", null)
+            .addColumn("flow_id", ColumnType.LONG)
+            .addColumn("source_id", ColumnType.INT)
+            .addColumn("target_id", ColumnType.INT)
+            .addColumn("amount_bytes", ColumnType.LONG)
+            .addColumn("start_time", ColumnType.LONG)
+            .addColumn("end_time", ColumnType.LONG);
+
+    private final String name;
+    private final String csvHeader;
+    private final List<String> columnNames;
+    private final List<ColumnType> columnTypes;
+    private final List<String[]> flagTexts;
+    private int recordSizeByte;
+
+    /**
+     * Create an empty schema.
+     *
+     * @param name      File name of the CSV log (e.g. flow_info.csv)
+     * @param csvHeader Header line of the CSV log (null if it has none)
+     */
+    public LogSchema(String name, String csvHeader) {
+        this.name = name;
+        this.csvHeader = csvHeader;
+        this.columnNames = new ArrayList<>();
+        this.columnTypes = new ArrayList<>();
+        this.flagTexts = new ArrayList<>();
+        this.recordSizeByte = 0;
+    }
+
+    /**
+     * Append a numeric column.
+     *
+     * @param columnName    Column name
+     * @param type          Column type (not a flag)
+     *
+     * @return This schema
+     */
+    public LogSchema addColumn(String columnName, ColumnType type) {
+        if (type == ColumnType.FLAG) {
+            throw new IllegalArgumentException("Flag columns require their CSV representation: " + columnName);
+        }
+        return add(columnName, type, null);
+    }
+
+    /**
+     * Append a boolean column.
+     *
+     * @param columnName    Column name
+     * @param trueText      CSV representation of true
+     * @param falseText     CSV representation of false
+     *
+     * @return This schema
+     */
+    public LogSchema addFlagColumn(String columnName, String trueText, String falseText) {
+        return add(columnName, ColumnType.FLAG, new String[]{trueText, falseText});
+    }
+
+    private LogSchema add(String columnName, ColumnType type, String[] texts) {
+        columnNames.add(columnName);
+        columnTypes.add(type);
+        flagTexts.add(texts);
+        recordSizeByte += type.getWidthByte();
+        return this;
+    }
+
+    /**
+     * Write the schema (as header of a binary log).
+     *
+     * @param out   Output
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeBoolean(csvHeader != null);
+        if (csvHeader != null) {
+            out.writeUTF(csvHeader);
+        }
+        out.writeInt(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            out.writeUTF(columnNames.get(i));
+            out.writeByte(columnTypes.get(i).ordinal());
+            if (columnTypes.get(i) == ColumnType.FLAG) {
+                out.writeUTF(flagTexts.get(i)[0]);
+                out.writeUTF(flagTexts.get(i)[1]);
+            }
+        }
+    }
+
+    /**
+     * Read a schema written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in    Input
+     *
+     * @return Schema
+     */
+    static LogSchema readFrom(DataInput in) throws IOException {
+        String name = in.readUTF();
+        String csvHeader = in.readBoolean() ? in.readUTF() : null;
+        LogSchema schema = new LogSchema(name, csvHeader);
+        int numColumns = in.readInt();
+        for (int i = 0; i < numColumns; i++) {
+            String columnName = in.readUTF();
+            ColumnType type = ColumnType.values()[in.readByte()];
+            if (type == ColumnType.FLAG) {
+                schema.addFlagColumn(columnName, in.readUTF(), in.readUTF());
+            } else {
+                schema.addColumn(columnName, type);
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Retrieve the file name of the CSV log.
+     *
+     * @return CSV file name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieve the file name of the binary log, which is
+     * the CSV file name with its extension replaced by <i>.bin</i>.
+     *
+     * @return Binary file name
+     */
+    public String getBinaryName() {
+        int dot = name.lastIndexOf('.');
+        return (dot == -1 ? name : name.substring(0, dot)) + ".bin";
+    }
+
+    public String getCsvHeader() {
+        return csvHeader;
+    }
+
+    public int getNumColumns() {
+        return columnTypes.size();
+    }
+
+    public String getColumnName(int column) {
+        return columnNames.get(column);
+    }
+
+    public ColumnType getColumnType(int column) {
+        return columnTypes.get(column);
+    }
+
+    /**
+     * Retrieve the CSV representation of a flag value.
+     *
+     * @param column    Flag column index
+     * @param value     Flag value
+     *
+     * @return CSV text
+     */
+    public String getFlagText(int column, boolean value) {
+        return flagTexts.get(column)[value ? 0 : 1];
+    }
+
+    /**
+     * Retrieve the width of a binary record.
+     *
+     * @return Record size in bytes
+     */
+    public int getRecordSizeByte() {
+        return recordSizeByte;
+    }
+
+}
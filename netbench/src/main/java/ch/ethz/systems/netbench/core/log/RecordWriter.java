@@ -0,0 +1,37 @@
+package ch.ethz.systems.netbench.core.log;
+
+/**
+ * Writer of a tabular log with a fixed {@link LogSchema schema}.
+ * <p>
+ * A record is written by putting every column value in schema order,
+ * followed by {@link #endRecord()}, e.g.:
+ * <pre>
+ * writer.putLong(flowId).putInt(sourceId).putFlag(completed).endRecord();
+ * </pre>
+ */
+public interface RecordWriter {
+
+    RecordWriter putInt(int value);
+
+    RecordWriter putLong(long value);
+
+    RecordWriter putDouble(double value);
+
+    RecordWriter putFlag(boolean value);
+
+    /**
+     * Finish the current record, of which all columns must have been put.
+     */
+    void endRecord();
+
+    /**
+     * Write any buffered records to the file.
+     */
+    void flush();
+
+    /**
+     * Flush and close the file.
+     */
+    void close();
+
+}
@@ -1,10 +1,13 @@
 package ch.ethz.systems.netbench.core.log;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.run.MainFromProperties;
 import ch.ethz.systems.netbench.core.run.routing.remote.RemoteRoutingController;
+import ch.ethz.systems.netbench.core.run.sweep.ConsoleRouter;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.xpt.megaswitch.JumboFlow;
 import ch.ethz.systems.netbench.xpt.megaswitch.server_optic.distributed.metrics.Metric;
@@ -18,53 +21,66 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class SimulationLogger {
-    private static final HashMap<Long, Path> activePathMap = new HashMap<>();
-    private static final Stack<Long> oldestActivePaths = new Stack<>();
-    private static final Stack<Long> oldestDistProtocolStates = new Stack<>();
-    private static final HashMap<Long, JumboFlow> activeDistProtocolStates = new HashMap<>();
-    private static final Map<String, BufferedWriter> writersAdded = new HashMap<>();
-    // Specific component loggers
-    private static final List<PortLogger> portLoggers = new ArrayList<>();
-    private static final Map<Long, FlowLogger> flowLoggerByFlowId = new HashMap<>();
-    private static final Map<Long, FlowLogger> activeFlowLoggerByFlowId = new HashMap<>();
-    private static final List<LoggerCallback> callbacks = new ArrayList<>();
-    private static final HashMap<Long, Long> flowsOnCircuit = new HashMap<>();
-    private static final HashMap<Long, Set<Long>> flowsRequestCircuit = new HashMap<>();
-    // Statistic counters
-    private static final Map<String, Long> statisticCounters = new HashMap<>();
-
-    public static int numberOfFlows;
-    private static BufferedWriter writerRemainingPaths;
-    // Main token identifying the run log folder
-    private static String runFolderName;
-    private static String baseDir;
-    private static String commonBase;
-    // Access files for logging (are kept open during simulation run)
-    private static BufferedWriter writerRunInfoFile;
-    private static BufferedWriter writerFlowCompletionCsvFile;
-    private static BufferedWriter writerFlowThroughputFile;
-    private static BufferedWriter writerFlowCompletionFile;
-    private static BufferedWriter writerPortQueueStateFile;
-    private static BufferedWriter writerPortUtilizationFile;
-    private static BufferedWriter writerPortUtilizationCsvFile;
-    private static BufferedWriter writerRemoteRouterPathLog;
-    private static BufferedWriter writerFlowOnCircuit;
-    private static BufferedWriter writerFlowsOnCircuitEntranceTime;
-    private static BufferedWriter writerRemoteRouterStateLogCSV;
-    private static BufferedWriter writerRemoteRouterDropStatisticsCSV;
-    private static BufferedWriter writerECNStatistics;
-    private static BufferedWriter writerPacketsDispatchedStatistics;
-    private static BufferedWriter commonDropStatisticsWriter;
-    // Print streams used
-    private static PrintStream originalOutOutputStream;
-    private static PrintStream originalErrOutputStream;
-    private static OutputStream underlyingFileOutputStream;
-    // Settings
-    private static boolean logHumanReadableFlowCompletionEnabled;
-    private static BufferedWriter flowRequestLogWriter;
-    private static LinkedList<Metric> sMetrics;
-    private static BufferedWriter deltaTStatisticsWriter;
-    private static BufferedWriter collisionStatisticsWriter;
+    // State of the run of the current thread
+    private static final RunContext.Slot<State> STATE = RunContext.slot(State::new);
+
+    /**
+     * State of the logs of a run.
+     */
+    private static class State {
+        private final HashMap<Long, Path> activePathMap = new HashMap<>();
+        private final Stack<Long> oldestActivePaths = new Stack<>();
+        private final Stack<Long> oldestDistProtocolStates = new Stack<>();
+        private final HashMap<Long, JumboFlow> activeDistProtocolStates = new HashMap<>();
+        private final Map<String, BufferedWriter> writersAdded = new HashMap<>();
+        // Specific component loggers
+        private final List<PortLogger> portLoggers = new ArrayList<>();
+        private final Map<Long, FlowLogger> flowLoggerByFlowId = new HashMap<>();
+        private final Map<Long, FlowLogger> activeFlowLoggerByFlowId = new HashMap<>();
+        private final List<LoggerCallback> callbacks = new ArrayList<>();
+        private final HashMap<Long, Long> flowsOnCircuit = new HashMap<>();
+        private final HashMap<Long, Set<Long>> flowsRequestCircuit = new HashMap<>();
+        // Statistic counters
+        private final Map<String, Long> statisticCounters = new HashMap<>();
+
+        private int numberOfFlows;
+        private BufferedWriter writerRemainingPaths;
+        // Main token identifying the run log folder
+        private String runFolderName;
+        private String baseDir;
+        private String commonBase;
+        // Access files for logging (are kept open during simulation run)
+        private BufferedWriter writerRunInfoFile;
+        private RecordWriter writerFlowCompletionCsvFile;
+        private RecordWriter writerFlowThroughputFile;
+        private BufferedWriter writerFlowCompletionFile;
+        private RecordWriter writerPortQueueStateFile;
+        private BufferedWriter writerPortUtilizationFile;
+        private RecordWriter writerPortUtilizationCsvFile;
+        private BufferedWriter writerRemoteRouterPathLog;
+        private BufferedWriter writerFlowOnCircuit;
+        private BufferedWriter writerFlowsOnCircuitEntranceTime;
+        private BufferedWriter writerRemoteRouterStateLogCSV;
+        private BufferedWriter writerRemoteRouterDropStatisticsCSV;
+        private BufferedWriter writerECNStatistics;
+        private BufferedWriter writerPacketsDispatchedStatistics;
+        private BufferedWriter commonDropStatisticsWriter;
+        // Print streams used
+        private PrintStream originalOutOutputStream;
+        private PrintStream originalErrOutputStream;
+        private OutputStream underlyingFileOutputStream;
+        // Settings
+        private boolean logHumanReadableFlowCompletionEnabled;
+        private boolean logBinaryEnabled;
+        private BufferedWriter flowRequestLogWriter;
+        private LinkedList<Metric> sMetrics;
+        private BufferedWriter deltaTStatisticsWriter;
+        private BufferedWriter collisionStatisticsWriter;
+    }
+
+    private static State state() {
+        return RunContext.current().get(STATE);
+    }
 
     /**
      * Increase a basic statistic counter with the given name by one.
@@ -72,15 +88,15 @@ public class SimulationLogger {
      * @param name Statistic name
      */
     public static void increaseStatisticCounter(String name) {
-        statisticCounters.merge(name, 1L, Long::sum);
+        state().statisticCounters.merge(name, 1L, Long::sum);
     }
 
     public static void increaseStatisticCounterBy(String name, long increaseBy) {
-        Long val = statisticCounters.get(name);
+        Long val = state().statisticCounters.get(name);
         if (val == null) {
             val = 0L;
         }
-        statisticCounters.put(name, val + increaseBy);
+        state().statisticCounters.put(name, val + increaseBy);
     }
 
     /**
@@ -91,7 +107,7 @@ public class SimulationLogger {
      * @param logger Port logger instance
      */
     static void registerPortLogger(PortLogger logger) {
-        portLoggers.add(logger);
+        state().portLoggers.add(logger);
     }
 
     /**
@@ -102,8 +118,17 @@ public class SimulationLogger {
      * @param logger Flow logger instance
      */
     static void registerFlowLogger(FlowLogger logger) {
-        flowLoggerByFlowId.put(logger.getFlowId(), logger);
-        activeFlowLoggerByFlowId.put(logger.getFlowId(), logger);
+        state().flowLoggerByFlowId.put(logger.getFlowId(), logger);
+        state().activeFlowLoggerByFlowId.put(logger.getFlowId(), logger);
+    }
+
+    /**
+     * Set the number of flows planned in the run.
+     *
+     * @param numberOfFlows Number of flows
+     */
+    public static void setNumberOfFlows(int numberOfFlows) {
+        state().numberOfFlows = numberOfFlows;
     }
 
     /**
@@ -112,7 +137,8 @@ public class SimulationLogger {
      * @return Full run folder path
      */
     public static String getRunFolderFull() {
-        return baseDir + "/" + runFolderName;
+        State state = state();
+        return state.baseDir + "/" + state.runFolderName;
     }
 
     /**
@@ -128,7 +154,7 @@ public class SimulationLogger {
      * @return run folder name
      */
     public static String getRunFolderName() {
-        return runFolderName;
+        return state().runFolderName;
     }
 
     /**
@@ -160,67 +186,76 @@ public class SimulationLogger {
                     Constants.Simulation.RUN_FOLDER_BASE_DIR, null);
 
             // Enabling human readable version
-            logHumanReadableFlowCompletionEnabled = tempRunConfiguration.getBooleanPropertyWithDefault(
+            state().logHumanReadableFlowCompletionEnabled = tempRunConfiguration.getBooleanPropertyWithDefault(
                     Constants.Logger.ENABLE_GENERATE_HUMAN_READABLE_FLOW_COMPLETION_LOG,
                     true);
+
+            // Format of the tabular logs
+            state().logBinaryEnabled = selectBinaryLogFormat(tempRunConfiguration);
+        } else {
+            state().logBinaryEnabled = false;
         }
 
         // Overwrite if run folder name was specified in run configuration
         if (specificRunFolderName == null) {
-            runFolderName = "nameless_run_" + new SimpleDateFormat("yyyy-MM-dd--HH'h'mm'm'ss's'").format(new Date());
+            state().runFolderName = "nameless_run_" + new SimpleDateFormat("yyyy-MM-dd--HH'h'mm'm'ss's'").format(new Date());
         } else {
-            runFolderName = specificRunFolderName;
+            state().runFolderName = specificRunFolderName;
         }
 
         // Overwrite if run folder name was specified in run configuration
         if (specificRunFolderBaseDirectory == null) {
-            baseDir = "./temp";
+            state().baseDir = "./temp";
         } else {
-            baseDir = specificRunFolderBaseDirectory;
+            state().baseDir = specificRunFolderBaseDirectory;
         }
 
-        sMetrics = new LinkedList<>();
+        state().sMetrics = new LinkedList<>();
         try {
 
             // Create run token folder
             new File(getLogsFolder()).mkdirs();
             // Copy console output to the run folder
             FileOutputStream fosOS = new FileOutputStream(getLogsFolder() + "/console.txt");
-            TeeOutputStream customOutputStreamOut = new TeeOutputStream(System.out, fosOS);
-            TeeOutputStream customOutputStreamErr = new TeeOutputStream(System.err, fosOS);
-            underlyingFileOutputStream = fosOS;
-            originalOutOutputStream = System.out;
-            originalErrOutputStream = System.err;
-            System.setOut(new PrintStream(customOutputStreamOut));
-            System.setErr(new PrintStream(customOutputStreamErr));
-            writerRemainingPaths = openWriter("active_paths.log");
+            state().underlyingFileOutputStream = fosOS;
+            if (ConsoleRouter.isInstalled()) {
+                // Concurrent runs of a sweep cannot replace the global streams
+                ConsoleRouter.attach(fosOS);
+            } else {
+                TeeOutputStream customOutputStreamOut = new TeeOutputStream(System.out, fosOS);
+                TeeOutputStream customOutputStreamErr = new TeeOutputStream(System.err, fosOS);
+                state().originalOutOutputStream = System.out;
+                state().originalErrOutputStream = System.err;
+                System.setOut(new PrintStream(customOutputStreamOut));
+                System.setErr(new PrintStream(customOutputStreamErr));
+            }
+            state().writerRemainingPaths = openWriter("active_paths.log");
             // Info
-            writerRunInfoFile = openWriter("initialization.info");
-            flowRequestLogWriter = openWriter("flow_circuit_request_log.log");
-            writerFlowsOnCircuitEntranceTime = openWriter("flow_circuit_entrance_times.log");
-            writerFlowOnCircuit = openWriter("flows_on_circuit.log");
+            state().writerRunInfoFile = openWriter("initialization.info");
+            state().flowRequestLogWriter = openWriter("flow_circuit_request_log.log");
+            state().writerFlowsOnCircuitEntranceTime = openWriter("flow_circuit_entrance_times.log");
+            state().writerFlowOnCircuit = openWriter("flows_on_circuit.log");
             // Port log writers
-            writerPortQueueStateFile = openWriter("port_queue_length.csv");
-            writerPortQueueStateFile.write("source_id,target_id,queue_length,buffer_occupied_bits,absolute_time\n");
-            writerPortUtilizationCsvFile = openWriter("port_utilization.csv");
-            writerPortUtilizationFile = openWriter("port_utilization.log");
-
-            writerRemoteRouterPathLog = openWriter("remote_router_path.log");
-            writerRemoteRouterStateLogCSV = openWriter("remote_router_state.csv");
-            writerRemoteRouterDropStatisticsCSV = openWriter("remote_router_drop_statistics.csv");
+            state().writerPortQueueStateFile = openRecordWriter(LogSchema.PORT_QUEUE_LENGTH, false);
+            state().writerPortUtilizationCsvFile = openRecordWriter(LogSchema.PORT_UTILIZATION, false);
+            state().writerPortUtilizationFile = openWriter("port_utilization.log");
+
+            state().writerRemoteRouterPathLog = openWriter("remote_router_path.log");
+            state().writerRemoteRouterStateLogCSV = openWriter("remote_router_state.csv");
+            state().writerRemoteRouterDropStatisticsCSV = openWriter("remote_router_drop_statistics.csv");
             // Flow log writers
-            writerFlowThroughputFile = openWriter("flow_throughput.csv");
-            writerFlowCompletionCsvFile = openWriter("flow_info.csv");
-            writerFlowCompletionFile = openWriter("flow_completion.log");
+            state().writerFlowThroughputFile = openRecordWriter(LogSchema.FLOW_THROUGHPUT, false);
+            state().writerFlowCompletionCsvFile = openRecordWriter(LogSchema.FLOW_INFO, true);
+            state().writerFlowCompletionFile = openWriter("flow_completion.log");
 
-            writerECNStatistics = openWriter("ecn_statistics.log");
-            writerPacketsDispatchedStatistics = openWriter("packets_dispatched.log");
+            state().writerECNStatistics = openWriter("ecn_statistics.log");
+            state().writerPacketsDispatchedStatistics = openWriter("packets_dispatched.log");
 
-            deltaTStatisticsWriter = openWriter("delta_t_statistics.csv");
-            deltaTStatisticsWriter.write("large_flows,large_finished_flows\n");
-            deltaTStatisticsWriter.flush();
+            state().deltaTStatisticsWriter = openWriter("delta_t_statistics.csv");
+            state().deltaTStatisticsWriter.write("large_flows,large_finished_flows\n");
+            state().deltaTStatisticsWriter.flush();
 
-            collisionStatisticsWriter = openWriter("delta_t_collision_statistics.log");
+            state().collisionStatisticsWriter = openWriter("delta_t_collision_statistics.log");
             // Writer out the final properties' values
             if (tempRunConfiguration != null) {
                 BufferedWriter finalPropertiesInfoFile = openWriter("final_properties.info");
@@ -233,6 +268,48 @@ public class SimulationLogger {
 
     }
 
+    /**
+     * Select the format of the tabular logs (flow_info.csv, port_queue_length.csv,
+     * port_utilization.csv and flow_throughput.csv).
+     * <p>
+     * Selected using following property:
+     * log_format=csv (default) | binary
+     * <p>
+     * The binary format writes fixed-width records into a .bin file instead
+     * (e.g. flow_info.bin), which can be converted into the CSV file
+     * afterwards using {@link BinaryLogConverter}.
+     *
+     * @param configuration Run configuration
+     *
+     * @return True iff the binary format is selected
+     */
+    private static boolean selectBinaryLogFormat(NBProperties configuration) {
+        switch (configuration.getPropertyWithDefault(Constants.Logger.LOG_FORMAT, Constants.Logger.LOG_FORMAT_CSV)) {
+            case Constants.Logger.LOG_FORMAT_CSV:
+                return false;
+            case Constants.Logger.LOG_FORMAT_BINARY:
+                return true;
+            default:
+                throw new PropertyValueInvalidException(configuration, Constants.Logger.LOG_FORMAT);
+        }
+    }
+
+    /**
+     * Open a record writer of a tabular log in the run _path, in the selected log format.
+     *
+     * @param schema            Log schema
+     * @param flushEveryRecord  True iff every record should be flushed immediately (only for CSV)
+     *
+     * @return Record writer of the log
+     */
+    private static RecordWriter openRecordWriter(LogSchema schema, boolean flushEveryRecord) {
+        if (state().logBinaryEnabled) {
+            return new BinaryRecordWriter(getLogsFolder() + "/" + schema.getBinaryName(), schema);
+        } else {
+            return new CsvRecordWriter(openWriter(schema.getName()), schema, flushEveryRecord);
+        }
+    }
+
     public static void openCommon(NBProperties tempRunConfiguration) {
         if (!tempRunConfiguration.hasSubConfiguration()) {
             return;
@@ -241,12 +318,12 @@ public class SimulationLogger {
                 tempRunConfiguration.getPropertyOrFail(Constants.Simulation.RUN_FOLDER_BASE_DIR));
 
         new File(base).mkdirs();
-        commonBase = base;
+        state().commonBase = base;
         if (tempRunConfiguration.getPropertyWithDefault(
                 Constants.RemoteRoutingPopulator.CENTERED_ROUTING_TYPE, null) != null) {
-            commonDropStatisticsWriter = openCommonWriter("common_drop_statistics.csv");
+            state().commonDropStatisticsWriter = openCommonWriter("common_drop_statistics.csv");
             try {
-                commonDropStatisticsWriter.write("run_folder,failures,successes,percentage\n");
+                state().commonDropStatisticsWriter.write("run_folder,failures,successes,percentage\n");
             } catch (IOException e) {
                 // TODO Auto-generated catch block
                 throw new RuntimeException("could not open common log");
@@ -255,9 +332,9 @@ public class SimulationLogger {
     }
 
     public static void closeCommon() {
-        if (commonDropStatisticsWriter != null) {
+        if (state().commonDropStatisticsWriter != null) {
             try {
-                commonDropStatisticsWriter.close();
+                state().commonDropStatisticsWriter.close();
             } catch (IOException e) {
                 // TODO Auto-generated catch block
                 throw new RuntimeException("could not close common log");
@@ -275,11 +352,11 @@ public class SimulationLogger {
     }
 
     public static String getBaseFolder() {
-        return baseDir;
+        return state().baseDir;
     }
 
     private static String getCommonBaseDir() {
-        return commonBase;
+        return state().commonBase;
     }
 
     /**
@@ -288,7 +365,7 @@ public class SimulationLogger {
      * @param callback Callback instance
      */
     public static void registerCallbackBeforeClose(LoggerCallback callback) {
-        callbacks.add(callback);
+        state().callbacks.add(callback);
     }
 
     /**
@@ -338,10 +415,10 @@ public class SimulationLogger {
      * {@link #close()})
      */
     public static BufferedWriter getExternalWriter(String logFileName) {
-        BufferedWriter writer = writersAdded.get(logFileName);
+        BufferedWriter writer = state().writersAdded.get(logFileName);
         if (writer == null) {
             writer = openWriter(logFileName);
-            writersAdded.put(logFileName, writer);
+            state().writersAdded.put(logFileName, writer);
         }
         return writer;
     }
@@ -356,10 +433,10 @@ public class SimulationLogger {
      * {@link #close()})
      */
     public static BufferedWriter getExternalWriter(String logFileName, String folderPath) {
-        BufferedWriter writer = writersAdded.get(logFileName);
+        BufferedWriter writer = state().writersAdded.get(logFileName);
         if (writer == null) {
             writer = openWriter(logFileName, folderPath, true);
-            writersAdded.put(logFileName, writer);
+            state().writersAdded.put(logFileName, writer);
         }
         return writer;
     }
@@ -370,10 +447,10 @@ public class SimulationLogger {
     public static void close() {
 
         // Callback loggers to finalize their logs
-        for (LoggerCallback callback : callbacks) {
+        for (LoggerCallback callback : state().callbacks) {
             callback.callBeforeClose();
         }
-        callbacks.clear();
+        state().callbacks.clear();
 
         // Most important logs
         logFlowSummary();
@@ -382,62 +459,67 @@ public class SimulationLogger {
         logECNStatistics();
         logPacketsDispatched();
         try {
-            SortedSet<Long> keys = new TreeSet<>(activePathMap.keySet());
+            SortedSet<Long> keys = new TreeSet<>(state().activePathMap.keySet());
             for (Long key : keys) {
-                writerRemainingPaths.write(activePathMap.get(key).toString() + "\n");
+                state().writerRemainingPaths.write(state().activePathMap.get(key).toString() + "\n");
             }
             // Write basic statistics about the run
             BufferedWriter writerStatistics = openWriter("statistics.log");
-            ArrayList<String> stats = new ArrayList<>(statisticCounters.keySet());
+            ArrayList<String> stats = new ArrayList<>(state().statisticCounters.keySet());
             Collections.sort(stats);
             for (String s : stats) {
-                writerStatistics.write(s + ": " + statisticCounters.get(s) + "\n");
+                writerStatistics.write(s + ": " + state().statisticCounters.get(s) + "\n");
             }
 
             BufferedWriter writerMetrics = openWriter("metrics.log");
-            for (Metric metric : sMetrics) {
+            for (Metric metric : state().sMetrics) {
                 writerMetrics.write(metric.toString() + "\n");
             }
             writerMetrics.close();
             writerStatistics.close();
-            statisticCounters.clear();
+            state().statisticCounters.clear();
             // Close *all* the running log files
-            writerRunInfoFile.close();
-            writerFlowCompletionCsvFile.close();
-            writerFlowCompletionCsvFile.close();
-            writerFlowThroughputFile.close();
-            writerPortQueueStateFile.close();
-            writerPortUtilizationFile.close();
-            writerPortUtilizationCsvFile.close();
-            writerFlowCompletionFile.close();
-            writerRemoteRouterPathLog.close();
-            writerRemoteRouterStateLogCSV.close();
-            writerRemoteRouterDropStatisticsCSV.close();
-            writerFlowOnCircuit.close();
-            writerFlowsOnCircuitEntranceTime.close();
-            flowRequestLogWriter.close();
-            writerRemainingPaths.close();
-            writerECNStatistics.close();
-            writerPacketsDispatchedStatistics.close();
-            deltaTStatisticsWriter.close();
-            collisionStatisticsWriter.close();
+            state().writerRunInfoFile.close();
+            state().writerFlowCompletionCsvFile.close();
+            state().writerFlowThroughputFile.close();
+            state().writerPortQueueStateFile.close();
+            state().writerPortUtilizationFile.close();
+            state().writerPortUtilizationCsvFile.close();
+            state().writerFlowCompletionFile.close();
+            state().writerRemoteRouterPathLog.close();
+            state().writerRemoteRouterStateLogCSV.close();
+            state().writerRemoteRouterDropStatisticsCSV.close();
+            state().writerFlowOnCircuit.close();
+            state().writerFlowsOnCircuitEntranceTime.close();
+            state().flowRequestLogWriter.close();
+            state().writerRemainingPaths.close();
+            state().writerECNStatistics.close();
+            state().writerPacketsDispatchedStatistics.close();
+            state().deltaTStatisticsWriter.close();
+            state().collisionStatisticsWriter.close();
             // Also added ones are closed automatically at the end
-            for (BufferedWriter writer : writersAdded.values()) {
+            for (BufferedWriter writer : state().writersAdded.values()) {
                 writer.close();
             }
-            writersAdded.clear();
+            state().writersAdded.clear();
 
             // Set diverted print streams back
             System.out.flush();
             System.err.flush();
-            System.setOut(originalOutOutputStream);
-            System.setErr(originalErrOutputStream);
-            underlyingFileOutputStream.close();
+            if (state().originalOutOutputStream != null) {
+                System.setOut(state().originalOutOutputStream);
+                System.setErr(state().originalErrOutputStream);
+                state().originalOutOutputStream = null;
+                state().originalErrOutputStream = null;
+            } else {
+                ConsoleRouter.detach();
+            }
+            state().underlyingFileOutputStream.close();
 
             // Clear loggers
-            portLoggers.clear();
-            flowLoggerByFlowId.clear();
-            activeFlowLoggerByFlowId.clear();
+            state().portLoggers.clear();
+            state().flowLoggerByFlowId.clear();
+            state().activeFlowLoggerByFlowId.clear();
 
             deleteNonimportantFiles();
 
@@ -450,7 +532,7 @@ public class SimulationLogger {
     private static void logPacketsDispatched() {
         try {
             // Header
-            writerPacketsDispatchedStatistics.write(
+            state().writerPacketsDispatchedStatistics.write(
                     String.format(
                             "%-6s%-6s%-9s%-16s\n",
                             "Src",
@@ -458,7 +540,7 @@ public class SimulationLogger {
                             "Srvport",
                             "Packets Dispatched"));
 
-            portLoggers.sort((o1, o2) -> {
+            state().portLoggers.sort((o1, o2) -> {
                 int delta = Integer.compare(o1.getOwnId(), o2.getOwnId());
                 if (delta != 0) {
                     return delta;
@@ -467,8 +549,8 @@ public class SimulationLogger {
                 }
             });
 
-            for (PortLogger logger : portLoggers) {
-                writerPacketsDispatchedStatistics.write(
+            for (PortLogger logger : state().portLoggers) {
+                state().writerPacketsDispatchedStatistics.write(
                         String.format(
                                 "%-6d%-6d%-9s%-16d\n",
                                 logger.getOwnId(),
@@ -484,7 +566,7 @@ public class SimulationLogger {
     private static void logECNStatistics() {
         try {
             // Header
-            writerECNStatistics.write(
+            state().writerECNStatistics.write(
                     String.format(
                             "%-6s%-6s%-9s%-16s\n",
                             "Src",
@@ -492,7 +574,7 @@ public class SimulationLogger {
                             "Srvport",
                             "ECN Marks"));
 
-            portLoggers.sort((o1, o2) -> {
+            state().portLoggers.sort((o1, o2) -> {
                 long delta = o2.getECNMarks() - o1.getECNMarks();
                 if (delta < 0) {
                     return -1;
@@ -503,8 +585,8 @@ public class SimulationLogger {
                 }
             });
 
-            for (PortLogger logger : portLoggers) {
-                writerECNStatistics.write(
+            for (PortLogger logger : state().portLoggers) {
+                state().writerECNStatistics.write(
                         String.format(
                                 "%-6d%-6d%-9s%-16d\n",
                                 logger.getOwnId(),
@@ -520,23 +602,23 @@ public class SimulationLogger {
 
     private static void logCircuitFlows() {
         try {
-            for (long id : flowsOnCircuit.keySet()) {
-                writerFlowOnCircuit.write(id + "\n");
-                writerFlowsOnCircuitEntranceTime.write(id + ":" + flowsOnCircuit.get(id) + "\n");
+            for (long id : state().flowsOnCircuit.keySet()) {
+                state().writerFlowOnCircuit.write(id + "\n");
+                state().writerFlowsOnCircuitEntranceTime.write(id + ":" + state().flowsOnCircuit.get(id) + "\n");
             }
-            for (long id : flowsRequestCircuit.keySet()) {
-                flowRequestLogWriter.write(id + ":");
-                Set<Long> requests = new TreeSet(flowsRequestCircuit.get(id));
+            for (long id : state().flowsRequestCircuit.keySet()) {
+                state().flowRequestLogWriter.write(id + ":");
+                Set<Long> requests = new TreeSet(state().flowsRequestCircuit.get(id));
                 for (long request : requests) {
-                    flowRequestLogWriter.write(request + ",");
+                    state().flowRequestLogWriter.write(request + ",");
                 }
-                if (flowsOnCircuit.containsKey(id)) {
-                    flowRequestLogWriter.write("TRUE");
+                if (state().flowsOnCircuit.containsKey(id)) {
+                    state().flowRequestLogWriter.write("TRUE");
 
                 } else {
-                    flowRequestLogWriter.write("FALSE");
+                    state().flowRequestLogWriter.write("FALSE");
                 }
-                flowRequestLogWriter.write("\n");
+                state().flowRequestLogWriter.write("\n");
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -552,8 +634,8 @@ public class SimulationLogger {
      */
     public static void logInfo(String key, String value) {
         try {
-            writerRunInfoFile.write(key + ": " + value + "\n");
-            writerRunInfoFile.flush();
+            state().writerRunInfoFile.write(key + ": " + value + "\n");
+            state().writerRunInfoFile.flush();
         } catch (IOException e) {
             throw new LogFailureException(e);
         }
@@ -575,19 +657,15 @@ public class SimulationLogger {
     static void logFlowThroughput(long flowId, int sourceId, int targetId, long amountBytes, long absStartTimeNs,
                                   long absEndTimeNs) {
         /*
-         * try {
-         * writerFlowThroughputFile.write(flowId + "," + sourceId + "," + targetId + ","
-         * + amountBytes + "," + absStartTimeNs + "," + absEndTimeNs + "\n");
-         * } catch (IOException e) {
-         * throw new LogFailureException(e);
-         * }
+         * writerFlowThroughputFile.putLong(flowId).putInt(sourceId).putInt(targetId)
+         * .putLong(amountBytes).putLong(absStartTimeNs).putLong(absEndTimeNs).endRecord();
          */
     }
 
     public static void logRemoteRoute(Path p, int source, int dest, long flowId, long time, boolean adding)
             throws IOException {
         String add = adding ? "+" : "-";
-        writerRemoteRouterPathLog.write(String.format(
+        state().writerRemoteRouterPathLog.write(String.format(
                 add + " %-11s %-6s%-6s%-13s%-13s\n",
                 p.toString(),
                 flowId,
@@ -610,12 +688,8 @@ public class SimulationLogger {
      */
     static void logPortQueueState(long ownId, long targetId, int queueLength, long bufferOccupiedBits, Packet p,
                                   long absTimeNs) {
-        try {
-            writerPortQueueStateFile.write(ownId + "," + targetId + "," + queueLength + "," + bufferOccupiedBits + ","
-                    + absTimeNs + "\n");
-        } catch (IOException e) {
-            throw new LogFailureException(e);
-        }
+        state().writerPortQueueStateFile.putLong(ownId).putLong(targetId).putInt(queueLength)
+                .putLong(bufferOccupiedBits).putLong(absTimeNs).endRecord();
     }
 
     /**
@@ -623,12 +697,12 @@ public class SimulationLogger {
      * completed.
      */
     private static void logFlowSummary() {
-        if (!logHumanReadableFlowCompletionEnabled) {
+        if (!state().logHumanReadableFlowCompletionEnabled) {
             return;
         }
         try {
             // Header
-            writerFlowCompletionFile.write(
+            state().writerFlowCompletionFile.write(
                     String.format(
                             "%-11s%-6s%-6s%-13s%-13s%-15s%-10s\n",
                             "FlowId",
@@ -640,7 +714,7 @@ public class SimulationLogger {
                             "Progress"));
 
             // Sort them based on starting time
-            List<FlowLogger> flowLoggers = new ArrayList<>(flowLoggerByFlowId.values());
+            List<FlowLogger> flowLoggers = new ArrayList<>(state().flowLoggerByFlowId.values());
             flowLoggers.sort((flowLogger1, flowLogger2) -> {
                 long delta = flowLogger2.getFlowStartTime() - flowLogger1.getFlowStartTime();
                 if (delta < 0) {
@@ -653,7 +727,7 @@ public class SimulationLogger {
             });
 
             for (FlowLogger logger : flowLoggers) {
-                writerFlowCompletionFile.write(
+                state().writerFlowCompletionFile.write(
                         String.format(
                                 "%-11s%-6s%-6s%-13s%-13s%-8.2f%-7s%.2f%%\n",
                                 logger.getFlowId(),
@@ -679,11 +753,11 @@ public class SimulationLogger {
      * Print a human-readable summary of all the port utilization.
      */
     private static void logPortUtilization() {
-        if (writerPortUtilizationFile == null)
+        if (state().writerPortUtilizationFile == null)
             return;
         try {
             // Header
-            writerPortUtilizationFile.write(
+            state().writerPortUtilizationFile.write(
                     String.format(
                             "%-6s%-6s%-9s%-16s%s\n",
                             "Src",
@@ -693,7 +767,7 @@ public class SimulationLogger {
                             "Utilization"));
 
             // Sort them based on utilization
-            portLoggers.sort((o1, o2) -> {
+            state().portLoggers.sort((o1, o2) -> {
                 long delta = o2.getUtilizedNs() - o1.getUtilizedNs();
                 if (delta < 0) {
                     return -1;
@@ -705,14 +779,15 @@ public class SimulationLogger {
             });
 
             // Data entries
-            for (PortLogger logger : portLoggers) {
-                writerPortUtilizationCsvFile.write(
-                        logger.getOwnId() + "," +
-                                logger.getTargetId() + "," +
-                                (logger.isAttachedToServer() ? "Y" : "N") + "," +
-                                logger.getUtilizedNs() + "," +
-                                (((double) logger.getUtilizedNs() / (double) Simulator.getCurrentTime()) * 100) + "\n");
-                writerPortUtilizationFile.write(
+            for (PortLogger logger : state().portLoggers) {
+                state().writerPortUtilizationCsvFile
+                        .putInt(logger.getOwnId())
+                        .putInt(logger.getTargetId())
+                        .putFlag(logger.isAttachedToServer())
+                        .putLong(logger.getUtilizedNs())
+                        .putDouble(((double) logger.getUtilizedNs() / (double) Simulator.getCurrentTime()) * 100)
+                        .endRecord();
+                state().writerPortUtilizationFile.write(
                         String.format(
                                 "%-6d%-6d%-9s%-16d%.2f%%\n",
                                 logger.getOwnId(),
@@ -732,25 +807,21 @@ public class SimulationLogger {
         long flowEndTime = logger.isCompleted() ? logger.getFlowEndTime() : Simulator.getCurrentTime();
         long flowTotalTime = logger.isCompleted() ? logger.getFlowEndTime() - logger.getFlowStartTime()
                 : Simulator.getCurrentTime() - logger.getFlowStartTime();
-        try {
-            writerFlowCompletionCsvFile.write(
-                    logger.getFlowId() + "," +
-                            logger.getSourceId() + "," +
-                            logger.getSourceTorId() + "," +
-                            logger.getTargetId() + "," +
-                            logger.getTargetTorId() + "," +
-                            logger.getCoreId() + "," +
-                            logger.getJobId() + "," +
-                            logger.getTotalBytesReceived() + "," +
-                            logger.getFlowSizeByte() + "," +
-                            logger.getFlowStartTime() + "," +
-                            flowEndTime + "," +
-                            flowTotalTime + "," +
-                            (logger.isCompleted() ? "TRUE" : "FALSE") + "\n");
-            writerFlowCompletionCsvFile.flush();
-        } catch (IOException e) {
-            throw new LogFailureException(e);
-        }
+        state().writerFlowCompletionCsvFile
+                .putLong(logger.getFlowId())
+                .putInt(logger.getSourceId())
+                .putInt(logger.getSourceTorId())
+                .putInt(logger.getTargetId())
+                .putInt(logger.getTargetTorId())
+                .putInt(logger.getCoreId())
+                .putInt(logger.getJobId())
+                .putLong(logger.getTotalBytesReceived())
+                .putLong(logger.getFlowSizeByte())
+                .putLong(logger.getFlowStartTime())
+                .putLong(flowEndTime)
+                .putLong(flowTotalTime)
+                .putFlag(logger.isCompleted())
+                .endRecord();
     }
 
     /**
@@ -823,7 +894,7 @@ public class SimulationLogger {
 
     public static void logRemoteRouterState(int currentAllocatedPatsh, int flowFailuresSample, long flowCounter2)
             throws IOException {
-        writerRemoteRouterStateLogCSV.write(
+        state().writerRemoteRouterStateLogCSV.write(
                 currentAllocatedPatsh + "," +
                         flowFailuresSample + "," +
                         flowCounter2 + "\n");
@@ -831,7 +902,7 @@ public class SimulationLogger {
 
     public static void logRemoteRouterDropStatistics(long flowId, int source, int dest, int currentAllocPaths)
             throws IOException {
-        writerRemoteRouterDropStatisticsCSV.write(
+        state().writerRemoteRouterDropStatisticsCSV.write(
                 flowId + "," +
                         source + "," +
                         dest + "," +
@@ -842,83 +913,83 @@ public class SimulationLogger {
     }
 
     public static void logCommon(NBProperties runConfiguration) throws IOException {
-        if (commonDropStatisticsWriter != null) {
+        if (state().commonDropStatisticsWriter != null) {
             DecimalFormat df = new DecimalFormat("#.##");
             long drops = RemoteRoutingController.getInstance().getTotalDrops();
             long flows = RemoteRoutingController.getInstance().getTotalFlows();
             String runFolderName = runConfiguration.getProperty("run_folder_name");
-            commonDropStatisticsWriter.write(runFolderName + "," + drops + "," + flows + ","
+            state().commonDropStatisticsWriter.write(runFolderName + "," + drops + "," + flows + ","
                     + df.format(((double) drops / (drops + flows)) * 100) + "\n");
         }
         // commonDropStatisticsWriter.write(cbuf);
     }
 
     public static boolean isFlowOnCircuit(long flowId) {
-        return flowsOnCircuit.containsKey(flowId);
+        return state().flowsOnCircuit.containsKey(flowId);
     }
 
     public static void registerFlowOnCircuit(long flowId) {
-        if (!flowsOnCircuit.containsKey(flowId)) {
-            flowsOnCircuit.put(flowId, Simulator.getCurrentTime());
+        if (!state().flowsOnCircuit.containsKey(flowId)) {
+            state().flowsOnCircuit.put(flowId, Simulator.getCurrentTime());
         }
     }
 
     public static long getStatistic(String key) {
-        return statisticCounters.getOrDefault(key, 0L);
+        return state().statisticCounters.getOrDefault(key, 0L);
     }
 
     public static void regiserPathActive(Path p, boolean adding) {
         if (adding) {
-            activePathMap.put(p.getId(), p);
-            oldestActivePaths.push(p.getId());
-            if (oldestActivePaths.size() > 10) {
-                oldestActivePaths.pop();
+            state().activePathMap.put(p.getId(), p);
+            state().oldestActivePaths.push(p.getId());
+            if (state().oldestActivePaths.size() > 10) {
+                state().oldestActivePaths.pop();
             }
         } else {
-            activePathMap.remove(p.getId());
-            oldestActivePaths.remove(p.getId());
+            state().activePathMap.remove(p.getId());
+            state().oldestActivePaths.remove(p.getId());
         }
     }
 
     public static void printOldestPaths() {
-        for (Long id : oldestActivePaths) {
-            System.out.println(activePathMap.get(id).toString() + "\n");
+        for (Long id : state().oldestActivePaths) {
+            System.out.println(state().activePathMap.get(id).toString() + "\n");
         }
     }
 
     public static void printOldestDistProtocolStates() {
-        for (Long id : oldestDistProtocolStates) {
-            System.out.println(id.toString() + " = " + activeDistProtocolStates.get(id).getState() + " size byte:"
-                    + activeDistProtocolStates.get(id).getSizeByte() +
-                    " flow num " + activeDistProtocolStates.get(id).getFlows().size() +
+        for (Long id : state().oldestDistProtocolStates) {
+            System.out.println(id.toString() + " = " + state().activeDistProtocolStates.get(id).getState() + " size byte:"
+                    + state().activeDistProtocolStates.get(id).getSizeByte() +
+                    " flow num " + state().activeDistProtocolStates.get(id).getFlows().size() +
                     "\n");
         }
     }
 
     public static void distProtocolStateChange(long jFlowId, JumboFlow jFlow) {
         if (jFlow.getState().equals("NO_CIRCUIT")) {
-            oldestDistProtocolStates.remove(jFlowId);
-            activeDistProtocolStates.remove(jFlowId);
+            state().oldestDistProtocolStates.remove(jFlowId);
+            state().activeDistProtocolStates.remove(jFlowId);
         } else {
             // first remove the old occurrence
-            oldestDistProtocolStates.remove(jFlowId);
+            state().oldestDistProtocolStates.remove(jFlowId);
             // then put the new
-            oldestDistProtocolStates.push(jFlowId);
-            activeDistProtocolStates.put(jFlowId, jFlow);
-            if (oldestDistProtocolStates.size() > 10) {
-                oldestDistProtocolStates.pop();
+            state().oldestDistProtocolStates.push(jFlowId);
+            state().activeDistProtocolStates.put(jFlowId, jFlow);
+            if (state().oldestDistProtocolStates.size() > 10) {
+                state().oldestDistProtocolStates.pop();
             }
         }
     }
 
     public static void registerFlowCircuitRequest(long flowId) {
-        Set<Long> requests = flowsRequestCircuit.getOrDefault(flowId, new HashSet<>());
+        Set<Long> requests = state().flowsRequestCircuit.getOrDefault(flowId, new HashSet<>());
         requests.add(Simulator.getCurrentTime());
-        flowsRequestCircuit.put(flowId, requests);
+        state().flowsRequestCircuit.put(flowId, requests);
     }
 
     public static void registerMetric(Metric metric) {
-        sMetrics.add(metric);
+        state().sMetrics.add(metric);
     }
 
     public static void registerCommodities(String fileName, HashSet<Pair<Integer, Integer>> commodities) {
@@ -945,11 +1016,11 @@ public class SimulationLogger {
     }
 
     public static Map<Long, FlowLogger> getFlowLoggerByFlowId() {
-        return flowLoggerByFlowId;
+        return state().flowLoggerByFlowId;
     }
 
     public static Map<Long, FlowLogger> getActiveFlowLoggerByFlowId() {
-        return activeFlowLoggerByFlowId;
+        return state().activeFlowLoggerByFlowId;
     }
 
     private static void deleteNonimportantFiles() {
@@ -972,10 +1043,19 @@ public class SimulationLogger {
                 "remote_router_state.csv",
         };
         for (String fileName : fileNames) {
-            File file = new File(getRunFolderFull() + "/" + fileName);
-            if (file.exists()) {
-                file.delete();
+            deleteRunFile(fileName);
+
+            // Tabular logs are written as .bin instead in the binary log format
+            if (state().logBinaryEnabled && fileName.endsWith(".csv")) {
+                deleteRunFile(fileName.substring(0, fileName.length() - ".csv".length()) + ".bin");
             }
         }
     }
+
+    private static void deleteRunFile(String fileName) {
+        File file = new File(getRunFolderFull() + "/" + fileName);
+        if (file.exists()) {
+            file.delete();
+        }
+    }
 }
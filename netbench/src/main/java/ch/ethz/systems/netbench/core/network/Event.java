@@ -11,8 +11,7 @@ public abstract class Event implements Comparable<Event>, Serializable {
 	 */
 	private static final long serialVersionUID = -1727738476698681545L;
 	// Added for absolute determinism in the event priority queue
-    private static long c = 0;
-    private final long eid;
+    private long eid;
 
     // Time to trigger
     protected long time;
@@ -24,8 +23,35 @@ public abstract class Event implements Comparable<Event>, Serializable {
      */
     public Event(long timeFromNowNs) {
         this.time = Simulator.getTimeFromNow(timeFromNowNs);
-        this.eid = c;
-        c++;
+        this.eid = Simulator.getNextEventId();
+    }
+
+    /**
+     * Create event which will happen the given amount of nanoseconds later, before
+     * all other events at that time which are not created this way (instead of after
+     * the events created before it), e.g. to observe the state at that time.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     * @param beforeSameTime    True iff the event happens before the other events at that time
+     */
+    protected Event(long timeFromNowNs, boolean beforeSameTime) {
+        this(timeFromNowNs);
+        if (beforeSameTime) {
+            this.eid = Long.MIN_VALUE + this.eid;
+        }
+    }
+
+    /**
+     * Re-use this event instance as if it were newly created,
+     * i.e. it will happen the given amount of nanoseconds later
+     * and is ordered after all events created before.
+     * Only allowed for events which are not in the event queue.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     */
+    protected void reinitialize(long timeFromNowNs) {
+        this.time = Simulator.getTimeFromNow(timeFromNowNs);
+        this.eid = Simulator.getNextEventId();
     }
 
     /**
@@ -34,6 +60,17 @@ public abstract class Event implements Comparable<Event>, Serializable {
      */
     public abstract void trigger();
 
+    /**
+     * Retrieve the component which handles the event when it is triggered
+     * (e.g. the network device or socket), by which the event profiler
+     * breaks down where the time of a run is spent.
+     *
+     * @return  Handler instance, or null if there is no specific one
+     */
+    public Object getHandler() {
+        return null;
+    }
+
     /**
      * Retrieve absolute simulation time at which the
      * event must occur.
@@ -26,7 +26,7 @@ public class InputPort extends Port {
 	 */
     public void registerPacketArrivalEvent(Packet packet) {
 		Simulator.registerEvent(
-				new PacketArrivalEvent(
+				PacketArrivalEvent.obtain(
 						link.getDelayNs(),
 						packet,
 						this
@@ -4,6 +4,8 @@ import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.run.routing.remote.RemoteRoutingController;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.ext.basic.IpPacket;
 import ch.ethz.systems.netbench.xpt.megaswitch.Encapsulatable;
@@ -12,10 +14,8 @@ import ch.ethz.systems.netbench.xpt.sourcerouting.exceptions.FlowPathExists;
 import ch.ethz.systems.netbench.xpt.sourcerouting.exceptions.NoPathException;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
 /**
  * Abstraction for a network device.
@@ -244,6 +244,17 @@ public abstract class NetworkDevice {
         return outputPorts.get(hash % outputPorts.size());
     }
 
+    /**
+     * Retrieve the index of the output port among the parallel output ports
+     * to its target, such that {@link #getTargetOuputPort(int, int)} returns it.
+     *
+     * @param outputPort Output port of this network device
+     * @return Index of the output port
+     */
+    public int getOutputPortIndex(OutputPort outputPort) {
+        return targetIdToOutputPort.get(outputPort.getTargetId()).indexOf(outputPort);
+    }
+
     public Map<Integer, OutputPort> getOuputPortsMap() {
         Map<Integer, OutputPort> portMap = new HashMap<>();
         for (int p : targetIdToOutputPort.keySet()) {
@@ -312,4 +323,57 @@ public abstract class NetworkDevice {
     public List<Integer> getConnectedTo() {
         return connectedTo;
     }
+
+    /**
+     * Write the state of the transport layer (if any) and of the
+     * output ports of the network device to a checkpoint.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeBoolean(hasTransportLayer);
+        if (hasTransportLayer) {
+            transportLayer.writeCheckpoint(out);
+        }
+        List<Integer> targetIds = new ArrayList<>(targetIdToOutputPort.keySet());
+        Collections.sort(targetIds);
+        out.writeInt(targetIds.size());
+        for (int targetId : targetIds) {
+            List<OutputPort> outputPorts = targetIdToOutputPort.get(targetId);
+            out.writeInt(targetId);
+            out.writeInt(outputPorts.size());
+            for (OutputPort outputPort : outputPorts) {
+                outputPort.writeCheckpoint(out);
+            }
+        }
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)}.
+     * The network device must have the same transport layer and output ports.
+     *
+     * @param in Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        if (in.readBoolean() != hasTransportLayer) {
+            throw new IllegalStateException("Checkpoint does not match the transport layer of network device " + identifier + ".");
+        }
+        if (hasTransportLayer) {
+            transportLayer.readCheckpoint(in);
+        }
+        int numTargets = in.readInt();
+        if (numTargets != targetIdToOutputPort.size()) {
+            throw new IllegalStateException("Checkpoint does not match the output ports of network device " + identifier + ".");
+        }
+        for (int i = 0; i < numTargets; i++) {
+            List<OutputPort> outputPorts = targetIdToOutputPort.get(in.readInt());
+            if (outputPorts == null || in.readInt() != outputPorts.size()) {
+                throw new IllegalStateException("Checkpoint does not match the output ports of network device " + identifier + ".");
+            }
+            for (OutputPort outputPort : outputPorts) {
+                outputPort.readCheckpoint(in);
+            }
+        }
+    }
+
 }
@@ -3,8 +3,11 @@ package ch.ethz.systems.netbench.core.network;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.EmptyPortLogger;
 import ch.ethz.systems.netbench.core.log.PortLogger;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 
+import java.io.IOException;
 import java.util.Queue;
 
 /**
@@ -76,7 +79,7 @@ public abstract class OutputPort extends Port {
     protected void registerPacketDispatchedEvent(Packet packet) {
 
         nextDispatchIn = getDispatchTime(packet);
-        Simulator.registerEvent(new PacketDispatchedEvent(
+        Simulator.registerEvent(PacketDispatchedEvent.obtain(
                 getDispatchTime(packet),
                 packet,
                 this
@@ -146,6 +149,9 @@ public abstract class OutputPort extends Port {
         // Finished sending packet, the last bit of the packet should arrive the link-delay later
         if (!link.doesNextTransmissionFail(packet.getSizeBit())) {
             registerPacketArrivalEvent(packet);
+        } else {
+            // Lost on the link
+            packet.release();
         }
 
         // Again free to send other packets
@@ -271,4 +277,37 @@ public abstract class OutputPort extends Port {
         assert (bufferOccupiedBits >= 0);
     }
 
+    /**
+     * Write the state of the output port to a checkpoint: whether it is sending,
+     * its buffer occupancy and the queued packets (in iteration order of the queue).
+     * The packet being sent is part of the pending dispatch event instead.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeBoolean(isSending);
+        out.writeLong(nextDispatchIn);
+        out.writeLong(bufferOccupiedBits);
+        out.writeInt(queue.size());
+        for (Packet packet : queue) {
+            out.writeEncoded(packet);
+        }
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        isSending = in.readBoolean();
+        nextDispatchIn = in.readLong();
+        bufferOccupiedBits = in.readLong();
+        queue.clear();
+        int queueSize = in.readInt();
+        for (int i = 0; i < queueSize; i++) {
+            queue.add(in.readEncoded(Packet.class));
+        }
+    }
+
 }
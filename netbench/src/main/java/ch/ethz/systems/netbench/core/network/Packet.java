@@ -1,8 +1,12 @@
 package ch.ethz.systems.netbench.core.network;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.pool.ObjectPool;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.ext.basic.IpPacket;
 
 /**
@@ -17,9 +21,12 @@ public abstract class Packet implements PacketHeader,Serializable {
 	private static final long serialVersionUID = -4933576864019549829L;
 
     private int flowletId;
-    private final long flowId;
-    private final long sizeBit;
-    private final long departureTime;
+    private long flowId;
+    private long sizeBit;
+    private long departureTime;
+
+    // Pool to which it returns when consumed or dropped (null if not pooled)
+    private transient ObjectPool<Packet> pool;
 
     /**
      * Construct a fixed-size packet belonging to a particular flow.
@@ -44,6 +51,45 @@ public abstract class Packet implements PacketHeader,Serializable {
         this.departureTime = packet.departureTime;
     }
 
+    /**
+     * Re-use this packet instance as if it were newly constructed.
+     * The {@link #getDepartureTime() departure time} is set to the current simulator time.
+     *
+     * @param flowId    Flow identifier
+     * @param sizeBit   Total size of the packet in bits
+     */
+    protected void reinitialize(long flowId, long sizeBit) {
+        this.flowletId = 0;
+        this.flowId = flowId;
+        this.sizeBit = sizeBit;
+        this.departureTime = Simulator.getCurrentTime();
+    }
+
+    /**
+     * Mark this packet as obtained from the given pool,
+     * to which it is returned upon {@link #release()}.
+     *
+     * @param pool  Pool of origin
+     */
+    protected final void setPool(ObjectPool<Packet> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Release the packet because it has been consumed by its destination
+     * or has been dropped. If it was obtained from a pool, it is returned to it
+     * and no one may use it anymore; otherwise this has no effect.
+     *
+     * @see ch.ethz.systems.netbench.core.pool.Pooling
+     */
+    public final void release() {
+        if (pool != null) {
+            ObjectPool<Packet> origin = pool;
+            pool = null;
+            origin.offer(this);
+        }
+    }
+
 	/**
      * Retrieve immutable flow identifier.
      *
@@ -95,6 +141,33 @@ public abstract class Packet implements PacketHeader,Serializable {
         return flowletId;
     }
 
+    /**
+     * Write the fields of the packet to a checkpoint. Subclasses
+     * which are given a checkpoint codec extend this with their own fields.
+     *
+     * @param out   Checkpoint output
+     *
+     * @see ch.ethz.systems.netbench.core.state.CheckpointCodecs
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(flowletId);
+        out.writeLong(flowId);
+        out.writeLong(sizeBit);
+        out.writeLong(departureTime);
+    }
+
+    /**
+     * Overwrite the fields of the packet with those written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        flowletId = in.readInt();
+        flowId = in.readLong();
+        sizeBit = in.readLong();
+        departureTime = in.readLong();
+    }
+
     @Override
     public String toString() {
         return "Packet<" +
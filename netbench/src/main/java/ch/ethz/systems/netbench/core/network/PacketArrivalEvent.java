@@ -1,5 +1,13 @@
 package ch.ethz.systems.netbench.core.network;
 
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.pool.ObjectPool;
+import ch.ethz.systems.netbench.core.pool.Pooling;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
+
 /**
  * Event for the complete arrival of a packet in its entirety.
  * Currently this does not support serialization:
@@ -14,9 +22,12 @@ public class PacketArrivalEvent extends Event {
      *
      */
     private static final long serialVersionUID = -3494066931483272486L;
-    private final int arrivalNetworkDeviceId;
-    private final Packet packet;
-    private final InputPort inputPort;
+    private static final ObjectPool<PacketArrivalEvent> POOL = Pooling.createPool("packet_arrival_event");
+    private int arrivalNetworkDeviceId;
+    private Packet packet;
+    private InputPort inputPort;
+    // True iff obtained from the pool, in which case it is released after triggering
+    private transient boolean pooled;
 
     /**
      * Packet arrival event constructor.
@@ -32,9 +43,74 @@ public class PacketArrivalEvent extends Event {
         this.inputPort = inputPort;
     }
 
+    /**
+     * Retrieve a packet arrival event, which is recycled
+     * once it has been triggered if pooling is enabled.
+     *
+     * @param timeFromNowNs Time in simulation nanoseconds from now
+     * @param packet        Packet instance which will arrive
+     * @param inputPort     The input port the package is arriving to
+     *
+     * @return Packet arrival event
+     */
+    static PacketArrivalEvent obtain(long timeFromNowNs, Packet packet, InputPort inputPort) {
+        if (!Pooling.isEnabled()) {
+            return new PacketArrivalEvent(timeFromNowNs, packet, inputPort);
+        }
+        PacketArrivalEvent event = POOL.poll();
+        if (event == null) {
+            event = new PacketArrivalEvent(timeFromNowNs, packet, inputPort);
+        } else {
+            event.reinitialize(timeFromNowNs);
+            event.packet = packet;
+            event.arrivalNetworkDeviceId = inputPort.getOwnNetworkDevice().getIdentifier();
+            event.inputPort = inputPort;
+        }
+        event.pooled = true;
+        return event;
+    }
+
+    /**
+     * Write the event to a checkpoint, identifying the input port
+     * by its own and its source device.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeInt(arrivalNetworkDeviceId);
+        out.writeInt(inputPort.getSourceNetworkDevice().getIdentifier());
+        out.writeEncoded(packet);
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Packet arrival event
+     */
+    public static PacketArrivalEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        NetworkDevice device = Simulator.getNetworkDevice(in.readInt());
+        InputPort inputPort = device.getSourceInputPort(in.readInt());
+        return new PacketArrivalEvent(timeFromNowNs, in.readEncoded(Packet.class), inputPort);
+    }
+
     @Override
     public void trigger() {
         inputPort.receive(packet);
+        if (pooled) {
+            pooled = false;
+            packet = null;
+            inputPort = null;
+            POOL.offer(this);
+        }
+    }
+
+    @Override
+    public Object getHandler() {
+        return inputPort.getOwnNetworkDevice();
     }
 
     @Override
@@ -1,6 +1,13 @@
 package ch.ethz.systems.netbench.core.network;
 
+import ch.ethz.systems.netbench.core.pool.ObjectPool;
+import ch.ethz.systems.netbench.core.pool.Pooling;
+import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.run.infrastructure.BaseInitializer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
 
 /**
  * Event for the dispatch of a packet, i.e. when all of the bits
@@ -17,10 +24,13 @@ public class PacketDispatchedEvent extends Event {
      *
      */
     private static final long serialVersionUID = 8099553808355024992L;
-    protected final int deviceId;
-    private final Packet packet;
-    private final int targetId;
-    private final OutputPort dispatchPort;
+    private static final ObjectPool<PacketDispatchedEvent> POOL = Pooling.createPool("packet_dispatched_event");
+    protected int deviceId;
+    private Packet packet;
+    private int targetId;
+    private OutputPort dispatchPort;
+    // True iff obtained from the pool, in which case it is released after triggering
+    private transient boolean pooled;
 
     /**
      * Packet dispatched event constructor.
@@ -37,11 +47,78 @@ public class PacketDispatchedEvent extends Event {
         this.dispatchPort = dispatchPort;
     }
 
+    /**
+     * Retrieve a packet dispatched event, which is recycled
+     * once it has been triggered if pooling is enabled.
+     *
+     * @param timeFromNowNs Time in simulation nanoseconds from now
+     * @param packet        Packet instance which is dispatched
+     * @param dispatchPort  Port that has finished writing the packet to the link
+     *
+     * @return Packet dispatched event
+     */
+    static PacketDispatchedEvent obtain(long timeFromNowNs, Packet packet, OutputPort dispatchPort) {
+        if (!Pooling.isEnabled()) {
+            return new PacketDispatchedEvent(timeFromNowNs, packet, dispatchPort);
+        }
+        PacketDispatchedEvent event = POOL.poll();
+        if (event == null) {
+            event = new PacketDispatchedEvent(timeFromNowNs, packet, dispatchPort);
+        } else {
+            event.reinitialize(timeFromNowNs);
+            event.packet = packet;
+            event.targetId = dispatchPort.getTargetId();
+            event.deviceId = dispatchPort.getOwnId();
+            event.dispatchPort = dispatchPort;
+        }
+        event.pooled = true;
+        return event;
+    }
+
+    /**
+     * Write the event to a checkpoint, identifying the dispatch port
+     * by its device, target and index among the parallel ports.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeInt(deviceId);
+        out.writeInt(targetId);
+        out.writeInt(dispatchPort.getOwnDevice().getOutputPortIndex(dispatchPort));
+        out.writeEncoded(packet);
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Packet dispatched event
+     */
+    public static PacketDispatchedEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        NetworkDevice device = Simulator.getNetworkDevice(in.readInt());
+        OutputPort dispatchPort = device.getTargetOuputPort(in.readInt(), in.readInt());
+        return new PacketDispatchedEvent(timeFromNowNs, in.readEncoded(Packet.class), dispatchPort);
+    }
+
     @Override
     public void trigger() {
         dispatchPort.dispatch(packet);
         //NetworkDevice nd = getOwnDevice();
         //getOutputPort(nd).dispatch(packet);
+        if (pooled) {
+            pooled = false;
+            packet = null;
+            dispatchPort = null;
+            POOL.offer(this);
+        }
+    }
+
+    @Override
+    public Object getHandler() {
+        return dispatchPort;
     }
 
     protected NetworkDevice getOwnDevice() {
@@ -3,8 +3,16 @@ package ch.ethz.systems.netbench.core.network;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.FlowLogger;
 import ch.ethz.systems.netbench.core.run.infrastructure.BaseInitializer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.megaswitch.MegaSwitch;
 
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 public abstract class Socket {
 
     protected final TransportLayer transportLayer;
@@ -18,6 +26,9 @@ public abstract class Socket {
     protected int jobId;
     protected FlowLogger privateLogger;
 
+    // Socket classes of which the checkpoint methods have been checked
+    private static final Set<Class<?>> checkedCheckpointTypes = ConcurrentHashMap.newKeySet();
+
     /**
      * Create a socket. By default, it should be the receiver.
      * Use the {@link #start() start} method to make the socket a
@@ -168,4 +179,108 @@ public abstract class Socket {
     public void markAsReceiver() {
         this.isReceiver = true;
     }
+
+    /**
+     * Retrieve the flow identifier of the socket.
+     *
+     * @return Flow identifier
+     */
+    public long getFlowId() {
+        return flowId;
+    }
+
+    /**
+     * Retrieve the transport layer to which the socket belongs.
+     *
+     * @return Transport layer
+     */
+    public TransportLayer getTransportLayer() {
+        return transportLayer;
+    }
+
+    /**
+     * Write the state of the socket to a checkpoint. The constructor arguments
+     * are written by the transport layer, which re-creates the socket with them
+     * before its state is {@link #readCheckpoint(CheckpointInput) restored}.
+     * <p>
+     * Sockets which support checkpoints override this and write the base state
+     * using {@link #writeSocketCheckpoint(CheckpointOutput)} followed by their own.
+     * Subclasses with state of their own must in turn override both this and
+     * {@link #readCheckpoint(CheckpointInput)}, appending their state after that
+     * of the super class; else the checkpoint fails.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        throw new UnsupportedOperationException("Checkpoints are not supported by " + getClass().getName() + ".");
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        throw new UnsupportedOperationException("Checkpoints are not supported by " + getClass().getName() + ".");
+    }
+
+    protected final void writeSocketCheckpoint(CheckpointOutput out) throws IOException {
+        checkCheckpointOverridden(getClass());
+        out.writeLong(remainderToConfirmFlowSizeByte);
+        out.writeBoolean(isReceiver);
+        out.writeBoolean(privateLogger != null);
+        if (privateLogger != null) {
+            privateLogger.writeCheckpoint(out);
+        }
+    }
+
+    protected final void readSocketCheckpoint(CheckpointInput in) throws IOException {
+        remainderToConfirmFlowSizeByte = in.readLong();
+        isReceiver = in.readBoolean();
+        if (in.readBoolean()) {
+            if (privateLogger == null) {
+                throw new IllegalStateException("Checkpoint contains the flow logger of flow " + flowId
+                        + ", but the restored socket has none.");
+            }
+            privateLogger.readCheckpoint(in);
+        }
+    }
+
+    /**
+     * Check that every socket class which declares mutable instance fields
+     * also declares its own checkpoint methods, as they would otherwise
+     * be silently reset to their initial values on restore.
+     *
+     * @param type  Socket class
+     */
+    private static void checkCheckpointOverridden(Class<?> type) {
+        if (checkedCheckpointTypes.contains(type)) {
+            return;
+        }
+        for (Class<?> c = type; c != Socket.class; c = c.getSuperclass()) {
+            boolean hasState = false;
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && !field.isSynthetic()) {
+                    hasState = true;
+                }
+            }
+            if (hasState && !(declaresMethod(c, "writeCheckpoint", CheckpointOutput.class)
+                    && declaresMethod(c, "readCheckpoint", CheckpointInput.class))) {
+                throw new IllegalStateException(c.getName() + " has state which is not part of the checkpoint: " +
+                        "it must override writeCheckpoint() and readCheckpoint().");
+            }
+        }
+        checkedCheckpointTypes.add(type);
+    }
+
+    private static boolean declaresMethod(Class<?> type, String name, Class<?> parameterType) {
+        try {
+            type.getDeclaredMethod(name, parameterType);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
 }
@@ -5,6 +5,8 @@ import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.FlowLogger;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.state.SimulatorStateSaver;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
@@ -120,6 +122,9 @@ public abstract class TransportLayer {
         if (socket != null) {
             socket.handle(packet);
         }
+
+        // The packet is consumed, sockets do not retain received packets
+        packet.release();
     }
 
     /**
@@ -194,6 +199,62 @@ public abstract class TransportLayer {
 
     }
 
+    /**
+     * Retrieve the open socket of a flow.
+     *
+     * @param flowId Flow identifier
+     * @return Socket instance, or null if there is none
+     */
+    public Socket getSocket(long flowId) {
+        return flowIdToSocket.get(flowId);
+    }
+
+    /**
+     * Write the finished flows and the open sockets to a checkpoint.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(finishedFlowIds.size());
+        for (long flowId : finishedFlowIds) {
+            out.writeLong(flowId);
+        }
+        List<Long> flowIds = new ArrayList<>(flowIdToSocket.keySet());
+        Collections.sort(flowIds);
+        out.writeInt(flowIds.size());
+        for (long flowId : flowIds) {
+            Socket socket = flowIdToSocket.get(flowId);
+            out.writeLong(flowId);
+            out.writeInt(socket.destinationId);
+            out.writeLong(socket.flowSizeByte);
+            out.writeLong(socket.estimatedFlowSizeByte);
+            out.writeInt(socket.jobId);
+            socket.writeCheckpoint(out);
+        }
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)},
+     * re-creating the open sockets.
+     *
+     * @param in Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        finishedFlowIds.clear();
+        int numFinished = in.readInt();
+        for (int i = 0; i < numFinished; i++) {
+            finishedFlowIds.add(in.readLong());
+        }
+        flowIdToSocket.clear();
+        int numSockets = in.readInt();
+        for (int i = 0; i < numSockets; i++) {
+            long flowId = in.readLong();
+            Socket socket = createSocket(flowId, in.readInt(), in.readLong(), in.readLong(), in.readInt());
+            socket.readCheckpoint(in);
+            flowIdToSocket.put(flowId, socket);
+        }
+    }
+
     public long getNumOpenSockets() {
         return flowIdToSocket.size();
     }
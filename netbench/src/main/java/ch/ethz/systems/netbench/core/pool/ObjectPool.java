@@ -0,0 +1,128 @@
+package ch.ethz.systems.netbench.core.pool;
+
+import ch.ethz.systems.netbench.core.RunContext;
+
+/**
+ * Bounded stack of released objects which can be handed out again
+ * instead of allocating new ones.
+ * <p>
+ * A pool only stores instances; resetting their state is up to the
+ * class which obtains from it. Pools are created through
+ * {@link Pooling#createPool(String)}, which keeps track of them for
+ * statistics and clearing. Every run has its own idle instances and
+ * statistics, kept in its {@link RunContext}.
+ *
+ * @param <T> Type of pooled object
+ */
+public final class ObjectPool<T> {
+
+    // Maximum amount of idle instances kept
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final String name;
+
+    // Idle instances and statistics of the run of the current thread
+    private final RunContext.Slot<Storage> storage = RunContext.slot(Storage::new);
+
+    ObjectPool(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Idle instances and statistics of a pool in a run.
+     */
+    private static class Storage {
+        private final Object[] free = new Object[DEFAULT_CAPACITY];
+        private int size;
+
+        // Statistics
+        private long obtained;
+        private long reused;
+        private long released;
+        private long discarded;
+    }
+
+    private Storage storage() {
+        return RunContext.current().get(storage);
+    }
+
+    /**
+     * Retrieve an idle instance.
+     *
+     * @return Idle instance, or null if the caller has to allocate a new one
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        Storage storage = storage();
+        storage.obtained++;
+        if (storage.size == 0) {
+            return null;
+        }
+        storage.reused++;
+        storage.size--;
+        T object = (T) storage.free[storage.size];
+        storage.free[storage.size] = null;
+        return object;
+    }
+
+    /**
+     * Give back an instance which is no longer referenced by anyone.
+     * If the pool is full, the instance is left to the garbage collector.
+     *
+     * @param object Released instance
+     */
+    public void offer(T object) {
+        Storage storage = storage();
+        storage.released++;
+        if (storage.size == storage.free.length) {
+            storage.discarded++;
+            return;
+        }
+        storage.free[storage.size++] = object;
+    }
+
+    /**
+     * Drop all idle instances and reset the statistics.
+     */
+    void clear() {
+        RunContext.current().set(storage, null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieve the amount of instances requested from the pool.
+     *
+     * @return Number of {@link #poll()} calls
+     */
+    public long getObtained() {
+        return storage().obtained;
+    }
+
+    /**
+     * Retrieve the amount of requests which were served by an idle instance.
+     *
+     * @return Number of reused instances
+     */
+    public long getReused() {
+        return storage().reused;
+    }
+
+    public long getReleased() {
+        return storage().released;
+    }
+
+    public long getDiscarded() {
+        return storage().discarded;
+    }
+
+    @Override
+    public String toString() {
+        Storage storage = storage();
+        return name + ": obtained=" + storage.obtained + ", reused=" + storage.reused
+                + ", released=" + storage.released + ", discarded=" + storage.discarded;
+    }
+
+}
@@ -0,0 +1,106 @@
+package ch.ethz.systems.netbench.core.pool;
+
+import ch.ethz.systems.netbench.core.RunContext;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.utility.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recycling of the objects which are created for every packet and every hop:
+ * the packet and acknowledgment instances of the transport layers and the
+ * {@link ch.ethz.systems.netbench.core.network.PacketDispatchedEvent dispatched}
+ * and {@link ch.ethz.systems.netbench.core.network.PacketArrivalEvent arrival} events.
+ * <p>
+ * Enabled using following property:
+ * packet_pooling=false (default) | true
+ * <p>
+ * Ownership rules when enabled:
+ * <ul>
+ *     <li>A per-hop event belongs to the event queue until it is triggered,
+ *     after which it is released. Nobody may hold on to an event which was
+ *     created by the ports.</li>
+ *     <li>A pooled packet belongs to the network from the moment it is sent
+ *     until it is consumed by the transport layer of its destination
+ *     (after the socket has handled it) or dropped by an output port or link.
+ *     Neither the sending nor the receiving socket may keep a reference to it;
+ *     sockets which retain sent packets (e.g. for resending) or buffer received
+ *     ones must create those as regular instances.</li>
+ *     <li>Copies (e.g. through encapsulation) are never pooled, the original
+ *     is then simply left to the garbage collector.</li>
+ * </ul>
+ * Releasing an instance which was not obtained from a pool has no effect,
+ * and the simulation outcome is identical with and without pooling.
+ */
+public final class Pooling {
+
+    private static final List<ObjectPool<?>> pools = new ArrayList<>();
+
+    // Whether pooling is enabled in the run of the current thread
+    private static final RunContext.Slot<Boolean> ENABLED = RunContext.slot(() -> false);
+
+    private Pooling() {
+        // Static class only
+    }
+
+    /**
+     * Enable or disable pooling as configured.
+     *
+     * @param configuration Configuration instance (null disables pooling)
+     */
+    public static void setup(NBProperties configuration) {
+        RunContext.current().set(ENABLED, configuration != null
+                && configuration.getBooleanPropertyWithDefault(Constants.Simulation.PACKET_POOLING, false));
+    }
+
+    /**
+     * Disable pooling and drop all idle instances.
+     */
+    public static synchronized void reset() {
+        RunContext.current().set(ENABLED, false);
+        for (ObjectPool<?> pool : pools) {
+            pool.clear();
+        }
+    }
+
+    /**
+     * Check whether instances should be obtained from and released to the pools.
+     *
+     * @return True iff pooling is enabled
+     */
+    public static boolean isEnabled() {
+        return RunContext.current().get(ENABLED);
+    }
+
+    /**
+     * Create a pool and register it for statistics and clearing.
+     *
+     * @param name  Name of the pool (used as statistic prefix)
+     * @param <T>   Type of pooled object
+     *
+     * @return Empty pool
+     */
+    public static synchronized <T> ObjectPool<T> createPool(String name) {
+        ObjectPool<T> pool = new ObjectPool<>(name);
+        pools.add(pool);
+        return pool;
+    }
+
+    /**
+     * Write the statistics of all pools to the run info.
+     */
+    public static synchronized void logStatistics() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (ObjectPool<?> pool : pools) {
+            SimulationLogger.logInfo("Pool " + pool.getName() + " obtained", String.valueOf(pool.getObtained()));
+            SimulationLogger.logInfo("Pool " + pool.getName() + " reused", String.valueOf(pool.getReused()));
+            SimulationLogger.logInfo("Pool " + pool.getName() + " released", String.valueOf(pool.getReleased()));
+            System.out.println("Pool " + pool);
+        }
+    }
+
+}
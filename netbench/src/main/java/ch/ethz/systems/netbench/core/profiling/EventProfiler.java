@@ -0,0 +1,313 @@
+package ch.ethz.systems.netbench.core.profiling;
+
+import ch.ethz.systems.netbench.core.RunContext;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.log.LogFailureException;
+import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.utility.Constants;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Profiling of the event loop of the simulator: the number of events and the
+ * wall time spent in triggering them per event type and per handler type (the
+ * network device, output port, transport layer or socket which handles it),
+ * as well as the event rate, the depth of the event queue and the heap
+ * allocation rate of the event loop.
+ * <p>
+ * Enabled using following properties:
+ * event_profiling=false (default) | true
+ * event_profiling_snapshot_interval_ns=1000000000 (default)
+ * <p>
+ * When enabled, a snapshot of the rates is appended to event_profile_snapshots.csv
+ * every interval of simulated time, and at the end of the run the totals per event
+ * and handler type are written to event_profile.csv (in descending order of wall time)
+ * and the top of it is printed. When disabled, the event loop does not call the profiler
+ * at all, such that there is no overhead.
+ */
+public final class EventProfiler {
+
+    // Number of types printed in the report at the end of the run
+    private static final int NUM_TYPES_PRINTED = 10;
+
+    // State of the run of the current thread
+    private static final RunContext.Slot<State> STATE = RunContext.slot(State::new);
+
+    /**
+     * State of the profiling of a run.
+     */
+    private static class State {
+
+        private final List<Counter> counters = new ArrayList<>();
+        private final Map<Class<?>, Counter> eventTypeCounters = new HashMap<>();
+        private final Map<Class<?>, Counter> handlerTypeCounters = new HashMap<>();
+
+        private boolean enabled = false;
+        private long snapshotIntervalNs;
+
+        // Totals of the run
+        private long runStartRealNs;
+        private long numEvents;
+        private long triggerWallNs;
+        private int maxQueueSize;
+
+        // State since the last snapshot
+        private BufferedWriter snapshotWriter;
+        private long nextSnapshotTime;
+        private long lastSnapshotRealNs;
+        private long lastSnapshotNumEvents;
+        private long lastSnapshotAllocatedBytes;
+        private int intervalMaxQueueSize;
+
+        private Counter register(String category, Class<?> type) {
+            Counter counter = new Counter(category, type);
+            counters.add(counter);
+            return counter;
+        }
+
+    }
+
+    private EventProfiler() {
+        // Static class only
+    }
+
+    private static State state() {
+        return RunContext.current().get(STATE);
+    }
+
+    /**
+     * Enable or disable profiling as configured.
+     *
+     * @param configuration Configuration instance (null disables profiling)
+     */
+    public static void setup(NBProperties configuration) {
+        reset();
+        if (configuration != null && configuration.getBooleanPropertyWithDefault(Constants.Simulation.EVENT_PROFILING, false)) {
+            State state = state();
+            state.enabled = true;
+            state.snapshotIntervalNs = configuration.getLongPropertyWithDefault(Constants.Simulation.EVENT_PROFILING_SNAPSHOT_INTERVAL_NS, 1000000000L);
+            if (state.snapshotIntervalNs <= 0) {
+                throw new IllegalArgumentException("The event profiling snapshot interval must be positive, but is " + state.snapshotIntervalNs + "ns.");
+            }
+        }
+    }
+
+    /**
+     * Disable profiling and reset all counters.
+     */
+    public static void reset() {
+        RunContext.current().set(STATE, new State());
+    }
+
+    /**
+     * Check whether the event loop should be profiled.
+     *
+     * @return True iff profiling is enabled
+     */
+    public static boolean isEnabled() {
+        return state().enabled;
+    }
+
+    /**
+     * Start profiling the event loop.
+     *
+     * @param now           Current simulation time (ns)
+     * @param queueSize     Current number of events in the queue
+     */
+    public static void start(long now, int queueSize) {
+        State state = state();
+        state.runStartRealNs = System.nanoTime();
+        state.lastSnapshotRealNs = state.runStartRealNs;
+        state.lastSnapshotNumEvents = state.numEvents;
+        state.lastSnapshotAllocatedBytes = getAllocatedBytes();
+        state.intervalMaxQueueSize = queueSize;
+        state.maxQueueSize = Math.max(state.maxQueueSize, queueSize);
+        state.nextSnapshotTime = now + state.snapshotIntervalNs;
+        state.snapshotWriter = SimulationLogger.openWriter("event_profile_snapshots.csv");
+        write(state.snapshotWriter, "real_time_s,simulation_time_ns,events,events_per_s,queue_size,max_queue_size,"
+                + "allocated_bytes,allocated_bytes_per_s,allocated_bytes_per_event\n");
+    }
+
+    /**
+     * Record that an event has been triggered.
+     *
+     * @param event         Event instance
+     * @param handler       Handler of the event (retrieved before it was triggered, can be null)
+     * @param wallNs        Wall time it took to trigger the event (ns)
+     * @param queueSize     Number of events in the queue after it was triggered
+     */
+    public static void record(Event event, Object handler, long wallNs, int queueSize) {
+        State state = state();
+        Counter eventTypeCounter = state.eventTypeCounters.get(event.getClass());
+        if (eventTypeCounter == null) {
+            eventTypeCounter = state.register("event", event.getClass());
+            state.eventTypeCounters.put(event.getClass(), eventTypeCounter);
+        }
+        eventTypeCounter.count++;
+        eventTypeCounter.wallNs += wallNs;
+        if (handler != null) {
+            Counter handlerTypeCounter = state.handlerTypeCounters.get(handler.getClass());
+            if (handlerTypeCounter == null) {
+                handlerTypeCounter = state.register("handler", handler.getClass());
+                state.handlerTypeCounters.put(handler.getClass(), handlerTypeCounter);
+            }
+            handlerTypeCounter.count++;
+            handlerTypeCounter.wallNs += wallNs;
+        }
+        state.numEvents++;
+        state.triggerWallNs += wallNs;
+        if (queueSize > state.intervalMaxQueueSize) {
+            state.intervalMaxQueueSize = queueSize;
+        }
+        if (event.getTime() >= state.nextSnapshotTime) {
+            snapshot(event.getTime(), queueSize);
+            while (state.nextSnapshotTime <= event.getTime()) {
+                state.nextSnapshotTime += state.snapshotIntervalNs;
+            }
+        }
+    }
+
+    /**
+     * Finish profiling the event loop: write the last snapshot and the report.
+     *
+     * @param now           Current simulation time (ns)
+     * @param queueSize     Current number of events in the queue
+     */
+    public static void finish(long now, int queueSize) {
+        State state = state();
+        snapshot(now, queueSize);
+        try {
+            state.snapshotWriter.close();
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+        state.snapshotWriter = null;
+
+        // Totals per type, most expensive first
+        List<Counter> used = new ArrayList<>();
+        for (Counter counter : state.counters) {
+            if (counter.count > 0) {
+                used.add(counter);
+            }
+        }
+        used.sort(Comparator.comparingLong((Counter c) -> c.wallNs).reversed().thenComparing(c -> c.category + c.type.getName()));
+        BufferedWriter writer = SimulationLogger.openWriter("event_profile.csv");
+        write(writer, "category,type,events,wall_ns,mean_wall_ns,wall_fraction\n");
+        for (Counter counter : used) {
+            write(writer, counter.category + "," + counter.type.getName() + "," + counter.count + "," + counter.wallNs + ","
+                    + String.format("%.1f", (double) counter.wallNs / counter.count) + ","
+                    + String.format("%.4f", state.triggerWallNs == 0 ? 0.0 : (double) counter.wallNs / state.triggerWallNs) + "\n");
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+
+        // Run information
+        long loopWallNs = System.nanoTime() - state.runStartRealNs;
+        SimulationLogger.logInfo("Event loop wall time (ns)", String.valueOf(loopWallNs));
+        SimulationLogger.logInfo("Event trigger wall time (ns)", String.valueOf(state.triggerWallNs));
+        SimulationLogger.logInfo("Event queue maximum size", String.valueOf(state.maxQueueSize));
+        System.out.println("Event profile: " + state.numEvents + " events in " + String.format("%.3f", loopWallNs / 1e9)
+                + "s (" + String.format("%.3f", state.triggerWallNs / 1e9) + "s triggering), maximum queue size " + state.maxQueueSize + ".");
+        int printed = 0;
+        for (Counter counter : used) {
+            if (counter.category.equals("event") && printed < NUM_TYPES_PRINTED) {
+                System.out.println("  " + counter);
+                printed++;
+            }
+        }
+        printed = 0;
+        for (Counter counter : used) {
+            if (counter.category.equals("handler") && printed < NUM_TYPES_PRINTED) {
+                System.out.println("  " + counter);
+                printed++;
+            }
+        }
+
+    }
+
+    /**
+     * Append a snapshot of the interval since the previous one.
+     *
+     * @param now           Current simulation time (ns)
+     * @param queueSize     Current number of events in the queue
+     */
+    private static void snapshot(long now, int queueSize) {
+        State state = state();
+        long realNs = System.nanoTime();
+        long allocatedBytes = getAllocatedBytes();
+        double intervalS = Math.max(1, realNs - state.lastSnapshotRealNs) / 1e9;
+        long intervalEvents = state.numEvents - state.lastSnapshotNumEvents;
+        long intervalAllocatedBytes = allocatedBytes >= 0 ? allocatedBytes - state.lastSnapshotAllocatedBytes : -1;
+        state.maxQueueSize = Math.max(state.maxQueueSize, state.intervalMaxQueueSize);
+        write(state.snapshotWriter, String.format("%.3f", (realNs - state.runStartRealNs) / 1e9) + "," + now + ","
+                + intervalEvents + "," + String.format("%.1f", intervalEvents / intervalS) + ","
+                + queueSize + "," + state.intervalMaxQueueSize + ","
+                + intervalAllocatedBytes + "," + (intervalAllocatedBytes >= 0 ? String.format("%.1f", intervalAllocatedBytes / intervalS) : "-1") + ","
+                + (intervalAllocatedBytes >= 0 && intervalEvents > 0 ? String.format("%.2f", (double) intervalAllocatedBytes / intervalEvents) : "-1") + "\n");
+        state.lastSnapshotRealNs = realNs;
+        state.lastSnapshotNumEvents = state.numEvents;
+        state.lastSnapshotAllocatedBytes = allocatedBytes;
+        state.intervalMaxQueueSize = queueSize;
+    }
+
+    private static void write(BufferedWriter writer, String line) {
+        try {
+            writer.write(line);
+        } catch (IOException e) {
+            throw new LogFailureException(e);
+        }
+    }
+
+    /**
+     * Retrieve the amount of bytes the current thread has allocated on the heap so far.
+     *
+     * @return Allocated bytes, or -1 if the JVM does not support measuring it
+     */
+    public static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of events and wall time of an event or handler type.
+     */
+    private static class Counter {
+
+        private final String category;
+        private final Class<?> type;
+        private long count;
+        private long wallNs;
+
+        Counter(String category, Class<?> type) {
+            this.category = category;
+            this.type = type;
+        }
+
+        @Override
+        public String toString() {
+            String name = type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+            return category + " " + name + ": " + count + " events, "
+                    + String.format("%.3f", wallNs / 1e9) + "s (" + String.format("%.1f", (double) wallNs / count) + "ns/event)";
+        }
+
+    }
+
+}
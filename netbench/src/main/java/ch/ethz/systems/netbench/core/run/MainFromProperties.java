@@ -14,6 +14,8 @@ import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.core.run.infrastructure.BaseInitializer;
 import ch.ethz.systems.netbench.core.run.routing.RoutingPopulator;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
+import ch.ethz.systems.netbench.core.state.CheckpointEvent;
+import ch.ethz.systems.netbench.core.state.SimulatorStateSaver;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.core.utility.UnitConverter;
 import org.apache.commons.lang3.StringUtils;
@@ -57,13 +59,20 @@ public class MainFromProperties {
             // Copy configuration files for reproducibility
             // Manage topology (e.g. extend with servers if said by configuration)
             // Initialization of the three components
-            if (runConfigurations.get(0).getPropertyWithDefault(Constants.Simulation.FROM_STATE, null) == null) {
+            // A checkpoint does not contain the traffic plan, so it is planned before restoring it
+            String fromState = runConfigurations.get(0).getPropertyWithDefault(Constants.Simulation.FROM_STATE, null);
+            boolean fromCheckpoint = fromState != null && SimulatorStateSaver.hasCheckpoint(fromState);
+            if (fromState == null || fromCheckpoint) {
                 planTraffic(runtimeNs, BaseInitializer.getInstance().getIdToTransportLayer());
             }
+            if (fromCheckpoint) {
+                SimulatorStateSaver.restore(fromState);
+            }
 
             NBProperties configuration = Simulator.getConfiguration();
 
             planCoreFailuresEvents(configuration);
+            planCheckpoint(configuration);
 
             // Perform run
             System.out.println("ACTUAL RUN\n==================");
@@ -375,6 +384,22 @@ public class MainFromProperties {
         }
     }
 
+    /**
+     * Plan the saving of a checkpoint of the simulation.
+     * <p>
+     * Uses the following property:
+     * checkpoint_at_ns=time (default: none)
+     *
+     * @param configuration Run configuration
+     */
+    private static void planCheckpoint(NBProperties configuration) {
+        long checkpointAtNs = configuration.getLongPropertyWithDefault(Constants.Simulation.CHECKPOINT_AT_NS, -1);
+        if (checkpointAtNs < Simulator.getCurrentTime()) {
+            return;
+        }
+        Simulator.registerEvent(new CheckpointEvent(checkpointAtNs - Simulator.getCurrentTime()));
+    }
+
     private static void planCoreFailuresEvents(NBProperties configuration) {
         int numFailedNodes = configuration.getIntegerPropertyWithDefault(Constants.Link.NUM_FAILED_NODES, 0);
         if (numFailedNodes == 0) {
@@ -5,6 +5,7 @@ import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidExcep
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
 import ch.ethz.systems.netbench.core.utility.Constants;
+import ch.ethz.systems.netbench.ext.poissontraffic.AliasTable;
 import ch.ethz.systems.netbench.ext.poissontraffic.FromFileArrivalPlanner;
 import ch.ethz.systems.netbench.ext.poissontraffic.FromStringArrivalPlanner;
 import ch.ethz.systems.netbench.ext.poissontraffic.PoissonArrivalPlanner;
@@ -96,7 +97,8 @@ class TrafficSelector {
                                 Constants.PoissonArrival.TRAFFIC_FLOW_SIZE_DIST_UNIFORM_MEAN_BYTES));
             case Constants.PoissonArrival.DistributionName.FROM_CSV:
                 return new FromCSV(configuration
-                        .getProperty(Constants.PoissonArrival.CSV_SIZE_DIST_FILE_BYTES));
+                        .getProperty(Constants.PoissonArrival.CSV_SIZE_DIST_FILE_BYTES),
+                        AliasTable.isSelected(configuration));
             case Constants.PoissonArrival.DistributionName.ALIBABA_MACHINE_LEARNING:
                 return new AlibabaMachineLearningFSD();
             case Constants.PoissonArrival.DistributionName.FB_FRONTEND_INTRA_DC_CACHE:
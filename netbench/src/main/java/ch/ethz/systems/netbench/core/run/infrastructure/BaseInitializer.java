@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.core.run.infrastructure;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.*;
@@ -25,7 +26,8 @@ import java.util.Map;
  */
 public class BaseInitializer {
 
-    private static BaseInitializer sInstance;
+    // Instance of the run of the current thread
+    private static final RunContext.Slot<BaseInitializer> INSTANCE = RunContext.slot(BaseInitializer::init);
     // Mappings
     private Map<Integer, NetworkDevice> idToNetworkDevice;
     private Map<Integer, TransportLayer> idToTransportLayer;
@@ -64,10 +66,7 @@ public class BaseInitializer {
     }
 
     public static BaseInitializer getInstance() {
-        if (sInstance == null) {
-            sInstance = init();
-        }
-        return sInstance;
+        return RunContext.current().get(INSTANCE);
     }
 
     private void clear() {
@@ -0,0 +1,119 @@
+package ch.ethz.systems.netbench.core.run.sweep;
+
+import ch.ethz.systems.netbench.core.RunContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Per-run routing of the console output.
+ * <p>
+ * The simulation logger copies the console output of a run into its
+ * <i>console.txt</i> by replacing {@link System#out} and {@link System#err}.
+ * That does not work for concurrent runs, as the streams are global. Once
+ * the router is {@link #install() installed}, the logger instead
+ * {@link #attach(OutputStream) attaches} its file to the {@link RunContext}
+ * of the current thread: everything the threads of that run write to the
+ * console (including the workers of its fork-join pool) then goes only to
+ * that file, whereas threads which are not bound to a run keep writing to
+ * the original console.
+ */
+public final class ConsoleRouter {
+
+    private static final RunContext.Slot<OutputStream> target = RunContext.slot();
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+
+    private ConsoleRouter() {
+        // Static class only
+    }
+
+    /**
+     * Replace the console streams by routing ones.
+     */
+    static synchronized void install() {
+        if (originalOut != null) {
+            throw new IllegalStateException("Console router is already installed.");
+        }
+        originalOut = System.out;
+        originalErr = System.err;
+        System.setOut(new PrintStream(new RoutingOutputStream(originalOut), true));
+        System.setErr(new PrintStream(new RoutingOutputStream(originalErr), true));
+    }
+
+    /**
+     * Restore the original console streams.
+     */
+    static synchronized void uninstall() {
+        if (originalOut == null) {
+            return;
+        }
+        System.out.flush();
+        System.err.flush();
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+        originalOut = null;
+        originalErr = null;
+    }
+
+    /**
+     * Check whether the console is routed per thread.
+     *
+     * @return True iff installed
+     */
+    public static synchronized boolean isInstalled() {
+        return originalOut != null;
+    }
+
+    /**
+     * Divert all console output of the run of the current thread to the given stream.
+     *
+     * @param out   Output stream (e.g. to the console log file of the run)
+     */
+    public static void attach(OutputStream out) {
+        RunContext.current().set(target, out);
+    }
+
+    /**
+     * Let the run of the current thread write to the original console again.
+     */
+    public static void detach() {
+        RunContext.current().set(target, null);
+    }
+
+    /**
+     * Output stream which writes to the target of the run of the current thread
+     * if it has one, else to the original console stream.
+     */
+    private static class RoutingOutputStream extends OutputStream {
+
+        private final OutputStream console;
+
+        RoutingOutputStream(OutputStream console) {
+            this.console = console;
+        }
+
+        private OutputStream current() {
+            OutputStream out = RunContext.current().get(target);
+            return out == null ? console : out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            current().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            current().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            current().flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,180 @@
+package ch.ethz.systems.netbench.core.run.sweep;
+
+import ch.ethz.systems.netbench.core.RunContext;
+import ch.ethz.systems.netbench.core.run.MainFromProperties;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many independent simulations (e.g. seeds or parameter variations)
+ * concurrently within one JVM.
+ * <p>
+ * Every run is executed by {@link MainFromProperties} on a thread bound to its
+ * own {@link RunContext}, which holds all of its simulator state: runs do not
+ * share any simulator state, yet pay JVM startup only once and share the
+ * immutable objects which only depend on the input (e.g. the parsed topology
+ * and its routing tables). Work a run divides over multiple threads is executed
+ * in the fork-join pool of its context, of which the parallelism is the number of
+ * available processors divided over the concurrent runs. The console output of
+ * each run goes only to its own run folder ({@link ConsoleRouter}).
+ * <p>
+ * Command-line template:
+ * java -cp NetBench.jar ch.ethz.systems.netbench.core.run.sweep.SweepRunner /path/to/sweep.txt [num_threads]
+ * <p>
+ * Every non-empty line of the sweep file which does not start with # defines one run
+ * by its whitespace-separated arguments to {@link ch.ethz.systems.netbench.core.run.MainFromProperties},
+ * e.g.:
+ * <p>
+ * # Three seeds
+ * /path/to/run_config.properties seed=1 run_folder_name=seed_1
+ * /path/to/run_config.properties seed=2 run_folder_name=seed_2
+ * /path/to/run_config.properties seed=3 run_folder_name=seed_3
+ * <p>
+ * Runs must write to different run folders. The number of threads defaults to the number
+ * of available processors.
+ */
+public class SweepRunner {
+
+    private final List<String[]> runs;
+    private final int numThreads;
+    private final RunContext.SharedObjects sharedObjects;
+
+    /**
+     * Create a sweep.
+     *
+     * @param runs          Arguments of every run
+     * @param numThreads    Number of runs executed concurrently
+     */
+    public SweepRunner(List<String[]> runs, int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least one: " + numThreads);
+        }
+        this.runs = new ArrayList<>(runs);
+        this.numThreads = numThreads;
+        this.sharedObjects = new RunContext.SharedObjects();
+    }
+
+    /**
+     * Main from sweep file.
+     *
+     * @param args Command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            throw new IllegalArgumentException("Expecting arguments: /path/to/sweep.txt [num_threads]");
+        }
+        int numThreads = args.length == 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int numFailed = new SweepRunner(readSweepFile(args[0]), numThreads).run();
+        if (numFailed > 0) {
+            throw new RuntimeException(numFailed + " run(s) of the sweep failed.");
+        }
+    }
+
+    /**
+     * Read the runs of a sweep file.
+     *
+     * @param fileName  Sweep file name
+     *
+     * @return Arguments of every run
+     */
+    static List<String[]> readSweepFile(String fileName) throws IOException {
+        List<String[]> runs = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    runs.add(line.split("\\s+"));
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Execute all runs and wait for them to finish.
+     *
+     * @return Number of failed runs
+     */
+    public int run() {
+        System.out.println("SWEEP\n==================");
+        System.out.println("Executing " + runs.size() + " runs on " + numThreads + " threads.\n");
+        long startTime = System.currentTimeMillis();
+
+        ConsoleRouter.install();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        int numFailed = 0;
+        try {
+            List<Future<Throwable>> results = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i++) {
+                final int runIndex = i;
+                results.add(executor.submit(() -> execute(runIndex)));
+            }
+            for (int i = 0; i < runs.size(); i++) {
+                Throwable failure = results.get(i).get();
+                if (failure != null) {
+                    numFailed++;
+                    System.out.println("Run " + i + " failed: " + failure);
+                    failure.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Sweep was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Sweep failed.", e);
+        } finally {
+            executor.shutdownNow();
+            ConsoleRouter.uninstall();
+        }
+
+        System.out.println(String.format(
+                "\nFinished sweep of %d runs (%d failed) in %.1fs.",
+                runs.size(), numFailed, (System.currentTimeMillis() - startTime) / 1000.0
+        ));
+        return numFailed;
+    }
+
+    /**
+     * Execute a single run in its own context.
+     *
+     * @param runIndex  Run index
+     *
+     * @return Failure of the run (null if successful)
+     */
+    private Throwable execute(int runIndex) {
+        String[] runArgs = runs.get(runIndex);
+        System.out.println("Run " + runIndex + " started: " + String.join(" ", runArgs));
+        long startTime = System.currentTimeMillis();
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.min(numThreads, runs.size()));
+        RunContext context = new RunContext(sharedObjects, parallelism);
+        context.bind();
+        Throwable failure = null;
+        try {
+            MainFromProperties.main(runArgs);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            ConsoleRouter.detach();
+            context.unbind();
+            context.close();
+        }
+
+        if (failure == null) {
+            System.out.println(String.format(
+                    "Run %d finished in %.1fs.", runIndex, (System.currentTimeMillis() - startTime) / 1000.0
+            ));
+        }
+        return failure;
+    }
+
+}
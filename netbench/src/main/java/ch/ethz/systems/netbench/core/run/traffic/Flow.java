@@ -1,6 +1,12 @@
 package ch.ethz.systems.netbench.core.run.traffic;
 
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import ch.ethz.systems.netbench.deeplearningtraining.state.CompiledPath;
+
+import java.io.IOException;
+import java.util.*;
 
 public class Flow {
 
@@ -10,7 +16,7 @@ public class Flow {
     private final int dstId;
     private final long flowSize;
     private final int jobId;
-    private boolean reversePath;
+    private CompiledPath compiledPath;
 
 
     public Flow(int srcId, int dstId, long flowSize, int jobId) {
@@ -19,12 +25,102 @@ public class Flow {
         this.srcId = srcId;
         this.dstId = dstId;
         this.flowSize = flowSize;
-        this.reversePath = false;
 
         // Job ID
         this.jobId = jobId;
     }
 
+    /**
+     * Re-create a flow with a given identifier, e.g. when restoring a checkpoint.
+     *
+     * @param flowId   Flow identifier
+     * @param srcId    Source network device identifier
+     * @param dstId    Destination network device identifier
+     * @param flowSize Flow size in bytes
+     * @param jobId    Job identifier
+     */
+    public Flow(long flowId, int srcId, int dstId, long flowSize, int jobId) {
+        this.flowId = flowId;
+        this.srcId = srcId;
+        this.dstId = dstId;
+        this.flowSize = flowSize;
+        this.jobId = jobId;
+    }
+
+    /**
+     * Write the flow to a checkpoint.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(flowId);
+        out.writeInt(srcId);
+        out.writeInt(dstId);
+        out.writeLong(flowSize);
+        out.writeInt(jobId);
+    }
+
+    /**
+     * Read a flow written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in Checkpoint input
+     * @return Flow
+     */
+    public static Flow fromCheckpoint(CheckpointInput in) throws IOException {
+        return new Flow(in.readLong(), in.readInt(), in.readInt(), in.readLong(), in.readInt());
+    }
+
+    /**
+     * Write references to flows (i.e. their identifiers, in ascending order) to a checkpoint.
+     *
+     * @param out   Checkpoint output
+     * @param flows Flows
+     */
+    public static void writeReferences(CheckpointOutput out, Collection<Flow> flows) throws IOException {
+        long[] flowIds = new long[flows.size()];
+        int i = 0;
+        for (Flow flow : flows) {
+            flowIds[i++] = flow.getFlowId();
+        }
+        Arrays.sort(flowIds);
+        out.writeInt(flowIds.length);
+        for (long flowId : flowIds) {
+            out.writeLong(flowId);
+        }
+    }
+
+    /**
+     * Read references written by {@link #writeReferences(CheckpointOutput, Collection)}.
+     *
+     * @param in    Checkpoint input
+     * @param flows Flows of the checkpoint by identifier
+     * @return Referenced flows in ascending order of identifier
+     */
+    public static List<Flow> readReferences(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        int numFlows = in.readInt();
+        List<Flow> result = new ArrayList<>(numFlows);
+        for (int i = 0; i < numFlows; i++) {
+            result.add(readReference(in, flows));
+        }
+        return result;
+    }
+
+    /**
+     * Read a single flow reference (identifier).
+     *
+     * @param in    Checkpoint input
+     * @param flows Flows of the checkpoint by identifier
+     * @return Referenced flow
+     */
+    public static Flow readReference(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        long flowId = in.readLong();
+        Flow flow = flows.get(flowId);
+        if (flow == null) {
+            throw new IllegalStateException("Checkpoint references unknown flow " + flowId + ".");
+        }
+        return flow;
+    }
+
     public long getFlowId() {
         return flowId;
     }
@@ -45,11 +141,22 @@ public class Flow {
         return jobId;
     }
 
-    public boolean isReversePath() {
-        return reversePath;
+    public CompiledPath getCompiledPath() {
+        return compiledPath;
+    }
+
+    public void setCompiledPath(CompiledPath compiledPath) {
+        this.compiledPath = compiledPath;
     }
 
-    public void setReversePath(boolean reversePath) {
-        this.reversePath = reversePath;
+    /**
+     * Hash by identifier instead of by identity, such that sets of flows are iterated in
+     * the same order by every run with the same seed (independent of the thread executing it).
+     *
+     * @return Hash code
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(flowId);
     }
 }
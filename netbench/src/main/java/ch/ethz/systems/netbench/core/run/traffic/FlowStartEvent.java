@@ -3,10 +3,13 @@ package ch.ethz.systems.netbench.core.run.traffic;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.deeplearningtraining.routing.RoutingStrategy;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.io.IOException;
 import java.util.List;
 
 public class FlowStartEvent extends Event {
@@ -52,6 +55,38 @@ public class FlowStartEvent extends Event {
         this.networkDeviceId = tl.getNetworkDevice().getIdentifier();
     }
 
+    /**
+     * Write the event to a checkpoint, identifying the transport layers
+     * by their network device.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeInt(transportLayer.getIdentifier());
+        out.writeInt(targetId);
+        out.writeLong(flowSizeByte);
+        out.writeInt(jobId);
+        out.writeInt(dstTransportLayer == null ? -1 : dstTransportLayer.getIdentifier());
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in Checkpoint input
+     * @return Flow start event
+     */
+    public static FlowStartEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        TransportLayer transportLayer = Simulator.getNetworkDevice(in.readInt()).getTransportLayer();
+        FlowStartEvent event = new FlowStartEvent(timeFromNowNs, transportLayer, in.readInt(), in.readLong(), in.readInt());
+        int dstId = in.readInt();
+        if (dstId != -1) {
+            event.registerDstTransport(Simulator.getNetworkDevice(dstId).getTransportLayer());
+        }
+        return event;
+    }
+
     @Override
     public void trigger() {
         // TransportLayer tl =
@@ -68,6 +103,11 @@ public class FlowStartEvent extends Event {
         }
     }
 
+    @Override
+    public Object getHandler() {
+        return transportLayer;
+    }
+
     public void registerDstTransport(TransportLayer dstTransportLayer) {
         this.dstTransportLayer = dstTransportLayer;
     }
@@ -2,13 +2,15 @@ package ch.ethz.systems.netbench.core.run.traffic;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.deeplearningtraining.routing.CentralizedController;
 import ch.ethz.systems.netbench.deeplearningtraining.routing.RoutingStrategy;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import ch.ethz.systems.netbench.ext.trafficpair.TrafficPairPlanner;
 
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
 
 public class JobArrivalEvent extends Event {
 
@@ -30,6 +32,52 @@ public class JobArrivalEvent extends Event {
         this.routingStrategy = Simulator.getJobs().get(jobId).getRoutingStrategy();
     }
 
+    /**
+     * Write the event to a checkpoint, including the flows of every stage.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeInt(jobId);
+        out.writeInt(stageFlows.size());
+        for (Map.Entry<Integer, Set<Flow>> stage : stageFlows.entrySet()) {
+            out.writeInt(stage.getKey());
+            out.writeInt(stage.getValue().size());
+            // Flows are hashed by identity, so they are written in order of identifier
+            List<Flow> flows = new ArrayList<>(stage.getValue());
+            flows.sort(Comparator.comparingLong(Flow::getFlowId));
+            for (Flow flow : flows) {
+                flow.writeCheckpoint(out);
+            }
+        }
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}.
+     * Flows which are already known to the simulator are shared, others are re-created.
+     * The job must already exist (i.e. the traffic has been planned).
+     *
+     * @param in Checkpoint input
+     * @return Job arrival event
+     */
+    public static JobArrivalEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        int jobId = in.readInt();
+        int numStages = in.readInt();
+        Map<Integer, Set<Flow>> stageFlows = new HashMap<>();
+        for (int i = 0; i < numStages; i++) {
+            Set<Flow> flows = new HashSet<>();
+            stageFlows.put(in.readInt(), flows);
+            int numFlows = in.readInt();
+            for (int j = 0; j < numFlows; j++) {
+                Flow flow = Flow.fromCheckpoint(in);
+                flows.add(Simulator.getFlowIdToFlow().computeIfAbsent(flow.getFlowId(), flowId -> flow));
+            }
+        }
+        return new JobArrivalEvent(timeFromNowNs, jobId, stageFlows);
+    }
+
     @Override
     public void trigger() {
         Job job = Simulator.getJob(jobId);
@@ -38,8 +38,23 @@ public abstract class TrafficPlanner {
      * @param jobId        Job identifier
      */
     public void registerFlow(long time, int srcId, int dstId, long flowSizeByte, int jobId) {
-        totalBytesInPlan += flowSizeByte;
-        // Some checking
+        checkFlow(time, srcId, dstId, flowSizeByte);
+        registerFlowStart(
+                new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte, jobId),
+                dstId,
+                flowSizeByte
+        );
+    }
+
+    /**
+     * Check that the flow from [srcId] to [dstId] can be registered.
+     *
+     * @param time         Time at which it start in nanoseconds
+     * @param srcId        Source network device identifier
+     * @param dstId        Destination network device identifier
+     * @param flowSizeByte Flow size in bytes
+     */
+    protected void checkFlow(long time, int srcId, int dstId, long flowSizeByte) {
         if (srcId == dstId) {
             throw new RuntimeException("Invalid traffic pair; source (" + srcId + ") and destination (" + dstId + ") are the same.");
         } else if (idToTransportLayerMap.get(srcId) == null) {
@@ -51,10 +66,17 @@ public abstract class TrafficPlanner {
         } else if (flowSizeByte < 0) {
             throw new RuntimeException("Cannot register a flow with a negative flow size (in bytes) of " + flowSizeByte);
         }
+    }
 
-        // Create event
-        FlowStartEvent event = new FlowStartEvent(time, idToTransportLayerMap.get(srcId), dstId, flowSizeByte, jobId);
-        // Register event
+    /**
+     * Register the start event of a (checked) flow.
+     *
+     * @param event        Flow start event
+     * @param dstId        Destination network device identifier
+     * @param flowSizeByte Flow size in bytes
+     */
+    protected void registerFlowStart(FlowStartEvent event, int dstId, long flowSizeByte) {
+        totalBytesInPlan += flowSizeByte;
         Simulator.registerEvent(event);
         event.registerDstTransport(idToTransportLayerMap.get(dstId));
     }
@@ -0,0 +1,184 @@
+package ch.ethz.systems.netbench.core.state;
+
+import ch.ethz.systems.netbench.core.network.*;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartEvent;
+import ch.ethz.systems.netbench.core.run.traffic.JobArrivalEvent;
+import ch.ethz.systems.netbench.ext.bare.BarePacket;
+import ch.ethz.systems.netbench.ext.bare.BarePacketResendEvent;
+import ch.ethz.systems.netbench.ext.demo.DemoPacket;
+import ch.ethz.systems.netbench.ext.poissontraffic.StreamingFlowStartEvent;
+import ch.ethz.systems.netbench.xpt.newreno.TcpRetransmissionTimeOutEvent;
+import ch.ethz.systems.netbench.xpt.simple.TcpPacketResendEvent;
+import ch.ethz.systems.netbench.xpt.simple.simpleudp.UDPSendEvent;
+import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the compact encoders of the events and packets in a checkpoint.
+ * <p>
+ * Every value is written as a one-byte tag of its exact type followed by the
+ * fields its encoder writes. Types without an encoder fall back to Java
+ * serialization (tag 0), which is only possible if everything they reference
+ * is serializable as well. Events must encode references to network devices,
+ * ports and sockets by identifier, such that they are resolved against the
+ * network of the run which restores the checkpoint.
+ */
+public class CheckpointCodecs {
+
+    /**
+     * Writes the fields of a value.
+     */
+    public interface Encoder<T> {
+        void encode(T value, CheckpointOutput out) throws IOException;
+    }
+
+    /**
+     * Creates a value from the fields written by its encoder.
+     */
+    public interface Decoder<T> {
+        T decode(CheckpointInput in) throws IOException;
+    }
+
+    private static class Codec<T> {
+
+        private final int tag;
+        private final Encoder<T> encoder;
+        private final Decoder<? extends T> decoder;
+
+        private Codec(int tag, Encoder<T> encoder, Decoder<? extends T> decoder) {
+            this.tag = tag;
+            this.encoder = encoder;
+            this.decoder = decoder;
+        }
+
+    }
+
+    private static final int SERIALIZED = 0;
+    private static final int MAX_TAG = 255;
+
+    private static final Map<Class<?>, Codec<?>> typeToCodec = new HashMap<>();
+    private static final Codec<?>[] tagToCodec = new Codec<?>[MAX_TAG + 1];
+
+    static {
+        register(1, PacketDispatchedEvent.class, PacketDispatchedEvent::writeCheckpoint, PacketDispatchedEvent::fromCheckpoint);
+        register(2, PacketArrivalEvent.class, PacketArrivalEvent::writeCheckpoint, PacketArrivalEvent::fromCheckpoint);
+        register(3, FlowStartEvent.class, FlowStartEvent::writeCheckpoint, FlowStartEvent::fromCheckpoint);
+        register(4, JobArrivalEvent.class, JobArrivalEvent::writeCheckpoint, JobArrivalEvent::fromCheckpoint);
+        register(5, TcpRetransmissionTimeOutEvent.class, TcpRetransmissionTimeOutEvent::writeCheckpoint, TcpRetransmissionTimeOutEvent::fromCheckpoint);
+        register(6, TcpPacketResendEvent.class, TcpPacketResendEvent::writeCheckpoint, TcpPacketResendEvent::fromCheckpoint);
+        register(7, BarePacketResendEvent.class, BarePacketResendEvent::writeCheckpoint, BarePacketResendEvent::fromCheckpoint);
+        register(8, UDPSendEvent.class, UDPSendEvent::writeCheckpoint, UDPSendEvent::fromCheckpoint);
+        register(9, StreamingFlowStartEvent.class, StreamingFlowStartEvent::writeCheckpoint, StreamingFlowStartEvent::fromCheckpoint);
+        register(16, FullExtTcpPacket.class, FullExtTcpPacket::writeCheckpoint, FullExtTcpPacket::fromCheckpoint);
+        register(17, BarePacket.class, BarePacket::writeCheckpoint, BarePacket::fromCheckpoint);
+        register(18, DemoPacket.class, DemoPacket::writeCheckpoint, DemoPacket::fromCheckpoint);
+    }
+
+    private CheckpointCodecs() {
+        // Static class only
+    }
+
+    /**
+     * Register the encoder and decoder of a type. Subclasses of the type
+     * are not covered, they must be registered themselves.
+     *
+     * @param tag       Unique tag of the type (1 to 255)
+     * @param type      Exact type
+     * @param encoder   Encoder of the fields
+     * @param decoder   Decoder of the fields
+     * @param <T>       Type
+     */
+    public static synchronized <T> void register(int tag, Class<T> type, Encoder<T> encoder, Decoder<? extends T> decoder) {
+        if (tag <= SERIALIZED || tag > MAX_TAG) {
+            throw new IllegalArgumentException("Checkpoint tag must be in [1, " + MAX_TAG + "]: " + tag);
+        }
+        if (tagToCodec[tag] != null) {
+            throw new IllegalArgumentException("Checkpoint tag " + tag + " is already registered.");
+        }
+        if (typeToCodec.containsKey(type)) {
+            throw new IllegalArgumentException("Checkpoint codec of " + type.getName() + " is already registered.");
+        }
+        Codec<T> codec = new Codec<>(tag, encoder, decoder);
+        tagToCodec[tag] = codec;
+        typeToCodec.put(type, codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    static void encode(Object value, CheckpointOutput out) throws IOException {
+        Codec<Object> codec = (Codec<Object>) typeToCodec.get(value.getClass());
+        if (codec != null) {
+            out.writeByte(codec.tag);
+            codec.encoder.encode(value, out);
+        } else {
+            out.writeByte(SERIALIZED);
+            byte[] serialized = serialize(value);
+            out.writeInt(serialized.length);
+            out.write(serialized);
+        }
+    }
+
+    static Object decode(CheckpointInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == SERIALIZED) {
+            byte[] serialized = new byte[in.readInt()];
+            in.readFully(serialized);
+            return deserialize(serialized);
+        }
+        Codec<?> codec = tagToCodec[tag];
+        if (codec == null) {
+            throw new IllegalStateException("Checkpoint contains unknown tag " + tag + ".");
+        }
+        return codec.decoder.decode(in);
+    }
+
+    /**
+     * Object output stream which refuses the objects of the network. Serializing them
+     * would write a copy of (a part of) the network into the checkpoint, which is
+     * detached from the network of the run which restores it.
+     */
+    private static class NetworkRejectingOutputStream extends ObjectOutputStream {
+
+        private final Object value;
+
+        private NetworkRejectingOutputStream(OutputStream out, Object value) throws IOException {
+            super(out);
+            this.value = value;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof NetworkDevice || obj instanceof TransportLayer || obj instanceof Socket
+                    || obj instanceof OutputPort || obj instanceof Link) {
+                throw new IllegalStateException("No checkpoint codec is registered for " + value.getClass().getName()
+                        + " and it references a " + obj.getClass().getName() + " of the network: register a codec"
+                        + " which writes it by identifier instead.");
+            }
+            return obj;
+        }
+
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new NetworkRejectingOutputStream(bytes, value)) {
+            oos.writeObject(value);
+        } catch (NotSerializableException e) {
+            throw new IllegalStateException("No checkpoint codec is registered for " + value.getClass().getName()
+                    + " and it is not serializable (" + e.getMessage() + ").", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] serialized) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Checkpoint contains a serialized object of an unknown class.", e);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package ch.ethz.systems.netbench.core.state;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
+
+/**
+ * Event which saves a checkpoint of the simulation (see {@link SimulatorStateSaver})
+ * when it is triggered, e.g. once the network has warmed up.
+ */
+public class CheckpointEvent extends Event {
+
+    /**
+     * Create a checkpoint event. It happens before all other events at the same time,
+     * such that the checkpoint does not depend on whether the run was restored in between.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     */
+    public CheckpointEvent(long timeFromNowNs) {
+        super(timeFromNowNs, true);
+    }
+
+    @Override
+    public void trigger() {
+        SimulatorStateSaver.save(Simulator.getConfiguration());
+    }
+
+    @Override
+    public String toString() {
+        return "CheckpointEvent<" + this.getTime() + ">";
+    }
+
+}
@@ -0,0 +1,62 @@
+package ch.ethz.systems.netbench.core.state;
+
+import ch.ethz.systems.netbench.core.Simulator;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Binary input stream of a simulator checkpoint,
+ * the counterpart of {@link CheckpointOutput}.
+ */
+public class CheckpointInput extends DataInputStream {
+
+    /**
+     * Create checkpoint input reading from the given stream.
+     *
+     * @param in    Underlying input stream
+     */
+    public CheckpointInput(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Read an event or packet using the decoder of the tag preceding it.
+     *
+     * @return Event or packet instance
+     *
+     * @throws IOException  If reading fails
+     */
+    public Object readEncoded() throws IOException {
+        return CheckpointCodecs.decode(this);
+    }
+
+    /**
+     * Read an event or packet of which the type is known.
+     *
+     * @param type  Expected (super) type
+     * @param <T>   Expected type
+     *
+     * @return Instance of the expected type
+     *
+     * @throws IOException  If reading fails
+     */
+    public <T> T readEncoded(Class<T> type) throws IOException {
+        return type.cast(readEncoded());
+    }
+
+    /**
+     * Read an absolute event time and convert it to the time from now,
+     * as which it is passed to the event constructors. The simulator
+     * time must already have been restored.
+     *
+     * @return Time from now in nanoseconds
+     *
+     * @throws IOException  If reading fails
+     */
+    public long readTimeFromNow() throws IOException {
+        return readLong() - Simulator.getCurrentTime();
+    }
+
+}
@@ -0,0 +1,37 @@
+package ch.ethz.systems.netbench.core.state;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Binary output stream of a simulator checkpoint.
+ * <p>
+ * Besides the primitives, it writes events and packets
+ * using the encoder registered for their type.
+ *
+ * @see CheckpointCodecs
+ */
+public class CheckpointOutput extends DataOutputStream {
+
+    /**
+     * Create checkpoint output writing to the given stream.
+     *
+     * @param out   Underlying output stream
+     */
+    public CheckpointOutput(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Write an event or packet, preceded by the tag of its type.
+     *
+     * @param value     Event or packet instance
+     *
+     * @throws IOException  If writing fails
+     */
+    public void writeEncoded(Object value) throws IOException {
+        CheckpointCodecs.encode(value, this);
+    }
+
+}
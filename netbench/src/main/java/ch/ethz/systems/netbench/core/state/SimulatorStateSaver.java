@@ -6,48 +6,155 @@ import ch.ethz.systems.netbench.core.log.LogFailureException;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.core.run.routing.remote.RemoteRoutingController;
+import ch.ethz.systems.netbench.core.utility.Constants;
 import org.apache.commons.io.IOUtils;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
 import java.io.*;
-import java.text.DecimalFormat;
-
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the state of a running simulation to a directory, from which
+ * other runs can start (property <i>from_state</i>).
+ * <p>
+ * The simulation itself is written as a binary checkpoint (see {@link Simulator#writeCheckpoint(CheckpointOutput)}),
+ * streamed through a file channel and optionally compressed. The traffic plan (the jobs
+ * and their routing strategies) is not part of it: a run restoring the checkpoint plans its
+ * traffic from its own configuration, after which the pending events are replaced by those
+ * of the checkpoint. As such, one warmed-up network state can be forked into many runs.
+ */
 public class SimulatorStateSaver {
 
+    public static final String CHECKPOINT_FILE_NAME = "simulator_checkpoint.bin";
+
+    // Header: magic ("NBCP"), version and whether the remainder is compressed
+    private static final int MAGIC = 0x4E424350;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 9;
+    private static final int BUFFER_SIZE = 1 << 16;
+
     public static void save(String dirPath) {
         new File(dirPath).mkdirs();
 
         try {
-            saveToDir(dirPath, null);
+            saveToDir(dirPath, false, null);
         } catch (IOException e) {
             throw new LogFailureException(e);
         }
     }
 
+    /**
+     * Save the state to the directory given by the configuration.
+     * <p>
+     * Uses the following properties:
+     * checkpoint_dir=/path/to/dir (default: checkpoint in the run folder)
+     * checkpoint_compression=true | false (default)
+     *
+     * @param configuration Run configuration
+     */
     public static void save(NBProperties configuration) {
-        RemoteRoutingController rrc;
-        rrc = RemoteRoutingController.getInstance();
-        if (rrc == null) {
-            System.out.println("Only central routing is currently supported");
-            return;
+        String dirPath = configuration.getPropertyWithDefault(
+                Constants.Simulation.CHECKPOINT_DIR,
+                SimulationLogger.getRunFolderFull() + "/" + "checkpoint"
+        );
+        boolean compress = configuration.getBooleanPropertyWithDefault(Constants.Simulation.CHECKPOINT_COMPRESSION, false);
+        new File(dirPath).mkdirs();
+
+        try {
+            saveToDir(dirPath, compress, RemoteRoutingController.getInstance());
+        } catch (IOException e) {
+            throw new LogFailureException(e);
         }
+        System.out.println("Saved checkpoint at " + Simulator.getCurrentTime() + "ns to " + dirPath);
+    }
 
-        long time = Simulator.getCurrentTime();
-        long totalRunTIme = Simulator.getTotalRunTimeNs();
-        DecimalFormat df = new DecimalFormat("#.##");
-        double percent = ((double) time) / ((double) totalRunTIme) * 100;
-        String dumpFolderName = "dumps" + "/" + "test_dump";
-        //String dumpFolderName = SimulationLogger.getRunFolderFull() + "/" + df.format(percent) + "%";
-        new File(dumpFolderName).mkdirs();
-        String confFileName = configuration.getFileName();
-        File confFile = new File(confFileName);
+    /**
+     * Check whether the directory contains a checkpoint (instead of a Java serialized dump).
+     *
+     * @param dirPath   State directory
+     *
+     * @return True iff there is a checkpoint
+     */
+    public static boolean hasCheckpoint(String dirPath) {
+        return new File(dirPath + "/" + CHECKPOINT_FILE_NAME).exists();
+    }
 
+    /**
+     * Restore the checkpoint in the directory. The network and the traffic plan
+     * must already have been created from the configuration.
+     *
+     * @param dirPath   State directory
+     */
+    public static void restore(String dirPath) {
         try {
-            saveToDir(dumpFolderName, rrc);
+            readCheckpoint(dirPath + "/" + CHECKPOINT_FILE_NAME);
         } catch (IOException e) {
-            throw new LogFailureException(e);
+            throw new RuntimeException("Failure restoring checkpoint from " + dirPath, e);
+        }
+        System.out.println("Done restoring simulator at " + Simulator.getCurrentTime() + "ns");
+    }
+
+    /**
+     * Write the checkpoint of the simulation to a file.
+     *
+     * @param fileName  Checkpoint file name
+     * @param compress  True iff the checkpoint is compressed (GZIP)
+     */
+    public static void writeCheckpoint(String fileName, boolean compress) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).put((byte) (compress ? 1 : 0)).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            if (compress) {
+                stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+            }
+            try (CheckpointOutput out = new CheckpointOutput(stream)) {
+                Simulator.writeCheckpoint(out);
+            }
+        }
+    }
+
+    /**
+     * Restore the checkpoint of the simulation from a file.
+     *
+     * @param fileName  Checkpoint file name
+     */
+    public static void readCheckpoint(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new EOFException("Checkpoint " + fileName + " is truncated.");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(fileName + " is not a checkpoint.");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Checkpoint " + fileName + " has unsupported version " + version + ".");
+            }
+            boolean compressed = header.get() != 0;
+            InputStream stream = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+            if (compressed) {
+                stream = new GZIPInputStream(stream, BUFFER_SIZE);
+            }
+            try (CheckpointInput in = new CheckpointInput(stream)) {
+                Simulator.readCheckpoint(in);
+            }
         }
     }
 
@@ -110,8 +217,8 @@ public class SimulatorStateSaver {
 
     }
 
-    private static void saveToDir(String dirPath, RemoteRoutingController rrc) throws IOException {
-        Simulator.dumpState(dirPath);
+    private static void saveToDir(String dirPath, boolean compress, RemoteRoutingController rrc) throws IOException {
+        writeCheckpoint(dirPath + "/" + CHECKPOINT_FILE_NAME, compress);
         SimulationLogger.dumpState(dirPath);
         TransportLayer.dumpState(dirPath);
         if (rrc != null) {
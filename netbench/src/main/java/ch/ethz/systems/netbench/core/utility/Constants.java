@@ -108,6 +108,10 @@ public class Constants {
         public final static String EPOCH_META_NODE_ROUTER = "epoch_meta_node_router";
         public final static String EMPTY_ROUTING_POPULATOR = "empty_routing_populator";
         public final static String OPERA = "opera";
+        public final static String ROUTING_CACHE_DIR = "routing_cache_dir";
+        public final static String ROUTING_APSP_ALGORITHM = "routing_apsp_algorithm";
+        public final static String APSP_BFS = "bfs";
+        public final static String APSP_FLOYD_WARSHALL = "floyd_warshall";
     }
 
     public static class RemoteRoutingPopulator {
@@ -145,6 +149,10 @@ public class Constants {
         public final static String TRAFFIC_PROBABILITIES_FILE = "traffic_probabilities_file";
         public final static String TRAFFIC_LAMBDA_FLOW_STARTS_PER_S = "traffic_lambda_flow_starts_per_s";
         public final static String TRAFFIC_FLOW_SIZE_DIST = "traffic_flow_size_dist";
+        public final static String TRAFFIC_PLAN_STREAMING = "traffic_plan_streaming";
+        public final static String TRAFFIC_SAMPLER = "traffic_sampler";
+        public final static String SAMPLER_CDF = "cdf";
+        public final static String SAMPLER_ALIAS = "alias";
         public final static String TRAFFIC_FLOW_SIZE_DIST_PARETO_SHAPE = "traffic_flow_size_dist_pareto_shape";
         public final static String TRAFFIC_FLOW_SIZE_DIST_PARETO_MEAN_KB = "traffic_flow_size_dist_pareto_mean_kilobytes";
         public final static String TRAFFIC_FLOW_SIZE_DIST_UNIFORM_MEAN_BYTES = "traffic_flow_size_dist_uniform_mean_bytes";
@@ -240,6 +248,16 @@ public class Constants {
         public final static String RUN_TIME_NS = "run_time_ns";
         public final static String FROM_STATE = "from_state";
         public final static String COMMON_BASE_DIR = "common_base_dir";
+        public final static String EVENT_QUEUE = "event_queue";
+        public final static String EVENT_QUEUE_HEAP = "heap";
+        public final static String EVENT_QUEUE_LADDER = "ladder";
+        public final static String PACKET_POOLING = "packet_pooling";
+        public final static String EVENT_PROFILING = "event_profiling";
+        public final static String EVENT_PROFILING_SNAPSHOT_INTERVAL_NS = "event_profiling_snapshot_interval_ns";
+        public final static String PROGRESS_DETAILS = "progress_details";
+        public final static String CHECKPOINT_AT_NS = "checkpoint_at_ns";
+        public final static String CHECKPOINT_DIR = "checkpoint_dir";
+        public final static String CHECKPOINT_COMPRESSION = "checkpoint_compression";
     }
 
     public static class FlowSizeEstimation {
@@ -280,6 +298,9 @@ public class Constants {
     public static class KShortestPaths {
         public final static String K_FOR_K_SHORTEST_PATHS = "k_for_k_shortest_paths";
         public final static String K_SHORTEST_PATHS_NUM = "k_shortest_paths_num";
+        public final static String K_SHORTEST_PATHS_ENGINE = "k_shortest_paths_engine";
+        public final static String ENGINE_YEN = "yen";
+        public final static String ENGINE_PARALLEL = "parallel";
     }
 
     public static class SourceRoutingSwitch {
@@ -315,6 +336,9 @@ public class Constants {
         public final static String LOG_REMOTE_ROUTER_DROPS = "log_remote_router_drops";
         public final static String ENABLE_LOG_PACKET_BURST_GAP = "enable_log_packet_burst_gap";
         public final static String ENABLE_LOG_CONGESTION_WINDOW = "enable_log_congestion_window";
+        public final static String LOG_FORMAT = "log_format";
+        public final static String LOG_FORMAT_CSV = "csv";
+        public final static String LOG_FORMAT_BINARY = "binary";
     }
 
     public static class Xpander {
@@ -357,8 +381,16 @@ public class Constants {
     public static class RoutingStrategies {
         public final static String ECMP = "ecmp";
         public final static String EDGE_COLORING = "edge_coloring";
+        public final static String EDGE_COLORING_BACKEND = "edge_coloring_backend";
+        public final static String EDGE_COLORING_BACKEND_NATIVE = "native";
+        public final static String EDGE_COLORING_BACKEND_PYTHON = "python";
         public final static String MCVLC = "mcvlc";
         public final static String SIMULATED_ANNEALING = "simulated_annealing";
+        public final static String SIMULATED_ANNEALING_ITERATIONS = "simulated_annealing_iterations";
+        public final static String SIMULATED_ANNEALING_REPLICAS = "simulated_annealing_replicas";
         public final static String ILP_SOLVER = "ilp_solver";
+        public final static String ILP_SOLVER_BACKEND = "ilp_solver_backend";
+        public final static String ILP_SOLVER_BACKEND_PYTHON = "python";
+        public final static String ILP_SOLVER_BACKEND_ORTOOLS = "ortools";
     }
 }
@@ -3,9 +3,12 @@ package ch.ethz.systems.netbench.deeplearningtraining.routing;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.AssignmentsDurationLogger;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.io.IOException;
 import java.util.*;
 
 public abstract class CentralizedController extends RoutingStrategy {
@@ -37,6 +40,42 @@ public abstract class CentralizedController extends RoutingStrategy {
 
     public abstract void determinePathAssignments();
 
+    /**
+     * Write the routing state to a checkpoint. Controllers which keep the commodities
+     * to assign paths to must extend it with them.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        List<Long> flowIds = new ArrayList<>(activeFlows);
+        Collections.sort(flowIds);
+        out.writeInt(flowIds.size());
+        for (long flowId : flowIds) {
+            out.writeLong(flowId);
+        }
+        out.writeInt(durations.size());
+        for (long duration : durations) {
+            out.writeLong(duration);
+        }
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        super.readCheckpoint(in, flows);
+        activeFlows.clear();
+        int numActiveFlows = in.readInt();
+        for (int i = 0; i < numActiveFlows; i++) {
+            activeFlows.add(in.readLong());
+        }
+        durations.clear();
+        int numDurations = in.readInt();
+        for (int i = 0; i < numDurations; i++) {
+            durations.add(in.readLong());
+        }
+    }
+
     public AssignmentsDurationLogger getLogger() {
         return logger;
     }
@@ -1,18 +1,32 @@
 package ch.ethz.systems.netbench.deeplearningtraining.routing;
 
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
+import ch.ethz.systems.netbench.deeplearningtraining.utils.BipartiteEdgeColoring;
 import ch.ethz.systems.netbench.deeplearningtraining.utils.RoutingUtility;
 import ch.ethz.systems.netbench.deeplearningtraining.utils.SharedMemory;
 import com.google.gson.Gson;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.*;
 
+/**
+ * Routing strategy that assigns the core of every flow by an edge coloring of the
+ * (source ToR, destination ToR) multigraph of the flows, such that flows sharing
+ * a ToR use different cores whenever the number of cores allows it.
+ * <p>
+ * The coloring is computed in-process (edge_coloring_backend=native, default) by
+ * {@link BipartiteEdgeColoring}, which keeps it between the path assignments and only
+ * re-routes the flows of which the color changed, or by the Python controller
+ * (edge_coloring_backend=python), which colors all flows from scratch every time.
+ */
 public class EdgeColoringRouting extends CentralizedController {
 
     private final Map<Long, Flow> flows = new HashMap<>();
@@ -20,11 +34,25 @@ public class EdgeColoringRouting extends CentralizedController {
     private final String runDirectory;
     private final String sharedMemoryPythonPath;
     private final String sharedMemoryJavaPath;
+    private final BipartiteEdgeColoring inProcessColoring;
+    private List<Integer> assignedCoreIds;
 
     public EdgeColoringRouting() {
         runDirectory = SimulationLogger.getRunFolderFull();
         sharedMemoryJavaPath = runDirectory + "/shared_memory_java.json";
         sharedMemoryPythonPath = runDirectory + "/shared_memory_python.json";
+        switch (Simulator.getConfiguration().getPropertyWithDefault(Constants.RoutingStrategies.EDGE_COLORING_BACKEND,
+                Constants.RoutingStrategies.EDGE_COLORING_BACKEND_NATIVE)) {
+            case Constants.RoutingStrategies.EDGE_COLORING_BACKEND_NATIVE:
+                inProcessColoring = new BipartiteEdgeColoring();
+                break;
+            case Constants.RoutingStrategies.EDGE_COLORING_BACKEND_PYTHON:
+                inProcessColoring = null;
+                break;
+            default:
+                throw new PropertyValueInvalidException(Simulator.getConfiguration(), Constants.RoutingStrategies.EDGE_COLORING_BACKEND);
+        }
+        assignedCoreIds = Collections.emptyList();
     }
 
     @Override
@@ -35,13 +63,57 @@ public class EdgeColoringRouting extends CentralizedController {
         int dstTorId = graphDetails.getTorIdOfServer(dstId);
         flows.put(flow.getFlowId(), flow);
         torCommodities.put(flow.getFlowId(), ImmutablePair.of(srcTorId, dstTorId));
+        if (inProcessColoring != null) {
+            inProcessColoring.add(flow.getFlowId(), srcTorId, dstTorId);
+        }
     }
 
     @Override
     public void clearResources(Flow flow) {
         super.clearResources(flow);
         flows.remove(flow.getFlowId());
-        torCommodities.remove(flow.getFlowId());
+        if (torCommodities.remove(flow.getFlowId()) != null && inProcessColoring != null) {
+            inProcessColoring.remove(flow.getFlowId());
+        }
+    }
+
+    /**
+     * Write the routing state to a checkpoint, including the flows to assign paths to
+     * and the in-process coloring (of which the colors depend on the order of changes).
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        Flow.writeReferences(out, flows.values());
+        out.writeInt(assignedCoreIds.size());
+        for (int coreId : assignedCoreIds) {
+            out.writeInt(coreId);
+        }
+        if (inProcessColoring != null) {
+            inProcessColoring.writeCheckpoint(out);
+        }
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        super.readCheckpoint(in, flows);
+        if (!this.flows.isEmpty()) {
+            throw new IllegalStateException("Commodities can only be restored into a routing strategy without any.");
+        }
+        for (Flow flow : Flow.readReferences(in, flows)) {
+            addCommodity(flow);
+        }
+        int numCoreIds = in.readInt();
+        List<Integer> coreIds = new ArrayList<>(numCoreIds);
+        for (int i = 0; i < numCoreIds; i++) {
+            coreIds.add(in.readInt());
+        }
+        assignedCoreIds = coreIds;
+        if (inProcessColoring != null) {
+            inProcessColoring.readCheckpoint(in);
+        }
     }
 
     @Override
@@ -52,21 +124,38 @@ public class EdgeColoringRouting extends CentralizedController {
 
         List<Integer> coreIds = getCoreIds();
         long start = System.currentTimeMillis();
-        Map<Long, Integer> assignments = SharedMemory.receivePathAssignmentsFromController(
-                sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, false
-        );
-//        Map<Long, Integer> assignments = EdgeColoring.colorEdges(torCommodities);
-        for (long flowId : assignments.keySet()) {
-            Flow flow = flows.get(flowId);
-            int coreId = coreIds.get(assignments.get(flowId) % coreIds.size());
-            List<Integer> path = RoutingUtility.constructPath(graphDetails, flow, coreId);
-            Job job = Simulator.getJobs().get(flow.getJobId());
-            ImmutablePair<Integer, Integer> commodity = ImmutablePair.of(flow.getSrcId(), flow.getDstId());
-            job.getCommoditiesPaths().put(commodity, path);
+        if (inProcessColoring != null) {
+            inProcessColoring.compact();
+            if (coreIds.equals(assignedCoreIds)) {
+                inProcessColoring.forEachRecolored(flowId -> assignPath(flowId, inProcessColoring.getColor(flowId), coreIds));
+            } else {
+                // The cores of all colors have changed
+                inProcessColoring.forEachRecolored(flowId -> { });
+                for (long flowId : flows.keySet()) {
+                    assignPath(flowId, inProcessColoring.getColor(flowId), coreIds);
+                }
+                assignedCoreIds = coreIds;
+            }
+        } else {
+            Map<Long, Integer> assignments = SharedMemory.receivePathAssignmentsFromController(
+                    sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, false
+            );
+            for (long flowId : assignments.keySet()) {
+                assignPath(flowId, assignments.get(flowId), coreIds);
+            }
         }
         durations.add(System.currentTimeMillis() - start);
     }
 
+    private void assignPath(long flowId, int color, List<Integer> coreIds) {
+        Flow flow = flows.get(flowId);
+        int coreId = coreIds.get(color % coreIds.size());
+        List<Integer> path = RoutingUtility.constructPath(graphDetails, flow, coreId);
+        Job job = Simulator.getJobs().get(flow.getJobId());
+        ImmutablePair<Integer, Integer> commodity = ImmutablePair.of(flow.getSrcId(), flow.getDstId());
+        job.setCommodityPath(commodity, path);
+    }
+
     private String getJsonRequest() {
         Map<String, String> map = new HashMap<>();
         map.put("src_dst_pairs", torCommodities.toString());
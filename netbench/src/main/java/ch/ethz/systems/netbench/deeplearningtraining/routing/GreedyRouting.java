@@ -2,10 +2,13 @@ package ch.ethz.systems.netbench.deeplearningtraining.routing;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import ch.ethz.systems.netbench.deeplearningtraining.utils.RoutingUtility;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -47,6 +50,45 @@ public class GreedyRouting extends CentralizedController {
         downlinkTorFlows.get(graphDetails.getTorIdOfServer(dstId)).remove(flow);
     }
 
+    /**
+     * Write the routing state to a checkpoint, including the flows of every ToR
+     * (of which the path assignment leaves out the already assigned ones).
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        writeTorFlows(out, uplinkTorFlows);
+        writeTorFlows(out, downlinkTorFlows);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        super.readCheckpoint(in, flows);
+        readTorFlows(in, flows, uplinkTorFlows);
+        readTorFlows(in, flows, downlinkTorFlows);
+    }
+
+    private static void writeTorFlows(CheckpointOutput out, Map<Integer, Set<Flow>> torFlows) throws IOException {
+        List<Integer> torIds = new ArrayList<>(torFlows.keySet());
+        Collections.sort(torIds);
+        out.writeInt(torIds.size());
+        for (int torId : torIds) {
+            out.writeInt(torId);
+            Flow.writeReferences(out, torFlows.get(torId));
+        }
+    }
+
+    private static void readTorFlows(CheckpointInput in, Map<Long, Flow> flows, Map<Integer, Set<Flow>> torFlows) throws IOException {
+        torFlows.clear();
+        int numTors = in.readInt();
+        for (int i = 0; i < numTors; i++) {
+            int torId = in.readInt();
+            torFlows.put(torId, new HashSet<>(Flow.readReferences(in, flows)));
+        }
+    }
+
     @Override
     public void determinePathAssignments() {
         if (uplinkTorFlows.isEmpty() && downlinkTorFlows.isEmpty()) {
@@ -74,7 +116,7 @@ public class GreedyRouting extends CentralizedController {
         List<Integer> path = RoutingUtility.determinePath(graphDetails, flow, linkAssignmentsCounter, coreIds);
         Job job = Simulator.getJobs().get(flow.getJobId());
         ImmutablePair<Integer, Integer> commodity = ImmutablePair.of(flow.getSrcId(), flow.getDstId());
-        job.getCommoditiesPaths().put(commodity, path);
+        job.setCommodityPath(commodity, path);
     }
 
     private List<Set<Flow>> sortTorFlows() {
@@ -2,14 +2,20 @@ package ch.ethz.systems.netbench.deeplearningtraining.routing;
 
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
+import ch.ethz.systems.netbench.deeplearningtraining.utils.CoreAssignmentIlp;
 import ch.ethz.systems.netbench.deeplearningtraining.utils.RoutingUtility;
 import ch.ethz.systems.netbench.deeplearningtraining.utils.SharedMemory;
 import com.google.gson.Gson;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -32,6 +38,10 @@ import java.util.*;
  * x_e \in \mathbb{N}^+ \forall e \in E
  * <p>
  * \alpha \in \mathbb{N}^+
+ * <p>
+ * The ILP is solved by the Python controller (ilp_solver_backend=python, default), or
+ * in-process by OR-Tools (ilp_solver_backend=ortools), which keeps its model between
+ * the path assignments.
  */
 public class IlpSolverRouting extends CentralizedController {
 
@@ -40,11 +50,23 @@ public class IlpSolverRouting extends CentralizedController {
     private final String runDirectory;
     private final String sharedMemoryPythonPath;
     private final String sharedMemoryJavaPath;
+    private final CoreAssignmentIlp<Long> inProcessSolver;
 
     public IlpSolverRouting() {
         runDirectory = SimulationLogger.getRunFolderFull();
         sharedMemoryJavaPath = runDirectory + "/shared_memory_java.json";
         sharedMemoryPythonPath = runDirectory + "/shared_memory_python.json";
+        switch (Simulator.getConfiguration().getPropertyWithDefault(Constants.RoutingStrategies.ILP_SOLVER_BACKEND,
+                Constants.RoutingStrategies.ILP_SOLVER_BACKEND_PYTHON)) {
+            case Constants.RoutingStrategies.ILP_SOLVER_BACKEND_PYTHON:
+                inProcessSolver = null;
+                break;
+            case Constants.RoutingStrategies.ILP_SOLVER_BACKEND_ORTOOLS:
+                inProcessSolver = new CoreAssignmentIlp<>(graphDetails.getTorNodeIds(), graphDetails.getCoreNodeIds());
+                break;
+            default:
+                throw new PropertyValueInvalidException(Simulator.getConfiguration(), Constants.RoutingStrategies.ILP_SOLVER_BACKEND);
+        }
     }
 
     @Override
@@ -63,6 +85,30 @@ public class IlpSolverRouting extends CentralizedController {
         flows.remove(flow.getFlowId());
     }
 
+    /**
+     * Write the routing state to a checkpoint, including the flows to assign paths to.
+     * The model of the in-process solver is rebuilt from them by the next path assignment,
+     * which thus starts without the hint of the previous solution.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        Flow.writeReferences(out, flows.values());
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        super.readCheckpoint(in, flows);
+        if (!commodities.isEmpty()) {
+            throw new IllegalStateException("Commodities can only be restored into a routing strategy without any.");
+        }
+        for (Flow flow : Flow.readReferences(in, flows)) {
+            addCommodity(flow);
+        }
+    }
+
     @Override
     public void determinePathAssignments() {
         if (commodities.isEmpty()) {
@@ -71,20 +117,34 @@ public class IlpSolverRouting extends CentralizedController {
 
         List<Integer> coreIds = getCoreIds();
         long start = System.currentTimeMillis();
-        Map<Long, Integer> assignedPaths = SharedMemory.receivePathAssignmentsFromController(
-                sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, true
-        );
+        Map<Long, Integer> assignedPaths;
+        if (inProcessSolver != null) {
+            assignedPaths = inProcessSolver.solve(getCommodityTors(), coreIds);
+        } else {
+            assignedPaths = SharedMemory.receivePathAssignmentsFromController(
+                    sharedMemoryJavaPath, sharedMemoryPythonPath, getJsonRequest(), runDirectory, true
+            );
+        }
         for (long flowId : assignedPaths.keySet()) {
             Flow flow = flows.get(flowId);
             int coreId = coreIds.get(assignedPaths.get(flowId) % coreIds.size());
             List<Integer> path = RoutingUtility.constructPath(graphDetails, flow, coreId);
             Job job = Simulator.getJobs().get(flow.getJobId());
             ImmutablePair<Integer, Integer> commodity = commodities.get(flowId);
-            job.getCommoditiesPaths().put(commodity, path);
+            job.setCommodityPath(commodity, path);
         }
         durations.add(System.currentTimeMillis() - start);
     }
 
+    private Map<Long, ImmutablePair<Integer, Integer>> getCommodityTors() {
+        Map<Long, ImmutablePair<Integer, Integer>> commodityTors = new HashMap<>();
+        commodities.forEach((flowId, commodity) -> commodityTors.put(flowId, ImmutablePair.of(
+                graphDetails.getTorIdOfServer(commodity.getLeft()),
+                graphDetails.getTorIdOfServer(commodity.getRight())
+        )));
+        return commodityTors;
+    }
+
     private String getJsonRequest() {
         GraphDetails graphDetails = Simulator.getConfiguration().getGraphDetails();
         Set<Integer> failedCores = graphDetails.getFailedCores();
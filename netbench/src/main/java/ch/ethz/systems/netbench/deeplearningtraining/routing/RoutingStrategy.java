@@ -3,9 +3,12 @@ package ch.ethz.systems.netbench.deeplearningtraining.routing;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.io.IOException;
 import java.util.*;
 
 public abstract class RoutingStrategy {
@@ -24,12 +27,35 @@ public abstract class RoutingStrategy {
     public final void assignStartFlow(Flow flow) {
         Job job = Simulator.getJob(flow.getJobId());
         List<Integer> path = assignSinglePath(flow);
-        job.getCommoditiesPaths().put(ImmutablePair.of(flow.getSrcId(), flow.getDstId()), path);
+        job.setCommodityPath(ImmutablePair.of(flow.getSrcId(), flow.getDstId()), path);
 
     }
 
     protected abstract List<Integer> assignSinglePath(Flow flow);
 
+    /**
+     * Write the routing state to a checkpoint. Flows are written by identifier.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        Flow.writeReferences(out, flowToCommodityMap.values());
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)} into
+     * the routing strategy of the job as created by the traffic plan.
+     *
+     * @param in    Checkpoint input
+     * @param flows Flows of the checkpoint by identifier
+     */
+    public void readCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        flowToCommodityMap.clear();
+        for (Flow flow : Flow.readReferences(in, flows)) {
+            flowToCommodityMap.put(flow.getFlowId(), flow);
+        }
+    }
+
     public List<Integer> getCoreIds() {
         List<Integer> coreIds = new ArrayList<>(graphDetails.getCoreNodeIds());
         if (!graphDetails.getFailedCores().isEmpty()) {
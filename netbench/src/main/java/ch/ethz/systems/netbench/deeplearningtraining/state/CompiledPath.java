@@ -0,0 +1,92 @@
+package ch.ethz.systems.netbench.deeplearningtraining.state;
+
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.OutputPort;
+
+import java.util.List;
+
+/**
+ * Forwarding representation of the path assigned to a commodity of a job.
+ * <p>
+ * The hops are stored in a primitive array, and the output port to the next hop
+ * (in either direction) is resolved only once per device on the path. A compiled path
+ * is created by the job the first time it is forwarded on, cached on the flows which
+ * use it, and invalidated as soon as the job is assigned another path for the commodity.
+ */
+public final class CompiledPath {
+
+    private final int[] hops;
+    private final OutputPort[] towardsDestination;
+    private final OutputPort[] towardsSource;
+    private boolean valid;
+
+    /**
+     * Compile the path.
+     *
+     * @param path  Device identifiers from source to destination
+     */
+    CompiledPath(List<Integer> path) {
+        this.hops = new int[path.size()];
+        for (int i = 0; i < hops.length; i++) {
+            hops[i] = path.get(i);
+        }
+        this.towardsDestination = new OutputPort[hops.length];
+        this.towardsSource = new OutputPort[hops.length];
+        this.valid = true;
+    }
+
+    /**
+     * Retrieve the output port of the device to its next hop on the path.
+     *
+     * @param device                Network device which forwards (must be on the path)
+     * @param toDestination         True iff going from source to destination, false if going back
+     *
+     * @return Output port to the next hop
+     */
+    public OutputPort getNextPort(NetworkDevice device, boolean toDestination) {
+        int index = indexOf(device.getIdentifier());
+        OutputPort[] ports = toDestination ? towardsDestination : towardsSource;
+        OutputPort port = ports[index];
+        if (port == null) {
+            int next = toDestination ? index + 1 : index - 1;
+            if (next < 0 || next >= hops.length) {
+                throw new IllegalStateException(
+                        "Device " + device.getIdentifier() + " is the last hop of the path in this direction."
+                );
+            }
+            port = device.getTargetOuputPort(hops[next]);
+            ports[index] = port;
+        }
+        return port;
+    }
+
+    /**
+     * Determine the position of a device on the path (paths are only a handful of hops long).
+     *
+     * @param deviceId  Device identifier
+     *
+     * @return Index on the path
+     */
+    private int indexOf(int deviceId) {
+        for (int i = 0; i < hops.length; i++) {
+            if (hops[i] == deviceId) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Device " + deviceId + " is not on the path.");
+    }
+
+    /**
+     * Check whether the path is still the one assigned to the commodity.
+     *
+     * @return True iff still valid
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    void invalidate() {
+        this.valid = false;
+    }
+
+}
@@ -3,14 +3,14 @@ package ch.ethz.systems.netbench.deeplearningtraining.state;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
 import ch.ethz.systems.netbench.core.run.traffic.JobArrivalEvent;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.deeplearningtraining.routing.CentralizedController;
 import ch.ethz.systems.netbench.deeplearningtraining.utils.ParallelismUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
 
 public class DataParallelism {
 
@@ -42,6 +42,44 @@ public class DataParallelism {
         }
     }
 
+    /**
+     * Write the progress of the all-reduce of every stage to a checkpoint. The ring
+     * sizes and flow totals follow from the stages the job started with.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        Job.writeStageCommodities(out, stageCommodities);
+        List<Integer> stages = new ArrayList<>(stageFinishedFlows.keySet());
+        Collections.sort(stages);
+        out.writeInt(stages.size());
+        for (int stage : stages) {
+            out.writeInt(stage);
+            out.writeInt(stageFinishedFlows.get(stage));
+            out.writeBoolean(stageAllReduceFinished.get(stage));
+        }
+    }
+
+    /**
+     * Restore the progress written by {@link #writeCheckpoint(CheckpointOutput)}, into
+     * the parallelism created from the stages the job started with.
+     *
+     * @param in Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        stageCommodities.clear();
+        stageCommodities.putAll(Job.readStageCommodities(in));
+        int numStages = in.readInt();
+        for (int i = 0; i < numStages; i++) {
+            int stage = in.readInt();
+            if (!stageFinishedFlows.containsKey(stage)) {
+                throw new IllegalStateException("Checkpoint contains unknown stage " + stage + ".");
+            }
+            stageFinishedFlows.put(stage, in.readInt());
+            stageAllReduceFinished.put(stage, in.readBoolean());
+        }
+    }
+
     public int update(Job job, Flow flow) {
         int stageIndex = commoditiesToStage.get(ImmutablePair.of(flow.getSrcId(), flow.getDstId()));
         stageFinishedFlows.put(stageIndex, stageFinishedFlows.get(stageIndex) + 1);
@@ -3,10 +3,13 @@ package ch.ethz.systems.netbench.deeplearningtraining.state;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.JobLogger;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.deeplearningtraining.routing.*;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.io.IOException;
 import java.util.*;
 
 
@@ -17,6 +20,7 @@ public class Job {
     private final List<JobEpoch> epochs;
     private final Map<ImmutablePair<Integer, Integer>, List<Flow>> commoditiesFlowsMap;
     private final Map<ImmutablePair<Integer, Integer>, List<Integer>> commoditiesPaths;
+    private final Map<ImmutablePair<Integer, Integer>, CompiledPath> compiledPaths;
     private final long startTime;
     private final int numMiniBatches;
     private final int microBatchSize;
@@ -44,6 +48,7 @@ public class Job {
         this.epochs = new ArrayList<>();
         this.commoditiesFlowsMap = new HashMap<>();
         this.commoditiesPaths = new HashMap<>();
+        this.compiledPaths = new HashMap<>();
         this.stageCommoditiesMap = new HashMap<>();
         this.logger = new JobLogger(this);
         this.initRoutingStrategy();
@@ -108,6 +113,159 @@ public class Job {
         epochs.get(currentEpoch).getStageFlows().get(stageIndex).add(flow);
     }
 
+    /**
+     * Write the state of the job to a checkpoint: the epochs, the flows and assigned
+     * paths of the commodities, the stages, the progress of the parallelism and
+     * the routing state. Flows are written by identifier.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(currentEpoch);
+        out.writeBoolean(computeMode);
+        out.writeInt(epochs.size());
+        for (JobEpoch epoch : epochs) {
+            epoch.writeCheckpoint(out);
+        }
+
+        // Flows of every commodity, in the order in which they were added
+        List<ImmutablePair<Integer, Integer>> commodities = new ArrayList<>(commoditiesFlowsMap.keySet());
+        Collections.sort(commodities);
+        out.writeInt(commodities.size());
+        for (ImmutablePair<Integer, Integer> commodity : commodities) {
+            writeCommodity(out, commodity);
+            List<Flow> flows = commoditiesFlowsMap.get(commodity);
+            out.writeInt(flows.size());
+            for (Flow flow : flows) {
+                out.writeLong(flow.getFlowId());
+            }
+        }
+
+        // Assigned paths
+        commodities = new ArrayList<>(commoditiesPaths.keySet());
+        Collections.sort(commodities);
+        out.writeInt(commodities.size());
+        for (ImmutablePair<Integer, Integer> commodity : commodities) {
+            writeCommodity(out, commodity);
+            List<Integer> path = commoditiesPaths.get(commodity);
+            out.writeInt(path.size());
+            for (int hop : path) {
+                out.writeInt(hop);
+            }
+        }
+
+        writeStageCommodities(out, stageCommoditiesMap);
+        out.writeBoolean(dataParallelism != null);
+        if (dataParallelism != null) {
+            dataParallelism.writeCheckpoint(out);
+        }
+        routingStrategy.writeCheckpoint(out);
+    }
+
+    /**
+     * Restore the state written by {@link #writeCheckpoint(CheckpointOutput)} into
+     * the job as created by the traffic plan, replacing its epochs, commodities and stages.
+     *
+     * @param in    Checkpoint input
+     * @param flows Flows of the checkpoint by identifier
+     */
+    public void readCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        currentEpoch = in.readInt();
+        computeMode = in.readBoolean();
+        epochs.clear();
+        int numEpochs = in.readInt();
+        for (int i = 0; i < numEpochs; i++) {
+            epochs.add(JobEpoch.fromCheckpoint(in, flows));
+        }
+
+        commoditiesFlowsMap.clear();
+        int numCommodities = in.readInt();
+        for (int i = 0; i < numCommodities; i++) {
+            ImmutablePair<Integer, Integer> commodity = readCommodity(in);
+            int numFlows = in.readInt();
+            List<Flow> commodityFlows = new ArrayList<>(numFlows);
+            for (int j = 0; j < numFlows; j++) {
+                commodityFlows.add(Flow.readReference(in, flows));
+            }
+            commoditiesFlowsMap.put(commodity, commodityFlows);
+        }
+
+        commoditiesPaths.clear();
+        compiledPaths.values().forEach(CompiledPath::invalidate);
+        compiledPaths.clear();
+        numCommodities = in.readInt();
+        for (int i = 0; i < numCommodities; i++) {
+            ImmutablePair<Integer, Integer> commodity = readCommodity(in);
+            int pathLength = in.readInt();
+            List<Integer> path = new ArrayList<>(pathLength);
+            for (int j = 0; j < pathLength; j++) {
+                path.add(in.readInt());
+            }
+            commoditiesPaths.put(commodity, path);
+        }
+
+        stageCommoditiesMap.clear();
+        stageCommoditiesMap.putAll(readStageCommodities(in));
+        if (in.readBoolean()) {
+            dataParallelism = new DataParallelism(stageCommoditiesMap);
+            dataParallelism.readCheckpoint(in);
+        } else {
+            dataParallelism = null;
+        }
+        routingStrategy.readCheckpoint(in, flows);
+    }
+
+    private static void writeCommodity(CheckpointOutput out, ImmutablePair<Integer, Integer> commodity) throws IOException {
+        out.writeInt(commodity.getLeft());
+        out.writeInt(commodity.getRight());
+    }
+
+    private static ImmutablePair<Integer, Integer> readCommodity(CheckpointInput in) throws IOException {
+        return ImmutablePair.of(in.readInt(), in.readInt());
+    }
+
+    /**
+     * Write the commodities of every stage, in order.
+     *
+     * @param out               Checkpoint output
+     * @param stageCommodities  Commodities of every stage
+     */
+    static void writeStageCommodities(CheckpointOutput out, Map<Integer, Set<ImmutablePair<Integer, Integer>>> stageCommodities) throws IOException {
+        List<Integer> stages = new ArrayList<>(stageCommodities.keySet());
+        Collections.sort(stages);
+        out.writeInt(stages.size());
+        for (int stage : stages) {
+            out.writeInt(stage);
+            List<ImmutablePair<Integer, Integer>> commodities = new ArrayList<>(stageCommodities.get(stage));
+            Collections.sort(commodities);
+            out.writeInt(commodities.size());
+            for (ImmutablePair<Integer, Integer> commodity : commodities) {
+                writeCommodity(out, commodity);
+            }
+        }
+    }
+
+    /**
+     * Read the commodities written by {@link #writeStageCommodities(CheckpointOutput, Map)}.
+     *
+     * @param in    Checkpoint input
+     * @return Commodities of every stage
+     */
+    static Map<Integer, Set<ImmutablePair<Integer, Integer>>> readStageCommodities(CheckpointInput in) throws IOException {
+        Map<Integer, Set<ImmutablePair<Integer, Integer>>> stageCommodities = new HashMap<>();
+        int numStages = in.readInt();
+        for (int i = 0; i < numStages; i++) {
+            int stage = in.readInt();
+            int numCommodities = in.readInt();
+            Set<ImmutablePair<Integer, Integer>> commodities = new HashSet<>();
+            for (int j = 0; j < numCommodities; j++) {
+                commodities.add(readCommodity(in));
+            }
+            stageCommodities.put(stage, commodities);
+        }
+        return stageCommodities;
+    }
+
     public boolean isFinished() {
         return currentEpoch > 10;
     }
@@ -136,6 +294,42 @@ public class Job {
         return commoditiesPaths;
     }
 
+    /**
+     * Assign a path to a commodity, which invalidates the compiled path of the previous one.
+     *
+     * @param commodity     (source, destination) pair
+     * @param path          Device identifiers from source to destination
+     */
+    public void setCommodityPath(ImmutablePair<Integer, Integer> commodity, List<Integer> path) {
+        List<Integer> previous = commoditiesPaths.put(commodity, path);
+        if (previous != path) {
+            CompiledPath compiled = compiledPaths.remove(commodity);
+            if (compiled != null) {
+                compiled.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Retrieve the compiled form of the path assigned to a commodity.
+     *
+     * @param commodity     (source, destination) pair
+     *
+     * @return Compiled path
+     */
+    public CompiledPath getCompiledPath(ImmutablePair<Integer, Integer> commodity) {
+        CompiledPath compiled = compiledPaths.get(commodity);
+        if (compiled == null) {
+            List<Integer> path = commoditiesPaths.get(commodity);
+            if (path == null) {
+                throw new IllegalStateException("No path is assigned to commodity " + commodity + " of job " + jobId + ".");
+            }
+            compiled = new CompiledPath(path);
+            compiledPaths.put(commodity, compiled);
+        }
+        return compiled;
+    }
+
     public long getStartTime() {
         return startTime;
     }
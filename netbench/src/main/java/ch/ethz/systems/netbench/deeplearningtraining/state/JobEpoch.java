@@ -1,10 +1,11 @@
 package ch.ethz.systems.netbench.deeplearningtraining.state;
 
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class JobEpoch {
@@ -30,6 +31,47 @@ public class JobEpoch {
         stageFlows.keySet().forEach(stage -> stageEndTime.put(stage, -1L));
     }
 
+    /**
+     * Write the epoch to a checkpoint: the flows and end time of every stage.
+     *
+     * @param out Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(startTime);
+        out.writeLong(flowSize);
+        List<Integer> stages = new ArrayList<>(stageFlows.keySet());
+        Collections.sort(stages);
+        out.writeInt(stages.size());
+        for (int stage : stages) {
+            out.writeInt(stage);
+            Flow.writeReferences(out, stageFlows.get(stage));
+            out.writeLong(stageEndTime.get(stage));
+        }
+    }
+
+    /**
+     * Read an epoch written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     * @param flows Flows of the checkpoint by identifier
+     * @return Epoch
+     */
+    public static JobEpoch fromCheckpoint(CheckpointInput in, Map<Long, Flow> flows) throws IOException {
+        long startTime = in.readLong();
+        long flowSize = in.readLong();
+        int numStages = in.readInt();
+        Map<Integer, Set<Flow>> stageFlows = new HashMap<>();
+        Map<Integer, Long> stageEndTime = new HashMap<>();
+        for (int i = 0; i < numStages; i++) {
+            int stage = in.readInt();
+            stageFlows.put(stage, new HashSet<>(Flow.readReferences(in, flows)));
+            stageEndTime.put(stage, in.readLong());
+        }
+        JobEpoch epoch = new JobEpoch(startTime, flowSize, stageFlows);
+        epoch.stageEndTime.putAll(stageEndTime);
+        return epoch;
+    }
+
     public long getStartTime() {
         return startTime;
     }
@@ -0,0 +1,305 @@
+package ch.ethz.systems.netbench.deeplearningtraining.utils;
+
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.util.*;
+
+/**
+ * In-process (OR-Tools) solver of the core assignment ILP of a two-tier topology:
+ * every commodity (source ToR, destination ToR) is routed via exactly one core,
+ * such that the maximum number of commodities on any ToR-core link is minimized.
+ * <p>
+ * \min \alpha
+ * <p>
+ * Subject to \sum_{c \in C} x_c^l = 1 \forall l \in L
+ * <p>
+ * \sum_{l \in L} \sum_{c \in C : e \in (src_l, c, dst_l)} x_c^l \leq \alpha \forall e \in E
+ * <p>
+ * x_c^l = 0 \forall l \in L, c \in F
+ * <p>
+ * x_c^l \in \{0,1\}, \alpha \in \mathbb{N}
+ * <p>
+ * This is the formulation of the Python controller with the per-link load variables
+ * x_e substituted out. Commodities of which source and destination ToR are the same
+ * do not traverse a core and are left out of the model.
+ * <p>
+ * The model is kept between solves: the link constraints are created once, and every
+ * commodity occupies a slot (one binary variable per core and a one-path constraint)
+ * which is kept as long as the commodity is present. Slots of departed commodities are
+ * disabled and re-used by new commodities, and the previous assignment of the remaining
+ * commodities is handed to the solver as hint. As the objective is at least the number of
+ * commodities of the busiest ToR divided by the number of cores, alpha is bounded from
+ * below by it, which saves the solver most of its search for a proof of optimality.
+ *
+ * @param <K> Commodity identifier type
+ */
+public class CoreAssignmentIlp<K> {
+
+    private final MPSolver solver;
+    private final MPVariable alpha;
+
+    // Topology
+    private final int[] coreIds;
+    private final Map<Integer, Integer> torIdToIndex;
+    private final Map<Integer, Integer> coreIdToIndex;
+
+    // Link load constraints: [tor][core] for the up-link, [core][tor] for the down-link
+    private final MPConstraint[][] upLinkLoad;
+    private final MPConstraint[][] downLinkLoad;
+
+    // Availability of each core in the model
+    private final boolean[] coreAvailable;
+
+    // Commodity slots
+    private final Map<K, Slot> commodityToSlot;
+    private final ArrayDeque<Slot> freeSlots;
+    private int numSlots;
+
+    /**
+     * Commodity slot: one binary variable per core and the constraint that
+     * exactly one of them is selected (disabled slots have all of them zero).
+     */
+    private static class Slot {
+
+        private final MPVariable[] coreVariables;
+        private final MPConstraint onePath;
+        private int srcTorIdx;
+        private int dstTorIdx;
+        private int lastCoreIdx;
+
+        private Slot(MPVariable[] coreVariables, MPConstraint onePath) {
+            this.coreVariables = coreVariables;
+            this.onePath = onePath;
+            this.lastCoreIdx = -1;
+        }
+
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param torIds    All ToR node identifiers
+     * @param coreIds   All core node identifiers (including the ones which might fail later on)
+     */
+    public CoreAssignmentIlp(Collection<Integer> torIds, Collection<Integer> coreIds) {
+        Loader.loadNativeLibraries();
+        this.solver = MPSolver.createSolver("SCIP");
+        if (this.solver == null) {
+            throw new IllegalStateException("OR-Tools SCIP solver is not available.");
+        }
+        this.alpha = solver.makeIntVar(0, MPSolver.infinity(), "alpha");
+        this.solver.objective().setCoefficient(alpha, 1);
+        this.solver.objective().setMinimization();
+
+        // Node indices
+        this.torIdToIndex = new HashMap<>();
+        for (int torId : torIds) {
+            torIdToIndex.put(torId, torIdToIndex.size());
+        }
+        this.coreIds = new int[coreIds.size()];
+        this.coreIdToIndex = new HashMap<>();
+        for (int coreId : coreIds) {
+            this.coreIds[coreIdToIndex.size()] = coreId;
+            coreIdToIndex.put(coreId, coreIdToIndex.size());
+        }
+        this.coreAvailable = new boolean[this.coreIds.length];
+        Arrays.fill(coreAvailable, true);
+
+        // Link load constraints: load(e) - alpha <= 0
+        this.upLinkLoad = new MPConstraint[torIdToIndex.size()][this.coreIds.length];
+        this.downLinkLoad = new MPConstraint[this.coreIds.length][torIdToIndex.size()];
+        for (int t = 0; t < torIdToIndex.size(); t++) {
+            for (int c = 0; c < this.coreIds.length; c++) {
+                upLinkLoad[t][c] = solver.makeConstraint(-MPSolver.infinity(), 0, "up_" + t + "_" + c);
+                upLinkLoad[t][c].setCoefficient(alpha, -1);
+                downLinkLoad[c][t] = solver.makeConstraint(-MPSolver.infinity(), 0, "down_" + c + "_" + t);
+                downLinkLoad[c][t].setCoefficient(alpha, -1);
+            }
+        }
+
+        this.commodityToSlot = new HashMap<>();
+        this.freeSlots = new ArrayDeque<>();
+        this.numSlots = 0;
+    }
+
+    /**
+     * Solve the core assignment for the given commodities. Commodities which were
+     * part of the previous solve but are no longer present are removed from the model.
+     *
+     * @param commodityTors         Mapping of each commodity to its (source ToR, destination ToR)
+     * @param availableCoreIds      Cores which can be used
+     *
+     * @return Mapping of each commodity to the index of its core in the available core identifiers
+     */
+    public Map<K, Integer> solve(Map<K, ImmutablePair<Integer, Integer>> commodityTors, List<Integer> availableCoreIds) {
+        if (availableCoreIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one core must be available.");
+        }
+
+        // Departed commodities (or ones which no longer traverse a core)
+        Iterator<Map.Entry<K, Slot>> iterator = commodityToSlot.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Slot> entry = iterator.next();
+            ImmutablePair<Integer, Integer> tors = commodityTors.get(entry.getKey());
+            if (tors == null || tors.getLeft().equals(tors.getRight())) {
+                disable(entry.getValue());
+                freeSlots.push(entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        // Core availability
+        Map<Integer, Integer> coreIdToAvailableIdx = new HashMap<>();
+        for (int i = 0; i < availableCoreIds.size(); i++) {
+            if (!coreIdToIndex.containsKey(availableCoreIds.get(i))) {
+                throw new IllegalArgumentException("Node " + availableCoreIds.get(i) + " is not a core.");
+            }
+            coreIdToAvailableIdx.put(availableCoreIds.get(i), i);
+        }
+        for (int c = 0; c < coreIds.length; c++) {
+            boolean available = coreIdToAvailableIdx.containsKey(coreIds[c]);
+            if (available != coreAvailable[c]) {
+                coreAvailable[c] = available;
+                for (Slot slot : commodityToSlot.values()) {
+                    slot.coreVariables[c].setUb(available ? 1 : 0);
+                }
+            }
+        }
+
+        // Present commodities
+        Map<K, Integer> assignment = new HashMap<>();
+        for (Map.Entry<K, ImmutablePair<Integer, Integer>> entry : commodityTors.entrySet()) {
+            int srcTorIdx = getTorIndex(entry.getValue().getLeft());
+            int dstTorIdx = getTorIndex(entry.getValue().getRight());
+            if (srcTorIdx == dstTorIdx) {
+                assignment.put(entry.getKey(), 0);
+                continue;
+            }
+            Slot slot = commodityToSlot.get(entry.getKey());
+            if (slot != null && (slot.srcTorIdx != srcTorIdx || slot.dstTorIdx != dstTorIdx)) {
+                disable(slot);
+                enable(slot, srcTorIdx, dstTorIdx);
+            } else if (slot == null) {
+                slot = freeSlots.isEmpty() ? createSlot() : freeSlots.pop();
+                enable(slot, srcTorIdx, dstTorIdx);
+                commodityToSlot.put(entry.getKey(), slot);
+            }
+        }
+        if (commodityToSlot.isEmpty()) {
+            return assignment;
+        }
+
+        // Previous assignments as hint
+        List<MPVariable> hintVariables = new ArrayList<>();
+        List<Double> hintValues = new ArrayList<>();
+        for (Slot slot : commodityToSlot.values()) {
+            if (slot.lastCoreIdx != -1 && coreAvailable[slot.lastCoreIdx]) {
+                for (int c = 0; c < coreIds.length; c++) {
+                    hintVariables.add(slot.coreVariables[c]);
+                    hintValues.add(c == slot.lastCoreIdx ? 1.0 : 0.0);
+                }
+            }
+        }
+        double[] hintValuesArray = new double[hintValues.size()];
+        for (int i = 0; i < hintValuesArray.length; i++) {
+            hintValuesArray[i] = hintValues.get(i);
+        }
+        solver.reset(); // SCIP does not accept a hint for an already solved problem
+        solver.setHint(hintVariables.toArray(new MPVariable[0]), hintValuesArray);
+
+        // Every ToR must spread its commodities over the available cores
+        int[] upCount = new int[torIdToIndex.size()];
+        int[] downCount = new int[torIdToIndex.size()];
+        int maxCount = 0;
+        for (Slot slot : commodityToSlot.values()) {
+            maxCount = Math.max(maxCount, Math.max(++upCount[slot.srcTorIdx], ++downCount[slot.dstTorIdx]));
+        }
+        alpha.setLb((maxCount + availableCoreIds.size() - 1) / availableCoreIds.size());
+
+        // Solve
+        MPSolver.ResultStatus status = solver.solve();
+        if (status != MPSolver.ResultStatus.OPTIMAL) {
+            throw new IllegalStateException("Core assignment ILP was not solved to optimality: " + status);
+        }
+
+        // Retrieve assignment
+        for (Map.Entry<K, Slot> entry : commodityToSlot.entrySet()) {
+            Slot slot = entry.getValue();
+            slot.lastCoreIdx = -1;
+            for (int c = 0; c < coreIds.length; c++) {
+                if (slot.coreVariables[c].solutionValue() > 0.5) {
+                    slot.lastCoreIdx = c;
+                    break;
+                }
+            }
+            if (slot.lastCoreIdx == -1) {
+                throw new IllegalStateException("Commodity " + entry.getKey() + " was not assigned a core.");
+            }
+            assignment.put(entry.getKey(), coreIdToAvailableIdx.get(coreIds[slot.lastCoreIdx]));
+        }
+        return assignment;
+    }
+
+    /**
+     * Retrieve the objective (maximum number of commodities on a ToR-core link) of the last solve.
+     *
+     * @return Maximum link load
+     */
+    public double getObjectiveValue() {
+        return solver.objective().value();
+    }
+
+    /**
+     * Release the native resources of the solver. The instance cannot be used afterwards.
+     */
+    public void delete() {
+        solver.delete();
+    }
+
+    private int getTorIndex(int torId) {
+        Integer idx = torIdToIndex.get(torId);
+        if (idx == null) {
+            throw new IllegalArgumentException("Node " + torId + " is not a ToR.");
+        }
+        return idx;
+    }
+
+    private Slot createSlot() {
+        MPVariable[] coreVariables = new MPVariable[coreIds.length];
+        for (int c = 0; c < coreIds.length; c++) {
+            coreVariables[c] = solver.makeIntVar(0, 0, "x_" + numSlots + "_" + c);
+        }
+        MPConstraint onePath = solver.makeConstraint(0, 0, "one_path_" + numSlots);
+        for (MPVariable variable : coreVariables) {
+            onePath.setCoefficient(variable, 1);
+        }
+        numSlots++;
+        return new Slot(coreVariables, onePath);
+    }
+
+    private void enable(Slot slot, int srcTorIdx, int dstTorIdx) {
+        slot.srcTorIdx = srcTorIdx;
+        slot.dstTorIdx = dstTorIdx;
+        slot.lastCoreIdx = -1;
+        for (int c = 0; c < coreIds.length; c++) {
+            upLinkLoad[srcTorIdx][c].setCoefficient(slot.coreVariables[c], 1);
+            downLinkLoad[c][dstTorIdx].setCoefficient(slot.coreVariables[c], 1);
+            slot.coreVariables[c].setUb(coreAvailable[c] ? 1 : 0);
+        }
+        slot.onePath.setBounds(1, 1);
+    }
+
+    private void disable(Slot slot) {
+        for (int c = 0; c < coreIds.length; c++) {
+            upLinkLoad[slot.srcTorIdx][c].setCoefficient(slot.coreVariables[c], 0);
+            downLinkLoad[c][slot.dstTorIdx].setCoefficient(slot.coreVariables[c], 0);
+            slot.coreVariables[c].setUb(0);
+        }
+        slot.onePath.setBounds(0, 0);
+    }
+
+}
@@ -42,7 +42,7 @@ public class EdgeColoring {
         int K = ret.getK();
         List<List<Integer>> ans = new ArrayList<>();
         List<Integer> ord = new ArrayList<>();
-        for (int i = 0; i < A.length; i++) {
+        for (int i = 0; i < ret.getC().size(); i++) {
             ord.add(i);
         }
 
@@ -59,8 +59,10 @@ public class EdgeColoring {
 
         Map<Long, Integer> assignments = new HashMap<>();
 
-        for (Map.Entry<Long, ImmutablePair<Integer, Integer>> entry : commodities.entrySet()) {
-            assignments.put(entry.getKey(), colors[entry.getValue().getKey()]);
+        // The edges are in the iteration order of the commodities
+        int e = 0;
+        for (Long id : commodities.keySet()) {
+            assignments.put(id, colors[e++]);
         }
 
         return assignments;
@@ -1,15 +1,23 @@
 package ch.ethz.systems.netbench.ext.bare;
 
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.core.pool.ObjectPool;
+import ch.ethz.systems.netbench.core.pool.Pooling;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.ext.basic.IpPacket;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.megaswitch.Encapsulatable;
 
+import java.io.IOException;
+
 public class BarePacket extends TcpPacket {
 
     /**
 	 * 
 	 */
 	private static final long serialVersionUID = -8622089801582883629L;
+	private static final ObjectPool<Packet> POOL = Pooling.createPool("bare_packet");
 
 	BarePacket(long flowId, long dataSizeByte, int sourceId, int destinationId, long sequenceNumber, long acknowledgementNumber, boolean ECE, boolean ACK, double windowSize) {
         super(
@@ -35,6 +43,39 @@ public class BarePacket extends TcpPacket {
         );
     }
 
+	/**
+	 * Retrieve a packet with the given header, which is taken from the pool
+	 * if pooling is enabled. The caller must adhere to the ownership rules
+	 * of {@link Pooling}: once sent, the packet may no longer be referenced.
+	 */
+	static BarePacket obtain(long flowId, long dataSizeByte, int sourceId, int destinationId, long sequenceNumber, long acknowledgementNumber, boolean ECE, boolean ACK, double windowSize) {
+		if (!Pooling.isEnabled()) {
+			return new BarePacket(flowId, dataSizeByte, sourceId, destinationId, sequenceNumber, acknowledgementNumber, ECE, ACK, windowSize);
+		}
+		BarePacket packet = (BarePacket) POOL.poll();
+		if (packet == null) {
+			packet = new BarePacket(flowId, dataSizeByte, sourceId, destinationId, sequenceNumber, acknowledgementNumber, ECE, ACK, windowSize);
+		} else {
+			packet.reinitialize(flowId, dataSizeByte, sourceId, destinationId, 0, 0, 0, sequenceNumber, acknowledgementNumber,
+					false, false, ECE, false, ACK, false, false, false, false, windowSize);
+		}
+		packet.setPool(POOL);
+		return packet;
+	}
+
+	/**
+	 * Read a packet written by {@link #writeCheckpoint(CheckpointOutput)}.
+	 *
+	 * @param in    Checkpoint input
+	 *
+	 * @return Packet instance (not pooled)
+	 */
+	public static BarePacket fromCheckpoint(CheckpointInput in) throws IOException {
+		BarePacket packet = new BarePacket(0, 0, 0, 0, 0, 0, false, false, 0);
+		packet.readCheckpoint(in);
+		return packet;
+	}
+
 	public BarePacket(BarePacket barePacket) {
 		super(barePacket);
 	}
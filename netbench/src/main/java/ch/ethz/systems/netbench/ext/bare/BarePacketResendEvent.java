@@ -1,6 +1,11 @@
 package ch.ethz.systems.netbench.ext.bare;
 
+import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
 
 public class BarePacketResendEvent extends Event {
 
@@ -15,6 +20,56 @@ public class BarePacketResendEvent extends Event {
         this.active = true;
     }
 
+    /**
+     * Write the event to a checkpoint, identifying the socket by its network
+     * device and flow. Of the packet, only the header fields from which it is
+     * resent are written.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeBoolean(active);
+        if (active) {
+            out.writeInt(bareSocket.getTransportLayer().getIdentifier());
+            out.writeLong(bareSocket.getFlowId());
+            out.writeLong(packet.getDataSizeByte());
+            out.writeLong(packet.getSequenceNumber());
+            out.writeLong(packet.getAcknowledgementNumber());
+            out.writeBoolean(packet.isACK());
+            out.writeBoolean(packet.isECE());
+        }
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}. If it is
+     * active, it is re-attached to its socket, which must already have been restored.
+     * Events of sockets which have been closed in the meantime are restored as cancelled.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Packet resend event
+     */
+    public static BarePacketResendEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        if (in.readBoolean()) {
+            int deviceId = in.readInt();
+            long flowId = in.readLong();
+            long dataSizeByte = in.readLong();
+            long sequenceNumber = in.readLong();
+            long ackNumber = in.readLong();
+            boolean ACK = in.readBoolean();
+            boolean ECE = in.readBoolean();
+            BareSocket socket = (BareSocket) Simulator.getNetworkDevice(deviceId).getTransportLayer().getSocket(flowId);
+            if (socket != null) {
+                return socket.restoreResendEvent(timeFromNowNs, dataSizeByte, sequenceNumber, ackNumber, ACK, ECE);
+            }
+        }
+        BarePacketResendEvent event = new BarePacketResendEvent(timeFromNowNs, null, null);
+        event.cancel();
+        return event;
+    }
+
     @Override
     public void trigger() {
         if (this.active) {
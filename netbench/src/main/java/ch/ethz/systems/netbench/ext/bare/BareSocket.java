@@ -5,12 +5,12 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.tcpbase.TcpLogger;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.util.*;
 
 public class BareSocket extends Socket {
 
@@ -80,8 +80,9 @@ public class BareSocket extends Socket {
             assert (!packet.isACK());
 
             // Send acknowledgment for every packet (does not abide that the
-            // acknowledgment field is normally cumulative)
-            sendWithoutResend(new BarePacket(
+            // acknowledgment field is normally cumulative); it is not retained,
+            // so it can be pooled
+            sendWithoutResend(BarePacket.obtain(
                     flowId,
                     0,
                     sourceId,
@@ -284,6 +285,74 @@ public class BareSocket extends Socket {
 
     }
 
+    /**
+     * Re-create the pending resend event of a packet when restoring a checkpoint,
+     * as the event is restored from the event queue after the socket.
+     *
+     * @param timeFromNowNs  Time until the resend
+     * @param dataSizeByte   Data size of the packet to resend
+     * @param sequenceNumber Sequence number of the packet to resend
+     * @param ackNumber      Acknowledgment number of the packet to resend
+     * @param ACK            True iff the packet to resend carries an acknowledgment
+     * @param ECE            True iff the packet to resend has the ECE flag
+     * @return Restored (active) resend event
+     */
+    BarePacketResendEvent restoreResendEvent(long timeFromNowNs, long dataSizeByte, long sequenceNumber,
+                                             long ackNumber, boolean ACK, boolean ECE) {
+        BarePacketResendEvent event = new BarePacketResendEvent(
+                timeFromNowNs,
+                createPacket(dataSizeByte, sequenceNumber, ackNumber, ACK, ECE),
+                this
+        );
+        seqNumbToResendEventMap.put(sequenceNumber, event);
+        return event;
+    }
+
+    /**
+     * Write the state of the socket to a checkpoint. The pending resend
+     * events are part of the event queue instead.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        writeSocketCheckpoint(out);
+        out.writeDouble(slowStartThreshold);
+        out.writeDouble(congestionWindow);
+        out.writeLong(sendUnackNumber);
+        out.writeLong(sendNextNumber);
+        out.writeLong(highestSentOutNumber);
+        List<Long> acknowledged = new ArrayList<>(acknowledgedSegStartSeqNumbers);
+        Collections.sort(acknowledged);
+        out.writeInt(acknowledged.size());
+        for (long seq : acknowledged) {
+            out.writeLong(seq);
+        }
+        out.writeLong(dctcpTotalBytes);
+        out.writeLong(dctcpMarkedBytes);
+        out.writeLong(dctcpAlphaUpdateWindow);
+        out.writeDouble(dctcpAlphaFraction);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        readSocketCheckpoint(in);
+        slowStartThreshold = in.readDouble();
+        congestionWindow = in.readDouble();
+        sendUnackNumber = in.readLong();
+        sendNextNumber = in.readLong();
+        highestSentOutNumber = in.readLong();
+        acknowledgedSegStartSeqNumbers.clear();
+        int numAcknowledged = in.readInt();
+        for (int i = 0; i < numAcknowledged; i++) {
+            acknowledgedSegStartSeqNumbers.add(in.readLong());
+        }
+        dctcpTotalBytes = in.readLong();
+        dctcpMarkedBytes = in.readLong();
+        dctcpAlphaUpdateWindow = in.readLong();
+        dctcpAlphaFraction = in.readDouble();
+    }
+
     /**
      * Take action when a packet is lost.
      * Typical response is halving the congestion window.
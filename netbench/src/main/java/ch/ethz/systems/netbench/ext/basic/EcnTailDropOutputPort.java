@@ -54,6 +54,7 @@ public class EcnTailDropOutputPort extends OutputPort {
             guaranteedEnqueue(packet);
         } else {
             onPacketDropped(packet);
+            packet.release();
         }
     }
 
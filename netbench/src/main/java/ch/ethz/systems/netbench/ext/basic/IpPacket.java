@@ -1,6 +1,10 @@
 package ch.ethz.systems.netbench.ext.basic;
 
 import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
 
 public abstract class IpPacket extends Packet implements IpHeader {
 
@@ -13,8 +17,8 @@ public abstract class IpPacket extends Packet implements IpHeader {
     private static final long IP_HEADER_SIZE_BIT = 480L;
 
     // IP header fields
-    private final int sourceId;
-    private final int destinationId;
+    private int sourceId;
+    private int destinationId;
     private boolean ECN;
     private int TTL;
 
@@ -51,6 +55,41 @@ public abstract class IpPacket extends Packet implements IpHeader {
 	     this.TTL = ipPacket.TTL;
 	}
 
+    /**
+     * Re-use this packet instance as if it were newly constructed.
+     *
+     * @param flowId            Flow identifier
+     * @param payloadSizeBit    Payload of the IP packet in bits
+     * @param sourceId          Source node identifier
+     * @param destinationId     Destination node identifier
+     * @param TTL               Initial time-to-live (maximum number of hops)
+     */
+    protected void reinitialize(long flowId, long payloadSizeBit, int sourceId, int destinationId, int TTL) {
+        super.reinitialize(flowId, IP_HEADER_SIZE_BIT + payloadSizeBit);
+        this.sourceId = sourceId;
+        this.destinationId = destinationId;
+        this.ECN = false;
+        this.TTL = TTL;
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeInt(sourceId);
+        out.writeInt(destinationId);
+        out.writeBoolean(ECN);
+        out.writeInt(TTL);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        sourceId = in.readInt();
+        destinationId = in.readInt();
+        ECN = in.readBoolean();
+        TTL = in.readInt();
+    }
+
 	/**
      * Get packet source node identifier.
      *
@@ -1,28 +1,32 @@
 package ch.ethz.systems.netbench.ext.basic;
 
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.megaswitch.Encapsulatable;
 
+import java.io.IOException;
+
 public abstract class TcpPacket extends IpPacket implements TcpHeader, Encapsulatable {
 
     // TCP header is [20, 60] bytes, assume maximum: 60 * 8
     private static final long TCP_HEADER_SIZE_BIT = 480L;
 
     // Actual fields
-    private final int sourcePort;
-    private final int destinationPort;
-    private final long sequenceNumber;
-    private final long acknowledgementNumber;
-    private final boolean NS;
-    private final boolean CWR;
-    private final boolean ECE;
-    private final boolean URG;
-    private final boolean ACK;
-    private final boolean PSH;
-    private final boolean RST;
-    private final boolean SYN;
-    private final boolean FIN;
-    private final double windowSize;
-    private final long dataSizeByte;
+    private int sourcePort;
+    private int destinationPort;
+    private long sequenceNumber;
+    private long acknowledgementNumber;
+    private boolean NS;
+    private boolean CWR;
+    private boolean ECE;
+    private boolean URG;
+    private boolean ACK;
+    private boolean PSH;
+    private boolean RST;
+    private boolean SYN;
+    private boolean FIN;
+    private double windowSize;
+    private long dataSizeByte;
     public boolean resent = false;
     protected int mColor = -1;
     // Mechanisms fields
@@ -84,6 +88,86 @@ public abstract class TcpPacket extends IpPacket implements TcpHeader, Encapsula
         this.mJumboFlowId = tcpPacket.mJumboFlowId;
     }
 
+    /**
+     * Re-use this packet instance as if it were newly constructed,
+     * which also resets all mechanism fields.
+     */
+    protected void reinitialize(
+            long flowId, long dataSizeByte,
+            int sourceId, int destinationId, int TTL, // IP header fields
+            int sourcePort, int destinationPort, long sequenceNumber, long acknowledgementNumber,
+            boolean NS, boolean CWR, boolean ECE, boolean URG, boolean ACK, boolean PSH,
+            boolean RST, boolean SYN, boolean FIN, double windowSize
+    ) {
+        super.reinitialize(flowId, TCP_HEADER_SIZE_BIT + dataSizeByte * 8L, sourceId, destinationId, TTL);
+        this.sourcePort = sourcePort;
+        this.destinationPort = destinationPort;
+        this.sequenceNumber = sequenceNumber;
+        this.acknowledgementNumber = acknowledgementNumber;
+        this.NS = NS;
+        this.CWR = CWR;
+        this.ECE = ECE;
+        this.URG = URG;
+        this.ACK = ACK;
+        this.PSH = PSH;
+        this.RST = RST;
+        this.SYN = SYN;
+        this.FIN = FIN;
+        this.windowSize = windowSize;
+        this.dataSizeByte = dataSizeByte;
+        this.resent = false;
+        this.mColor = -1;
+        this.nonSequentialHash = -1;
+        this.mPrevHop = -1;
+        this.mOnCircuit = false;
+        this.mJumboFlowId = -1;
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeInt(sourcePort);
+        out.writeInt(destinationPort);
+        out.writeLong(sequenceNumber);
+        out.writeLong(acknowledgementNumber);
+        out.writeShort((NS ? 1 : 0) | (CWR ? 1 << 1 : 0) | (ECE ? 1 << 2 : 0) | (URG ? 1 << 3 : 0) | (ACK ? 1 << 4 : 0)
+                | (PSH ? 1 << 5 : 0) | (RST ? 1 << 6 : 0) | (SYN ? 1 << 7 : 0) | (FIN ? 1 << 8 : 0)
+                | (resent ? 1 << 9 : 0) | (mOnCircuit ? 1 << 10 : 0));
+        out.writeDouble(windowSize);
+        out.writeLong(dataSizeByte);
+        out.writeInt(mColor);
+        out.writeInt(nonSequentialHash);
+        out.writeInt(mPrevHop);
+        out.writeLong(mJumboFlowId);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        sourcePort = in.readInt();
+        destinationPort = in.readInt();
+        sequenceNumber = in.readLong();
+        acknowledgementNumber = in.readLong();
+        int flags = in.readShort();
+        NS = (flags & 1) != 0;
+        CWR = (flags & 1 << 1) != 0;
+        ECE = (flags & 1 << 2) != 0;
+        URG = (flags & 1 << 3) != 0;
+        ACK = (flags & 1 << 4) != 0;
+        PSH = (flags & 1 << 5) != 0;
+        RST = (flags & 1 << 6) != 0;
+        SYN = (flags & 1 << 7) != 0;
+        FIN = (flags & 1 << 8) != 0;
+        resent = (flags & 1 << 9) != 0;
+        mOnCircuit = (flags & 1 << 10) != 0;
+        windowSize = in.readDouble();
+        dataSizeByte = in.readLong();
+        mColor = in.readInt();
+        nonSequentialHash = in.readInt();
+        mPrevHop = in.readInt();
+        mJumboFlowId = in.readLong();
+    }
+
     @Override
     public long getDataSizeByte() {
         return dataSizeByte;
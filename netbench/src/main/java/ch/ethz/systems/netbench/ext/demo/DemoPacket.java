@@ -1,11 +1,15 @@
 package ch.ethz.systems.netbench.ext.demo;
 
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.ext.basic.IpPacket;
 
+import java.io.IOException;
+
 public class DemoPacket extends IpPacket implements DemoPacketHeader {
 
-    private final long dataSizeByte;
-    private final long ackSizeByte;
+    private long dataSizeByte;
+    private long ackSizeByte;
 
     protected DemoPacket(long flowId, long dataSizeByte, int sourceId, int destinationId, int TTL, long ackSizeByte) {
         super(flowId, dataSizeByte * 8, sourceId, destinationId, TTL);
@@ -13,6 +17,33 @@ public class DemoPacket extends IpPacket implements DemoPacketHeader {
         this.ackSizeByte = ackSizeByte;
     }
 
+    /**
+     * Read a packet written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Packet instance
+     */
+    public static DemoPacket fromCheckpoint(CheckpointInput in) throws IOException {
+        DemoPacket packet = new DemoPacket(0, 0, 0, 0, 0, 0);
+        packet.readCheckpoint(in);
+        return packet;
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(dataSizeByte);
+        out.writeLong(ackSizeByte);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        dataSizeByte = in.readLong();
+        ackSizeByte = in.readLong();
+    }
+
     @Override
     public long getDataSizeByte() {
         return dataSizeByte;
@@ -3,6 +3,10 @@ package ch.ethz.systems.netbench.ext.demo;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
 
 /**
  * Basic socket, whose behavior is as follows. (a) The sender sends
@@ -69,4 +73,14 @@ public class DemoSocket extends Socket {
         return Math.min(MAX_PACKET_PAYLOAD_BYTE, getRemainderToConfirmFlowSizeByte());
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        writeSocketCheckpoint(out);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        readSocketCheckpoint(in);
+    }
+
 }
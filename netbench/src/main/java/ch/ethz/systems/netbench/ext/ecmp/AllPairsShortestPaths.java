@@ -0,0 +1,165 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import ch.ethz.systems.netbench.core.RunContext;
+import edu.asu.emit.algorithm.graph.Graph;
+import edu.asu.emit.algorithm.graph.Vertex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs shortest path lengths (in hops) of an unweighted directed graph.
+ * <p>
+ * The default engine runs a breadth-first search from every source, which takes
+ * O(n * (n + m)) instead of the O(n^3) of Floyd-Warshall. The sources are divided
+ * over the fork-join pool of the run. Distances are stored as shorts (half the memory
+ * of the int matrix), with {@link #UNREACHABLE} for pairs without a path.
+ * <p>
+ * Selected using following property:
+ * routing_apsp_algorithm=bfs (default) | floyd_warshall
+ */
+public final class AllPairsShortestPaths {
+
+    public static final short UNREACHABLE = Short.MAX_VALUE;
+
+    // Number of sources below which a task is no longer split
+    private static final int SOURCES_PER_TASK = 16;
+
+    private AllPairsShortestPaths() {
+        // Cannot be instantiated
+    }
+
+    /**
+     * Convert the adjacency of a graph into primitive arrays.
+     *
+     * @param graph     Graph
+     *
+     * @return Outgoing neighbor identifiers of every node (in the order of the graph)
+     */
+    public static int[][] adjacencyOf(Graph graph) {
+        int numNodes = graph.getVertexList().size();
+        int[][] adjacency = new int[numNodes][];
+        for (int i = 0; i < numNodes; i++) {
+            List<Vertex> adjacent = graph.getAdjacentVertices(graph.getVertex(i));
+            adjacency[i] = new int[adjacent.size()];
+            for (int k = 0; k < adjacency[i].length; k++) {
+                adjacency[i][k] = adjacent.get(k).getId();
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * Calculate the shortest path lengths using a breadth-first search from every source,
+     * in parallel.
+     *
+     * @param adjacency     Outgoing neighbor identifiers of every node
+     *
+     * @return Shortest path length from every node (row) to every node (column)
+     */
+    public static short[][] breadthFirst(int[][] adjacency) {
+        short[][] shortestPathLen = new short[adjacency.length][];
+        RunContext.current().getForkJoinPool().invoke(new BreadthFirstTask(adjacency, shortestPathLen, 0, adjacency.length));
+        return shortestPathLen;
+    }
+
+    /**
+     * Calculate the shortest path lengths using the Floyd-Warshall algorithm.
+     *
+     * @param adjacency     Outgoing neighbor identifiers of every node
+     *
+     * @return Shortest path length from every node (row) to every node (column)
+     */
+    public static short[][] floydWarshall(int[][] adjacency) {
+        int numNodes = adjacency.length;
+        short[][] shortestPathLen = new short[numNodes][numNodes];
+
+        // Initial scan to find easy shortest paths
+        for (int i = 0; i < numNodes; i++) {
+            Arrays.fill(shortestPathLen[i], UNREACHABLE);
+            for (int j : adjacency[i]) {
+                shortestPathLen[i][j] = 1;
+            }
+            shortestPathLen[i][i] = 0;
+        }
+
+        // Floyd-Warshall algorithm
+        for (int k = 0; k < numNodes; k++) {
+            short[] rowK = shortestPathLen[k];
+            for (int i = 0; i < numNodes; i++) {
+                short[] rowI = shortestPathLen[i];
+                int viaK = rowI[k];
+                if (viaK == UNREACHABLE) {
+                    continue;
+                }
+                for (int j = 0; j < numNodes; j++) {
+                    if (rowK[j] != UNREACHABLE && rowI[j] > viaK + rowK[j]) {
+                        rowI[j] = (short) (viaK + rowK[j]);
+                    }
+                }
+            }
+        }
+
+        return shortestPathLen;
+    }
+
+    /**
+     * Breadth-first search of a range of sources.
+     */
+    private static class BreadthFirstTask extends RecursiveAction {
+
+        private final int[][] adjacency;
+        private final short[][] shortestPathLen;
+        private final int from;
+        private final int to;
+
+        BreadthFirstTask(int[][] adjacency, short[][] shortestPathLen, int from, int to) {
+            this.adjacency = adjacency;
+            this.shortestPathLen = shortestPathLen;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new BreadthFirstTask(adjacency, shortestPathLen, from, middle),
+                        new BreadthFirstTask(adjacency, shortestPathLen, middle, to)
+                );
+                return;
+            }
+            int[] queue = new int[adjacency.length];
+            for (int source = from; source < to; source++) {
+                shortestPathLen[source] = search(source, queue);
+            }
+        }
+
+        private short[] search(int source, int[] queue) {
+            short[] distance = new short[adjacency.length];
+            Arrays.fill(distance, UNREACHABLE);
+            distance[source] = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int node = queue[head++];
+                int next = distance[node] + 1;
+                if (next >= UNREACHABLE) {
+                    throw new IllegalStateException("Shortest path length from " + source + " exceeds " + (UNREACHABLE - 1) + " hops.");
+                }
+                for (int neighbor : adjacency[node]) {
+                    if (distance[neighbor] == UNREACHABLE) {
+                        distance[neighbor] = (short) next;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            return distance;
+        }
+
+    }
+
+}
@@ -1,59 +1,38 @@
 package ch.ethz.systems.netbench.ext.ecmp;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.utility.Constants;
 import edu.asu.emit.algorithm.graph.Graph;
-import edu.asu.emit.algorithm.graph.Vertex;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 
 public class EcmpRoutingUtility {
 
-    private static final int INFINITY = 999999999;
-
     private EcmpRoutingUtility() {
         // Cannot be instantiated
     }
 
     /**
-     * Calculate all the shortest paths and store them internally.
-     * Uses the modified Floyd-Warshall algorithm.
+     * Calculate all the shortest path lengths.
+     *
+     * @param adjacency         Outgoing neighbor identifiers of every node
+     * @param floydWarshall     True iff the Floyd-Warshall algorithm should be used instead
+     *                          of a breadth-first search from every node
+     *
+     * @return Shortest path length between every pair of nodes
      */
-    private static int[][] calculateShortestPaths(Graph graph) {
-
-        System.out.print("Calculating shortest path lengths...");
-
-        int numNodes = graph.getVertexList().size();
-        int[][] shortestPathLen = new int[numNodes][numNodes];
-
-        // Initial scan to find easy shortest paths
-        for (int i = 0; i < numNodes; i++) {
-            for (int j = 0; j < numNodes; j++) {
-                if (i == j) {
-                    shortestPathLen[i][j] = 0;              // To itself
-                } else if (graph.getAdjacentVertices(graph.getVertex(i)).contains(graph.getVertex(j))) {
-                    shortestPathLen[i][j] = 1;              // To direct neighbor
-                } else {
-                    shortestPathLen[i][j] = INFINITY;       // To someone not directly connected
-                }
-            }
-        }
-
-        // Floyd-Warshall algorithm
-        for (int k = 0; k < numNodes; k++) {
-            for (int i = 0; i < numNodes; i++) {
-                for (int j = 0; j < numNodes; j++) {
-                    if (shortestPathLen[i][j] > shortestPathLen[i][k] + shortestPathLen[k][j]) {
-                        shortestPathLen[i][j] = shortestPathLen[i][k] + shortestPathLen[k][j];
-                    }
-                }
-            }
-        }
+    private static short[][] calculateShortestPaths(int[][] adjacency, boolean floydWarshall) {
 
+        System.out.print("Calculating shortest path lengths" + (floydWarshall ? " (Floyd-Warshall)" : "") + "...");
+        short[][] shortestPathLen = floydWarshall
+                ? AllPairsShortestPaths.floydWarshall(adjacency)
+                : AllPairsShortestPaths.breadthFirst(adjacency);
         System.out.println(" done.");
-
         return shortestPathLen;
 
     }
@@ -71,8 +50,30 @@ public class EcmpRoutingUtility {
         Graph graph = configuartion.getGraph();
         int numNodes = configuartion.getGraphDetails().getNumNodes();
 
-        // Calculate shortest path length
-        int[][] shortestPathLen = EcmpRoutingUtility.calculateShortestPaths(graph);
+        // Calculate shortest path length (or retrieve it from the routing cache),
+        // shared by all runs on the same (shared) graph
+        String algorithm = configuartion.getPropertyWithDefault(
+                Constants.NetworkDeviceRouting.ROUTING_APSP_ALGORITHM, Constants.NetworkDeviceRouting.APSP_BFS);
+        boolean floydWarshall;
+        if (Constants.NetworkDeviceRouting.APSP_BFS.equals(algorithm)) {
+            floydWarshall = false;
+        } else if (Constants.NetworkDeviceRouting.APSP_FLOYD_WARSHALL.equals(algorithm)) {
+            floydWarshall = true;
+        } else {
+            throw new PropertyValueInvalidException(configuartion, Constants.NetworkDeviceRouting.ROUTING_APSP_ALGORITHM);
+        }
+        int[][] adjacency = AllPairsShortestPaths.adjacencyOf(graph);
+        String cacheDirectory = configuartion.getPropertyWithDefault(Constants.NetworkDeviceRouting.ROUTING_CACHE_DIR, null);
+        ShortestPathLengths shortestPathLen = RunContext.current().share(
+                Arrays.asList(ShortestPathLengths.class, graph, floydWarshall),
+                () -> {
+                    if (cacheDirectory == null) {
+                        return ShortestPathLengths.of(EcmpRoutingUtility.calculateShortestPaths(adjacency, floydWarshall));
+                    } else {
+                        return new ShortestPathCache(cacheDirectory).getOrCalculate(graph, g -> calculateShortestPaths(adjacency, floydWarshall));
+                    }
+                }
+        );
 
         System.out.print("Populating ECMP forward routing tables...");
         double numShortestPathsAvgs = 0;
@@ -83,21 +84,20 @@ public class EcmpRoutingUtility {
                 if (i != j) {
 
                     // For every outgoing edge (i, j) check if it is on a shortest path to j
-                    List<Vertex> adjacent = graph.getAdjacentVertices(graph.getVertex(i));
-                    for (Vertex v : adjacent) {
+                    for (int v : adjacency[i]) {
 
                         // ECMP stores all the possible hops
                         if (isEcmp) {
 
-                            if (shortestPathLen[i][j] == shortestPathLen[v.getId()][j] + 1) {
+                            if (shortestPathLen.get(i, j) == shortestPathLen.get(v, j) + 1) {
                                 numShortestPathsAvg++;
-                                ((EcmpSwitchRoutingInterface) idToNetworkDevice.get(i)).addDestinationToNextSwitch(j, v.getId());
+                                ((EcmpSwitchRoutingInterface) idToNetworkDevice.get(i)).addDestinationToNextSwitch(j, v);
                             }
 
                         // ... whereas single-forward routing only stores a single hop entry
                         } else {
-                            if (shortestPathLen[i][j] == shortestPathLen[v.getId()][j] + 1) {
-                                ((ForwarderSwitch) idToNetworkDevice.get(i)).setDestinationToNextSwitch(j, v.getId());
+                            if (shortestPathLen.get(i, j) == shortestPathLen.get(v, j) + 1) {
+                                ((ForwarderSwitch) idToNetworkDevice.get(i)).setDestinationToNextSwitch(j, v);
                                 break; // We only need a single possibility
                             }
                         }
@@ -4,13 +4,13 @@ import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.*;
 import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.deeplearningtraining.state.CompiledPath;
 import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
 import ch.ethz.systems.netbench.ext.basic.IpPacket;
 import ch.ethz.systems.netbench.ext.basic.TcpHeader;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -62,18 +62,18 @@ public class EcmpSwitch extends NetworkDevice implements EcmpSwitchRoutingInterf
         // Convert to TCP packet
         TcpHeader tcpHeader = (TcpHeader) genericPacket;
         Flow flow = Simulator.getFlowIdToFlow().get(tcpHeader.getFlowId());
-        Job job = Simulator.getJob(flow.getJobId());
-        List<Integer> path = job.getCommoditiesPaths().get(ImmutablePair.of(flow.getSrcId(), flow.getDstId()));
-        if (flow.getDstId() == this.identifier && !flow.isReversePath()) {
-            Collections.reverse(path);
-            flow.setReversePath(true);
-        } else if (flow.getSrcId() == this.identifier && flow.isReversePath()) {
-            Collections.reverse(path);
-            flow.setReversePath(false);
+
+        // Compiled path of the flow's commodity, (re-)fetched if it was reassigned
+        CompiledPath path = flow.getCompiledPath();
+        if (path == null || !path.isValid()) {
+            Job job = Simulator.getJob(flow.getJobId());
+            path = job.getCompiledPath(ImmutablePair.of(flow.getSrcId(), flow.getDstId()));
+            flow.setCompiledPath(path);
         }
-        int current = path.indexOf(this.identifier);
-        int nextHop = path.get(current + 1);
-        this.getTargetOuputPort(nextHop).enqueue(genericPacket);
+
+        // Data goes along the path, acknowledgments go back
+        boolean toDestination = tcpHeader.getDestinationId() == flow.getDstId();
+        path.getNextPort(this, toDestination).enqueue(genericPacket);
     }
 
     @Override
@@ -0,0 +1,98 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Read-only all-pairs shortest path lengths (in hops), either held in a heap array
+ * (as calculated) or served directly from a memory-mapped {@link ShortestPathCache}
+ * entry, such that loading an entry does not copy it onto the heap and concurrent
+ * runs on the same topology share its pages. Unreachable pairs have length
+ * {@link AllPairsShortestPaths#UNREACHABLE}.
+ */
+public final class ShortestPathLengths {
+
+    private final int numNodes;
+    private final short[][] rows;
+    private final ShortBuffer mapped;
+
+    private ShortestPathLengths(int numNodes, short[][] rows, ShortBuffer mapped) {
+        this.numNodes = numNodes;
+        this.rows = rows;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Wrap calculated shortest path lengths.
+     *
+     * @param shortestPathLen   2-d array with the shortest path distances
+     *
+     * @return Shortest path lengths backed by the array
+     */
+    public static ShortestPathLengths of(short[][] shortestPathLen) {
+        return new ShortestPathLengths(shortestPathLen.length, shortestPathLen, null);
+    }
+
+    /**
+     * Wrap the row-major distances of a memory-mapped cache entry.
+     *
+     * @param distances     Buffer of n * n distances (absolute reads only)
+     * @param numNodes      Number of nodes n
+     *
+     * @return Shortest path lengths backed by the buffer
+     */
+    static ShortestPathLengths mapped(ShortBuffer distances, int numNodes) {
+        if (distances.remaining() != numNodes * numNodes) {
+            throw new IllegalArgumentException("Expected " + numNodes * numNodes + " distances, but got " + distances.remaining());
+        }
+        return new ShortestPathLengths(numNodes, null, distances.slice());
+    }
+
+    /**
+     * Retrieve the shortest path length from one node to another.
+     *
+     * @param from  Source node identifier
+     * @param to    Destination node identifier
+     *
+     * @return Shortest path length (in hops)
+     */
+    public short get(int from, int to) {
+        if (rows != null) {
+            return rows[from][to];
+        }
+        return mapped.get(from * numNodes + to);
+    }
+
+    /**
+     * Retrieve the number of nodes.
+     *
+     * @return Number of nodes
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Check whether the lengths are served from a memory-mapped cache entry.
+     *
+     * @return True iff memory-mapped
+     */
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    /**
+     * Copy the lengths into a heap array.
+     *
+     * @return 2-d array with the shortest path distances
+     */
+    public short[][] toArray() {
+        short[][] result = new short[numNodes][numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            for (int j = 0; j < numNodes; j++) {
+                result[i][j] = get(i, j);
+            }
+        }
+        return result;
+    }
+
+}
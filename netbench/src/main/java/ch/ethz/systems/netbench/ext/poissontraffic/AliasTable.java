@@ -0,0 +1,169 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
+import ch.ethz.systems.netbench.core.utility.Constants;
+
+import java.util.Random;
+
+/**
+ * Alias method (Walker, with the construction of Vose) to draw an index
+ * out of a discrete distribution in constant time.
+ * <p>
+ * The table consists of two primitive arrays (12 bytes per outcome), and every
+ * draw consumes exactly one double of the random number generator: it selects
+ * a column uniformly and, using the remaining fraction, either the column
+ * itself or its alias.
+ * <p>
+ * Selected for the traffic planners using following property:
+ * traffic_sampler=cdf (default) | alias
+ */
+public final class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Build the alias table of the given weights.
+     *
+     * @param weights   Non-negative weights (need not sum up to one)
+     * @param n         Number of weights (the first n entries of the array are used)
+     */
+    public AliasTable(double[] weights, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Alias table requires at least one outcome.");
+        }
+
+        // Total weight
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            if (!(weights[i] >= 0) || Double.isInfinite(weights[i])) {
+                throw new IllegalArgumentException("Invalid weight (" + weights[i] + ") at index " + i + ".");
+            }
+            total += weights[i];
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Total weight of the alias table must be positive.");
+        }
+
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        // Scale such that the average column is exactly 1, and split into small and large columns
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; i++) {
+            probability[i] = weights[i] * n / total;
+            if (probability[i] < 1.0) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+
+        // Fill up every small column with (part of) a large column
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            alias[s] = l;
+            probability[l] = (probability[l] + probability[s]) - 1.0;
+            if (probability[l] < 1.0) {
+                small[numSmall++] = l;
+            } else {
+                large[numLarge++] = l;
+            }
+        }
+
+        // What remains is (up to rounding errors) exactly full
+        while (numLarge > 0) {
+            int l = large[--numLarge];
+            probability[l] = 1.0;
+            alias[l] = l;
+        }
+        while (numSmall > 0) {
+            int s = small[--numSmall];
+            probability[s] = 1.0;
+            alias[s] = s;
+        }
+
+    }
+
+    /**
+     * Independently draw an index, respecting the weights.
+     *
+     * @param random    Random number generator
+     *
+     * @return Index in [0, n)
+     */
+    public int sample(Random random) {
+        return sample(random.nextDouble());
+    }
+
+    /**
+     * Draw the index belonging to the given uniform value.
+     *
+     * @param uniform   Uniform value in [0, 1)
+     *
+     * @return Index in [0, n)
+     */
+    public int sample(double uniform) {
+        double column = uniform * probability.length;
+        int i = (int) column;
+        if (i >= probability.length) { // Only through rounding
+            i = probability.length - 1;
+        }
+        return (column - i) < probability[i] ? i : alias[i];
+    }
+
+    /**
+     * Retrieve the number of outcomes.
+     *
+     * @return Number of outcomes
+     */
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * Calculate the probability with which the given index is drawn.
+     * This is linear in the size of the table and only meant for verification.
+     *
+     * @param index     Index
+     *
+     * @return Probability of drawing the index
+     */
+    public double probabilityOf(int index) {
+        double sum = probability[index];
+        for (int i = 0; i < alias.length; i++) {
+            if (alias[i] == index && i != index) {
+                sum += 1.0 - probability[i];
+            }
+        }
+        return sum / probability.length;
+    }
+
+    /**
+     * Check whether the alias method is selected as sampler of the traffic planners.
+     *
+     * @param configuration     Configuration (null for the default)
+     *
+     * @return True iff traffic_sampler=alias
+     */
+    public static boolean isSelected(NBProperties configuration) {
+        if (configuration == null) {
+            return false;
+        }
+        String sampler = configuration.getPropertyWithDefault(
+                Constants.PoissonArrival.TRAFFIC_SAMPLER, Constants.PoissonArrival.SAMPLER_CDF);
+        if (sampler == null || sampler.equals(Constants.PoissonArrival.SAMPLER_CDF)) {
+            return false;
+        } else if (sampler.equals(Constants.PoissonArrival.SAMPLER_ALIAS)) {
+            return true;
+        } else {
+            throw new PropertyValueInvalidException(configuration, Constants.PoissonArrival.TRAFFIC_SAMPLER);
+        }
+    }
+
+}
@@ -25,13 +25,16 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
     private final double lambdaFlowStartsPerSecond;
     private final Random ownIndependentRng;
     protected NBProperties configuration;
+    private long streamingEndTimeNs;
+    private long numStreamingFlowsDrawn;
 
     protected PoissonArrivalPlanner(Map<Integer, TransportLayer> idToTransportLayerMap, double lambdaFlowStartsPerSecond, FlowSizeDistribution flowSizeDistribution, NBProperties configuration) {
         super(idToTransportLayerMap, configuration);
+        this.configuration = configuration;
         this.lambdaFlowStartsPerSecond = lambdaFlowStartsPerSecond;
         this.flowSizeDistribution = flowSizeDistribution;
         this.ownIndependentRng = Simulator.selectIndependentRandom("poisson_inter_arrival");
-        this.randomPairGenerator = new RandomCollection<>(Simulator.selectIndependentRandom("pair_probabilities_draw"));
+        this.randomPairGenerator = new RandomCollection<>(Simulator.selectIndependentRandom("pair_probabilities_draw"), AliasTable.isSelected(configuration));
     }
 
     /**
@@ -724,6 +727,12 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
     @Override
     public void createPlan(long durationNs) {
 
+        // Streaming: flows are drawn one at a time during the run
+        if (configuration.getBooleanPropertyWithDefault(Constants.PoissonArrival.TRAFFIC_PLAN_STREAMING, false)) {
+            createStreamingPlan(durationNs);
+            return;
+        }
+
         System.out.print("Creating arrival plan...");
 
         // Statistics tracking
@@ -736,38 +745,15 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         long nextProgressLog = durationNs / 10;
         while (time <= durationNs) {
 
-            // Poisson arrival
-            //
-            // F(x) = 1 - e^(-lambda * x)
-            // <=>
-            // ln( 1 - F(x) ) = -lambda * x
-            // <=>
-            // x = -ln( 1 - F(x) ) / lambda
-            // <=>
-            // x = -ln( Uniform(x) ) / lambda
-            //
-            long interArrivalTime = (long) (-Math.log(ownIndependentRng.nextDouble()) / (lambdaFlowStartsPerSecond / 1e9));
-
-            // Uniform arrival
-            //
-            // long interArrivalTime = (long) (1 / (lambdaFlowStartsPerSecond / 1e9));
+            // Draw inter-arrival time to the next flow
+            long interArrivalTime = drawInterArrivalTime();
 
             // Add to sum for later statistics
             sum += interArrivalTime;
 
             // Register flow
             Pair<Integer, Integer> pair = choosePair();
-            long flowSize;
-            if (StringUtils.equalsAny(
-                    configuration.getPropertyOrFail(Constants.PoissonArrival.TRAFFIC_FLOW_SIZE_DIST),
-                    Constants.PoissonArrival.DistributionName.FB_FRONTEND_INTRA_DC_CACHE,
-                    Constants.PoissonArrival.DistributionName.FB_FRONTEND_INTRA_DC_WEB)
-            ) {
-                String flowSizeDist = configuration.getPropertyOrFail(Constants.PoissonArrival.TRAFFIC_FLOW_SIZE_DIST);
-                flowSize = getFlowSizeForFacebookFrontend(pair, flowSizeDist);
-            } else {
-                flowSize = flowSizeDistribution.generateFlowSizeByte();
-            }
+            long flowSize = drawFlowSize(pair);
             registerFlow(time, pair.getLeft(), pair.getRight(), flowSize, -1);
 
             // Advance time to next arrival
@@ -792,7 +778,131 @@ public class PoissonArrivalPlanner extends TrafficPlanner {
         SimulationLogger.logInfo("Flow planner mean inter-arrival time", String.valueOf((sum / x)));
         SimulationLogger.logInfo("Flow planner expected inter-arrival time", String.valueOf((1 / (lambdaFlowStartsPerSecond / 1e9))));
         SimulationLogger.logInfo("Flow planner poisson rate lambda (flow starts/s)", String.valueOf(lambdaFlowStartsPerSecond));
-        SimulationLogger.numberOfFlows = x;
+        SimulationLogger.setNumberOfFlows(x);
+    }
+
+    /**
+     * Create the arrival plan lazily: only the first flow start is registered now,
+     * and every flow start registers the next one when it is triggered. The event
+     * queue thus only holds a single pending arrival, instead of all of them.
+     * <p>
+     * The flows (start time, pair and size) are identical to those of the eager plan,
+     * as inter-arrival times, pairs and flow sizes are each drawn from their own
+     * random number generator, in the same order.
+     *
+     * @param durationNs    Duration of the plan in nanoseconds
+     */
+    private void createStreamingPlan(long durationNs) {
+        this.streamingEndTimeNs = durationNs;
+        registerStreamingFlow(0);
+        System.out.println("Poisson Arrival plan will be created during the run (streaming).");
+        SimulationLogger.logInfo("Flow planner expected inter-arrival time", String.valueOf((1 / (lambdaFlowStartsPerSecond / 1e9))));
+        SimulationLogger.logInfo("Flow planner poisson rate lambda (flow starts/s)", String.valueOf(lambdaFlowStartsPerSecond));
+    }
+
+    /**
+     * Draw and register the next flow of the streaming plan.
+     *
+     * @param timeFromNowNs Time until the flow starts in nanoseconds
+     */
+    void registerStreamingFlow(long timeFromNowNs) {
+        long interArrivalTime = drawInterArrivalTime();
+        Pair<Integer, Integer> pair = choosePair();
+        long flowSize = drawFlowSize(pair);
+        numStreamingFlowsDrawn++;
+        checkFlow(timeFromNowNs, pair.getLeft(), pair.getRight(), flowSize);
+        registerFlowStart(
+                new StreamingFlowStartEvent(
+                        timeFromNowNs, idToTransportLayerMap.get(pair.getLeft()), pair.getRight(), flowSize, this, interArrivalTime
+                ),
+                pair.getRight(),
+                flowSize
+        );
+    }
+
+    /**
+     * Number of flows of the streaming plan drawn so far (including the pending one).
+     *
+     * @return Number of flows drawn
+     */
+    long getNumStreamingFlowsDrawn() {
+        return numStreamingFlowsDrawn;
+    }
+
+    /**
+     * Advance the random number generators of the streaming plan to after the given
+     * number of flows, by drawing (and discarding) the flows in between. This restores
+     * the state of the plan of the run which wrote a checkpoint, as every draw only
+     * depends on the preceding draws of the same generator.
+     *
+     * @param numFlowsDrawn Number of flows drawn by the run which wrote the checkpoint
+     */
+    void skipStreamingFlowsTo(long numFlowsDrawn) {
+        if (numFlowsDrawn < numStreamingFlowsDrawn) {
+            throw new IllegalStateException("Streaming plan has already drawn " + numStreamingFlowsDrawn
+                    + " flows, it cannot be restored to " + numFlowsDrawn + " flows.");
+        }
+        while (numStreamingFlowsDrawn < numFlowsDrawn) {
+            drawInterArrivalTime();
+            totalBytesInPlan += drawFlowSize(choosePair());
+            numStreamingFlowsDrawn++;
+        }
+    }
+
+    /**
+     * Called when a flow of the streaming plan starts, to register the flow after it.
+     *
+     * @param interArrivalTime  Time between the start of the flow and the next one
+     */
+    void onStreamingFlowStart(long interArrivalTime) {
+        if (Simulator.getCurrentTime() + interArrivalTime <= streamingEndTimeNs) {
+            registerStreamingFlow(interArrivalTime);
+        }
+    }
+
+    /**
+     * Draw a Poisson inter-arrival time.
+     *
+     * @return Inter-arrival time in nanoseconds
+     */
+    private long drawInterArrivalTime() {
+
+        // Poisson arrival
+        //
+        // F(x) = 1 - e^(-lambda * x)
+        // <=>
+        // ln( 1 - F(x) ) = -lambda * x
+        // <=>
+        // x = -ln( 1 - F(x) ) / lambda
+        // <=>
+        // x = -ln( Uniform(x) ) / lambda
+        //
+        return (long) (-Math.log(ownIndependentRng.nextDouble()) / (lambdaFlowStartsPerSecond / 1e9));
+
+        // Uniform arrival
+        //
+        // return (long) (1 / (lambdaFlowStartsPerSecond / 1e9));
+
+    }
+
+    /**
+     * Draw the size of a flow.
+     *
+     * @param pair  (src, dst) pair of the flow
+     *
+     * @return Flow size in bytes
+     */
+    private long drawFlowSize(Pair<Integer, Integer> pair) {
+        if (StringUtils.equalsAny(
+                configuration.getPropertyOrFail(Constants.PoissonArrival.TRAFFIC_FLOW_SIZE_DIST),
+                Constants.PoissonArrival.DistributionName.FB_FRONTEND_INTRA_DC_CACHE,
+                Constants.PoissonArrival.DistributionName.FB_FRONTEND_INTRA_DC_WEB)
+        ) {
+            String flowSizeDist = configuration.getPropertyOrFail(Constants.PoissonArrival.TRAFFIC_FLOW_SIZE_DIST);
+            return getFlowSizeForFacebookFrontend(pair, flowSizeDist);
+        } else {
+            return flowSizeDistribution.generateFlowSizeByte();
+        }
     }
 
     /**
@@ -1,6 +1,9 @@
 package ch.ethz.systems.netbench.ext.poissontraffic;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NavigableMap;
 import java.util.Random;
 import java.util.TreeMap;
@@ -11,6 +14,11 @@ public class RandomCollection<E> {
     private final Random random;
     private double total;
 
+    // Alias method (only if selected)
+    private final List<E> elements;
+    private double[] weights;
+    private AliasTable aliasTable;
+
     /**
      * Instantiate random collection.
      *
@@ -20,9 +28,26 @@ public class RandomCollection<E> {
      * @param random    Random number generator instance
      */
     public RandomCollection(Random random) {
-        this.map = new TreeMap<>();
+        this(random, false);
+    }
+
+    /**
+     * Instantiate random collection.
+     *
+     * With the alias method, a draw takes constant time instead of a
+     * lookup in a tree of cumulative weights. Both consume a single double
+     * of the random number generator per draw, but map it to a different element.
+     *
+     * @param random        Random number generator instance
+     * @param aliasMethod   True iff the alias method should be used to draw
+     */
+    public RandomCollection(Random random, boolean aliasMethod) {
+        this.map = aliasMethod ? null : new TreeMap<>();
         this.random = random;
         this.total = 0;
+        this.elements = aliasMethod ? new ArrayList<>() : null;
+        this.weights = aliasMethod ? new double[16] : null;
+        this.aliasTable = null;
     }
 
     /**
@@ -36,7 +61,16 @@ public class RandomCollection<E> {
             throw new IllegalArgumentException("Cannot add negative weight (" + weight + ") to random collection.");
         }
         total += weight;
-        map.put(total, result);
+        if (map != null) {
+            map.put(total, result);
+        } else {
+            if (elements.size() == weights.length) {
+                weights = Arrays.copyOf(weights, weights.length * 2);
+            }
+            weights[elements.size()] = weight;
+            elements.add(result);
+            aliasTable = null;
+        }
     }
 
     /**
@@ -49,6 +83,12 @@ public class RandomCollection<E> {
         if (Math.abs(1.0 - total) > 1e-6) {
             throw new IllegalArgumentException("Total weight (" + total + ") in random collection differs too much (> 1e-6) from 1.");
         }
+        if (map == null) {
+            if (aliasTable == null) {
+                aliasTable = new AliasTable(weights, elements.size());
+            }
+            return elements.get(aliasTable.sample(random));
+        }
         double value = random.nextDouble();
         return map.ceilingEntry(value).getValue();
     }
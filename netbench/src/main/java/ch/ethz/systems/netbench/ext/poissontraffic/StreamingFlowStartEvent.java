@@ -0,0 +1,92 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartEvent;
+import ch.ethz.systems.netbench.core.run.traffic.TrafficPlanner;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
+
+/**
+ * Flow start of a streaming Poisson arrival plan, which
+ * registers the next flow start of the plan when triggered.
+ */
+public class StreamingFlowStartEvent extends FlowStartEvent {
+
+    private static final long serialVersionUID = 4830151146520397127L;
+    private final transient PoissonArrivalPlanner planner;
+    private final long interArrivalTime;
+
+    /**
+     * Create event which will happen the given amount of nanoseconds later.
+     *
+     * @param timeFromNowNs     Time it will take before happening from now in nanoseconds
+     * @param transportLayer    Source transport layer that wants to send the flow to the target
+     * @param targetId          Target network device identifier
+     * @param flowSizeByte      Size of the flow to send in bytes
+     * @param planner           Planner which draws the next flow
+     * @param interArrivalTime  Time between this flow start and the next one in nanoseconds
+     */
+    StreamingFlowStartEvent(long timeFromNowNs, TransportLayer transportLayer, int targetId, long flowSizeByte,
+                            PoissonArrivalPlanner planner, long interArrivalTime) {
+        super(timeFromNowNs, transportLayer, targetId, flowSizeByte, -1);
+        this.planner = planner;
+        this.interArrivalTime = interArrivalTime;
+    }
+
+    /**
+     * Write the event to a checkpoint, together with the number of flows
+     * the plan has drawn such that the restored plan continues with the same flows.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(interArrivalTime);
+        out.writeLong(planner.getNumStreamingFlowsDrawn());
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}, binding it
+     * to the (streaming) Poisson arrival plan of the run which restores the checkpoint.
+     *
+     * @param in Checkpoint input
+     * @return Streaming flow start event
+     */
+    public static StreamingFlowStartEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        TrafficPlanner trafficPlanner = Simulator.getTrafficPlanner();
+        if (!(trafficPlanner instanceof PoissonArrivalPlanner)
+                || ((PoissonArrivalPlanner) trafficPlanner).getNumStreamingFlowsDrawn() == 0) {
+            throw new IllegalStateException("Checkpoint contains a flow start of a streaming Poisson arrival plan, "
+                    + "but the traffic of the restoring run is not planned as streaming Poisson arrival.");
+        }
+        PoissonArrivalPlanner planner = (PoissonArrivalPlanner) trafficPlanner;
+        long timeFromNowNs = in.readTimeFromNow();
+        TransportLayer transportLayer = Simulator.getNetworkDevice(in.readInt()).getTransportLayer();
+        int targetId = in.readInt();
+        long flowSizeByte = in.readLong();
+        in.readInt(); // Job identifier, streaming flows do not belong to a job
+        int dstId = in.readInt();
+        long interArrivalTime = in.readLong();
+        planner.skipStreamingFlowsTo(in.readLong());
+        StreamingFlowStartEvent event = new StreamingFlowStartEvent(
+                timeFromNowNs, transportLayer, targetId, flowSizeByte, planner, interArrivalTime
+        );
+        if (dstId != -1) {
+            event.registerDstTransport(Simulator.getNetworkDevice(dstId).getTransportLayer());
+        }
+        return event;
+    }
+
+    @Override
+    public void trigger() {
+        // Draw the next flow before this one starts, such that the next
+        // arrival is registered before any of the packets of this flow
+        planner.onStreamingFlowStart(interArrivalTime);
+        super.trigger();
+    }
+
+}
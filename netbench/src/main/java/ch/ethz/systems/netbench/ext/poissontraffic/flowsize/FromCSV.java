@@ -1,20 +1,36 @@
 package ch.ethz.systems.netbench.ext.poissontraffic.flowsize;
 
+import ch.ethz.systems.netbench.ext.poissontraffic.AliasTable;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.LinkedList;
 
 public class FromCSV extends FlowSizeDistribution {
 
-    LinkedList<Double> mSizeDist;
-    LinkedList<Double> mProbs;
+    double[] mSizeDist;
+    double[] mProbs;
+    private int size;
+    private final AliasTable aliasTable;
 
     public FromCSV(String csvFile) {
-        mSizeDist = new LinkedList<>();
-        mProbs = new LinkedList<>();
+        this(csvFile, false);
+    }
+
+    /**
+     * Flow size distribution read from a CSV file with lines (size in bytes, cumulative probability).
+     *
+     * @param csvFile       CSV file name
+     * @param aliasMethod   True iff flow sizes should be drawn using the alias method,
+     *                      in constant time, instead of by scanning the cumulative probabilities
+     */
+    public FromCSV(String csvFile, boolean aliasMethod) {
+        mSizeDist = new double[16];
+        mProbs = new double[16];
+        size = 0;
         processCSVFile(csvFile);
+        aliasTable = aliasMethod ? createAliasTable() : null;
     }
 
     private void processCSVFile(String csvFile) {
@@ -23,10 +39,14 @@ public class FromCSV extends FlowSizeDistribution {
                 if (line.startsWith("#")) {
                     continue;
                 }
-                Double[] values = Arrays.stream(line.split(",")).map(Double::parseDouble).toArray(Double[]::new);
-                mSizeDist.addLast(values[0]);
-                mProbs.add(values[1]);
-
+                String[] values = line.split(",");
+                if (size == mProbs.length) {
+                    mSizeDist = Arrays.copyOf(mSizeDist, size * 2);
+                    mProbs = Arrays.copyOf(mProbs, size * 2);
+                }
+                mSizeDist[size] = Double.parseDouble(values[0]);
+                mProbs[size] = Double.parseDouble(values[1]);
+                size++;
             }
             // line is not visible here.
         } catch (IOException e) {
@@ -34,28 +54,48 @@ public class FromCSV extends FlowSizeDistribution {
         }
     }
 
+    /**
+     * Create the alias table which draws every size with the probability
+     * it has in {@link #getFlowSize(double)}.
+     *
+     * @return Alias table over the size indices
+     */
+    private AliasTable createAliasTable() {
+        double[] weights = new double[size];
+        double currProb = 0;
+        for (int i = 0; i < size - 1; i++) {
+            weights[i] = Math.max(0, mProbs[i] - currProb);
+            currProb = Math.max(currProb, mProbs[i]);
+        }
+        weights[size - 1] = Math.max(0, 1.0 - currProb);
+        return new AliasTable(weights, size);
+    }
+
     @Override
     public long generateFlowSizeByte() {
         double outcome = independentRng.nextDouble();
+        if (aliasTable != null) {
+            return (long) mSizeDist[aliasTable.sample(outcome)];
+        }
         return getFlowSize(outcome);
     }
 
     protected long getFlowSize(double outcome) {
         double currProb = 0;
-        for (int i = 0; i < mProbs.size() - 1; i++) {
-            if (outcome >= currProb && outcome < mProbs.get(i)) {
-                return mSizeDist.get(i).longValue();
+        for (int i = 0; i < size - 1; i++) {
+            if (outcome >= currProb && outcome < mProbs[i]) {
+                return (long) mSizeDist[i];
             }
-            currProb = mProbs.get(i);
+            currProb = mProbs[i];
         }
-        return mSizeDist.get(mSizeDist.size() - 1).longValue();
+        return (long) mSizeDist[size - 1];
     }
 
     @Override
     public double getMeanFlowSizeByte() {
         double mean = 0;
-        for (int i = 0; i < mSizeDist.size(); i++) {
-            mean += mSizeDist.get(i) * mProbs.get(i);
+        for (int i = 0; i < size; i++) {
+            mean += mSizeDist[i] * mProbs[i];
         }
         return mean;
     }
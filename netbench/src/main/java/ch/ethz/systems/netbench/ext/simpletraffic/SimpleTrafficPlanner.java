@@ -3,6 +3,7 @@ package ch.ethz.systems.netbench.ext.simpletraffic;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.ext.poissontraffic.AliasTable;
 import ch.ethz.systems.netbench.ext.poissontraffic.PoissonArrivalPlanner;
 import ch.ethz.systems.netbench.ext.poissontraffic.RandomCollection;
 import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.FlowSizeDistribution;
@@ -22,7 +23,7 @@ public class SimpleTrafficPlanner extends PoissonArrivalPlanner{
 
     @Override
     protected List<Integer> initRandomServerSet(List<Integer> servers, int numChosenServers){
-        randomServerGenerator = new RandomCollection<Integer>(Simulator.selectIndependentRandom("simple traffic server generator"));
+        randomServerGenerator = new RandomCollection<Integer>(Simulator.selectIndependentRandom("simple traffic server generator"), AliasTable.isSelected(configuration));
         List<Integer> chosen = new ArrayList<>();
         // Probability between each server pair
         double serverPairProb = 1.0 / (numChosenServers );
@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.ext.valiant;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
 import ch.ethz.systems.netbench.core.config.NBProperties;
@@ -15,7 +16,7 @@ import java.util.Set;
 public class RangeValiantSwitch extends ValiantEcmpSwitch {
 
     // Which flows this switch has already seen (for statistical purposes)
-    private static Set<Long> flowSeen = new HashSet<>();
+    private static final RunContext.Slot<Set<Long>> flowSeen = RunContext.slot(HashSet::new);
 
     // Lower bound (inclusive) of valiant range
     protected final int lowBoundValiantRangeIncl;
@@ -85,9 +86,8 @@ public class RangeValiantSwitch extends ValiantEcmpSwitch {
         } while (chosen == sourceToR || chosen == destinationToR);
 
         // Log for statistic of valiant balancing
-        if (!flowSeen.contains(packet.getFlowId())) {
+        if (RunContext.current().get(flowSeen).add(packet.getFlowId())) {
             SimulationLogger.increaseStatisticCounter("VAL_NODE_" + chosen);
-            flowSeen.add(packet.getFlowId());
         }
 
         // Create encapsulation
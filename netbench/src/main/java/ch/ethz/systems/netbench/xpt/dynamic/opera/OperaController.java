@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.dynamic.opera;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.InputPort;
@@ -19,7 +20,7 @@ public class OperaController extends RoutingPopulator {
     protected Map<Integer, NetworkDevice> idToNetworkDevice;
     protected int ToRNum;
     protected int rotorMatchings;
-    protected static OperaController sInstance;
+    private static final RunContext.Slot<OperaController> INSTANCE = RunContext.slot();
     protected ArrayList<OperaRotorSwitch> rotors;
     protected ArrayList<ArrayList<ArrayList<ArrayList<ArrayList<ImmutablePair<Integer, Integer>>>>>> routingTables;
     protected ArrayList<ArrayList<ArrayList<ArrayList<ImmutablePair<Integer, Integer>>>>> currTable;
@@ -65,11 +66,11 @@ public class OperaController extends RoutingPopulator {
     }
 
     public static void init(NBProperties conf, Map<Integer, NetworkDevice> idToNetworkDevice) {
-        sInstance = new OperaController(conf, idToNetworkDevice);
+        RunContext.current().set(INSTANCE, new OperaController(conf, idToNetworkDevice));
     }
 
     public static OperaController getInstance() {
-        return sInstance;
+        return RunContext.current().get(INSTANCE);
     }
 
     public OperaRotorSwitch getRotor(int id) {
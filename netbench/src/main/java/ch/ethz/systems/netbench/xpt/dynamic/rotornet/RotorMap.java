@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.dynamic.rotornet;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.run.infrastructure.LinkGenerator;
 import ch.ethz.systems.netbench.core.run.routing.remote.RemoteRoutingController;
 import ch.ethz.systems.netbench.xpt.sourcerouting.exceptions.NoPathException;
@@ -12,11 +13,11 @@ import java.util.*;
 public class RotorMap extends LinkedList<Integer> {
     LinkGenerator mLinkGeneraor; // generates new links on demand
     RotorSwitch  mCurrentDevice; // the current source device for this map
-    static int sNumOfNodes;
+    private static final RunContext.Slot<Integer> sNumOfNodes = RunContext.slot();
     protected RotorOutputPortGenerator mOutputPortGenerator; // generates output ports on demand
     HashMap<Integer, RotorOutputPort> mOutputPortMap; // a map from ids to target output ports
     RotorSwitch mOriginalDevice; // the orginal device which this map started with
-    static Random mRnd;
+    private static final RunContext.Slot<Random> mRnd = RunContext.slot();
     public RotorMap(RotorOutputPortGenerator rotorOutputPortGenerator, LinkGenerator linkGenerator, RotorSwitch rotorSwitch){
         mOutputPortGenerator = rotorOutputPortGenerator;
         mLinkGeneraor = linkGenerator;
@@ -25,7 +26,15 @@ public class RotorMap extends LinkedList<Integer> {
     }
 
     static void setRandom(Random rnd){
-        mRnd = rnd;
+        RunContext.current().set(mRnd, rnd);
+    }
+
+    static Random getRandom(){
+        return RunContext.current().get(mRnd);
+    }
+
+    static void setNumOfNodes(int numOfNodes){
+        RunContext.current().set(sNumOfNodes, numOfNodes);
     }
 
     public void setCurrentDevice(RotorSwitch rs){
@@ -59,7 +68,7 @@ public class RotorMap extends LinkedList<Integer> {
         if(super.contains(mCurrentDevice.getIdentifier())){
 
             if(dest == ((mCurrentDevice.getIdentifier()))){
-                return (dest + 1) % sNumOfNodes;
+                return (dest + 1) % RunContext.current().get(sNumOfNodes);
             }
         }
         return dest;
@@ -81,7 +90,7 @@ public class RotorMap extends LinkedList<Integer> {
     }
 
     public RotorOutputPort getRandomOutputPort(){
-        return (RotorOutputPort) this.toArray()[mRnd.nextInt(this.size())];
+        return (RotorOutputPort) this.toArray()[getRandom().nextInt(this.size())];
     }
 
 
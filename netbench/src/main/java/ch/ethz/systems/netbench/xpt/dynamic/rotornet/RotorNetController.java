@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.dynamic.rotornet;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
@@ -11,7 +12,7 @@ import java.util.ArrayList;
 import java.util.Map;
 
 public class RotorNetController extends DynamicController {
-    public static long sNextReconfigurationTime = 0; // the time for the next reconfiguration event
+    private static final RunContext.Slot<Long> sNextReconfigurationTime = RunContext.slot(() -> 0L); // the time for the next reconfiguration event
     protected final long mReconfigurationInterval; // how much time between reconfigurations
     protected final long mReconfigurationTime; // the time it takes to do the reconfiguration
     int mNumCycles; // the total num of cycles to go through all permutations
@@ -33,7 +34,7 @@ public class RotorNetController extends DynamicController {
         RotorSwitch.setMaxBufferSizeByte(configuration.getLongPropertyOrFail(Constants.Rotor.MAX_BUFFER_SIZE_BYTE));
         RotorMap.setRandom(Simulator.selectIndependentRandom(Constants.Rotor.RANDOM_PORT));
         mNumCycles = mIdToNetworkDevice.size() / max_degree;
-        RotorMap.sNumOfNodes = idToNetworkDevice.size();
+        RotorMap.setNumOfNodes(idToNetworkDevice.size());
         mRotorMaps = new ArrayList<>();
         mCurrCycle = 0;
         mRotorsArray = (RotorSwitch[]) mIdToNetworkDevice.values().toArray(new RotorSwitch[mIdToNetworkDevice.size()]);
@@ -157,7 +158,15 @@ public class RotorNetController extends DynamicController {
      */
     protected void registerReconfigurationEvent() {
         Simulator.registerEvent(new RotorReconfigurationEvent(mReconfigurationInterval, mReconfigurationTime));
-        sNextReconfigurationTime = Simulator.getCurrentTime() + mReconfigurationInterval;
+        setNextReconfigurationTime(Simulator.getCurrentTime() + mReconfigurationInterval);
 
     }
+
+    public static long getNextReconfigurationTime() {
+        return RunContext.current().get(sNextReconfigurationTime);
+    }
+
+    protected static void setNextReconfigurationTime(long time) {
+        RunContext.current().set(sNextReconfigurationTime, time);
+    }
 }
@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.dynamic.rotornet;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
@@ -21,7 +22,7 @@ public class RotorSwitch extends DynamicSwitch {
     protected long mPortsBufferSize;
     protected RotorMap mRotorMap; // the map telling it which devices it is connected to
     protected long mPoolBufferSize; // the rotor buffer, if this is full dont allow forwarding
-    private static long sMaxBufferSizeBit;
+    private static final RunContext.Slot<Long> sMaxBufferSizeBit = RunContext.slot(() -> 0L);
     private LinkedList<IpPacket> mBuffer;
     /**
      * Constructor of a network device.
@@ -95,7 +96,7 @@ public class RotorSwitch extends DynamicSwitch {
     }
 
     private boolean hasPoolResources(long sizeBit) {
-        return mPoolBufferSize + sizeBit <= sMaxBufferSizeBit;
+        return mPoolBufferSize + sizeBit <= RunContext.current().get(sMaxBufferSizeBit);
     }
 
     private void addToBuffer(Packet genericPacket) {
@@ -152,7 +153,7 @@ public class RotorSwitch extends DynamicSwitch {
      * @param ipPacket
      */
     protected void sendToRandomDestination(IpPacket ipPacket) {
-        Collections.shuffle(mRotorMap,mRotorMap.mRnd);
+        Collections.shuffle(mRotorMap,RotorMap.getRandom());
         for(int i = 0;i<mRotorMap.size();i++){
             RotorSwitch target = (RotorSwitch) mRotorMap.getOutpurPort(mRotorMap.get(i)).getTargetDevice();
             if(target.hasResources(ipPacket.getSizeBit())){
@@ -178,7 +179,7 @@ public class RotorSwitch extends DynamicSwitch {
     }
 
     static void setMaxBufferSizeByte(long sizeByte){
-        sMaxBufferSizeBit = sizeByte*8L;
+        RunContext.current().set(sMaxBufferSizeBit, sizeByte*8L);
     }
 
     private void forwardToNextSwitch(IpPacket ipPacket,int destination) {
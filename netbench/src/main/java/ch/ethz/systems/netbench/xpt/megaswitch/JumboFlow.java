@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.megaswitch;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
@@ -8,12 +9,13 @@ import ch.ethz.systems.netbench.xpt.megaswitch.server_optic.distributed.Distribu
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * the Jumbo Flow class aggregates flows based on some condition
  */
 public class JumboFlow {
-    private static long sIdCounter = 0;
+    private static final RunContext.Slot<AtomicLong> sIdCounter = RunContext.slot(AtomicLong::new);
     long mId;
     long mSizeByte;
 
@@ -35,7 +37,7 @@ public class JumboFlow {
         flowsOnCircuit = new HashSet<>();
         mSource = source;
         mDest = dest;
-        mId = ++sIdCounter;
+        mId = RunContext.current().get(sIdCounter).incrementAndGet();
         onCircuit = false;
         mSourceToR = -1;
         mDestToR = -1;
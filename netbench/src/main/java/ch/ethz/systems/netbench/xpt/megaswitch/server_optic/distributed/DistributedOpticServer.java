@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.megaswitch.server_optic.distributed;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
@@ -43,7 +44,7 @@ public class DistributedOpticServer extends OpticServer {
     }
 
     HashMap<Integer, State> mFlowState; // circuit states per destination
-    static Random rand = Simulator.selectIndependentRandom("semit_remote_paths_randomizer");
+    private static final RunContext.Slot<Random> rand = RunContext.slot(() -> Simulator.selectIndependentRandom("semit_remote_paths_randomizer"));
     final int NUM_PATH_TO_RANDOMIZE; // the number of paths to randomize
     private HashMap<Integer, TeardownEvent> mTeardownEventsMap; // a map from destinations to tear down events
 
@@ -182,7 +183,7 @@ public class DistributedOpticServer extends OpticServer {
 
         }
 
-        int p = Math.abs(rand.nextInt(paths.size())) % paths.size(); // randomize a starting index for the paths
+        int p = Math.abs(RunContext.current().get(rand).nextInt(paths.size())) % paths.size(); // randomize a starting index for the paths
         int pendingRequests = 0;
         for (int i = 0; i < NUM_PATH_TO_RANDOMIZE; i++) {
             p = (p + i) % paths.size();
@@ -191,7 +192,7 @@ public class DistributedOpticServer extends OpticServer {
             controller = (DistributedController) getRemoteRouter();
             int numColorsAvailable = controller.getWaveLengthNum(); // number of wavelengths allowed
             //this is not the right way, get it from the ToR optic device
-            int c = Math.abs(rand.nextInt(numColorsAvailable)) % numColorsAvailable;
+            int c = Math.abs(RunContext.current().get(rand).nextInt(numColorsAvailable)) % numColorsAvailable;
             boolean hasAvailableColor = false;
             for (int j = 0; j < numColorsAvailable; j++) { // iterate over all colors starting at a certain index to see if one is available
                 c = (c + j) % numColorsAvailable;
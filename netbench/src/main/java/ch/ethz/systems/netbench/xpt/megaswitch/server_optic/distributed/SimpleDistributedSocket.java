@@ -2,10 +2,14 @@ package ch.ethz.systems.netbench.xpt.megaswitch.server_optic.distributed;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.simple.simpledctcp.SimpleDctcpSocket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 
+import java.io.IOException;
+
 public class SimpleDistributedSocket extends SimpleDctcpSocket {
 
     private boolean mOnCircuit;
@@ -125,4 +129,16 @@ public class SimpleDistributedSocket extends SimpleDctcpSocket {
         }
         super.handleAcknowledgment(packet);
     }
-}
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeBoolean(mOnCircuit);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        mOnCircuit = in.readBoolean();
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.meta_node.v1;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
@@ -24,7 +25,7 @@ public class MNController extends RoutingPopulator {
     protected Map<Integer, Long> serversOutgoingLoadMap;
     protected Map<Integer, Long> serversIncommingLoadMap;
 
-    static MNController sInstance = null;
+    private static final RunContext.Slot<MNController> INSTANCE = RunContext.slot();
     private int metaNodeNum;
     private long linkSpeedBpns;
     private int metaNodeSize;
@@ -131,18 +132,20 @@ public class MNController extends RoutingPopulator {
     }
 
     public static MNController getInstance(NBProperties configuration, Map<Integer, NetworkDevice> idToNetworkDevice) {
-        if (sInstance == null) {
-            sInstance = new MNController(configuration, idToNetworkDevice);
-            return sInstance;
+        if (RunContext.current().get(INSTANCE) == null) {
+            MNController instance = new MNController(configuration, idToNetworkDevice);
+            RunContext.current().set(INSTANCE, instance);
+            return instance;
         }
         throw new IllegalStateException("Controller already initialized");
     }
 
     public static MNController getInstance() {
-        if (sInstance == null) {
+        MNController instance = RunContext.current().get(INSTANCE);
+        if (instance == null) {
             throw new IllegalStateException("Controller not initialized");
         }
-        return sInstance;
+        return instance;
     }
 
     private long calcTransferTimeNS(int MNSource, int MNDest, long bytes) {
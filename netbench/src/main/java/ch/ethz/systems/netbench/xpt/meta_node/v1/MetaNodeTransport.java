@@ -7,14 +7,34 @@ import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 
+import java.io.IOException;
+
 public class MetaNodeTransport extends TransportLayer {
     public MetaNodeTransport(int identifier, NBProperties configuration) {
         super(identifier, configuration);
     }
 
+    /**
+     * Checkpoints are not supported: the flows of the meta-node transport are
+     * driven by the MNController, of which the state is not part of the checkpoint.
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        throw new UnsupportedOperationException("Checkpoints are not supported by the meta-node transport, "
+                + "as the state of the MNController is not part of the checkpoint.");
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        throw new UnsupportedOperationException("Checkpoints are not supported by the meta-node transport, "
+                + "as the state of the MNController is not part of the checkpoint.");
+    }
+
     @Override
     protected Socket createSocket(long flowId, int destinationId, long flowSizeByte, long estimatedFlowSizeByte, int jobId) {
         return new MetaNodeSocket(this, flowId, identifier, destinationId, flowSizeByte);
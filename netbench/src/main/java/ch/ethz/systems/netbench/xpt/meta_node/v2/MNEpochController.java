@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.meta_node.v2;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
@@ -16,7 +17,7 @@ import java.util.*;
 public class MNEpochController extends RoutingPopulator {
     protected Map<Integer, NetworkDevice> idToNetworkDevice;
     protected Map<Pair<Integer, Integer>, Long> loadMap;
-    static MNEpochController sInstance = null;
+    private static final RunContext.Slot<MNEpochController> INSTANCE = RunContext.slot();
     private int metaNodeNum;
     public final long linkSpeedbpns;
     private int metaNodeSize;
@@ -134,18 +135,20 @@ public class MNEpochController extends RoutingPopulator {
     }
 
     public static MNEpochController getInstance(NBProperties configuration, Map<Integer, NetworkDevice> idToNetworkDevice) {
-        if (sInstance == null) {
-            sInstance = new MNEpochController(configuration, idToNetworkDevice);
-            return sInstance;
+        if (RunContext.current().get(INSTANCE) == null) {
+            MNEpochController instance = new MNEpochController(configuration, idToNetworkDevice);
+            RunContext.current().set(INSTANCE, instance);
+            return instance;
         }
         throw new IllegalStateException("Controller already initialized");
     }
 
     public static MNEpochController getInstance() {
-        if (sInstance == null) {
+        MNEpochController instance = RunContext.current().get(INSTANCE);
+        if (instance == null) {
             throw new IllegalStateException("Controller not initialized");
         }
-        return sInstance;
+        return instance;
     }
 
     public void registerDemand(int sourceServier, int destServer, long bits, long flowId, long startTime) {
@@ -6,8 +6,11 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.simple.simpletcp.SimpleTcpSocket;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.LinkedList;
 
@@ -19,6 +22,22 @@ public class MetaNodeTransport extends TransportLayer {
         flowsInEpoch = new HashSet<>();
     }
 
+    /**
+     * Checkpoints are not supported: the flows of the meta-node transport are
+     * driven by the MNEpochController, of which the state is not part of the checkpoint.
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        throw new UnsupportedOperationException("Checkpoints are not supported by the meta-node transport, "
+                + "as the state of the MNEpochController is not part of the checkpoint.");
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        throw new UnsupportedOperationException("Checkpoints are not supported by the meta-node transport, "
+                + "as the state of the MNEpochController is not part of the checkpoint.");
+    }
+
     @Override
     protected Socket createSocket(long flowId, int destinationId, long flowSizeByte, long estimatedFlowSizeByte, int jobId) {
         return new MetaNodeSocket(this, flowId, this.identifier, destinationId, flowSizeByte, configuration);
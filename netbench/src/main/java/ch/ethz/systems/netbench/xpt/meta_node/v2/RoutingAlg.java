@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.meta_node.v2;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -7,7 +8,7 @@ import java.util.*;
 
 public class RoutingAlg {
 
-    private static RoutingAlg sInstance;
+    private static final RunContext.Slot<RoutingAlg> INSTANCE = RunContext.slot();
 
     private RoutingAlg(int N){
         initOrder(N);
@@ -15,7 +16,7 @@ public class RoutingAlg {
     private LinkedList<Pair<Integer, Integer>> order;
     private int MN;
     public static void reset() {
-        sInstance = null;
+        RunContext.current().set(INSTANCE, null);
     }
 
     public void initOrder(int N){
@@ -157,17 +158,18 @@ public class RoutingAlg {
 //    }
 
     public static void init(int N){
-        if(sInstance!=null){
+        if(RunContext.current().get(INSTANCE)!=null){
             throw new IllegalStateException("Algorithm already initialized");
         }
-        sInstance = new RoutingAlg(N);
+        RunContext.current().set(INSTANCE, new RoutingAlg(N));
     }
 
     public static RoutingAlg getInstance(){
-        if(sInstance==null){
+        RoutingAlg instance = RunContext.current().get(INSTANCE);
+        if(instance==null){
             throw new IllegalStateException("Algorithm not initialized");
         }
-        return  sInstance;
+        return  instance;
     }
 
     public void shiftOrder(){
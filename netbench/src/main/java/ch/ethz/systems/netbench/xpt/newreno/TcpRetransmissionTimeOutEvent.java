@@ -1,8 +1,13 @@
 package ch.ethz.systems.netbench.xpt.newreno;
 
+import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket;
 
+import java.io.IOException;
+
 public class TcpRetransmissionTimeOutEvent extends Event {
 
     private final NewRenoTcpSocket tcpSocket;
@@ -14,6 +19,43 @@ public class TcpRetransmissionTimeOutEvent extends Event {
         this.active = true;
     }
 
+    /**
+     * Write the event to a checkpoint, identifying the socket
+     * by its network device and flow.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeInt(tcpSocket.getTransportLayer().getIdentifier());
+        out.writeLong(tcpSocket.getFlowId());
+        out.writeBoolean(active);
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}. If it is
+     * active, it is re-attached to its socket, which must already have been restored.
+     * Events of sockets which have been closed in the meantime are restored as cancelled.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Retransmission time-out event
+     */
+    public static TcpRetransmissionTimeOutEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        int deviceId = in.readInt();
+        long flowId = in.readLong();
+        boolean active = in.readBoolean();
+        NewRenoTcpSocket socket = (NewRenoTcpSocket) Simulator.getNetworkDevice(deviceId).getTransportLayer().getSocket(flowId);
+        TcpRetransmissionTimeOutEvent event = new TcpRetransmissionTimeOutEvent(timeFromNowNs, socket);
+        if (active && socket != null) {
+            socket.restoreRetransmissionTimeOutEvent(event);
+        } else {
+            event.cancel();
+        }
+        return event;
+    }
+
     @Override
     public void trigger() {
         if (this.active) {
@@ -21,6 +63,11 @@ public class TcpRetransmissionTimeOutEvent extends Event {
         }
     }
 
+    @Override
+    public Object getHandler() {
+        return tcpSocket;
+    }
+
     /**
      * Cancel the resend event. This is done when popping it from the queue takes
      * too much time, but it shouldn't occur. Scenarios in which this happens is
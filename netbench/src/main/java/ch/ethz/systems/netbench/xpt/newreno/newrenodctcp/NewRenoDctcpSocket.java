@@ -2,9 +2,13 @@ package ch.ethz.systems.netbench.xpt.newreno.newrenodctcp;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket;
 
+import java.io.IOException;
+
 public class NewRenoDctcpSocket extends NewRenoTcpSocket {
 
     private final double DCTCP_WEIGHT_NEW_ESTIMATION; // 0 < g < 1 is the weight given to new samples
@@ -110,4 +114,22 @@ public class NewRenoDctcpSocket extends NewRenoTcpSocket {
         return alphaFraction;
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeDouble(alphaFraction);
+        out.writeLong(totalBytes);
+        out.writeLong(markedBytes);
+        out.writeLong(alphaUpdateSequenceNumber);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        alphaFraction = in.readDouble();
+        totalBytes = in.readLong();
+        markedBytes = in.readLong();
+        alphaUpdateSequenceNumber = in.readLong();
+    }
+
 }
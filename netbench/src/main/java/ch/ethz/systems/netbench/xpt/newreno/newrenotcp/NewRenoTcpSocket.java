@@ -6,16 +6,18 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.newreno.TcpRetransmissionTimeOutEvent;
 import ch.ethz.systems.netbench.xpt.tcpbase.AckRange;
 import ch.ethz.systems.netbench.xpt.tcpbase.AckRangeSet;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import ch.ethz.systems.netbench.xpt.tcpbase.SegmentScoreboard;
 import ch.ethz.systems.netbench.xpt.tcpbase.TcpLogger;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
 
 import static ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket.State.*;
 
@@ -113,8 +115,7 @@ public class NewRenoTcpSocket extends Socket {
 
     // Selective acknowledgment variables
     private final AckRangeSet selectiveAckSet;
-    private final Set<Long> acknowledgedSegStartSeqNumbers;
-    private final Set<Long> sentOutUnacknowledgedSegStartSeqNumbers;
+    private final SegmentScoreboard scoreboard; // Outstanding and acknowledged (not yet consumed) segments
 
     // Fast re-transmit variables
     private long recover;
@@ -233,8 +234,7 @@ public class NewRenoTcpSocket extends Socket {
         this.smoothRoundTripTime = 0;
 
         // Selective acknowledgments saved
-        this.acknowledgedSegStartSeqNumbers = new HashSet<>();
-        this.sentOutUnacknowledgedSegStartSeqNumbers = new HashSet<>();
+        this.scoreboard = new SegmentScoreboard(FIRST_SEQ_NUMBER + 1, MAX_SEGMENT_SIZE, flowSizeByte + 1);
         this.selectiveAckSet = new AckRangeSet();
 
         // Duplicate acknowledgment detection
@@ -450,21 +450,6 @@ public class NewRenoTcpSocket extends Socket {
         }
     }
 
-    /**
-     * Confirm the successful confirmation of a segment by a certain packet.
-     *
-     * @param seq Sequence number of segment acknowledged
-     */
-    private void confirmSegment(long seq) {
-
-        // It is no longer outstanding
-        sentOutUnacknowledgedSegStartSeqNumbers.remove(seq);
-
-        // Add it to the progression
-        acknowledgedSegStartSeqNumbers.add(seq);
-
-    }
-
     /**
      * Process the acknowledgment as is normal for TCP.
      * It cancels the resend for any packet until then, as
@@ -483,20 +468,12 @@ public class NewRenoTcpSocket extends Socket {
         // FLOW ACKNOWLEDGMENT: REGULAR
         // If it is not at the left most of the window, then
         // the receiver apparently already received everything before that
-        Set<Long> outstandingSegmentSeqs = new HashSet<>(sentOutUnacknowledgedSegStartSeqNumbers);
-        for (Long segSeq : outstandingSegmentSeqs) {
-            long size = getFlowSizeByte(segSeq);
-            long segAck = segSeq + size;
-            if (segAck <= ack) {
-                confirmSegment(segSeq);
-            }
-        }
+        scoreboard.confirmBelow(ack, null);
 
         // MOVE WINDOW AS FAR AS POSSIBLE
         // Continue on with the other packets that have also have been
         // received already
-        while (acknowledgedSegStartSeqNumbers.contains(sendUnackNumber)) {
-            acknowledgedSegStartSeqNumbers.remove(sendUnackNumber);
+        while (scoreboard.pollAcknowledged(sendUnackNumber)) {
 
             // Retrieve size of the already out-of-order (selectively) acknowledged packet
             long size = getFlowSizeByte(sendUnackNumber);
@@ -597,7 +574,7 @@ public class NewRenoTcpSocket extends Socket {
 
             // RFC3042: Limited transmit; for each of the two duplicate
             //          acknowledgment till three, transmit a new segment
-            while (acknowledgedSegStartSeqNumbers.contains(sendNextNumber)) {
+            while (scoreboard.isAcknowledged(sendNextNumber)) {
                 sendNextNumber += getFlowSizeByte(sendNextNumber);
             }
             long size = getFlowSizeByte(sendNextNumber);
@@ -652,20 +629,10 @@ public class NewRenoTcpSocket extends Socket {
         }
 
         // FLOW ACKNOWLEDGMENT: SELECTIVE
-        // Go over all outstanding segments and check if any are
-        // being acknowledged by the selective acknowledgment ranges
-        Set<Long> outstandingSegmentSeqs = new HashSet<>(sentOutUnacknowledgedSegStartSeqNumbers);
-        for (Long segSeq : outstandingSegmentSeqs) {
-            long size = getFlowSizeByte(segSeq);
-            long segAck = segSeq + size;
-
-            // Check if an outstanding segment falls within the selective acknowledgment ranges
-            for (AckRange r : packet.getSelectiveAck()) {
-                if (r.isWithin(segSeq, segAck)) {
-                    confirmSegment(segSeq);
-                }
-            }
-
+        // Confirm all outstanding segments which fall within
+        // the selective acknowledgment ranges
+        for (AckRange r : packet.getSelectiveAck()) {
+            scoreboard.confirmWithin(r.getLowBound(), r.getHighBound(), null);
         }
 
         // DUPLICATE CHECK
@@ -704,8 +671,7 @@ public class NewRenoTcpSocket extends Socket {
         if (sendUnackNumber == sendNextNumber) {
             assert (flightSize() == 0);
             assert (retransmissionTimeOutEvent == null);
-            assert (acknowledgedSegStartSeqNumbers.isEmpty());
-            assert (sentOutUnacknowledgedSegStartSeqNumbers.isEmpty());
+            assert (scoreboard.isEmpty());
             assert (isAllFlowConfirmed());
         }
 
@@ -785,7 +751,7 @@ public class NewRenoTcpSocket extends Socket {
         while (difference >= amountToSendByte && amountToSendByte > 0) {
 
             // If it has not yet been confirmed,actually send out the packet
-            if (!acknowledgedSegStartSeqNumbers.contains(sendNextNumber)) {
+            if (!scoreboard.isAcknowledged(sendNextNumber)) {
                 sendOutDataPacket(sendNextNumber, amountToSendByte);
 
                 // If it has already been confirmed by selective acknowledgments, just move along
@@ -808,10 +774,10 @@ public class NewRenoTcpSocket extends Socket {
      * @param amountToSendByte Amount of data to send out
      */
     private void sendOutDataPacket(long seq, long amountToSendByte) {
-        assert (seq <= sendNextNumber && !acknowledgedSegStartSeqNumbers.contains(seq));
+        assert (seq <= sendNextNumber && !scoreboard.isAcknowledged(seq));
 
         // Log that it is now sent out (could happen again)
-        sentOutUnacknowledgedSegStartSeqNumbers.add(seq);
+        scoreboard.markSent(seq);
 
         // Update send next number if applicable
         if (seq == sendNextNumber) {
@@ -916,6 +882,67 @@ public class NewRenoTcpSocket extends Socket {
 
     }
 
+    /**
+     * Re-attach the pending retransmission time-out event when restoring a checkpoint,
+     * as the event is restored from the event queue after the socket.
+     *
+     * @param event Restored (active) retransmission time-out event
+     */
+    public void restoreRetransmissionTimeOutEvent(TcpRetransmissionTimeOutEvent event) {
+        this.retransmissionTimeOutEvent = event;
+    }
+
+    /**
+     * Write the TCP state to a checkpoint.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        writeSocketCheckpoint(out);
+        out.writeByte(currentState.ordinal());
+        out.writeDouble(slowStartThreshold);
+        out.writeDouble(congestionWindow);
+        out.writeLong(sendUnackNumber);
+        out.writeLong(sendNextNumber);
+        out.writeLong(receiveNextNumber);
+        out.writeLong(highestSentOutNumber);
+        out.writeLong(counterSameAckNumber);
+        out.writeLong(previousAckNumber);
+        selectiveAckSet.writeCheckpoint(out);
+        scoreboard.writeCheckpoint(out);
+        out.writeLong(recover);
+        out.writeBoolean(inFastRecovery);
+        out.writeBoolean(firstRttMeasurement);
+        out.writeDouble(smoothRoundTripTime);
+        out.writeDouble(roundTripTimeVariation);
+        out.writeLong(roundTripTimeout);
+        out.writeLong(currentFlowlet);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        readSocketCheckpoint(in);
+        currentState = State.values()[in.readByte()];
+        slowStartThreshold = in.readDouble();
+        congestionWindow = in.readDouble();
+        sendUnackNumber = in.readLong();
+        sendNextNumber = in.readLong();
+        receiveNextNumber = in.readLong();
+        highestSentOutNumber = in.readLong();
+        counterSameAckNumber = in.readLong();
+        previousAckNumber = in.readLong();
+        selectiveAckSet.readCheckpoint(in);
+        scoreboard.readCheckpoint(in);
+        recover = in.readLong();
+        inFastRecovery = in.readBoolean();
+        firstRttMeasurement = in.readBoolean();
+        smoothRoundTripTime = in.readDouble();
+        roundTripTimeVariation = in.readDouble();
+        roundTripTimeout = in.readLong();
+        currentFlowlet = in.readLong();
+    }
+
     /**
      * Handle the happening of a resend in the connection.
      * <p>
@@ -993,7 +1020,8 @@ public class NewRenoTcpSocket extends Socket {
             boolean SYN,
             boolean ECE
     ) {
-        return new FullExtTcpPacket(
+        // Neither side retains packets (resends are re-created), so they can be pooled
+        return FullExtTcpPacket.obtain(
                 flowId, dataSizeByte, sourceId, destinationId,
                 100, 80, 80, // TTL, source port, destination port
                 sequenceNumber, ackNumber, // Seq number, Ack number
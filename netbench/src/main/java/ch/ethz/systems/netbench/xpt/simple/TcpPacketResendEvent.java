@@ -1,9 +1,14 @@
 package ch.ethz.systems.netbench.xpt.simple;
 
+import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.simple.simpletcp.SimpleTcpSocket;
 
+import java.io.IOException;
+
 public class TcpPacketResendEvent extends Event {
 
     private SimpleTcpSocket tcpSocket;
@@ -18,6 +23,56 @@ public class TcpPacketResendEvent extends Event {
 
     }
 
+    /**
+     * Write the event to a checkpoint, identifying the socket by its network
+     * device and flow. Of the packet, only the header fields from which it is
+     * resent are written.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeBoolean(active);
+        if (active) {
+            out.writeInt(tcpSocket.getTransportLayer().getIdentifier());
+            out.writeLong(tcpSocket.getFlowId());
+            out.writeLong(tcpPacket.getDataSizeByte());
+            out.writeLong(tcpPacket.getSequenceNumber());
+            out.writeLong(tcpPacket.getAcknowledgementNumber());
+            out.writeByte((tcpPacket.isACK() ? 1 : 0) | (tcpPacket.isSYN() ? 1 << 1 : 0)
+                    | (tcpPacket.isECE() ? 1 << 2 : 0) | (tcpPacket.isFIN() ? 1 << 3 : 0));
+        }
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}. If it is
+     * active, it is re-attached to its socket, which must already have been restored.
+     * Events of sockets which have been closed in the meantime are restored as cancelled.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Packet resend event
+     */
+    public static TcpPacketResendEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        if (in.readBoolean()) {
+            int deviceId = in.readInt();
+            long flowId = in.readLong();
+            long dataSizeByte = in.readLong();
+            long sequenceNumber = in.readLong();
+            long ackNumber = in.readLong();
+            int flags = in.readByte();
+            SimpleTcpSocket socket = (SimpleTcpSocket) Simulator.getNetworkDevice(deviceId).getTransportLayer().getSocket(flowId);
+            if (socket != null) {
+                return socket.restoreResendEvent(timeFromNowNs, dataSizeByte, sequenceNumber, ackNumber,
+                        (flags & 1) != 0, (flags & 1 << 1) != 0, (flags & 1 << 2) != 0, (flags & 1 << 3) != 0);
+            }
+        }
+        TcpPacketResendEvent event = new TcpPacketResendEvent(timeFromNowNs, null, null);
+        event.cancel();
+        return event;
+    }
+
     @Override
     public void trigger() {
         if (this.active) {
@@ -25,6 +80,11 @@ public class TcpPacketResendEvent extends Event {
         }
     }
 
+    @Override
+    public Object getHandler() {
+        return tcpSocket;
+    }
+
     @Override
     public String toString() {
         return "TcpPacketResendEvent<" + this.active + ", " + this.getTime() + ", " + this.tcpPacket + ">";
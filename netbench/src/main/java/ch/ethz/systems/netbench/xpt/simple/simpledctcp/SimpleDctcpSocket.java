@@ -2,10 +2,14 @@ package ch.ethz.systems.netbench.xpt.simple.simpledctcp;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.simple.simpletcp.SimpleTcpSocket;
 
+import java.io.IOException;
+
 public class SimpleDctcpSocket extends SimpleTcpSocket {
 
     private final double DCTCP_WEIGHT_NEW_ESTIMATION; // 0 < g < 1 is the weight given to new samples
@@ -99,4 +103,22 @@ public class SimpleDctcpSocket extends SimpleTcpSocket {
         return alphaFraction;
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeDouble(alphaFraction);
+        out.writeLong(totalBytes);
+        out.writeLong(markedBytes);
+        out.writeLong(alphaUpdateWindow);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        alphaFraction = in.readDouble();
+        totalBytes = in.readLong();
+        markedBytes = in.readLong();
+        alphaUpdateWindow = in.readLong();
+    }
+
 }
\ No newline at end of file
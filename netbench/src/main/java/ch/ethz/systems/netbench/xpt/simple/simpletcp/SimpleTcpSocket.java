@@ -6,14 +6,18 @@ import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.simple.TcpPacketResendEvent;
 import ch.ethz.systems.netbench.xpt.tcpbase.AckRange;
 import ch.ethz.systems.netbench.xpt.tcpbase.AckRangeSet;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import ch.ethz.systems.netbench.xpt.tcpbase.SegmentScoreboard;
 import ch.ethz.systems.netbench.xpt.tcpbase.TcpLogger;
 
+import java.io.IOException;
 import java.util.*;
 
 import static ch.ethz.systems.netbench.xpt.simple.simpletcp.SimpleTcpSocket.State.*;
@@ -76,8 +80,7 @@ public class SimpleTcpSocket extends Socket {
 
     // Selective acknowledgment variables
     private AckRangeSet selectiveAckSet;
-    protected Set<Long> acknowledgedSegStartSeqNumbers;
-    private Set<Long> sentOutUnacknowledgedSegStartSeqNumbers;
+    protected SegmentScoreboard scoreboard; // Outstanding and acknowledged (not yet consumed) segments
 
     //this is a queue of packets not acked in the 3-HSHAKE stage
     private LinkedList<Packet> unackedPackets;
@@ -194,8 +197,7 @@ public class SimpleTcpSocket extends Socket {
 
         // Selective acknowledgments saved
         this.selectiveAckSet = new AckRangeSet();
-        this.acknowledgedSegStartSeqNumbers = new HashSet<>();
-        this.sentOutUnacknowledgedSegStartSeqNumbers = new HashSet<>();
+        this.scoreboard = new SegmentScoreboard(FIRST_SEQ_NUMBER + 1, MAX_SEGMENT_SIZE, flowSizeByte + 1);
         this.unackedPackets = new LinkedList<>();
         // Flowlet tracking
         currentFlowlet = 0;
@@ -329,12 +331,9 @@ public class SimpleTcpSocket extends Socket {
 
                     // We are now established, send the final acknowledgment to the other party (no SYN bit)
                     currentState = ESTABLISHED;
-                    sendWithoutResend(createPacket(
-                            0, // Data size (byte)
+                    sendWithoutResend(createAcknowledgment(
                             sendNextNumber, // Seq number
                             receiveNextNumber, // Ack number
-                            true,  // ACK
-                            false, // SYN
                             false, // ECE
                             false
                     ));
@@ -381,8 +380,7 @@ public class SimpleTcpSocket extends Socket {
 
                     // Set all these initialized maps to zero to preserve memory space
                     this.seqNumbToResendEventMap = null;
-                    this.acknowledgedSegStartSeqNumbers = null;
-                    this.sentOutUnacknowledgedSegStartSeqNumbers = null;
+                    this.scoreboard = null;
 
                     // System.out.println("3-WAY HANDSHAKE: 3. Receiver received ACK.");
 
@@ -444,12 +442,9 @@ public class SimpleTcpSocket extends Socket {
         if (!this.isReceiver()) {
             assert (packet.isSYN() && packet.isACK());
             sendWithoutResend(
-                    ((FullExtTcpPacket) createPacket(
-                            0, // Data size (byte)
+                    ((FullExtTcpPacket) createAcknowledgment(
                             sendNextNumber, // Sequence number
                             (packet.getSequenceNumber() + packet.getDataSizeByte() + (packet.isSYN() ? 1 : 0)), // Ack number
-                            true, // ACK
-                            false, // SYN
                             packet.getECN(), // ECE
                             false
                     ).setEchoFlowletId(packet.getFlowletId()))
@@ -485,12 +480,9 @@ public class SimpleTcpSocket extends Socket {
 
     protected void sendAcknowledgment(TcpPacket packet) {
         sendWithoutResend(
-                ((FullExtTcpPacket) ((FullExtTcpPacket) (createPacket(
-                        0, // Data size (byte)
+                ((FullExtTcpPacket) ((FullExtTcpPacket) (createAcknowledgment(
                         sendNextNumber, // Sequence number
                         receiveNextNumber, // Ack number
-                        true, // ACK
-                        false, // SYN
                         packet.getECN(), // ECE
                         receiveNextNumber >= finalSeq
                 ).setEchoFlowletId(packet.getFlowletId())))
@@ -546,38 +538,19 @@ public class SimpleTcpSocket extends Socket {
         int newPacketsAcked = 0;
 
         // FLOW ACKNOWLEDGMENT: SELECTIVE ACKNOWLEDGMENT RANGES
-        Set<Long> outstandingSegmentSeqs = new HashSet<>(sentOutUnacknowledgedSegStartSeqNumbers);
-        for (Long segSeq : outstandingSegmentSeqs) {
-            long size = getFlowSizeByte(segSeq);
-            long segAck = segSeq + size;
-
-            // Check if an outstanding segment falls within the selective acknowledgment ranges
-            for (AckRange r : packet.getSelectiveAck()) {
-                if (r.isWithin(segSeq, segAck)) {
-                    confirmSegment(segSeq);
-                    newPacketsAcked++;
-                }
-            }
-
+        // Confirm all outstanding segments which fall within the ranges, and cancel their resend events
+        for (AckRange r : packet.getSelectiveAck()) {
+            newPacketsAcked += scoreboard.confirmWithin(r.getLowBound(), r.getHighBound(), this::cancelResendEvent);
         }
 
         // FLOW ACKNOWLEDGMENT: CUMULATIVE ACKNOWLEDGMENT
-        outstandingSegmentSeqs = new HashSet<>(sentOutUnacknowledgedSegStartSeqNumbers); // Set<Long>
-        for (Long segSeq : outstandingSegmentSeqs) {
-            long size = getFlowSizeByte(segSeq);
-            long segAck = segSeq + size;
-            if (segAck <= ack) {
-                confirmSegment(segSeq);
-                newPacketsAcked++;
-            }
-        }
+        newPacketsAcked += scoreboard.confirmBelow(ack, this::cancelResendEvent);
 
         // MOVE WINDOW AS FAR AS POSSIBLE
         // Continue on with the other packets that have also have been
         // received already
         long acknowledgedBytes = 0;
-        while (acknowledgedSegStartSeqNumbers.contains(sendUnackNumber)) {
-            acknowledgedSegStartSeqNumbers.remove(sendUnackNumber);
+        while (scoreboard.pollAcknowledged(sendUnackNumber)) {
 
             // Retrieve size of the already out-of-order (selectively) acknowledged packet
             long size = getFlowSizeByte(sendUnackNumber);
@@ -616,11 +589,9 @@ public class SimpleTcpSocket extends Socket {
         // has been acknowledged
         if (sendUnackNumber == sendNextNumber) {
             assert (isAllFlowConfirmed());
-            assert (sentOutUnacknowledgedSegStartSeqNumbers == null || sentOutUnacknowledgedSegStartSeqNumbers.isEmpty());
-            assert (acknowledgedSegStartSeqNumbers == null || acknowledgedSegStartSeqNumbers.isEmpty());
+            assert (scoreboard == null || scoreboard.isEmpty());
             assert (seqNumbToResendEventMap == null || seqNumbToResendEventMap.isEmpty());
-            this.sentOutUnacknowledgedSegStartSeqNumbers = null;
-            this.acknowledgedSegStartSeqNumbers = null;
+            this.scoreboard = null;
             this.seqNumbToResendEventMap = null;
             this.selectiveAckSet = null;
         }
@@ -669,7 +640,7 @@ public class SimpleTcpSocket extends Socket {
         while (difference >= amountToSendByte && amountToSendByte > 0) {
 
             // If it has not yet been confirmed,actually send out the packet
-            if (!acknowledgedSegStartSeqNumbers.contains(sendNextNumber)) {
+            if (!scoreboard.isAcknowledged(sendNextNumber)) {
                 sendOutDataPacket(sendNextNumber, amountToSendByte);
 
                 // If it has already been confirmed by selective acknowledgments, just move along
@@ -692,10 +663,10 @@ public class SimpleTcpSocket extends Socket {
      * @param amountToSendByte Amount of data to send out
      */
     protected void sendOutDataPacket(long seq, long amountToSendByte) {
-        assert (seq <= sendNextNumber && !acknowledgedSegStartSeqNumbers.contains(seq));
+        assert (seq <= sendNextNumber && !scoreboard.isAcknowledged(seq));
 
         // Log that it is now sent out (could happen again)
-        sentOutUnacknowledgedSegStartSeqNumbers.add(seq);
+        scoreboard.markSent(seq);
 
         // Update send next number if applicable
         if (seq == sendNextNumber) {
@@ -749,24 +720,6 @@ public class SimpleTcpSocket extends Socket {
 
     }
 
-    /**
-     * Confirm the successful confirmation of a segment by a certain packet.
-     *
-     * @param seq Sequence number of segment acknowledged
-     */
-    private void confirmSegment(long seq) {
-
-        // It is no longer outstanding
-        sentOutUnacknowledgedSegStartSeqNumbers.remove(seq);
-
-        // Add it to the progression
-        acknowledgedSegStartSeqNumbers.add(seq);
-
-        // Cancel its resend event
-        cancelResendEvent(seq);
-
-    }
-
     /**
      * Resend the given packet.
      *
@@ -838,6 +791,33 @@ public class SimpleTcpSocket extends Socket {
         );
     }
 
+    /**
+     * Create a pure acknowledgment packet (no data, no SYN). As opposed to data packets,
+     * it is not retained for resending by either side, so it is obtained from the pool.
+     *
+     * @param sequenceNumber Sequence number
+     * @param ackNumber      Acknowledgment number
+     * @param ECE            True iff it wants to let other party know there congestion was encountered
+     * @param FIN            True iff it acknowledges the final data
+     * @return TCP packet instance
+     */
+    private FullExtTcpPacket createAcknowledgment(
+            long sequenceNumber,
+            long ackNumber,
+            boolean ECE,
+            boolean FIN
+    ) {
+        return FullExtTcpPacket.obtain(
+                flowId, 0, sourceId, destinationId,
+                100, 80, 80, // TTL, source port, destination port
+                sequenceNumber, ackNumber, // Seq number, Ack number
+                false, false, ECE, // NS, CWR, ECE
+                false, true, false, // URG, ACK, PSH
+                false, false, FIN, // RST, SYN, FIN
+                congestionWindow, 0 // Window size, Priority
+        );
+    }
+
     /**
      * Determine the flow size desired for the given sequence number.
      *
@@ -884,6 +864,107 @@ public class SimpleTcpSocket extends Socket {
         seqNumbToResendEventMap.put(tcpPacket.getSequenceNumber(), event);
     }
 
+    /**
+     * Re-create the pending resend event of a packet when restoring a checkpoint,
+     * as the event is restored from the event queue after the socket.
+     *
+     * @param timeFromNowNs  Time until the resend
+     * @param dataSizeByte   Data size of the packet to resend
+     * @param sequenceNumber Sequence number of the packet to resend
+     * @param ackNumber      Acknowledgment number of the packet to resend
+     * @param ACK            True iff the packet to resend carries an acknowledgment
+     * @param SYN            True iff the packet to resend is a synchronization packet
+     * @param ECE            True iff the packet to resend has the ECE flag
+     * @param FIN            True iff the packet to resend has the FIN flag
+     * @return Restored (active) resend event
+     */
+    public TcpPacketResendEvent restoreResendEvent(long timeFromNowNs, long dataSizeByte, long sequenceNumber,
+                                                   long ackNumber, boolean ACK, boolean SYN, boolean ECE, boolean FIN) {
+        TcpPacketResendEvent event = new TcpPacketResendEvent(
+                timeFromNowNs,
+                createPacket(dataSizeByte, sequenceNumber, ackNumber, ACK, SYN, ECE, FIN),
+                this
+        );
+        seqNumbToResendEventMap.put(sequenceNumber, event);
+        return event;
+    }
+
+    /**
+     * Write the TCP state to a checkpoint. The pending resend events are
+     * part of the event queue instead.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        writeSocketCheckpoint(out);
+        out.writeByte(currentState.ordinal());
+        out.writeBoolean(finReceived);
+        out.writeLong(finalSeq);
+        out.writeBoolean(finSent);
+        out.writeDouble(slowStartThreshold);
+        out.writeDouble(congestionWindow);
+        out.writeLong(sendUnackNumber);
+        out.writeLong(sendNextNumber);
+        out.writeLong(receiveNextNumber);
+        out.writeLong(highestSentOutNumber);
+        out.writeBoolean(selectiveAckSet != null);
+        if (selectiveAckSet != null) {
+            selectiveAckSet.writeCheckpoint(out);
+        }
+        out.writeBoolean(scoreboard != null);
+        if (scoreboard != null) {
+            scoreboard.writeCheckpoint(out);
+        }
+        out.writeInt(unackedPackets.size());
+        for (Packet packet : unackedPackets) {
+            out.writeEncoded(packet);
+        }
+        out.writeBoolean(seqNumbToResendEventMap != null);
+        out.writeBoolean(firstRttMeasurement);
+        out.writeDouble(smoothRoundTripTime);
+        out.writeDouble(roundTripTimeVariation);
+        out.writeLong(roundTripTimeout);
+        out.writeLong(currentFlowlet);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        readSocketCheckpoint(in);
+        currentState = State.values()[in.readByte()];
+        finReceived = in.readBoolean();
+        finalSeq = in.readLong();
+        finSent = in.readBoolean();
+        slowStartThreshold = in.readDouble();
+        congestionWindow = in.readDouble();
+        sendUnackNumber = in.readLong();
+        sendNextNumber = in.readLong();
+        receiveNextNumber = in.readLong();
+        highestSentOutNumber = in.readLong();
+        if (in.readBoolean()) {
+            selectiveAckSet = new AckRangeSet();
+            selectiveAckSet.readCheckpoint(in);
+        } else {
+            selectiveAckSet = null;
+        }
+        if (in.readBoolean()) {
+            scoreboard.readCheckpoint(in);
+        } else {
+            scoreboard = null;
+        }
+        unackedPackets.clear();
+        int numUnackedPackets = in.readInt();
+        for (int i = 0; i < numUnackedPackets; i++) {
+            unackedPackets.add(in.readEncoded(Packet.class));
+        }
+        seqNumbToResendEventMap = in.readBoolean() ? new HashMap<>() : null;
+        firstRttMeasurement = in.readBoolean();
+        smoothRoundTripTime = in.readDouble();
+        roundTripTimeVariation = in.readDouble();
+        roundTripTimeout = in.readLong();
+        currentFlowlet = in.readLong();
+    }
+
     /**
      * Cancel the resend event because the packet has been acknowledged
      * by the receiver. Acknowledgement can be done either via selective
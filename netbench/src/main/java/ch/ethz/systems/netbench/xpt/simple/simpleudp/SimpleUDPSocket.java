@@ -3,18 +3,21 @@ package ch.ethz.systems.netbench.xpt.simple.simpleudp;
 import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
-import ch.ethz.systems.netbench.core.network.Event;
 import ch.ethz.systems.netbench.core.network.Packet;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
 import ch.ethz.systems.netbench.core.run.infrastructure.BaseInitializer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import ch.ethz.systems.netbench.ext.bare.BareSocket;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.megaswitch.MegaSwitch;
 
+import java.io.IOException;
+
 public class SimpleUDPSocket extends BareSocket {
     private final int mNetworkDeviceLinkBw;
-    private final long flowStartTime;
+    private long flowStartTime;
     private long flowByteReceived;
     private boolean enableFairness;
 
@@ -62,13 +65,7 @@ public class SimpleUDPSocket extends BareSocket {
             long sendTime = p.getSizeBit() / mNetworkDeviceLinkBw;
             if (enableFairness) sendTime *= transportLayer.getNumOpenSockets();
 
-            Simulator.registerEvent(new Event(sendTime) {
-                @Override
-                public void trigger() {
-                    confirmFlow(next);
-                    continueFlow();
-                }
-            });
+            Simulator.registerEvent(new UDPSendEvent(sendTime, this, next));
         }
 
     }
@@ -119,6 +116,42 @@ public class SimpleUDPSocket extends BareSocket {
         sendPacket();
     }
 
+    /**
+     * Confirm the data of a packet once it has been sent, and continue the flow.
+     *
+     * @param dataSizeByte Data size of the sent packet
+     */
+    void onPacketSent(long dataSizeByte) {
+        confirmFlow(dataSizeByte);
+        continueFlow();
+    }
+
+    /**
+     * Write the state of the socket to a checkpoint. Whether it has the
+     * logger of a receiver comes first, as that logger is only created
+     * when the socket is marked as receiver.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeBoolean(privateLogger != null && isReceiver);
+        out.writeLong(flowStartTime);
+        super.writeCheckpoint(out);
+        out.writeLong(flowByteReceived);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        boolean hasReceiverLogger = in.readBoolean();
+        flowStartTime = in.readLong();
+        if (hasReceiverLogger) {
+            markAsReceiver();
+        }
+        super.readCheckpoint(in);
+        flowByteReceived = in.readLong();
+    }
+
     @Override
     protected void logSender(long newlyConfirmedFlowByte) {
 
@@ -4,8 +4,14 @@ import ch.ethz.systems.netbench.core.Simulator;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.Socket;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 public class SimpleUdpTransportLayer extends TransportLayer {
     protected HashMap<Long, Long> flowIdToSize;
@@ -36,4 +42,35 @@ public class SimpleUdpTransportLayer extends TransportLayer {
         flowIdToSize.put(flowId, flowSizeByte);
     }
 
+    /**
+     * Write the open sockets and the announced incoming flows to a checkpoint.
+     *
+     * @param out Checkpoint output
+     */
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        List<Long> flowIds = new ArrayList<>(flowIdToSize.keySet());
+        Collections.sort(flowIds);
+        out.writeInt(flowIds.size());
+        for (long flowId : flowIds) {
+            out.writeLong(flowId);
+            out.writeLong(flowIdToSize.get(flowId));
+            out.writeLong(flowIdToStartTime.get(flowId));
+        }
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        flowIdToSize.clear();
+        flowIdToStartTime.clear();
+        int numFlows = in.readInt();
+        for (int i = 0; i < numFlows; i++) {
+            long flowId = in.readLong();
+            flowIdToSize.put(flowId, in.readLong());
+            flowIdToStartTime.put(flowId, in.readLong());
+        }
+    }
+
 }
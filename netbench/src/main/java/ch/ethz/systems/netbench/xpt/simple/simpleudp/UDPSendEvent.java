@@ -0,0 +1,68 @@
+package ch.ethz.systems.netbench.xpt.simple.simpleudp;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
+
+/**
+ * Event of a UDP packet having been put on the link, after which
+ * its data is confirmed and the next packet of the flow is sent.
+ */
+public class UDPSendEvent extends Event {
+
+    private final SimpleUDPSocket socket;
+    private final long dataSizeByte;
+
+    UDPSendEvent(long timeFromNowNs, SimpleUDPSocket socket, long dataSizeByte) {
+        super(timeFromNowNs);
+        this.socket = socket;
+        this.dataSizeByte = dataSizeByte;
+    }
+
+    /**
+     * Write the event to a checkpoint, identifying the socket
+     * by its network device and flow.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(time);
+        out.writeInt(socket.getTransportLayer().getIdentifier());
+        out.writeLong(socket.getFlowId());
+        out.writeLong(dataSizeByte);
+    }
+
+    /**
+     * Read an event written by {@link #writeCheckpoint(CheckpointOutput)}.
+     * Its socket must already have been restored.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return UDP send event
+     */
+    public static UDPSendEvent fromCheckpoint(CheckpointInput in) throws IOException {
+        long timeFromNowNs = in.readTimeFromNow();
+        int deviceId = in.readInt();
+        long flowId = in.readLong();
+        SimpleUDPSocket socket = (SimpleUDPSocket) Simulator.getNetworkDevice(deviceId).getTransportLayer().getSocket(flowId);
+        if (socket == null) {
+            throw new IllegalStateException("Checkpoint contains a UDP send event of flow " + flowId
+                    + " of which the socket at network device " + deviceId + " is not open.");
+        }
+        return new UDPSendEvent(timeFromNowNs, socket, in.readLong());
+    }
+
+    @Override
+    public void trigger() {
+        socket.onPacketSent(dataSizeByte);
+    }
+
+    @Override
+    public Object getHandler() {
+        return socket;
+    }
+
+}
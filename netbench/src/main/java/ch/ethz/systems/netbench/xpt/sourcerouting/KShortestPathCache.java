@@ -0,0 +1,219 @@
+package ch.ethz.systems.netbench.xpt.sourcerouting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Content-addressed on-disk cache of K-shortest path tables.
+ * <p>
+ * The key of an entry is the SHA-256 hash of the directed adjacency of the graph and
+ * the endpoints, such that the netbench and floodns simulators (which write the same
+ * format) share entries for the same topology. An entry computed for K can serve any
+ * K' &le; K, as Yen's algorithm finds the paths in order. An entry file <i>[key].kspc</i>
+ * contains:
+ * <p>
+ * [magic: int][version: int][number of nodes: int][K: int][number of endpoints E: int]
+ * [number of paths P: int][number of hops H: int][E endpoints: int]
+ * [E * E + 1 first path indices: int][P + 1 path offsets: int][H hops: int]
+ * <p>
+ * All values are big-endian. Entries are memory-mapped when loaded, and written
+ * to a temporary file which is then atomically moved into place, such that
+ * concurrent runs can share the cache directory.
+ */
+public class KShortestPathCache {
+
+    private static final int MAGIC = 0x4b535043; // "KSPC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE_BYTE = 28;
+    private static final String EXTENSION = ".kspc";
+
+    private final File directory;
+
+    /**
+     * Create a cache in the given directory (which is created if it does not exist).
+     *
+     * @param directoryPath Cache directory
+     */
+    public KShortestPathCache(String directoryPath) {
+        this.directory = new File(directoryPath);
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalArgumentException("Could not create paths cache directory: " + directoryPath);
+        }
+    }
+
+    /**
+     * Retrieve the K-shortest paths between the endpoints from the cache,
+     * or calculate and store them if they are not in it yet (or only for a smaller K).
+     *
+     * @param adjacency     Outgoing neighbor identifiers of every node
+     * @param endpoints     Endpoint node identifiers
+     * @param k             K in k-shortest paths
+     *
+     * @return Table of the K-shortest paths (possibly of a larger K)
+     */
+    public KShortestPathTable getOrCalculate(int[][] adjacency, int[] endpoints, int k) {
+        int[] sortedEndpoints = endpoints.clone();
+        Arrays.sort(sortedEndpoints);
+        File entry = getEntry(adjacency, sortedEndpoints);
+        if (entry.exists()) {
+            try {
+                KShortestPathTable table = read(entry, adjacency.length, sortedEndpoints);
+                if (table.getK() >= k) {
+                    System.out.println("Loaded K-shortest paths from paths cache: " + entry.getPath());
+                    return table;
+                }
+            } catch (IOException | IllegalStateException e) {
+                System.out.println("Ignoring unreadable paths cache entry " + entry.getPath() + ": " + e.getMessage());
+            }
+        }
+        KShortestPathTable table = ParallelKShortestPaths.calculate(adjacency, sortedEndpoints, k);
+        try {
+            write(entry, table);
+        } catch (IOException e) {
+            System.out.println("Could not store paths cache entry " + entry.getPath() + ": " + e.getMessage());
+        }
+        return table;
+    }
+
+    /**
+     * Retrieve the entry file of a graph and its endpoints.
+     *
+     * @param adjacency         Outgoing neighbor identifiers of every node
+     * @param sortedEndpoints   Sorted endpoint node identifiers
+     *
+     * @return Entry file (no guarantee that it exists)
+     */
+    File getEntry(int[][] adjacency, int[] sortedEndpoints) {
+        return new File(directory, determineKey(adjacency, sortedEndpoints) + EXTENSION);
+    }
+
+    /**
+     * Determine the content key: the SHA-256 hash of the sorted adjacency list
+     * of every node, followed by the sorted endpoints.
+     *
+     * @param adjacency         Outgoing neighbor identifiers of every node
+     * @param sortedEndpoints   Sorted endpoint node identifiers
+     *
+     * @return Hexadecimal key
+     */
+    static String determineKey(int[][] adjacency, int[] sortedEndpoints) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update("k_shortest_paths".getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            digest.update(buffer.putInt(0, adjacency.length).array());
+            for (int[] neighbors : adjacency) {
+                int[] sorted = neighbors.clone();
+                Arrays.sort(sorted);
+                digest.update(buffer.putInt(0, sorted.length).array());
+                for (int id : sorted) {
+                    digest.update(buffer.putInt(0, id).array());
+                }
+            }
+            digest.update(buffer.putInt(0, sortedEndpoints.length).array());
+            for (int id : sortedEndpoints) {
+                digest.update(buffer.putInt(0, id).array());
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Read an entry by memory-mapping it.
+     *
+     * @param entry             Entry file
+     * @param numNodes          Expected number of nodes
+     * @param sortedEndpoints   Expected endpoints
+     *
+     * @return K-shortest path table
+     */
+    private static KShortestPathTable read(File entry, int numNodes, int[] sortedEndpoints) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(entry, "r"); FileChannel channel = file.getChannel()) {
+            if (channel.size() < HEADER_SIZE_BYTE) {
+                throw new IllegalStateException("file is too short");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION || mapped.getInt() != numNodes) {
+                throw new IllegalStateException("header does not match");
+            }
+            int k = mapped.getInt();
+            int numEndpoints = mapped.getInt();
+            int numPaths = mapped.getInt();
+            int numHops = mapped.getInt();
+            long expectedSize = HEADER_SIZE_BYTE + 4L * (numEndpoints + numEndpoints * numEndpoints + 1 + numPaths + 1 + numHops);
+            if (numEndpoints != sortedEndpoints.length || channel.size() != expectedSize) {
+                throw new IllegalStateException("size is " + channel.size() + " instead of " + expectedSize);
+            }
+            IntBuffer values = mapped.asIntBuffer();
+            int[] endpoints = new int[numEndpoints];
+            values.get(endpoints);
+            if (!Arrays.equals(endpoints, sortedEndpoints)) {
+                throw new IllegalStateException("endpoints do not match");
+            }
+            int[] pairFirstPath = new int[numEndpoints * numEndpoints + 1];
+            values.get(pairFirstPath);
+            int[] pathOffset = new int[numPaths + 1];
+            values.get(pathOffset);
+            int[] hops = new int[numHops];
+            values.get(hops);
+            return new KShortestPathTable(numNodes, k, endpoints, pairFirstPath, pathOffset, hops);
+        }
+    }
+
+    /**
+     * Write an entry (atomically replacing any existing one).
+     *
+     * @param entry     Entry file
+     * @param table     K-shortest path table
+     */
+    private void write(File entry, KShortestPathTable table) throws IOException {
+        File temporary = File.createTempFile(entry.getName(), ".tmp", directory);
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE_BYTE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(table.getNumNodes()).putInt(table.getK())
+                    .putInt(table.getEndpoints().length).putInt(table.getPathOffset().length - 1)
+                    .putInt(table.getHops().length).flip();
+            writeFully(channel, buffer);
+            writeInts(channel, table.getEndpoints());
+            writeInts(channel, table.getPairFirstPath());
+            writeInts(channel, table.getPathOffset());
+            writeInts(channel, table.getHops());
+        }
+        try {
+            Files.move(temporary.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private static void writeInts(FileChannel channel, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * values.length);
+        buffer.asIntBuffer().put(values);
+        writeFully(channel, buffer);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
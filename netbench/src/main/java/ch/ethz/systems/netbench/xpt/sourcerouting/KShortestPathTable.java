@@ -0,0 +1,153 @@
+package ch.ethz.systems.netbench.xpt.sourcerouting;
+
+import java.util.Arrays;
+
+/**
+ * Compact table of the K-shortest paths between every ordered pair of endpoints.
+ * <p>
+ * All paths are stored back-to-back in a single array of node identifiers, indexed
+ * by an array of path offsets, which itself is indexed per endpoint pair. This is
+ * also exactly the layout of the {@link KShortestPathCache} entry file.
+ */
+public final class KShortestPathTable {
+
+    private final int numNodes;
+    private final int k;
+    private final int[] endpoints;
+    private final int[] endpointIndex;
+    private final int[] pairFirstPath;
+    private final int[] pathOffset;
+    private final int[] hops;
+
+    /**
+     * Create a table from its arrays.
+     *
+     * @param numNodes          Number of nodes in the graph
+     * @param k                 K in k-shortest paths
+     * @param endpoints         Sorted endpoint node identifiers (size E)
+     * @param pairFirstPath     Index of the first path of pair (a, b) at a * E + b (size E * E + 1)
+     * @param pathOffset        Offset of the first hop of every path (size number of paths + 1)
+     * @param hops              Node identifiers of all paths
+     */
+    KShortestPathTable(int numNodes, int k, int[] endpoints, int[] pairFirstPath, int[] pathOffset, int[] hops) {
+        this.numNodes = numNodes;
+        this.k = k;
+        this.endpoints = endpoints;
+        this.pairFirstPath = pairFirstPath;
+        this.pathOffset = pathOffset;
+        this.hops = hops;
+        this.endpointIndex = new int[numNodes];
+        Arrays.fill(endpointIndex, -1);
+        for (int i = 0; i < endpoints.length; i++) {
+            endpointIndex[endpoints[i]] = i;
+        }
+    }
+
+    /**
+     * Flatten the paths per endpoint pair into a table.
+     *
+     * @param numNodes      Number of nodes in the graph
+     * @param k             K in k-shortest paths
+     * @param endpoints     Sorted endpoint node identifiers
+     * @param paths         Paths from endpoint a to endpoint b at [a][b]
+     *
+     * @return Table
+     */
+    static KShortestPathTable of(int numNodes, int k, int[] endpoints, int[][][][] paths) {
+        int numEndpoints = endpoints.length;
+        int numPaths = 0;
+        int numHops = 0;
+        for (int[][][] fromEndpoint : paths) {
+            for (int[][] pair : fromEndpoint) {
+                numPaths += pair.length;
+                for (int[] path : pair) {
+                    numHops += path.length;
+                }
+            }
+        }
+        int[] pairFirstPath = new int[numEndpoints * numEndpoints + 1];
+        int[] pathOffset = new int[numPaths + 1];
+        int[] hops = new int[numHops];
+        int path = 0;
+        int hop = 0;
+        for (int a = 0; a < numEndpoints; a++) {
+            for (int b = 0; b < numEndpoints; b++) {
+                pairFirstPath[a * numEndpoints + b] = path;
+                for (int[] p : paths[a][b]) {
+                    pathOffset[path++] = hop;
+                    System.arraycopy(p, 0, hops, hop, p.length);
+                    hop += p.length;
+                }
+            }
+        }
+        pairFirstPath[numEndpoints * numEndpoints] = path;
+        pathOffset[numPaths] = hop;
+        return new KShortestPathTable(numNodes, k, endpoints, pairFirstPath, pathOffset, hops);
+    }
+
+    /**
+     * Retrieve the number of paths found from source to destination endpoint
+     * (less than K if there are no more loopless paths).
+     *
+     * @param src   Source endpoint node identifier
+     * @param dst   Destination endpoint node identifier
+     *
+     * @return Number of paths
+     */
+    public int getNumPaths(int src, int dst) {
+        int pair = pairIndex(src, dst);
+        return pairFirstPath[pair + 1] - pairFirstPath[pair];
+    }
+
+    /**
+     * Retrieve the i-th shortest path from source to destination endpoint.
+     *
+     * @param src   Source endpoint node identifier
+     * @param dst   Destination endpoint node identifier
+     * @param i     Rank of the path (0 is the shortest)
+     *
+     * @return Node identifiers from source to destination
+     */
+    public int[] getPath(int src, int dst, int i) {
+        int pair = pairIndex(src, dst);
+        int path = pairFirstPath[pair] + i;
+        if (i < 0 || path >= pairFirstPath[pair + 1]) {
+            throw new IndexOutOfBoundsException("Path " + i + " does not exist for " + src + " -> " + dst + ".");
+        }
+        return Arrays.copyOfRange(hops, pathOffset[path], pathOffset[path + 1]);
+    }
+
+    private int pairIndex(int src, int dst) {
+        int a = src >= 0 && src < numNodes ? endpointIndex[src] : -1;
+        int b = dst >= 0 && dst < numNodes ? endpointIndex[dst] : -1;
+        if (a == -1 || b == -1) {
+            throw new IllegalArgumentException("Pair " + src + " -> " + dst + " is not between endpoints.");
+        }
+        return a * endpoints.length + b;
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    int[] getEndpoints() {
+        return endpoints;
+    }
+
+    int[] getPairFirstPath() {
+        return pairFirstPath;
+    }
+
+    int[] getPathOffset() {
+        return pathOffset;
+    }
+
+    int[] getHops() {
+        return hops;
+    }
+
+}
@@ -1,16 +1,20 @@
 package ch.ethz.systems.netbench.xpt.sourcerouting;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.config.GraphDetails;
 import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
 import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.run.routing.RoutingPopulator;
 import ch.ethz.systems.netbench.core.utility.Constants;
+import ch.ethz.systems.netbench.ext.ecmp.AllPairsShortestPaths;
 import edu.asu.emit.algorithm.graph.Graph;
 import edu.asu.emit.algorithm.graph.Vertex;
 import edu.asu.emit.algorithm.graph.algorithms.YenTopKShortestPathsAlg;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
@@ -40,6 +44,10 @@ public class KShortestPathsSwitchRouting extends RoutingPopulator {
 
         // Create graph and prepare shortest path algorithm
         Graph graph = configuration.getGraph();
+        if (isParallelEngineSelected()) {
+            determineKspRoutingStateParallel(k, details, graph);
+            return;
+        }
         try {
             String fileName = getKspCacheFilename(details);
             File f = new File(fileName);
@@ -62,6 +70,66 @@ public class KShortestPathsSwitchRouting extends RoutingPopulator {
         }
     }
 
+    /**
+     * Check whether the parallel K-shortest paths engine is selected. It only supports
+     * hop count as edge weight (which is the graph weight of every edge).
+     *
+     * @return True iff the parallel engine is selected, false for the sequential Yen's algorithm
+     */
+    private boolean isParallelEngineSelected() {
+        String engine = configuration.getPropertyWithDefault(Constants.KShortestPaths.K_SHORTEST_PATHS_ENGINE, Constants.KShortestPaths.ENGINE_YEN);
+        if (engine.equals(Constants.KShortestPaths.ENGINE_YEN)) {
+            return false;
+        } else if (!engine.equals(Constants.KShortestPaths.ENGINE_PARALLEL)) {
+            throw new PropertyValueInvalidException(configuration, Constants.KShortestPaths.K_SHORTEST_PATHS_ENGINE);
+        }
+        String weightRule = configuration.getProperty("graph_edge_weight_rule");
+        if (weightRule != null && !weightRule.equals("graph_weight")) {
+            throw new PropertyValueInvalidException(configuration, "graph_edge_weight_rule");
+        }
+        return true;
+    }
+
+    /**
+     * Determine the K-shortest paths between the ToRs using the parallel engine, which
+     * stores its result in the binary paths cache (in the routing cache directory if set).
+     * The table is shared by all runs on the same (shared) graph.
+     *
+     * @param k       K in k-shortest paths
+     * @param details Graph details
+     * @param graph   Graph
+     */
+    private void determineKspRoutingStateParallel(int k, GraphDetails details, Graph graph) {
+        System.out.print("Determining KSP-" + k + " routing state (parallel engine)...");
+        Set<Integer> torNodes = details.getTorNodeIds();
+        int[] endpoints = torNodes.stream().mapToInt(Integer::intValue).toArray();
+        String cacheDirectory = configuration.getPropertyWithDefault(Constants.NetworkDeviceRouting.ROUTING_CACHE_DIR, PATHS_CACHE_DIRECTORY);
+        KShortestPathTable table = RunContext.current().share(
+                Arrays.asList(KShortestPathTable.class, graph, k),
+                () -> new KShortestPathCache(cacheDirectory).getOrCalculate(AllPairsShortestPaths.adjacencyOf(graph), endpoints, k)
+        );
+
+        // Install the paths in the same order as the sequential engine
+        for (Integer i : torNodes) {
+            for (Integer j : torNodes) {
+                if (!i.equals(j)) {
+                    int found = Math.min(k, table.getNumPaths(i, j));
+                    for (int p = 0; p < found; p++) {
+                        SourceRoutingPath path = new SourceRoutingPath();
+                        for (int v : table.getPath(i, j, p)) {
+                            path.add(v);
+                        }
+                        ((SourceRoutingSwitch) idToNetworkDevice.get(i)).addPathToDestination(j, path);
+                    }
+                    if (found != k) {
+                        System.out.println("WARNING: could only find " + found + " paths for " + i + " -> " + j + ", which is less than k=" + k + ".");
+                    }
+                }
+            }
+        }
+        System.out.println(" done.");
+    }
+
     /**
      * Determine the K-shortest paths between the ToRs with a cache present by reading from file.
      *
@@ -0,0 +1,264 @@
+package ch.ethz.systems.netbench.xpt.sourcerouting;
+
+import ch.ethz.systems.netbench.core.RunContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Yen's K-shortest (loopless) paths between every pair of endpoints of an unweighted
+ * directed graph, calculated in parallel.
+ * <p>
+ * The sources are divided over the fork-join pool of the run. The graph itself is only read:
+ * every worker has its own view of it (the vertices and edges removed during a spur
+ * search are kept in arrays owned by the worker), such that no worker ever has to
+ * delete and recover edges of a shared graph. Spur paths are found by breadth-first
+ * search over the sorted adjacency, and paths of equal length are ranked by their
+ * sequence of node identifiers, which makes the result independent of the number of
+ * threads and of the order in which the graph lists its edges.
+ * <p>
+ * Selected using following property:
+ * k_shortest_paths_engine=parallel
+ */
+public final class ParallelKShortestPaths {
+
+    // Number of sources below which a task is no longer split
+    private static final int SOURCES_PER_TASK = 2;
+
+    private ParallelKShortestPaths() {
+        // Cannot be instantiated
+    }
+
+    /**
+     * Calculate the K-shortest paths between every ordered pair of distinct endpoints.
+     *
+     * @param adjacency     Outgoing neighbor identifiers of every node
+     * @param endpoints     Endpoint node identifiers (e.g. the ToRs)
+     * @param k             K in k-shortest paths
+     *
+     * @return Table of the (at most) K shortest paths of every endpoint pair
+     */
+    public static KShortestPathTable calculate(int[][] adjacency, int[] endpoints, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("K must be at least 1, but is " + k + ".");
+        }
+        int[][] sortedAdjacency = new int[adjacency.length][];
+        for (int i = 0; i < adjacency.length; i++) {
+            sortedAdjacency[i] = adjacency[i].clone();
+            Arrays.sort(sortedAdjacency[i]);
+        }
+        int[] sortedEndpoints = endpoints.clone();
+        Arrays.sort(sortedEndpoints);
+        int[][][][] paths = new int[sortedEndpoints.length][][][];
+        RunContext.current().getForkJoinPool().invoke(new SourceTask(sortedAdjacency, sortedEndpoints, k, paths, 0, sortedEndpoints.length));
+        return KShortestPathTable.of(adjacency.length, k, sortedEndpoints, paths);
+    }
+
+    /**
+     * Calculation of the paths from a range of sources.
+     */
+    private static class SourceTask extends RecursiveAction {
+
+        private final int[][] adjacency;
+        private final int[] endpoints;
+        private final int k;
+        private final int[][][][] paths;
+        private final int from;
+        private final int to;
+
+        SourceTask(int[][] adjacency, int[] endpoints, int k, int[][][][] paths, int from, int to) {
+            this.adjacency = adjacency;
+            this.endpoints = endpoints;
+            this.k = k;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new SourceTask(adjacency, endpoints, k, paths, from, middle),
+                        new SourceTask(adjacency, endpoints, k, paths, middle, to)
+                );
+                return;
+            }
+            GraphView view = new GraphView(adjacency);
+            for (int a = from; a < to; a++) {
+                paths[a] = new int[endpoints.length][][];
+                for (int b = 0; b < endpoints.length; b++) {
+                    paths[a][b] = a == b ? new int[0][] : view.yen(endpoints[a], endpoints[b], k);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * View of the graph owned by a single worker.
+     */
+    static class GraphView {
+
+        private final int[][] adjacency;
+        private final boolean[] removedNode;
+        private final boolean[] blockedNext;
+        private final int[] parent;
+        private final int[] visitedMark;
+        private final int[] queue;
+        private int mark;
+
+        GraphView(int[][] adjacency) {
+            this.adjacency = adjacency;
+            this.removedNode = new boolean[adjacency.length];
+            this.blockedNext = new boolean[adjacency.length];
+            this.parent = new int[adjacency.length];
+            this.visitedMark = new int[adjacency.length];
+            this.queue = new int[adjacency.length];
+            this.mark = 0;
+        }
+
+        /**
+         * Yen's algorithm (with Lawler's modification: a path is only deviated from at or
+         * after the position at which it itself deviated from its parent path).
+         *
+         * @param src   Source node identifier
+         * @param dst   Destination node identifier
+         * @param k     K in k-shortest paths
+         *
+         * @return Up to K shortest paths, each an array of node identifiers from source to destination
+         */
+        int[][] yen(int src, int dst, int k) {
+            List<int[]> accepted = new ArrayList<>();
+            int[] first = shortestPath(src, dst);
+            if (first == null) {
+                return new int[0][];
+            }
+
+            // Candidates ranked by length and then node sequence, mapped to their deviation index
+            TreeMap<int[], Integer> candidates = new TreeMap<>(ParallelKShortestPaths::compare);
+            int[] previous = first;
+            int deviation = 0;
+            while (true) {
+                accepted.add(previous);
+                if (accepted.size() >= k) {
+                    break;
+                }
+                for (int i = deviation; i < previous.length - 1; i++) {
+                    int spur = previous[i];
+
+                    // Block the next hop of every accepted path which shares the root
+                    for (int[] path : accepted) {
+                        if (path.length > i + 1 && samePrefix(path, previous, i + 1)) {
+                            blockedNext[path[i + 1]] = true;
+                        }
+                    }
+                    for (int j = 0; j < i; j++) {
+                        removedNode[previous[j]] = true;
+                    }
+
+                    int[] spurPath = shortestPath(spur, dst);
+                    if (spurPath != null) {
+                        int[] total = new int[i + spurPath.length];
+                        System.arraycopy(previous, 0, total, 0, i);
+                        System.arraycopy(spurPath, 0, total, i, spurPath.length);
+                        candidates.putIfAbsent(total, i);
+                    }
+
+                    // Restore the view
+                    for (int[] path : accepted) {
+                        if (path.length > i + 1) {
+                            blockedNext[path[i + 1]] = false;
+                        }
+                    }
+                    for (int j = 0; j < i; j++) {
+                        removedNode[previous[j]] = false;
+                    }
+
+                }
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                Map.Entry<int[], Integer> best = candidates.pollFirstEntry();
+                previous = best.getKey();
+                deviation = best.getValue();
+            }
+            return accepted.toArray(new int[0][]);
+        }
+
+        /**
+         * Breadth-first search for a shortest path, excluding removed nodes and,
+         * from the source, the blocked next hops.
+         *
+         * @param src   Source node identifier
+         * @param dst   Destination node identifier
+         *
+         * @return Shortest path (first discovered in adjacency order), null if there is none
+         */
+        private int[] shortestPath(int src, int dst) {
+            mark++;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = src;
+            visitedMark[src] = mark;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int neighbor : adjacency[node]) {
+                    if (visitedMark[neighbor] == mark || removedNode[neighbor] || (node == src && blockedNext[neighbor])) {
+                        continue;
+                    }
+                    visitedMark[neighbor] = mark;
+                    parent[neighbor] = node;
+                    if (neighbor == dst) {
+                        return trace(src, dst);
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+            return null;
+        }
+
+        private int[] trace(int src, int dst) {
+            int length = 1;
+            for (int node = dst; node != src; node = parent[node]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int node = dst, i = length - 1; i >= 0; node = parent[node], i--) {
+                path[i] = node;
+            }
+            return path;
+        }
+
+    }
+
+    private static boolean samePrefix(int[] a, int[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rank paths by their number of hops, and then lexicographically by their node identifiers.
+     */
+    static int compare(int[] a, int[] b) {
+        if (a.length != b.length) {
+            return Integer.compare(a.length, b.length);
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+}
@@ -2,18 +2,21 @@ package ch.ethz.systems.netbench.xpt.sourcerouting;
 
 
 
+import ch.ethz.systems.netbench.core.RunContext;
 import edu.asu.emit.algorithm.graph.Path;
 import edu.asu.emit.algorithm.graph.Vertex;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 
 public class SourceRoutingPath extends Path {
 	SourceRoutingSwitch source;
-	private static int classCounter = 0;
+	private static final RunContext.Slot<AtomicInteger> classCounter = RunContext.slot(AtomicInteger::new);
 	private long id;
 	public SourceRoutingPath(long id) {
 		super(0);
 		this.id = id;
-		classCounter++;
+		RunContext.current().get(classCounter).incrementAndGet();
 		// TODO Auto-generated constructor stub
 	}
     // No adaptations needed, it is only created for
@@ -23,7 +26,7 @@ public class SourceRoutingPath extends Path {
 		super(p.getVertexList(),0);
 		this.source = source;
 		this.id = id;
-		classCounter++;
+		RunContext.current().get(classCounter).incrementAndGet();
 		// TODO Auto-generated constructor stub
 	}
 	
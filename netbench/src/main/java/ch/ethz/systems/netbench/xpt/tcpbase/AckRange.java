@@ -13,11 +13,11 @@ public class AckRange {
         this.highBound = highBound;
     }
 
-    long getLowBound() {
+    public long getLowBound() {
         return lowBound;
     }
 
-    long getHighBound() {
+    public long getHighBound() {
         return highBound;
     }
 
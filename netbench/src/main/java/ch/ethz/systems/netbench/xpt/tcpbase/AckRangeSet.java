@@ -1,29 +1,35 @@
 package ch.ethz.systems.netbench.xpt.tcpbase;
 
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 public class AckRangeSet {
 
-    // Mappings to ranges
-    private Map<Long, AckRange> lowBoundToRange;
-    private Map<Long, AckRange> highBoundToRange;
-    private Collection<AckRange> ranges;
+    private static final int INITIAL_CAPACITY = 4;
+
+    // Disjoint ranges [lowBounds[i], highBounds[i]) sorted by low bound,
+    // ranges which touch or overlap are always merged
+    private long[] lowBounds;
+    private long[] highBounds;
+    private int numRanges;
 
-    // Caching of the range set which is passed along to
+    // Caching of the range objects which are passed along to
     // the packets with SACK Options
     private boolean cacheIsInvalid;
-    private Collection<AckRange> cacheRanges;
+    private AckRange[] cacheRanges;
 
     /**
      * Construct empty acknowledgment range set.
      */
     public AckRangeSet() {
-        lowBoundToRange = new HashMap<>();
-        highBoundToRange = new HashMap<>();
-        ranges = lowBoundToRange.values();
+        this.lowBounds = new long[INITIAL_CAPACITY];
+        this.highBounds = new long[INITIAL_CAPACITY];
+        this.numRanges = 0;
         this.cacheIsInvalid = true;
         this.cacheRanges = null;
     }
@@ -38,11 +44,10 @@ public class AckRangeSet {
      * @return Correct next number desired to receive, potentially advanced by a range
      */
     public long determineReceiveNextNumber(long receiveNextNumber) {
-        AckRange rangeFound = lowBoundToRange.get(receiveNextNumber);
-        if (rangeFound != null) {
-            lowBoundToRange.remove(receiveNextNumber);
-            receiveNextNumber = rangeFound.highBound;
-            highBoundToRange.remove(rangeFound.highBound);
+        int i = Arrays.binarySearch(lowBounds, 0, numRanges, receiveNextNumber);
+        if (i >= 0) {
+            receiveNextNumber = highBounds[i];
+            remove(i, i + 1);
             cacheIsInvalid = true;
         }
         return receiveNextNumber;
@@ -57,32 +62,31 @@ public class AckRangeSet {
     public void add(long seqNumber, long ackNumber) {
         assert(seqNumber >= 0L && ackNumber >= 0L);
 
-        // If it is already acknowledged, ignore it (could be improved to an interval tree)
-        for (AckRange range : ranges) {
-            if (seqNumber >= range.lowBound && ackNumber <= range.highBound) {
-                return;
-            }
-        }
+        // First range which ends at or after the sequence number (it touches or lies above it)
+        int first = firstEndingAtOrAfter(seqNumber);
 
-        // Create range
-        AckRange range = new AckRange(seqNumber, ackNumber);
-
-        // Merge with a range above it if they touch
-        AckRange aboveRange = lowBoundToRange.get(ackNumber);
-        if (aboveRange != null) {
-            range = merge(range, aboveRange);
+        // If it is already acknowledged, ignore it
+        if (first < numRanges && lowBounds[first] <= seqNumber && ackNumber <= highBounds[first]) {
+            return;
         }
 
-        // Merge with a range below it if they touch
-        AckRange belowRange = highBoundToRange.get(seqNumber);
-        if (belowRange != null) {
-            range = merge(belowRange, range);
+        // All ranges from the first which start at or before the acknowledgment number are merged into it
+        int last = first;
+        long low = seqNumber;
+        long high = ackNumber;
+        while (last < numRanges && lowBounds[last] <= ackNumber) {
+            low = Math.min(low, lowBounds[last]);
+            high = Math.max(high, highBounds[last]);
+            last++;
         }
 
-        // Register if it did not find in either range
-        if (aboveRange == null && belowRange == null) {
-            lowBoundToRange.put(seqNumber, range);
-            highBoundToRange.put(ackNumber, range);
+        // Replace the merged ranges by the new range
+        if (last > first) {
+            lowBounds[first] = low;
+            highBounds[first] = high;
+            remove(first + 1, last);
+        } else {
+            insert(first, low, high);
         }
 
         // Either a range is added or merged, so it is now invalid
@@ -91,29 +95,71 @@ public class AckRangeSet {
     }
 
     /**
-     * Merge two ranges into each other in which range A is
-     * below range B and touches it. E.g.:
+     * Binary search for the first range of which the high bound is at or above the sequence number.
      *
-     * A: [400, 500]
-     * B: [500, 700]
+     * @param seqNumber     Sequence number
      *
-     * @param rangeA    Below range
-     * @param rangeB    Above range
+     * @return Range index (number of ranges if there is none)
      */
-    private AckRange merge(AckRange rangeA, AckRange rangeB) {
+    private int firstEndingAtOrAfter(long seqNumber) {
+        int low = 0;
+        int high = numRanges;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (highBounds[middle] < seqNumber) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
 
-        // Remove ranges
-        lowBoundToRange.remove(rangeA.lowBound);
-        highBoundToRange.remove(rangeA.highBound);
-        lowBoundToRange.remove(rangeB.lowBound);
-        highBoundToRange.remove(rangeB.highBound);
+    /**
+     * Write the ranges to a checkpoint.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(numRanges);
+        for (int i = 0; i < numRanges; i++) {
+            out.writeLong(lowBounds[i]);
+            out.writeLong(highBounds[i]);
+        }
+    }
+
+    /**
+     * Restore the ranges written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        numRanges = in.readInt();
+        lowBounds = new long[Math.max(INITIAL_CAPACITY, numRanges)];
+        highBounds = new long[lowBounds.length];
+        for (int i = 0; i < numRanges; i++) {
+            lowBounds[i] = in.readLong();
+            highBounds[i] = in.readLong();
+        }
+        cacheIsInvalid = true;
+    }
 
-        // Instantiate new range
-        AckRange range = new AckRange(rangeA.lowBound, rangeB.highBound);
-        lowBoundToRange.put(range.lowBound, range);
-        highBoundToRange.put(range.highBound, range);
-        return range;
+    private void insert(int i, long low, long high) {
+        if (numRanges == lowBounds.length) {
+            lowBounds = Arrays.copyOf(lowBounds, numRanges * 2);
+            highBounds = Arrays.copyOf(highBounds, numRanges * 2);
+        }
+        System.arraycopy(lowBounds, i, lowBounds, i + 1, numRanges - i);
+        System.arraycopy(highBounds, i, highBounds, i + 1, numRanges - i);
+        lowBounds[i] = low;
+        highBounds[i] = high;
+        numRanges++;
+    }
 
+    private void remove(int from, int to) {
+        System.arraycopy(lowBounds, to, lowBounds, from, numRanges - to);
+        System.arraycopy(highBounds, to, highBounds, from, numRanges - to);
+        numRanges -= to - from;
     }
 
     /**
@@ -123,9 +169,13 @@ public class AckRangeSet {
      */
     public Collection<AckRange> createSelectiveAckData() {
         if (cacheIsInvalid) {
-            cacheRanges = new ArrayList<>(ranges);
+            cacheRanges = new AckRange[numRanges];
+            for (int i = 0; i < numRanges; i++) {
+                cacheRanges[i] = new AckRange(lowBounds[i], highBounds[i]);
+            }
+            cacheIsInvalid = false;
         }
-        return cacheRanges;
+        return new ArrayList<>(Arrays.asList(cacheRanges));
     }
 
     /**
@@ -134,12 +184,16 @@ public class AckRangeSet {
      * @return  Current ranges
      */
     Collection<AckRange> getRanges() {
+        Collection<AckRange> ranges = new ArrayList<>();
+        for (int i = 0; i < numRanges; i++) {
+            ranges.add(new AckRange(lowBounds[i], highBounds[i]));
+        }
         return ranges;
     }
 
     @Override
     public String toString() {
-        return ranges.toString();
+        return getRanges().toString();
     }
 
 }
@@ -1,12 +1,22 @@
 package ch.ethz.systems.netbench.xpt.tcpbase;
 
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.core.pool.ObjectPool;
+import ch.ethz.systems.netbench.core.pool.Pooling;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.ext.basic.TcpPacket;
 import ch.ethz.systems.netbench.xpt.megaswitch.Encapsulatable;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public class FullExtTcpPacket extends TcpPacket implements SelectiveAckHeader, EchoHeader, PriorityHeader {
 
+    private static final ObjectPool<Packet> POOL = Pooling.createPool("full_ext_tcp_packet");
+
     private long priority;
     private Collection<AckRange> selectiveAck;
     private long echoDepartureTime;
@@ -25,6 +35,75 @@ public class FullExtTcpPacket extends TcpPacket implements SelectiveAckHeader, E
 		this.echoFlowletId = fullExtTcpPacket.echoFlowletId;
 	}
 
+    /**
+     * Retrieve a packet with the given header, which is taken from the pool
+     * if pooling is enabled. The caller must adhere to the ownership rules
+     * of {@link Pooling}: once sent, the packet may no longer be referenced.
+     */
+    public static FullExtTcpPacket obtain(long flowId, long dataSizeByte, int sourceId, int destinationId, int TTL, int sourcePort, int destinationPort, long sequenceNumber, long acknowledgementNumber, boolean NS, boolean CWR, boolean ECE, boolean URG, boolean ACK, boolean PSH, boolean RST, boolean SYN, boolean FIN, double windowSize, long priority) {
+        if (!Pooling.isEnabled()) {
+            return new FullExtTcpPacket(flowId, dataSizeByte, sourceId, destinationId, TTL, sourcePort, destinationPort, sequenceNumber, acknowledgementNumber, NS, CWR, ECE, URG, ACK, PSH, RST, SYN, FIN, windowSize, priority);
+        }
+        FullExtTcpPacket packet = (FullExtTcpPacket) POOL.poll();
+        if (packet == null) {
+            packet = new FullExtTcpPacket(flowId, dataSizeByte, sourceId, destinationId, TTL, sourcePort, destinationPort, sequenceNumber, acknowledgementNumber, NS, CWR, ECE, URG, ACK, PSH, RST, SYN, FIN, windowSize, priority);
+        } else {
+            packet.reinitialize(flowId, dataSizeByte, sourceId, destinationId, TTL, sourcePort, destinationPort, sequenceNumber, acknowledgementNumber, NS, CWR, ECE, URG, ACK, PSH, RST, SYN, FIN, windowSize);
+            packet.priority = priority;
+            packet.selectiveAck = null;
+            packet.echoDepartureTime = 0;
+            packet.echoFlowletId = 0;
+        }
+        packet.setPool(POOL);
+        return packet;
+    }
+
+    /**
+     * Read a packet written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     *
+     * @return Packet instance (not pooled)
+     */
+    public static FullExtTcpPacket fromCheckpoint(CheckpointInput in) throws IOException {
+        FullExtTcpPacket packet = new FullExtTcpPacket(0, 0, 0, 0, 0, 0, 0, 0, 0, false, false, false, false, false, false, false, false, false, 0, 0);
+        packet.readCheckpoint(in);
+        return packet;
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(priority);
+        out.writeLong(echoDepartureTime);
+        out.writeInt(echoFlowletId);
+        out.writeInt(selectiveAck == null ? -1 : selectiveAck.size());
+        if (selectiveAck != null) {
+            for (AckRange range : selectiveAck) {
+                out.writeLong(range.getLowBound());
+                out.writeLong(range.getHighBound());
+            }
+        }
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        priority = in.readLong();
+        echoDepartureTime = in.readLong();
+        echoFlowletId = in.readInt();
+        int numRanges = in.readInt();
+        if (numRanges == -1) {
+            selectiveAck = null;
+        } else {
+            List<AckRange> ranges = new ArrayList<>(numRanges);
+            for (int i = 0; i < numRanges; i++) {
+                ranges.add(new AckRange(in.readLong(), in.readLong()));
+            }
+            selectiveAck = ranges;
+        }
+    }
+
 	@Override
     public TcpPacket setEchoDepartureTime(long echoDepartureTime) {
         this.echoDepartureTime = echoDepartureTime;
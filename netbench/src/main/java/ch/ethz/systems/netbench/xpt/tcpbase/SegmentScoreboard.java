@@ -0,0 +1,317 @@
+package ch.ethz.systems.netbench.xpt.tcpbase;
+
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+/**
+ * Sender-side scoreboard of the segments of a flow.
+ * <p>
+ * Every segment is either sent out but not yet acknowledged (outstanding), acknowledged
+ * but not yet consumed by the window (acknowledged), or neither. The segments all have
+ * the same size except possibly the last one, such that a segment is identified by its
+ * index, and its state is kept in two bitmaps. The bitmaps are a ring which starts at
+ * the first segment not yet consumed, and which grows only if more segments than it
+ * can hold are in flight. Acknowledgments confirm outstanding segments by scanning
+ * the bitmap words of the acknowledged interval, instead of testing every outstanding
+ * segment against it.
+ */
+public class SegmentScoreboard {
+
+    private static final int INITIAL_NUM_WORDS = 2;
+
+    private final long firstSeqNumber;
+    private final long segmentSize;
+    private final long endSeqNumber;
+
+    // Ring of bitmaps, bit (index & mask) of segment index in [baseIndex, baseIndex + capacity)
+    private long[] outstanding;
+    private long[] acknowledged;
+    private long baseIndex;
+    private int mask;
+
+    // Number of segments in each state
+    private int numOutstanding;
+    private int numAcknowledged;
+
+    /**
+     * Construct an empty scoreboard.
+     *
+     * @param firstSeqNumber    Sequence number of the first byte of the first segment
+     * @param segmentSize       Size of every segment (byte), except possibly the last
+     * @param endSeqNumber      Sequence number after the last byte of the last segment
+     */
+    public SegmentScoreboard(long firstSeqNumber, long segmentSize, long endSeqNumber) {
+        assert(segmentSize > 0);
+        this.firstSeqNumber = firstSeqNumber;
+        this.segmentSize = segmentSize;
+        this.endSeqNumber = endSeqNumber;
+        this.outstanding = new long[INITIAL_NUM_WORDS];
+        this.acknowledged = new long[INITIAL_NUM_WORDS];
+        this.baseIndex = 0;
+        this.mask = INITIAL_NUM_WORDS * 64 - 1;
+        this.numOutstanding = 0;
+        this.numAcknowledged = 0;
+    }
+
+    /**
+     * Register that the segment starting at the sequence number has been sent out (again).
+     *
+     * @param seq   Sequence number of the start of the segment
+     */
+    public void markSent(long seq) {
+        long index = indexOf(seq);
+        assert(index >= baseIndex && !isSet(acknowledged, index));
+        ensureCapacity(index);
+        if (!isSet(outstanding, index)) {
+            set(outstanding, index);
+            numOutstanding++;
+        }
+    }
+
+    /**
+     * Confirm an outstanding segment: it is now acknowledged.
+     *
+     * @param seq   Sequence number of the start of the segment
+     *
+     * @return True iff the segment was outstanding
+     */
+    public boolean confirm(long seq) {
+        long index = indexOf(seq);
+        if (!isInWindow(index) || !isSet(outstanding, index)) {
+            return false;
+        }
+        confirmIndex(index);
+        return true;
+    }
+
+    /**
+     * Confirm all outstanding segments which lie entirely below the cumulative acknowledgment number.
+     *
+     * @param ack           Acknowledgment number (sequence number of the first byte not received)
+     * @param onConfirm     Called with the sequence number of every confirmed segment (in order), may be null
+     *
+     * @return Number of segments confirmed
+     */
+    public int confirmBelow(long ack, LongConsumer onConfirm) {
+        return confirmWithin(firstSeqNumber, ack, onConfirm);
+    }
+
+    /**
+     * Confirm all outstanding segments which lie entirely within [low, high), e.g. a selective acknowledgment range.
+     *
+     * @param low           Lowest acknowledged sequence number (inclusive)
+     * @param high          Highest acknowledged sequence number (exclusive)
+     * @param onConfirm     Called with the sequence number of every confirmed segment (in order), may be null
+     *
+     * @return Number of segments confirmed
+     */
+    public int confirmWithin(long low, long high, LongConsumer onConfirm) {
+        if (numOutstanding == 0) {
+            return 0;
+        }
+
+        // Segments starting at or after the low bound...
+        long from = Math.max(baseIndex, ceilDiv(Math.max(low, firstSeqNumber) - firstSeqNumber, segmentSize));
+
+        // ... and ending at or before the high bound (the last segment ends at the end sequence number)
+        long to;
+        if (high >= endSeqNumber) {
+            to = ceilDiv(endSeqNumber - firstSeqNumber, segmentSize);
+        } else if (high < firstSeqNumber) {
+            to = 0;
+        } else {
+            to = (high - firstSeqNumber) / segmentSize;
+        }
+        to = Math.min(to, baseIndex + mask + 1);
+
+        // Walk over the set bits of the outstanding words
+        int confirmed = 0;
+        long index = from;
+        while (index < to) {
+            int word = (int) ((index & mask) >>> 6);
+            long bits = outstanding[word] >>> (index & 63);
+            if (bits == 0) {
+                index = (index | 63) + 1;
+                continue;
+            }
+            index += Long.numberOfTrailingZeros(bits);
+            if (index >= to) {
+                break;
+            }
+            confirmIndex(index);
+            confirmed++;
+            if (onConfirm != null) {
+                onConfirm.accept(seqOf(index));
+            }
+            index++;
+        }
+        return confirmed;
+
+    }
+
+    /**
+     * Check whether the segment starting at the sequence number is acknowledged (and not yet consumed).
+     *
+     * @param seq   Sequence number of the start of the segment
+     *
+     * @return True iff it is acknowledged
+     */
+    public boolean isAcknowledged(long seq) {
+        long index = indexOf(seq);
+        return isInWindow(index) && isSet(acknowledged, index);
+    }
+
+    /**
+     * Consume the segment starting at the sequence number if it is acknowledged,
+     * such that the window can move past it.
+     *
+     * @param seq   Sequence number of the start of the segment
+     *
+     * @return True iff it was acknowledged
+     */
+    public boolean pollAcknowledged(long seq) {
+        long index = indexOf(seq);
+        if (!isInWindow(index) || !isSet(acknowledged, index)) {
+            return false;
+        }
+        clear(acknowledged, index);
+        numAcknowledged--;
+
+        // Move the start of the ring past the consumed segments
+        if (index == baseIndex) {
+            baseIndex++;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether no segment is outstanding or acknowledged but not consumed.
+     *
+     * @return True iff empty
+     */
+    public boolean isEmpty() {
+        return numOutstanding == 0 && numAcknowledged == 0;
+    }
+
+    public int getNumOutstanding() {
+        return numOutstanding;
+    }
+
+    public int getNumAcknowledged() {
+        return numAcknowledged;
+    }
+
+    /**
+     * Write the segment states to a checkpoint. The segment boundaries are
+     * not written, they are given to the constructor of the restored scoreboard.
+     *
+     * @param out   Checkpoint output
+     */
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(baseIndex);
+        out.writeInt(outstanding.length);
+        for (int i = 0; i < outstanding.length; i++) {
+            out.writeLong(outstanding[i]);
+            out.writeLong(acknowledged[i]);
+        }
+        out.writeInt(numOutstanding);
+        out.writeInt(numAcknowledged);
+    }
+
+    /**
+     * Restore the segment states written by {@link #writeCheckpoint(CheckpointOutput)}.
+     *
+     * @param in    Checkpoint input
+     */
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        baseIndex = in.readLong();
+        int numWords = in.readInt();
+        outstanding = new long[numWords];
+        acknowledged = new long[numWords];
+        for (int i = 0; i < numWords; i++) {
+            outstanding[i] = in.readLong();
+            acknowledged[i] = in.readLong();
+        }
+        mask = numWords * 64 - 1;
+        numOutstanding = in.readInt();
+        numAcknowledged = in.readInt();
+    }
+
+    private void confirmIndex(long index) {
+        clear(outstanding, index);
+        numOutstanding--;
+        set(acknowledged, index);
+        numAcknowledged++;
+    }
+
+    private long indexOf(long seq) {
+        long offset = seq - firstSeqNumber;
+        assert(offset < 0 || offset % segmentSize == 0);
+        return offset < 0 ? -1 : offset / segmentSize;
+    }
+
+    private long seqOf(long index) {
+        return firstSeqNumber + index * segmentSize;
+    }
+
+    private boolean isInWindow(long index) {
+        return index >= baseIndex && index - baseIndex <= mask;
+    }
+
+    /**
+     * Grow the ring until the segment index fits in it, keeping every segment at the same bit.
+     *
+     * @param index     Segment index
+     */
+    private void ensureCapacity(long index) {
+        if (index - baseIndex <= mask) {
+            return;
+        }
+        int capacity = mask + 1;
+        int newCapacity = capacity;
+        while (index - baseIndex >= newCapacity) {
+            newCapacity <<= 1;
+        }
+        long[] newOutstanding = new long[newCapacity >>> 6];
+        long[] newAcknowledged = new long[newCapacity >>> 6];
+        int newMask = newCapacity - 1;
+        for (long i = baseIndex; i < baseIndex + capacity; i++) {
+            int oldBit = (int) (i & mask);
+            int newBit = (int) (i & newMask);
+            newOutstanding[newBit >>> 6] |= ((outstanding[oldBit >>> 6] >>> oldBit) & 1L) << newBit;
+            newAcknowledged[newBit >>> 6] |= ((acknowledged[oldBit >>> 6] >>> oldBit) & 1L) << newBit;
+        }
+        outstanding = newOutstanding;
+        acknowledged = newAcknowledged;
+        mask = newMask;
+    }
+
+    private boolean isSet(long[] bitmap, long index) {
+        int bit = (int) (index & mask);
+        return (bitmap[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private void set(long[] bitmap, long index) {
+        int bit = (int) (index & mask);
+        bitmap[bit >>> 6] |= 1L << bit;
+    }
+
+    private void clear(long[] bitmap, long index) {
+        int bit = (int) (index & mask);
+        bitmap[bit >>> 6] &= ~(1L << bit);
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return a <= 0 ? 0 : (a + b - 1) / b;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentScoreboard(base=" + seqOf(baseIndex) + ", outstanding=" + numOutstanding
+                + ", acknowledged=" + numAcknowledged + ")";
+    }
+
+}
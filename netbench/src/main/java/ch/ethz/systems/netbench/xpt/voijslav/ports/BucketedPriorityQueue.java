@@ -0,0 +1,292 @@
+package ch.ethz.systems.netbench.xpt.voijslav.ports;
+
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.xpt.tcpbase.PriorityHeader;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Non-concurrent priority queue of packets carrying a {@link PriorityHeader}.
+ * <p>
+ * Packets are polled in order of increasing priority value, ties broken
+ * by increasing departure time and then by insertion order. The packets
+ * are spread over 64 buckets by the bit length of their priority, such that
+ * bucket k holds the priorities in [2^(k-1), 2^k), and bucket 0 those of at
+ * most zero. Every bucket is a ring of packets sorted from last to first,
+ * and a bit mask marks the non-empty buckets. Both the first packet and the
+ * last packet (the one of lowest priority, which a bounded port drops) are
+ * thus found and removed in constant time, whereas insertion searches and
+ * shifts only within its bucket. The priority of a packet must not change
+ * while it is in the queue.
+ */
+public class BucketedPriorityQueue extends AbstractQueue<Packet> {
+
+    private static final int NUM_BUCKETS = 64;
+    private static final int INITIAL_BUCKET_CAPACITY = 8;
+
+    private final Bucket[] buckets;
+    private long nonEmptyMask;
+    private int size;
+
+    /**
+     * Construct an empty queue.
+     */
+    public BucketedPriorityQueue() {
+        this.buckets = new Bucket[NUM_BUCKETS];
+        this.nonEmptyMask = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public boolean offer(Packet packet) {
+        long priority = ((PriorityHeader) packet).getPriority();
+        int b = bucketOf(priority);
+        Bucket bucket = buckets[b];
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets[b] = bucket;
+        }
+        bucket.insert(packet, priority, packet.getDepartureTime());
+        nonEmptyMask |= 1L << b;
+        size++;
+        return true;
+    }
+
+    @Override
+    public Packet poll() {
+        if (size == 0) {
+            return null;
+        }
+        int b = Long.numberOfTrailingZeros(nonEmptyMask);
+        Packet packet = buckets[b].pollLast();
+        removed(b);
+        return packet;
+    }
+
+    @Override
+    public Packet peek() {
+        if (size == 0) {
+            return null;
+        }
+        return buckets[Long.numberOfTrailingZeros(nonEmptyMask)].peekLast();
+    }
+
+    /**
+     * Remove the packet which would be polled last, i.e. the one
+     * with the lowest priority (highest priority value).
+     *
+     * @return Packet of lowest priority, or null if the queue is empty
+     */
+    public Packet pollLast() {
+        if (size == 0) {
+            return null;
+        }
+        int b = NUM_BUCKETS - 1 - Long.numberOfLeadingZeros(nonEmptyMask);
+        Packet packet = buckets[b].pollFirst();
+        removed(b);
+        return packet;
+    }
+
+    /**
+     * Retrieve the packet which would be polled last without removing it.
+     *
+     * @return Packet of lowest priority, or null if the queue is empty
+     */
+    public Packet peekLast() {
+        if (size == 0) {
+            return null;
+        }
+        return buckets[NUM_BUCKETS - 1 - Long.numberOfLeadingZeros(nonEmptyMask)].peekFirst();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        while (nonEmptyMask != 0) {
+            int b = Long.numberOfTrailingZeros(nonEmptyMask);
+            buckets[b].clear();
+            nonEmptyMask &= ~(1L << b);
+        }
+        size = 0;
+    }
+
+    /**
+     * Iterate over the packets in the order in which they would be polled.
+     * Removal through the iterator is not supported.
+     *
+     * @return Packet iterator
+     */
+    @Override
+    public Iterator<Packet> iterator() {
+        return new Iterator<Packet>() {
+
+            private long remainingMask = nonEmptyMask;
+            private Bucket bucket = null;
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                return index >= 0 || remainingMask != 0;
+            }
+
+            @Override
+            public Packet next() {
+                if (index < 0) {
+                    if (remainingMask == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    int b = Long.numberOfTrailingZeros(remainingMask);
+                    remainingMask &= ~(1L << b);
+                    bucket = buckets[b];
+                    index = bucket.size - 1;
+                }
+                return bucket.get(index--);
+            }
+
+        };
+    }
+
+    private void removed(int b) {
+        size--;
+        if (buckets[b].size == 0) {
+            nonEmptyMask &= ~(1L << b);
+        }
+    }
+
+    private static int bucketOf(long priority) {
+        return priority <= 0 ? 0 : NUM_BUCKETS - Long.numberOfLeadingZeros(priority);
+    }
+
+    /**
+     * Ring of packets sorted on decreasing (priority, departure time),
+     * with the sort keys kept alongside to avoid header look-ups.
+     */
+    private static class Bucket {
+
+        private Packet[] packets;
+        private long[] priorities;
+        private long[] departureTimes;
+        private int head;
+        private int size;
+
+        private Bucket() {
+            this.packets = new Packet[INITIAL_BUCKET_CAPACITY];
+            this.priorities = new long[INITIAL_BUCKET_CAPACITY];
+            this.departureTimes = new long[INITIAL_BUCKET_CAPACITY];
+            this.head = 0;
+            this.size = 0;
+        }
+
+        private int slot(int index) {
+            return (head + index) & (packets.length - 1);
+        }
+
+        private Packet get(int index) {
+            return packets[slot(index)];
+        }
+
+        /**
+         * Insert a packet after all packets with a larger key and before all
+         * with a smaller or equal key, such that equal keys are polled in
+         * insertion order.
+         */
+        private void insert(Packet packet, long priority, long departureTime) {
+            if (size == packets.length) {
+                grow();
+            }
+
+            // Binary search for the first index with a key at most the packet's
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int s = slot(mid);
+                if (priorities[s] > priority || (priorities[s] == priority && departureTimes[s] > departureTime)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            // Shift the shorter side to make room at the index
+            if (low < size - low) {
+                head = (head - 1) & (packets.length - 1);
+                for (int i = 0; i < low; i++) {
+                    move(slot(i + 1), slot(i));
+                }
+            } else {
+                for (int i = size; i > low; i--) {
+                    move(slot(i - 1), slot(i));
+                }
+            }
+            int s = slot(low);
+            packets[s] = packet;
+            priorities[s] = priority;
+            departureTimes[s] = departureTime;
+            size++;
+        }
+
+        private void move(int from, int to) {
+            packets[to] = packets[from];
+            priorities[to] = priorities[from];
+            departureTimes[to] = departureTimes[from];
+        }
+
+        private Packet peekFirst() {
+            return packets[head];
+        }
+
+        private Packet peekLast() {
+            return packets[slot(size - 1)];
+        }
+
+        private Packet pollFirst() {
+            Packet packet = packets[head];
+            packets[head] = null;
+            head = (head + 1) & (packets.length - 1);
+            size--;
+            return packet;
+        }
+
+        private Packet pollLast() {
+            int s = slot(size - 1);
+            Packet packet = packets[s];
+            packets[s] = null;
+            size--;
+            return packet;
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                packets[slot(i)] = null;
+            }
+            head = 0;
+            size = 0;
+        }
+
+        private void grow() {
+            int capacity = packets.length * 2;
+            Packet[] newPackets = new Packet[capacity];
+            long[] newPriorities = new long[capacity];
+            long[] newDepartureTimes = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                int s = slot(i);
+                newPackets[i] = packets[s];
+                newPriorities[i] = priorities[s];
+                newDepartureTimes[i] = departureTimes[s];
+            }
+            packets = newPackets;
+            priorities = newPriorities;
+            departureTimes = newDepartureTimes;
+            head = 0;
+        }
+
+    }
+
+}
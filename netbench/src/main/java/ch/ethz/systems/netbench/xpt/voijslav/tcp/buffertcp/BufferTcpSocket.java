@@ -3,9 +3,13 @@ package ch.ethz.systems.netbench.xpt.voijslav.tcp.buffertcp;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 
+import java.io.IOException;
+
 
 public class BufferTcpSocket extends NewRenoTcpSocket {
 	
@@ -59,4 +63,18 @@ public class BufferTcpSocket extends NewRenoTcpSocket {
         );
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(realFlowSize);
+        out.writeLong(currentBufferSize);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        realFlowSize = in.readLong();
+        currentBufferSize = in.readLong();
+    }
+
 }
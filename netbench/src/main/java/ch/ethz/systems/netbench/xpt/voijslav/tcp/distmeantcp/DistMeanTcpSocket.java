@@ -2,10 +2,14 @@ package ch.ethz.systems.netbench.xpt.voijslav.tcp.distmeantcp;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 import ch.ethz.systems.netbench.xpt.voijslav.utility.FctDistributions;
 
+import java.io.IOException;
+
 public class DistMeanTcpSocket extends NewRenoTcpSocket {
 
 	private long predictedFlowSize;
@@ -49,4 +53,16 @@ public class DistMeanTcpSocket extends NewRenoTcpSocket {
         );
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(predictedFlowSize);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        predictedFlowSize = in.readLong();
+    }
+
 }
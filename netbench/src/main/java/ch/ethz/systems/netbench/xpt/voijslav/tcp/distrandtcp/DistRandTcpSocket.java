@@ -2,16 +2,20 @@ package ch.ethz.systems.netbench.xpt.voijslav.tcp.distrandtcp;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 import ch.ethz.systems.netbench.xpt.voijslav.utility.FctDistributions;
 
+import java.io.IOException;
+
 public class DistRandTcpSocket extends NewRenoTcpSocket {
 
 	private long predictedFlowSize;
 	
 	private int flowSizeDistribution(){
-		double outcome = FctDistributions.rnd.nextDouble();
+		double outcome = FctDistributions.getRandom().nextDouble();
 		return FctDistributions.flowSizeDistribution(outcome);
 	}
 	
@@ -54,4 +58,16 @@ public class DistRandTcpSocket extends NewRenoTcpSocket {
         );
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(predictedFlowSize);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        predictedFlowSize = in.readLong();
+    }
+
 }
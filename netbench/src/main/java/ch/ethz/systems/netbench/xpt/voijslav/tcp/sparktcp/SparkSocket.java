@@ -3,10 +3,14 @@ package ch.ethz.systems.netbench.xpt.voijslav.tcp.sparktcp;
 
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import ch.ethz.systems.netbench.xpt.newreno.newrenotcp.NewRenoTcpSocket;
 import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
 import ch.ethz.systems.netbench.xpt.voijslav.utility.FctDistributions;
 
+import java.io.IOException;
+
 
 public class SparkSocket extends NewRenoTcpSocket {
 	
@@ -27,7 +31,7 @@ public class SparkSocket extends NewRenoTcpSocket {
 		this.congestionWindow = this.slowStartThreshold;
 		
 		predictedFlowSize = (long)
-			(FctDistributions.sparkDistribution(FctDistributions.rnd.nextDouble(),configuration) * flowSizeByte);
+			(FctDistributions.sparkDistribution(FctDistributions.getRandom().nextDouble(),configuration) * flowSizeByte);
 	}
 
     @Override
@@ -52,4 +56,16 @@ public class SparkSocket extends NewRenoTcpSocket {
         );
     }
 
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(predictedFlowSize);
+    }
+
+    @Override
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        super.readCheckpoint(in);
+        predictedFlowSize = in.readLong();
+    }
+
 }
@@ -1,5 +1,6 @@
 package ch.ethz.systems.netbench.xpt.voijslav.utility;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.config.NBProperties;
 import ch.ethz.systems.netbench.core.utility.Constants;
 
@@ -12,10 +13,11 @@ import java.util.TreeMap;
 
 public class FctDistributions {
 
-    public static Random rnd;
+    // Random number generator of the run of the current thread
+    private static final RunContext.Slot<Random> rnd = RunContext.slot(() -> new Random(12345));
 
-    static {
-        rnd = new Random(12345);
+    public static Random getRandom() {
+        return RunContext.current().get(rnd);
     }
 
     //pfabric UpperDistribution
@@ -84,10 +86,11 @@ public class FctDistributions {
         return 987600;
     }
 
-    private static TreeMap<Double, Double> priorities = null;
+    private static final RunContext.Slot<TreeMap<Double, Double>> priorities = RunContext.slot();
 
     protected static void init(NBProperties configuration) {
-        priorities = new TreeMap<>();
+        TreeMap<Double, Double> distribution = new TreeMap<>();
+        RunContext.current().set(priorities, distribution);
         try {
             BufferedReader reader = new BufferedReader(new FileReader(
                     configuration.getPropertyOrFail(Constants.Spark.SPARK_ERROR_DISTRIBUTION)
@@ -98,7 +101,7 @@ public class FctDistributions {
                 String[] parsed = line.split(" ");
                 Double key = Double.parseDouble(parsed[1].trim());
                 Double value = Double.parseDouble(parsed[0].trim());
-                priorities.put(key, value);
+                distribution.put(key, value);
                 line = reader.readLine();
             }
         } catch (IOException e) {
@@ -107,16 +110,17 @@ public class FctDistributions {
     }
 
     public static double sparkDistribution(double random, NBProperties configuration) {
-        if (priorities == null) {
+        if (RunContext.current().get(priorities) == null) {
             init(configuration);
         }
+        TreeMap<Double, Double> distribution = RunContext.current().get(priorities);
         Entry<Double, Double> ent;
-        ent = priorities.ceilingEntry(random);
+        ent = distribution.ceilingEntry(random);
         if (ent == null) {
-            ent = priorities.floorEntry(random);
+            ent = distribution.floorEntry(random);
         }
         if (ent == null) {
-            ent = priorities.firstEntry();
+            ent = distribution.firstEntry();
         }
         return ent.getValue();
     }
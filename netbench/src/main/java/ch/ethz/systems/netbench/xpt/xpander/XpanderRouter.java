@@ -68,7 +68,7 @@ public class XpanderRouter extends RemoteRoutingController {
 
         mIdToNetworkDevice = idToNetworkDevice;
         // main graph should not be used for multiple wave lenghts
-        mMainGraph = configuration.getGraph();
+        mMainGraph = configuration.getGraphCopy();
         mMainGraph.resetCapcities(
                 configuration.getBooleanPropertyWithDefault(Constants.Xpander.SERVERS_INFINITE_CAPACITY, false),
                 idToNetworkDevice,
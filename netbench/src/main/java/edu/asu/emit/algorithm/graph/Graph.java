@@ -33,7 +33,6 @@ package edu.asu.emit.algorithm.graph;
 
 
 import ch.ethz.systems.netbench.core.Simulator;
-import ch.ethz.systems.netbench.core.log.SimulationLogger;
 import ch.ethz.systems.netbench.core.network.NetworkDevice;
 import ch.ethz.systems.netbench.core.utility.Constants;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -73,6 +72,9 @@ public class Graph implements BaseGraph, Serializable {
     // List of all vertices in the graph
     private final List<Vertex> vertexList;
 
+    // Whether the graph is shared by runs, and as such can no longer be modified
+    private boolean frozen;
+
 
     /**
      * Constructor to create a graph of a certain size with the given edges.
@@ -105,8 +107,6 @@ public class Graph implements BaseGraph, Serializable {
 
         }
 
-        SimulationLogger.logInfo("Graph", "Dummy Log");
-
     }
 
     /**
@@ -123,15 +123,29 @@ public class Graph implements BaseGraph, Serializable {
         this.inEdges = new HashMap<>();
         this.outEdges = new HashMap<>();
 
-        // Shallow copy other graph
+        // Shallow copy other graph (edge lists are copied, as edges can be added to the copy)
         this.vertexList.addAll(graph.vertexList);
         this.idVertexIndex.putAll(graph.idVertexIndex);
-        this.inEdges.putAll(graph.inEdges);
-        this.outEdges.putAll(graph.outEdges);
+        graph.inEdges.forEach((id, vertices) -> this.inEdges.put(id, new ArrayList<>(vertices)));
+        graph.outEdges.forEach((id, vertices) -> this.outEdges.put(id, new ArrayList<>(vertices)));
         this.edgeWeights.putAll(graph.edgeWeights);
         this.edgeCapacities.putAll(graph.edgeCapacities);
     }
 
+    /**
+     * Freeze the graph, such that it can be shared by concurrent runs:
+     * all subsequent modifications fail.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    private void verifyNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Graph: the graph is shared by runs and cannot be modified; modify a copy instead.");
+        }
+    }
+
     protected void verifyNewEdge(int startVertexId, int endVertexId, long weight) {
         // Check that the vertex identifiers exist
         if (!idVertexIndex.containsKey(startVertexId) || !idVertexIndex.containsKey(endVertexId) || startVertexId == endVertexId) {
@@ -149,6 +163,8 @@ public class Graph implements BaseGraph, Serializable {
     }
 
     protected void addVerifiedEdge(int startVertexId, int endVertexId, long weight) {
+        verifyNotFrozen();
+
         // Add to inward and outward edge list
         outEdges.get(startVertexId).add(idVertexIndex.get(endVertexId));
         inEdges.get(endVertexId).add(idVertexIndex.get(startVertexId));
@@ -222,7 +238,7 @@ public class Graph implements BaseGraph, Serializable {
      */
     @Override
     public List<Vertex> getVertexList() {
-        return vertexList;
+        return frozen ? Collections.unmodifiableList(vertexList) : vertexList;
     }
 
     /**
@@ -265,6 +281,7 @@ public class Graph implements BaseGraph, Serializable {
     }
 
     public void resetCapcities(boolean serverInfiniteCapacity, Map<Integer, NetworkDevice> idToNetworkDevice, int edge_capacity) {
+        verifyNotFrozen();
         edgeCapacities.replaceAll((k, v) -> initCapcity(k, serverInfiniteCapacity, idToNetworkDevice, edge_capacity));
 
 
@@ -285,15 +302,26 @@ public class Graph implements BaseGraph, Serializable {
     }
 
     public void increaseCapacity(ImmutablePair<Integer, Integer> immutablePair) {
+        verifyNotFrozen();
         edgeCapacities.replace(immutablePair, edgeCapacities.get(immutablePair) + 1);
 
     }
 
     public void decreaseCapacity(ImmutablePair<Integer, Integer> immutablePair) {
+        verifyNotFrozen();
         edgeCapacities.replace(immutablePair, edgeCapacities.get(immutablePair) - 1);
 
     }
 
+    /**
+     * Check whether any directed edge is present more than once.
+     *
+     * @return True iff the graph has duplicate edges
+     */
+    public boolean hasDuplicateEdges() {
+        return outEdges.values().stream().mapToInt(List::size).sum() > edgeWeights.size();
+    }
+
     public int getDuplicateEdgeNum(int v1, int v2) {
         List<Vertex> neighbours = outEdges.containsKey(v1) ? outEdges.get(v1) : new ArrayList<>();
         return neighbours.stream().filter(a -> a.getId() == v2).collect(Collectors.toList()).size();
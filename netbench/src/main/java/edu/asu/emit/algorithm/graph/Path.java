@@ -33,7 +33,9 @@ package edu.asu.emit.algorithm.graph;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
+import ch.ethz.systems.netbench.core.RunContext;
 import ch.ethz.systems.netbench.core.Simulator;
 
 /**
@@ -43,7 +45,8 @@ import ch.ethz.systems.netbench.core.Simulator;
  * @author snkas
  */
 public class Path implements BaseElementWithWeight, Serializable {
-	private static long pCounter = 0;
+	// Identifier counter of the run of the current thread
+	private static final RunContext.Slot<AtomicLong> pCounter = RunContext.slot(AtomicLong::new);
 	private long id;
 	// List of vertices in the path
 	protected final List<Vertex> vertexList;
@@ -66,7 +69,7 @@ public class Path implements BaseElementWithWeight, Serializable {
         this.vertexList = new Vector<>();
         this.weight = cost;
         this.mColor = -1;
-        this.id = ++pCounter;
+        this.id = RunContext.current().get(pCounter).incrementAndGet();
         this.issueTime = Simulator.getCurrentTime();
     }
 
@@ -86,7 +89,7 @@ public class Path implements BaseElementWithWeight, Serializable {
 		this.vertexList.addAll(vertexList);
 		this.weight = weight2;
 		this.mColor = -1;
-		this.id = ++pCounter;
+		this.id = RunContext.current().get(pCounter).incrementAndGet();
 		this.issueTime = Simulator.getCurrentTime();
 	}
 
@@ -101,7 +104,7 @@ public class Path implements BaseElementWithWeight, Serializable {
 
 	public Path(List<Integer> path, int color, long id) {
 		this(path,color);
-		pCounter--;
+		RunContext.current().get(pCounter).decrementAndGet();
 		this.id = id;
 	}
 
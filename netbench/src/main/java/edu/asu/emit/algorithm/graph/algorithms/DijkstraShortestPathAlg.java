@@ -54,8 +54,11 @@ public class DijkstraShortestPathAlg
 
 	// Intermediate variables
 	private Set<Vertex> determinedVertexSet = new HashSet<Vertex>();
-	private PriorityQueue<Vertex> vertexCandidateQueue = new PriorityQueue<Vertex>();
 	private Map<Vertex, Double> startVertexDistanceIndex = new HashMap<Vertex, Double>();
+	// Ordered by the distances of this search, as the vertices may be shared by concurrent runs
+	private PriorityQueue<Vertex> vertexCandidateQueue = new PriorityQueue<Vertex>(
+			(v1, v2) -> Double.compare(startVertexDistanceIndex.get(v1), startVertexDistanceIndex.get(v2))
+	);
 	protected Map<Vertex, Vertex> predecessorIndex = new HashMap<Vertex, Vertex>();
 	private double maxWeight;
 	private Random vertexShuffle;
@@ -137,7 +140,6 @@ public class DijkstraShortestPathAlg
 		Vertex endVertex = isSource2sink ? sinkVertex : sourceVertex;
 		Vertex startVertex = isSource2sink ? sourceVertex : sinkVertex;
 		startVertexDistanceIndex.put(startVertex, 0.0);
-		startVertex.setWeight(0.0);
 		vertexCandidateQueue.add(startVertex);
 
 		// 2. start searching for the shortest path
@@ -199,7 +201,6 @@ public class DijkstraShortestPathAlg
 				addToPredecessorIndex(curAdjacentVertex, vertex);
 				
 				
-				curAdjacentVertex.setWeight(distance);
 				vertexCandidateQueue.add(curAdjacentVertex);
 			}
 		}
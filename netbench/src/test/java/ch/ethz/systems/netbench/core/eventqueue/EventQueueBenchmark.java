@@ -0,0 +1,86 @@
+package ch.ethz.systems.netbench.core.eventqueue;
+
+import ch.ethz.systems.netbench.core.network.Event;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput (events/s) of the event queue implementations
+ * using the classic "hold" model: the queue is filled with a fixed amount
+ * of pending events, after which every step polls the earliest event and
+ * re-inserts it at a later time. Most increments are packet-scale (ns up
+ * to a few us) with a small fraction of far-future ones (e.g. time-outs),
+ * which resembles the event mix of a packet-level run.
+ * <p>
+ * Usage: EventQueueBenchmark [num_pending_events ...]
+ */
+public class EventQueueBenchmark {
+
+    private static final long HOLD_OPERATIONS = 5_000_000L;
+    private static final int REPETITIONS = 3;
+
+    private static class HoldEvent extends Event {
+
+        HoldEvent(long time) {
+            super(0);
+            this.time = time;
+        }
+
+        void setTime(long time) {
+            this.time = time;
+        }
+
+        @Override
+        public void trigger() {
+            // Nothing happens
+        }
+
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[]{1_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.println("queue,pending_events,events_per_s");
+        for (int size : sizes) {
+            for (int r = 0; r < REPETITIONS; r++) {
+                System.out.println("heap," + size + "," + (long) hold(new HeapEventQueue(), size));
+                System.out.println("ladder," + size + "," + (long) hold(new LadderEventQueue(), size));
+            }
+        }
+    }
+
+    private static long increment(Random random) {
+        if (random.nextInt(100) == 0) {
+            return 1_000_000 + random.nextInt(1_000_000);
+        }
+        return 1 + random.nextInt(12_000);
+    }
+
+    /**
+     * Perform the hold model on the queue.
+     *
+     * @param queue     Event queue
+     * @param size      Number of pending events
+     *
+     * @return Events per second
+     */
+    private static double hold(EventQueue queue, int size) {
+        Random random = new Random(1234);
+        for (int i = 0; i < size; i++) {
+            queue.add(new HoldEvent(increment(random)));
+        }
+
+        long start = System.nanoTime();
+        for (long i = 0; i < HOLD_OPERATIONS; i++) {
+            HoldEvent event = (HoldEvent) queue.poll();
+            event.setTime(event.getTime() + increment(random));
+            queue.add(event);
+        }
+        long elapsed = System.nanoTime() - start;
+        return HOLD_OPERATIONS / (elapsed / 1e9);
+    }
+
+}
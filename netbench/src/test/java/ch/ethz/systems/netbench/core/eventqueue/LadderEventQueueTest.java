@@ -0,0 +1,151 @@
+package ch.ethz.systems.netbench.core.eventqueue;
+
+import ch.ethz.systems.netbench.core.network.Event;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LadderEventQueueTest {
+
+    private static class TestEvent extends Event {
+
+        TestEvent(long time) {
+            super(0);
+            this.time = time;
+        }
+
+        @Override
+        public void trigger() {
+            // Nothing happens
+        }
+
+    }
+
+    @Test
+    public void testEmpty() {
+        LadderEventQueue queue = new LadderEventQueue();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        assertFalse(queue.remove(new TestEvent(10)));
+    }
+
+    @Test
+    public void testEqualTimeOrderedByCreation() {
+        LadderEventQueue queue = new LadderEventQueue();
+        Event e1 = new TestEvent(1000);
+        Event e2 = new TestEvent(1000);
+        Event e3 = new TestEvent(0);
+        Event e4 = new TestEvent(1000);
+        queue.add(e4);
+        queue.add(e2);
+        queue.add(e3);
+        queue.add(e1);
+        assertEquals(4, queue.size());
+        assertSame(e3, queue.peek());
+        assertSame(e3, queue.poll());
+        assertSame(e1, queue.poll());
+        assertSame(e2, queue.poll());
+        assertSame(e4, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testEventBeforeDrainedBucket() {
+        LadderEventQueue queue = new LadderEventQueue();
+        queue.add(new TestEvent(5000));
+        queue.add(new TestEvent(9000));
+        assertEquals(5000, queue.poll().getTime());
+        queue.add(new TestEvent(100));
+        assertEquals(100, queue.poll().getTime());
+        assertEquals(9000, queue.poll().getTime());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testCrowdedBuckets() {
+        Random random = new Random(77);
+        LadderEventQueue ladder = new LadderEventQueue();
+        PriorityQueue<Event> heap = new PriorityQueue<>();
+        for (int i = 0; i < 20000; i++) {
+            Event event = new TestEvent(i % 3 == 0 ? 500 : random.nextInt(100000));
+            ladder.add(event);
+            heap.add(event);
+        }
+        while (!heap.isEmpty()) {
+            assertSame(heap.poll(), ladder.poll());
+        }
+        assertTrue(ladder.isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        LadderEventQueue queue = new LadderEventQueue();
+        Event e1 = new TestEvent(10);
+        Event e2 = new TestEvent(20);
+        Event e3 = new TestEvent(20);
+        queue.add(e1);
+        queue.add(e2);
+        queue.add(e3);
+        assertTrue(queue.remove(e2));
+        assertFalse(queue.remove(e2));
+        assertEquals(2, queue.size());
+        assertSame(e1, queue.poll());
+        assertSame(e3, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testIdenticalToHeap() {
+        Random random = new Random(2318);
+        LadderEventQueue ladder = new LadderEventQueue();
+        PriorityQueue<Event> heap = new PriorityQueue<>();
+        List<Event> pending = new ArrayList<>();
+        long now = 0;
+
+        for (int i = 0; i < 200000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5 || heap.isEmpty()) {
+
+                // Mostly near-future events, some far-future and some at the same time
+                long delta;
+                int kind = random.nextInt(20);
+                if (kind == 0) {
+                    delta = 1000000 + random.nextInt(10000000);
+                } else if (kind < 4) {
+                    delta = 0;
+                } else {
+                    delta = random.nextInt(1200);
+                }
+                Event event = new TestEvent(now + delta);
+                ladder.add(event);
+                heap.add(event);
+                pending.add(event);
+
+            } else if (op < 9) {
+                assertSame(heap.peek(), ladder.peek());
+                Event event = heap.poll();
+                assertSame(event, ladder.poll());
+                now = event.getTime();
+
+            } else {
+                Event event = pending.get(random.nextInt(pending.size()));
+                assertEquals(heap.remove(event), ladder.remove(event));
+            }
+            assertEquals(heap.size(), ladder.size());
+        }
+
+        // Drain
+        while (!heap.isEmpty()) {
+            assertSame(heap.poll(), ladder.poll());
+        }
+        assertTrue(ladder.isEmpty());
+    }
+
+}
@@ -0,0 +1,127 @@
+package ch.ethz.systems.netbench.core.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BinaryLogConverterTest {
+
+    private File csvFolder;
+    private File binaryFolder;
+
+    @Before
+    public void setup() throws IOException {
+        csvFolder = Files.createTempDirectory("csv_logs").toFile();
+        binaryFolder = Files.createTempDirectory("binary_logs").toFile();
+    }
+
+    @After
+    public void cleanup() {
+        for (File folder : new File[]{csvFolder, binaryFolder}) {
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    assertTrue(f.delete());
+                }
+            }
+            assertTrue(folder.delete());
+        }
+    }
+
+    private RecordWriter[] openBoth(LogSchema schema) throws IOException {
+        return new RecordWriter[]{
+                new CsvRecordWriter(new BufferedWriter(new FileWriter(new File(csvFolder, schema.getName()))), schema, false),
+                new BinaryRecordWriter(new File(binaryFolder, schema.getBinaryName()).getPath(), schema)
+        };
+    }
+
+    private String read(File folder, String name) throws IOException {
+        return new String(Files.readAllBytes(new File(folder, name).toPath()));
+    }
+
+    @Test
+    public void testFlowInfoAndPortUtilization() throws IOException {
+        for (RecordWriter writer : openBoth(LogSchema.FLOW_INFO)) {
+            writer.putLong(0).putInt(1).putInt(2).putInt(3).putInt(4).putInt(-1).putInt(7)
+                    .putLong(55200).putLong(1000000000L).putLong(0).putLong(50000).putLong(50000)
+                    .putFlag(false).endRecord();
+            writer.putLong(Long.MAX_VALUE).putInt(Integer.MIN_VALUE).putInt(2).putInt(3).putInt(4).putInt(5).putInt(6)
+                    .putLong(100).putLong(100).putLong(10).putLong(20).putLong(10)
+                    .putFlag(true).endRecord();
+            writer.close();
+        }
+        for (RecordWriter writer : openBoth(LogSchema.PORT_UTILIZATION)) {
+            Random r = new Random(42);
+            for (int i = 0; i < 100; i++) {
+                writer.putInt(i).putInt(i + 1).putFlag(r.nextBoolean()).putLong(r.nextLong())
+                        .putDouble(r.nextDouble() * 100).endRecord();
+            }
+            writer.putInt(0).putInt(0).putFlag(true).putLong(0).putDouble(0.0 / 0.0).endRecord();
+            writer.close();
+        }
+
+        BinaryLogConverter.convertFolder(binaryFolder);
+        assertEquals(read(csvFolder, "flow_info.csv"), read(binaryFolder, "flow_info.csv"));
+        assertEquals(read(csvFolder, "port_utilization.csv"), read(binaryFolder, "port_utilization.csv"));
+        assertTrue(read(binaryFolder, "flow_info.csv").startsWith("0,1,2,3,4,-1,7,55200,1000000000,0,50000,50000,FALSE\n"));
+    }
+
+    @Test
+    public void testLargeLogWithHeader() throws IOException {
+        // Larger than the write buffer of the binary writer
+        for (RecordWriter writer : openBoth(LogSchema.PORT_QUEUE_LENGTH)) {
+            for (int i = 0; i < 100000; i++) {
+                writer.putLong(i % 17).putLong(i % 13).putInt(i % 100).putLong(i * 12000L).putLong(i * 1000L).endRecord();
+            }
+            writer.close();
+        }
+        File csvFile = BinaryLogConverter.convert(new File(binaryFolder, "port_queue_length.bin"));
+        assertEquals("port_queue_length.csv", csvFile.getName());
+        String expected = read(csvFolder, "port_queue_length.csv");
+        assertTrue(expected.startsWith("source_id,target_id,queue_length,buffer_occupied_bits,absolute_time\n0,0,0,0,0\n"));
+        assertEquals(expected, read(binaryFolder, "port_queue_length.csv"));
+    }
+
+    @Test
+    public void testIncompleteRecordSkipped() throws IOException {
+        RecordWriter writer = new BinaryRecordWriter(new File(binaryFolder, "flow_throughput.bin").getPath(), LogSchema.FLOW_THROUGHPUT);
+        writer.putLong(1).putInt(2).putInt(3).putLong(4).putLong(5).putLong(6).endRecord();
+        writer.close();
+        try (FileOutputStream out = new FileOutputStream(new File(binaryFolder, "flow_throughput.bin"), true)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        BinaryLogConverter.convertFolder(binaryFolder);
+        assertEquals("1,2,3,4,5,6\n", read(binaryFolder, "flow_throughput.csv"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongColumnType() {
+        RecordWriter writer = new BinaryRecordWriter(new File(binaryFolder, "flow_throughput.bin").getPath(), LogSchema.FLOW_THROUGHPUT);
+        try {
+            writer.putInt(1);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncompleteRecord() throws IOException {
+        RecordWriter writer = openBoth(LogSchema.FLOW_THROUGHPUT)[0];
+        try {
+            writer.putLong(1).putInt(2).endRecord();
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package ch.ethz.systems.netbench.core.pool;
+
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.utility.Constants;
+import ch.ethz.systems.netbench.xpt.tcpbase.AckRange;
+import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PoolingTest {
+
+    @After
+    public void cleanup() {
+        Pooling.reset();
+    }
+
+    private void enable() {
+        NBProperties configuration = mock(NBProperties.class);
+        when(configuration.getBooleanPropertyWithDefault(Constants.Simulation.PACKET_POOLING, false)).thenReturn(true);
+        Pooling.setup(configuration);
+        assertTrue(Pooling.isEnabled());
+    }
+
+    private static FullExtTcpPacket obtain(long flowId, long seq, boolean ACK) {
+        return FullExtTcpPacket.obtain(
+                flowId, 0, 1, 2, 100, 80, 80, seq, 0,
+                false, false, false, false, ACK, false, false, false, false, 10.0, 0
+        );
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        Pooling.setup(null);
+        assertFalse(Pooling.isEnabled());
+        FullExtTcpPacket first = obtain(1, 0, true);
+        first.release();
+        assertNotSame(first, obtain(1, 0, true));
+    }
+
+    @Test
+    public void testReuseResetsState() {
+        enable();
+        FullExtTcpPacket first = obtain(1, 100, true);
+        first.setSelectiveAck(Collections.<AckRange>emptyList());
+        first.setEchoDepartureTime(77);
+        first.setEchoFlowletId(3);
+        first.setFlowletId(4);
+        first.markCongestionEncountered();
+        first.setPrevHop(9);
+        first.markResent();
+        first.release();
+
+        FullExtTcpPacket second = obtain(2, 200, false);
+        assertSame(first, second);
+        assertEquals(2, second.getFlowId());
+        assertEquals(200, second.getSequenceNumber());
+        assertFalse(second.isACK());
+        assertNull(second.getSelectiveAck());
+        assertEquals(0, second.getEchoDepartureTime());
+        assertEquals(0, second.getEchoFlowletId());
+        assertEquals(0, second.getFlowletId());
+        assertFalse(second.getECN());
+        assertEquals(100, second.getTTL());
+        assertEquals(-1, second.getPrevHop());
+        assertFalse(second.resent);
+    }
+
+    @Test
+    public void testDoubleReleaseHasNoEffect() {
+        enable();
+        FullExtTcpPacket first = obtain(1, 0, true);
+        first.release();
+        first.release();
+        assertSame(first, obtain(1, 0, true));
+        assertNotSame(first, obtain(1, 0, true));
+    }
+
+    @Test
+    public void testReleaseOfRegularInstanceHasNoEffect() {
+        enable();
+        FullExtTcpPacket regular = new FullExtTcpPacket(
+                1, 0, 1, 2, 100, 80, 80, 0, 0,
+                false, false, false, false, true, false, false, false, false, 10.0, 0
+        );
+        regular.release();
+        assertNotSame(regular, obtain(1, 0, true));
+    }
+
+    @Test
+    public void testCopyIsNotPooled() {
+        enable();
+        FullExtTcpPacket original = obtain(1, 0, true);
+        FullExtTcpPacket copy = new FullExtTcpPacket(original);
+        copy.release();
+        assertNotSame(copy, obtain(1, 0, true));
+    }
+
+    @Test
+    public void testObjectPoolStatistics() {
+        ObjectPool<Object> pool = Pooling.createPool("test");
+        assertNull(pool.poll());
+        Object object = new Object();
+        pool.offer(object);
+        assertSame(object, pool.poll());
+        assertEquals(2, pool.getObtained());
+        assertEquals(1, pool.getReused());
+        assertEquals(1, pool.getReleased());
+        assertEquals(0, pool.getDiscarded());
+        Pooling.reset();
+        assertEquals(0, pool.getObtained());
+    }
+
+}
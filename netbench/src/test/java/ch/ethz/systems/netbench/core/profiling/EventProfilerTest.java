@@ -0,0 +1,124 @@
+package ch.ethz.systems.netbench.core.profiling;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.log.SimulationLogger;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.utility.UnitConverter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class EventProfilerTest {
+
+    private static class Handler {
+    }
+
+    private static class HandledEvent extends Event {
+
+        private final Handler handler;
+
+        HandledEvent(long timeFromNowNs, Handler handler) {
+            super(timeFromNowNs);
+            this.handler = handler;
+        }
+
+        @Override
+        public void trigger() {
+            if (getTime() < 2500000000L) {
+                Simulator.registerEvent(new HandledEvent(100000000L, handler));
+            }
+        }
+
+        @Override
+        public Object getHandler() {
+            return handler;
+        }
+
+    }
+
+    private File tempConfig;
+
+    @After
+    public void cleanup() throws IOException {
+        String runFolder = SimulationLogger.getRunFolderFull();
+        Simulator.reset(false);
+        try (Stream<Path> paths = Files.walk(Paths.get(runFolder))) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        assertTrue(tempConfig.delete());
+    }
+
+    private void setup(String properties) throws IOException {
+        tempConfig = File.createTempFile("temp-run-config", ".tmp");
+        BufferedWriter configWriter = new BufferedWriter(new FileWriter(tempConfig));
+        configWriter.write(properties);
+        configWriter.close();
+        Simulator.setup(0, new NBProperties(tempConfig.getAbsolutePath(), BaseAllowedProperties.LOG, BaseAllowedProperties.PROPERTIES_RUN));
+    }
+
+    @Test
+    public void testDisabledByDefault() throws IOException {
+        setup("run_time_s=1");
+        assertFalse(EventProfiler.isEnabled());
+        Simulator.registerEvent(new HandledEvent(0, new Handler()));
+        Simulator.runNs(UnitConverter.convertSecondsToNanoseconds(1));
+        assertFalse(new File(SimulationLogger.getLogsFolder() + "/event_profile.csv").exists());
+        assertFalse(new File(SimulationLogger.getLogsFolder() + "/event_profile_snapshots.csv").exists());
+    }
+
+    @Test
+    public void testProfile() throws IOException {
+        setup("run_time_s=3\nevent_profiling=true\nevent_profiling_snapshot_interval_ns=1000000000\nprogress_details=false");
+        assertTrue(EventProfiler.isEnabled());
+        Simulator.registerEvent(new HandledEvent(0, new Handler()));
+        Simulator.registerEvent(new HandledEvent(0, null));
+        Simulator.runNs(UnitConverter.convertSecondsToNanoseconds(3));
+
+        // Events at 0, 0.1, ..., 2.5 for both chains
+        List<String> report = Files.readAllLines(Paths.get(SimulationLogger.getLogsFolder(), "event_profile.csv"));
+        assertEquals("category,type,events,wall_ns,mean_wall_ns,wall_fraction", report.get(0));
+        assertEquals(3, report.size());
+        boolean eventFound = false;
+        boolean handlerFound = false;
+        for (String line : report.subList(1, report.size())) {
+            String[] values = line.split(",");
+            if (values[0].equals("event")) {
+                assertEquals(HandledEvent.class.getName(), values[1]);
+                assertEquals("52", values[2]);
+                eventFound = true;
+            } else {
+                assertEquals("handler", values[0]);
+                assertEquals(Handler.class.getName(), values[1]);
+                assertEquals("26", values[2]);
+                handlerFound = true;
+            }
+        }
+        assertTrue(eventFound && handlerFound);
+
+        // Snapshots after 1s and 2s of simulation time, and at the end
+        List<String> snapshots = Files.readAllLines(Paths.get(SimulationLogger.getLogsFolder(), "event_profile_snapshots.csv"));
+        assertEquals(4, snapshots.size());
+        long totalEvents = 0;
+        for (String line : snapshots.subList(1, snapshots.size())) {
+            totalEvents += Long.parseLong(line.split(",")[2]);
+        }
+        assertEquals(52, totalEvents);
+        assertEquals("1000000000", snapshots.get(1).split(",")[1]);
+        assertEquals("2000000000", snapshots.get(2).split(",")[1]);
+    }
+
+}
@@ -0,0 +1,217 @@
+package ch.ethz.systems.netbench.core.run.sweep;
+
+import ch.ethz.systems.netbench.core.RunContext;
+import ch.ethz.systems.netbench.core.run.MainFromProperties;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SweepRunnerTest {
+
+    // Log files of which the content depends on the wall-clock time
+    private static final List<String> WALL_CLOCK_FILES = Arrays.asList("console.txt", "initialization.info");
+    private static final String FINAL_PROPERTIES_FILE = "final_properties.info";
+
+    @Test
+    public void testContextsHaveOwnState() {
+        RunContext.Slot<StringBuilder> slot = RunContext.slot(StringBuilder::new);
+        RunContext.SharedObjects sharedObjects = new RunContext.SharedObjects();
+        RunContext first = new RunContext(sharedObjects, 1);
+        RunContext second = new RunContext(sharedObjects, 1);
+
+        first.get(slot).append("first");
+        assertEquals("first", first.get(slot).toString());
+        assertEquals("", second.get(slot).toString());
+        assertSame(first.share("key", Object::new), second.share("key", Object::new));
+
+        // Threads which are not bound use the default context
+        first.bind();
+        try {
+            assertSame(first, RunContext.current());
+            assertNotSame(ForkJoinPool.commonPool(), first.getForkJoinPool());
+            assertSame(first, first.getForkJoinPool().submit(RunContext::current).join());
+        } finally {
+            first.unbind();
+        }
+        assertNotSame(first, RunContext.current());
+        assertSame(ForkJoinPool.commonPool(), RunContext.current().getForkJoinPool());
+        first.close();
+        assertEquals("", first.get(slot).toString());
+    }
+
+    @Test
+    public void testConsoleRoutedPerRun() throws Exception {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(console, true));
+        ConsoleRouter.install();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertTrue(ConsoleRouter.isInstalled());
+            ByteArrayOutputStream fileA = new ByteArrayOutputStream();
+            ByteArrayOutputStream fileB = new ByteArrayOutputStream();
+            Future<?> a = executor.submit(() -> printAttached(fileA, "a"));
+            Future<?> b = executor.submit(() -> printAttached(fileB, "b"));
+            a.get();
+            b.get();
+            System.out.println("main");
+            assertEquals(expectedLines("a") + "a-worker" + System.lineSeparator(), fileA.toString());
+            assertEquals(expectedLines("b") + "b-worker" + System.lineSeparator(), fileB.toString());
+            assertEquals("main" + System.lineSeparator(), console.toString());
+        } finally {
+            executor.shutdownNow();
+            ConsoleRouter.uninstall();
+            System.setOut(original);
+        }
+        assertFalse(ConsoleRouter.isInstalled());
+    }
+
+    private static void printAttached(ByteArrayOutputStream file, String name) {
+        RunContext context = new RunContext(new RunContext.SharedObjects(), 1);
+        context.bind();
+        try {
+            ConsoleRouter.attach(file);
+            for (int i = 0; i < 1000; i++) {
+                System.out.println(name + i);
+            }
+
+            // The workers of the fork-join pool of the run write to its file as well
+            context.getForkJoinPool().submit(() -> System.out.println(name + "-worker")).join();
+            ConsoleRouter.detach();
+        } finally {
+            context.unbind();
+            context.close();
+        }
+    }
+
+    private static String expectedLines(String name) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append(name).append(i).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testReadSweepFile() throws IOException {
+        File sweepFile = File.createTempFile("sweep", ".txt");
+        try (FileWriter writer = new FileWriter(sweepFile)) {
+            writer.write("# Comment\n\nrun.properties seed=1\n  run.properties   seed=2 run_folder_name=b \n");
+        }
+        List<String[]> runs = SweepRunner.readSweepFile(sweepFile.getPath());
+        assertEquals(2, runs.size());
+        assertArrayEquals(new String[]{"run.properties", "seed=1"}, runs.get(0));
+        assertArrayEquals(new String[]{"run.properties", "seed=2", "run_folder_name=b"}, runs.get(1));
+        assertTrue(sweepFile.delete());
+    }
+
+    @Test
+    public void testSweepRunsEqualStandaloneRun() throws IOException {
+        File dir = Files.createTempDirectory("sweep_runner").toFile();
+        try {
+
+            // Job of two stages, each a ring of two servers under different ToRs of a leaf-spine
+            File topology = new File(dir, "leaf_spine.topology");
+            try (FileWriter writer = new FileWriter(topology)) {
+                writer.write("|V|=14\n|E|=32\nToRs=incl_range(0,3)\nCores=incl_range(4,5)\nServers=incl_range(6,13)\n\n");
+                for (int tor = 0; tor < 4; tor++) {
+                    writer.write(tor + " 4\n" + tor + " 5\n4 " + tor + "\n5 " + tor + "\n");
+                    writer.write((6 + 2 * tor) + " " + tor + "\n" + (7 + 2 * tor) + " " + tor + "\n");
+                    writer.write(tor + " " + (6 + 2 * tor) + "\n" + tor + " " + (7 + 2 * tor) + "\n");
+                }
+            }
+            File pairs = new File(dir, "pairs");
+            assertTrue(pairs.mkdir());
+            try (FileWriter writer = new FileWriter(new File(pairs, "job_0-TEST.txt"))) {
+                writer.write("#src dst src_tor dst_tor start_time flow_size compute_time stage_index\n");
+                writer.write("6 10 0 2 1000 200000 20000 0\n");
+                writer.write("10 6 2 0 1000 200000 20000 0\n");
+                writer.write("7 12 0 3 1000 200000 20000 1\n");
+                writer.write("12 7 3 0 1000 200000 20000 1\n");
+            }
+            File properties = new File(dir, "run.properties");
+            File runs = new File(dir, "runs");
+            try (FileWriter writer = new FileWriter(properties)) {
+                writer.write("scenario_topology_file=" + topology.getAbsolutePath() + "\n");
+                writer.write("seed=1234\n");
+                writer.write("run_time_ns=300000\n");
+                writer.write("run_folder_base_dir=" + runs.getAbsolutePath() + "\n");
+                writer.write("routing_scheme=ecmp\n");
+                writer.write("transport_layer=simple_dctcp\n");
+                writer.write("network_device=ecmp_switch\n");
+                writer.write("network_device_routing=ecmp\n");
+                writer.write("network_device_intermediary=identity\n");
+                writer.write("output_port=ecn_tail_drop\n");
+                writer.write("output_port_max_queue_size_bytes=150000\n");
+                writer.write("output_port_ecn_threshold_k_bytes=30000\n");
+                writer.write("link=perfect_simple\n");
+                writer.write("link_delay_ns=10\n");
+                writer.write("link_bandwidth_bit_per_ns=10\n");
+                writer.write("traffic=traffic_pair\n");
+                writer.write("traffic_pair_type=data_parallel\n");
+                writer.write("base_traffic_pairs_dir=" + pairs.getAbsolutePath() + "\n");
+            }
+
+            // Same seed, once standalone and twice concurrently in a sweep
+            MainFromProperties.main(new String[]{properties.getAbsolutePath(), "run_folder_name=standalone"});
+            assertEquals(0, new SweepRunner(Arrays.asList(
+                    new String[]{properties.getAbsolutePath(), "run_folder_name=sweep_a"},
+                    new String[]{properties.getAbsolutePath(), "run_folder_name=sweep_b"}
+            ), 2).run());
+
+            // All logs of the sweep runs are equal to those of the standalone run
+            Path standalone = runs.toPath().resolve("standalone");
+            List<Path> logs = listLogs(standalone);
+            assertTrue(logs.contains(Paths.get("logs", "flow_completion.log")));
+            for (String sweepRun : new String[]{"sweep_a", "sweep_b"}) {
+                Path folder = runs.toPath().resolve(sweepRun);
+                assertEquals(logs, listLogs(folder));
+                for (Path log : logs) {
+                    assertArrayEquals(sweepRun + "/" + log, readLog(standalone, log), readLog(folder, log));
+                }
+            }
+
+        } finally {
+            Files.walk(dir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static byte[] readLog(Path runFolder, Path log) throws IOException {
+        byte[] content = Files.readAllBytes(runFolder.resolve(log));
+
+        // The final properties include the name of the run folder
+        if (log.endsWith(FINAL_PROPERTIES_FILE)) {
+            return new String(content).replace(runFolder.getFileName().toString(), "").getBytes();
+        }
+        return content;
+    }
+
+    private static List<Path> listLogs(Path runFolder) throws IOException {
+        try (Stream<Path> files = Files.walk(runFolder)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !WALL_CLOCK_FILES.contains(file.getFileName().toString()))
+                    .map(runFolder::relativize)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package ch.ethz.systems.netbench.core.state;
+
+import ch.ethz.systems.netbench.core.run.MainFromProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.junit.Assert.*;
+
+public class CheckpointRestoreTest {
+
+    private static final long MID_NS = 150000;
+    private static final long END_NS = 300000;
+
+    private File dir;
+    private File properties;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("checkpoint_restore").toFile();
+
+        // Job of two stages, each a ring of two servers under different ToRs of a leaf-spine
+        File topology = new File(dir, "leaf_spine.topology");
+        try (FileWriter writer = new FileWriter(topology)) {
+            writer.write("|V|=14\n|E|=32\nToRs=incl_range(0,3)\nCores=incl_range(4,5)\nServers=incl_range(6,13)\n\n");
+            for (int tor = 0; tor < 4; tor++) {
+                writer.write(tor + " 4\n" + tor + " 5\n4 " + tor + "\n5 " + tor + "\n");
+                writer.write((6 + 2 * tor) + " " + tor + "\n" + (7 + 2 * tor) + " " + tor + "\n");
+                writer.write(tor + " " + (6 + 2 * tor) + "\n" + tor + " " + (7 + 2 * tor) + "\n");
+            }
+        }
+        File pairs = new File(dir, "pairs");
+        assertTrue(pairs.mkdir());
+        try (FileWriter writer = new FileWriter(new File(pairs, "job_0-TEST.txt"))) {
+            writer.write("#src dst src_tor dst_tor start_time flow_size compute_time stage_index\n");
+            writer.write("6 10 0 2 1000 200000 20000 0\n");
+            writer.write("10 6 2 0 1000 200000 20000 0\n");
+            writer.write("7 12 0 3 1000 200000 20000 1\n");
+            writer.write("12 7 3 0 1000 200000 20000 1\n");
+        }
+
+        properties = new File(dir, "run.properties");
+        try (FileWriter writer = new FileWriter(properties)) {
+            writer.write("scenario_topology_file=" + topology.getAbsolutePath() + "\n");
+            writer.write("seed=1234\n");
+            writer.write("run_time_ns=" + END_NS + "\n");
+            writer.write("run_folder_base_dir=" + new File(dir, "runs").getAbsolutePath() + "\n");
+            writer.write("routing_scheme=ecmp\n");
+            writer.write("transport_layer=simple_dctcp\n");
+            writer.write("network_device=ecmp_switch\n");
+            writer.write("network_device_routing=ecmp\n");
+            writer.write("network_device_intermediary=identity\n");
+            writer.write("output_port=ecn_tail_drop\n");
+            writer.write("output_port_max_queue_size_bytes=150000\n");
+            writer.write("output_port_ecn_threshold_k_bytes=30000\n");
+            writer.write("link=perfect_simple\n");
+            writer.write("link_delay_ns=10\n");
+            writer.write("link_bandwidth_bit_per_ns=10\n");
+            writer.write("traffic=traffic_pair\n");
+            writer.write("traffic_pair_type=data_parallel\n");
+            writer.write("base_traffic_pairs_dir=" + pairs.getAbsolutePath() + "\n");
+        }
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Files.walk(dir.toPath()).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    private String run(String name, String... overrides) {
+        String[] args = new String[overrides.length + 3];
+        args[0] = properties.getAbsolutePath();
+        args[1] = "run_folder_name=" + name;
+        args[2] = "checkpoint_dir=" + new File(dir, "checkpoint_" + name).getAbsolutePath();
+        System.arraycopy(overrides, 0, args, 3, overrides.length);
+        MainFromProperties.main(args);
+        return new File(dir, "checkpoint_" + name).getAbsolutePath();
+    }
+
+    @Test
+    public void testRestoredRunEqualsStraightRun() throws IOException {
+
+        // Straight run, checkpointed at its end
+        String straight = run("straight", "checkpoint_at_ns=" + END_NS);
+
+        // Run checkpointed halfway, of which the restored run is checkpointed at the end
+        String mid = run("mid", "checkpoint_at_ns=" + MID_NS);
+        String restored = run("restored", "from_state=" + mid, "checkpoint_at_ns=" + END_NS);
+
+        // Restoring halfway does not change the state at the end
+        byte[] expected = Files.readAllBytes(new File(straight, SimulatorStateSaver.CHECKPOINT_FILE_NAME).toPath());
+        byte[] actual = Files.readAllBytes(new File(restored, SimulatorStateSaver.CHECKPOINT_FILE_NAME).toPath());
+        assertTrue(expected.length > 0);
+        assertArrayEquals(expected, actual);
+        assertFalse(Arrays.equals(
+                expected, Files.readAllBytes(new File(mid, SimulatorStateSaver.CHECKPOINT_FILE_NAME).toPath())
+        ));
+
+    }
+
+}
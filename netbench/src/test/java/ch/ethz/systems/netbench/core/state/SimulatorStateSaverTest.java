@@ -0,0 +1,247 @@
+package ch.ethz.systems.netbench.core.state;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.xpt.tcpbase.AckRange;
+import ch.ethz.systems.netbench.xpt.tcpbase.AckRangeSet;
+import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class SimulatorStateSaverTest {
+
+    private static final List<Integer> triggered = new ArrayList<>();
+
+    private static class RecordingEvent extends Event {
+
+        private final int id;
+
+        RecordingEvent(long timeFromNowNs, int id) {
+            super(timeFromNowNs);
+            this.id = id;
+        }
+
+        @Override
+        public void trigger() {
+            triggered.add(id);
+        }
+
+    }
+
+    private static class UnserializableEvent extends Event {
+
+        private final Object handler = new Object();
+
+        UnserializableEvent(long timeFromNowNs) {
+            super(timeFromNowNs);
+        }
+
+        @Override
+        public void trigger() {
+            // Never triggered
+        }
+
+    }
+
+    private static class NetworkReferencingEvent extends Event {
+
+        private final TransportLayer transportLayer;
+
+        NetworkReferencingEvent(long timeFromNowNs, TransportLayer transportLayer) {
+            super(timeFromNowNs);
+            this.transportLayer = transportLayer;
+        }
+
+        @Override
+        public void trigger() {
+            // Never triggered
+        }
+
+    }
+
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        Simulator.setup(0);
+        Simulator.setIdToNetworkDevice(new HashMap<>());
+        triggered.clear();
+        dir = File.createTempFile("checkpoint", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdir());
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset(false);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static Object roundTrip(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            out.writeEncoded(value);
+        }
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Object result = in.readEncoded();
+            assertEquals(-1, in.read());
+            return result;
+        }
+    }
+
+    @Test
+    public void testPacketRoundTrip() throws IOException {
+        FullExtTcpPacket packet = new FullExtTcpPacket(
+                77, 1380, 3, 9, 100, 80, 81, 1381, 2761,
+                false, true, true, false, true, false, false, false, true, 4140.5, 12
+        );
+        packet.setFlowletId(4);
+        packet.markCongestionEncountered();
+        packet.markResent();
+        packet.setEchoDepartureTime(555);
+        packet.setEchoFlowletId(3);
+        AckRangeSet set = new AckRangeSet();
+        set.add(2761, 4141);
+        set.add(5521, 6901);
+        packet.setSelectiveAck(set.createSelectiveAckData());
+
+        FullExtTcpPacket restored = (FullExtTcpPacket) roundTrip(packet);
+        assertEquals(77, restored.getFlowId());
+        assertEquals(packet.getSizeBit(), restored.getSizeBit());
+        assertEquals(packet.getDepartureTime(), restored.getDepartureTime());
+        assertEquals(4, restored.getFlowletId());
+        assertEquals(3, restored.getSourceId());
+        assertEquals(9, restored.getDestinationId());
+        assertTrue(restored.getECN());
+        assertEquals(100, restored.getTTL());
+        assertEquals(80, restored.getSourcePort());
+        assertEquals(81, restored.getDestinationPort());
+        assertEquals(1381, restored.getSequenceNumber());
+        assertEquals(2761, restored.getAcknowledgementNumber());
+        assertFalse(restored.isNS());
+        assertTrue(restored.isCWR());
+        assertTrue(restored.isECE());
+        assertFalse(restored.isURG());
+        assertTrue(restored.isACK());
+        assertFalse(restored.isPSH());
+        assertFalse(restored.isRST());
+        assertFalse(restored.isSYN());
+        assertTrue(restored.isFIN());
+        assertTrue(restored.resent);
+        assertEquals(4140.5, restored.getWindowSize(), 0.0);
+        assertEquals(1380, restored.getDataSizeByte());
+        assertEquals(12, restored.getPriority());
+        assertEquals(555, restored.getEchoDepartureTime());
+        assertEquals(3, restored.getEchoFlowletId());
+        List<AckRange> ranges = new ArrayList<>(restored.getSelectiveAck());
+        assertEquals(2, ranges.size());
+        assertEquals(2761, ranges.get(0).getLowBound());
+        assertEquals(4141, ranges.get(0).getHighBound());
+        assertEquals(5521, ranges.get(1).getLowBound());
+        assertEquals(6901, ranges.get(1).getHighBound());
+    }
+
+    @Test
+    public void testPacketWithoutSelectiveAckRoundTrip() throws IOException {
+        FullExtTcpPacket packet = new FullExtTcpPacket(
+                1, 0, 0, 1, 100, 80, 80, 0, 0,
+                false, false, false, false, false, false, false, true, false, 0, 0
+        );
+        FullExtTcpPacket restored = (FullExtTcpPacket) roundTrip(packet);
+        assertNull(restored.getSelectiveAck());
+        assertTrue(restored.isSYN());
+    }
+
+    @Test
+    public void testSerializedFallback() throws IOException {
+        RecordingEvent restored = (RecordingEvent) roundTrip(new RecordingEvent(100, 7));
+        assertEquals(100, restored.getTime());
+        restored.trigger();
+        assertEquals(Collections.singletonList(7), triggered);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotSerializable() throws IOException {
+        roundTrip(new UnserializableEvent(100));
+    }
+
+    @Test
+    public void testNetworkReferenceRejected() throws IOException {
+        try {
+            roundTrip(new NetworkReferencingEvent(100, mock(TransportLayer.class)));
+            fail("Event referencing the network must not be serialized.");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(NetworkReferencingEvent.class.getName()));
+            assertTrue(e.getMessage().contains(TransportLayer.class.getName()));
+        }
+    }
+
+    private void testCheckpointRoundTrip(boolean compress) throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Simulator.registerEvent(new RecordingEvent(1000 - (i % 3) * 100, i));
+        }
+        Simulator.runNs(500);
+        assertEquals(500, Simulator.getCurrentTime());
+        assertEquals(10, Simulator.getEventSize());
+
+        String fileName = dir + "/" + SimulatorStateSaver.CHECKPOINT_FILE_NAME;
+        SimulatorStateSaver.writeCheckpoint(fileName, compress);
+        assertTrue(SimulatorStateSaver.hasCheckpoint(dir.getPath()));
+
+        // Writing leaves the simulation intact
+        assertEquals(10, Simulator.getEventSize());
+
+        // Fork
+        Simulator.reset(false);
+        Simulator.setup(0);
+        Simulator.setIdToNetworkDevice(new HashMap<>());
+        SimulatorStateSaver.readCheckpoint(fileName);
+        assertEquals(500, Simulator.getCurrentTime());
+        assertEquals(10, Simulator.getEventSize());
+        Simulator.runNs(2000);
+        assertEquals(Arrays.asList(2, 5, 8, 1, 4, 7, 0, 3, 6, 9), triggered);
+    }
+
+    @Test
+    public void testCheckpointRoundTrip() throws IOException {
+        testCheckpointRoundTrip(false);
+    }
+
+    @Test
+    public void testCompressedCheckpointRoundTrip() throws IOException {
+        testCheckpointRoundTrip(true);
+    }
+
+    @Test
+    public void testRestoreNoCheckpoint() {
+        assertFalse(SimulatorStateSaver.hasCheckpoint(dir.getPath()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadNotCheckpoint() throws IOException {
+        File file = new File(dir, SimulatorStateSaver.CHECKPOINT_FILE_NAME);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("not a checkpoint");
+        }
+        SimulatorStateSaver.readCheckpoint(file.getPath());
+    }
+
+}
@@ -0,0 +1,76 @@
+package ch.ethz.systems.netbench.deeplearningtraining.state;
+
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.OutputPort;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CompiledPathTest {
+
+    private static NetworkDevice device(int identifier) {
+        NetworkDevice device = mock(NetworkDevice.class);
+        when(device.getIdentifier()).thenReturn(identifier);
+        return device;
+    }
+
+    @Test
+    public void testNextPortBothDirections() {
+        CompiledPath path = new CompiledPath(Arrays.asList(4, 7, 2));
+        NetworkDevice middle = device(7);
+        OutputPort toTwo = mock(OutputPort.class);
+        OutputPort toFour = mock(OutputPort.class);
+        when(middle.getTargetOuputPort(2)).thenReturn(toTwo);
+        when(middle.getTargetOuputPort(4)).thenReturn(toFour);
+
+        assertSame(toTwo, path.getNextPort(middle, true));
+        assertSame(toFour, path.getNextPort(middle, false));
+
+        // Resolved only once
+        assertSame(toTwo, path.getNextPort(middle, true));
+        assertSame(toFour, path.getNextPort(middle, false));
+        verify(middle, times(1)).getTargetOuputPort(2);
+        verify(middle, times(1)).getTargetOuputPort(4);
+    }
+
+    @Test
+    public void testEndpoints() {
+        CompiledPath path = new CompiledPath(Arrays.asList(4, 7, 2));
+        NetworkDevice source = device(4);
+        OutputPort port = mock(OutputPort.class);
+        when(source.getTargetOuputPort(7)).thenReturn(port);
+        assertSame(port, path.getNextPort(source, true));
+
+        boolean thrown = false;
+        try {
+            path.getNextPort(source, false);
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testNotOnPath() {
+        CompiledPath path = new CompiledPath(Arrays.asList(4, 7, 2));
+        boolean thrown = false;
+        try {
+            path.getNextPort(device(5), true);
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testInvalidate() {
+        CompiledPath path = new CompiledPath(Arrays.asList(0, 1));
+        assertTrue(path.isValid());
+        path.invalidate();
+        assertFalse(path.isValid());
+    }
+
+}
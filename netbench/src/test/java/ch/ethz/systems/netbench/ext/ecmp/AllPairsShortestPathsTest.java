@@ -0,0 +1,74 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class AllPairsShortestPathsTest {
+
+    /**
+     * Create a random directed graph.
+     *
+     * @param n         Number of nodes
+     * @param p         Probability of every directed edge
+     * @param seed      Random seed
+     *
+     * @return Adjacency
+     */
+    private static int[][] randomAdjacency(int n, double p, long seed) {
+        Random random = new Random(seed);
+        int[][] adjacency = new int[n][];
+        for (int i = 0; i < n; i++) {
+            List<Integer> adjacent = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                if (i != j && random.nextDouble() < p) {
+                    adjacent.add(j);
+                }
+            }
+            adjacency[i] = adjacent.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return adjacency;
+    }
+
+    @Test
+    public void testLine() {
+        int[][] adjacency = new int[][]{{1}, {0, 2}, {1, 3}, {2}};
+        short[][] result = AllPairsShortestPaths.breadthFirst(adjacency);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(Math.abs(i - j), result[i][j]);
+            }
+        }
+        assertArrayEquals(AllPairsShortestPaths.floydWarshall(adjacency), result);
+    }
+
+    @Test
+    public void testDirectedUnreachable() {
+
+        // 0 -> 1 -> 2, 3 is isolated
+        int[][] adjacency = new int[][]{{1}, {2}, {}, {}};
+        short[][] result = AllPairsShortestPaths.breadthFirst(adjacency);
+        assertEquals(2, result[0][2]);
+        assertEquals(AllPairsShortestPaths.UNREACHABLE, result[2][0]);
+        assertEquals(AllPairsShortestPaths.UNREACHABLE, result[0][3]);
+        assertEquals(0, result[3][3]);
+        assertArrayEquals(AllPairsShortestPaths.floydWarshall(adjacency), result);
+    }
+
+    @Test
+    public void testSameAsFloydWarshall() {
+        for (int seed = 0; seed < 10; seed++) {
+            int[][] adjacency = randomAdjacency(150, 0.01 + seed * 0.005, seed);
+            assertArrayEquals(
+                    AllPairsShortestPaths.floydWarshall(adjacency),
+                    AllPairsShortestPaths.breadthFirst(adjacency)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package ch.ethz.systems.netbench.ext.ecmp;
+
+import edu.asu.emit.algorithm.graph.Graph;
+import edu.asu.emit.algorithm.graph.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShortestPathCacheTest {
+
+    private File directory;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("routing_cache").toFile();
+    }
+
+    @After
+    public void cleanup() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                assertTrue(f.delete());
+            }
+        }
+        assertTrue(directory.delete());
+    }
+
+    /**
+     * Create an undirected graph (mocked, as constructing a real one requires the logger).
+     *
+     * @param n     Number of nodes
+     * @param edges Undirected edges as pairs of node identifiers
+     *
+     * @return Graph
+     */
+    private static Graph createGraph(int n, int... edges) {
+        Graph graph = mock(Graph.class);
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            vertices.add(new Vertex(i));
+        }
+        when(graph.getVertexList()).thenReturn(vertices);
+        for (int i = 0; i < n; i++) {
+            List<Vertex> adjacent = new ArrayList<>();
+            for (int e = 0; e < edges.length; e += 2) {
+                if (edges[e] == i) {
+                    adjacent.add(vertices.get(edges[e + 1]));
+                } else if (edges[e + 1] == i) {
+                    adjacent.add(vertices.get(edges[e]));
+                }
+            }
+            when(graph.getVertex(i)).thenReturn(vertices.get(i));
+            when(graph.getAdjacentVertices(vertices.get(i))).thenReturn(adjacent);
+        }
+        return graph;
+    }
+
+    /**
+     * Path lengths along a line, counting the invocations.
+     */
+    private static Function<Graph, short[][]> lineCalculator(AtomicInteger invocations) {
+        return graph -> {
+            invocations.incrementAndGet();
+            int n = graph.getVertexList().size();
+            short[][] result = new short[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    result[i][j] = (short) Math.abs(i - j);
+                }
+            }
+            return result;
+        };
+    }
+
+    @Test
+    public void testStoredAndLoaded() {
+        Graph line = createGraph(4, 0, 1, 1, 2, 2, 3);
+        AtomicInteger invocations = new AtomicInteger();
+
+        ShortestPathLengths calculated = new ShortestPathCache(directory.getPath()).getOrCalculate(line, lineCalculator(invocations));
+        assertEquals(1, invocations.get());
+        assertFalse(calculated.isMapped());
+        assertEquals(1, directory.listFiles().length);
+
+        // Same content in a separately built graph (different edge order) hits the cache
+        Graph sameLine = createGraph(4, 2, 3, 1, 2, 0, 1);
+        ShortestPathLengths loaded = new ShortestPathCache(directory.getPath()).getOrCalculate(sameLine, lineCalculator(invocations));
+        assertEquals(1, invocations.get());
+        assertTrue(loaded.isMapped());
+        assertArrayEquals(calculated.toArray(), loaded.toArray());
+        assertEquals(3, loaded.get(0, 3));
+        assertEquals(2, loaded.get(3, 1));
+    }
+
+    @Test
+    public void testDifferentTopologyDifferentKey() {
+        Graph line = createGraph(4, 0, 1, 1, 2, 2, 3);
+        Graph ring = createGraph(4, 0, 1, 1, 2, 2, 3, 3, 0);
+        Graph larger = createGraph(5, 0, 1, 1, 2, 2, 3);
+        assertEquals(ShortestPathCache.determineKey(line), ShortestPathCache.determineKey(createGraph(4, 0, 1, 1, 2, 2, 3)));
+        assertNotEquals(ShortestPathCache.determineKey(line), ShortestPathCache.determineKey(ring));
+        assertNotEquals(ShortestPathCache.determineKey(line), ShortestPathCache.determineKey(larger));
+    }
+
+    @Test
+    public void testCorruptEntryRecalculated() throws IOException {
+        Graph line = createGraph(3, 0, 1, 1, 2);
+        AtomicInteger invocations = new AtomicInteger();
+        File entry = new File(directory, ShortestPathCache.determineKey(line) + ".apsp");
+        Files.write(entry.toPath(), new byte[]{1, 2, 3});
+
+        ShortestPathLengths result = new ShortestPathCache(directory.getPath()).getOrCalculate(line, lineCalculator(invocations));
+        assertEquals(1, invocations.get());
+        assertEquals(2, result.get(0, 2));
+
+        // Corrupt entry was replaced
+        new ShortestPathCache(directory.getPath()).getOrCalculate(line, lineCalculator(invocations));
+        assertEquals(1, invocations.get());
+        assertEquals(12 + 2 * 9, entry.length());
+    }
+
+}
@@ -0,0 +1,124 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.config.exceptions.PropertyValueInvalidException;
+import ch.ethz.systems.netbench.core.utility.Constants;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AliasTableTest {
+
+    @Test
+    public void testExactProbabilities() {
+        double[] weights = new double[]{0.1, 0.0, 0.25, 0.05, 0.6};
+        AliasTable table = new AliasTable(weights, weights.length);
+        assertEquals(5, table.size());
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i], table.probabilityOf(i), 1e-12);
+        }
+    }
+
+    @Test
+    public void testUnnormalizedAndPartialWeights() {
+        double[] weights = new double[]{3, 1, 4, 1000};
+        AliasTable table = new AliasTable(weights, 3);
+        assertEquals(3, table.size());
+        assertEquals(0.375, table.probabilityOf(0), 1e-12);
+        assertEquals(0.125, table.probabilityOf(1), 1e-12);
+        assertEquals(0.5, table.probabilityOf(2), 1e-12);
+    }
+
+    @Test
+    public void testSampleFrequencies() {
+        int n = 1000;
+        double[] weights = new double[n];
+        Random weightRandom = new Random(7);
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            weights[i] = weightRandom.nextDouble();
+            total += weights[i];
+        }
+        AliasTable table = new AliasTable(weights, n);
+        int[] count = new int[n];
+        Random random = new Random(42);
+        int numDraws = 2000000;
+        for (int i = 0; i < numDraws; i++) {
+            count[table.sample(random)]++;
+        }
+        for (int i = 0; i < n; i++) {
+            double expected = numDraws * weights[i] / total;
+            assertEquals(expected, count[i], 6 * Math.sqrt(expected) + 1);
+        }
+        assertEquals(0, table.sample(0.0));
+        assertTrue(table.sample(Math.nextDown(1.0)) < n);
+    }
+
+    @Test
+    public void testInvalidWeights() {
+        boolean thrown = false;
+        try {
+            new AliasTable(new double[]{0.0, 0.0}, 2);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        thrown = false;
+        try {
+            new AliasTable(new double[]{0.5, -0.1}, 2);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testRandomCollection() {
+        RandomCollection<String> rc = new RandomCollection<>(new Random(3), true);
+        rc.add(0.2, "a");
+        rc.add(0.8, "b");
+        int numA = 0;
+        for (int i = 0; i < 100000; i++) {
+            String s = rc.next();
+            if (s.equals("a")) {
+                numA++;
+            } else {
+                assertEquals("b", s);
+            }
+        }
+        assertEquals(20000, numA, 1000);
+
+        // Adding invalidates the table
+        rc.add(1.0, "c");
+        boolean thrown = false;
+        try {
+            rc.next();
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testSelection() {
+        NBProperties configuration = mock(NBProperties.class);
+        when(configuration.getPropertyWithDefault(Constants.PoissonArrival.TRAFFIC_SAMPLER, Constants.PoissonArrival.SAMPLER_CDF)).thenReturn("cdf");
+        assertFalse(AliasTable.isSelected(configuration));
+        when(configuration.getPropertyWithDefault(Constants.PoissonArrival.TRAFFIC_SAMPLER, Constants.PoissonArrival.SAMPLER_CDF)).thenReturn("alias");
+        assertTrue(AliasTable.isSelected(configuration));
+        when(configuration.getPropertyWithDefault(Constants.PoissonArrival.TRAFFIC_SAMPLER, Constants.PoissonArrival.SAMPLER_CDF)).thenReturn("tree");
+        boolean thrown = false;
+        try {
+            AliasTable.isSelected(configuration);
+        } catch (PropertyValueInvalidException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        assertFalse(AliasTable.isSelected(null));
+    }
+
+}
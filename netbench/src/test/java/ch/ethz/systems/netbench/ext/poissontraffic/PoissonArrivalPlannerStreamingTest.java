@@ -0,0 +1,207 @@
+package ch.ethz.systems.netbench.ext.poissontraffic;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.run.traffic.FlowStartEvent;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import ch.ethz.systems.netbench.core.utility.Constants;
+import ch.ethz.systems.netbench.deeplearningtraining.routing.RoutingStrategy;
+import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
+import ch.ethz.systems.netbench.ext.poissontraffic.flowsize.ParetoFSD;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PoissonArrivalPlannerStreamingTest {
+
+    private static final long SEED = 5487;
+    private static final long DURATION_NS = 100000000L;
+
+    private Map<Integer, NetworkDevice> idToNetworkDevice;
+    private Map<Integer, TransportLayer> idToTransportLayer;
+
+    @After
+    public void cleanup() {
+        Simulator.reset(false);
+    }
+
+    private PoissonArrivalPlanner createPlanner(boolean streaming) {
+        NBProperties configuration = mock(NBProperties.class);
+        when(configuration.getBooleanPropertyWithDefault(Constants.PoissonArrival.TRAFFIC_PLAN_STREAMING, false)).thenReturn(streaming);
+        when(configuration.getPropertyOrFail(Constants.PoissonArrival.TRAFFIC_FLOW_SIZE_DIST)).thenReturn("pareto");
+        idToTransportLayer = new HashMap<>();
+        idToNetworkDevice = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            NetworkDevice device = mock(NetworkDevice.class);
+            when(device.getIdentifier()).thenReturn(i);
+            TransportLayer transportLayer = mock(TransportLayer.class);
+            when(transportLayer.getNetworkDevice()).thenReturn(device);
+            when(transportLayer.getIdentifier()).thenReturn(i);
+            when(device.getTransportLayer()).thenReturn(transportLayer);
+            idToTransportLayer.put(i, transportLayer);
+            idToNetworkDevice.put(i, device);
+        }
+        Simulator.setup(SEED);
+        Simulator.setIdToNetworkDevice(idToNetworkDevice);
+        return new PoissonArrivalPlanner(
+                idToTransportLayer, 100000, new ParetoFSD(1.05, 100),
+                PoissonArrivalPlanner.PairDistribution.ALL_TO_ALL, configuration
+        );
+    }
+
+    private static List<FlowStartEvent> drainFlowStarts() {
+        List<FlowStartEvent> flowStarts = new ArrayList<>();
+        Event event;
+        while ((event = Simulator.getEventQueue().poll()) != null) {
+            flowStarts.add((FlowStartEvent) event);
+        }
+        return flowStarts;
+    }
+
+    @Test
+    public void testSameFlowsAsEagerPlan() {
+
+        // Eager plan
+        PoissonArrivalPlanner eager = createPlanner(false);
+        eager.createPlan(DURATION_NS);
+        List<FlowStartEvent> expected = drainFlowStarts();
+        assertTrue(expected.size() > 100);
+        Simulator.reset(false);
+
+        // Streaming plan: a single pending flow start
+        PoissonArrivalPlanner streaming = createPlanner(true);
+        streaming.createPlan(DURATION_NS);
+        assertEquals(1, Simulator.getEventSize());
+
+        // Flows of Poisson arrival do not belong to a job, so they are started under a stand-in
+        Job job = mock(Job.class);
+        when(job.getJobId()).thenReturn(-1);
+        Flow flow = mock(Flow.class);
+        when(flow.getJobId()).thenReturn(-1);
+        Map<ImmutablePair<Integer, Integer>, List<Flow>> commoditiesFlowsMap = new HashMap<>();
+        for (int src = 0; src < 6; src++) {
+            for (int dst = 0; dst < 6; dst++) {
+                commoditiesFlowsMap.put(ImmutablePair.of(src, dst), Collections.singletonList(flow));
+            }
+        }
+        when(job.getCommoditiesFlowsMap()).thenReturn(commoditiesFlowsMap);
+        when(job.getRoutingStrategy()).thenReturn(mock(RoutingStrategy.class));
+        Simulator.registerJob(job);
+
+        // Record the flows as they are started by the run
+        List<long[]> started = new ArrayList<>();
+        for (TransportLayer transportLayer : idToTransportLayer.values()) {
+            int srcId = transportLayer.getIdentifier();
+            when(transportLayer.startFlow(anyInt(), anyLong(), anyInt())).thenAnswer(invocation -> {
+                started.add(new long[]{
+                        Simulator.getCurrentTime(), srcId, invocation.<Integer>getArgument(0), invocation.<Long>getArgument(1)
+                });
+
+                // The next flow is drawn when this one starts
+                assertTrue(Simulator.getEventSize() <= 1);
+                return (long) started.size();
+            });
+        }
+
+        // Each flow start registers the next one, resulting in the flows of the eager plan
+        Simulator.runNs(DURATION_NS);
+        assertEquals(0, Simulator.getEventSize());
+        assertEquals(expected.size(), started.size());
+        assertEquals(expected.size(), streaming.getNumStreamingFlowsDrawn());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTime(), started.get(i)[0]);
+            assertEquals(expected.get(i).getSourceId(), started.get(i)[1]);
+            assertEquals(expected.get(i).getTargetId(), started.get(i)[2]);
+            assertEquals(expected.get(i).getFlowSizeByte(), started.get(i)[3]);
+        }
+
+    }
+
+    @Test
+    public void testStopsAfterDuration() {
+        PoissonArrivalPlanner streaming = createPlanner(true);
+        streaming.createPlan(DURATION_NS);
+        drainFlowStarts();
+        streaming.onStreamingFlowStart(DURATION_NS + 1);
+        assertEquals(0, Simulator.getEventSize());
+        streaming.onStreamingFlowStart(DURATION_NS);
+        assertEquals(1, Simulator.getEventSize());
+    }
+
+    @Test
+    public void testCheckpointContinuesPlan() throws IOException {
+
+        // Streaming plan which has drawn a few flows
+        PoissonArrivalPlanner original = createPlanner(true);
+        original.createPlan(DURATION_NS);
+        for (int i = 0; i < 10; i++) {
+            drainFlowStarts();
+            original.registerStreamingFlow(1000);
+        }
+        StreamingFlowStartEvent pending = (StreamingFlowStartEvent) drainFlowStarts().get(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            out.writeEncoded(pending);
+        }
+        original.registerStreamingFlow(1000);
+        FlowStartEvent expectedNext = drainFlowStarts().get(0);
+        Simulator.reset(false);
+
+        // Replanned run restores the pending flow start, and continues with the same flows
+        PoissonArrivalPlanner replanned = createPlanner(true);
+        replanned.createPlan(DURATION_NS);
+        drainFlowStarts();
+        Simulator.setTrafficPlanner(replanned);
+        StreamingFlowStartEvent restored;
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = in.readEncoded(StreamingFlowStartEvent.class);
+        }
+        assertEquals(pending.getTime(), restored.getTime());
+        assertEquals(pending.getSourceId(), restored.getSourceId());
+        assertEquals(pending.getTargetId(), restored.getTargetId());
+        assertEquals(pending.getFlowSizeByte(), restored.getFlowSizeByte());
+        assertEquals(original.getNumStreamingFlowsDrawn(), replanned.getNumStreamingFlowsDrawn() + 1);
+        replanned.registerStreamingFlow(1000);
+        FlowStartEvent actualNext = drainFlowStarts().get(0);
+        assertEquals(expectedNext.getSourceId(), actualNext.getSourceId());
+        assertEquals(expectedNext.getTargetId(), actualNext.getTargetId());
+        assertEquals(expectedNext.getFlowSizeByte(), actualNext.getFlowSizeByte());
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCheckpointRequiresStreamingPlan() throws IOException {
+        PoissonArrivalPlanner streaming = createPlanner(true);
+        streaming.createPlan(DURATION_NS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            out.writeEncoded(drainFlowStarts().get(0));
+        }
+        Simulator.reset(false);
+        Simulator.setTrafficPlanner(createPlanner(false));
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+            in.readEncoded(StreamingFlowStartEvent.class);
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package ch.ethz.systems.netbench.xpt.newreno.newrenotcp;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.core.network.Socket;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
+import ch.ethz.systems.netbench.ext.basic.TcpPacket;
+import ch.ethz.systems.netbench.xpt.newreno.newrenodctcp.NewRenoDctcpSocket;
+import ch.ethz.systems.netbench.xpt.newreno.newrenodctcp.NewRenoDctcpTransportLayer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class TcpCheckpointTest {
+
+    private static class StatefulTcpSocket extends NewRenoTcpSocket {
+
+        private long state;
+
+        StatefulTcpSocket(TransportLayer transportLayer, NBProperties configuration) {
+            super(transportLayer, 1, 2, 3, 1000, configuration);
+        }
+
+    }
+
+    private NBProperties conf;
+    private File topology;
+
+    @Before
+    public void setup() throws IOException {
+
+        // Two servers under a single ToR, with a core above it
+        topology = File.createTempFile("topology", ".topology");
+        try (FileWriter writer = new FileWriter(topology)) {
+            writer.write("|V|=4\n|E|=6\nToRs=incl_range(0,0)\nCores=incl_range(1,1)\nServers=incl_range(2,3)\n\n0 1\n1 0\n2 0\n0 2\n3 0\n0 3\n");
+        }
+        conf = new NBProperties(
+                BaseAllowedProperties.LOG,
+                BaseAllowedProperties.PROPERTIES_RUN,
+                BaseAllowedProperties.EXPERIMENTAL,
+                BaseAllowedProperties.GREEDY_FLOW_SCHEDULING
+        );
+        conf.overrideProperty("scenario_topology_file", topology.getAbsolutePath());
+        conf.overrideProperty("routing_scheme", "ecmp");
+        Simulator.setup(0, conf);
+
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset(false);
+        topology.delete();
+    }
+
+    private static void planFlow(int srcId, int dstId, long flowSizeByte) {
+        Job job = new Job(0, "TEST", "data_parallel", flowSizeByte, 0, 0, 1, 1);
+        Flow flow = new Flow(srcId, dstId, flowSizeByte, 0);
+        job.getCommoditiesFlowsMap().put(ImmutablePair.of(srcId, dstId), new ArrayList<>(Collections.singletonList(flow)));
+        Simulator.getJobs().put(0, job);
+    }
+
+    private static List<Packet> attachDevice(TransportLayer layer) {
+        List<Packet> sent = new ArrayList<>();
+        NetworkDevice device = mock(NetworkDevice.class);
+        doAnswer(invocation -> sent.add((Packet) invocation.getArguments()[0]))
+                .when(device).receiveFromTransportLayer(any(Packet.class));
+        layer.setNetworkDevice(device);
+        return sent;
+    }
+
+    private static byte[] writeCheckpoint(TransportLayer layer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            layer.writeCheckpoint(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testDctcpStateRoundTrip() throws IOException {
+        NewRenoDctcpTransportLayer senderLayer = new NewRenoDctcpTransportLayer(2, conf);
+        NewRenoDctcpTransportLayer receiverLayer = new NewRenoDctcpTransportLayer(3, conf);
+        List<Packet> senderSent = attachDevice(senderLayer);
+        List<Packet> receiverSent = attachDevice(receiverLayer);
+
+        // Exchange a few rounds in which every data packet encounters congestion
+        planFlow(2, 3, 10000000L);
+        long flowId = senderLayer.startFlow(3, 10000000L, 0);
+        for (int round = 0; round < 4; round++) {
+            List<Packet> toReceiver = new ArrayList<>(senderSent);
+            senderSent.clear();
+            for (Packet packet : toReceiver) {
+                if (((TcpPacket) packet).getDataSizeByte() > 0) {
+                    ((TcpPacket) packet).markCongestionEncountered();
+                }
+                receiverLayer.receive(packet);
+            }
+            List<Packet> toSender = new ArrayList<>(receiverSent);
+            receiverSent.clear();
+            for (Packet packet : toSender) {
+                senderLayer.receive(packet);
+            }
+        }
+        NewRenoDctcpSocket socket = (NewRenoDctcpSocket) senderLayer.getSocket(flowId);
+        assertTrue(socket.getCurrentAlphaFraction() > 0);
+
+        NewRenoDctcpTransportLayer restoredLayer = new NewRenoDctcpTransportLayer(2, conf);
+        byte[] checkpoint = writeCheckpoint(senderLayer);
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(checkpoint))) {
+            restoredLayer.readCheckpoint(in);
+            assertEquals(-1, in.read());
+        }
+        NewRenoDctcpSocket restored = (NewRenoDctcpSocket) restoredLayer.getSocket(flowId);
+        assertEquals(socket.getCurrentAlphaFraction(), restored.getCurrentAlphaFraction(), 0.0);
+        assertArrayEquals(checkpoint, writeCheckpoint(restoredLayer));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStateNotInCheckpoint() throws IOException {
+        TransportLayer layer = new NewRenoDctcpTransportLayer(2, conf);
+        Socket socket = new StatefulTcpSocket(layer, conf);
+        socket.writeCheckpoint(new CheckpointOutput(new ByteArrayOutputStream()));
+    }
+
+}
@@ -16,6 +16,6 @@ public class MockRotorController extends RotorNetController {
 
     protected void registerReconfigurationEvent() {
         Simulator.registerEvent(new MockReconfigurationEvent(mReconfigurationInterval,mReconfigurationTime));
-        sNextReconfigurationTime = Simulator.getCurrentTime() + mReconfigurationInterval;
+        setNextReconfigurationTime(Simulator.getCurrentTime() + mReconfigurationInterval);
     }
 }
@@ -0,0 +1,152 @@
+package ch.ethz.systems.netbench.xpt.simple.simpletcp;
+
+import ch.ethz.systems.netbench.core.Simulator;
+import ch.ethz.systems.netbench.core.config.BaseAllowedProperties;
+import ch.ethz.systems.netbench.core.config.NBProperties;
+import ch.ethz.systems.netbench.core.network.Event;
+import ch.ethz.systems.netbench.core.network.NetworkDevice;
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.core.network.TransportLayer;
+import ch.ethz.systems.netbench.core.run.traffic.Flow;
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import ch.ethz.systems.netbench.deeplearningtraining.state.Job;
+import ch.ethz.systems.netbench.ext.basic.TcpPacket;
+import ch.ethz.systems.netbench.xpt.simple.TcpPacketResendEvent;
+import ch.ethz.systems.netbench.xpt.simple.simpledctcp.SimpleDctcpSocket;
+import ch.ethz.systems.netbench.xpt.simple.simpledctcp.SimpleDctcpTransportLayer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class SimpleTcpCheckpointTest {
+
+    private NBProperties conf;
+    private File topology;
+    private Map<Integer, NetworkDevice> idToNetworkDevice;
+
+    @Before
+    public void setup() throws IOException {
+
+        // Two servers under a single ToR, with a core above it
+        topology = File.createTempFile("topology", ".topology");
+        try (FileWriter writer = new FileWriter(topology)) {
+            writer.write("|V|=4\n|E|=6\nToRs=incl_range(0,0)\nCores=incl_range(1,1)\nServers=incl_range(2,3)\n\n0 1\n1 0\n2 0\n0 2\n3 0\n0 3\n");
+        }
+        conf = new NBProperties(
+                BaseAllowedProperties.LOG,
+                BaseAllowedProperties.PROPERTIES_RUN,
+                BaseAllowedProperties.EXPERIMENTAL,
+                BaseAllowedProperties.GREEDY_FLOW_SCHEDULING
+        );
+        conf.overrideProperty("scenario_topology_file", topology.getAbsolutePath());
+        conf.overrideProperty("routing_scheme", "ecmp");
+        Simulator.setup(0, conf);
+        idToNetworkDevice = new HashMap<>();
+        Simulator.setIdToNetworkDevice(idToNetworkDevice);
+
+    }
+
+    @After
+    public void cleanup() {
+        Simulator.reset(false);
+        topology.delete();
+    }
+
+    private List<Packet> attachDevice(TransportLayer layer) {
+        List<Packet> sent = new ArrayList<>();
+        NetworkDevice device = mock(NetworkDevice.class);
+        doAnswer(invocation -> sent.add((Packet) invocation.getArguments()[0]))
+                .when(device).receiveFromTransportLayer(any(Packet.class));
+        when(device.getTransportLayer()).thenReturn(layer);
+        layer.setNetworkDevice(device);
+        idToNetworkDevice.put(layer.getIdentifier(), device);
+        return sent;
+    }
+
+    /**
+     * Write the transport layer followed by the pending events in order.
+     */
+    private static byte[] writeCheckpoint(TransportLayer layer) throws IOException {
+        List<Event> events = new ArrayList<>();
+        while (!Simulator.getEventQueue().isEmpty()) {
+            events.add(Simulator.getEventQueue().poll());
+        }
+        for (Event event : events) {
+            Simulator.getEventQueue().add(event);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            layer.writeCheckpoint(out);
+            out.writeInt(events.size());
+            for (Event event : events) {
+                out.writeEncoded(event);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testDctcpStateRoundTrip() throws IOException {
+        SimpleDctcpTransportLayer senderLayer = new SimpleDctcpTransportLayer(2, conf);
+        SimpleDctcpTransportLayer receiverLayer = new SimpleDctcpTransportLayer(3, conf);
+        List<Packet> senderSent = attachDevice(senderLayer);
+        List<Packet> receiverSent = attachDevice(receiverLayer);
+
+        // Exchange a few rounds in which every data packet encounters congestion
+        Job job = new Job(0, "TEST", "data_parallel", 10000000L, 0, 0, 1, 1);
+        Flow flow = new Flow(2, 3, 10000000L, 0);
+        job.getCommoditiesFlowsMap().put(ImmutablePair.of(2, 3), new ArrayList<>(Collections.singletonList(flow)));
+        Simulator.getJobs().put(0, job);
+        long flowId = senderLayer.startFlow(3, 10000000L, 0);
+        for (int round = 0; round < 4; round++) {
+            List<Packet> toReceiver = new ArrayList<>(senderSent);
+            senderSent.clear();
+            for (Packet packet : toReceiver) {
+                if (((TcpPacket) packet).getDataSizeByte() > 0) {
+                    ((TcpPacket) packet).markCongestionEncountered();
+                }
+                receiverLayer.receive(packet);
+            }
+            List<Packet> toSender = new ArrayList<>(receiverSent);
+            receiverSent.clear();
+            for (Packet packet : toSender) {
+                senderLayer.receive(packet);
+            }
+        }
+        SimpleDctcpSocket socket = (SimpleDctcpSocket) senderLayer.getSocket(flowId);
+        assertTrue(socket.getCurrentAlphaFraction() > 0);
+        byte[] checkpoint = writeCheckpoint(senderLayer);
+
+        // Restore into a new transport layer, of which the socket re-attaches the resend events
+        int numEvents = Simulator.getEventQueue().size();
+        assertTrue(numEvents > 0);
+        Simulator.getEventQueue().clear();
+        SimpleDctcpTransportLayer restoredLayer = new SimpleDctcpTransportLayer(2, conf);
+        attachDevice(restoredLayer);
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(checkpoint))) {
+            restoredLayer.readCheckpoint(in);
+            assertEquals(numEvents, in.readInt());
+            for (int i = 0; i < numEvents; i++) {
+                Simulator.registerEvent(in.readEncoded(TcpPacketResendEvent.class));
+            }
+            assertEquals(-1, in.read());
+        }
+        SimpleDctcpSocket restored = (SimpleDctcpSocket) restoredLayer.getSocket(flowId);
+        assertEquals(socket.getCurrentAlphaFraction(), restored.getCurrentAlphaFraction(), 0.0);
+        assertArrayEquals(checkpoint, writeCheckpoint(restoredLayer));
+    }
+
+}
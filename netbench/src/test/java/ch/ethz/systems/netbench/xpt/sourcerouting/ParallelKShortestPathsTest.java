@@ -0,0 +1,179 @@
+package ch.ethz.systems.netbench.xpt.sourcerouting;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelKShortestPathsTest {
+
+    /**
+     * Create a random undirected graph (as both directions).
+     *
+     * @param n         Number of nodes
+     * @param p         Probability of every edge
+     * @param seed      Random seed
+     *
+     * @return Adjacency
+     */
+    private static int[][] randomAdjacency(int n, double p, long seed) {
+        Random random = new Random(seed);
+        List<List<Integer>> adjacent = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            adjacent.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (random.nextDouble() < p) {
+                    adjacent.get(i).add(j);
+                    adjacent.get(j).add(i);
+                }
+            }
+        }
+        int[][] adjacency = new int[n][];
+        for (int i = 0; i < n; i++) {
+            adjacency[i] = adjacent.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return adjacency;
+    }
+
+    /**
+     * Enumerate the lengths (in hops) of all loopless paths from the current node to the destination.
+     */
+    private static void enumerate(int[][] adjacency, int node, int dst, boolean[] onPath, int length, List<Integer> lengths) {
+        if (node == dst) {
+            lengths.add(length);
+            return;
+        }
+        onPath[node] = true;
+        for (int neighbor : adjacency[node]) {
+            if (!onPath[neighbor]) {
+                enumerate(adjacency, neighbor, dst, onPath, length + 1, lengths);
+            }
+        }
+        onPath[node] = false;
+    }
+
+    private static void assertValidPath(int[][] adjacency, int src, int dst, int[] path) {
+        assertEquals(src, path[0]);
+        assertEquals(dst, path[path.length - 1]);
+        Set<Integer> visited = new HashSet<>();
+        for (int i = 0; i < path.length; i++) {
+            assertTrue(visited.add(path[i]));
+            if (i > 0) {
+                final int next = path[i];
+                assertTrue(Arrays.stream(adjacency[path[i - 1]]).anyMatch(v -> v == next));
+            }
+        }
+    }
+
+    @Test
+    public void testAgainstEnumeration() {
+        for (int seed = 0; seed < 5; seed++) {
+            int[][] adjacency = randomAdjacency(9, 0.35, seed);
+            int[] endpoints = new int[]{0, 3, 5, 8};
+            int k = 6;
+            KShortestPathTable table = ParallelKShortestPaths.calculate(adjacency, endpoints, k);
+            for (int src : endpoints) {
+                for (int dst : endpoints) {
+                    if (src == dst) {
+                        continue;
+                    }
+                    List<Integer> lengths = new ArrayList<>();
+                    enumerate(adjacency, src, dst, new boolean[adjacency.length], 0, lengths);
+                    Collections.sort(lengths);
+                    int expected = Math.min(k, lengths.size());
+                    assertEquals(expected, table.getNumPaths(src, dst));
+
+                    // Distinct, valid and exactly as short as the K shortest
+                    Set<List<Integer>> distinct = new HashSet<>();
+                    for (int i = 0; i < expected; i++) {
+                        int[] path = table.getPath(src, dst, i);
+                        assertValidPath(adjacency, src, dst, path);
+                        assertEquals((int) lengths.get(i), path.length - 1);
+                        List<Integer> asList = new ArrayList<>();
+                        for (int v : path) {
+                            asList.add(v);
+                        }
+                        assertTrue(distinct.add(asList));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeterministicAndUnreachable() {
+
+        // Node 4 cannot be reached
+        int[][] adjacency = new int[][]{{1, 2}, {0, 3}, {0, 3}, {1, 2}, {0}};
+        int[] endpoints = new int[]{4, 0, 3};
+        KShortestPathTable table = ParallelKShortestPaths.calculate(adjacency, endpoints, 3);
+        assertEquals(2, table.getNumPaths(0, 3));
+        assertArrayEquals(new int[]{0, 1, 3}, table.getPath(0, 3, 0));
+        assertArrayEquals(new int[]{0, 2, 3}, table.getPath(0, 3, 1));
+        assertEquals(0, table.getNumPaths(0, 4));
+        assertEquals(2, table.getNumPaths(4, 3));
+        assertArrayEquals(new int[]{4, 0, 1, 3}, table.getPath(4, 3, 0));
+        assertArrayEquals(new int[]{4, 0, 2, 3}, table.getPath(4, 3, 1));
+
+        boolean thrown = false;
+        try {
+            table.getNumPaths(0, 1);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        File directory = Files.createTempDirectory("paths_cache").toFile();
+        try {
+            int[][] adjacency = randomAdjacency(20, 0.25, 11);
+            int[] endpoints = new int[]{1, 4, 9, 16, 19};
+            KShortestPathCache cache = new KShortestPathCache(directory.getPath());
+            KShortestPathTable calculated = cache.getOrCalculate(adjacency, endpoints, 4);
+            File entry = cache.getEntry(adjacency, new int[]{1, 4, 9, 16, 19});
+            assertTrue(entry.exists());
+
+            // A smaller K is served by the entry
+            long modified = entry.lastModified();
+            KShortestPathTable loaded = cache.getOrCalculate(adjacency, new int[]{19, 16, 9, 4, 1}, 2);
+            assertEquals(4, loaded.getK());
+            assertEquals(modified, entry.lastModified());
+            for (int src : endpoints) {
+                for (int dst : endpoints) {
+                    if (src != dst) {
+                        assertEquals(calculated.getNumPaths(src, dst), loaded.getNumPaths(src, dst));
+                        for (int i = 0; i < calculated.getNumPaths(src, dst); i++) {
+                            assertArrayEquals(calculated.getPath(src, dst, i), loaded.getPath(src, dst, i));
+                        }
+                    }
+                }
+            }
+
+            // A larger K replaces it
+            assertEquals(6, cache.getOrCalculate(adjacency, endpoints, 6).getK());
+            assertEquals(6, cache.getOrCalculate(adjacency, endpoints, 5).getK());
+
+            // Other endpoints or topology result in other entries
+            assertNotEquals(entry, cache.getEntry(adjacency, new int[]{1, 4}));
+            assertNotEquals(entry, cache.getEntry(randomAdjacency(20, 0.25, 12), new int[]{1, 4, 9, 16, 19}));
+
+        } finally {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    assertTrue(f.delete());
+                }
+            }
+            assertTrue(directory.delete());
+        }
+    }
+
+}
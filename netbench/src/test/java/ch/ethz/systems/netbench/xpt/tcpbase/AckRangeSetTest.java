@@ -1,9 +1,14 @@
 package ch.ethz.systems.netbench.xpt.tcpbase;
 
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -173,4 +178,27 @@ public class AckRangeSetTest {
 
     }
 
+    @Test
+    public void testCheckpointRoundTrip() throws IOException {
+        AckRangeSet set = new AckRangeSet();
+        set.add(301, 401);
+        set.add(601, 801);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            set.writeCheckpoint(out);
+        }
+        AckRangeSet restored = new AckRangeSet();
+        restored.add(1001, 1101);
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored.readCheckpoint(in);
+        }
+
+        List<AckRange> l = new ArrayList<>(restored.createSelectiveAckData());
+        assertEquals(2, l.size());
+        assertRangeEquals(301, 401, l.get(0));
+        assertRangeEquals(601, 801, l.get(1));
+        assertEquals(401, restored.determineReceiveNextNumber(301));
+    }
+
 }
@@ -0,0 +1,176 @@
+package ch.ethz.systems.netbench.xpt.tcpbase;
+
+import ch.ethz.systems.netbench.core.state.CheckpointInput;
+import ch.ethz.systems.netbench.core.state.CheckpointOutput;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SegmentScoreboardTest {
+
+    @Test
+    public void testTcpScenario() {
+
+        // Segments [1, 101), [101, 201), [201, 301), [301, 351)
+        SegmentScoreboard scoreboard = new SegmentScoreboard(1, 100, 351);
+        assertTrue(scoreboard.isEmpty());
+        scoreboard.markSent(1);
+        scoreboard.markSent(101);
+        scoreboard.markSent(201);
+        scoreboard.markSent(301);
+        scoreboard.markSent(301);
+        assertEquals(4, scoreboard.getNumOutstanding());
+
+        // First lost, the others selectively acknowledged
+        List<Long> confirmed = new ArrayList<>();
+        assertEquals(1, scoreboard.confirmWithin(101, 201, confirmed::add));
+        assertEquals(2, scoreboard.confirmWithin(101, 351, confirmed::add));
+        assertEquals(Arrays.asList(101L, 201L, 301L), confirmed);
+        assertFalse(scoreboard.isAcknowledged(1));
+        assertTrue(scoreboard.isAcknowledged(301));
+        assertFalse(scoreboard.pollAcknowledged(1));
+
+        // Retransmission is cumulatively acknowledged
+        scoreboard.markSent(1);
+        assertEquals(0, scoreboard.confirmBelow(100, null));
+        assertEquals(1, scoreboard.confirmBelow(351, null));
+        long seq = 1;
+        while (scoreboard.pollAcknowledged(seq)) {
+            seq += Math.min(100, 351 - seq);
+        }
+        assertEquals(351, seq);
+        assertTrue(scoreboard.isEmpty());
+
+    }
+
+    @Test
+    public void testPartialRanges() {
+        SegmentScoreboard scoreboard = new SegmentScoreboard(1, 100, 1001);
+        for (long seq = 1; seq < 1001; seq += 100) {
+            scoreboard.markSent(seq);
+        }
+
+        // Only segments entirely within a range are confirmed
+        assertEquals(0, scoreboard.confirmWithin(150, 250, null));
+        assertEquals(1, scoreboard.confirmWithin(150, 350, null));
+        assertTrue(scoreboard.isAcknowledged(201));
+        assertEquals(0, scoreboard.confirmWithin(0, 1, null));
+        assertEquals(1, scoreboard.confirmWithin(0, 101, null));
+        assertEquals(1, scoreboard.confirmWithin(901, 1001, null));
+        assertFalse(scoreboard.confirm(901));
+        assertTrue(scoreboard.confirm(801));
+        assertEquals(6, scoreboard.getNumOutstanding());
+        assertEquals(4, scoreboard.getNumAcknowledged());
+    }
+
+    @Test
+    public void testAgainstSets() {
+        Random random = new Random(42);
+        long mss = 10;
+        long end = 1 + 5000 * mss - 3;
+        SegmentScoreboard scoreboard = new SegmentScoreboard(1, mss, end);
+        Set<Long> outstanding = new HashSet<>();
+        Set<Long> acknowledged = new HashSet<>();
+        long sendUnack = 1;
+        long sendNext = 1;
+
+        while (sendUnack < end) {
+
+            // Send out a window
+            for (int i = 0; i < random.nextInt(300) && sendNext < end; i++) {
+                if (!acknowledged.contains(sendNext)) {
+                    scoreboard.markSent(sendNext);
+                    outstanding.add(sendNext);
+                }
+                sendNext += Math.min(mss, end - sendNext);
+            }
+
+            // Selectively acknowledge a range
+            long low = sendUnack + random.nextInt(2000);
+            long high = low + random.nextInt(1000);
+            List<Long> expected = new ArrayList<>();
+            for (long s : outstanding) {
+                if (s >= low && s + Math.min(mss, end - s) <= high) {
+                    expected.add(s);
+                }
+            }
+            Collections.sort(expected);
+            List<Long> actual = new ArrayList<>();
+            scoreboard.confirmWithin(low, high, actual::add);
+            assertEquals(expected, actual);
+            outstanding.removeAll(expected);
+            acknowledged.addAll(expected);
+
+            // Cumulatively acknowledge
+            long ack = Math.min(end, sendUnack + random.nextInt(1500));
+            int numBelow = 0;
+            for (long s : new ArrayList<>(outstanding)) {
+                if (s + Math.min(mss, end - s) <= ack) {
+                    outstanding.remove(s);
+                    acknowledged.add(s);
+                    numBelow++;
+                }
+            }
+            assertEquals(numBelow, scoreboard.confirmBelow(ack, null));
+
+            // Move the window
+            while (acknowledged.contains(sendUnack)) {
+                assertTrue(scoreboard.pollAcknowledged(sendUnack));
+                acknowledged.remove(sendUnack);
+                sendUnack += Math.min(mss, end - sendUnack);
+            }
+            assertFalse(scoreboard.pollAcknowledged(sendUnack));
+            sendNext = Math.max(sendNext, sendUnack);
+
+            // Time-out retransmission
+            if (sendUnack < end && random.nextInt(10) == 0) {
+                scoreboard.markSent(sendUnack);
+                outstanding.add(sendUnack);
+            }
+
+            assertEquals(outstanding.size(), scoreboard.getNumOutstanding());
+            assertEquals(acknowledged.size(), scoreboard.getNumAcknowledged());
+            for (long s = sendUnack; s < sendNext; s += mss) {
+                assertEquals(acknowledged.contains(s), scoreboard.isAcknowledged(s));
+            }
+
+        }
+        assertTrue(scoreboard.isEmpty());
+
+    }
+
+    @Test
+    public void testCheckpointRoundTrip() throws IOException {
+        SegmentScoreboard scoreboard = new SegmentScoreboard(1, 100, 100001);
+        for (long s = 1; s < 50001; s += 100) {
+            scoreboard.markSent(s);
+        }
+        scoreboard.confirmWithin(10001, 20001, null);
+        scoreboard.confirmBelow(5001, null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CheckpointOutput out = new CheckpointOutput(bytes)) {
+            scoreboard.writeCheckpoint(out);
+        }
+        SegmentScoreboard restored = new SegmentScoreboard(1, 100, 100001);
+        try (CheckpointInput in = new CheckpointInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored.readCheckpoint(in);
+        }
+
+        assertEquals(scoreboard.getNumOutstanding(), restored.getNumOutstanding());
+        assertEquals(scoreboard.getNumAcknowledged(), restored.getNumAcknowledged());
+        for (long s = 1; s < 5001; s += 100) {
+            assertTrue(restored.pollAcknowledged(s));
+        }
+        assertFalse(restored.pollAcknowledged(5001));
+        assertTrue(restored.isAcknowledged(15001));
+        assertFalse(restored.isAcknowledged(25001));
+        assertTrue(restored.confirm(25001));
+    }
+
+}
@@ -0,0 +1,95 @@
+package ch.ethz.systems.netbench.xpt.vojislav.ports;
+
+import ch.ethz.systems.netbench.core.network.Packet;
+import ch.ethz.systems.netbench.xpt.tcpbase.FullExtTcpPacket;
+import ch.ethz.systems.netbench.xpt.voijslav.ports.BucketedPriorityQueue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BucketedPriorityQueueTest {
+
+    private static FullExtTcpPacket createPacket(long priority, long departureTime) {
+        FullExtTcpPacket packet = mock(FullExtTcpPacket.class);
+        when(packet.getPriority()).thenReturn(priority);
+        when(packet.getDepartureTime()).thenReturn(departureTime);
+        return packet;
+    }
+
+    @Test
+    public void testOrder() {
+        BucketedPriorityQueue queue = new BucketedPriorityQueue();
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+        assertNull(queue.pollLast());
+
+        Packet p1 = createPacket(1000, 5);
+        Packet p2 = createPacket(1000, 3);
+        Packet p3 = createPacket(0, 8);
+        Packet p4 = createPacket(1001, 1);
+        Packet p5 = createPacket(70000, 0);
+        Packet p6 = createPacket(1000, 3);
+        queue.add(p1);
+        queue.add(p2);
+        queue.add(p3);
+        queue.add(p4);
+        queue.add(p5);
+        queue.add(p6);
+        assertEquals(6, queue.size());
+
+        // Iteration is in poll order
+        assertEquals(Arrays.asList(p3, p2, p6, p1, p4, p5), new ArrayList<>(queue));
+
+        assertEquals(p3, queue.peek());
+        assertEquals(p5, queue.peekLast());
+        assertEquals(p5, queue.pollLast());
+        assertEquals(p3, queue.poll());
+        assertEquals(p2, queue.poll());
+        assertEquals(p4, queue.pollLast());
+        assertEquals(p6, queue.poll());
+        assertEquals(p1, queue.pollLast());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testAgainstPriorityQueue() {
+        Random random = new Random(1234);
+        BucketedPriorityQueue queue = new BucketedPriorityQueue();
+
+        // Ordering of the former comparator, with unique departure times
+        Comparator<Packet> comparator = Comparator
+                .comparingLong((Packet p) -> ((FullExtTcpPacket) p).getPriority())
+                .thenComparingLong(Packet::getDepartureTime);
+        TreeSet<Packet> reference = new TreeSet<>(comparator);
+
+        for (int t = 0; t < 5000; t++) {
+            int action = random.nextInt(10);
+            if (action < 6) {
+                long priority = random.nextInt(4) == 0 ? random.nextInt(20) : random.nextInt(1000000);
+                Packet packet = createPacket(priority, t);
+                queue.add(packet);
+                reference.add(packet);
+            } else if (action < 9) {
+                assertEquals(reference.pollFirst(), queue.poll());
+            } else {
+                assertEquals(reference.pollLast(), queue.pollLast());
+            }
+            assertEquals(reference.size(), queue.size());
+            assertEquals(reference.isEmpty() ? null : reference.first(), queue.peek());
+            assertEquals(reference.isEmpty() ? null : reference.last(), queue.peekLast());
+        }
+        assertEquals(new ArrayList<>(reference), new ArrayList<>(queue));
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+}